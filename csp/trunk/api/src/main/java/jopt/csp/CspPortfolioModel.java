@@ -0,0 +1,23 @@
+package jopt.csp;
+
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Builds a problem for each worker of a {@link CspPortfolioSolver}.  Each worker
+ * solves an independent copy of the problem, so the model must create new
+ * variables and constraints within the solver it is given every time it is called.
+ */
+public interface CspPortfolioModel {
+    /**
+     * Creates the variables and constraints of the problem within the solver of
+     * a worker and returns the search the worker should use to locate solutions.
+     * This method is called on the thread of the worker.
+     *
+     * @param solver    Solver owned by the worker
+     * @param worker    Index of the worker, from 0 to the number of workers - 1,
+     *                  allowing each worker to use a different search strategy
+     * @return Search to perform for the worker
+     * @throws PropagationFailureException  If the problem has no solution
+     */
+    public CspPortfolioSearch buildModel(CspSolver solver, int worker) throws PropagationFailureException;
+}
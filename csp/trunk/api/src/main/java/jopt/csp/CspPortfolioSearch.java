@@ -0,0 +1,75 @@
+package jopt.csp;
+
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchGoal;
+import jopt.csp.search.SearchTechnique;
+import jopt.csp.solution.SolutionScope;
+
+/**
+ * Describes the search performed by a single worker of a {@link CspPortfolioSolver}
+ */
+public class CspPortfolioSearch {
+    private SearchAction action;
+    private SearchGoal goal;
+    private SearchTechnique technique;
+    private SolutionScope scope;
+
+    /**
+     * Creates a new search
+     *
+     * @param action    Search action used to locate solutions
+     * @param goal      Goal to guide search towards a solution.  If it is a minimize or
+     *                  maximize goal, the best objective value is shared with the other
+     *                  workers.  If null, the first solution located by any worker ends
+     *                  the portfolio search.
+     * @param technique Search technique used to locate solutions, or null for depth first
+     * @param scope     Variables stored in the solution of the portfolio, or null if
+     *                  no solution should be stored
+     */
+    public CspPortfolioSearch(SearchAction action, SearchGoal goal, SearchTechnique technique, SolutionScope scope) {
+        this.action = action;
+        this.goal = goal;
+        this.technique = technique;
+        this.scope = scope;
+    }
+
+    /**
+     * Creates a new search that locates the first solution
+     *
+     * @param action    Search action used to locate solutions
+     * @param technique Search technique used to locate solutions, or null for depth first
+     * @param scope     Variables stored in the solution of the portfolio, or null if
+     *                  no solution should be stored
+     */
+    public CspPortfolioSearch(SearchAction action, SearchTechnique technique, SolutionScope scope) {
+        this(action, null, technique, scope);
+    }
+
+    /**
+     * Returns the search action used to locate solutions
+     */
+    public SearchAction getAction() {
+        return action;
+    }
+
+    /**
+     * Returns the goal guiding the search
+     */
+    public SearchGoal getGoal() {
+        return goal;
+    }
+
+    /**
+     * Returns the technique used to search, or null for depth first
+     */
+    public SearchTechnique getTechnique() {
+        return technique;
+    }
+
+    /**
+     * Returns the variables stored in the solution of the portfolio
+     */
+    public SolutionScope getScope() {
+        return scope;
+    }
+}
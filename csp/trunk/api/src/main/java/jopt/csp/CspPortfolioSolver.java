@@ -0,0 +1,130 @@
+package jopt.csp;
+
+import jopt.csp.search.SearchLimit;
+import jopt.csp.solution.SolverSolution;
+
+/**
+ * Solves a problem using several workers that each build an independent copy of
+ * the problem in their own {@link CspSolver} and search it concurrently with a
+ * different strategy.
+ * <p>
+ * When minimizing or maximizing, each worker prunes its search with the best
+ * objective value located by any worker.  All workers are stopped as soon as
+ * one of them completes its search, proving that the best solution located is
+ * optimal (or that no solution exists), or when the search limit of any worker
+ * is reached.  When no objective is given, the first solution located by any
+ * worker stops all workers.
+ */
+public abstract class CspPortfolioSolver {
+
+    /**
+     * Creates a new portfolio solver
+     *
+     * @param workers   Number of workers that will search concurrently
+     */
+    public static CspPortfolioSolver createPortfolioSolver(int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("portfolio must have at least one worker");
+
+        try {
+            CspPortfolioSolver solver = (CspPortfolioSolver) Class.forName("jopt.csp.spi.PortfolioSolverImpl").newInstance();
+            solver.initSolver(workers);
+            return solver;
+        }
+        catch(Exception e) {
+            throw new RuntimeException("unable to create portfolio solver instance", e);
+        }
+    }
+
+    /**
+     * Initializes the portfolio solver
+     */
+    protected abstract void initSolver(int workers);
+
+    /**
+     * Returns the number of workers that search concurrently
+     */
+    public abstract int getWorkerCount();
+
+    /**
+     * Builds the problem for each worker and searches until a worker proves the
+     * best solution is optimal, a worker reaches the search limit or all workers
+     * have completed their search.
+     *
+     * @param model     Model used to build the problem for each worker
+     * @param limit     Limit applied to the search of each worker, or null if
+     *                  workers should search until completed
+     * @return True if a solution was found
+     */
+    public abstract boolean solve(CspPortfolioModel model, SearchLimit limit);
+
+    /**
+     * Builds the problem for each worker and searches until a worker proves the
+     * best solution is optimal or all workers have completed their search.
+     *
+     * @param model     Model used to build the problem for each worker
+     * @return True if a solution was found
+     */
+    public boolean solve(CspPortfolioModel model) {
+        return solve(model, null);
+    }
+
+    /**
+     * Searches a single search tree with all workers.  Each worker builds the problem
+     * and searches its own copy of the tree depth first, giving open nodes to workers
+     * that have run out of nodes to search.  Nodes are exchanged as paths from the root
+     * of the tree, so the model must produce the same problem and search action for
+     * every worker, and the technique of the search is ignored.
+     *
+     * @param model     Model used to build the problem for each worker
+     * @param limit     Limit applied to the search of each worker, or null if
+     *                  workers should search until the tree is exhausted
+     * @return True if a solution was found
+     */
+    public abstract boolean solveParallel(CspPortfolioModel model, SearchLimit limit);
+
+    /**
+     * Searches a single search tree with all workers until the tree is exhausted
+     * or, if no objective is given, the first solution is found.
+     *
+     * @param model     Model used to build the problem for each worker
+     * @return True if a solution was found
+     * @see #solveParallel(CspPortfolioModel, SearchLimit)
+     */
+    public boolean solveParallel(CspPortfolioModel model) {
+        return solveParallel(model, null);
+    }
+
+    /**
+     * Returns the best solution found by the last call to solve, or null if no
+     * solution was found.  The solution contains the variables of the solution
+     * scope of the worker that located it.
+     */
+    public abstract SolverSolution getBestSolution();
+
+    /**
+     * Returns the index of the worker that located the best solution, or -1
+     * if no solution was found
+     */
+    public abstract int getBestWorker();
+
+    /**
+     * Returns the objective value of the best solution when minimizing or
+     * maximizing, or <code>Double.NaN</code> if no such solution was found
+     */
+    public abstract double getBestObjective();
+
+    /**
+     * Returns true if the last call to solve completed the search of a worker, or the
+     * last call to solveParallel exhausted the search tree, proving that the best
+     * solution is optimal or that no solution exists
+     */
+    public abstract boolean isSearchComplete();
+
+    /**
+     * Returns the solver used by a worker during the last call to solve
+     *
+     * @param worker    Index of the worker
+     */
+    public abstract CspSolver getSolver(int worker);
+}
@@ -17,6 +17,8 @@ import jopt.csp.search.SearchLimits;
 import jopt.csp.search.SearchManager;
 import jopt.csp.search.SearchTechnique;
 import jopt.csp.search.SearchTechniques;
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
 import jopt.csp.solution.SolutionScope;
 import jopt.csp.solution.SolverSolution;
 import jopt.csp.variable.CspAlgorithm;
@@ -72,6 +74,32 @@ public abstract class CspSolver {
         }
     }
 
+    /**
+     * Creates a new solver based upon a given CSP algorithm and search manager
+     * whose choicepoint stack can record changes on a trail.  A trailing stack
+     * only saves and restores the state that changed after each choicepoint
+     * instead of the state of every variable and constraint, which reduces the
+     * cost of each choicepoint during depth first searches of large problems.
+     * 
+     * @param alg       Algorithm the new solver should be based upon.  If null, the
+     *                  implementing class should use a default of its choice. 
+     * @param mgr       Search manager that will be used to locate solutions by solver.
+     *                  If null, the implementing class should use a default solver of its
+     *                  choice.
+     * @param trailing  True if the choicepoint stack should record changes on a trail,
+     *                  false if all state should be saved each time a choicepoint is pushed
+     */
+    public static CspSolver createSolver(CspAlgorithm alg, SearchManager mgr, boolean trailing) {
+        try {
+            CspSolver solver = (CspSolver) Class.forName("jopt.csp.spi.SolverImpl").newInstance();
+            solver.initSolver(alg, mgr, trailing);
+            return solver;
+        }
+        catch(Exception e) {
+            throw new RuntimeException("unable to create solver instance", e);
+        }
+    }
+
     /**
      * Creates a new solver based upon a default generalized AC5 algorithm with
      * a specific search manager
@@ -148,6 +176,27 @@ public abstract class CspSolver {
      */
     protected abstract void initSolver(CspAlgorithm alg, SearchManager searchMgr);
 
+    /**
+     * Initializes the solver based on the algorithm and search manager
+     * that was given during solver creation along with the type of
+     * choicepoint stack the solver should use.  Solvers that cannot
+     * record changes on a trail throw an <code>UnsupportedOperationException</code>
+     * when a trailing stack is requested.
+     */
+    protected void initSolver(CspAlgorithm alg, SearchManager searchMgr, boolean trailing) {
+        if (trailing)
+            throw new UnsupportedOperationException("solver does not support trailing choicepoint stacks");
+        initSolver(alg, searchMgr);
+    }
+
+    /**
+     * Returns true if the choicepoint stack of this solver records
+     * changes on a trail
+     */
+    public boolean isTrailing() {
+        return false;
+    }
+
     /**
      * Retrieves the auto propagation status
      * 
@@ -534,4 +583,32 @@ public abstract class CspSolver {
      */
     public abstract void restoreNeighboringSolution(SolverSolution initial, SolverSolution neighbor) throws PropagationFailureException;
 
+    /**
+     * Records domain values for the variables in the layout of a
+     * compact solution
+     * 
+     * @param solution    Solution object to record data in
+     */
+    public abstract void storeSolution(CompactSolution solution);
+
+    /**
+     * Restores domain state information for the restorable variables
+     * of a compact solution
+     * 
+     * @param solution    Solution object with recorded variable data that
+     *                    should be restored to problem
+     * @see #restoreSolution(SolverSolution)
+     */
+    public abstract void restoreSolution(CompactSolution solution) throws PropagationFailureException;
+
+    /**
+     * Restores a neighbor of a compact solution.  Variables changed by the
+     * neighbor are restored to the values of the neighbor and all other
+     * restorable variables are restored to the values of the initial solution.
+     * 
+     * @param initial   Initial solution that was previously stored
+     * @param neighbor  Changes to initial solution to restore
+     */
+    public abstract void restoreNeighboringSolution(CompactSolution initial, CompactNeighbor neighbor) throws PropagationFailureException;
+
 }
@@ -0,0 +1,23 @@
+package jopt.csp.search;
+
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
+
+/**
+ * A neighborhood that can describe each of its neighbors as a
+ * {@link CompactNeighbor} of a {@link CompactSolution}.  The caller provides the
+ * neighbor object to fill so a neighborhood can be browsed without creating a
+ * new solution for each neighbor.
+ */
+public interface CompactNeighborhood extends Neighborhood {
+    /**
+     * Fills a neighbor with the changes the neighbor at index <code>i</code>
+     * makes to an initial solution.  Any changes previously held by the
+     * neighbor object are cleared.
+     *
+     * @param i         Index of neighbor within neighborhood
+     * @param initial   Solution neighbor is relative to
+     * @param neighbor  Neighbor object to fill with changes
+     */
+    public void getNeighbor(int i, CompactSolution initial, CompactNeighbor neighbor);
+}
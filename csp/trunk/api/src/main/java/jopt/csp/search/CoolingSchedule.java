@@ -0,0 +1,20 @@
+package jopt.csp.search;
+
+/**
+ * Schedule used by simulated annealing and threshold accepting metaheuristics
+ * to lower the temperature of a local search as moves are performed.  The
+ * higher the temperature, the more a move may worsen the objective of the
+ * current solution and still be accepted.
+ *
+ * @see LocalSearch#simulatedAnnealing(CoolingSchedule)
+ * @see LocalSearch#thresholdAccepting(CoolingSchedule)
+ */
+public interface CoolingSchedule {
+    /**
+     * Returns the temperature of a local search when a move is performed
+     *
+     * @param iteration     Number of moves that have been attempted before this move
+     * @return Temperature of search, never less than zero
+     */
+    public double getTemperature(int iteration);
+}
@@ -0,0 +1,25 @@
+package jopt.csp.search;
+
+import jopt.csp.variable.CspVariable;
+
+/**
+ * A neighborhood that declares the variables each of its neighbors changes.
+ * When a neighborhood of this type is browsed, the initial solution is
+ * restored once and each neighbor is evaluated by propagating only the
+ * variables it changes and the parts of the problem those variables reach,
+ * including the objective, instead of restoring and propagating the entire
+ * solution for every neighbor.
+ *
+ * @see LocalSearch#browseNeighborhood(jopt.csp.solution.SolverSolution, Neighborhood, CurrentNeighbor)
+ */
+public interface DeltaNeighborhood extends Neighborhood {
+    /**
+     * Returns the variables assigned a value by the neighbor at index
+     * <code>i</code> that may differ from their value in the initial solution.
+     * Any variable the neighbor assigns that is not contained in the initial
+     * solution must be included.
+     *
+     * @param i     Index of neighbor within neighborhood
+     */
+    public CspVariable[] getChangedVariables(int i);
+}
@@ -2,6 +2,7 @@ package jopt.csp.search;
 
 import jopt.csp.solution.SolverSolution;
 import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariable;
 
 /**
  * Interface for a class that creates and returns common local search actions and objects. 
@@ -219,6 +220,54 @@ public interface LocalSearch {
      * @param hood      Neighborhood of solutions relative to initial
      */
     public SearchAction neighborMove(SolverSolution solution, Neighborhood hood);
+
+    /**
+     * Creates an evaluator that evaluates neighbors on a number of threads.  Each
+     * thread restores neighbors within its own copy of the problem, which is
+     * built by a model the first time neighbors are evaluated and kept until the
+     * evaluator is shut down.  Values of variables of solutions are copied to
+     * and from the variables of each copy of the problem, so every variable of
+     * an initial solution and its neighbors must be included.
+     * 
+     * @param vars      Variables of the problem in the same order as the
+     *                  variables of each copy returned by the model
+     * @param model     Model used to build a copy of the problem for each thread
+     * @param workers   Number of threads evaluating neighbors
+     * @see #browseNeighborhood(SolverSolution, Neighborhood, Metaheuristic, CurrentNeighbor, NeighborEvaluator)
+     * @see #neighborMove(SolverSolution, Neighborhood, Metaheuristic, NeighborEvaluator)
+     */
+    public NeighborEvaluator parallelEvaluator(CspVariable vars[], NeighborReplicaModel model, int workers);
+
+    /**
+     * This action will browse the neighbors of a neighborhood that an evaluator
+     * has found to be consistent with the problem.  Neighbors are evaluated in
+     * parallel before browsing starts, and each neighbor that is acceptable to
+     * the metaheuristic is applied as an alternative choice, beginning with the
+     * neighbor with the best objective value.
+     * 
+     * @param initial       Initial solution related to neighbor
+     * @param hood          Neighborhood of solutions, each to be applied as an alternative choice
+     * @param meta          Metaheuristic used to guide the search, or null if none
+     * @param current       Updated as neighbors are restored to solver to store the currently selected neighbor
+     * @param evaluator     Evaluator of neighbors
+     * @see #browseNeighborhood(SolverSolution, Neighborhood, Metaheuristic, CurrentNeighbor)
+     */
+    public SearchAction browseNeighborhood(SolverSolution initial, Neighborhood hood,
+            Metaheuristic meta, CurrentNeighbor current, NeighborEvaluator evaluator);
+
+    /**
+     * Advanced action that performs all actions necessary to move to a neighboring
+     * solution with neighbors evaluated in parallel.  The neighbor moved to is the
+     * neighbor with the best objective value that is acceptable to the metaheuristic,
+     * or the first acceptable neighbor if the solution has no objective.
+     * 
+     * @param solution  Solution that move is based upon and result will be stored in
+     * @param hood      Neighborhood of solutions relative to initial
+     * @param meta      Metaheuristic used to guide the search, or null if none
+     * @param evaluator Evaluator of neighbors
+     */
+    public SearchAction neighborMove(SolverSolution solution, Neighborhood hood,
+            Metaheuristic meta, NeighborEvaluator evaluator);
     
     public SearchAction tabuMove(SolverSolution solution, Neighborhood hood,
             Metaheuristic meta, SearchGoal goal, int numToCheck);
@@ -260,4 +309,117 @@ public interface LocalSearch {
      * @see #browseNeighborhood(SolverSolution, Neighborhood, Metaheuristic, CurrentNeighbor)
      */
     public Metaheuristic tabu(int forbiddenUndoMoves);
+
+    /**
+     * Simulated Annealing metaheuristic that accepts neighbors that improve the
+     * objective and accepts neighbors that worsen it with a probability that
+     * falls as the temperature of the search is lowered by a cooling schedule.
+     * The neighborhood searched should be randomized.
+     * 
+     * @param schedule      Schedule giving the temperature of each move
+     * @see #randomize(Neighborhood)
+     * @see #geometricCooling(double, double)
+     */
+    public Metaheuristic simulatedAnnealing(CoolingSchedule schedule);
+
+    /**
+     * Simulated Annealing metaheuristic that uses a random number generator
+     * with a fixed seed so that a search can be repeated
+     * 
+     * @param schedule      Schedule giving the temperature of each move
+     * @param seed          Seed of random number generator
+     * @see #simulatedAnnealing(CoolingSchedule)
+     */
+    public Metaheuristic simulatedAnnealing(CoolingSchedule schedule, long seed);
+
+    /**
+     * Threshold Accepting metaheuristic that accepts any neighbor that does not
+     * worsen the objective by more than a threshold given by a cooling schedule
+     * 
+     * @param schedule      Schedule giving the threshold of each move
+     */
+    public Metaheuristic thresholdAccepting(CoolingSchedule schedule);
+
+    /**
+     * Late Acceptance Hill Climbing metaheuristic that accepts a neighbor if its
+     * objective is no worse than either the objective of the current solution or
+     * the objective of the solution a number of moves earlier
+     * 
+     * @param historyLength Number of moves between a solution and the earlier solution it is compared to
+     */
+    public Metaheuristic lateAcceptance(int historyLength);
+
+    /**
+     * Cooling schedule that multiplies the temperature by a constant factor after each move
+     * 
+     * @param initial       Temperature of first move
+     * @param alpha         Factor temperature is multiplied by, greater than 0 and no more than 1
+     */
+    public CoolingSchedule geometricCooling(double initial, double alpha);
+
+    /**
+     * Cooling schedule that subtracts a constant amount from the temperature
+     * after each move until it reaches zero
+     * 
+     * @param initial       Temperature of first move
+     * @param decrement     Amount subtracted from temperature after each move
+     */
+    public CoolingSchedule linearCooling(double initial, double decrement);
+
+    /**
+     * Cooling schedule of Lundy and Mees that lowers temperature <code>t</code> to
+     * <code>t / (1 + beta * t)</code> after each move
+     * 
+     * @param initial       Temperature of first move
+     * @param beta          Rate of cooling, greater than 0
+     */
+    public CoolingSchedule lundyMeesCooling(double initial, double beta);
+
+    /**
+     * Large neighborhood search that improves an incumbent solution by repeatedly
+     * fixing some of the variables to their values in the incumbent and searching
+     * the remaining relaxed variables for a better solution.  Each iteration
+     * searches the tree generated by an action until a number of failures is
+     * reached.  The number of variables relaxed grows when a neighborhood is
+     * searched without improvement and shrinks when the failure limit is reached.
+     * Each improving solution located updates the incumbent and is returned.
+     * 
+     * @param incumbent     Solution defining the objective to improve that is
+     *                      updated each time a better solution is located.  If
+     *                      it does not contain a value for every variable, an
+     *                      initial solution is located by searching the action.
+     * @param vars          Variables that are fixed or relaxed by each iteration
+     * @param action        Action that generates the tree searched in each iteration
+     * @param selector      Selector used to choose the variables that are relaxed
+     * @param failLimit     Number of failures after which an iteration is stopped
+     * @param maxIterations Number of iterations after which the search ends
+     * @see #randomRelaxation()
+     * @see #propagationGuidedRelaxation()
+     * @see #relatedRelaxation(double[][])
+     */
+    public Search largeNeighborhoodSearch(SolverSolution incumbent, CspIntVariable vars[],
+            SearchAction action, RelaxationSelector selector, int failLimit, int maxIterations);
+
+    /**
+     * Creates a relaxation selector for large neighborhood search that relaxes
+     * variables chosen at random
+     */
+    public RelaxationSelector randomRelaxation();
+
+    /**
+     * Creates a relaxation selector for large neighborhood search that fixes
+     * variables one at a time and next fixes the variable whose domain was reduced
+     * most by propagating the variables already fixed
+     */
+    public RelaxationSelector propagationGuidedRelaxation();
+
+    /**
+     * Creates a relaxation selector for large neighborhood search that relaxes
+     * groups of variables that are related to one another
+     * 
+     * @param relatedness   Square matrix where the value in row i and column j is
+     *                      larger the more related variable j is to variable i, with
+     *                      rows and columns in the same order as the variables searched
+     */
+    public RelaxationSelector relatedRelaxation(double relatedness[][]);
 }
\ No newline at end of file
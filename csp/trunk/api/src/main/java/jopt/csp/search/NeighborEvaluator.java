@@ -0,0 +1,39 @@
+package jopt.csp.search;
+
+import jopt.csp.solution.SolverSolution;
+
+/**
+ * Evaluates the neighbors of a solution on several threads, each of which
+ * restores neighbors within its own copy of the problem built by a
+ * {@link NeighborReplicaModel}.  The copies are built the first time neighbors
+ * are evaluated and are kept until the evaluator is shut down, so an evaluator
+ * should be reused for every move of a local search.
+ *
+ * @see LocalSearch#parallelEvaluator(jopt.csp.variable.CspVariable[], NeighborReplicaModel, int)
+ */
+public interface NeighborEvaluator {
+    /**
+     * Returns the number of threads evaluating neighbors
+     */
+    public int getWorkerCount();
+
+    /**
+     * Evaluates every neighbor of a neighborhood of an initial solution and
+     * returns the indices of the neighbors that are consistent with the problem
+     * and differ from the initial solution.  If the initial solution has an
+     * objective, indices are ordered from the neighbor with the best objective
+     * value to the worst, otherwise they are in the order of the neighborhood.
+     * Neighbors with the same objective value are in the order of the
+     * neighborhood, so the result does not depend upon the number of threads.
+     *
+     * @param initial   Initial solution the neighborhood is based upon
+     * @param hood      Neighborhood of initial solution, which should already
+     *                  have been given the initial solution
+     */
+    public int[] evaluate(SolverSolution initial, Neighborhood hood);
+
+    /**
+     * Stops the threads evaluating neighbors and releases the copies of the problem
+     */
+    public void shutdown();
+}
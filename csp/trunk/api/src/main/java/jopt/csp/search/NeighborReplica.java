@@ -0,0 +1,64 @@
+package jopt.csp.search;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspNumExpr;
+import jopt.csp.variable.CspVariable;
+
+/**
+ * Copy of a problem built within its own solver by a {@link NeighborReplicaModel}
+ * so that neighbors can be evaluated on a thread of a {@link NeighborEvaluator}
+ */
+public class NeighborReplica {
+    private CspSolver solver;
+    private CspVariable vars[];
+    private CspNumExpr objective;
+
+    /**
+     * Creates a new replica
+     *
+     * @param solver    Solver containing the copy of the problem
+     * @param vars      Variables of the copy in the same order as the variables
+     *                  of the problem given to the evaluator
+     * @param objective Expression of the copy that corresponds to the objective
+     *                  of solutions whose neighbors are evaluated, or null if
+     *                  solutions have no objective
+     */
+    public NeighborReplica(CspSolver solver, CspVariable vars[], CspNumExpr objective) {
+        this.solver = solver;
+        this.vars = vars;
+        this.objective = objective;
+    }
+
+    /**
+     * Creates a new replica of a problem without an objective
+     *
+     * @param solver    Solver containing the copy of the problem
+     * @param vars      Variables of the copy in the same order as the variables
+     *                  of the problem given to the evaluator
+     */
+    public NeighborReplica(CspSolver solver, CspVariable vars[]) {
+        this(solver, vars, null);
+    }
+
+    /**
+     * Returns the solver containing the copy of the problem
+     */
+    public CspSolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * Returns the variables of the copy in the same order as the variables of
+     * the problem given to the evaluator
+     */
+    public CspVariable[] getVariables() {
+        return vars;
+    }
+
+    /**
+     * Returns the objective expression of the copy, or null if there is none
+     */
+    public CspNumExpr getObjective() {
+        return objective;
+    }
+}
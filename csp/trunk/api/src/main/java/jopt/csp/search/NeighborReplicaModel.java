@@ -0,0 +1,24 @@
+package jopt.csp.search;
+
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Builds a copy of a problem for each worker of a {@link NeighborEvaluator}.
+ * Constraint stores cannot be shared between threads, so each worker evaluates
+ * neighbors within its own copy of the problem.  The model must create a new
+ * solver, variables and constraints every time it is called.  The solver
+ * should use the same algorithm and strength as the solver of the original
+ * problem, so that the copy finds the same neighbors to be consistent.
+ */
+public interface NeighborReplicaModel {
+    /**
+     * Creates a solver containing a copy of the problem and returns it along
+     * with the variables of the copy that correspond to the variables of the
+     * original problem.  This method is called on the thread of the worker.
+     *
+     * @param worker    Index of the worker, from 0 to the number of workers - 1
+     * @return Copy of the problem for the worker
+     * @throws PropagationFailureException  If the problem has no solution
+     */
+    public NeighborReplica buildReplica(int worker) throws PropagationFailureException;
+}
@@ -0,0 +1,28 @@
+package jopt.csp.search;
+
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Interface for a class that selects the variables relaxed by each iteration
+ * of a large neighborhood search.  Variables that are not relaxed are fixed to
+ * their values in the incumbent solution before the relaxed variables are
+ * searched for an improving solution.
+ *
+ * @see LocalSearch#largeNeighborhoodSearch(SolverSolution, CspIntVariable[], SearchAction, RelaxationSelector, int, int)
+ */
+public interface RelaxationSelector {
+    /**
+     * Fixes variables to their values in an incumbent solution until no more
+     * than a number of the variables remain unbound.  Fixing a variable is
+     * propagated, so variables may become bound without being fixed directly.
+     *
+     * @param vars          Variables of the problem that may be relaxed
+     * @param incumbent     Solution containing the values variables are fixed to
+     * @param relaxCount    Number of variables that should be left unbound
+     * @throws PropagationFailureException if the fixed values cannot be extended
+     *          to a solution with the current constraints
+     */
+    public void fix(CspIntVariable vars[], SolverSolution incumbent, int relaxCount) throws PropagationFailureException;
+}
@@ -23,6 +23,53 @@ public interface SearchTechniques {
      */
     public Search search(SearchAction action, SearchTechnique technique);
     
+    /**
+     * Creates a search that restarts a depth first search from the root of the tree
+     * whenever a number of failures is reached, allowing more failures in each run.
+     * Nogoods learned from the decisions of integer generate actions are posted to the
+     * problem before each restart so that later runs do not repeat earlier ones.
+     * 
+     * @param action        Action that will generate the tree to be searched
+     * @param scaleFailures Number of failures allowed in the first run
+     * @param growthFactor  Factor by which the number of failures allowed is multiplied
+     *                      for each following run
+     */
+    public Search restartSearch(SearchAction action, int scaleFailures, double growthFactor);
+    
+    /**
+     * Creates a search that restarts a depth first search from the root of the tree
+     * whenever a number of failures is reached, where the number of failures allowed
+     * in each run follows the Luby sequence (1, 1, 2, 1, 1, 2, 4, 1, ...) multiplied by
+     * a scale factor.  Nogoods learned from the decisions of integer generate actions
+     * are posted to the problem before each restart so that later runs do not repeat
+     * earlier ones.
+     * 
+     * @param action        Action that will generate the tree to be searched
+     * @param scaleFailures Number of failures corresponding to a term of 1 in the sequence
+     */
+    public Search lubyRestartSearch(SearchAction action, int scaleFailures);
+    
+    /**
+     * Creates a depth first search that explains each failure by the decisions
+     * of the search that it depends upon and backjumps over the decisions that
+     * it does not depend upon.  Explanations are recorded by the constraint
+     * algorithm from then on, which slows propagation.
+     * 
+     * @param action        Action that will generate the tree to be searched
+     */
+    public Search learningSearch(SearchAction action);
+    
+    /**
+     * Creates a search that restarts like {@link #lubyRestartSearch} while
+     * explaining failures like {@link #learningSearch}.  Nogoods formed from the
+     * integer decisions that explained failures depend upon are posted to the
+     * problem before each restart.
+     * 
+     * @param action        Action that will generate the tree to be searched
+     * @param scaleFailures Number of failures corresponding to a term of 1 in the sequence
+     */
+    public Search learningRestartSearch(SearchAction action, int scaleFailures);
+    
     /**
      * Creates a new breadth first search technique
      */
@@ -33,6 +80,36 @@ public interface SearchTechniques {
      */
     public SearchTechnique dfs();
 
+    /**
+     * Creates a new limited discrepancy search technique that searches nodes in
+     * order of the number of times the path to the node does not follow the first
+     * child of a node
+     */
+    public SearchTechnique lds();
+
+    /**
+     * Creates a new limited discrepancy search technique that does not search
+     * nodes reached with more than a number of discrepancies
+     * 
+     * @param maxDiscrepancies  Largest number of discrepancies on a path to a searched node
+     */
+    public SearchTechnique lds(int maxDiscrepancies);
+
+    /**
+     * Creates a new depth-bounded discrepancy search technique that searches
+     * paths in order of the depth of the deepest node that is not the first
+     * child of its parent
+     */
+    public SearchTechnique dds();
+
+    /**
+     * Creates a new depth-bounded discrepancy search technique that only allows
+     * discrepancies down to a depth in the tree
+     * 
+     * @param maxDepth          Largest depth of a discrepancy below the root of the search
+     */
+    public SearchTechnique dds(int maxDepth);
+
     /**
      * Special action that changes the search technique being used
      * at this point in the search tree
@@ -0,0 +1,224 @@
+package jopt.csp.solution;
+
+/**
+ * Neighbor of a {@link CompactSolution} that holds only the values of the
+ * variables that differ from the solution it is based upon.  Changes are
+ * identified by the index of the variable in the {@link SolutionLayout} of
+ * the base solution and kept in order of index so that restoring a base
+ * solution with a neighbor is a single pass over both.  A neighbor can be
+ * cleared and refilled so browsing a neighborhood does not need to create a
+ * new object for each neighbor.
+ */
+public class CompactNeighbor {
+    private int size;
+    private int indices[];
+    private long integralMin[];
+    private long integralMax[];
+    private double realMin[];
+    private double realMax[];
+
+    /**
+     * Creates a new neighbor with room for a number of changes
+     *
+     * @param capacity  Number of changes expected, the neighbor grows as needed
+     */
+    public CompactNeighbor(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.indices = new int[capacity];
+        this.integralMin = new long[capacity];
+        this.integralMax = new long[capacity];
+        this.realMin = new double[capacity];
+        this.realMax = new double[capacity];
+    }
+
+    /**
+     * Creates a new neighbor with room for two changes
+     */
+    public CompactNeighbor() {
+        this(2);
+    }
+
+    /**
+     * Removes all changes from this neighbor
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of variables this neighbor changes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the layout index of the variable of a change
+     *
+     * @param k     Change, from 0 to size - 1, in order of increasing layout index
+     */
+    public int getIndex(int k) {
+        return indices[k];
+    }
+
+    /**
+     * Returns the position of a layout index within the changes or -1 if the
+     * variable at the index is not changed
+     */
+    public int find(int index) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indices[mid] < index)
+                low = mid + 1;
+            else if (indices[mid] > index)
+                high = mid - 1;
+            else
+                return mid;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns true if this neighbor changes the variable at a layout index
+     */
+    public boolean contains(int index) {
+        return find(index) >= 0;
+    }
+
+    /**
+     * Returns minimum value of a change to an integer, boolean or long variable
+     */
+    public long getIntegralMin(int k) {
+        return integralMin[k];
+    }
+
+    /**
+     * Returns maximum value of a change to an integer, boolean or long variable
+     */
+    public long getIntegralMax(int k) {
+        return integralMax[k];
+    }
+
+    /**
+     * Returns minimum value of a change to a float or double variable
+     */
+    public double getRealMin(int k) {
+        return realMin[k];
+    }
+
+    /**
+     * Returns maximum value of a change to a float or double variable
+     */
+    public double getRealMax(int k) {
+        return realMax[k];
+    }
+
+    /**
+     * Sets the range of an integer, boolean or long variable.  Booleans are
+     * true when both values are 1 and false when both values are 0.
+     *
+     * @param index     Layout index of variable
+     * @param min       Minimum value of variable
+     * @param max       Maximum value of variable
+     */
+    public void setRange(int index, long min, long max) {
+        int k = insert(index);
+        integralMin[k] = min;
+        integralMax[k] = max;
+    }
+
+    /**
+     * Sets the range of a float or double variable
+     *
+     * @param index     Layout index of variable
+     * @param min       Minimum value of variable
+     * @param max       Maximum value of variable
+     */
+    public void setRange(int index, double min, double max) {
+        int k = insert(index);
+        realMin[k] = min;
+        realMax[k] = max;
+    }
+
+    /**
+     * Returns position of change to a variable, inserting a new change in
+     * order of index if the variable has not been changed
+     */
+    private int insert(int index) {
+        int k = find(index);
+        if (k >= 0)
+            return k;
+
+        if (size == indices.length)
+            grow();
+
+        // shift later changes to keep changes in order of index
+        k = size;
+        while (k > 0 && indices[k-1] > index) {
+            indices[k] = indices[k-1];
+            integralMin[k] = integralMin[k-1];
+            integralMax[k] = integralMax[k-1];
+            realMin[k] = realMin[k-1];
+            realMax[k] = realMax[k-1];
+            k--;
+        }
+
+        indices[k] = index;
+        size++;
+        return k;
+    }
+
+    private void grow() {
+        int capacity = indices.length * 2;
+        int newIndices[] = new int[capacity];
+        long newIntegralMin[] = new long[capacity];
+        long newIntegralMax[] = new long[capacity];
+        double newRealMin[] = new double[capacity];
+        double newRealMax[] = new double[capacity];
+
+        System.arraycopy(indices, 0, newIndices, 0, size);
+        System.arraycopy(integralMin, 0, newIntegralMin, 0, size);
+        System.arraycopy(integralMax, 0, newIntegralMax, 0, size);
+        System.arraycopy(realMin, 0, newRealMin, 0, size);
+        System.arraycopy(realMax, 0, newRealMax, 0, size);
+
+        indices = newIndices;
+        integralMin = newIntegralMin;
+        integralMax = newIntegralMax;
+        realMin = newRealMin;
+        realMax = newRealMax;
+    }
+
+    /**
+     * Copies the changes of another neighbor over the changes of this neighbor
+     */
+    public void copy(CompactNeighbor neighbor) {
+        clear();
+        while (indices.length < neighbor.size)
+            grow();
+
+        System.arraycopy(neighbor.indices, 0, indices, 0, neighbor.size);
+        System.arraycopy(neighbor.integralMin, 0, integralMin, 0, neighbor.size);
+        System.arraycopy(neighbor.integralMax, 0, integralMax, 0, neighbor.size);
+        System.arraycopy(neighbor.realMin, 0, realMin, 0, neighbor.size);
+        System.arraycopy(neighbor.realMax, 0, realMax, 0, neighbor.size);
+        size = neighbor.size;
+    }
+
+    public String toString() {
+        StringBuffer buf = new StringBuffer("{");
+        for (int k=0; k<size; k++) {
+            if (k > 0) buf.append(", ");
+            buf.append(indices[k]).append(":[");
+            buf.append(integralMin[k]).append("..").append(integralMax[k]);
+            buf.append(" | ");
+            buf.append(realMin[k]).append("..").append(realMax[k]);
+            buf.append("]");
+        }
+        buf.append("}");
+        return buf.toString();
+    }
+}
@@ -0,0 +1,563 @@
+package jopt.csp.solution;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import jopt.csp.util.DoubleUtil;
+import jopt.csp.variable.CspBooleanVariable;
+import jopt.csp.variable.CspDoubleVariable;
+import jopt.csp.variable.CspFloatVariable;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.CspNumExpr;
+import jopt.csp.variable.CspVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Solution produced by a solver that holds the minimum and maximum values of
+ * its variables in primitive arrays indexed by a {@link SolutionLayout}
+ * rather than in a map of {@link VariableSolution} objects.  Storing and
+ * restoring a compact solution is a loop over arrays and a solution occupies
+ * only a few arrays, so large pools of solutions can be kept at little cost.
+ * <p>
+ * Integer and boolean values are held in <code>int</code> arrays, with booleans
+ * held as a range of 0 to 1, long values in <code>long</code> arrays and float
+ * and double values in <code>double</code> arrays.  A bit set records the
+ * variables that are restored when the solution is restored.
+ *
+ * @see CompactNeighbor
+ */
+public class CompactSolution {
+    private static final int EMPTY_INTS[] = new int[0];
+    private static final long EMPTY_LONGS[] = new long[0];
+    private static final double EMPTY_DOUBLES[] = new double[0];
+
+    private SolutionLayout layout;
+    private int intMin[];
+    private int intMax[];
+    private long longMin[];
+    private long longMax[];
+    private double realMin[];
+    private double realMax[];
+    private BitSet nonRestorable;
+    private double objectiveVal;
+
+    /**
+     * Creates a new solution for the variables of a layout with every
+     * variable restorable
+     *
+     * @param layout    Layout giving index of each variable in solution
+     */
+    public CompactSolution(SolutionLayout layout) {
+        this.layout = layout;
+
+        int ints = layout.getLongOffset();
+        int longs = layout.getRealOffset() - ints;
+        int reals = layout.size() - ints - longs;
+
+        this.intMin = (ints==0) ? EMPTY_INTS : new int[ints];
+        this.intMax = (ints==0) ? EMPTY_INTS : new int[ints];
+        this.longMin = (longs==0) ? EMPTY_LONGS : new long[longs];
+        this.longMax = (longs==0) ? EMPTY_LONGS : new long[longs];
+        this.realMin = (reals==0) ? EMPTY_DOUBLES : new double[reals];
+        this.realMax = (reals==0) ? EMPTY_DOUBLES : new double[reals];
+        this.nonRestorable = new BitSet();
+    }
+
+    /**
+     * Creates a copy of another solution sharing the same layout
+     */
+    public CompactSolution(CompactSolution sol) {
+        this(sol.layout);
+        copy(sol);
+    }
+
+    /**
+     * Returns the layout of this solution
+     */
+    public SolutionLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Copies all data in a solution with the same layout over the data in
+     * this solution
+     */
+    public void copy(CompactSolution sol) {
+        if (sol.layout != layout)
+            throw new IllegalArgumentException("solutions do not share a layout");
+
+        System.arraycopy(sol.intMin, 0, intMin, 0, intMin.length);
+        System.arraycopy(sol.intMax, 0, intMax, 0, intMax.length);
+        System.arraycopy(sol.longMin, 0, longMin, 0, longMin.length);
+        System.arraycopy(sol.longMax, 0, longMax, 0, longMax.length);
+        System.arraycopy(sol.realMin, 0, realMin, 0, realMin.length);
+        System.arraycopy(sol.realMax, 0, realMax, 0, realMax.length);
+        nonRestorable.clear();
+        nonRestorable.or(sol.nonRestorable);
+        objectiveVal = sol.objectiveVal;
+    }
+
+    /**
+     * Copies the values of the variables of this layout held in a solver
+     * solution over the data in this solution.  Variables the solver solution
+     * does not contain are left unchanged.
+     */
+    public void copy(SolverSolution sol) {
+        CspIntVariable intVars[] = layout.getIntVariables();
+        for (int i=0; i<intVars.length; i++) {
+            if (sol.contains(intVars[i])) {
+                IntSolution vs = sol.getSolution(intVars[i]);
+                intMin[i] = vs.getMin();
+                intMax[i] = vs.getMax();
+                setRestorable(i, sol.isRestorable(intVars[i]));
+            }
+        }
+
+        CspBooleanVariable boolVars[] = layout.getBooleanVariables();
+        int offset = intVars.length;
+        for (int i=0; i<boolVars.length; i++) {
+            if (sol.contains(boolVars[i])) {
+                BooleanSolution vs = sol.getSolution(boolVars[i]);
+                intMin[offset + i] = vs.isTrue() ? 1 : 0;
+                intMax[offset + i] = vs.isFalse() ? 0 : 1;
+                setRestorable(offset + i, sol.isRestorable(boolVars[i]));
+            }
+        }
+
+        CspLongVariable longVars[] = layout.getLongVariables();
+        offset = layout.getLongOffset();
+        for (int i=0; i<longVars.length; i++) {
+            if (sol.contains(longVars[i])) {
+                LongSolution vs = sol.getSolution(longVars[i]);
+                longMin[i] = vs.getMin();
+                longMax[i] = vs.getMax();
+                setRestorable(offset + i, sol.isRestorable(longVars[i]));
+            }
+        }
+
+        CspFloatVariable floatVars[] = layout.getFloatVariables();
+        offset = layout.getRealOffset();
+        for (int i=0; i<floatVars.length; i++) {
+            if (sol.contains(floatVars[i])) {
+                FloatSolution vs = sol.getSolution(floatVars[i]);
+                realMin[i] = vs.getMin();
+                realMax[i] = vs.getMax();
+                setRestorable(offset + i, sol.isRestorable(floatVars[i]));
+            }
+        }
+
+        CspDoubleVariable doubleVars[] = layout.getDoubleVariables();
+        int realOffset = floatVars.length;
+        offset += floatVars.length;
+        for (int i=0; i<doubleVars.length; i++) {
+            if (sol.contains(doubleVars[i])) {
+                DoubleSolution vs = sol.getSolution(doubleVars[i]);
+                realMin[realOffset + i] = vs.getMin();
+                realMax[realOffset + i] = vs.getMax();
+                setRestorable(offset + i, sol.isRestorable(doubleVars[i]));
+            }
+        }
+
+        objectiveVal = sol.getObjectiveVal();
+    }
+
+    /**
+     * Creates a solver solution holding the same data as this solution
+     */
+    public SolverSolution toSolverSolution() {
+        SolverSolution sol = new SolverSolution();
+        CspNumExpr objective = layout.getObjectiveExpression();
+        if (layout.isMinimizeObjective())
+            sol.setMinimizeObjective(objective);
+        else if (layout.isMaximizeObjective())
+            sol.setMaximizeObjective(objective);
+
+        CspIntVariable intVars[] = layout.getIntVariables();
+        for (int i=0; i<intVars.length; i++) {
+            IntSolution vs = sol.add(intVars[i]);
+            vs.setMin(intMin[i]);
+            vs.setMax(intMax[i]);
+        }
+
+        CspBooleanVariable boolVars[] = layout.getBooleanVariables();
+        int offset = intVars.length;
+        for (int i=0; i<boolVars.length; i++) {
+            BooleanSolution vs = sol.add(boolVars[i]);
+            if (intMin[offset + i] > 0)
+                vs.setTrue();
+            else if (intMax[offset + i] < 1)
+                vs.setFalse();
+        }
+
+        CspLongVariable longVars[] = layout.getLongVariables();
+        for (int i=0; i<longVars.length; i++) {
+            LongSolution vs = sol.add(longVars[i]);
+            vs.setMin(longMin[i]);
+            vs.setMax(longMax[i]);
+        }
+
+        CspFloatVariable floatVars[] = layout.getFloatVariables();
+        for (int i=0; i<floatVars.length; i++) {
+            FloatSolution vs = sol.add(floatVars[i]);
+            vs.setMin((float) realMin[i]);
+            vs.setMax((float) realMax[i]);
+        }
+
+        CspDoubleVariable doubleVars[] = layout.getDoubleVariables();
+        offset = floatVars.length;
+        for (int i=0; i<doubleVars.length; i++) {
+            DoubleSolution vs = sol.add(doubleVars[i]);
+            vs.setMin(realMin[offset + i]);
+            vs.setMax(realMax[offset + i]);
+        }
+
+        for (int i=nonRestorable.nextSetBit(0); i>=0; i=nonRestorable.nextSetBit(i+1))
+            sol.setRestorable(layout.getVariable(i), false);
+
+        sol.setObjectiveVal(objectiveVal);
+        return sol;
+    }
+
+    /**
+     * Records the current state of the variables of the layout and the
+     * value of the objective
+     */
+    public void store() {
+        CspIntVariable intVars[] = layout.getIntVariables();
+        for (int i=0; i<intVars.length; i++) {
+            intMin[i] = intVars[i].getMin();
+            intMax[i] = intVars[i].getMax();
+        }
+
+        CspBooleanVariable boolVars[] = layout.getBooleanVariables();
+        int offset = intVars.length;
+        for (int i=0; i<boolVars.length; i++) {
+            intMin[offset + i] = boolVars[i].isTrue() ? 1 : 0;
+            intMax[offset + i] = boolVars[i].isFalse() ? 0 : 1;
+        }
+
+        CspLongVariable longVars[] = layout.getLongVariables();
+        for (int i=0; i<longVars.length; i++) {
+            longMin[i] = longVars[i].getMin();
+            longMax[i] = longVars[i].getMax();
+        }
+
+        CspFloatVariable floatVars[] = layout.getFloatVariables();
+        for (int i=0; i<floatVars.length; i++) {
+            realMin[i] = floatVars[i].getMin();
+            realMax[i] = floatVars[i].getMax();
+        }
+
+        CspDoubleVariable doubleVars[] = layout.getDoubleVariables();
+        offset = floatVars.length;
+        for (int i=0; i<doubleVars.length; i++) {
+            realMin[offset + i] = doubleVars[i].getMin();
+            realMax[offset + i] = doubleVars[i].getMax();
+        }
+
+        // store objective value of solution if objective is set in layout
+        if (layout.isMinimizeObjective())
+            objectiveVal = DoubleUtil.getMax(layout.getObjectiveExpression());
+        else if (layout.isMaximizeObjective())
+            objectiveVal = DoubleUtil.getMin(layout.getObjectiveExpression());
+    }
+
+    /**
+     * Restores the restorable variables of this solution.  Propagation is
+     * left to the caller.
+     */
+    public void restore() throws PropagationFailureException {
+        restore(null);
+    }
+
+    /**
+     * Restores a neighbor of this solution.  Variables the neighbor changes
+     * are restored to the values of the neighbor and the remaining
+     * restorable variables are restored to the values of this solution.
+     * Propagation is left to the caller.
+     *
+     * @param neighbor  Changes to this solution, may be null
+     */
+    public void restore(CompactNeighbor neighbor) throws PropagationFailureException {
+        int changes = (neighbor==null) ? 0 : neighbor.size();
+
+        // restore changes of neighbor
+        for (int k=0; k<changes; k++) {
+            int index = neighbor.getIndex(k);
+            if (layout.isIntegral(index))
+                restore(index, neighbor.getIntegralMin(k), neighbor.getIntegralMax(k));
+            else
+                restore(index, neighbor.getRealMin(k), neighbor.getRealMax(k));
+        }
+
+        // restore remaining variables, skipping changes of the neighbor
+        // which are in order of index
+        int k = 0;
+        int next = (changes > 0) ? neighbor.getIndex(0) : -1;
+
+        CspIntVariable intVars[] = layout.getIntVariables();
+        for (int i=0; i<intVars.length; i++) {
+            if (i == next) {
+                next = (++k < changes) ? neighbor.getIndex(k) : -1;
+                continue;
+            }
+            if (nonRestorable.get(i)) continue;
+
+            intVars[i].setMin(intMin[i]);
+            intVars[i].setMax(intMax[i]);
+        }
+
+        CspBooleanVariable boolVars[] = layout.getBooleanVariables();
+        int offset = intVars.length;
+        for (int i=0; i<boolVars.length; i++) {
+            int index = offset + i;
+            if (index == next) {
+                next = (++k < changes) ? neighbor.getIndex(k) : -1;
+                continue;
+            }
+            if (nonRestorable.get(index)) continue;
+
+            if (intMin[index] > 0) boolVars[i].setTrue();
+            else if (intMax[index] < 1) boolVars[i].setFalse();
+        }
+
+        CspLongVariable longVars[] = layout.getLongVariables();
+        offset = layout.getLongOffset();
+        for (int i=0; i<longVars.length; i++) {
+            int index = offset + i;
+            if (index == next) {
+                next = (++k < changes) ? neighbor.getIndex(k) : -1;
+                continue;
+            }
+            if (nonRestorable.get(index)) continue;
+
+            longVars[i].setMin(longMin[i]);
+            longVars[i].setMax(longMax[i]);
+        }
+
+        CspFloatVariable floatVars[] = layout.getFloatVariables();
+        offset = layout.getRealOffset();
+        for (int i=0; i<floatVars.length; i++) {
+            int index = offset + i;
+            if (index == next) {
+                next = (++k < changes) ? neighbor.getIndex(k) : -1;
+                continue;
+            }
+            if (nonRestorable.get(index)) continue;
+
+            floatVars[i].setMin((float) realMin[i]);
+            floatVars[i].setMax((float) realMax[i]);
+        }
+
+        CspDoubleVariable doubleVars[] = layout.getDoubleVariables();
+        int realOffset = floatVars.length;
+        offset += floatVars.length;
+        for (int i=0; i<doubleVars.length; i++) {
+            int index = offset + i;
+            if (index == next) {
+                next = (++k < changes) ? neighbor.getIndex(k) : -1;
+                continue;
+            }
+            if (nonRestorable.get(index)) continue;
+
+            doubleVars[i].setMin(realMin[realOffset + i]);
+            doubleVars[i].setMax(realMax[realOffset + i]);
+        }
+    }
+
+    /**
+     * Restores an integer, boolean or long variable to a range
+     */
+    private void restore(int index, long min, long max) throws PropagationFailureException {
+        CspVariable var = layout.getVariable(index);
+        if (layout.isBoolean(index)) {
+            CspBooleanVariable bvar = (CspBooleanVariable) var;
+            if (min > 0) bvar.setTrue();
+            else if (max < 1) bvar.setFalse();
+        }
+        else if (layout.isLong(index)) {
+            CspLongVariable lvar = (CspLongVariable) var;
+            lvar.setMin(min);
+            lvar.setMax(max);
+        }
+        else {
+            CspIntVariable ivar = (CspIntVariable) var;
+            ivar.setMin((int) min);
+            ivar.setMax((int) max);
+        }
+    }
+
+    /**
+     * Restores a float or double variable to a range
+     */
+    private void restore(int index, double min, double max) throws PropagationFailureException {
+        CspVariable var = layout.getVariable(index);
+        if (var instanceof CspFloatVariable) {
+            CspFloatVariable fvar = (CspFloatVariable) var;
+            fvar.setMin((float) min);
+            fvar.setMax((float) max);
+        }
+        else {
+            CspDoubleVariable dvar = (CspDoubleVariable) var;
+            dvar.setMin(min);
+            dvar.setMax(max);
+        }
+    }
+
+    /**
+     * Returns true if the variable at an index will be restored when the
+     * solution is restored
+     */
+    public boolean isRestorable(int index) {
+        return !nonRestorable.get(index);
+    }
+
+    /**
+     * True if the variable at an index is to be restored when the solution
+     * is restored
+     */
+    public void setRestorable(int index, boolean restore) {
+        nonRestorable.set(index, !restore);
+    }
+
+    /**
+     * Returns minimum value of the integer, boolean or long variable at an index
+     */
+    public long getIntegralMin(int index) {
+        int longOffset = layout.getLongOffset();
+        return (index < longOffset) ? intMin[index] : longMin[index - longOffset];
+    }
+
+    /**
+     * Returns maximum value of the integer, boolean or long variable at an index
+     */
+    public long getIntegralMax(int index) {
+        int longOffset = layout.getLongOffset();
+        return (index < longOffset) ? intMax[index] : longMax[index - longOffset];
+    }
+
+    /**
+     * Sets range of the integer, boolean or long variable at an index
+     */
+    public void setIntegralRange(int index, long min, long max) {
+        int longOffset = layout.getLongOffset();
+        if (index < longOffset) {
+            intMin[index] = (int) min;
+            intMax[index] = (int) max;
+        }
+        else {
+            longMin[index - longOffset] = min;
+            longMax[index - longOffset] = max;
+        }
+    }
+
+    /**
+     * Returns minimum value of the float or double variable at an index
+     */
+    public double getRealMin(int index) {
+        return realMin[index - layout.getRealOffset()];
+    }
+
+    /**
+     * Returns maximum value of the float or double variable at an index
+     */
+    public double getRealMax(int index) {
+        return realMax[index - layout.getRealOffset()];
+    }
+
+    /**
+     * Sets range of the float or double variable at an index
+     */
+    public void setRealRange(int index, double min, double max) {
+        realMin[index - layout.getRealOffset()] = min;
+        realMax[index - layout.getRealOffset()] = max;
+    }
+
+    /**
+     * Returns minimum value of an integer variable
+     */
+    public int getMin(CspIntVariable var) {
+        return intMin[indexOf(var)];
+    }
+
+    /**
+     * Returns maximum value of an integer variable
+     */
+    public int getMax(CspIntVariable var) {
+        return intMax[indexOf(var)];
+    }
+
+    /**
+     * Returns value of an integer variable
+     */
+    public int getValue(CspIntVariable var) {
+        return getMin(var);
+    }
+
+    /**
+     * Sets value of an integer variable
+     */
+    public void setValue(CspIntVariable var, int val) {
+        int index = indexOf(var);
+        intMin[index] = val;
+        intMax[index] = val;
+    }
+
+    /**
+     * Returns index of a variable, throwing an exception if the variable is
+     * not in the layout
+     */
+    private int indexOf(CspVariable var) {
+        int index = layout.indexOf(var);
+        if (index < 0)
+            throw new IllegalArgumentException("variable " + var + " is not contained in solution");
+        return index;
+    }
+
+    /**
+     * Returns the value stored for this solution's objective expression
+     */
+    public double getObjectiveVal() {
+        return objectiveVal;
+    }
+
+    /**
+     * Sets the value stored for this solution's objective expression
+     */
+    public void setObjectiveVal(double num) {
+        this.objectiveVal = num;
+    }
+
+    /**
+     * Returns true if any variable of a solution with the same layout differs
+     * from the variables of this solution
+     */
+    public boolean isDifferent(CompactSolution sol) {
+        return !Arrays.equals(intMin, sol.intMin)
+            || !Arrays.equals(intMax, sol.intMax)
+            || !Arrays.equals(longMin, sol.longMin)
+            || !Arrays.equals(longMax, sol.longMax)
+            || !Arrays.equals(realMin, sol.realMin)
+            || !Arrays.equals(realMax, sol.realMax);
+    }
+
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        for (int i=0; i<layout.size(); i++) {
+            if (i > 0) buf.append("\n");
+            buf.append(layout.getVariable(i).getName()).append(": ");
+            if (layout.isIntegral(i))
+                buf.append(getIntegralMin(i)).append("..").append(getIntegralMax(i));
+            else
+                buf.append(getRealMin(i)).append("..").append(getRealMax(i));
+        }
+
+        if (layout.isMinimizeObjective())
+            buf.append("\nminimize objective val: ").append(objectiveVal);
+        else if (layout.isMaximizeObjective())
+            buf.append("\nmaximize objective val: ").append(objectiveVal);
+
+        return buf.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package jopt.csp.solution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import jopt.csp.variable.CspBooleanVariable;
+import jopt.csp.variable.CspDoubleVariable;
+import jopt.csp.variable.CspFloatVariable;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.CspNumExpr;
+import jopt.csp.variable.CspVariable;
+
+/**
+ * Assigns an index to each variable in the scope of a solution so that
+ * {@link CompactSolution} objects can hold the values of the variables in
+ * primitive arrays.  Variables are ordered by type: integer variables come
+ * first, followed by boolean, long, float and double variables.  Integer and
+ * boolean values are held in <code>int</code> arrays, long values in
+ * <code>long</code> arrays and float and double values in <code>double</code>
+ * arrays.  A layout is shared by every compact solution created for it.
+ * <p>
+ * Set variables are not supported.
+ */
+public class SolutionLayout {
+    private CspVariable vars[];
+    private CspIntVariable intVars[];
+    private CspBooleanVariable boolVars[];
+    private CspLongVariable longVars[];
+    private CspFloatVariable floatVars[];
+    private CspDoubleVariable doubleVars[];
+    private HashMap<CspVariable, Integer> indices;
+    private int objectiveType;
+    private CspNumExpr objectiveExpr;
+
+    /**
+     * Creates a layout for the variables and objective of a scope
+     *
+     * @param scope     Scope of variables to include within solutions
+     * @throws IllegalArgumentException if the scope contains a set variable
+     */
+    public SolutionLayout(SolutionScope scope) {
+        List<CspIntVariable> ints = new ArrayList<CspIntVariable>();
+        List<CspBooleanVariable> bools = new ArrayList<CspBooleanVariable>();
+        List<CspLongVariable> longs = new ArrayList<CspLongVariable>();
+        List<CspFloatVariable> floats = new ArrayList<CspFloatVariable>();
+        List<CspDoubleVariable> doubles = new ArrayList<CspDoubleVariable>();
+
+        // group variables by type
+        Iterator<CspVariable> varIter = scope.variables().iterator();
+        while (varIter.hasNext()) {
+            CspVariable var = varIter.next();
+
+            if (var instanceof CspIntVariable)
+                ints.add((CspIntVariable) var);
+            else if (var instanceof CspBooleanVariable)
+                bools.add((CspBooleanVariable) var);
+            else if (var instanceof CspLongVariable)
+                longs.add((CspLongVariable) var);
+            else if (var instanceof CspFloatVariable)
+                floats.add((CspFloatVariable) var);
+            else if (var instanceof CspDoubleVariable)
+                doubles.add((CspDoubleVariable) var);
+            else
+                throw new IllegalArgumentException("compact solutions cannot hold variable " + var);
+        }
+
+        this.intVars = ints.toArray(new CspIntVariable[ints.size()]);
+        this.boolVars = bools.toArray(new CspBooleanVariable[bools.size()]);
+        this.longVars = longs.toArray(new CspLongVariable[longs.size()]);
+        this.floatVars = floats.toArray(new CspFloatVariable[floats.size()]);
+        this.doubleVars = doubles.toArray(new CspDoubleVariable[doubles.size()]);
+
+        // assign indices in order of type
+        List<CspVariable> all = new ArrayList<CspVariable>();
+        all.addAll(ints);
+        all.addAll(bools);
+        all.addAll(longs);
+        all.addAll(floats);
+        all.addAll(doubles);
+
+        this.vars = all.toArray(new CspVariable[all.size()]);
+        this.indices = new HashMap<CspVariable, Integer>();
+        for (int i=0; i<vars.length; i++)
+            indices.put(vars[i], new Integer(i));
+
+        this.objectiveType = scope.objectiveType;
+        this.objectiveExpr = scope.objectiveExpr;
+    }
+
+    /**
+     * Returns the number of variables in the layout
+     */
+    public int size() {
+        return vars.length;
+    }
+
+    /**
+     * Returns the index of a variable or -1 if the variable is not in the layout
+     */
+    public int indexOf(CspVariable var) {
+        Integer index = indices.get(var);
+        return (index==null) ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the variable at an index
+     */
+    public CspVariable getVariable(int index) {
+        return vars[index];
+    }
+
+    /**
+     * Returns true if the variable at an index is an integer, boolean or long
+     * variable whose values are held as whole numbers
+     */
+    public boolean isIntegral(int index) {
+        return index < getRealOffset();
+    }
+
+    /**
+     * Returns true if the variable at an index is a long variable
+     */
+    public boolean isLong(int index) {
+        return index >= getLongOffset() && index < getRealOffset();
+    }
+
+    /**
+     * Returns true if the variable at an index is a boolean variable
+     */
+    public boolean isBoolean(int index) {
+        return index >= intVars.length && index < getLongOffset();
+    }
+
+    /**
+     * Returns index of first long variable
+     */
+    int getLongOffset() {
+        return intVars.length + boolVars.length;
+    }
+
+    /**
+     * Returns index of first float or double variable
+     */
+    int getRealOffset() {
+        return intVars.length + boolVars.length + longVars.length;
+    }
+
+    CspIntVariable[] getIntVariables() {
+        return intVars;
+    }
+
+    CspBooleanVariable[] getBooleanVariables() {
+        return boolVars;
+    }
+
+    CspLongVariable[] getLongVariables() {
+        return longVars;
+    }
+
+    CspFloatVariable[] getFloatVariables() {
+        return floatVars;
+    }
+
+    CspDoubleVariable[] getDoubleVariables() {
+        return doubleVars;
+    }
+
+    /**
+     * Returns true if the objective of solutions is to minimize an expression
+     */
+    public boolean isMinimizeObjective() {
+        return objectiveType == SolutionScope.MINIMIZE;
+    }
+
+    /**
+     * Returns true if the objective of solutions is to maximize an expression
+     */
+    public boolean isMaximizeObjective() {
+        return objectiveType == SolutionScope.MAXIMIZE;
+    }
+
+    /**
+     * Returns the objective expression
+     */
+    public CspNumExpr getObjectiveExpression() {
+        return objectiveExpr;
+    }
+}
@@ -0,0 +1,163 @@
+package jopt.csp.util;
+
+import org.apache.commons.collections.primitives.ArrayIntList;
+
+/**
+ * A deterministic finite automaton over integer values, used to describe the
+ * sequences of values accepted by a regular constraint.  States are numbered
+ * from 0 to one less than the number of states and each state may have at
+ * most one transition for any value.
+ */
+public class Automaton {
+    private int stateCount;
+    private int initialState;
+    private boolean accepting[];
+
+    private ArrayIntList fromStates;
+    private ArrayIntList values;
+    private ArrayIntList toStates;
+
+    /**
+     * Creates an automaton without transitions or accepting states
+     *
+     * @param stateCount    Number of states
+     * @param initialState  State before any value is read
+     */
+    public Automaton(int stateCount, int initialState) {
+        if (stateCount <= 0)
+            throw new IllegalArgumentException("automaton must have at least one state");
+        this.stateCount = stateCount;
+        this.initialState = checkState(initialState);
+        this.accepting = new boolean[stateCount];
+        this.fromStates = new ArrayIntList();
+        this.values = new ArrayIntList();
+        this.toStates = new ArrayIntList();
+    }
+
+    /**
+     * Throws an exception if a state does not exist
+     */
+    private int checkState(int state) {
+        if (state < 0 || state >= stateCount)
+            throw new IllegalArgumentException("state " + state + " does not exist");
+        return state;
+    }
+
+    /**
+     * Adds a transition from one state to another when a value is read
+     *
+     * @param from      State before value is read
+     * @param value     Value read
+     * @param to        State after value is read
+     */
+    public void addTransition(int from, int value, int to) {
+        checkState(from);
+        checkState(to);
+        int existing = getNextState(from, value);
+        if (existing == to) return;
+        if (existing >= 0)
+            throw new IllegalArgumentException("state " + from + " already has a transition for value " + value);
+
+        fromStates.add(from);
+        values.add(value);
+        toStates.add(to);
+    }
+
+    /**
+     * Adds a transition from one state to another for each value in a range
+     *
+     * @param from      State before value is read
+     * @param min       Lowest value read
+     * @param max       Highest value read
+     * @param to        State after value is read
+     */
+    public void addTransition(int from, int min, int max, int to) {
+        for (int value=min; value<=max; value++)
+            addTransition(from, value, to);
+    }
+
+    /**
+     * Marks a state as accepting a sequence that ends in it
+     */
+    public void setAccepting(int state) {
+        accepting[checkState(state)] = true;
+    }
+
+    /**
+     * Returns true if a sequence ending in a state is accepted
+     */
+    public boolean isAccepting(int state) {
+        return accepting[checkState(state)];
+    }
+
+    /**
+     * Returns the number of states
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Returns the state before any value is read
+     */
+    public int getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Returns the state reached from a state when a value is read, or -1 if
+     * the state has no transition for the value
+     */
+    public int getNextState(int state, int value) {
+        for (int i=0; i<fromStates.size(); i++) {
+            if (fromStates.get(i) == state && values.get(i) == value)
+                return toStates.get(i);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the automaton ends in an accepting state after reading
+     * a sequence of values
+     */
+    public boolean accepts(int sequence[]) {
+        int state = initialState;
+        for (int i=0; i<sequence.length && state >= 0; i++)
+            state = getNextState(state, sequence[i]);
+        return state >= 0 && accepting[state];
+    }
+
+    /**
+     * Returns the number of transitions
+     */
+    public int getTransitionCount() {
+        return values.size();
+    }
+
+    /**
+     * Returns the state a transition leaves
+     *
+     * @param transition    Index of transition, in the order transitions were added
+     */
+    public int getTransitionFrom(int transition) {
+        return fromStates.get(transition);
+    }
+
+    /**
+     * Returns the value read by a transition
+     *
+     * @param transition    Index of transition, in the order transitions were added
+     */
+    public int getTransitionValue(int transition) {
+        return values.get(transition);
+    }
+
+    /**
+     * Returns the state a transition enters
+     *
+     * @param transition    Index of transition, in the order transitions were added
+     */
+    public int getTransitionTo(int transition) {
+        return toStates.get(transition);
+    }
+}
@@ -1,5 +1,6 @@
 package jopt.csp.variable;
 
+import jopt.csp.util.Automaton;
 
 /**
  * Interface for objects used to create advanced mathematical expressions
@@ -411,6 +412,264 @@ public interface CspMath {
      */
     public CspConstraint memberOfArray(CspLongExpr sources[], CspLongExpr expr);
 
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be less than or equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		integer variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is less than or equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductLeq(int coeffs[], CspIntVariable vars[], int rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		integer variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductEq(int coeffs[], CspIntVariable vars[], int rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be greater than or equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		integer variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is greater than or equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductGeq(int coeffs[], CspIntVariable vars[], int rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be less than or equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		long variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is less than or equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductLeq(long coeffs[], CspLongVariable vars[], long rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		long variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductEq(long coeffs[], CspLongVariable vars[], long rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be greater than or equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		long variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is greater than or equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductGeq(long coeffs[], CspLongVariable vars[], long rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be less than or equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		double variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is less than or equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductLeq(double coeffs[], CspDoubleVariable vars[], double rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		double variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductEq(double coeffs[], CspDoubleVariable vars[], double rhs);
+
+    /**
+     * Constrains the sum of coeffs[i]*vars[i] to be greater than or equal to a constant.
+     * The constraint is posted as a single arc without intermediate variables,
+     * so it is preferred over chains of <code>add</code> and <code>multiply</code>
+     * expressions when the sum has many terms.
+     * @param	coeffs		coefficient of each variable
+     * @param	vars		double variables whose weighted sum is constrained
+     * @param	rhs			constant the sum is greater than or equal to
+     * @return	constraint relating the weighted sum to rhs
+     */
+    public CspConstraint scalarProductGeq(double coeffs[], CspDoubleVariable vars[], double rhs);
+
+    /**
+     * Constrains an expression to equal the element of an array at the position
+     * given by an index, such as <code>result == values[index]</code>.  The constraint
+     * is posted as a single arc that tracks the positions supporting each value,
+     * so propagation is proportional to the positions removed rather than to the
+     * size of the array.
+     * @param	values		array of integer values
+     * @param	index		expression referencing a position in the array, starting at 0
+     * @param	result		expression equal to the value at the index
+     * @return	constraint relating result to the element of the array at index
+     */
+    public CspConstraint element(int values[], CspIntExpr index, CspIntExpr result);
+
+    /**
+     * Constrains an expression to equal the element of an array at the position
+     * given by an index, such as <code>result == values[index]</code>.  The constraint
+     * is posted as a single arc that tracks the positions supporting each value,
+     * so propagation is proportional to the positions removed rather than to the
+     * size of the array.
+     * @param	values		array of long values
+     * @param	index		expression referencing a position in the array, starting at 0
+     * @param	result		expression equal to the value at the index
+     * @return	constraint relating result to the element of the array at index
+     */
+    public CspConstraint element(long values[], CspIntExpr index, CspLongExpr result);
+
+    /**
+     * Constrains an expression to equal the element of an array at the position
+     * given by an index, such as <code>result == values[index]</code>.  The constraint
+     * is posted as a single arc that tracks the positions supporting each value,
+     * so propagation is proportional to the positions removed rather than to the
+     * size of the array.
+     * @param	values		array of double values
+     * @param	index		expression referencing a position in the array, starting at 0
+     * @param	result		expression equal to the value at the index
+     * @return	constraint relating result to the element of the array at index
+     */
+    public CspConstraint element(double values[], CspIntExpr index, CspDoubleExpr result);
+
+    /**
+     * Constrains an expression to equal the element of an array at the position
+     * given by an index, such as <code>result == sources[index]</code>.  The constraint
+     * is posted as a single arc over the expressions of the array, and only the
+     * positions remaining in the domain of the index are examined.
+     * @param	sources		array of integer expressions
+     * @param	index		expression referencing a position in the array, starting at 0
+     * @param	result		expression equal to the expression at the index
+     * @return	constraint relating result to the element of the array at index
+     */
+    public CspConstraint element(CspIntExpr sources[], CspIntExpr index, CspIntExpr result);
+
+    /**
+     * Constrains an expression to equal the element of an array at the position
+     * given by an index, such as <code>result == sources[index]</code>.  The constraint
+     * is posted as a single arc over the expressions of the array, and only the
+     * positions remaining in the domain of the index are examined.
+     * @param	sources		array of long expressions
+     * @param	index		expression referencing a position in the array, starting at 0
+     * @param	result		expression equal to the expression at the index
+     * @return	constraint relating result to the element of the array at index
+     */
+    public CspConstraint element(CspLongExpr sources[], CspIntExpr index, CspLongExpr result);
+
+    /**
+     * Constrains an expression to equal the element of an array at the position
+     * given by an index, such as <code>result == sources[index]</code>.  The constraint
+     * is posted as a single arc over the expressions of the array, and only the
+     * positions remaining in the domain of the index are examined.
+     * @param	sources		array of double expressions
+     * @param	index		expression referencing a position in the array, starting at 0
+     * @param	result		expression equal to the expression at the index
+     * @return	constraint relating result to the element of the array at index
+     */
+    public CspConstraint element(CspDoubleExpr sources[], CspIntExpr index, CspDoubleExpr result);
+
+    /**
+     * Constrains an expression to equal one of the expressions wrapped by a generic
+     * expression, where the index references the offset of the expression within
+     * the generic expression.
+     * @param	source		generic expression wrapping the array of expressions
+     * @param	index		expression referencing an offset of the generic expression
+     * @param	result		expression equal to the expression at the index
+     * @return	constraint relating result to the expression at index
+     */
+    public CspConstraint element(CspGenericIntExpr source, CspIntExpr index, CspIntExpr result);
+
+    /**
+     * Constrains an expression to equal one of the expressions wrapped by a generic
+     * expression, where the index references the offset of the expression within
+     * the generic expression.
+     * @param	source		generic expression wrapping the array of expressions
+     * @param	index		expression referencing an offset of the generic expression
+     * @param	result		expression equal to the expression at the index
+     * @return	constraint relating result to the expression at index
+     */
+    public CspConstraint element(CspGenericLongExpr source, CspIntExpr index, CspLongExpr result);
+
+    /**
+     * Constrains the values of a set of variables to match one of the rows of a
+     * table of allowed tuples.  The constraint is posted as a single arc that
+     * keeps the rows remaining valid in a bit set, removing rows 64 at a time
+     * as values are removed from the variables.
+     * @param	vars		variables of each column of the table
+     * @param	tuples		rows of the table, each holding a value for every variable
+     * @return	constraint requiring the variables to take the values of a row of the table
+     */
+    public CspConstraint table(CspIntVariable vars[], int tuples[][]);
+
+    /**
+     * Constrains tasks with fixed durations and demands to never use more than
+     * the capacity of a resource at any time.  The start times are filtered
+     * using time-tabling and edge finding.
+     * @param	start		start time of each task
+     * @param	duration	duration of each task
+     * @param	demand		amount of the resource used by each task while it runs
+     * @param	capacity	amount of the resource available at any time
+     * @return	constraint limiting the use of the resource to its capacity
+     */
+    public CspConstraint cumulative(CspIntVariable start[], int duration[], int demand[], int capacity);
+
+    /**
+     * Constrains tasks with fixed durations to run one at a time.  The start
+     * times are filtered using edge finding, detectable precedences and
+     * not-first/not-last rules.
+     * @param	start		start time of each task
+     * @param	duration	duration of each task
+     * @return	constraint preventing any two tasks from running at once
+     */
+    public CspConstraint disjunctive(CspIntVariable start[], int duration[]);
+
+    /**
+     * Constrains variables holding the successor of each position, numbered
+     * from 0, to form a single circuit visiting every position.  Successors
+     * must differ and no subtour through fewer than all positions may be
+     * closed.
+     * @param	next	successor of each position
+     * @return	constraint requiring the successors to form a single circuit
+     */
+    public CspConstraint circuit(CspIntVariable next[]);
+
+    /**
+     * Constrains the values of a sequence of variables to be accepted by a
+     * deterministic finite automaton, such as rules limiting consecutive
+     * shifts of a schedule
+     * @param	seq		variables holding each value of the sequence
+     * @param	dfa		automaton accepting valid sequences
+     * @return	constraint requiring the automaton to accept the sequence
+     */
+    public CspConstraint regular(CspIntVariable seq[], Automaton dfa);
+
     /**
      * Creates a variable equal to the summation of values in the generic
      * variable.  All indices in given range must exist in the variable X.
@@ -26,16 +26,16 @@ import jopt.csp.variable.PropagationFailureException;
  * @version $Revision: 1.4 $
  */
 public class NQueenLocalSearch {
+    // value using during initialization that is based on mathmatical analysis
+    // of algorithm
+    private static double INITIAL_LOOP_FACTOR = 3.08d;
+    
     //n is size of the problem
-    private static int n = 10;
+    private int n;
 
     // maximum number of search steps that will be performed before problem
     // will be re-initialized
-    private static int MAX_SEARCH_STEPS = (n<=25) ? 100 * n : 7000;
-    
-    // value using during initialization that is based on mathmatical analysis
-    // of algorithm
-    private static double INITIAL_LOOP_FACTOR = 3.08d;
+    private int maxSearchSteps;
     
     private CspSolver solver;
     private CspVariableFactory varFactory;
@@ -44,7 +44,9 @@ public class NQueenLocalSearch {
     private SolverSolution solution;
     private CspIntVariable xvars[];
     
-    public NQueenLocalSearch() {
+    public NQueenLocalSearch(int n) {
+        this.n = n;
+        this.maxSearchSteps = (n<=25) ? 100 * n : 7000;
         this.solver = CspSolver.createSolver();
         this.varFactory = solver.getVarFactory();
         this.searchActions = solver.getSearchActions();
@@ -61,6 +63,19 @@ public class NQueenLocalSearch {
     
     // function called to solve the problem
     private void solve() throws Exception {
+        findSolution();
+
+        // output solution
+        System.out.println("-- final");
+        System.out.println(solution);
+    }
+    
+    /**
+     * Searches until a solution is found
+     * 
+     * @return Solution placing a queen in each column without collisions
+     */
+    SolverSolution findSolution() {
         boolean solutionFound = false;
         while (!solutionFound) {
             // create initial solution and determine number of queens that 
@@ -70,10 +85,22 @@ public class NQueenLocalSearch {
             // perform local search looking for solutions
             solutionFound = finalSearch(initialCollisions);
         }
-
-        // output solution
-        System.out.println("-- final");
-        System.out.println(solution);
+        
+        return solution;
+    }
+    
+    /**
+     * Returns the solver the problem is solved with
+     */
+    CspSolver getSolver() {
+        return solver;
+    }
+    
+    /**
+     * Returns the variables holding the row of the queen in each column
+     */
+    CspIntVariable[] getVariables() {
+        return xvars;
     }
     
     /**
@@ -95,7 +122,7 @@ public class NQueenLocalSearch {
             // repeat until no collisions detected for column i
             while (!noCollisions) {
                 // exit search if a maximum number of steps has ben exceeded
-                if (searchSteps++ > MAX_SEARCH_STEPS)
+                if (searchSteps++ > maxSearchSteps)
                     return false;
                 
                 // find random value between 1 and n
@@ -219,7 +246,7 @@ public class NQueenLocalSearch {
      * @param col       Column constraints should be posted for
      * @return False if unable to add collision constraints
      */
-    private boolean addPartialCollisionConstraints(int col) {
+    boolean addPartialCollisionConstraints(int col) {
         return addCollisionConstraints(col, col-1);
     }
     
@@ -269,6 +296,7 @@ public class NQueenLocalSearch {
     }
     
     public static void main(String[] args) throws Exception {
-        new NQueenLocalSearch().solve();
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        new NQueenLocalSearch(n).solve();
     }
 }
@@ -0,0 +1,148 @@
+package jopt.csp.example.api;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.CurrentNeighbor;
+import jopt.csp.search.LocalSearch;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+
+/**
+ * Measures the number of neighbors evaluated per second when swapping the
+ * queens of a solution found by {@link NQueenLocalSearch}, with neighbors
+ * evaluated by delta and with each neighbor restored in its entirety.  The
+ * solver of the example is used with its collision constraints posted for
+ * every column.
+ * <p>
+ * Browsing restores only the neighbors that are consistent with the problem,
+ * and those neighbors are still restored in their entirety, so browsing gains
+ * only from the neighbors it skips.  A tabu move computes the objective of
+ * every neighbor by delta.
+ * <p>
+ * This is not an example of the solver; run it from the command line with
+ * optional arguments for the number of queens and the number of repetitions.
+ */
+public class NQueenLocalSearchBenchmark {
+    private static int repetitions;
+
+    private CspSolver solver;
+    private LocalSearch local;
+    private CspIntVariable x[];
+    private SolverSolution initial;
+
+    public static void main(String[] args) throws Exception {
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 40;
+        repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        NQueenLocalSearchBenchmark benchmark = new NQueenLocalSearchBenchmark(new NQueenLocalSearch(n));
+
+        // warm up
+        for (int i=0; i<3; i++) {
+            benchmark.evaluate(false, true);
+            benchmark.evaluate(false, false);
+        }
+
+        System.out.println("queens (" + n + "), neighbors per second");
+        benchmark.report(false);
+        benchmark.report(true);
+    }
+
+    /**
+     * Finds a solution with the example and posts its collision constraints
+     * for every column
+     */
+    private NQueenLocalSearchBenchmark(NQueenLocalSearch example) throws Exception {
+        SolverSolution found = example.findSolution();
+        solver = example.getSolver();
+        local = solver.getLocalSearch();
+        x = example.getVariables();
+
+        solver.clear();
+        for (int i=0; i<x.length; i++) {
+            if (!example.addPartialCollisionConstraints(i))
+                throw new IllegalStateException("solution of example is not consistent");
+        }
+
+        initial = new SolverSolution();
+        for (int i=0; i<x.length; i++) {
+            initial.add(x[i]);
+            initial.setValue(x[i], found.getValue(x[i]));
+        }
+
+        CspIntExpr cost = x[0];
+        for (int i=1; i<x.length; i++)
+            cost = cost.add(x[i].multiply(i + 1));
+        initial.setMinimizeObjective(cost);
+    }
+
+    /**
+     * Evaluates the neighborhood with and without delta and prints the rate
+     */
+    private void report(boolean tabu) {
+        String name = tabu ? "tabu move" : "browse";
+        System.out.println("    " + name + " full: " + evaluate(tabu, false));
+        System.out.println("    " + name + " delta: " + evaluate(tabu, true));
+    }
+
+    /**
+     * Evaluates all swaps of the solution a number of times and returns the
+     * number of neighbors evaluated per second
+     */
+    private long evaluate(boolean tabu, boolean delta) {
+        Neighborhood hood = local.swapNeighborhood(x);
+        if (!delta) hood = new FullNeighborhood(hood);
+
+        long start = System.nanoTime();
+        for (int r=0; r<repetitions; r++) {
+            if (tabu) {
+                SolverSolution solution = new SolverSolution();
+                solution.copy(initial);
+                solver.solve(local.tabuMove(solution, hood, hood.size()));
+            }
+            else {
+                boolean found = solver.solve(local.browseNeighborhood(initial, hood, new CurrentNeighbor()));
+                while (found)
+                    found = solver.nextSolution();
+            }
+        }
+        long time = Math.max(1, System.nanoTime() - start);
+        return (long) (repetitions * (double) hood.size() * 1000000000d / time);
+    }
+
+    /**
+     * Neighborhood that hides whether a neighborhood is a delta neighborhood so
+     * that its neighbors are restored in their entirety
+     */
+    private static class FullNeighborhood implements Neighborhood {
+        private Neighborhood hood;
+
+        public FullNeighborhood(Neighborhood hood) {
+            this.hood = hood;
+        }
+
+        public void setInitialSolution(SolverSolution initial) {
+            hood.setInitialSolution(initial);
+        }
+
+        public int size() {
+            return hood.size();
+        }
+
+        public SolverSolution getNeighbor(int i) {
+            return hood.getNeighbor(i);
+        }
+
+        public void neighborSelected(int i) {
+            hood.neighborSelected(i);
+        }
+
+        public Neighborhood getSelectedNeighborhood() {
+            return hood.getSelectedNeighborhood();
+        }
+
+        public int getSelectedNeighborhoodOffset() {
+            return hood.getSelectedNeighborhoodOffset();
+        }
+    }
+}
@@ -63,8 +63,8 @@ public class AC1 extends ArcBasedAcAlg {
                 // propagate every arc in graph
             	Iterator<Arc> arcIter = arcs.iterator();
                 while (arcIter.hasNext()) {
-                    Arc arc = (Arc) arcIter.next();
-                    arc.propagate();
+                    currentArc = (Arc) arcIter.next();
+                    currentArc.propagate();
                 }
             }
             catch (ConcurrentModificationException modx) {
@@ -73,6 +73,14 @@ public class AC1 extends ArcBasedAcAlg {
                 // a node has changed and we restart visiting all arcs.
                 changed = true;
             }
+            catch (PropagationFailureException propx) {
+                // weight nodes of the arc that failed for search heuristics
+                arcFailed(currentArc);
+                throw propx;
+            }
+            finally {
+                currentArc = null;
+            }
         }
     }
 
@@ -84,6 +92,7 @@ public class AC1 extends ArcBasedAcAlg {
         // initialize arc strength
         arc.setAlgorithmStrength(strength);
         arc.setUseDomainDeltas(false);
+        recordArcAdded(arc);
         
         this.changed = true;
     }
@@ -93,6 +102,7 @@ public class AC1 extends ArcBasedAcAlg {
      * process arcs in graph
      */
     public void nodeChangedEvent(NodeArcGraph graph, NodeChangeEvent evt) {
+        recordChange(evt);
         this.changed = true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+package jopt.csp.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jopt.csp.CspPortfolioModel;
+import jopt.csp.CspPortfolioSearch;
+import jopt.csp.CspPortfolioSolver;
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchGoal;
+import jopt.csp.search.SearchLimit;
+import jopt.csp.search.SearchNode;
+import jopt.csp.search.SearchTechnique;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.search.goal.MinMaxSearchGoal;
+import jopt.csp.spi.search.goal.SharedObjectiveBound;
+import jopt.csp.spi.search.technique.WorkStealingPool;
+import jopt.csp.spi.search.technique.WorkStealingSearch;
+import jopt.csp.spi.search.tree.SearchTechniqueChange;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Portfolio solver that runs each worker on a thread of a fixed size thread
+ * pool created for each call to solve.  Each worker builds the problem in a
+ * new {@link SolverImpl}, so workers share no variables, constraint stores or
+ * choicepoint stacks.  Workers share the best objective value through a
+ * {@link SharedObjectiveBound} and are stopped through a search limit applied
+ * to the top action of each worker.  When searching in parallel, workers
+ * exchange open nodes through a {@link WorkStealingPool}.
+ */
+public class PortfolioSolverImpl extends CspPortfolioSolver {
+    private int workerCount;
+    private CspSolver solvers[];
+    private volatile boolean stopped;
+    private WorkStealingPool workPool;
+    private boolean complete;
+    private SolverSolution bestSolution;
+    private int bestWorker;
+    private double bestObjective;
+
+    // javadoc inherited from CspPortfolioSolver
+    protected void initSolver(int workers) {
+        this.workerCount = workers;
+        this.solvers = new CspSolver[workers];
+        this.bestWorker = -1;
+        this.bestObjective = Double.NaN;
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public boolean solve(CspPortfolioModel model, SearchLimit limit) {
+        return solve(model, limit, null);
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public boolean solveParallel(CspPortfolioModel model, SearchLimit limit) {
+        return solve(model, limit, new WorkStealingPool(workerCount));
+    }
+
+    /**
+     * Runs workers until they are stopped or have completed their search
+     *
+     * @param model     Model used to build the problem for each worker
+     * @param limit     Limit applied to the search of each worker
+     * @param workPool  Pool of open nodes when workers search a single tree,
+     *                  or null if each worker searches its own tree
+     */
+    private boolean solve(CspPortfolioModel model, SearchLimit limit, WorkStealingPool workPool) {
+        // reset results of any previous solve
+        this.stopped = false;
+        this.workPool = workPool;
+        this.complete = false;
+        this.bestSolution = null;
+        this.bestWorker = -1;
+        this.bestObjective = Double.NaN;
+        for (int i=0; i<workerCount; i++) solvers[i] = null;
+
+        SharedObjectiveBound sharedBound = new SharedObjectiveBound();
+        List<Worker> workers = new ArrayList<Worker>(workerCount);
+        for (int i=0; i<workerCount; i++)
+            workers.add(new Worker(i, model, limit, sharedBound));
+
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<Object>> results = executor.invokeAll(workers);
+
+            // rethrow the first error of any worker
+            for (int i=0; i<results.size(); i++) {
+                try {
+                    results.get(i).get();
+                }
+                catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw new RuntimeException("error in portfolio worker " + i, cause);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            executor.shutdownNow();
+            this.workPool = null;
+        }
+
+        return bestWorker >= 0;
+    }
+
+    /**
+     * Records a solution located by a worker if it is better than the best
+     * known solution
+     *
+     * @param worker    Index of worker locating solution
+     * @param solver    Solver of worker with state of solution
+     * @param search    Search performed by worker
+     * @return True if the worker should continue searching for solutions
+     */
+    private synchronized boolean solutionFound(int worker, CspSolver solver, CspPortfolioSearch search) {
+        SearchGoal goal = search.getGoal();
+        boolean optimizing = goal instanceof MinMaxSearchGoal;
+
+        double objective = Double.NaN;
+        boolean improved = (bestWorker < 0);
+        if (optimizing) {
+            objective = goal.bestObjectiveValue();
+            improved = improved || ((MinMaxSearchGoal) goal).isImprovement(bestObjective, objective);
+        }
+
+        if (improved) {
+            bestWorker = worker;
+            bestObjective = objective;
+            bestSolution = (search.getScope()!=null) ? solver.storeSolution(search.getScope()) : null;
+        }
+
+        // first solution ends search when not optimizing
+        if (!optimizing) stop();
+        return !stopped;
+    }
+
+    /**
+     * Called when a worker has searched its entire tree, proving that no
+     * better solution than the best known exists
+     */
+    private synchronized void searchCompleted() {
+        complete = true;
+        stop();
+    }
+
+    /**
+     * Stops all workers
+     */
+    private void stop() {
+        stopped = true;
+        WorkStealingPool pool = workPool;
+        if (pool!=null) pool.stop();
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public synchronized SolverSolution getBestSolution() {
+        return bestSolution;
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public synchronized int getBestWorker() {
+        return bestWorker;
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public synchronized double getBestObjective() {
+        return bestObjective;
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public synchronized boolean isSearchComplete() {
+        return complete;
+    }
+
+    // javadoc inherited from CspPortfolioSolver
+    public synchronized CspSolver getSolver(int worker) {
+        return solvers[worker];
+    }
+
+    /**
+     * Builds the problem for a worker and searches it
+     */
+    private class Worker implements Callable<Object> {
+        private int worker;
+        private CspPortfolioModel model;
+        private SearchLimit limit;
+        private SharedObjectiveBound sharedBound;
+        private boolean limited;
+
+        public Worker(int worker, CspPortfolioModel model, SearchLimit limit, SharedObjectiveBound sharedBound) {
+            this.worker = worker;
+            this.model = model;
+            this.limit = limit;
+            this.sharedBound = sharedBound;
+        }
+
+        public Object call() {
+            CspSolver solver = CspSolver.createSolver();
+            synchronized (PortfolioSolverImpl.this) {
+                solvers[worker] = solver;
+            }
+
+            CspPortfolioSearch search = null;
+            try {
+                search = model.buildModel(solver, worker);
+            }
+            catch (PropagationFailureException propx) {
+                // problem has no solution
+                searchCompleted();
+                return null;
+            }
+
+            // workers sharing a single tree only check the objective bound so
+            // that nodes produce the same children in the tree of every worker
+            SearchGoal goal = search.getGoal();
+            if (goal instanceof MinMaxSearchGoal) {
+                ((MinMaxSearchGoal) goal).setSharedBound(sharedBound);
+                ((MinMaxSearchGoal) goal).setPostBound(workPool==null);
+            }
+
+            // apply limit that stops worker when portfolio is stopped
+            SearchLimit workerLimit = new WorkerLimit(this, (limit!=null) ? (SearchLimit) limit.clone() : null);
+            SearchAction action = new SearchTechniqueChange(workerLimit, search.getAction());
+            SearchTechnique technique = (workPool!=null) ? new WorkStealingSearch(workPool, worker) : search.getTechnique();
+
+            // worker that never searched cannot prove search complete
+            if (stopped) return null;
+
+            // an error in one worker must release the others, which may be
+            // waiting for open nodes that the failed worker will never share
+            boolean searched = false;
+            try {
+                boolean found = solver.solve(action, goal, technique, true, false);
+                while (found) {
+                    if (!solutionFound(worker, solver, search)) return null;
+                    found = solver.nextSolution();
+                }
+                searched = true;
+            }
+            finally {
+                if (!searched) stop();
+            }
+
+            // entire tree was searched if search was not limited, and
+            // every worker has finished if searching a single tree
+            if (!limited && (workPool==null || workPool.isExhausted())) searchCompleted();
+            return null;
+        }
+    }
+
+    /**
+     * Search limit that stops a worker when the portfolio has been stopped
+     * and stops the portfolio when the limit of the worker is reached
+     */
+    private class WorkerLimit implements SearchLimit {
+        private Worker worker;
+        private SearchLimit limit;
+
+        public WorkerLimit(Worker worker, SearchLimit limit) {
+            this.worker = worker;
+            this.limit = limit;
+        }
+
+        // javadoc inherited
+        public void init(SearchNode node) {
+            if (limit!=null) limit.init(node);
+        }
+
+        // javadoc inherited
+        public boolean isOkToContinue(SearchNode node) {
+            if (stopped) {
+                worker.limited = true;
+                return false;
+            }
+
+            if (limit!=null && !limit.isOkToContinue(node)) {
+                worker.limited = true;
+                stop();
+                return false;
+            }
+
+            return true;
+        }
+
+        public Object clone() {
+            return new WorkerLimit(worker, (limit!=null) ? (SearchLimit) limit.clone() : null);
+        }
+    }
+}
@@ -9,11 +9,14 @@ import jopt.csp.search.SearchAction;
 import jopt.csp.search.SearchGoal;
 import jopt.csp.search.SearchManager;
 import jopt.csp.search.SearchTechnique;
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
 import jopt.csp.solution.SolverSolution;
 import jopt.csp.spi.search.SearchManagerImpl;
 import jopt.csp.spi.search.technique.TreeSearch;
 import jopt.csp.spi.search.technique.TreeSearchTechnique;
 import jopt.csp.spi.solver.ChoicePointAlgorithm;
+import jopt.csp.spi.solver.ChoicePointStack;
 import jopt.csp.spi.solver.ConstraintStore;
 import jopt.csp.variable.CspAlgorithm;
 import jopt.csp.variable.CspAlgorithmStrength;
@@ -46,11 +49,16 @@ public class SolverImpl extends CspSolver {
 
     //  javadoc inherited from CspSolver
     protected void initSolver(CspAlgorithm alg, SearchManager searchMgr) {
+        initSolver(alg, searchMgr, false);
+    }
+
+    //  javadoc inherited from CspSolver
+    protected void initSolver(CspAlgorithm alg, SearchManager searchMgr, boolean trailing) {
         // create default algorithm if not specified during creation
         this.cspAlgorithm = (alg!=null) ? alg : createDefaultAlgorithm();
 
         // create constraint store that wraps algorithm
-        this.store = new ConstraintStore((ChoicePointAlgorithm) cspAlgorithm);
+        this.store = new ConstraintStore((ChoicePointAlgorithm) cspAlgorithm, new ChoicePointStack(trailing));
 
         // create default search manager if not specified during creation
         this.searchMgr = (searchMgr!=null) ? searchMgr : new SearchManagerImpl(getVarFactory(), store);
@@ -58,6 +66,18 @@ public class SolverImpl extends CspSolver {
         this.preProcessors = new ArrayList<CspPreProcessor>();
     }
 
+    /**
+     * Returns the constraint store containing the problem of this solver
+     */
+    public ConstraintStore getConstraintStore() {
+        return store;
+    }
+
+    // javadoc inherited from CspSolver
+    public boolean isTrailing() {
+        return store.getChoicePointStack().isTrailing();
+    }
+
     // javadoc inherited from CspSolver
     public boolean getAutoPropagate() {
         return store.getAutoPropagate();
@@ -197,4 +217,19 @@ public class SolverImpl extends CspSolver {
     public void restoreNeighboringSolution(SolverSolution initial, SolverSolution neighbor) throws PropagationFailureException {
         store.restoreNeighboringSolution(initial, neighbor);
     }
+
+    // javadoc inherited from CspSolver
+    public void storeSolution(CompactSolution solution) {
+        store.storeSolution(solution);
+    }
+
+    // javadoc inherited from CspSolver
+    public void restoreSolution(CompactSolution solution) throws PropagationFailureException {
+        store.restoreSolution(solution);
+    }
+
+    // javadoc inherited from CspSolver
+    public void restoreNeighboringSolution(CompactSolution initial, CompactNeighbor neighbor) throws PropagationFailureException {
+        store.restoreNeighboringSolution(initial, neighbor);
+    }
 }
@@ -1,16 +1,27 @@
 package jopt.csp.spi.arcalgorithm;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
 import jopt.csp.spi.arcalgorithm.graph.GraphConstraint;
 import jopt.csp.spi.arcalgorithm.graph.NodeArcGraph;
 import jopt.csp.spi.arcalgorithm.graph.NodeArcGraphImpl;
 import jopt.csp.spi.arcalgorithm.graph.NodeArcGraphListener;
 import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.SchedulerArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.binary.BinaryArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.hyper.HyperArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.node.NodeArc;
 import jopt.csp.spi.arcalgorithm.graph.node.Node;
 import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
 import jopt.csp.spi.arcalgorithm.variable.VarFactory;
 import jopt.csp.spi.arcalgorithm.variable.Variable;
 import jopt.csp.spi.solver.ChoicePointAlgorithm;
 import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.util.DomainChangeType;
 import jopt.csp.variable.CspConstraint;
 import jopt.csp.variable.CspVariable;
 import jopt.csp.variable.CspVariableFactory;
@@ -18,16 +29,31 @@ import jopt.csp.variable.CspVariableFactory;
 /**
  * Base class for arc-consistency algorithms.  This includes an algorithm
  * that is based on node-arc graph propagation.
+ * <p>
+ * Each time propagation of an arc fails, the failure weight of every node
+ * of the arc is increased.  Weights are not restored when the choice point
+ * stack is popped so that search heuristics can learn which variables are
+ * involved in failures.
+ * <p>
+ * When explanations are recorded, the arc responsible for each change to the
+ * domain of a node is recorded by an {@link ExplanationRecorder} so that the
+ * decisions responsible for a failure can be determined.
  */
 public abstract class ArcBasedAcAlg implements ChoicePointAlgorithm, NodeArcGraphListener {
     protected NodeArcGraph graph;
     protected Arc currentArc;
+    private IdentityHashMap<Node, int[]> failureWeights;
+    private List<FailureWeightListener> weightListeners;
+    private ChoicePointStack cps;
+    private ExplanationRecorder explanations;
     
     /**
      * Constructor
      */
     public ArcBasedAcAlg() {
         this.graph = new NodeArcGraphImpl(this);
+        this.failureWeights = new IdentityHashMap<Node, int[]>();
+        this.weightListeners = new ArrayList<FailureWeightListener>();
     }
     
     /**
@@ -55,9 +81,63 @@ public abstract class ArcBasedAcAlg implements ChoicePointAlgorithm, NodeArcGrap
      * Can only be set once.
      */
     public void setChoicePointStack(ChoicePointStack cps) {
+        this.cps = cps;
     	graph.setChoicePointStack(cps);
     }
     
+    /**
+     * Sets whether the reason for each change to the domain of a node is recorded
+     * so that failures can be explained.  Must be called after the choicepoint stack
+     * has been set.
+     */
+    public void setRecordingExplanations(boolean record) {
+        if (!record)
+            explanations = null;
+        else if (explanations==null)
+            explanations = new ExplanationRecorder(graph, cps);
+    }
+    
+    /**
+     * Returns the recorder of explanations or null if explanations are not recorded
+     */
+    public ExplanationRecorder getExplanationRecorder() {
+        return explanations;
+    }
+    
+    /**
+     * Records the reason for a change to a node if explanations are recorded
+     */
+    protected void recordChange(NodeChangeEvent evt) {
+        if (explanations!=null) explanations.nodeChanged(evt.getNode(), currentArc);
+    }
+    
+    /**
+     * Records that an arc was added if explanations are recorded
+     */
+    protected void recordArcAdded(Arc arc) {
+        if (explanations!=null) explanations.arcAdded(arc);
+    }
+    
+    /**
+     * Records that an arc was removed if explanations are recorded
+     */
+    protected void recordArcRemoved(Arc arc) {
+        if (explanations!=null) explanations.arcRemoved(arc);
+    }
+    
+    /**
+     * Records the current domain of every node so that the nodes affected
+     * by changes to a few variables of a solution can be relaxed after the
+     * solution is restored
+     *
+     * @param vars      Variables of the solution about to be restored
+     * @param scope     Variables the solution will bind to a single value
+     * @see NeighborRelaxation
+     */
+    public NeighborRelaxation createNeighborRelaxation(Collection<CspVariable> vars, Collection<CspVariable> scope) {
+        return new NeighborRelaxation(this, graph, vars, scope);
+    }
+    
     /**
      * Returns the variable factory for this algorithm
      */
@@ -81,6 +161,125 @@ public abstract class ArcBasedAcAlg implements ChoicePointAlgorithm, NodeArcGrap
         graph.restoreGraphState(state);
     }
     
+    /**
+     * Increases the failure weight of each node of an arc that failed
+     * during propagation and records the arc if explanations are recorded
+     */
+    protected void arcFailed(Arc arc) {
+        Node nodes[] = getArcNodes(arc);
+        for (int i=0; i<nodes.length; i++)
+            increaseFailureWeight(nodes[i]);
+        
+        if (explanations!=null) explanations.arcFailed(arc);
+    }
+    
+    /**
+     * Returns the source and target nodes of an arc, a node that is both a
+     * source and target of the arc being returned once
+     */
+    static Node[] getArcNodes(Arc arc) {
+        Node sources[] = null;
+        Node targets[] = null;
+        
+        switch(arc.getArcType()) {
+            case Arc.NODE:
+                NodeArc narc = (NodeArc) arc;
+                sources = new Node[]{narc.getSourceNode()};
+                targets = new Node[]{narc.getTargetNode()};
+                break;
+                
+            case Arc.BINARY:
+                BinaryArc barc = (BinaryArc) arc;
+                sources = new Node[]{barc.getSourceNode()};
+                targets = new Node[]{barc.getTargetNode()};
+                break;
+            
+            case Arc.HYPER:
+                HyperArc harc = (HyperArc) arc;
+                sources = harc.getSourceNodes();
+                targets = new Node[]{harc.getTargetNode()};
+                break;
+            
+            case Arc.GENERIC:
+                GenericArc gnarc = (GenericArc) arc;
+                sources = gnarc.getSourceNodes();
+                targets = gnarc.getTargetNodes();
+                break;
+                
+            case Arc.SCHEDULE:
+                SchedulerArc schedarc = (SchedulerArc) arc;
+                sources = schedarc.getSourceNodes();
+                targets = schedarc.getTargetNodes();
+                break;
+                
+            default:
+                return new Node[0];
+        }
+        
+        List<Node> nodes = new ArrayList<Node>(sources.length + targets.length);
+        for (int i=0; i<sources.length; i++)
+            nodes.add(sources[i]);
+        for (int i=0; i<targets.length; i++) {
+            boolean source = false;
+            for (int j=0; j<sources.length && !source; j++)
+                source = (sources[j] == targets[i]);
+            if (!source) nodes.add(targets[i]);
+        }
+        return nodes.toArray(new Node[nodes.size()]);
+    }
+    
+    /**
+     * Increases the failure weight of a node and notifies listeners
+     */
+    private void increaseFailureWeight(Node node) {
+        int weight[] = failureWeights.get(node);
+        if (weight==null) {
+            weight = new int[1];
+            failureWeights.put(node, weight);
+        }
+        weight[0]++;
+        
+        for (int i=0; i<weightListeners.size(); i++)
+            weightListeners.get(i).failureWeightChanged(node);
+    }
+    
+    /**
+     * Returns the number of times propagation of an arc on a node has failed
+     */
+    public int getFailureWeight(Node node) {
+        int weight[] = failureWeights.get(node);
+        return (weight==null) ? 0 : weight[0];
+    }
+    
+    /**
+     * Returns the number of arcs a node is a source of plus its failure weight,
+     * so that nodes are weighted by their degree until failures occur
+     */
+    public int getWeightedDegree(Node node) {
+        int weight = getFailureWeight(node);
+        int idx = graph.getNodeIndex(node);
+        if (idx >= 0) {
+            weight += graph.getSourceArcCount(idx, DomainChangeType.DOMAIN);
+            weight += graph.getSourceArcCount(idx, DomainChangeType.RANGE);
+            weight += graph.getSourceArcCount(idx, DomainChangeType.VALUE);
+        }
+        return weight;
+    }
+    
+    /**
+     * Adds a listener to be notified when the failure weight of a node changes
+     */
+    public void addFailureWeightListener(FailureWeightListener listener) {
+        weightListeners.add(listener);
+    }
+    
+    /**
+     * Removes a listener of failure weight changes
+     */
+    public void removeFailureWeightListener(FailureWeightListener listener) {
+        weightListeners.remove(listener);
+    }
+    
     // javadoc inherited
     public void arcAddedEvent(NodeArcGraph graph, Arc arc) {}
     // javadoc inherited
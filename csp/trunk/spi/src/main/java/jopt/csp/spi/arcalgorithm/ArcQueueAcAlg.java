@@ -3,7 +3,7 @@ package jopt.csp.spi.arcalgorithm;
 import jopt.csp.spi.arcalgorithm.graph.NodeArcGraph;
 import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
 import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
-import jopt.csp.spi.arcalgorithm.util.ArcQueue;
+import jopt.csp.spi.arcalgorithm.util.BucketArcQueue;
 import jopt.csp.spi.util.DomainChangeType;
 import jopt.csp.variable.PropagationFailureException;
 
@@ -12,10 +12,15 @@ import jopt.csp.variable.PropagationFailureException;
  * for propagation.
  */
 public abstract class ArcQueueAcAlg extends ArcBasedAcAlg {
+    // membership flags distinguishing the queues an arc may be waiting in
+    private final static int NODE_ARC_QUEUE     = 1;
+    private final static int ARC_QUEUE          = 2;
+    private final static int GENERIC_ARC_QUEUE  = 4;
+    
     private int strength;
-    private ArcQueue nodeArcQueue;
-    private ArcQueue arcQueue;
-    private ArcQueue genericArcQueue;
+    private BucketArcQueue nodeArcQueue;
+    private BucketArcQueue arcQueue;
+    private BucketArcQueue genericArcQueue;
 
     /**
      * Constructor
@@ -23,12 +28,12 @@ public abstract class ArcQueueAcAlg extends ArcBasedAcAlg {
     public ArcQueueAcAlg(int strength) {
         this.strength = strength;
         // Holds only node arcs, those which point back at their source node.
-        this.nodeArcQueue = new ArcQueue();
+        this.nodeArcQueue = new BucketArcQueue(NODE_ARC_QUEUE);
         // Holds any other type of arc including binary, hyper, generic, etc.
-        this.arcQueue = new ArcQueue();
+        this.arcQueue = new BucketArcQueue(ARC_QUEUE);
         // Temporarily holds generic arcs encountered in the arcQueue
         // because we want to process these after all other arcs.
-        this.genericArcQueue = new ArcQueue();
+        this.genericArcQueue = new BucketArcQueue(GENERIC_ARC_QUEUE);
     }
 
     /**
@@ -53,6 +58,23 @@ public abstract class ArcQueueAcAlg extends ArcBasedAcAlg {
      * @throws PropagationFailureException      If unable to propagate constraints
      */
     public void propagate() throws PropagationFailureException {
+        try {
+            propagateArcs();
+        }
+        catch (PropagationFailureException propx) {
+            // weight nodes of the arc that failed for search heuristics
+            if (currentArc!=null) arcFailed(currentArc);
+            throw propx;
+        }
+        finally {
+            currentArc = null;
+        }
+    }
+
+    /**
+     * Propagates arcs until the arc queues are empty
+     */
+    private void propagateArcs() throws PropagationFailureException {
         // process any node arcs first since they will not need
         // to be propagated again
         processNodeArcs();
@@ -99,6 +121,7 @@ public abstract class ArcQueueAcAlg extends ArcBasedAcAlg {
         // initialize arc strength
         arc.setAlgorithmStrength(strength);
         arc.setUseDomainDeltas(false);
+        recordArcAdded(arc);
 
         // Add arc to queue for revision
         if (arc.getArcType()==Arc.NODE) {
@@ -113,6 +136,7 @@ public abstract class ArcQueueAcAlg extends ArcBasedAcAlg {
      * Removes any arcs from waiting queues
      */
     public void arcRemovedEvent(NodeArcGraph graph, Arc arc) {
+        recordArcRemoved(arc);
         if (arc.getArcType()==Arc.NODE) {
             nodeArcQueue.remove(arc);
         }
@@ -129,15 +153,21 @@ public abstract class ArcQueueAcAlg extends ArcBasedAcAlg {
         // Note: we rely on the fact that generally no node arcs (complexity=0)
         // need to be revisited when a node is changed during propagation.  Node
         // arcs should only need to be visited at the beginning of propagation.
+        recordChange(evt);
+        int idx = graph.getNodeIndex(evt.getNode());
+        
         switch(evt.getType()) {
         case DomainChangeType.VALUE:
-            arcQueue.addAll(graph.getValueSourceArcs(evt.getNode()));
+            arcQueue.addAll(graph.getSourceArcs(idx, DomainChangeType.VALUE),
+                    graph.getSourceArcCount(idx, DomainChangeType.VALUE));
 
         case DomainChangeType.RANGE:
-            arcQueue.addAll(graph.getRangeSourceArcs(evt.getNode()));
+            arcQueue.addAll(graph.getSourceArcs(idx, DomainChangeType.RANGE),
+                    graph.getSourceArcCount(idx, DomainChangeType.RANGE));
 
         default:
-            arcQueue.addAll(graph.getDomainSourceArcs(evt.getNode()));
+            arcQueue.addAll(graph.getSourceArcs(idx, DomainChangeType.DOMAIN),
+                    graph.getSourceArcCount(idx, DomainChangeType.DOMAIN));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package jopt.csp.spi.arcalgorithm;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraph;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+
+/**
+ * Records the reason for each change to the domain of a node so that the
+ * decisions responsible for a failure can be determined.  Each change is
+ * recorded on a trail along with the arc whose propagation made the change.
+ * The antecedents of the change are the changes previously made to the nodes
+ * of that arc.  A change that is not made by an arc, such as assigning a value
+ * to a variable in a search action, is attributed to the decision that was
+ * started last by a call to {@link #beginDecision}.
+ * <p>
+ * When propagation fails, the trail is followed backwards from the arc that
+ * failed to locate the decisions that the failure depends upon.  Explanations
+ * are recorded for nodes rather than for individual values removed from their
+ * domains, so the set of decisions located may contain decisions that did not
+ * contribute to the failure, but never misses one that did.  Arcs added after
+ * a decision was started depend upon the decision as well.
+ * <p>
+ * Changes are removed from the trail when the choice point they were recorded
+ * after is popped.  Changes cannot be restored when a delta is pushed back onto
+ * the choice point stack, so failures are no longer explained after that happens.
+ */
+public class ExplanationRecorder implements ChoicePointEntryListener {
+    // node recorded on trail for the start of a decision and for an added arc
+    private final static int DECISION   = -1;
+    private final static int ARC_ADDED  = -2;
+
+    private NodeArcGraph graph;
+    private int trailNodes[];
+    private Arc trailArcs[];
+    private int trailLevels[];
+    private int size;
+    private int firstDecision;
+    private int level;
+    private IdentityHashMap<Arc, Integer> arcPositions;
+    private IdentityHashMap<Arc, int[]> arcNodeIndices;
+    private Arc failedArc;
+    private boolean restored;
+
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpMark;
+
+    /**
+     * Creates a recorder for the nodes of a graph
+     *
+     * @param graph     Graph containing nodes whose changes are recorded
+     * @param cps       Choice point stack used to remove changes from the trail
+     */
+    public ExplanationRecorder(NodeArcGraph graph, ChoicePointStack cps) {
+        this.graph = graph;
+        this.trailNodes = new int[256];
+        this.trailArcs = new Arc[256];
+        this.trailLevels = new int[256];
+        this.firstDecision = -1;
+        this.arcPositions = new IdentityHashMap<Arc, Integer>();
+        this.arcNodeIndices = new IdentityHashMap<Arc, int[]>();
+        this.cpdata = cps.newNumStackSet(this);
+        this.cpMark = cpdata.newIntList();
+    }
+
+    /**
+     * Starts a new decision.  Changes that are not made by an arc are
+     * attributed to this decision until the next decision is started.
+     *
+     * @param level     Level identifying the decision, such as the depth of the
+     *                  search node making the decision
+     */
+    public void beginDecision(int level) {
+        this.level = level;
+        this.failedArc = null;
+        if (firstDecision < 0) firstDecision = size;
+        record(DECISION, null, level);
+    }
+
+    /**
+     * Records a change to the domain of a node
+     *
+     * @param node      Node that changed
+     * @param arc       Arc whose propagation changed the node, or null if the
+     *                  change was not made during propagation of an arc
+     */
+    public void nodeChanged(Node node, Arc arc) {
+        int idx = graph.getNodeIndex(node);
+        if (idx >= 0) record(idx, arc, level);
+    }
+
+    /**
+     * Records that an arc was added to the graph
+     */
+    public void arcAdded(Arc arc) {
+        arcPositions.put(arc, new Integer(size));
+        record(ARC_ADDED, arc, level);
+    }
+
+    /**
+     * Releases information about an arc that was removed from the graph
+     */
+    public void arcRemoved(Arc arc) {
+        arcPositions.remove(arc);
+        arcNodeIndices.remove(arc);
+    }
+
+    /**
+     * Records the arc whose propagation failed
+     */
+    public void arcFailed(Arc arc) {
+        this.failedArc = arc;
+    }
+
+    /**
+     * Returns the levels of the decisions that the last failure depends upon.
+     * Decisions recorded before the first decision still on the trail are not
+     * included.
+     *
+     * @return Set of decision levels, or null if the failure since the last
+     *         decision was started cannot be explained
+     */
+    public BitSet explainFailure() {
+        if (failedArc==null || restored) return null;
+
+        BitSet levels = new BitSet();
+        BitSet involved = new BitSet();
+        BitSet flagged = new BitSet();
+        involve(failedArc, involved, flagged);
+
+        // follow trail backwards to the decisions responsible for involved changes
+        boolean pending = false;
+        for (int i=size-1; i>=firstDecision && i>=0; i--) {
+            int node = trailNodes[i];
+
+            if (node == DECISION) {
+                if (pending) levels.set(trailLevels[i]);
+                pending = false;
+            }
+            else if (node == ARC_ADDED) {
+                if (flagged.get(i)) pending = true;
+            }
+            else if (involved.get(node)) {
+                Arc arc = trailArcs[i];
+                if (arc==null)
+                    pending = true;
+                else
+                    involve(arc, involved, flagged);
+            }
+        }
+
+        return levels;
+    }
+
+    /**
+     * Marks the nodes of an arc as involved in a failure and flags the
+     * position at which the arc was added
+     */
+    private void involve(Arc arc, BitSet involved, BitSet flagged) {
+        int indices[] = arcNodeIndices.get(arc);
+        if (indices==null) {
+            Node nodes[] = ArcBasedAcAlg.getArcNodes(arc);
+            indices = new int[nodes.length];
+            for (int i=0; i<nodes.length; i++)
+                indices[i] = graph.getNodeIndex(nodes[i]);
+            arcNodeIndices.put(arc, indices);
+        }
+
+        for (int i=0; i<indices.length; i++)
+            if (indices[i] >= 0) involved.set(indices[i]);
+
+        Integer pos = arcPositions.get(arc);
+        if (pos!=null) {
+            int p = pos.intValue();
+            if (p < size && trailArcs[p] == arc && trailNodes[p] == ARC_ADDED)
+                flagged.set(p);
+        }
+    }
+
+    /**
+     * Appends an entry to the trail
+     */
+    private void record(int node, Arc arc, int lvl) {
+        // remember where trail stood when current choice point was pushed,
+        // touching the set first so a trailing stack pushes the mark array
+        // the first time the trail changes after the choice point
+        cpdata.touch();
+        if (cpMark.size()==0) cpMark.add(size);
+
+        if (size == trailNodes.length) {
+            int newLength = size * 2;
+            int newNodes[] = new int[newLength];
+            System.arraycopy(trailNodes, 0, newNodes, 0, size);
+            trailNodes = newNodes;
+
+            Arc newArcs[] = new Arc[newLength];
+            System.arraycopy(trailArcs, 0, newArcs, 0, size);
+            trailArcs = newArcs;
+
+            int newLevels[] = new int[newLength];
+            System.arraycopy(trailLevels, 0, newLevels, 0, size);
+            trailLevels = newLevels;
+        }
+
+        trailNodes[size] = node;
+        trailArcs[size] = arc;
+        trailLevels[size] = lvl;
+        size++;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // remove changes recorded since choice point was pushed
+        if (cpMark.size() > 0) {
+            int mark = cpMark.get(0);
+            for (int i=mark; i<size; i++)
+                trailArcs[i] = null;
+            size = mark;
+            if (firstDecision >= size) firstDecision = -1;
+        }
+        failedArc = null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // changes of a delta pushed back onto the stack were not kept
+        if (cpMark.size() > 0) restored = true;
+    }
+}
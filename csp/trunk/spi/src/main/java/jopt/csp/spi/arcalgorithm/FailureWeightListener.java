@@ -0,0 +1,15 @@
+package jopt.csp.spi.arcalgorithm;
+
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+
+/**
+ * Interface for objects that need to be notified when the failure weight
+ * of a node is increased because propagation of an arc on the node failed.
+ * Used by search heuristics that prefer variables involved in failures.
+ */
+public interface FailureWeightListener {
+    /**
+     * Called after the failure weight of a node has been increased
+     */
+    public void failureWeightChanged(Node node);
+}
@@ -0,0 +1,311 @@
+package jopt.csp.spi.arcalgorithm;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import jopt.csp.spi.arcalgorithm.constraint.bool.BoolExpr;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraph;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.arcalgorithm.graph.node.SetNode;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.variable.CspVariable;
+
+/**
+ * Relaxes the nodes that a change to a few variables of a solution can affect
+ * back to the domains they had before the solution was restored, so that a
+ * neighboring solution can be evaluated by propagating only those nodes.
+ * <p>
+ * A relaxation records the domain of every node of the graph and must be
+ * created before the solution is restored.  The variables the solution binds
+ * to a single value are the scope of the relaxation.  When a neighbor changes
+ * some variables of the solution, the nodes relaxed are the nodes of the
+ * changed variables along with every node connected to them by arcs without
+ * passing through the node of an unchanged variable of the scope.  The value
+ * of such a variable is bound by the solution, so no change can pass through
+ * it to the nodes beyond.  Relaxed nodes are queued for propagation so that
+ * the arcs between them and the unchanged variables are enforced again.
+ * Variables of the solution whose nodes are not part of the graph are
+ * relaxed when they are changed but are not connected to any other node.
+ * Changes to their domains are not recorded by the choicepoint stack, so
+ * they must be returned to the domains they had when the relaxation was
+ * created by a call to {@link #restoreOutside()}.
+ * <p>
+ * Domains of nodes are relaxed and restored without firing events or being
+ * recorded by the choicepoint stack, which only records values removed from
+ * domains.  The solution must be restored within a choicepoint, so that every
+ * domain relaxed is within the domain the node had when that choicepoint was
+ * pushed, and popping it returns every node to its recorded domain.  Each
+ * relaxation must take place immediately after a further choicepoint is
+ * pushed, which causes computed domains to be recalculated from the relaxed
+ * domains, and must be followed by a call to {@link #restore()} once that
+ * choicepoint is popped.
+ * <p>
+ * Set nodes rely upon the deltas of their domains during propagation, which
+ * are lost when the nodes are relaxed, so graphs containing set nodes cannot
+ * be relaxed.
+ */
+public class NeighborRelaxation {
+    private ArcBasedAcAlg alg;
+    private NodeArcGraph graph;
+    private boolean supported;
+    private int arcCount;
+
+    // nodes and their domains indexed by position in graph
+    private Node nodes[];
+    private Object states[];
+    private boolean scope[];
+
+    // arcs and node indices of each arc followed to locate relaxed nodes
+    private Arc arcs[];
+    private int arcNodes[][];
+    private int nodeArcs[][];
+
+    // marks of nodes and arcs visited by the current relaxation
+    private int nodeMarks[];
+    private int arcMarks[];
+    private int mark;
+    private int relaxed[];
+    private int relaxedCount;
+    private int relaxedArcs[];
+    private int relaxedArcCount;
+    private Object tightStates[];
+    private NodeChangeEvent event;
+
+    // domains of nodes of variables that are not part of the graph
+    private IdentityHashMap<Node, Object> outsideStates;
+    private Node outsideRelaxed[];
+    private Object outsideTightStates[];
+    private int outsideRelaxedCount;
+
+    /**
+     * Records the current domains of the nodes of a graph
+     *
+     * @param alg       Algorithm propagating the graph
+     * @param graph     Graph containing the nodes that are relaxed
+     * @param vars      Variables of the solution about to be restored
+     * @param scopeVars Variables the solution will bind to a single value
+     */
+    NeighborRelaxation(ArcBasedAcAlg alg, NodeArcGraph graph, Collection<CspVariable> vars, Collection<CspVariable> scopeVars) {
+        this.alg = alg;
+        this.graph = graph;
+        this.supported = true;
+        this.event = new NodeChangeEvent(null);
+        event.setType(DomainChangeType.VALUE);
+
+        // record domain of each node
+        int size = 0;
+        Iterator<Node> nodeIter = graph.getAllNodes().iterator();
+        while (nodeIter.hasNext())
+            size = Math.max(size, graph.getNodeIndex(nodeIter.next()) + 1);
+        nodes = new Node[size];
+        states = new Object[size];
+        scope = new boolean[size];
+        nodeIter = graph.getAllNodes().iterator();
+        while (nodeIter.hasNext()) {
+            Node node = nodeIter.next();
+            if (node instanceof SetNode) supported = false;
+            int idx = graph.getNodeIndex(node);
+            nodes[idx] = node;
+            states[idx] = node.getState();
+        }
+
+        Iterator<CspVariable> varIter = scopeVars.iterator();
+        while (varIter.hasNext()) {
+            Node node = getNode(varIter.next());
+            int idx = (node==null) ? -1 : graph.getNodeIndex(node);
+            if (idx >= 0) scope[idx] = true;
+        }
+
+        // record domain of each variable whose node is not part of the graph
+        outsideStates = new IdentityHashMap<Node, Object>();
+        varIter = vars.iterator();
+        while (varIter.hasNext()) {
+            Node node = getNode(varIter.next());
+            if (node!=null && graph.getNodeIndex(node) < 0)
+                outsideStates.put(node, node.getState());
+        }
+        outsideRelaxed = new Node[outsideStates.size()];
+        outsideTightStates = new Object[outsideStates.size()];
+
+        // index nodes of each arc and arcs of each node
+        arcCount = graph.getAllArcs().size();
+        arcs = new Arc[arcCount];
+        arcNodes = new int[arcCount][];
+        int nodeArcCount[] = new int[size];
+        Iterator<Arc> arcIter = graph.getAllArcs().iterator();
+        for (int a=0; a<arcCount; a++) {
+            arcs[a] = arcIter.next();
+            Node arcNodeList[] = ArcBasedAcAlg.getArcNodes(arcs[a]);
+            arcNodes[a] = new int[arcNodeList.length];
+            for (int i=0; i<arcNodeList.length; i++) {
+                int idx = graph.getNodeIndex(arcNodeList[i]);
+                arcNodes[a][i] = idx;
+                if (idx >= 0) nodeArcCount[idx]++;
+            }
+        }
+
+        nodeArcs = new int[size][];
+        for (int i=0; i<size; i++)
+            nodeArcs[i] = new int[nodeArcCount[i]];
+        for (int a=0; a<arcCount; a++) {
+            for (int i=0; i<arcNodes[a].length; i++) {
+                int idx = arcNodes[a][i];
+                if (idx >= 0) nodeArcs[idx][--nodeArcCount[idx]] = a;
+            }
+        }
+
+        nodeMarks = new int[size];
+        arcMarks = new int[arcCount];
+        relaxed = new int[size];
+        tightStates = new Object[size];
+        relaxedArcs = new int[arcCount];
+    }
+
+    /**
+     * Returns the node of a variable or null if the variable has no node
+     */
+    private static Node getNode(CspVariable var) {
+        if (var instanceof NumExpr) return ((NumExpr) var).getNode();
+        if (var instanceof BoolExpr) return ((BoolExpr) var).getNode();
+        return null;
+    }
+
+    /**
+     * Returns true if the graph can be relaxed.  A graph containing set nodes
+     * or a graph to which arcs have been added or removed since the relaxation
+     * was created cannot be relaxed.
+     */
+    public boolean isSupported() {
+        return supported && graph.getAllArcs().size() == arcCount;
+    }
+
+    /**
+     * Relaxes the nodes that changes to a set of variables can affect to
+     * their recorded domains and queues them for propagation.  The changed
+     * variables should be assigned their new values and the graph propagated
+     * after they are relaxed.
+     *
+     * @param changed   Variables whose values will be changed
+     * @return Number of nodes that were relaxed
+     */
+    public int relax(CspVariable changed[]) {
+        mark++;
+        relaxedCount = 0;
+        outsideRelaxedCount = 0;
+        for (int i=0; i<changed.length; i++) {
+            Node node = getNode(changed[i]);
+            int idx = (node==null) ? -1 : graph.getNodeIndex(node);
+            if (idx >= 0 && idx < nodes.length && nodeMarks[idx] != mark) {
+                nodeMarks[idx] = mark;
+                relaxed[relaxedCount++] = idx;
+            }
+            else if (idx < 0 && node!=null)
+                relaxOutside(node);
+        }
+
+        // follow arcs from changed nodes stopping at unchanged variables of scope
+        relaxedArcCount = 0;
+        for (int next=0; next<relaxedCount; next++) {
+            int arcIdx[] = nodeArcs[relaxed[next]];
+            for (int a=0; a<arcIdx.length; a++) {
+                int arc = arcIdx[a];
+                if (arcMarks[arc] == mark) continue;
+                arcMarks[arc] = mark;
+                relaxedArcs[relaxedArcCount++] = arc;
+
+                int nodeIdx[] = arcNodes[arc];
+                for (int n=0; n<nodeIdx.length; n++) {
+                    int idx = nodeIdx[n];
+                    if (idx >= 0 && nodeMarks[idx] != mark && !scope[idx]) {
+                        nodeMarks[idx] = mark;
+                        relaxed[relaxedCount++] = idx;
+                    }
+                }
+            }
+        }
+
+        for (int i=0; i<relaxedCount; i++) {
+            Node node = nodes[relaxed[i]];
+            tightStates[i] = node.getState();
+            node.restoreState(states[relaxed[i]]);
+        }
+        domainsRestored();
+
+        for (int i=0; i<relaxedCount; i++) {
+            event.setNode(nodes[relaxed[i]]);
+            alg.nodeChangedEvent(graph, event);
+        }
+        event.setNode(null);
+
+        return relaxedCount + outsideRelaxedCount;
+    }
+
+    /**
+     * Relaxes the node of a changed variable that is not part of the graph
+     * to its recorded domain
+     */
+    private void relaxOutside(Node node) {
+        Object state = outsideStates.get(node);
+        if (state==null) return;
+
+        for (int i=0; i<outsideRelaxedCount; i++)
+            if (outsideRelaxed[i]==node) return;
+
+        outsideRelaxed[outsideRelaxedCount] = node;
+        outsideTightStates[outsideRelaxedCount] = node.getState();
+        outsideRelaxedCount++;
+        node.restoreState(state);
+    }
+
+    /**
+     * Returns the nodes relaxed by the last relaxation to the domains they
+     * had before they were relaxed.  This must be called after the
+     * choicepoint within which the nodes were relaxed has been popped.
+     */
+    public void restore() {
+        for (int i=0; i<relaxedCount; i++) {
+            nodes[relaxed[i]].restoreState(tightStates[i]);
+            tightStates[i] = null;
+        }
+        for (int i=0; i<outsideRelaxedCount; i++) {
+            outsideRelaxed[i].restoreState(outsideTightStates[i]);
+            outsideRelaxed[i] = null;
+            outsideTightStates[i] = null;
+        }
+        domainsRestored();
+        relaxedCount = 0;
+        outsideRelaxedCount = 0;
+        relaxedArcCount = 0;
+    }
+
+    /**
+     * Returns the nodes of variables that are not part of the graph to the
+     * domains they had when the relaxation was created.  This must be called
+     * after the choicepoint within which the solution was restored has been
+     * popped.
+     */
+    public void restoreOutside() {
+        Iterator<Map.Entry<Node, Object>> stateIter = outsideStates.entrySet().iterator();
+        while (stateIter.hasNext()) {
+            Map.Entry<Node, Object> entry = stateIter.next();
+            entry.getKey().restoreState(entry.getValue());
+        }
+    }
+
+    /**
+     * Notifies arcs of relaxed nodes that domains were restored without events
+     */
+    private void domainsRestored() {
+        for (int i=0; i<relaxedArcCount; i++) {
+            Arc arc = arcs[relaxedArcs[i]];
+            if (arc instanceof ReversibleArc)
+                ((ReversibleArc) arc).domainsRestored();
+        }
+    }
+}
@@ -4,8 +4,8 @@ import jopt.csp.spi.arcalgorithm.graph.NodeArcGraph;
 import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
 import jopt.csp.spi.arcalgorithm.graph.node.Node;
 import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
-import jopt.csp.spi.arcalgorithm.util.ArcQueue;
-import jopt.csp.spi.arcalgorithm.util.NodeQueue;
+import jopt.csp.spi.arcalgorithm.util.BucketArcQueue;
+import jopt.csp.spi.arcalgorithm.util.IndexedNodeQueue;
 import jopt.csp.spi.util.DomainChangeType;
 import jopt.csp.variable.PropagationFailureException;
 
@@ -14,12 +14,21 @@ import jopt.csp.variable.PropagationFailureException;
  * for propagation.
  */
 public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
+    // membership flags distinguishing the queues an arc may be waiting in
+    private final static int ZERO_COMPLEXITY_ARC_QUEUE  = 1;
+    private final static int GENERIC_ARC_QUEUE          = 2;
+    private final static int NODE_CHANGE_ARC            = 4;
+    
     private int strength;
     private boolean useDeltas;
-    private ArcQueue zeroComplexityArcQueue;
-    private NodeQueue newNodeQueue;
-    private NodeQueue complexNodeQueue;
-    private ArcQueue genericArcQueue;
+    private BucketArcQueue zeroComplexityArcQueue;
+    private IndexedNodeQueue newNodeQueue;
+    private IndexedNodeQueue complexNodeQueue;
+    private BucketArcQueue genericArcQueue;
+    
+    // empty arc queues available for reuse by node changes
+    private BucketArcQueue arcQueuePool[];
+    private int arcQueuePoolSize;
     
     /**
      * Constructor
@@ -27,10 +36,11 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
     public NodeQueueAcAlg(int strength, boolean useDeltas) {
         this.strength = strength;
         this.useDeltas = useDeltas;
-        this.zeroComplexityArcQueue = new ArcQueue();
-        this.newNodeQueue = new NodeQueue();
-        this.complexNodeQueue = new NodeQueue();
-        this.genericArcQueue = new ArcQueue();
+        this.zeroComplexityArcQueue = new BucketArcQueue(ZERO_COMPLEXITY_ARC_QUEUE);
+        this.newNodeQueue = new IndexedNodeQueue(graph);
+        this.complexNodeQueue = new IndexedNodeQueue(graph);
+        this.genericArcQueue = new BucketArcQueue(GENERIC_ARC_QUEUE);
+        this.arcQueuePool = new BucketArcQueue[8];
     }
     
     /**
@@ -71,7 +81,8 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
 //              System.out.println("==============================");
 //              System.out.println("current node: " + evt);
 //              System.out.println("current queue: " + newNodeQueue);
-                ArcQueue arcQueue = getArcsForNodeChange(evt);
+                int currentIndex = newNodeQueue.getCurrentIndex();
+                BucketArcQueue arcQueue = getArcsForNodeChange(currentIndex, evt.getType());
 //              System.out.println("arcs for node: " + arcQueue.size());  
 //              System.out.println("arcs: " + arcQueue);
                 Node currentNode = evt.getNode();
@@ -104,7 +115,9 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
 
                 // add to node queue for arcs with complexity > 2 if arcs remain
                 if (arcQueue.size() > 0)
-                    complexNodeQueue.add(currentNode, evt.getType(), arcQueue);
+                    complexNodeQueue.add(currentIndex, currentNode, evt.getType(), arcQueue);
+                else
+                    releaseArcQueue(arcQueue);
 
                 // add node to additional arc queue if 
                 // Remove next event from queue
@@ -150,6 +163,7 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
 
                         currentArc = arcQueue.next();
                     }
+                    releaseArcQueue(arcQueue);
 
                     // Check if new node queue is still empty
                     evt = newNodeQueue.nextChange();
@@ -172,7 +186,13 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
 //          System.out.println("************* end prop *************");
 //          System.out.println(graph);
         }
+        catch (PropagationFailureException propx) {
+            // weight nodes of the arc that failed for search heuristics
+            if (currentArc!=null) arcFailed(currentArc);
+            throw propx;
+        }
         finally {
+            currentArc = null;
 //          zeroComplexityArcQueue.clear();
 //          newNodeQueue.clear();
 //          complexNodeQueue.clear();
@@ -181,26 +201,52 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
     }
     
     /**
-     * Retrieves set of arcs for a node event
+     * Retrieves set of arcs for a node event.  Arcs for different nodes may be
+     * waiting at the same time, so these queues do not track membership, but
+     * an arc listed for more than one type of change to the node is only
+     * added once.
      */
-    private ArcQueue getArcsForNodeChange(NodeChangeEvent evt) {
-        ArcQueue arcQueue = new ArcQueue();
-        arcQueue.setRequiredMinComplexity(1);
+    private BucketArcQueue getArcsForNodeChange(int idx, int type) {
+        BucketArcQueue arcQueue = null;
+        if (arcQueuePoolSize > 0) {
+            arcQueue = arcQueuePool[--arcQueuePoolSize];
+            arcQueuePool[arcQueuePoolSize] = null;
+        }
+        else {
+            arcQueue = new BucketArcQueue(0);
+            arcQueue.setRequiredMinComplexity(1);
+        }
         
-        switch(evt.getType()) {
+        switch(type) {
             case DomainChangeType.VALUE:
-                arcQueue.addAll(graph.getValueSourceArcs(evt.getNode()));
+                arcQueue.addAllUnmarked(graph.getSourceArcs(idx, DomainChangeType.VALUE),
+                        graph.getSourceArcCount(idx, DomainChangeType.VALUE), NODE_CHANGE_ARC);
                 
             case DomainChangeType.RANGE:
-                arcQueue.addAll(graph.getRangeSourceArcs(evt.getNode()));
+                arcQueue.addAllUnmarked(graph.getSourceArcs(idx, DomainChangeType.RANGE),
+                        graph.getSourceArcCount(idx, DomainChangeType.RANGE), NODE_CHANGE_ARC);
                 
             default:
-                arcQueue.addAll(graph.getDomainSourceArcs(evt.getNode()));
+                arcQueue.addAllUnmarked(graph.getSourceArcs(idx, DomainChangeType.DOMAIN),
+                        graph.getSourceArcCount(idx, DomainChangeType.DOMAIN), NODE_CHANGE_ARC);
         }
+        arcQueue.unmarkAll(NODE_CHANGE_ARC);
         
         return arcQueue;
     }
     
+    /**
+     * Returns an empty arc queue to the pool of queues used for node changes
+     */
+    private void releaseArcQueue(BucketArcQueue arcQueue) {
+        if (arcQueuePoolSize == arcQueuePool.length) {
+            BucketArcQueue newPool[] = new BucketArcQueue[arcQueuePoolSize * 2];
+            System.arraycopy(arcQueuePool, 0, newPool, 0, arcQueuePoolSize);
+            arcQueuePool = newPool;
+        }
+        arcQueuePool[arcQueuePoolSize++] = arcQueue;
+    }
+    
     /**
      * Adds initially added arcs to queue for revision.  Also
      * informs the arc of the algorithm strength being used
@@ -210,6 +256,7 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
         // initialize arc strength
         arc.setAlgorithmStrength(strength);
         arc.setUseDomainDeltas(useDeltas);
+        recordArcAdded(arc);
         
         // Add arc to queue for revision
         if (arc.getComplexity()==0) {
@@ -224,6 +271,7 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
      * Removes any arcs from waiting queues
      */
     public void arcRemovedEvent(NodeArcGraph graph, Arc arc) {
+        recordArcRemoved(arc);
     	if (arc.getComplexity()==0)
             zeroComplexityArcQueue.remove(arc);
     	
@@ -244,10 +292,15 @@ public abstract class NodeQueueAcAlg extends ArcBasedAcAlg {
      */
     public void nodeChangedEvent(NodeArcGraph graph, NodeChangeEvent evt) {
 //System.out.println("Node added: " + evt.getNode());    	
-    	NodeChangeEvent oldEvt = complexNodeQueue.remove(evt.getNode());
-    	
-    	int type = (oldEvt == null) ? evt.getType() : Math.max(oldEvt.getType(), evt.getType());
-    	newNodeQueue.add(evt.getNode(), type);
+        recordChange(evt);
+        Node node = evt.getNode();
+        int idx = graph.getNodeIndex(node);
+        if (idx < 0) return;
+        
+        // merge change waiting for complex arcs into new change
+        int type = Math.max(complexNodeQueue.getChangeType(idx), evt.getType());
+        complexNodeQueue.remove(idx);
+        newNodeQueue.add(idx, node, type, null);
     }
     
 }
\ No newline at end of file
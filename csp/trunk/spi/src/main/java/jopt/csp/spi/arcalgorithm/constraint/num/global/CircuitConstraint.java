@@ -0,0 +1,140 @@
+package jopt.csp.spi.arcalgorithm.constraint.num.global;
+
+import jopt.csp.spi.arcalgorithm.constraint.AbstractConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.CircuitArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.IntAllDiffArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.VariableChangeListener;
+import jopt.csp.spi.solver.VariableChangeSource;
+import jopt.csp.spi.util.GenericIndex;
+
+/**
+ * Constraint requiring expressions holding the successor of each position,
+ * numbered from 0, to form a single circuit through every position.  It is
+ * posted as an arc preventing subtours along with an all different arc over
+ * the same nodes.
+ */
+public class CircuitConstraint extends AbstractConstraint {
+    private NumExpr next[];
+    private Arc allDiffArc;
+    private Arc circuitArc;
+
+    /**
+     * Constructor
+     *
+     * @param next      Successor of each position
+     */
+    public CircuitConstraint(NumExpr next[]) {
+        this.next = next;
+    }
+
+    // javadoc inherited from NumConstraint
+    public boolean isOverRealInterval() {
+        return false;
+    }
+
+    // javadoc inherited from NumConstraint
+    public void postToGraph() {
+        if (graph!=null) {
+            // add nodes to graph
+            for (int i=0; i<next.length; i++)
+                next[i].updateGraph(graph);
+
+            // post arcs to graph
+            if (circuitArc==null) {
+                NumNode nodes[] = new NumNode[next.length];
+                for (int i=0; i<nodes.length; i++)
+                    nodes[i] = (NumNode) next[i].getNode();
+                circuitArc = new CircuitArc(nodes);
+                allDiffArc = new IntAllDiffArc(nodes);
+            }
+            graph.addArc(circuitArc);
+            graph.addArc(allDiffArc);
+        }
+    }
+
+    // javadoc inherited from NumConstraint
+    public Arc[] getBooleanSourceArcs() {
+        Arc arcs[] = new Arc[0];
+        for (int i=0; i<next.length; i++) {
+            Arc exprArcs[] = next[i].getBooleanSourceArcs();
+            if (exprArcs.length > 0) {
+                Arc combined[] = new Arc[arcs.length + exprArcs.length];
+                System.arraycopy(arcs, 0, combined, 0, arcs.length);
+                System.arraycopy(exprArcs, 0, combined, arcs.length, exprArcs.length);
+                arcs = combined;
+            }
+        }
+        return arcs;
+    }
+
+    // javadoc inherited from NumConstraint
+    public Node[] getBooleanSourceNodes() {
+        Node nodes[] = new Node[next.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = next[i].getNode();
+        return nodes;
+    }
+
+    //  javadoc is inherited
+    public void addVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<next.length; i++)
+            ((VariableChangeSource) next[i]).addVariableChangeListener(listener);
+    }
+
+    //  javadoc is inherited
+    public void removeVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<next.length; i++)
+            ((VariableChangeSource) next[i]).removeVariableChangeListener(listener);
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createConstraintFragment(GenericIndex indices[]) {
+        return this;
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createOpposite() {
+        throw new UnsupportedOperationException("The opposite of CircuitConstraint is not supported.");
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public boolean isViolated(boolean allViolated) {
+        // constraint is violated if bound successors leave the positions, share
+        // a position or close a subtour
+        int n = next.length;
+        int succ[] = new int[n];
+        boolean entered[] = new boolean[n];
+        for (int i=0; i<n; i++) {
+            int min = next[i].getNumMin().intValue();
+            int max = next[i].getNumMax().intValue();
+            if (min > n - 1 || max < 0) return true;
+            succ[i] = (min == max) ? min : -1;
+            if (succ[i] >= 0) {
+                if (entered[succ[i]]) return true;
+                entered[succ[i]] = true;
+            }
+        }
+
+        // follow bound successors from each position not yet visited,
+        // checking the length of any cycle found along the way
+        int visit[] = new int[n];
+        for (int i=0; i<n; i++) {
+            if (visit[i] > 0) continue;
+            int pos = i;
+            while (pos >= 0 && visit[pos] == 0) {
+                visit[pos] = i + 1;
+                pos = succ[pos];
+            }
+            if (pos >= 0 && visit[pos] == i + 1) {
+                int length = 1;
+                for (int k=succ[pos]; k!=pos; k=succ[k]) length++;
+                if (length < n) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,171 @@
+package jopt.csp.spi.arcalgorithm.constraint.num.global;
+
+import jopt.csp.spi.arcalgorithm.constraint.AbstractConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.CumulativeArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.DisjunctiveArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.VariableChangeListener;
+import jopt.csp.spi.solver.VariableChangeSource;
+import jopt.csp.spi.util.GenericIndex;
+
+/**
+ * Constraint requiring tasks with fixed durations and demands to never use
+ * more than the capacity of a resource at any time.  When every demand
+ * exceeds half the capacity, no two tasks can run at once and the constraint
+ * is posted as an arc for a unary resource.
+ */
+public class CumulativeConstraint extends AbstractConstraint {
+    private NumExpr starts[];
+    private int duration[];
+    private int demand[];
+    private int capacity;
+    private Arc arc;
+
+    /**
+     * Creates a constraint for a resource with a capacity
+     *
+     * @param starts    Start time of each task
+     * @param duration  Duration of each task
+     * @param demand    Amount of resource used by each task while it runs
+     * @param capacity  Amount of resource available at any time
+     */
+    public CumulativeConstraint(NumExpr starts[], int duration[], int demand[], int capacity) {
+        if (duration.length != starts.length || demand.length != starts.length)
+            throw new IllegalArgumentException("a duration and demand is required for each task");
+        for (int i=0; i<starts.length; i++) {
+            if (duration[i] < 0 || demand[i] < 0)
+                throw new IllegalArgumentException("durations and demands cannot be negative");
+        }
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity cannot be negative");
+
+        this.starts = starts;
+        this.duration = (int[]) duration.clone();
+        this.demand = (int[]) demand.clone();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a constraint for a unary resource that runs one task at a time
+     *
+     * @param starts    Start time of each task
+     * @param duration  Duration of each task
+     */
+    public CumulativeConstraint(NumExpr starts[], int duration[]) {
+        this(starts, duration, ones(starts.length), 1);
+    }
+
+    /**
+     * Returns an array of demands of one
+     */
+    private static int[] ones(int length) {
+        int demand[] = new int[length];
+        for (int i=0; i<length; i++) demand[i] = 1;
+        return demand;
+    }
+
+    /**
+     * Returns true if no two tasks that use the resource can run at once
+     * and each fits within the capacity
+     */
+    private boolean isUnary() {
+        for (int i=0; i<demand.length; i++) {
+            if (duration[i] > 0 && demand[i] > 0 && (demand[i] * 2 <= capacity || demand[i] > capacity))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates arc that will be posted to graph
+     */
+    private Arc createArc() {
+        NumNode nodes[] = new NumNode[starts.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = (NumNode) starts[i].getNode();
+
+        if (isUnary()) {
+            // tasks without demand do not use the resource
+            int unaryDuration[] = (int[]) duration.clone();
+            for (int i=0; i<demand.length; i++)
+                if (demand[i] == 0) unaryDuration[i] = 0;
+            return new DisjunctiveArc(nodes, unaryDuration);
+        }
+        return new CumulativeArc(nodes, duration, demand, capacity);
+    }
+
+    // javadoc inherited from NumConstraint
+    public boolean isOverRealInterval() {
+        return false;
+    }
+
+    // javadoc inherited from NumConstraint
+    public void postToGraph() {
+        if (graph!=null) {
+            // add nodes to graph
+            for (int i=0; i<starts.length; i++)
+                starts[i].updateGraph(graph);
+
+            // post arc to graph
+            if (arc==null) arc = createArc();
+            graph.addArc(arc);
+        }
+    }
+
+    // javadoc inherited from NumConstraint
+    public Arc[] getBooleanSourceArcs() {
+        return new Arc[] {createArc()};
+    }
+
+    // javadoc inherited from NumConstraint
+    public Node[] getBooleanSourceNodes() {
+        Node nodes[] = new Node[starts.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = starts[i].getNode();
+        return nodes;
+    }
+
+    //  javadoc is inherited
+    public void addVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<starts.length; i++)
+            ((VariableChangeSource) starts[i]).addVariableChangeListener(listener);
+    }
+
+    //  javadoc is inherited
+    public void removeVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<starts.length; i++)
+            ((VariableChangeSource) starts[i]).removeVariableChangeListener(listener);
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createConstraintFragment(GenericIndex indices[]) {
+        return this;
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createOpposite() {
+        throw new UnsupportedOperationException("The opposite of CumulativeConstraint is not supported.");
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public boolean isViolated(boolean allViolated) {
+        // constraint is violated if the tasks that must run at the start of a
+        // bound task use more than the capacity
+        for (int i=0; i<starts.length; i++) {
+            if (!starts[i].isBound() || duration[i] == 0) continue;
+            long time = starts[i].getNumMin().longValue();
+
+            long used = 0;
+            for (int j=0; j<starts.length; j++) {
+                long lst = starts[j].getNumMax().longValue();
+                long ect = starts[j].getNumMin().longValue() + duration[j];
+                if (lst <= time && time < ect) used += demand[j];
+            }
+            if (used > capacity) return true;
+        }
+        return false;
+    }
+}
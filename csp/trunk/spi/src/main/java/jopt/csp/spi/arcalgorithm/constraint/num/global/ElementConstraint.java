@@ -0,0 +1,218 @@
+package jopt.csp.spi.arcalgorithm.constraint.num.global;
+
+import jopt.csp.spi.arcalgorithm.constraint.AbstractConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.GenericNumExpr;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.ConstantElementArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.VariableElementArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.VariableChangeListener;
+import jopt.csp.spi.solver.VariableChangeSource;
+import jopt.csp.spi.util.GenericIndex;
+import jopt.csp.spi.util.NumberMath;
+import jopt.csp.util.DoubleUtil;
+
+/**
+ * Constraint requiring an expression to equal the element of an array at a
+ * position given by an index expression, such as cost == costs[task].  The
+ * array may hold constants or expressions, including the expressions wrapped
+ * by a generic expression.  The constraint is posted as a single arc instead
+ * of a disjunction of boolean constraints for each position of the array.
+ */
+public class ElementConstraint extends AbstractConstraint {
+    private NumExpr index;
+    private NumExpr result;
+    private long longValues[];
+    private double doubleValues[];
+    private NumExpr sources[];
+    private Arc arc;
+
+    /**
+     * Creates an element constraint over an array of integer or long values
+     *
+     * @param values    Array of values
+     * @param index     Expression referencing a position in the array
+     * @param result    Expression equal to the value at the index
+     */
+    public ElementConstraint(long values[], NumExpr index, NumExpr result) {
+        this.longValues = values;
+        this.index = index;
+        this.result = result;
+    }
+
+    /**
+     * Creates an element constraint over an array of float or double values
+     *
+     * @param values    Array of values
+     * @param index     Expression referencing a position in the array
+     * @param result    Expression equal to the value at the index
+     */
+    public ElementConstraint(double values[], NumExpr index, NumExpr result) {
+        this.doubleValues = values;
+        this.index = index;
+        this.result = result;
+    }
+
+    /**
+     * Creates an element constraint over an array of expressions
+     *
+     * @param sources   Array of expressions
+     * @param index     Expression referencing a position in the array
+     * @param result    Expression equal to the expression at the index
+     */
+    public ElementConstraint(NumExpr sources[], NumExpr index, NumExpr result) {
+        this.sources = sources;
+        this.index = index;
+        this.result = result;
+    }
+
+    /**
+     * Creates an element constraint over the expressions wrapped by a generic
+     * expression, where the index references the offset of an expression
+     *
+     * @param source    Generic expression wrapping array of expressions
+     * @param index     Expression referencing an offset of the generic expression
+     * @param result    Expression equal to the expression at the index
+     */
+    public ElementConstraint(GenericNumExpr source, NumExpr index, NumExpr result) {
+        this.sources = new NumExpr[source.getExpressionCount()];
+        for (int i=0; i<sources.length; i++)
+            sources[i] = source.getNumExpression(i);
+        this.index = index;
+        this.result = result;
+    }
+
+    /**
+     * Creates arc that will be posted to graph
+     */
+    private Arc createArc() {
+        NumNode indexNode = (NumNode) index.getNode();
+        NumNode resultNode = (NumNode) result.getNode();
+
+        if (longValues!=null)
+            return new ConstantElementArc(indexNode, resultNode, longValues);
+        else if (doubleValues!=null)
+            return new ConstantElementArc(indexNode, resultNode, doubleValues);
+        else {
+            NumNode nodes[] = new NumNode[sources.length];
+            for (int i=0; i<nodes.length; i++)
+                nodes[i] = (NumNode) sources[i].getNode();
+            return new VariableElementArc(nodes, indexNode, resultNode);
+        }
+    }
+
+    // javadoc inherited from NumConstraint
+    public boolean isOverRealInterval() {
+        return NumberMath.isRealType(result.getNumberType());
+    }
+
+    // javadoc inherited from NumConstraint
+    public void postToGraph() {
+        if (graph!=null) {
+            // add nodes to graph
+            index.updateGraph(graph);
+            result.updateGraph(graph);
+            if (sources!=null) {
+                for (int i=0; i<sources.length; i++)
+                    sources[i].updateGraph(graph);
+            }
+
+            // post arc to graph
+            if (arc==null) arc = createArc();
+            graph.addArc(arc);
+        }
+    }
+
+    /**
+     * Returns all expressions referenced by constraint
+     */
+    private NumExpr[] getExpressions() {
+        if (sources==null) return new NumExpr[]{index, result};
+
+        NumExpr exprs[] = new NumExpr[sources.length + 2];
+        exprs[0] = index;
+        exprs[1] = result;
+        System.arraycopy(sources, 0, exprs, 2, sources.length);
+        return exprs;
+    }
+
+    // javadoc inherited from NumConstraint
+    public Arc[] getBooleanSourceArcs() {
+        NumExpr exprs[] = getExpressions();
+        Arc arcs[] = new Arc[0];
+        for (int i=0; i<exprs.length; i++) {
+            Arc exprArcs[] = exprs[i].getBooleanSourceArcs();
+            if (exprArcs.length > 0) {
+                Arc combined[] = new Arc[arcs.length + exprArcs.length];
+                System.arraycopy(arcs, 0, combined, 0, arcs.length);
+                System.arraycopy(exprArcs, 0, combined, arcs.length, exprArcs.length);
+                arcs = combined;
+            }
+        }
+        return arcs;
+    }
+
+    // javadoc inherited from NumConstraint
+    public Node[] getBooleanSourceNodes() {
+        NumExpr exprs[] = getExpressions();
+        Node nodes[] = new Node[exprs.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = exprs[i].getNode();
+        return nodes;
+    }
+
+    //  javadoc is inherited
+    public void addVariableChangeListener(VariableChangeListener listener) {
+        NumExpr exprs[] = getExpressions();
+        for (int i=0; i<exprs.length; i++)
+            ((VariableChangeSource) exprs[i]).addVariableChangeListener(listener);
+    }
+
+    //  javadoc is inherited
+    public void removeVariableChangeListener(VariableChangeListener listener) {
+        NumExpr exprs[] = getExpressions();
+        for (int i=0; i<exprs.length; i++)
+            ((VariableChangeSource) exprs[i]).removeVariableChangeListener(listener);
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createConstraintFragment(GenericIndex indices[]) {
+        return this;
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createOpposite() {
+        throw new UnsupportedOperationException("The opposite of ElementConstraint is not supported.");
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public boolean isViolated(boolean allViolated) {
+        int size = (longValues!=null) ? longValues.length : (doubleValues!=null) ? doubleValues.length : sources.length;
+        int start = Math.max(0, (int) Math.ceil(index.getNumMin().doubleValue()));
+        int end = Math.min(size - 1, (int) Math.floor(index.getNumMax().doubleValue()));
+
+        double min = result.getNumMin().doubleValue();
+        double max = result.getNumMax().doubleValue();
+        double precision = isOverRealInterval() ? DoubleUtil.DEFAULT_PRECISION : 0;
+
+        // constraint is violated if no element within the bounds of the index
+        // overlaps the bounds of the result
+        for (int i=start; i<=end; i++) {
+            double elemMin, elemMax;
+            if (longValues!=null)
+                elemMin = elemMax = longValues[i];
+            else if (doubleValues!=null)
+                elemMin = elemMax = doubleValues[i];
+            else {
+                elemMin = sources[i].getNumMin().doubleValue();
+                elemMax = sources[i].getNumMax().doubleValue();
+            }
+
+            if (DoubleUtil.compare(elemMax, min, precision) >= 0 && DoubleUtil.compare(elemMin, max, precision) <= 0)
+                return false;
+        }
+        return true;
+    }
+}
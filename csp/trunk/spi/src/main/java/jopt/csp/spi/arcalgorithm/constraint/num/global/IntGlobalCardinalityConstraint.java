@@ -0,0 +1,220 @@
+package jopt.csp.spi.arcalgorithm.constraint.num.global;
+
+import java.util.Arrays;
+
+import jopt.csp.spi.arcalgorithm.constraint.AbstractConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.GenericNumExpr;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.IntGlobalCardinalityArc;
+import jopt.csp.spi.arcalgorithm.graph.node.IntNode;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.arcalgorithm.variable.IntExpr;
+import jopt.csp.spi.solver.VariableChangeListener;
+import jopt.csp.spi.solver.VariableChangeSource;
+import jopt.csp.spi.util.GenericIndex;
+
+/**
+ * Global cardinality constraint over integer expressions, requiring the
+ * number of expressions equal to each of a set of values to lie between a
+ * lower and upper bound or to equal a count expression.  Values that are
+ * not listed may be taken by any number of expressions.
+ * <p>
+ * Unlike {@link GlobalCardinalityConstraint} and
+ * {@link GlobalCardinalityCountConstraint}, the arc posted by this
+ * constraint achieves domain consistency using flows over integer arrays.
+ */
+public class IntGlobalCardinalityConstraint extends AbstractConstraint {
+    private NumExpr nsources[];
+    private Number vals[];
+    private int lb[];
+    private int ub[];
+    private IntExpr count[];
+    private Arc arc;
+
+    /**
+     * Creates a constraint with fixed bounds for each value
+     *
+     * @param sources   Expressions whose values are counted
+     * @param vals      Values whose occurrences are constrained
+     * @param lb        Minimum number of expressions equal to each value
+     * @param ub        Maximum number of expressions equal to each value
+     */
+    public IntGlobalCardinalityConstraint(NumExpr sources[], Number vals[], int lb[], int ub[]) {
+        if (vals.length != lb.length || vals.length != ub.length)
+            throw new IllegalArgumentException("a lower and upper bound is required for each value");
+        this.nsources = sources;
+        this.vals = vals;
+        this.lb = lb;
+        this.ub = ub;
+    }
+
+    /**
+     * Creates a constraint with fixed bounds for each value over the
+     * expressions wrapped by a generic expression
+     *
+     * @param source    Generic expression whose values are counted
+     * @param vals      Values whose occurrences are constrained
+     * @param lb        Minimum number of expressions equal to each value
+     * @param ub        Maximum number of expressions equal to each value
+     */
+    public IntGlobalCardinalityConstraint(GenericNumExpr source, Number vals[], int lb[], int ub[]) {
+        this(expressions(source), vals, lb, ub);
+    }
+
+    /**
+     * Creates a constraint equating the number of expressions equal to each
+     * value with a count expression
+     *
+     * @param sources   Expressions whose values are counted
+     * @param vals      Values whose occurrences are counted
+     * @param count     Number of expressions equal to each value
+     */
+    public IntGlobalCardinalityConstraint(NumExpr sources[], Number vals[], IntExpr count[]) {
+        if (vals.length != count.length)
+            throw new IllegalArgumentException("a count is required for each value");
+        this.nsources = sources;
+        this.vals = vals;
+        this.count = count;
+    }
+
+    /**
+     * Creates a constraint equating the number of expressions wrapped by a
+     * generic expression that are equal to each value with a count expression
+     *
+     * @param source    Generic expression whose values are counted
+     * @param vals      Values whose occurrences are counted
+     * @param count     Number of expressions equal to each value
+     */
+    public IntGlobalCardinalityConstraint(GenericNumExpr source, Number vals[], IntExpr count[]) {
+        this(expressions(source), vals, count);
+    }
+
+    /**
+     * Returns the expressions wrapped by a generic expression
+     */
+    private static NumExpr[] expressions(GenericNumExpr source) {
+        NumExpr exprs[] = new NumExpr[source.getExpressionCount()];
+        for (int i=0; i<exprs.length; i++)
+            exprs[i] = source.getNumExpression(i);
+        return exprs;
+    }
+
+    /**
+     * Creates arc that will be posted to graph
+     */
+    private Arc createArc() {
+        NumNode nodes[] = new NumNode[nsources.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = (NumNode) nsources[i].getNode();
+
+        if (count==null)
+            return new IntGlobalCardinalityArc(nodes, vals, lb, ub);
+
+        IntNode countNodes[] = new IntNode[count.length];
+        for (int i=0; i<count.length; i++)
+            countNodes[i] = (IntNode) count[i].getNode();
+        return new IntGlobalCardinalityArc(nodes, vals, countNodes);
+    }
+
+    // javadoc inherited from NumConstraint
+    public boolean isOverRealInterval() {
+        return false;
+    }
+
+    // javadoc inherited from NumConstraint
+    public void postToGraph() {
+        if (graph!=null) {
+            // add nodes to graph
+            for (int i=0; i<nsources.length; i++)
+                nsources[i].updateGraph(graph);
+            if (count!=null) {
+                for (int i=0; i<count.length; i++)
+                    count[i].updateGraph(graph);
+            }
+
+            // post arc to graph
+            if (arc==null) arc = createArc();
+            graph.addArc(arc);
+        }
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public Arc[] getBooleanSourceArcs() {
+        return new Arc[] {createArc()};
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public Node[] getBooleanSourceNodes() {
+        int countLength = (count==null) ? 0 : count.length;
+        Node nodes[] = new Node[nsources.length + countLength];
+        for (int i=0; i<nsources.length; i++)
+            nodes[i] = nsources[i].getNode();
+        for (int i=0; i<countLength; i++)
+            nodes[nsources.length + i] = count[i].getNode();
+        return nodes;
+    }
+
+    // javadoc is inherited
+    public void addVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<nsources.length; i++)
+            ((VariableChangeSource) nsources[i]).addVariableChangeListener(listener);
+        if (count!=null) {
+            for (int i=0; i<count.length; i++)
+                ((VariableChangeSource) count[i]).addVariableChangeListener(listener);
+        }
+    }
+
+    // javadoc is inherited
+    public void removeVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<nsources.length; i++)
+            ((VariableChangeSource) nsources[i]).removeVariableChangeListener(listener);
+        if (count!=null) {
+            for (int i=0; i<count.length; i++)
+                ((VariableChangeSource) count[i]).removeVariableChangeListener(listener);
+        }
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createConstraintFragment(GenericIndex indices[]) {
+        throw new UnsupportedOperationException("Creation of a fragment from of the Global Cardinality Constraint is not supported.");
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createOpposite() {
+        throw new UnsupportedOperationException("The opposite of IntGlobalCardinalityConstraint is not well-defined and thus not supported.");
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public boolean isViolated(boolean allViolated) {
+        int sorted[] = new int[vals.length];
+        for (int j=0; j<vals.length; j++)
+            sorted[j] = vals[j].intValue();
+        Arrays.sort(sorted);
+
+        // count expressions bound to each value and whose bounds include it
+        int minCount[] = new int[vals.length];
+        int maxCount[] = new int[vals.length];
+        for (int i=0; i<nsources.length; i++) {
+            NumExpr expr = nsources[i];
+            int min = expr.getNumMin().intValue();
+            int max = expr.getNumMax().intValue();
+            for (int j=0; j<sorted.length; j++) {
+                int val = sorted[j];
+                if (val < min || val > max) continue;
+                if (min == max) minCount[j]++;
+                maxCount[j]++;
+            }
+        }
+
+        for (int j=0; j<vals.length; j++) {
+            int idx = Arrays.binarySearch(sorted, vals[j].intValue());
+            int min = (count==null) ? lb[j] : count[j].getMin();
+            int max = (count==null) ? ub[j] : count[j].getMax();
+            if (maxCount[idx] < min || minCount[idx] > max)
+                return true;
+        }
+        return false;
+    }
+}
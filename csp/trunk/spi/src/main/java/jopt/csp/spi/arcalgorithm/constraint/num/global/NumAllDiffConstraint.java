@@ -15,6 +15,7 @@ import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
 import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
 import jopt.csp.spi.arcalgorithm.graph.arc.global.GenericNumAllDiffArc;
 import jopt.csp.spi.arcalgorithm.graph.arc.global.GenericNumAllSameArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.IntAllDiffArc;
 import jopt.csp.spi.arcalgorithm.graph.node.GenericNumNode;
 import jopt.csp.spi.arcalgorithm.graph.node.Node;
 import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
@@ -22,6 +23,7 @@ import jopt.csp.spi.solver.VariableChangeListener;
 import jopt.csp.spi.solver.VariableChangeSource;
 import jopt.csp.spi.util.GenericIndex;
 import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.spi.util.NumConstants;
 import jopt.csp.spi.util.NumberMath;
 
 /**
@@ -55,12 +57,15 @@ public class NumAllDiffConstraint extends AbstractConstraint {
     }
     
     /**
-     * Creates arc that will be posted to graph
+     * Creates arc that will be posted to graph.  Integer expressions use an
+     * arc that matches nodes to values held in primitive arrays.
      */
     private Arc createArc() {
         if (gsource != null) {
             if (opposite)
                 return new GenericNumAllSameArc((GenericNumNode) gsource.getNode());
+            else if (numberType == NumConstants.INTEGER)
+                return new IntAllDiffArc((GenericNumNode) gsource.getNode());
             else
             	return new GenericNumAllDiffArc((GenericNumNode) gsource.getNode());
         }
@@ -72,6 +77,8 @@ public class NumAllDiffConstraint extends AbstractConstraint {
             
             if (opposite)
                 return new GenericNumAllSameArc(nodes);
+            else if (numberType == NumConstants.INTEGER)
+                return new IntAllDiffArc(nodes);
             else
             	return new GenericNumAllDiffArc(nodes);
         }
@@ -0,0 +1,131 @@
+package jopt.csp.spi.arcalgorithm.constraint.num.global;
+
+import jopt.csp.spi.arcalgorithm.constraint.AbstractConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.RegularArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.VariableChangeListener;
+import jopt.csp.spi.solver.VariableChangeSource;
+import jopt.csp.spi.util.GenericIndex;
+import jopt.csp.util.Automaton;
+
+/**
+ * Constraint requiring the values of a sequence of expressions to be
+ * accepted by a deterministic finite automaton.  The constraint is posted as
+ * a single arc over the automaton unfolded for the length of the sequence,
+ * instead of constraints over each window of the sequence.
+ */
+public class RegularConstraint extends AbstractConstraint {
+    private NumExpr seq[];
+    private Automaton dfa;
+    private Arc arc;
+
+    /**
+     * Constructor
+     *
+     * @param seq       Expressions holding each value of the sequence
+     * @param dfa       Automaton accepting valid sequences
+     */
+    public RegularConstraint(NumExpr seq[], Automaton dfa) {
+        this.seq = seq;
+        this.dfa = dfa;
+    }
+
+    // javadoc inherited from NumConstraint
+    public boolean isOverRealInterval() {
+        return false;
+    }
+
+    // javadoc inherited from NumConstraint
+    public void postToGraph() {
+        if (graph!=null) {
+            // add nodes to graph
+            for (int i=0; i<seq.length; i++)
+                seq[i].updateGraph(graph);
+
+            // post arc to graph
+            if (arc==null) {
+                NumNode nodes[] = new NumNode[seq.length];
+                for (int i=0; i<nodes.length; i++)
+                    nodes[i] = (NumNode) seq[i].getNode();
+                arc = new RegularArc(nodes, dfa);
+            }
+            graph.addArc(arc);
+        }
+    }
+
+    // javadoc inherited from NumConstraint
+    public Arc[] getBooleanSourceArcs() {
+        Arc arcs[] = new Arc[0];
+        for (int i=0; i<seq.length; i++) {
+            Arc exprArcs[] = seq[i].getBooleanSourceArcs();
+            if (exprArcs.length > 0) {
+                Arc combined[] = new Arc[arcs.length + exprArcs.length];
+                System.arraycopy(arcs, 0, combined, 0, arcs.length);
+                System.arraycopy(exprArcs, 0, combined, arcs.length, exprArcs.length);
+                arcs = combined;
+            }
+        }
+        return arcs;
+    }
+
+    // javadoc inherited from NumConstraint
+    public Node[] getBooleanSourceNodes() {
+        Node nodes[] = new Node[seq.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = seq[i].getNode();
+        return nodes;
+    }
+
+    //  javadoc is inherited
+    public void addVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<seq.length; i++)
+            ((VariableChangeSource) seq[i]).addVariableChangeListener(listener);
+    }
+
+    //  javadoc is inherited
+    public void removeVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<seq.length; i++)
+            ((VariableChangeSource) seq[i]).removeVariableChangeListener(listener);
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createConstraintFragment(GenericIndex indices[]) {
+        return this;
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createOpposite() {
+        throw new UnsupportedOperationException("The opposite of RegularConstraint is not supported.");
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public boolean isViolated(boolean allViolated) {
+        // constraint is violated if no accepting state can be reached reading
+        // values within the bounds of the expressions
+        int states = dfa.getStateCount();
+        boolean reached[] = new boolean[states];
+        boolean next[] = new boolean[states];
+        reached[dfa.getInitialState()] = true;
+        for (int i=0; i<seq.length; i++) {
+            int min = seq[i].getNumMin().intValue();
+            int max = seq[i].getNumMax().intValue();
+            for (int q=0; q<states; q++)
+                next[q] = false;
+            for (int t=0; t<dfa.getTransitionCount(); t++) {
+                int val = dfa.getTransitionValue(t);
+                if (reached[dfa.getTransitionFrom(t)] && val >= min && val <= max)
+                    next[dfa.getTransitionTo(t)] = true;
+            }
+            boolean swap[] = reached;
+            reached = next;
+            next = swap;
+        }
+
+        for (int q=0; q<states; q++)
+            if (reached[q] && dfa.isAccepting(q)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,241 @@
+package jopt.csp.spi.arcalgorithm.constraint.num.global;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jopt.csp.spi.arcalgorithm.constraint.AbstractConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.DoubleScalarProductArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.LongScalarProductArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.VariableChangeListener;
+import jopt.csp.spi.solver.VariableChangeSource;
+import jopt.csp.spi.util.GenericIndex;
+import jopt.csp.spi.util.NumberMath;
+import jopt.csp.util.DoubleUtil;
+
+/**
+ * Constraint relating a weighted sum of variables to a constant, such as
+ * 3x + 2y - z <= 10.  Unlike a sum built by chaining <code>add</code> and
+ * <code>multiply</code> expressions, the constraint is posted as a single arc
+ * without intermediate variables, and the arc adjusts the bounds of the sum
+ * in constant time each time the bound of a variable changes.
+ * <p>
+ * Coefficients and the constant are held as longs for integer and long
+ * variables and as doubles for float and double variables.
+ */
+public class ScalarProductConstraint extends AbstractConstraint {
+    private NumExpr exprs[];
+    private long longCoeffs[];
+    private long longRhs;
+    private double doubleCoeffs[];
+    private double doubleRhs;
+    private int relation;
+    private int numberType;
+    private Arc arc;
+
+    /**
+     * Creates a scalar product constraint over integer or long expressions
+     *
+     * @param coeffs    Coefficient of each expression
+     * @param exprs     Expressions whose weighted sum is constrained
+     * @param relation  Relation of sum to constant (EQ, NEQ, LEQ or GEQ)
+     * @param rhs       Constant sum is related to
+     */
+    public ScalarProductConstraint(long coeffs[], NumExpr exprs[], int relation, long rhs) {
+        this(exprs, relation);
+        this.longCoeffs = coeffs;
+        this.longRhs = rhs;
+    }
+
+    /**
+     * Creates a scalar product constraint over float or double expressions
+     *
+     * @param coeffs    Coefficient of each expression
+     * @param exprs     Expressions whose weighted sum is constrained
+     * @param relation  Relation of sum to constant (EQ, NEQ, LEQ or GEQ)
+     * @param rhs       Constant sum is related to
+     */
+    public ScalarProductConstraint(double coeffs[], NumExpr exprs[], int relation, double rhs) {
+        this(exprs, relation);
+        this.doubleCoeffs = coeffs;
+        this.doubleRhs = rhs;
+    }
+
+    private ScalarProductConstraint(NumExpr exprs[], int relation) {
+        this.exprs = exprs;
+        this.relation = relation;
+
+        // determine number type
+        for (int i=0; i<exprs.length; i++)
+            numberType = Math.max(numberType, exprs[i].getNumberType());
+    }
+
+    /**
+     * Creates arc that will be posted to graph.  Terms of the same node are
+     * combined and terms with a coefficient of zero are dropped.
+     */
+    private Arc createArc() {
+        Map<Node, Integer> positions = new LinkedHashMap<Node, Integer>();
+        NumNode nodes[] = new NumNode[exprs.length];
+        long lcoeffs[] = new long[exprs.length];
+        double dcoeffs[] = new double[exprs.length];
+        int count = 0;
+
+        for (int i=0; i<exprs.length; i++) {
+            NumNode node = (NumNode) exprs[i].getNode();
+            Integer pos = positions.get(node);
+            if (pos==null) {
+                pos = new Integer(count++);
+                positions.put(node, pos);
+                nodes[pos.intValue()] = node;
+            }
+
+            if (doubleCoeffs!=null)
+                dcoeffs[pos.intValue()] += doubleCoeffs[i];
+            else
+                lcoeffs[pos.intValue()] += longCoeffs[i];
+        }
+
+        // remove terms whose coefficients cancelled out
+        int size = 0;
+        for (int i=0; i<count; i++) {
+            if ((doubleCoeffs!=null) ? dcoeffs[i]==0 : lcoeffs[i]==0) continue;
+            nodes[size] = nodes[i];
+            dcoeffs[size] = dcoeffs[i];
+            lcoeffs[size] = lcoeffs[i];
+            size++;
+        }
+
+        NumNode termNodes[] = new NumNode[size];
+        System.arraycopy(nodes, 0, termNodes, 0, size);
+
+        if (doubleCoeffs!=null) {
+            double termCoeffs[] = new double[size];
+            System.arraycopy(dcoeffs, 0, termCoeffs, 0, size);
+            return new DoubleScalarProductArc(termNodes, termCoeffs, relation, doubleRhs);
+        }
+        else {
+            long termCoeffs[] = new long[size];
+            System.arraycopy(lcoeffs, 0, termCoeffs, 0, size);
+            return new LongScalarProductArc(termNodes, termCoeffs, relation, longRhs);
+        }
+    }
+
+    // javadoc inherited from NumConstraint
+    public boolean isOverRealInterval() {
+        return NumberMath.isRealType(numberType);
+    }
+
+    // javadoc inherited from NumConstraint
+    public void postToGraph() {
+        if (graph!=null) {
+            // add nodes to graph
+            for (int i=0; i<exprs.length; i++)
+                exprs[i].updateGraph(graph);
+
+            // post arc to graph
+            if (arc==null) arc = createArc();
+            graph.addArc(arc);
+        }
+    }
+
+    // javadoc inherited from NumConstraint
+    public Arc[] getBooleanSourceArcs() {
+        Arc arcs[] = new Arc[0];
+        for (int i=0; i<exprs.length; i++) {
+            Arc exprArcs[] = exprs[i].getBooleanSourceArcs();
+            if (exprArcs.length > 0) {
+                Arc combined[] = new Arc[arcs.length + exprArcs.length];
+                System.arraycopy(arcs, 0, combined, 0, arcs.length);
+                System.arraycopy(exprArcs, 0, combined, arcs.length, exprArcs.length);
+                arcs = combined;
+            }
+        }
+        return arcs;
+    }
+
+    // javadoc inherited from NumConstraint
+    public Node[] getBooleanSourceNodes() {
+        Node nodes[] = new Node[exprs.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = exprs[i].getNode();
+        return nodes;
+    }
+
+    //  javadoc is inherited
+    public void addVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<exprs.length; i++)
+            ((VariableChangeSource) exprs[i]).addVariableChangeListener(listener);
+    }
+
+    //  javadoc is inherited
+    public void removeVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<exprs.length; i++)
+            ((VariableChangeSource) exprs[i]).removeVariableChangeListener(listener);
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createConstraintFragment(GenericIndex indices[]) {
+        return this;
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createOpposite() {
+        if (doubleCoeffs!=null) {
+            switch(relation) {
+                case LEQ:
+                    return new ScalarProductConstraint(doubleCoeffs, exprs, GEQ, DoubleUtil.next(doubleRhs));
+                case GEQ:
+                    return new ScalarProductConstraint(doubleCoeffs, exprs, LEQ, DoubleUtil.previous(doubleRhs));
+                case EQ:
+                    return new ScalarProductConstraint(doubleCoeffs, exprs, NEQ, doubleRhs);
+                default:
+                    return new ScalarProductConstraint(doubleCoeffs, exprs, EQ, doubleRhs);
+            }
+        }
+        else {
+            switch(relation) {
+                case LEQ:
+                    return new ScalarProductConstraint(longCoeffs, exprs, GEQ, longRhs + 1);
+                case GEQ:
+                    return new ScalarProductConstraint(longCoeffs, exprs, LEQ, longRhs - 1);
+                case EQ:
+                    return new ScalarProductConstraint(longCoeffs, exprs, NEQ, longRhs);
+                default:
+                    return new ScalarProductConstraint(longCoeffs, exprs, EQ, longRhs);
+            }
+        }
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public boolean isViolated(boolean allViolated) {
+        // calculate bounds of sum from bounds of expressions
+        double minSum = 0;
+        double maxSum = 0;
+        boolean bound = true;
+        for (int i=0; i<exprs.length; i++) {
+            double c = (doubleCoeffs!=null) ? doubleCoeffs[i] : longCoeffs[i];
+            double lo = exprs[i].getNumMin().doubleValue();
+            double hi = exprs[i].getNumMax().doubleValue();
+            minSum += (c > 0) ? c*lo : c*hi;
+            maxSum += (c > 0) ? c*hi : c*lo;
+            bound &= exprs[i].isBound();
+        }
+
+        double rhs = (doubleCoeffs!=null) ? doubleRhs : longRhs;
+        double precision = (doubleCoeffs!=null) ? DoubleUtil.DEFAULT_PRECISION : 0;
+        switch(relation) {
+            case LEQ:
+                return DoubleUtil.compare(minSum, rhs, precision) > 0;
+            case GEQ:
+                return DoubleUtil.compare(maxSum, rhs, precision) < 0;
+            case EQ:
+                return DoubleUtil.compare(minSum, rhs, precision) > 0 || DoubleUtil.compare(maxSum, rhs, precision) < 0;
+            default:
+                return bound && DoubleUtil.isEqual(minSum, rhs, precision);
+        }
+    }
+}
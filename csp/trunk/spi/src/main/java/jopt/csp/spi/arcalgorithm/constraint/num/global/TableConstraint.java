@@ -0,0 +1,120 @@
+package jopt.csp.spi.arcalgorithm.constraint.num.global;
+
+import jopt.csp.spi.arcalgorithm.constraint.AbstractConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.global.TableArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.VariableChangeListener;
+import jopt.csp.spi.solver.VariableChangeSource;
+import jopt.csp.spi.util.GenericIndex;
+
+/**
+ * Constraint requiring the values of a set of expressions to match one of the
+ * rows of a table of allowed tuples.  The constraint is posted as a single arc
+ * that tracks the valid rows in a reversible bit set, instead of a disjunction
+ * of boolean constraints for each row of the table.
+ */
+public class TableConstraint extends AbstractConstraint {
+    private NumExpr exprs[];
+    private int tuples[][];
+    private Arc arc;
+
+    /**
+     * Constructor
+     *
+     * @param exprs     Expressions of each column of the table
+     * @param tuples    Rows of the table listing allowed values of each expression
+     */
+    public TableConstraint(NumExpr exprs[], int tuples[][]) {
+        for (int i=0; i<tuples.length; i++) {
+            if (tuples[i].length != exprs.length)
+                throw new IllegalArgumentException("each row of table must have a value for every expression");
+        }
+        this.exprs = exprs;
+        this.tuples = tuples;
+    }
+
+    // javadoc inherited from NumConstraint
+    public boolean isOverRealInterval() {
+        return false;
+    }
+
+    // javadoc inherited from NumConstraint
+    public void postToGraph() {
+        if (graph!=null) {
+            // add nodes to graph
+            for (int i=0; i<exprs.length; i++)
+                exprs[i].updateGraph(graph);
+
+            // post arc to graph
+            if (arc==null) {
+                NumNode nodes[] = new NumNode[exprs.length];
+                for (int i=0; i<nodes.length; i++)
+                    nodes[i] = (NumNode) exprs[i].getNode();
+                arc = new TableArc(nodes, tuples);
+            }
+            graph.addArc(arc);
+        }
+    }
+
+    // javadoc inherited from NumConstraint
+    public Arc[] getBooleanSourceArcs() {
+        Arc arcs[] = new Arc[0];
+        for (int i=0; i<exprs.length; i++) {
+            Arc exprArcs[] = exprs[i].getBooleanSourceArcs();
+            if (exprArcs.length > 0) {
+                Arc combined[] = new Arc[arcs.length + exprArcs.length];
+                System.arraycopy(arcs, 0, combined, 0, arcs.length);
+                System.arraycopy(exprArcs, 0, combined, arcs.length, exprArcs.length);
+                arcs = combined;
+            }
+        }
+        return arcs;
+    }
+
+    // javadoc inherited from NumConstraint
+    public Node[] getBooleanSourceNodes() {
+        Node nodes[] = new Node[exprs.length];
+        for (int i=0; i<nodes.length; i++)
+            nodes[i] = exprs[i].getNode();
+        return nodes;
+    }
+
+    //  javadoc is inherited
+    public void addVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<exprs.length; i++)
+            ((VariableChangeSource) exprs[i]).addVariableChangeListener(listener);
+    }
+
+    //  javadoc is inherited
+    public void removeVariableChangeListener(VariableChangeListener listener) {
+        for (int i=0; i<exprs.length; i++)
+            ((VariableChangeSource) exprs[i]).removeVariableChangeListener(listener);
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createConstraintFragment(GenericIndex indices[]) {
+        return this;
+    }
+
+    // javadoc inherited from AbstractConstraint
+    protected final AbstractConstraint createOpposite() {
+        throw new UnsupportedOperationException("The opposite of TableConstraint is not supported.");
+    }
+
+    // javadoc inherited from AbstractConstraint
+    public boolean isViolated(boolean allViolated) {
+        // constraint is violated if no row lies within the bounds of the expressions
+        for (int i=0; i<tuples.length; i++) {
+            boolean valid = true;
+            for (int j=0; valid && j<exprs.length; j++) {
+                int val = tuples[i][j];
+                valid = val >= exprs[j].getNumMin().intValue() && val <= exprs[j].getNumMax().intValue();
+            }
+            if (valid) return false;
+        }
+        return true;
+    }
+}
@@ -1,8 +1,5 @@
 package jopt.csp.spi.arcalgorithm.domain;
 
-import java.util.HashSet;
-import java.util.Iterator;
-
 import jopt.csp.spi.solver.ChoicePointDataSource;
 import jopt.csp.spi.util.DomainChangeType;
 import jopt.csp.variable.PropagationFailureException;
@@ -10,19 +7,28 @@ import jopt.csp.variable.PropagationFailureException;
 public abstract class AbstractDomain implements Domain, DomainChangeSource, ChoicePointDataSource {
     protected boolean changed;
     
-    private HashSet<DomainChangeListener> domainListeners;
-    private HashSet<DomainChangeListener> rangeListeners;
-    private HashSet<DomainChangeListener> valueListeners;
+    private final static DomainChangeListener NO_LISTENERS[] = new DomainChangeListener[0];
+    
+    // listeners are held in arrays that are replaced rather than modified
+    // when a listener is added or removed, so events can be fired without
+    // allocating an iterator or copying the listeners
+    private DomainChangeListener domainListeners[];
+    private DomainChangeListener rangeListeners[];
+    private DomainChangeListener valueListeners[];
     
     protected DomainChangeEvent event;
     
     /**
      * Constructor
+     * 
+     * @param domainEvents  True if domain change listeners are supported
+     * @param rangeEvents   True if range change listeners are supported
+     * @param valueEvents   True if value change listeners are supported
      */
-    protected AbstractDomain(HashSet<DomainChangeListener> domainListeners, HashSet<DomainChangeListener> rangeListeners, HashSet<DomainChangeListener> valueListeners) {
-        this.domainListeners = domainListeners;
-        this.rangeListeners = rangeListeners;
-        this.valueListeners = valueListeners;
+    protected AbstractDomain(boolean domainEvents, boolean rangeEvents, boolean valueEvents) {
+        this.domainListeners = domainEvents ? NO_LISTENERS : null;
+        this.rangeListeners = rangeEvents ? NO_LISTENERS : null;
+        this.valueListeners = valueEvents ? NO_LISTENERS : null;
         this.event = new DomainChangeEvent(this);
     }
     
@@ -30,37 +36,70 @@ public abstract class AbstractDomain implements Domain, DomainChangeSource, Choi
      * Constructor
      */
     protected AbstractDomain() {
-        this(new HashSet<DomainChangeListener>(), new HashSet<DomainChangeListener>(), new HashSet<DomainChangeListener>());
+        this(true, true, true);
     }
     
     //  javadoc is inherited
     public void addDomainChangeListener(DomainChangeListener listener) {
-        if (listener!=null && domainListeners!=null) domainListeners.add(listener);
+        if (listener!=null && domainListeners!=null) domainListeners = addListener(domainListeners, listener);
     }
 
     //  javadoc is inherited
     public void removeDomainChangeListener(DomainChangeListener listener) {
-        if (listener!=null && domainListeners!=null) domainListeners.remove(listener);
+        if (listener!=null && domainListeners!=null) domainListeners = removeListener(domainListeners, listener);
     }
     
     //  javadoc is inherited
     public void addRangeChangeListener(DomainChangeListener listener) {
-        if (listener!=null && rangeListeners!=null) rangeListeners.add(listener);
+        if (listener!=null && rangeListeners!=null) rangeListeners = addListener(rangeListeners, listener);
     }
 
     //  javadoc is inherited
     public void removeRangeChangeListener(DomainChangeListener listener) {
-        if (listener!=null && rangeListeners!=null) rangeListeners.remove(listener);
+        if (listener!=null && rangeListeners!=null) rangeListeners = removeListener(rangeListeners, listener);
     }
     
     //  javadoc is inherited
     public void addValueChangeListener(DomainChangeListener listener) {
-        if (listener!=null && valueListeners!=null) valueListeners.add(listener);
+        if (listener!=null && valueListeners!=null) valueListeners = addListener(valueListeners, listener);
     }
 
     //  javadoc is inherited
     public void removeValueChangeListener(DomainChangeListener listener) {
-        if (listener!=null && valueListeners!=null) valueListeners.remove(listener);
+        if (listener!=null && valueListeners!=null) valueListeners = removeListener(valueListeners, listener);
+    }
+    
+    /**
+     * Returns a copy of a listener array with a listener appended, or the
+     * same array if it already contains the listener
+     */
+    private static DomainChangeListener[] addListener(DomainChangeListener listeners[], DomainChangeListener listener) {
+        for (int i=0; i<listeners.length; i++)
+            if (listeners[i].equals(listener)) return listeners;
+        
+        DomainChangeListener newListeners[] = new DomainChangeListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        return newListeners;
+    }
+    
+    /**
+     * Returns a copy of a listener array with a listener removed, or the
+     * same array if it does not contain the listener
+     */
+    private static DomainChangeListener[] removeListener(DomainChangeListener listeners[], DomainChangeListener listener) {
+        for (int i=0; i<listeners.length; i++) {
+            if (listeners[i].equals(listener)) {
+                if (listeners.length == 1) return NO_LISTENERS;
+                
+                DomainChangeListener newListeners[] = new DomainChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i+1, newListeners, i, listeners.length - i - 1);
+                return newListeners;
+            }
+        }
+        
+        return listeners;
     }
     
     /**
@@ -86,22 +125,18 @@ public abstract class AbstractDomain implements Domain, DomainChangeSource, Choi
     
     
     protected void notifyChoicePointPop() {
-        if (rangeListeners != null) {
-            Iterator<DomainChangeListener> iterator = rangeListeners.iterator();
-            while (iterator.hasNext()) {
-                DomainChangeListener listener = (DomainChangeListener) iterator.next();
-                listener.choicePointPop();
-            }
+        DomainChangeListener listeners[] = rangeListeners;
+        if (listeners != null) {
+            for (int i=0; i<listeners.length; i++)
+                listeners[i].choicePointPop();
         }
     }
     
     protected void notifyChoicePointPush() {
-        if (rangeListeners != null) {
-            Iterator<DomainChangeListener> iterator = rangeListeners.iterator();
-            while (iterator.hasNext()) {
-                DomainChangeListener listener = (DomainChangeListener) iterator.next();
-                listener.choicePointPush();
-            }
+        DomainChangeListener listeners[] = rangeListeners;
+        if (listeners != null) {
+            for (int i=0; i<listeners.length; i++)
+                listeners[i].choicePointPush();
         }
     }
     
@@ -118,30 +153,24 @@ public abstract class AbstractDomain implements Domain, DomainChangeSource, Choi
     private void fireChangeEvent(int type) throws PropagationFailureException {
         event.setType(type); 
         //Notify value listeners
-        if (type == DomainChangeType.VALUE && valueListeners != null) {
-            Iterator<DomainChangeListener> iterator = valueListeners.iterator();
-            while (iterator.hasNext()) {
-                DomainChangeListener listener = (DomainChangeListener) iterator.next();
-                listener.domainChange(event);
-            }
+        DomainChangeListener listeners[] = valueListeners;
+        if (type == DomainChangeType.VALUE && listeners != null) {
+            for (int i=0; i<listeners.length; i++)
+                listeners[i].domainChange(event);
         }
 
         // Notify range listeners
-        if (type >= DomainChangeType.RANGE && rangeListeners != null) {
-            Iterator<DomainChangeListener> iterator = rangeListeners.iterator();
-            while (iterator.hasNext()) {
-                DomainChangeListener listener = (DomainChangeListener) iterator.next();
-                listener.domainChange(event);
-            }
+        listeners = rangeListeners;
+        if (type >= DomainChangeType.RANGE && listeners != null) {
+            for (int i=0; i<listeners.length; i++)
+                listeners[i].domainChange(event);
         }
         
         // Notify domain listeners
-        if (domainListeners != null) {
-            Iterator<DomainChangeListener> iterator = domainListeners.iterator();
-            while (iterator.hasNext()) {
-                DomainChangeListener listener = (DomainChangeListener) iterator.next();
-                listener.domainChange(event);
-            }
+        listeners = domainListeners;
+        if (listeners != null) {
+            for (int i=0; i<listeners.length; i++)
+                listeners[i].domainChange(event);
         }
         
         //firing an event indicates that the domain has changed
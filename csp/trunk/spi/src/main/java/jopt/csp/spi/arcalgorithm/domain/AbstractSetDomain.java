@@ -1,7 +1,6 @@
 package jopt.csp.spi.arcalgorithm.domain;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
@@ -19,7 +18,7 @@ public abstract class AbstractSetDomain<T> extends AbstractDomain {
      * Constructor
      */
     protected AbstractSetDomain() {
-        super(new HashSet<DomainChangeListener>(), null, new HashSet<DomainChangeListener>());
+        super(true, false, true);
     }
     
     /**
@@ -111,6 +111,8 @@ public abstract class BaseNumDomain extends AbstractDomain implements ChoicePoin
      * Clears the delta set for this domain
      */
     public final void clearDelta() {
+        touchChoicePointData();
+        
         // update delta removed record once upon first time delta is cleared
         if (!deltaCleared) {
             deltaRemovedRecord.addAll(delta);
@@ -141,6 +143,7 @@ public abstract class BaseNumDomain extends AbstractDomain implements ChoicePoin
 	 * @see jopt.csp.spi.arcalgorithm.domain.Domain#restoreDomainState(java.lang.Object)
 	 */
 	public final void restoreDomainState(Object state) {
+        touchChoicePointData();
         values.clear();
         delta.clear();
         deltaAddedRecord.clear();
@@ -224,6 +227,13 @@ public abstract class BaseNumDomain extends AbstractDomain implements ChoicePoin
     /**
      * Creates a new empty set
      */
+    /**
+     * Notifies the choicepoint data of this domain that the domain is about to
+     * change state that is recorded when the choicepoint stack is pushed
+     */
+    protected void touchChoicePointData() {
+    }
+    
     protected abstract NumSet createEmptySet();
     
     public abstract Object clone();
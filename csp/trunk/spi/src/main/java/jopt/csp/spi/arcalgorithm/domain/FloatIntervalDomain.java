@@ -52,6 +52,7 @@ public class FloatIntervalDomain extends BaseFloatDomain implements FloatInterva
 
     // javadoc inherited
     public void intervalAdded(int callback, float start, float end) {
+        if (cpdata!=null) cpdata.touch();
         // addition of data can be safely ignored for values list
         if (callback == CALLBACK_DELTA) {
             deltaAddedRecord.add(start, end);
@@ -60,6 +61,7 @@ public class FloatIntervalDomain extends BaseFloatDomain implements FloatInterva
     
     // javadoc inherited
     public void intervalRemoved(int callback, float start, float end) {
+        if (cpdata!=null) cpdata.touch();
         // removal of data can be safely ignored for delta list
         if (callback == CALLBACK_VALUES) {
             changeDetected = true;
@@ -113,6 +115,11 @@ public class FloatIntervalDomain extends BaseFloatDomain implements FloatInterva
         }
     }
     
+    // javadoc inherited
+    protected void touchChoicePointData() {
+        if (cpdata!=null) cpdata.touch();
+    }
+    
     /**
      * Returns true if a call to setChoicePointStack will fail
      */
@@ -52,6 +52,7 @@ public class FloatSparseDomain extends BaseFloatDomain implements FloatSparseSet
     
     // javadoc inherited
     public void valueAdded(int callback, float val) {
+        if (cpdata!=null) cpdata.touch();
         // addition of data can be safely ignored for values list
         if (callback == CALLBACK_DELTA) {
             cpDeltaAdded.add(val);
@@ -60,6 +61,7 @@ public class FloatSparseDomain extends BaseFloatDomain implements FloatSparseSet
     
     // javadoc inherited
     public void valueRemoved(int callback, float val) {
+        if (cpdata!=null) cpdata.touch();
         // removal of data can be safely ignored for delta list
         if (callback == CALLBACK_VALUES) {
             changeDetected = true;
@@ -112,6 +114,11 @@ public class FloatSparseDomain extends BaseFloatDomain implements FloatSparseSet
         }
     }
     
+    // javadoc inherited
+    protected void touchChoicePointData() {
+        if (cpdata!=null) cpdata.touch();
+    }
+    
     /**
      * Returns true if a call to setChoicePointStack will fail
      */
@@ -53,6 +53,7 @@ public class IntIntervalDomain extends BaseIntDomain implements IntIntervalSetLi
 
     // javadoc inherited
     public void intervalAdded(int callback, int start, int end) {
+        if (cpdata!=null) cpdata.touch();
         // addition of data can be safely ignored for values list
         if (callback == CALLBACK_DELTA) {
             deltaAddedRecord.add(start, end);
@@ -61,6 +62,7 @@ public class IntIntervalDomain extends BaseIntDomain implements IntIntervalSetLi
     
     // javadoc inherited
     public void intervalRemoved(int callback, int start, int end) {
+        if (cpdata!=null) cpdata.touch();
         // removal of data can be safely ignored for delta list
         if (callback == CALLBACK_VALUES) {
             changeDetected = true;
@@ -114,6 +116,11 @@ public class IntIntervalDomain extends BaseIntDomain implements IntIntervalSetLi
         }
     }
     
+    // javadoc inherited
+    protected void touchChoicePointData() {
+        if (cpdata!=null) cpdata.touch();
+    }
+    
     /**
      * Returns true if a call to setChoicePointStack will fail
      */
@@ -61,6 +61,7 @@ public class IntSparseDomain extends BaseIntDomain implements IntSparseSetListen
 
     // javadoc inherited
     public void valueAdded(int callback, int val) {
+        if (cpdata!=null) cpdata.touch();
         // addition of data can be safely ignored for values list
         if (callback == CALLBACK_DELTA) {
         	deltaAddedRecord.add(val);
@@ -69,6 +70,7 @@ public class IntSparseDomain extends BaseIntDomain implements IntSparseSetListen
     
     // javadoc inherited
     public void valueRemoved(int callback, int val) {
+        if (cpdata!=null) cpdata.touch();
         // removal of data can be safely ignored for delta list
         if (callback == CALLBACK_VALUES) {
             changeDetected = true;
@@ -121,6 +123,11 @@ public class IntSparseDomain extends BaseIntDomain implements IntSparseSetListen
         }
     }
     
+    // javadoc inherited
+    protected void touchChoicePointData() {
+        if (cpdata!=null) cpdata.touch();
+    }
+    
     /**
      * Returns true if a call to setChoicePointStack will fail
      */
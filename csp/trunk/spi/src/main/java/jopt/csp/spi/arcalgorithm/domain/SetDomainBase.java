@@ -195,6 +195,8 @@ public class SetDomainBase<T> implements ChoicePointEntryListener {
      * choicepoint
      */
     private void internalAddRequiredValue(T value) {
+        if (cpdata!=null) cpdata.touch();
+        
         // Attempt to add required value
         if (this.requiredValues.add(value)) {
             // Update changed flag and delta set
@@ -215,6 +217,8 @@ public class SetDomainBase<T> implements ChoicePointEntryListener {
      * choicepoint
      */
     private void internalRemovePossibleValue(T value) {
+        if (cpdata!=null) cpdata.touch();
+        
         // Attempt to remove possible value
         if (this.possibleValues.remove(value)) {
             // Update changed flag and delta set
@@ -478,6 +482,7 @@ public class SetDomainBase<T> implements ChoicePointEntryListener {
 	 */
 	@SuppressWarnings("unchecked")
 	public void restoreDomainState(Object state) {
+		if (cpdata!=null) cpdata.touch();
 		HashMap<String, HashSet<T>> valuesMap = (HashMap<String, HashSet<T>>) state;
 		possibleValues = (HashSet<T>) (valuesMap.get("pv")).clone();
 		requiredValues = (HashSet<T>) (valuesMap.get("rv")).clone();
@@ -44,19 +44,28 @@ public interface NodeArcGraph {
     public void addArc(Arc arc);
     
     /**
-     * Retrieves a set of value dependent source arcs for node
+     * Returns the dense index assigned to a node contained in the graph
+     * or -1 if the node is not contained in the graph
      */
-    public Set<Arc> getValueSourceArcs(Node node);
+    public int getNodeIndex(Node node);
     
     /**
-     * Retrieves a set of range dependent source arcs for node
+     * Retrieves array of source arcs for a node dependent upon a type of node change.
+     * Only the number of arcs returned by <code>getSourceArcCount</code> are valid
+     * and the array must not be modified.
+     * 
+     * @param nodeIndex         Index of node returned by <code>getNodeIndex</code>
+     * @param sourceDependency  Type of change from {@link jopt.csp.spi.util.DomainChangeType}
      */
-    public Set<Arc> getRangeSourceArcs(Node node);
+    public Arc[] getSourceArcs(int nodeIndex, int sourceDependency);
     
     /**
-     * Retrieves a set of domain dependent source arcs for node
+     * Returns number of source arcs for a node dependent upon a type of node change
+     * 
+     * @param nodeIndex         Index of node returned by <code>getNodeIndex</code>
+     * @param sourceDependency  Type of change from {@link jopt.csp.spi.util.DomainChangeType}
      */
-    public Set<Arc> getDomainSourceArcs(Node node);
+    public int getSourceArcCount(int nodeIndex, int sourceDependency);
     
     /**
      * Returns true if graph contains specific node
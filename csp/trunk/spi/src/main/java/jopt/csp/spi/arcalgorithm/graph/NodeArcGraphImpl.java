@@ -1,11 +1,14 @@
 package jopt.csp.spi.arcalgorithm.graph;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
 import jopt.csp.spi.arcalgorithm.graph.arc.SchedulerArc;
 import jopt.csp.spi.arcalgorithm.graph.arc.binary.BinaryArc;
 import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
@@ -26,13 +29,29 @@ import jopt.csp.spi.util.Storable;
  * Basic implementation for the NodeArcGraph that tracks arcs
  * and nodes added to the graph and listens to choicepoint
  * events that will rollback changes
+ * <p>
+ * Each node is assigned a dense index when it is added to the graph.
+ * The source arcs of a node are stored in arrays indexed by the node
+ * index and type of source dependency so that algorithms can retrieve
+ * the arcs affected by a node change without hashing or allocating
+ * iterators.  Since changes are always rolled back in the reverse order
+ * they were made, nodes and arcs added after a choicepoint are always at
+ * the end of these arrays and can be removed by truncating them.
  * 
  * @author Nick
  */
 public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, ChoicePointEntryListener {
     private NodeArcGraphListener listener;
+    private final static int DEPENDENCY_TYPES = 3;
+    private final static int INITIAL_NODE_CAPACITY = 16;
+    private final static int INITIAL_ARC_CAPACITY = 4;
+    
     private HashSet<Arc> arcs;
-    private HashMap<Node, HashMap<String, HashSet<Arc>>> nodes;
+    private HashMap<Node, Integer> nodes;
+    private Node nodeArray[];
+    private int nodeCount;
+    private Arc sourceArcs[][];
+    private int sourceArcCounts[];
     private ChoicePointStack cps;
     private ChoicePointDataMap cpdata;
     private Storable nodesToStore[];
@@ -51,7 +70,10 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
     {
         this.listener = listener;
         this.arcs = new HashSet<Arc>();
-        this.nodes = new HashMap<Node, HashMap<String, HashSet<Arc>>>();
+        this.nodes = new HashMap<Node, Integer>();
+        this.nodeArray = new Node[INITIAL_NODE_CAPACITY];
+        this.sourceArcs = new Arc[INITIAL_NODE_CAPACITY * DEPENDENCY_TYPES][];
+        this.sourceArcCounts = new int[INITIAL_NODE_CAPACITY * DEPENDENCY_TYPES];
     }
     
     /**
@@ -90,14 +112,14 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
         	
         	// record added node to choicepoint
         	if (cpdata!=null) 
-                getAddedNodeSet().add(node);
+                getAddedNodeList().add(node);
         	
-            // Create sets for tracking arc connections to node
-            HashMap<String, HashSet<Arc>> arcs = new HashMap<String, HashSet<Arc>>();
-            arcs.put("value", new HashSet<Arc>());
-            arcs.put("range", new HashSet<Arc>());
-            arcs.put("domain", new HashSet<Arc>());
-            nodes.put(node, arcs);
+            // assign next index to node
+            ensureNodeCapacity(nodeCount + 1);
+            int idx = nodeCount++;
+            nodeArray[idx] = node;
+            nodes.put(node, new Integer(idx));
+            node.setGraphIndex(idx);
             
             // Add listener for node
             ((NodeChangeSource) node).addDomainChangeListener(this, null);
@@ -109,76 +131,109 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
         }
     }
     
+    /**
+     * Ensures arrays indexed by node are large enough to hold a number of nodes
+     */
+    private void ensureNodeCapacity(int capacity) {
+        if (capacity <= nodeArray.length) return;
+        
+        int newCapacity = Math.max(capacity, nodeArray.length * 2);
+        Node newNodeArray[] = new Node[newCapacity];
+        System.arraycopy(nodeArray, 0, newNodeArray, 0, nodeCount);
+        nodeArray = newNodeArray;
+        
+        Arc newSourceArcs[][] = new Arc[newCapacity * DEPENDENCY_TYPES][];
+        System.arraycopy(sourceArcs, 0, newSourceArcs, 0, sourceArcs.length);
+        sourceArcs = newSourceArcs;
+        
+        int newSourceArcCounts[] = new int[newCapacity * DEPENDENCY_TYPES];
+        System.arraycopy(sourceArcCounts, 0, newSourceArcCounts, 0, sourceArcCounts.length);
+        sourceArcCounts = newSourceArcCounts;
+    }
+    
     /**
      * Connects a node to an arc's source
      */
     private void connectNodeSource(Node node, int sourceDependency, Arc arc) {
-        HashMap<String, HashSet<Arc>> arcs = (HashMap<String, HashSet<Arc>>) nodes.get(node);
+        int slot = getNodeIndex(node) * DEPENDENCY_TYPES + sourceDependency;
+        Arc list[] = sourceArcs[slot];
+        int cnt = sourceArcCounts[slot];
         
-        // store added connections into choicepoint stack
-        if (cpdata!=null)
-        	getAddedConnectionSet().add(new Object[]{node, new Integer(sourceDependency), arc});
+        // all connections for an arc are made together, so an arc
+        // using a node more than once will be last in the list
+        if (cnt > 0 && list[cnt-1] == arc) return;
         
-        switch (sourceDependency) {
-            case DomainChangeType.VALUE:
-                arcs.get("value").add(arc);
-                break;
-
-            case DomainChangeType.RANGE:
-                arcs.get("range").add(arc);
-                break;
-
-            case DomainChangeType.DOMAIN:
-                arcs.get("domain").add(arc);
+        if (list == null) {
+            list = new Arc[INITIAL_ARC_CAPACITY];
+            sourceArcs[slot] = list;
         }
+        else if (cnt == list.length) {
+            Arc newList[] = new Arc[list.length * 2];
+            System.arraycopy(list, 0, newList, 0, cnt);
+            list = newList;
+            sourceArcs[slot] = list;
+        }
+        
+        list[cnt] = arc;
+        sourceArcCounts[slot] = cnt + 1;
     }
     
     /**
      * Removes a node connection to an arc's source
      */
     private void disconnectNodeSource(Node node, int sourceDependency, Arc arc) {
-        HashMap<String, HashSet<Arc>> arcs = nodes.get(node);
-        if (arcs==null) return;
+        int idx = getNodeIndex(node);
+        if (idx < 0) return;
         
-        switch (sourceDependency) {
-            case DomainChangeType.VALUE:
-                arcs.get("value").remove(arc);
-                break;
-
-            case DomainChangeType.RANGE:
-                arcs.get("range").remove(arc);
-                break;
-
-            case DomainChangeType.DOMAIN:
-                arcs.get("domain").remove(arc);
+        int slot = idx * DEPENDENCY_TYPES + sourceDependency;
+        Arc list[] = sourceArcs[slot];
+        int cnt = sourceArcCounts[slot];
+        
+        // connections are normally removed in reverse order of addition,
+        // so the arc is expected to be at the end of the list
+        for (int i=cnt-1; i>=0; i--) {
+            if (list[i] == arc) {
+                System.arraycopy(list, i+1, list, i, cnt - i - 1);
+                list[cnt-1] = null;
+                sourceArcCounts[slot] = cnt - 1;
+                return;
+            }
         }
     }
     
     /**
-     * Retrieves a set of value dependent source arcs for node
+     * Returns the dense index assigned to a node contained in the graph
+     * or -1 if the node is not contained in the graph
      */
-    public Set<Arc> getValueSourceArcs(Node node) {
-        HashMap<String, HashSet<Arc>> arcs = nodes.get(node);
-        if (arcs == null) return null;
-        return arcs.get("value");
+    public int getNodeIndex(Node node) {
+        int idx = node.getGraphIndex();
+        if (idx >= 0 && idx < nodeCount && nodeArray[idx] == node) return idx;
+        
+        // node may be equal to a node in the graph without being the same instance
+        Integer nodeIdx = nodes.get(node);
+        return (nodeIdx == null) ? -1 : nodeIdx.intValue();
     }
     
     /**
-     * Retrieves a set of range dependent source arcs for node
+     * Retrieves array of source arcs for a node dependent upon a type of node change.
+     * Only the number of arcs returned by <code>getSourceArcCount</code> are valid
+     * and the array must not be modified.
+     * 
+     * @param nodeIndex         Index of node returned by <code>getNodeIndex</code>
+     * @param sourceDependency  Type of change from {@link DomainChangeType}
      */
-    public Set<Arc> getRangeSourceArcs(Node node) {
-        HashMap<String, HashSet<Arc>> arcs = nodes.get(node);
-        if (arcs == null) return null;
-        return arcs.get("range");
+    public Arc[] getSourceArcs(int nodeIndex, int sourceDependency) {
+        return sourceArcs[nodeIndex * DEPENDENCY_TYPES + sourceDependency];
     }
     
     /**
-     * Retrieves a set of domain dependent source arcs for node
+     * Returns number of source arcs for a node dependent upon a type of node change
+     * 
+     * @param nodeIndex         Index of node returned by <code>getNodeIndex</code>
+     * @param sourceDependency  Type of change from {@link DomainChangeType}
      */
-    public Set<Arc> getDomainSourceArcs(Node node) {
-        HashMap<String, HashSet<Arc>> arcs = nodes.get(node);
-        if (arcs == null) return null;
-        return arcs.get("domain");
+    public int getSourceArcCount(int nodeIndex, int sourceDependency) {
+        return sourceArcCounts[nodeIndex * DEPENDENCY_TYPES + sourceDependency];
     }
     
     /**
@@ -234,7 +289,11 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
 	    if (arcs.add(arc)) {
 	    	// record data in choicepoint
 	    	if (cpdata!=null) 
-                getAddedArcSet().add(arc);
+                getAddedArcList().add(arc);
+	    	
+	    	// attach arc state to choicepoint
+	    	if (cps!=null && arc instanceof ReversibleArc && !((ReversibleArc) arc).choicePointStackSet())
+	    	    ((ReversibleArc) arc).setChoicePointStack(cps);
 	    	
 	    	// add source nodes to graph
 	        for (int i=0; i<sources.length; i++) {
@@ -284,14 +343,15 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
     }
     
     /**
-     * Returns the set of added arcs for the current choicepoint
+     * Returns the list of added arcs for the current choicepoint
+     * in the order they were added
      */
-    private HashSet<Arc> getAddedArcSet() {
+    private ArrayList<Arc> getAddedArcList() {
         if (cpdata==null) return null;
         @SuppressWarnings("unchecked")
-		HashSet<Arc> added = (HashSet<Arc>) cpdata.get("aa");
+		ArrayList<Arc> added = (ArrayList<Arc>) cpdata.get("aa");
         if (added == null) {
-        	added = new HashSet<Arc>();
+        	added = new ArrayList<Arc>();
             cpdata.put("aa", added);
         }
         return added;
@@ -315,31 +375,56 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
     }
 
     /**
-     * Returns the set of added nodes for the current choicepoint
+     * Returns the list of added nodes for the current choicepoint
+     * in the order they were added
      */
-    private HashSet<Node> getAddedNodeSet() {
+    private ArrayList<Node> getAddedNodeList() {
         if (cpdata==null) return null;
         @SuppressWarnings("unchecked")
-		HashSet<Node> added = (HashSet<Node>) cpdata.get("an");
+		ArrayList<Node> added = (ArrayList<Node>) cpdata.get("an");
         if (added == null) {
-        	added = new HashSet<Node>();
+        	added = new ArrayList<Node>();
             cpdata.put("an", added);
         }
         return added;
     }
-
+    
     /**
-     * Returns the set of added source node-arc connections for the current choicepoint
+     * Removes the connections of an arc to its source nodes
      */
-    private HashSet<Object[]> getAddedConnectionSet() {
-        if (cpdata==null) return null;
-        @SuppressWarnings("unchecked")
-		HashSet<Object[]> added = (HashSet<Object[]>) cpdata.get("cn");
-        if (added == null) {
-        	added = new HashSet<Object[]>();
-            cpdata.put("cn", added);
+    private void disconnectArc(Arc arc) {
+        Node sources[] = null;
+        int sourceDependencies[] = null;
+        
+        switch(arc.getArcType()) {
+            case Arc.BINARY:
+                BinaryArc barc = (BinaryArc) arc;
+                disconnectNodeSource(barc.getSourceNode(), barc.getSourceDependency(), arc);
+                return;
+            
+            case Arc.HYPER:
+                HyperArc harc = (HyperArc) arc;
+                sources = harc.getSourceNodes();
+                sourceDependencies = harc.getSourceDependencies();
+                break;
+            
+            case Arc.GENERIC:
+                GenericArc gnarc = (GenericArc) arc;
+                sources = gnarc.getSourceNodes();
+                sourceDependencies = gnarc.getSourceDependencies();
+                break;
+                
+            case Arc.SCHEDULE:
+                SchedulerArc schedarc = (SchedulerArc) arc;
+                sources = schedarc.getSourceNodes();
+                sourceDependencies = schedarc.getSourceDependencies();
+        }
+        
+        // disconnect in reverse order so arc is found at end of each list
+        if (sourceDependencies != null) {
+            for (int i=sources.length-1; i>=0; i--)
+                disconnectNodeSource(sources[i], sourceDependencies[i], arc);
         }
-        return added;
     }
     
     /**
@@ -355,50 +440,50 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
         this.cpdata = cps.newDataMap(this, 10);
         
         // set the choicepoint stack for all nodes currently in the graph
-    	Iterator<Node> iter = nodes.keySet().iterator();
-    	while (iter.hasNext()) {
-    		Node n = (Node) iter.next();
-            if (cps!=null && !n.choicePointStackSet())
+    	for (int i=0; i<nodeCount; i++) {
+    		Node n = nodeArray[i];
+            if (n!=null && cps!=null && !n.choicePointStackSet())
                 n.setChoicePointStack(cps);
     	}
+        
+        // set the choicepoint stack for all arcs that keep state
+        Iterator<Arc> arcIter = arcs.iterator();
+        while (arcIter.hasNext()) {
+            Arc arc = arcIter.next();
+            if (arc instanceof ReversibleArc && !((ReversibleArc) arc).choicePointStackSet())
+                ((ReversibleArc) arc).setChoicePointStack(cps);
+        }
     }
 
     // javadoc is inherited
     public void beforeChoicePointPopEvent() {
-    	// remove added arcs
-        Iterator<Arc> iterator = getAddedArcSet().iterator();
-        while (iterator.hasNext()) {
-            Arc arc = (Arc) iterator.next();
-            arcs.remove(arc);
-            if (listener!=null) listener.arcRemovedEvent(this, arc);
+        @SuppressWarnings("unchecked")
+        List<Arc> addedArcs = (List<Arc>) cpdata.get("aa");
+        @SuppressWarnings("unchecked")
+        List<Node> addedNodes = (List<Node>) cpdata.get("an");
+        
+    	// remove added arcs and their node-arc connections in reverse order
+        if (addedArcs!=null) {
+            for (int i=addedArcs.size()-1; i>=0; i--) {
+                Arc arc = addedArcs.get(i);
+                arcs.remove(arc);
+                disconnectArc(arc);
+                if (arc instanceof ReversibleArc)
+                    ((ReversibleArc) arc).setChoicePointStack(null);
+                if (listener!=null) listener.arcRemovedEvent(this, arc);
 //System.out.println("* arc removed: " + arc);
+            }
         }
-    	
-    	// remove added node-arc connections
-    	HashSet<Object[]> addedConn = getAddedConnectionSet();
-    	Iterator<Object[]> addedConnIterator = addedConn.iterator();
-    	while (addedConnIterator.hasNext()) {
-    		// retrieve connection information
-    		Object data[] = (Object[]) addedConnIterator.next();
-    		Node node = (Node) data[0];
-    		int sourceDependency = ((Integer) data[1]).intValue();
-    		Arc arc = (Arc) data[2];
-    		
-    		// disconnect arc
-    		disconnectNodeSource(node, sourceDependency, arc);
-    	}
         
         // remove added nodes
-        HashSet<Node> addedSet = getAddedNodeSet();
-        if (addedSet.size()>0) {
+        if (addedNodes!=null && addedNodes.size()>0) {
             // reset nodes for storage array
             nodesToStore = null;
             
-            // iterator over nodes and remove them
-            Iterator<Node> addedSetIterator = addedSet.iterator();
-            while (addedSetIterator.hasNext()) {
-                Node n = (Node) addedSetIterator.next();
-                nodes.remove(n);
+            // nodes added since the choicepoint hold the highest indices
+            for (int i=addedNodes.size()-1; i>=0; i--) {
+                Node n = addedNodes.get(i);
+                removeNode(n);
                 
                 // disconnect node from graph
                 n.setChoicePointStack(null);
@@ -415,6 +500,28 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
 //System.out.println("* after graph rollback");
 //dumpNodes();
     }
+    
+    /**
+     * Releases the index of a node being removed from the graph
+     */
+    private void removeNode(Node node) {
+        int idx = getNodeIndex(node);
+        nodes.remove(node);
+        if (idx < 0) return;
+        
+        // clear connections of node
+        for (int i=0; i<DEPENDENCY_TYPES; i++) {
+            int slot = idx * DEPENDENCY_TYPES + i;
+            Arc list[] = sourceArcs[slot];
+            if (list != null)
+                for (int j=sourceArcCounts[slot]-1; j>=0; j--) list[j] = null;
+            sourceArcCounts[slot] = 0;
+        }
+        nodeArray[idx] = null;
+        
+        // shrink node count past any released indices
+        while (nodeCount>0 && nodeArray[nodeCount-1]==null) nodeCount--;
+    }
 
     // javadoc is inherited
     public void afterChoicePointPopEvent() {
@@ -427,11 +534,23 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
 
     // javadoc is inherited
     public void afterChoicePointPushEvent() {
+        // remove records of a restored delta, they will be recorded again
+        // as the nodes and arcs are added
+        @SuppressWarnings("unchecked")
+        List<Arc> addedArcs = (List<Arc>) cpdata.remove("aa");
+        @SuppressWarnings("unchecked")
+        List<Node> addedNodes = (List<Node>) cpdata.remove("an");
+        
+        // add added nodes
+        if (addedNodes!=null) {
+            for (int i=0; i<addedNodes.size(); i++)
+                addNode(addedNodes.get(i));
+        }
+        
         // add added arcs
-        Iterator<Arc> iterator = getAddedArcSet().iterator();
-        while (iterator.hasNext()) {
-            Arc a = (Arc) iterator.next();
-            addArc(a);
+        if (addedArcs!=null) {
+            for (int i=0; i<addedArcs.size(); i++)
+                addArc(addedArcs.get(i));
         }
     }
 
@@ -439,13 +558,16 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
     // javadoc is inherited
     public Object getGraphState() {
         // build map of contents for graph
-        HashMap<String, Object> graphContents = new HashMap<String, Object>(3);
+        HashMap<String, Object> graphContents = new HashMap<String, Object>(2);
         graphContents.put("a", arcs);
-        graphContents.put("n", nodes);
         
         // build array of nodes for storage
-        if (nodesToStore==null)
-        	nodesToStore = (Storable[]) nodes.keySet().toArray(new Storable[nodes.size()]);
+        if (nodesToStore==null) {
+        	nodesToStore = new Storable[nodes.size()];
+        	int n = 0;
+        	for (int i=0; i<nodeCount; i++)
+        	    if (nodeArray[i]!=null) nodesToStore[n++] = nodeArray[i];
+        }
         
         // store domain data within graph
         graphContents.put("d", new StateStore(nodesToStore));
@@ -459,12 +581,19 @@ public class NodeArcGraphImpl implements NodeArcGraph, NodeChangeListener, Choic
         // retrieve map of contents for graph
 		HashMap<String, Object> graphContents = (HashMap<String, Object>) state;
         
-        // restore arcs and nodes
+        // restore arcs, node connections are rolled back by the choicepoint stack
         arcs = (HashSet<Arc>) graphContents.get("a");
-        nodes = (HashMap<Node, HashMap<String, HashSet<Arc>>>) graphContents.get("n");
 
         // restore domain data
         StateStore dataStore = (StateStore) graphContents.get("d");
         dataStore.restoreState();
+        
+        // domains were restored without events, so arcs must rebuild their state
+        Iterator<Arc> arcIter = arcs.iterator();
+        while (arcIter.hasNext()) {
+            Arc arc = arcIter.next();
+            if (arc instanceof ReversibleArc)
+                ((ReversibleArc) arc).domainsRestored();
+        }
     }
 }
\ No newline at end of file
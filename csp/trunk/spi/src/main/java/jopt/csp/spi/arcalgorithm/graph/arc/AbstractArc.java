@@ -7,6 +7,7 @@ import jopt.csp.variable.CspAlgorithmStrength;
 public abstract class AbstractArc implements Arc {
     protected int strength          = CspAlgorithmStrength.BOUNDS_CONSISTENCY;
     protected boolean useDeltas     = true;
+    private int queueMembership;
     
     /**
      * Sets the strength of the algorithm that is propagating the arc.  This
@@ -24,5 +25,20 @@ public abstract class AbstractArc implements Arc {
     public void setUseDomainDeltas(boolean useDeltas) {
     	this.useDeltas = useDeltas;
     }
-
+    
+    /**
+     * Returns the membership flags of the arc queues this arc is currently
+     * waiting in
+     */
+    public int getQueueMembership() {
+        return queueMembership;
+    }
+    
+    /**
+     * Sets the membership flags of the arc queues this arc is currently
+     * waiting in.  This is maintained by the queues themselves.
+     */
+    public void setQueueMembership(int queueMembership) {
+        this.queueMembership = queueMembership;
+    }
 }
\ No newline at end of file
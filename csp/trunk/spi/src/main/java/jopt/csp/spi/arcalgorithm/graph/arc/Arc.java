@@ -69,4 +69,16 @@ public interface Arc {
      * Returns a value representing the complexity of the arc
      */
     public int getComplexity();
+    
+    /**
+     * Returns the membership flags of the arc queues this arc is currently
+     * waiting in
+     */
+    public int getQueueMembership();
+    
+    /**
+     * Sets the membership flags of the arc queues this arc is currently
+     * waiting in.  This is maintained by the queues themselves.
+     */
+    public void setQueueMembership(int membership);
 }
\ No newline at end of file
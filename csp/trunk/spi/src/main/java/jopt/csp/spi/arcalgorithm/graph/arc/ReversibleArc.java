@@ -0,0 +1,19 @@
+package jopt.csp.spi.arcalgorithm.graph.arc;
+
+import jopt.csp.spi.solver.ChoicePointDataSource;
+
+/**
+ * An arc that keeps state between propagations, such as running sums over
+ * the domains of its nodes, and records changes to that state on the
+ * choicepoint stack so it is rolled back along with the domains.  The graph
+ * sets the choicepoint stack of the arc when the arc is added and clears it
+ * when the arc is removed.
+ */
+public interface ReversibleArc extends Arc, ChoicePointDataSource {
+    /**
+     * Notifies the arc that the domains of its nodes were restored without
+     * firing change events, so any state it keeps must be rebuilt before
+     * the arc is next propagated
+     */
+    public void domainsRestored();
+}
@@ -0,0 +1,282 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import java.util.IdentityHashMap;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Arc requiring integer nodes holding the successor of each position to form
+ * a single circuit through every position.
+ * <p>
+ * Bound successors join positions into paths.  The first and last position
+ * of each path are kept along with its length, and when a path is extended
+ * the successor of its last position may no longer be its first position
+ * unless the path covers every position, so no subtour can be closed.  This
+ * is the nocycle rule of Caseau and Laburthe.  Each join is recorded on the
+ * choicepoint stack and undone when the stack is popped, so only the node
+ * that was bound is examined on each propagation.
+ * <p>
+ * The arc does not require the successors to differ; it is posted with an
+ * all different arc which does.
+ */
+public class CircuitArc extends GenericArc implements NumArc, ReversibleArc, ChoicePointEntryListener {
+    private NumNode nodes[];
+    private int n;
+    private MutableNumber v = new MutableNumber();
+    private IdentityHashMap<Node, Integer> positions;
+
+    // successor each position was joined to, or -1, and whether each
+    // position has been joined to by a predecessor
+    private int joined[];
+    private boolean entered[];
+
+    // first position of the path ending at each last position, and last
+    // position and length of the path starting at each first position; only
+    // entries of positions that currently begin or end a path are valid
+    private int pathStart[];
+    private int pathEnd[];
+    private int pathLength[];
+
+    private boolean initialized;
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpPositions;
+    private ChoicePointIntArray cpSuccessors;
+
+    /**
+     * Creates an arc over the successor of each position
+     */
+    public CircuitArc(NumNode nodes[]) {
+        super(nodes, nodes);
+        this.nodes = nodes;
+        this.n = nodes.length;
+
+        sourceDependencies = new int[n];
+        positions = new IdentityHashMap<Node, Integer>();
+        for (int i=0; i<n; i++) {
+            sourceDependencies[i] = DomainChangeType.DOMAIN;
+            positions.put(nodes[i], new Integer(i));
+        }
+
+        joined = new int[n];
+        entered = new boolean[n];
+        pathStart = new int[n];
+        pathEnd = new int[n];
+        pathLength = new int[n];
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        if (!initialized) {
+            initialize();
+            return;
+        }
+        for (int i=0; i<n; i++)
+            join(i);
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        Integer pos = (Integer) positions.get(src);
+        if (!initialized || pos==null)
+            propagate();
+        else
+            join(pos.intValue());
+    }
+
+    /**
+     * Makes each position a path of its own, restricts successors to other
+     * positions and joins the positions whose successors are bound
+     */
+    private void initialize() throws PropagationFailureException {
+        for (int i=0; i<n; i++) {
+            joined[i] = -1;
+            entered[i] = false;
+            pathStart[i] = i;
+            pathEnd[i] = i;
+            pathLength[i] = 1;
+        }
+        initialized = true;
+
+        // mark where the arc was built so it is rebuilt if this is undone
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpPositions.add(-1);
+            cpSuccessors.add(-1);
+        }
+
+        for (int i=0; i<n; i++) {
+            v.setIntValue(0);
+            nodes[i].setMin(v);
+            v.setIntValue(n - 1);
+            nodes[i].setMax(v);
+            if (n > 1) {
+                v.setIntValue(i);
+                nodes[i].removeValue(v);
+            }
+        }
+
+        for (int i=0; i<n; i++)
+            join(i);
+    }
+
+    /**
+     * Joins a position to its successor if the successor is bound, along
+     * with any other positions bound as a result
+     */
+    private void join(int i) throws PropagationFailureException {
+        while (i >= 0 && joined[i] < 0 && nodes[i].isBound())
+            i = join(i, nodes[i].getMin().intValue());
+    }
+
+    /**
+     * Joins the path ending at one position to the path starting at its
+     * successor and prevents the new path from being closed early
+     *
+     * @return last position of the new path, or -1 if the circuit was closed
+     */
+    private int join(int i, int j) throws PropagationFailureException {
+        if (entered[j])
+            throw new PropagationFailureException("position already has a predecessor");
+
+        int first = pathStart[i];
+        if (first == j) {
+            if (pathLength[first] != n)
+                throw new PropagationFailureException("successor closes a subtour");
+            record(i, j);
+            return -1;
+        }
+
+        int last = pathEnd[j];
+        record(i, j);
+        pathEnd[first] = last;
+        pathStart[last] = first;
+        pathLength[first] += pathLength[j];
+
+        // path may only return to its first position once it covers every position
+        v.setIntValue(first);
+        if (pathLength[first] < n) {
+            nodes[last].removeValue(v);
+        }
+        else {
+            nodes[last].setMin(v);
+            nodes[last].setMax(v);
+        }
+        return last;
+    }
+
+    /**
+     * Marks a position as joined to its successor and records the join so it
+     * can be undone
+     */
+    private void record(int i, int j) {
+        joined[i] = j;
+        entered[j] = true;
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpPositions.add(i);
+            cpSuccessors.add(j);
+        }
+    }
+
+    // javadoc inherited from ReversibleArc
+    public void domainsRestored() {
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (this.cpdata!=null && cps!=null)
+            throw new IllegalStateException("Choice point stack already set for arc");
+
+        if (cps==null) {
+            if (cpdata!=null) {
+                cpdata.close();
+                cpdata = null;
+                cpPositions = null;
+                cpSuccessors = null;
+            }
+        }
+        else {
+            cpdata = cps.newNumStackSet(this);
+            cpPositions = cpdata.newIntList();
+            cpSuccessors = cpdata.newIntList();
+        }
+
+        // changes to nodes may have been missed
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public boolean choicePointStackSet() {
+        return cpdata!=null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // undo joins made since choicepoint was pushed in reverse order; the
+        // entries of positions inside a path are never changed, so they still
+        // hold the first position and length of the paths that were joined.
+        // If the arc was built or reinitialized since the choicepoint was
+        // pushed, it must be rebuilt instead.
+        for (int k=cpPositions.size()-1; initialized && k>=0; k--) {
+            int i = cpPositions.get(k);
+            int j = cpSuccessors.get(k);
+            if (i < 0 || joined[i] != j) {
+                initialized = false;
+                break;
+            }
+
+            int first = pathStart[i];
+            if (first != j) {
+                int last = pathEnd[j];
+                pathEnd[first] = i;
+                pathStart[last] = j;
+                pathLength[first] -= pathLength[j];
+            }
+            joined[i] = -1;
+            entered[j] = false;
+        }
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // join positions again when a delta is pushed back onto the stack
+        for (int k=0; initialized && k<cpPositions.size(); k++) {
+            int i = cpPositions.get(k);
+            int j = cpSuccessors.get(k);
+            if (i < 0 || joined[i] >= 0 || entered[j]) {
+                initialized = false;
+                break;
+            }
+
+            int first = pathStart[i];
+            if (first != j) {
+                int last = pathEnd[j];
+                pathEnd[first] = last;
+                pathStart[last] = first;
+                pathLength[first] += pathLength[j];
+            }
+            joined[i] = j;
+            entered[j] = true;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import java.util.Arrays;
+
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.util.DoubleUtil;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Element arc over an array of constants enforcing result == values[index].
+ * The distinct values of the array are kept in sorted order along with the
+ * number of remaining positions supporting each.  When the last position
+ * supporting a value is removed the value is removed from the result, and
+ * when a value is removed from the result every position holding it is
+ * removed from the index, so the work done is proportional to the number
+ * of positions and values removed rather than to the size of the array.
+ * <p>
+ * Values of integer and long results are removed individually while only
+ * the bounds of float and double results are reduced.
+ */
+public class ConstantElementArc extends ElementArc {
+    private boolean real;
+    private double precision;
+
+    // distinct values in ascending order
+    private long longValues[];
+    private double doubleValues[];
+    private int valueCount;
+
+    // index of value at each position and positions of each value
+    private int valueOf[];
+    private int positions[][];
+
+    // number of remaining positions supporting each value
+    private int support[];
+    private boolean valueLive[];
+    private int valueFirst;
+    private int valueLast;
+
+    // true once values of an integer result missing from the array are removed,
+    // which is trailed as a value of the result so it is rolled back
+    private final static int GAPS = -1;
+    private boolean gapsRemoved;
+
+    /**
+     * Creates an element arc over an array of integer or long values
+     *
+     * @param index     Node referencing a position in the array
+     * @param result    Node equal to the value at the index
+     * @param values    Array of values
+     */
+    public ConstantElementArc(NumNode index, NumNode result, long values[]) {
+        super(new Node[]{index, result}, index, result, values.length);
+
+        // determine distinct values
+        long sorted[] = (long[]) values.clone();
+        Arrays.sort(sorted);
+        for (int i=0; i<sorted.length; i++)
+            if (valueCount==0 || sorted[i]!=sorted[valueCount-1])
+                sorted[valueCount++] = sorted[i];
+
+        longValues = new long[valueCount];
+        System.arraycopy(sorted, 0, longValues, 0, valueCount);
+
+        valueOf = new int[values.length];
+        for (int i=0; i<values.length; i++)
+            valueOf[i] = Arrays.binarySearch(longValues, values[i]);
+
+        initPositions();
+    }
+
+    /**
+     * Creates an element arc over an array of float or double values
+     *
+     * @param index     Node referencing a position in the array
+     * @param result    Node equal to the value at the index
+     * @param values    Array of values
+     */
+    public ConstantElementArc(NumNode index, NumNode result, double values[]) {
+        super(new Node[]{index, result}, index, result, values.length);
+        this.real = true;
+        this.precision = Math.max(DoubleUtil.DEFAULT_PRECISION, result.getPrecision());
+
+        // determine distinct values
+        double sorted[] = (double[]) values.clone();
+        Arrays.sort(sorted);
+        for (int i=0; i<sorted.length; i++)
+            if (valueCount==0 || sorted[i]!=sorted[valueCount-1])
+                sorted[valueCount++] = sorted[i];
+
+        doubleValues = new double[valueCount];
+        System.arraycopy(sorted, 0, doubleValues, 0, valueCount);
+
+        valueOf = new int[values.length];
+        for (int i=0; i<values.length; i++)
+            valueOf[i] = Arrays.binarySearch(doubleValues, values[i]);
+
+        initPositions();
+    }
+
+    /**
+     * Builds the lists of positions holding each value
+     */
+    private void initPositions() {
+        int counts[] = new int[valueCount];
+        for (int i=0; i<size; i++)
+            counts[valueOf[i]]++;
+
+        positions = new int[valueCount][];
+        for (int i=0; i<valueCount; i++)
+            positions[i] = new int[counts[i]];
+
+        Arrays.fill(counts, 0);
+        for (int i=0; i<size; i++) {
+            int valueIdx = valueOf[i];
+            positions[valueIdx][counts[valueIdx]++] = i;
+        }
+
+        support = new int[valueCount];
+        valueLive = new boolean[valueCount];
+    }
+
+    // javadoc inherited from ElementArc
+    protected void resetSupports() {
+        for (int i=0; i<valueCount; i++) {
+            support[i] = positions[i].length;
+            valueLive[i] = true;
+        }
+        valueFirst = 0;
+        valueLast = valueCount - 1;
+        gapsRemoved = false;
+    }
+
+    // javadoc inherited from ElementArc
+    protected void positionRemoved(int pos) {
+        support[valueOf[pos]]--;
+    }
+
+    // javadoc inherited from ElementArc
+    protected void positionRestored(int pos) {
+        support[valueOf[pos]]++;
+    }
+
+    // javadoc inherited from ElementArc
+    protected void positionPruned(int pos) throws PropagationFailureException {
+        int valueIdx = valueOf[pos];
+        if (support[valueIdx]==0 && valueLive[valueIdx]) {
+            valueLive[valueIdx] = false;
+            trailValue(valueIdx);
+
+            // bounds of real results are updated once all positions are pruned
+            if (!real) {
+                v.setLongValue(longValues[valueIdx]);
+                result.removeValue(v);
+            }
+        }
+    }
+
+    // javadoc inherited from ElementArc
+    protected void valueRestored(int valueIdx) {
+        if (valueIdx == GAPS) {
+            gapsRemoved = false;
+            return;
+        }
+
+        valueLive[valueIdx] = true;
+        if (valueIdx < valueFirst) valueFirst = valueIdx;
+        if (valueIdx > valueLast) valueLast = valueIdx;
+    }
+
+    // javadoc inherited from ElementArc
+    protected void valueRemoved(int valueIdx) {
+        if (valueIdx == GAPS) {
+            gapsRemoved = true;
+            return;
+        }
+
+        valueLive[valueIdx] = false;
+    }
+
+    /**
+     * Removes a value the result can no longer take along with every position
+     * holding it
+     */
+    private void removeSupportedValue(int valueIdx) throws PropagationFailureException {
+        valueLive[valueIdx] = false;
+        trailValue(valueIdx);
+
+        int valuePositions[] = positions[valueIdx];
+        for (int i=0; i<valuePositions.length; i++) {
+            int pos = valuePositions[i];
+            if (live[pos]) removePosition(pos, true);
+        }
+    }
+
+    /**
+     * Returns true if a value is less than the minimum of the result
+     */
+    private boolean belowResult(int valueIdx) {
+        if (real)
+            return DoubleUtil.compare(doubleValues[valueIdx], result.getMin().doubleValue(), precision) < 0;
+        else
+            return longValues[valueIdx] < result.getMin().longValue();
+    }
+
+    /**
+     * Returns true if a value is greater than the maximum of the result
+     */
+    private boolean aboveResult(int valueIdx) {
+        if (real)
+            return DoubleUtil.compare(doubleValues[valueIdx], result.getMax().doubleValue(), precision) > 0;
+        else
+            return longValues[valueIdx] > result.getMax().longValue();
+    }
+
+    // javadoc inherited from ElementArc
+    protected void pruneResult() throws PropagationFailureException {
+        // values below the minimum and above the maximum of the result
+        while (valueFirst <= valueLast && (!valueLive[valueFirst] || belowResult(valueFirst))) {
+            if (valueLive[valueFirst]) removeSupportedValue(valueFirst);
+            valueFirst++;
+        }
+        while (valueLast >= valueFirst && (!valueLive[valueLast] || aboveResult(valueLast))) {
+            if (valueLive[valueLast]) removeSupportedValue(valueLast);
+            valueLast--;
+        }
+
+        // values removed from within the bounds of an integer result
+        if (!real && valueFirst < valueLast) {
+            long span = result.getMax().longValue() - result.getMin().longValue() + 1;
+            if (result.getSize() < span) {
+                for (int i=valueFirst+1; i<valueLast; i++) {
+                    if (valueLive[i]) {
+                        v.setLongValue(longValues[i]);
+                        if (!result.isInDomain(v)) removeSupportedValue(i);
+                    }
+                }
+            }
+        }
+    }
+
+    // javadoc inherited from ElementArc
+    protected void updateResult() throws PropagationFailureException {
+        while (valueFirst <= valueLast && !valueLive[valueFirst]) valueFirst++;
+        while (valueLast >= valueFirst && !valueLive[valueLast]) valueLast--;
+        if (valueFirst > valueLast)
+            throw new PropagationFailureException("no element available to result");
+
+        if (real) {
+            v.setDoubleValue(doubleValues[valueFirst]);
+            result.setMin(v);
+            v.setDoubleValue(doubleValues[valueLast]);
+            result.setMax(v);
+        }
+        else {
+            v.setLongValue(longValues[valueFirst]);
+            result.setMin(v);
+            v.setLongValue(longValues[valueLast]);
+            result.setMax(v);
+
+            // remove values between the elements of the array
+            if (!gapsRemoved) {
+                for (int i=valueFirst; i<valueLast; i++) {
+                    if (longValues[i+1] - longValues[i] > 1)
+                        result.removeRange(new Long(longValues[i] + 1), new Long(longValues[i+1] - 1));
+                }
+                gapsRemoved = true;
+                trailValue(GAPS);
+            }
+        }
+    }
+}
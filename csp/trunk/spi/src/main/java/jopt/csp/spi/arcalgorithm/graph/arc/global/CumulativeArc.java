@@ -0,0 +1,235 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import java.util.Arrays;
+
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Arc requiring tasks with fixed durations and demands to never use more
+ * than the capacity of a resource at any time.
+ * <p>
+ * Time-tabling builds the profile of the parts of tasks that must run
+ * regardless of when they start and moves each task past the times where it
+ * does not fit.  Edge finding follows the O(kn log n) algorithm of Vilim,
+ * where k is the number of distinct demands: a Theta-Lambda tree detects the
+ * set of tasks each task must follow, failing if any set overloads the
+ * resource, after which the start of each task is raised using envelopes
+ * computed at the capacity left by each demand.
+ * <p>
+ * Not-first and not-last are not applied to cumulative resources; they are
+ * only applied to unary resources by {@link DisjunctiveArc}.
+ */
+public class CumulativeArc extends SchedulingArc {
+    private static final int BY_EST = 0;
+    private static final int BY_LCT = 1;
+
+    private int demand[];
+    private ThetaLambdaTree tree;
+
+    // tasks sorted by various keys
+    private int byEst[];
+    private int byLct[];
+    private int buffer[];
+
+    // distinct demands and position in byLct of the set each task must follow
+    private int demands[];
+    private int prec[];
+    private long update[];
+
+    // profile of compulsory parts
+    private long eventTime[];
+    private long eventDelta[];
+    private int events[];
+    private long segStart[];
+    private long segEnd[];
+    private long segHeight[];
+
+    /**
+     * Constructor
+     *
+     * @param starts    Start time of each task
+     * @param duration  Duration of each task
+     * @param demand    Amount of resource used by each task while it runs
+     * @param capacity  Amount of resource available at any time
+     */
+    public CumulativeArc(NumNode starts[], int duration[], int demand[], int capacity) {
+        super(starts, duration, taskEnergy(duration, demand), capacity, 2);
+        this.demand = demand;
+
+        tree = new ThetaLambdaTree(n);
+        buffer = new int[2 * n];
+
+        // distinct demands
+        int sorted[] = (int[]) demand.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i=0; i<n; i++)
+            if (count==0 || sorted[i]!=sorted[count-1]) sorted[count++] = sorted[i];
+        demands = new int[count];
+        System.arraycopy(sorted, 0, demands, 0, count);
+
+        prec = new int[n];
+        update = new long[n];
+        eventTime = new long[2 * n];
+        eventDelta = new long[2 * n];
+        events = new int[2 * n];
+        segStart = new long[2 * n];
+        segEnd = new long[2 * n];
+        segHeight = new long[2 * n];
+    }
+
+    /**
+     * Returns the energy of each task, which is its duration times its demand
+     */
+    private static long[] taskEnergy(int duration[], int demand[]) {
+        long energy[] = new long[duration.length];
+        for (int i=0; i<duration.length; i++)
+            energy[i] = (long) duration[i] * demand[i];
+        return energy;
+    }
+
+    // javadoc inherited from SchedulingArc
+    protected void filter(int frame, long est[], long lct[], long lower[], long upper[]) throws PropagationFailureException {
+        timeTable(est, lct, lower);
+
+        byEst = sortTasks(frame, BY_EST, est);
+        byLct = sortTasks(frame, BY_LCT, lct);
+        edgeFinding(frame, est, lct, lower);
+    }
+
+    /**
+     * Raises the earliest start of each task past the times where the
+     * compulsory parts of other tasks leave too little of the resource
+     */
+    private void timeTable(long est[], long lct[], long lower[]) throws PropagationFailureException {
+        // events where compulsory parts start and end
+        int count = 0;
+        for (int i=0; i<n; i++) {
+            if (demand[i] > capacity && duration[i] > 0)
+                throw new PropagationFailureException("task requires more than the capacity");
+            long lst = lct[i] - duration[i];
+            long ect = est[i] + duration[i];
+            if (lst < ect && demand[i] > 0) {
+                eventTime[count] = lst;
+                eventDelta[count] = demand[i];
+                events[count] = count;
+                count++;
+                eventTime[count] = ect;
+                eventDelta[count] = -demand[i];
+                events[count] = count;
+                count++;
+            }
+        }
+        if (count == 0) return;
+        sort(events, count, eventTime, buffer);
+
+        // build segments of constant height between event times
+        int segments = 0;
+        long height = 0;
+        int k = 0;
+        while (k < count) {
+            long time = eventTime[events[k]];
+            while (k < count && eventTime[events[k]] == time)
+                height += eventDelta[events[k++]];
+            if (height > capacity)
+                throw new PropagationFailureException("compulsory parts exceed capacity");
+            if (k < count && height > 0) {
+                segStart[segments] = time;
+                segEnd[segments] = eventTime[events[k]];
+                segHeight[segments] = height;
+                segments++;
+            }
+        }
+
+        // push each task past segments where it does not fit
+        for (int i=0; i<n; i++) {
+            if (demand[i] == 0 || duration[i] == 0) continue;
+            long lst = lct[i] - duration[i];
+            long ect = est[i] + duration[i];
+            long start = est[i];
+
+            // first segment ending after start
+            int lo = 0;
+            int hi = segments;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (segEnd[mid] <= start) lo = mid + 1;
+                else hi = mid;
+            }
+
+            for (int s=lo; s<segments && segStart[s] < start + duration[i] && start <= lst; s++) {
+                // segments lie entirely inside or outside the task's own compulsory part
+                long used = segHeight[s];
+                if (segStart[s] >= lst && segEnd[s] <= ect)
+                    used -= demand[i];
+                if (used + demand[i] > capacity)
+                    start = segEnd[s];
+            }
+            lower[i] = Math.max(lower[i], start);
+        }
+    }
+
+    /**
+     * Fails if a set of tasks requires more energy than is available before
+     * its latest completion, and raises the earliest start of each task that
+     * must follow a set of tasks to the earliest time the rest of the set can
+     * complete with the capacity left by the task
+     */
+    private void edgeFinding(int frame, long est[], long lct[], long lower[]) throws PropagationFailureException {
+        // detect the set of tasks in byLct up to prec[i] that task i must follow
+        loadTheta(tree, frame, est);
+        for (int i=0; i<n; i++)
+            prec[i] = -1;
+        boolean detected = false;
+        for (int k=n-1; k>=0; k--) {
+            int j = byLct[k];
+            long bound = capacity * lct[j];
+            if (tree.getEnvelope() > bound)
+                throw new PropagationFailureException("tasks require more energy than is available");
+            while (tree.getLambdaEnvelope() > bound) {
+                int i = tree.getResponsibleLambda();
+                prec[i] = k;
+                detected = true;
+                tree.remove(i);
+            }
+            tree.addLambda(j);
+        }
+        if (!detected) return;
+
+        // compute updates for each demand of a task that must follow a set
+        for (int d=0; d<demands.length; d++) {
+            int c = demands[d];
+            boolean used = false;
+            for (int i=0; i<n && !used; i++)
+                used = (prec[i] >= 0 && demand[i] == c);
+            if (!used || c == 0) continue;
+
+            tree.reset(byEst, est, energy, capacity, capacity - c);
+            long best = Long.MIN_VALUE;
+            for (int k=0; k<n; k++) {
+                int j = byLct[k];
+                tree.addTheta(j);
+                long threshold = (capacity - c) * lct[j];
+                if (tree.getReducedEnvelope() > threshold) {
+                    long envelope = tree.getEnvelopeBefore(threshold);
+                    best = Math.max(best, ceilDiv(envelope - threshold, c));
+                }
+                update[k] = best;
+            }
+
+            for (int i=0; i<n; i++) {
+                if (prec[i] >= 0 && demand[i] == c)
+                    lower[i] = Math.max(lower[i], update[prec[i]]);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest integer at least a divided by b for positive b
+     */
+    private static long ceilDiv(long a, long b) {
+        long q = a / b;
+        return (q * b < a) ? q + 1 : q;
+    }
+}
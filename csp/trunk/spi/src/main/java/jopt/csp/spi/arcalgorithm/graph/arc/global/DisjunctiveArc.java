@@ -0,0 +1,140 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Arc requiring tasks with fixed durations to run one at a time on a unary
+ * resource.
+ * <p>
+ * Overload checking, edge finding, detectable precedences and not-last are
+ * each done in O(n log n) time using a Theta-Lambda tree as described by
+ * Vilim.  Applied to the mirrored tasks, detectable precedences and edge
+ * finding reduce latest completions and not-last becomes not-first.
+ * Not-first and not-last are only applied to unary resources;
+ * {@link CumulativeArc} does not apply them.
+ */
+public class DisjunctiveArc extends SchedulingArc {
+    private static final int BY_EST = 0;
+    private static final int BY_LCT = 1;
+    private static final int BY_LST = 2;
+    private static final int BY_ECT = 3;
+
+    private ThetaLambdaTree tree;
+
+    // tasks sorted by various keys
+    private int byEst[];
+    private int byLct[];
+    private int byLst[];
+    private int byEct[];
+    private long keys[];
+
+    /**
+     * Constructor
+     *
+     * @param starts    Start time of each task
+     * @param duration  Duration of each task
+     */
+    public DisjunctiveArc(NumNode starts[], int duration[]) {
+        super(starts, duration, unaryEnergy(duration), 1, 4);
+
+        tree = new ThetaLambdaTree(n);
+        keys = new long[n];
+    }
+
+    /**
+     * Returns the energy of each task on a unary resource, which is its duration
+     */
+    private static long[] unaryEnergy(int duration[]) {
+        long energy[] = new long[duration.length];
+        for (int i=0; i<duration.length; i++)
+            energy[i] = duration[i];
+        return energy;
+    }
+
+    // javadoc inherited from SchedulingArc
+    protected void filter(int frame, long est[], long lct[], long lower[], long upper[]) throws PropagationFailureException {
+        byEst = sortTasks(frame, BY_EST, est);
+        byLct = sortTasks(frame, BY_LCT, lct);
+        for (int i=0; i<n; i++) keys[i] = lct[i] - duration[i];
+        byLst = sortTasks(frame, BY_LST, keys);
+        for (int i=0; i<n; i++) keys[i] = est[i] + duration[i];
+        byEct = sortTasks(frame, BY_ECT, keys);
+
+        edgeFinding(frame, est, lct, lower);
+        detectablePrecedences(est, lct, lower);
+        notLast(est, lct, upper);
+    }
+
+    /**
+     * Fails if a set of tasks cannot complete before its latest completion and
+     * raises the earliest start of a task to the earliest completion of a set
+     * of tasks it must follow
+     */
+    private void edgeFinding(int frame, long est[], long lct[], long lower[]) throws PropagationFailureException {
+        loadTheta(tree, frame, est);
+
+        for (int k=n-1; k>0; k--) {
+            int j = byLct[k];
+            if (tree.getEnvelope() > lct[j])
+                throw new PropagationFailureException("tasks cannot complete in time");
+            tree.addLambda(j);
+
+            // remaining tasks must be checked before finding a responsible task
+            long bound = lct[byLct[k-1]];
+            if (tree.getEnvelope() > bound)
+                throw new PropagationFailureException("tasks cannot complete in time");
+            while (tree.getLambdaEnvelope() > bound) {
+                int i = tree.getResponsibleLambda();
+                lower[i] = Math.max(lower[i], tree.getEnvelope());
+                tree.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Raises the earliest start of each task to the earliest completion of
+     * the tasks that cannot start after it completes
+     */
+    private void detectablePrecedences(long est[], long lct[], long lower[]) {
+        tree.reset(byEst, est, energy, 1, 1);
+        int q = 0;
+        for (int k=0; k<n; k++) {
+            int i = byEct[k];
+            long ect = est[i] + duration[i];
+            while (q < n && ect > lct[byLst[q]] - duration[byLst[q]])
+                tree.addTheta(byLst[q++]);
+
+            boolean inTheta = tree.inTheta(i);
+            if (inTheta) tree.remove(i);
+            lower[i] = Math.max(lower[i], tree.getEnvelope());
+            if (inTheta) tree.addTheta(i);
+        }
+    }
+
+    /**
+     * Reduces the latest completion of each task that cannot be last among
+     * the tasks starting before it completes to the latest start of those
+     * tasks
+     */
+    private void notLast(long est[], long lct[], long upper[]) {
+        tree.reset(byEst, est, energy, 1, 1);
+        int q = 0;
+        for (int k=0; k<n; k++) {
+            int i = byLct[k];
+            while (q < n && lct[i] > lct[byLst[q]] - duration[byLst[q]])
+                tree.addTheta(byLst[q++]);
+
+            // latest start among the other tasks added
+            int last = (q > 0) ? byLst[q-1] : -1;
+            if (last == i) last = (q > 1) ? byLst[q-2] : -1;
+            if (last < 0) continue;
+
+            boolean inTheta = tree.inTheta(i);
+            if (inTheta) tree.remove(i);
+            if (tree.getEnvelope() > lct[i] - duration[i])
+                upper[i] = Math.min(upper[i], lct[last] - duration[last]);
+            if (inTheta) tree.addTheta(i);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointDoubleArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.util.DoubleUtil;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Scalar product arc over float and double nodes enforcing a relation
+ * between the sum of coeffs[i]*nodes[i] and a constant
+ */
+public class DoubleScalarProductArc extends ScalarProductArc {
+    private double coeffs[];
+    private double rhs;
+    private double precision;
+
+    private double minContribs[];
+    private double maxContribs[];
+    private double minSum;
+    private double maxSum;
+
+    // infinite contributions are counted instead of added to sums
+    private int minInfiniteCount;
+    private int maxInfiniteCount;
+
+    // contributions of terms before they changed since choicepoint
+    private ChoicePointDoubleArray cpMins;
+    private ChoicePointDoubleArray cpMaxs;
+
+    /**
+     * Constructor
+     *
+     * @param nodes     Nodes of terms, each of which must be unique
+     * @param coeffs    Non-zero coefficient of each node
+     * @param relation  Relation of sum to constant (EQ, NEQ, LEQ or GEQ)
+     * @param rhs       Constant sum is related to
+     */
+    public DoubleScalarProductArc(NumNode nodes[], double coeffs[], int relation, double rhs) {
+        super(nodes, relation);
+        this.coeffs = coeffs;
+        this.rhs = rhs;
+        this.minContribs = new double[nodes.length];
+        this.maxContribs = new double[nodes.length];
+
+        // sums are compared using the coarsest precision of the nodes
+        this.precision = DoubleUtil.DEFAULT_PRECISION;
+        for (int i=0; i<nodes.length; i++)
+            precision = Math.max(precision, nodes[i].getPrecision());
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void updateContribution(int idx) {
+        double c = coeffs[idx];
+        double lo = nodes[idx].getMin().doubleValue();
+        double hi = nodes[idx].getMax().doubleValue();
+        double cmin = (c > 0) ? c*lo : c*hi;
+        double cmax = (c > 0) ? c*hi : c*lo;
+
+        if (cmin==minContribs[idx] && cmax==maxContribs[idx]) return;
+
+        trail(idx);
+        setContribution(idx, cmin, cmax);
+    }
+
+    /**
+     * Replaces the contribution of a term and adjusts the sums
+     */
+    private void setContribution(int idx, double cmin, double cmax) {
+        double prevMin = minContribs[idx];
+        double prevMax = maxContribs[idx];
+
+        if (Double.isInfinite(prevMin)) minInfiniteCount--;
+        else minSum -= prevMin;
+        if (Double.isInfinite(cmin)) minInfiniteCount++;
+        else minSum += cmin;
+
+        if (Double.isInfinite(prevMax)) maxInfiniteCount--;
+        else maxSum -= prevMax;
+        if (Double.isInfinite(cmax)) maxInfiniteCount++;
+        else maxSum += cmax;
+
+        minContribs[idx] = cmin;
+        maxContribs[idx] = cmax;
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void createContributionArrays(ChoicePointNumArraySet cpdata) {
+        if (cpdata==null) {
+            cpMins = null;
+            cpMaxs = null;
+        }
+        else {
+            cpMins = cpdata.newDoubleList();
+            cpMaxs = cpdata.newDoubleList();
+        }
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void saveContribution(int idx) {
+        cpMins.add(minContribs[idx]);
+        cpMaxs.add(maxContribs[idx]);
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void restoreContribution(int pos, int idx) {
+        setContribution(idx, cpMins.get(pos), cpMaxs.get(pos));
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void filter() throws PropagationFailureException {
+        switch(relation) {
+            case LEQ:
+                filterMax();
+                break;
+
+            case GEQ:
+                filterMin();
+                break;
+
+            case EQ:
+                // only a single pass is made since reals could otherwise
+                // converge slowly, the arc is revisited when nodes change
+                filterMax();
+                filterMin();
+                break;
+
+            default:
+                filterNeq();
+        }
+    }
+
+    /**
+     * Reduces terms so the sum cannot exceed the constant
+     */
+    private void filterMax() throws PropagationFailureException {
+        if (minInfiniteCount > 1) return;
+        if (minInfiniteCount==0 && DoubleUtil.compare(minSum, rhs, precision) > 0)
+            throw new PropagationFailureException("scalar product cannot be less than or equal to " + rhs);
+
+        // no term can exceed the amount the constant exceeds the minimum sum
+        if (minInfiniteCount==0 && maxInfiniteCount==0 && maxSum - minSum <= rhs - minSum) return;
+
+        for (int i=0; i<nodes.length; i++) {
+            // determine minimum sum of all other terms
+            double othersMin;
+            if (Double.isInfinite(minContribs[i]))
+                othersMin = minSum;
+            else if (minInfiniteCount==0)
+                othersMin = minSum - minContribs[i];
+            else
+                continue;
+
+            double limit = rhs - othersMin;
+            if (maxContribs[i] <= limit) continue;
+
+            double c = coeffs[i];
+            v.setDoubleValue(limit / c);
+            if (c > 0)
+                nodes[i].setMax(v);
+            else
+                nodes[i].setMin(v);
+            updateContribution(i);
+        }
+    }
+
+    /**
+     * Reduces terms so the sum cannot be less than the constant
+     */
+    private void filterMin() throws PropagationFailureException {
+        if (maxInfiniteCount > 1) return;
+        if (maxInfiniteCount==0 && DoubleUtil.compare(maxSum, rhs, precision) < 0)
+            throw new PropagationFailureException("scalar product cannot be greater than or equal to " + rhs);
+
+        // no term can fall below its maximum by more than the maximum sum exceeds the constant
+        if (minInfiniteCount==0 && maxInfiniteCount==0 && maxSum - minSum <= maxSum - rhs) return;
+
+        for (int i=0; i<nodes.length; i++) {
+            // determine maximum sum of all other terms
+            double othersMax;
+            if (Double.isInfinite(maxContribs[i]))
+                othersMax = maxSum;
+            else if (maxInfiniteCount==0)
+                othersMax = maxSum - maxContribs[i];
+            else
+                continue;
+
+            double limit = rhs - othersMax;
+            if (minContribs[i] >= limit) continue;
+
+            double c = coeffs[i];
+            v.setDoubleValue(limit / c);
+            if (c > 0)
+                nodes[i].setMin(v);
+            else
+                nodes[i].setMax(v);
+            updateContribution(i);
+        }
+    }
+
+    /**
+     * Removes the value of the last unbound term that would make the sum
+     * equal to the constant
+     */
+    private void filterNeq() throws PropagationFailureException {
+        int unbound = -1;
+        for (int i=0; i<nodes.length; i++) {
+            if (!nodes[i].isBound()) {
+                if (unbound >= 0) return;
+                unbound = i;
+            }
+        }
+
+        if (unbound < 0) {
+            if (minInfiniteCount==0 && DoubleUtil.isEqual(minSum, rhs, precision))
+                throw new PropagationFailureException("scalar product cannot differ from " + rhs);
+            return;
+        }
+
+        if (minInfiniteCount > 0) return;
+        v.setDoubleValue((rhs - (minSum - minContribs[unbound])) / coeffs[unbound]);
+        nodes[unbound].removeValue(v);
+        updateContribution(unbound);
+    }
+}
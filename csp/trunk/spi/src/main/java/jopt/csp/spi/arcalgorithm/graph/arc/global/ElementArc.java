@@ -0,0 +1,353 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import java.util.Arrays;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeListener;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Base class for arcs enforcing result == array[index] where the index is a
+ * node referencing a position in an array.  The positions remaining in the
+ * domain of the index are kept in a set that is rolled back with the
+ * choicepoint stack, so each propagation only examines the positions that
+ * were removed since the arc was last propagated instead of every position
+ * of the array.
+ * <p>
+ * Subclasses record which positions support each value of the result and
+ * remove positions whose values can no longer be taken by the result.
+ */
+public abstract class ElementArc extends GenericArc implements NumArc, ReversibleArc, NodeChangeListener, ChoicePointEntryListener {
+    protected NumNode index;
+    protected NumNode result;
+    protected int size;
+    protected MutableNumber v = new MutableNumber();
+
+    // positions remaining in domain of index along with lowest and highest,
+    // which may refer to positions that have since been removed
+    protected boolean live[];
+    protected int liveCount;
+    protected int first;
+    protected int last;
+
+    // true when result may have changed since it was last examined
+    protected boolean resultChanged;
+    private boolean propagating;
+    private boolean initialized;
+
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpPositions;
+    private ChoicePointIntArray cpValues;
+
+    /**
+     * Constructor
+     *
+     * @param nodes     All nodes of arc, including the index and result
+     * @param index     Node referencing a position in the array
+     * @param result    Node equal to the element of the array at the index
+     * @param size      Number of elements in array
+     */
+    protected ElementArc(Node nodes[], NumNode index, NumNode result, int size) {
+        super(nodes, nodes);
+        this.index = index;
+        this.result = result;
+        this.size = size;
+        this.live = new boolean[size];
+    }
+
+    /**
+     * Resets the supports of the result when every position of the array is
+     * available to the index
+     */
+    protected abstract void resetSupports();
+
+    /**
+     * Removes positions whose elements can no longer equal the result.  Called
+     * when the result has changed since it was last examined.
+     *
+     * @throws PropagationFailureException  If no position remains
+     */
+    protected abstract void pruneResult() throws PropagationFailureException;
+
+    /**
+     * Reduces the result to the elements at the remaining positions
+     *
+     * @throws PropagationFailureException  If result cannot be reduced
+     */
+    protected abstract void updateResult() throws PropagationFailureException;
+
+    /**
+     * Updates supports when a position is removed, either during propagation
+     * or when a removal is pushed back onto the stack
+     */
+    protected void positionRemoved(int pos) {
+    }
+
+    /**
+     * Updates supports when a position is restored by the stack
+     */
+    protected void positionRestored(int pos) {
+    }
+
+    /**
+     * Called after a position is removed during propagation, allowing the
+     * result to be reduced if the position was the last to support a value
+     *
+     * @throws PropagationFailureException  If result cannot be reduced
+     */
+    protected void positionPruned(int pos) throws PropagationFailureException {
+    }
+
+    /**
+     * Marks a value of the result as supported after its removal is rolled back
+     */
+    protected void valueRestored(int valueIdx) {
+    }
+
+    /**
+     * Marks a value of the result as unsupported when its removal is pushed
+     * back onto the stack
+     */
+    protected void valueRemoved(int valueIdx) {
+    }
+
+    /**
+     * Records the removal of a value of the result so it can be rolled back
+     */
+    protected final void trailValue(int valueIdx) {
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpValues.add(valueIdx);
+        }
+    }
+
+    /**
+     * Removes a position that the index can no longer take
+     *
+     * @param pos           Position to remove
+     * @param updateIndex   True if value must also be removed from the index
+     */
+    protected final void removePosition(int pos, boolean updateIndex) throws PropagationFailureException {
+        if (updateIndex) {
+            v.setIntValue(pos);
+            index.removeValue(v);
+        }
+
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpPositions.add(pos);
+        }
+
+        live[pos] = false;
+        liveCount--;
+        positionRemoved(pos);
+        positionPruned(pos);
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        propagating = true;
+        try {
+            if (!initialized) initialize();
+
+            // changes to result are only heard when stack is set
+            if (cpdata==null) resultChanged = true;
+
+            pruneIndex();
+            if (resultChanged) {
+                resultChanged = false;
+                pruneResult();
+            }
+            updateResult();
+            updateIndex();
+        }
+        finally {
+            propagating = false;
+        }
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        propagate();
+    }
+
+    /**
+     * Makes every position available and restricts the index to the array
+     */
+    private void initialize() throws PropagationFailureException {
+        Arrays.fill(live, true);
+        liveCount = size;
+        first = 0;
+        last = size - 1;
+        resetSupports();
+
+        v.setIntValue(0);
+        index.setMin(v);
+        v.setIntValue(size - 1);
+        index.setMax(v);
+
+        resultChanged = true;
+        initialized = true;
+
+        // mark where the arc was initialized so it is initialized again if this is undone
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpPositions.add(-1);
+        }
+    }
+
+    /**
+     * Removes positions that are no longer in the domain of the index.  Since
+     * the domain of the index never contains a position that has already been
+     * removed, the number of positions to locate is known and the search
+     * stops once they are found.
+     */
+    private void pruneIndex() throws PropagationFailureException {
+        int removed = liveCount - index.getSize();
+        if (removed <= 0) return;
+
+        int min = index.getMin().intValue();
+        int max = index.getMax().intValue();
+
+        // positions below the minimum and above the maximum
+        while (removed > 0 && first <= last && (!live[first] || first < min)) {
+            if (live[first]) {
+                removePosition(first, false);
+                removed--;
+            }
+            first++;
+        }
+        while (removed > 0 && last >= first && (!live[last] || last > max)) {
+            if (live[last]) {
+                removePosition(last, false);
+                removed--;
+            }
+            last--;
+        }
+
+        // positions removed from within the bounds
+        for (int i=first; removed > 0 && i<=last; i++) {
+            if (live[i]) {
+                v.setIntValue(i);
+                if (!index.isInDomain(v)) {
+                    removePosition(i, false);
+                    removed--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates bounds of the index to the lowest and highest remaining positions
+     */
+    private void updateIndex() throws PropagationFailureException {
+        while (first <= last && !live[first]) first++;
+        while (last >= first && !live[last]) last--;
+        if (first > last)
+            throw new PropagationFailureException("no element available to index");
+
+        v.setIntValue(first);
+        index.setMin(v);
+        v.setIntValue(last);
+        index.setMax(v);
+    }
+
+    // javadoc inherited from NodeChangeListener
+    public void nodeChange(NodeChangeEvent ev) {
+        if (!propagating) resultChanged = true;
+    }
+
+    // javadoc inherited from ReversibleArc
+    public void domainsRestored() {
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (this.cpdata!=null && cps!=null)
+            throw new IllegalStateException("Choice point stack already set for arc");
+
+        if (cps==null) {
+            if (cpdata!=null) {
+                result.removeDomainChangeListener(this);
+                cpdata.close();
+                cpdata = null;
+                cpPositions = null;
+                cpValues = null;
+            }
+        }
+        else {
+            cpdata = cps.newNumStackSet(this);
+            cpPositions = cpdata.newIntList();
+            cpValues = cpdata.newIntList();
+            result.addDomainChangeListener(this, null);
+        }
+
+        // changes to nodes may have been missed
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public boolean choicePointStackSet() {
+        return cpdata!=null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // restore positions and values removed since choicepoint was pushed,
+        // ignoring any that were restored when the arc was reinitialized.
+        // If the arc was initialized since the choicepoint was pushed, it
+        // must be initialized again.
+        for (int i=cpPositions.size()-1; i>=0; i--) {
+            int pos = cpPositions.get(i);
+            if (pos < 0)
+                initialized = false;
+            else if (!live[pos]) {
+                live[pos] = true;
+                liveCount++;
+                positionRestored(pos);
+                if (pos < first) first = pos;
+                if (pos > last) last = pos;
+            }
+        }
+
+        for (int i=cpValues.size()-1; i>=0; i--)
+            valueRestored(cpValues.get(i));
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // remove positions and values again when a delta is pushed back onto the stack
+        for (int i=0; i<cpPositions.size(); i++) {
+            int pos = cpPositions.get(i);
+            if (pos < 0)
+                initialized = false;
+            else if (live[pos]) {
+                live[pos] = false;
+                liveCount--;
+                positionRemoved(pos);
+            }
+        }
+
+        for (int i=0; i<cpValues.size(); i++)
+            valueRemoved(cpValues.get(i));
+    }
+}
@@ -0,0 +1,594 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.GenericNumNode;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Arc requiring integer nodes to take different values, with the filtering
+ * done selected by the strength of the algorithm propagating it.
+ * <p>
+ * At arc consistency or above, values that cannot be part of any assignment
+ * of distinct values are removed using the matching of nodes to values
+ * described by Regin.  The matching is kept between propagations and only
+ * repaired for nodes whose matched value was removed, using the phases of
+ * Hopcroft and Karp.  Values are then removed if their edges do not belong
+ * to an alternating cycle or path, which is determined from the strongly
+ * connected components of the graph found by Tarjan's algorithm.
+ * <p>
+ * At range or bounds consistency, the bounds of the nodes are reduced using
+ * Hall intervals in O(n log n) time as described by Lopez-Ortiz, Quimper,
+ * Tromp and van Beek, and the values of bound nodes are removed from the
+ * other nodes.  This is also used at arc consistency when the values of the
+ * nodes span too many integers to be matched.
+ * <p>
+ * All state is kept in primitive arrays and values are read through a
+ * mutable number, so no numbers are allocated while propagating.
+ */
+public class IntAllDiffArc extends GenericArc implements NumArc {
+    // largest number of values that will be matched
+    private static final int MAX_SPAN = 1 << 18;
+
+    private NumNode nodes[];
+    private int n;
+    private MutableNumber v = new MutableNumber();
+
+    // matching of nodes to values, stored as offsets from the lowest value
+    private int base;
+    private int span;
+    private int nodeMatch[];
+    private int valueMatch[];
+
+    // values in domain of each node, rebuilt on each propagation
+    private int adjStart[];
+    private int adj[];
+
+    // phases of matching
+    private int dist[];
+    private int queue[];
+    private int next[];
+
+    // strongly connected components
+    private int num[];
+    private int low[];
+    private int comp[];
+    private int edge[];
+    private int stack[];
+    private int calls[];
+    private boolean onStack[];
+
+    // intervals sorted by bounds, which are kept between propagations
+    // since they are usually almost sorted
+    private int lb[];
+    private int ub[];
+    private int minrank[];
+    private int maxrank[];
+    private int minsorted[];
+    private int maxsorted[];
+    private int bounds[];
+    private int t[];
+    private int d[];
+    private int h[];
+    private int nb;
+
+    /**
+     * Creates an arc over an array of integer nodes
+     */
+    public IntAllDiffArc(NumNode nodes[]) {
+        super(nodes, nodes);
+        this.nodes = nodes;
+        this.n = nodes.length;
+
+        sourceDependencies = new int[n];
+        for (int i=0; i<n; i++)
+            sourceDependencies[i] = DomainChangeType.DOMAIN;
+
+        nodeMatch = new int[n];
+        adjStart = new int[n + 1];
+        adj = new int[16];
+        dist = new int[n];
+        queue = new int[n];
+        next = new int[n];
+
+        lb = new int[n];
+        ub = new int[n];
+        minrank = new int[n];
+        maxrank = new int[n];
+        minsorted = new int[n];
+        maxsorted = new int[n];
+        for (int i=0; i<n; i++) {
+            minsorted[i] = i;
+            maxsorted[i] = i;
+        }
+        bounds = new int[2 * n + 2];
+        t = new int[2 * n + 2];
+        d = new int[2 * n + 2];
+        h = new int[2 * n + 2];
+    }
+
+    /**
+     * Creates an arc over the nodes wrapped by a generic node
+     */
+    public IntAllDiffArc(GenericNumNode source) {
+        this(source.getNodes());
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        propagate();
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        if (n < 2) return;
+
+        if (strength >= CspAlgorithmStrength.ARC_CONSISTENCY && prepareValues())
+            propagateDomains();
+        else
+            propagateBounds();
+    }
+
+    /**
+     * Sizes the matching to the values of the nodes, returning false if the
+     * values span too many integers to be matched
+     */
+    private boolean prepareValues() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i=0; i<n; i++) {
+            min = Math.min(min, nodes[i].getMin().intValue());
+            max = Math.max(max, nodes[i].getMax().intValue());
+        }
+        if (max - min + 1 > MAX_SPAN) return false;
+
+        // discard matching if values no longer fit within it
+        if (valueMatch==null || min < base || max >= base + span) {
+            base = (int) min;
+            span = (int) (max - min + 1);
+            valueMatch = new int[span];
+            for (int i=0; i<span; i++) valueMatch[i] = -1;
+            for (int i=0; i<n; i++) nodeMatch[i] = -1;
+
+            int count = n + span + 1;
+            num = new int[count];
+            low = new int[count];
+            comp = new int[count];
+            edge = new int[count];
+            stack = new int[count];
+            calls = new int[count];
+            onStack = new boolean[count];
+        }
+        return true;
+    }
+
+    /**
+     * Removes every value that does not belong to a maximum matching
+     */
+    private void propagateDomains() throws PropagationFailureException {
+        buildAdjacency();
+
+        // release matched values that were removed from their nodes
+        for (int i=0; i<n; i++) {
+            int val = nodeMatch[i];
+            if (val >= 0) {
+                v.setIntValue(base + val);
+                if (!nodes[i].isInDomain(v)) {
+                    valueMatch[val] = -1;
+                    nodeMatch[i] = -1;
+                }
+            }
+        }
+
+        if (!repairMatching())
+            throw new PropagationFailureException("no assignment of different values exists");
+
+        findComponents();
+
+        // remove values whose edges join nodes of different components
+        for (int i=0; i<n; i++) {
+            for (int k=adjStart[i]; k<adjStart[i+1]; k++) {
+                int val = adj[k];
+                if (val != nodeMatch[i] && comp[i] != comp[n + val]) {
+                    v.setIntValue(base + val);
+                    nodes[i].removeValue(v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the values in the domain of each node
+     */
+    private void buildAdjacency() {
+        int total = 0;
+        for (int i=0; i<n; i++)
+            total += nodes[i].getSize();
+        if (adj.length < total) adj = new int[Math.max(total, adj.length * 2)];
+
+        int pos = 0;
+        for (int i=0; i<n; i++) {
+            adjStart[i] = pos;
+            NumNode node = nodes[i];
+            int max = node.getMax().intValue();
+            int val = node.getMin().intValue();
+            while (true) {
+                adj[pos++] = val - base;
+                if (val >= max) break;
+                v.setIntValue(val);
+                val = node.getNextHigher(v).intValue();
+            }
+        }
+        adjStart[n] = pos;
+    }
+
+    /**
+     * Matches every unmatched node using augmenting paths found in phases
+     * of breadth first and depth first searches
+     *
+     * @return true if every node is matched
+     */
+    private boolean repairMatching() {
+        while (true) {
+            // layer nodes by distance from unmatched nodes
+            int head = 0;
+            int tail = 0;
+            for (int i=0; i<n; i++) {
+                if (nodeMatch[i] < 0) {
+                    dist[i] = 0;
+                    queue[tail++] = i;
+                }
+                else
+                    dist[i] = Integer.MAX_VALUE;
+            }
+            if (tail == 0) return true;
+
+            boolean found = false;
+            while (head < tail) {
+                int i = queue[head++];
+                for (int k=adjStart[i]; k<adjStart[i+1]; k++) {
+                    int j = valueMatch[adj[k]];
+                    if (j < 0)
+                        found = true;
+                    else if (dist[j] == Integer.MAX_VALUE) {
+                        dist[j] = dist[i] + 1;
+                        queue[tail++] = j;
+                    }
+                }
+            }
+            if (!found) return false;
+
+            // augment along shortest paths
+            for (int i=0; i<n; i++)
+                next[i] = adjStart[i];
+            for (int i=0; i<n; i++)
+                if (nodeMatch[i] < 0) augment(i);
+        }
+    }
+
+    /**
+     * Searches for an augmenting path from a node following the layers of
+     * the current phase
+     */
+    private boolean augment(int i) {
+        for (; next[i]<adjStart[i+1]; next[i]++) {
+            int val = adj[next[i]];
+            int j = valueMatch[val];
+            if (j < 0 || (dist[j] == dist[i] + 1 && augment(j))) {
+                nodeMatch[i] = val;
+                valueMatch[val] = i;
+                return true;
+            }
+        }
+        dist[i] = Integer.MAX_VALUE;
+        return false;
+    }
+
+    /**
+     * Finds the strongly connected components of the graph with edges from
+     * nodes to unmatched values, from matched values to their nodes, from
+     * unmatched values to a sink and from the sink to matched values.  The
+     * edge of a value belongs to a maximum matching if the node and value
+     * are in the same component.
+     */
+    private void findComponents() {
+        int count = n + span + 1;
+        for (int i=0; i<count; i++) {
+            num[i] = 0;
+            edge[i] = 0;
+        }
+
+        int counter = 0;
+        int components = 0;
+        int top = 0;
+        for (int s=0; s<n; s++) {
+            if (num[s] != 0) continue;
+
+            int callTop = 0;
+            num[s] = low[s] = ++counter;
+            stack[top++] = s;
+            onStack[s] = true;
+            calls[callTop++] = s;
+
+            while (callTop > 0) {
+                int u = calls[callTop - 1];
+                int w = nextEdge(u);
+                if (w >= 0) {
+                    if (num[w] == 0) {
+                        num[w] = low[w] = ++counter;
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        calls[callTop++] = w;
+                    }
+                    else if (onStack[w] && num[w] < low[u])
+                        low[u] = num[w];
+                }
+                else {
+                    callTop--;
+                    if (low[u] == num[u]) {
+                        int w2;
+                        do {
+                            w2 = stack[--top];
+                            onStack[w2] = false;
+                            comp[w2] = components;
+                        } while (w2 != u);
+                        components++;
+                    }
+                    if (callTop > 0) {
+                        int parent = calls[callTop - 1];
+                        if (low[u] < low[parent]) low[parent] = low[u];
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Returns the next vertex reached by an edge from a vertex of the
+     * component graph or -1 if no edges remain
+     */
+    private int nextEdge(int u) {
+        int sink = n + span;
+
+        // node to values other than its match
+        if (u < n) {
+            int end = adjStart[u+1] - adjStart[u];
+            while (edge[u] < end) {
+                int val = adj[adjStart[u] + edge[u]++];
+                if (val != nodeMatch[u]) return n + val;
+            }
+            return -1;
+        }
+
+        // sink to every matched value
+        if (u == sink) {
+            if (edge[u] < n) return n + nodeMatch[edge[u]++];
+            return -1;
+        }
+
+        // value to its node or to the sink if unmatched
+        if (edge[u]++ > 0) return -1;
+        int j = valueMatch[u - n];
+        return (j >= 0) ? j : sink;
+    }
+
+    /**
+     * Removes values of bound nodes from other nodes and reduces bounds of
+     * nodes using Hall intervals until no further changes occur
+     */
+    private void propagateBounds() throws PropagationFailureException {
+        boolean changed = true;
+        while (changed) {
+            changed = removeBoundValues();
+            if (filterBounds()) changed = true;
+        }
+    }
+
+    /**
+     * Removes the value of each bound node from the other nodes
+     *
+     * @return true if a node became bound
+     */
+    private boolean removeBoundValues() throws PropagationFailureException {
+        boolean bound = false;
+        for (int i=0; i<n; i++) {
+            if (!nodes[i].isBound()) continue;
+
+            int val = nodes[i].getMin().intValue();
+            for (int j=0; j<n; j++) {
+                if (j == i) continue;
+                v.setIntValue(val);
+                if (nodes[j].isInDomain(v)) {
+                    nodes[j].removeValue(v);
+                    if (nodes[j].isBound()) bound = true;
+                }
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Reduces bounds of nodes using Hall intervals
+     *
+     * @return true if a bound was changed
+     */
+    private boolean filterBounds() throws PropagationFailureException {
+        for (int i=0; i<n; i++) {
+            lb[i] = nodes[i].getMin().intValue();
+            ub[i] = nodes[i].getMax().intValue();
+        }
+        sortIntervals();
+
+        boolean changed = filterLower();
+        if (filterUpper()) changed = true;
+        return changed;
+    }
+
+    /**
+     * Sorts intervals by their bounds with an insertion sort, which is fast
+     * since the order rarely changes between propagations, and ranks the
+     * distinct bounds
+     */
+    private void sortIntervals() {
+        for (int i=1; i<n; i++) {
+            int x = minsorted[i];
+            int j = i - 1;
+            while (j >= 0 && lb[minsorted[j]] > lb[x]) {
+                minsorted[j+1] = minsorted[j];
+                j--;
+            }
+            minsorted[j+1] = x;
+
+            x = maxsorted[i];
+            j = i - 1;
+            while (j >= 0 && ub[maxsorted[j]] > ub[x]) {
+                maxsorted[j+1] = maxsorted[j];
+                j--;
+            }
+            maxsorted[j+1] = x;
+        }
+
+        int min = lb[minsorted[0]];
+        int max = ub[maxsorted[0]] + 1;
+        int last = min - 2;
+        int count = 0;
+        bounds[0] = last;
+        int i = 0;
+        int j = 0;
+        while (true) {
+            if (i < n && min <= max) {
+                if (min != last) bounds[++count] = last = min;
+                minrank[minsorted[i]] = count;
+                if (++i < n) min = lb[minsorted[i]];
+            }
+            else {
+                if (max != last) bounds[++count] = last = max;
+                maxrank[maxsorted[j]] = count;
+                if (++j == n) break;
+                max = ub[maxsorted[j]] + 1;
+            }
+        }
+        nb = count;
+        bounds[nb + 1] = bounds[nb] + 2;
+    }
+
+    /**
+     * Raises the minimum of nodes above Hall intervals
+     */
+    private boolean filterLower() throws PropagationFailureException {
+        boolean changed = false;
+        for (int i=1; i<=nb+1; i++) {
+            t[i] = h[i] = i - 1;
+            d[i] = bounds[i] - bounds[i-1];
+        }
+        for (int i=0; i<n; i++) {
+            int node = maxsorted[i];
+            int x = minrank[node];
+            int y = maxrank[node];
+            int z = pathMax(t, x + 1);
+            int j = t[z];
+
+            if (--d[z] == 0) {
+                t[z] = z + 1;
+                z = pathMax(t, t[z]);
+                t[z] = j;
+            }
+            pathSet(t, x + 1, z, z);
+
+            if (d[z] < bounds[z] - bounds[y])
+                throw new PropagationFailureException("more nodes than values in interval");
+
+            if (h[x] > x) {
+                int w = pathMax(h, h[x]);
+                if (bounds[w] > lb[node]) {
+                    v.setIntValue(bounds[w]);
+                    nodes[node].setMin(v);
+                    changed = true;
+                }
+                pathSet(h, x, w, w);
+            }
+            if (d[z] == bounds[z] - bounds[y]) {
+                pathSet(h, h[y], j - 1, y);
+                h[y] = j - 1;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Lowers the maximum of nodes below Hall intervals
+     */
+    private boolean filterUpper() throws PropagationFailureException {
+        boolean changed = false;
+        for (int i=0; i<=nb; i++) {
+            t[i] = h[i] = i + 1;
+            d[i] = bounds[i+1] - bounds[i];
+        }
+        for (int i=n-1; i>=0; i--) {
+            int node = minsorted[i];
+            int x = maxrank[node];
+            int y = minrank[node];
+            int z = pathMin(t, x - 1);
+            int j = t[z];
+
+            if (--d[z] == 0) {
+                t[z] = z - 1;
+                z = pathMin(t, t[z]);
+                t[z] = j;
+            }
+            pathSet(t, x - 1, z, z);
+
+            if (d[z] < bounds[y] - bounds[z])
+                throw new PropagationFailureException("more nodes than values in interval");
+
+            if (h[x] < x) {
+                int w = pathMin(h, h[x]);
+                if (bounds[w] - 1 < ub[node]) {
+                    v.setIntValue(bounds[w] - 1);
+                    nodes[node].setMax(v);
+                    changed = true;
+                }
+                pathSet(h, x, w, w);
+            }
+            if (d[z] == bounds[y] - bounds[z]) {
+                pathSet(h, h[y], j + 1, y);
+                h[y] = j + 1;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Points each entry on the path from start to end at a new target
+     */
+    private static void pathSet(int path[], int start, int end, int to) {
+        int k;
+        int l = start;
+        while ((k = l) != end) {
+            l = path[k];
+            path[k] = to;
+        }
+    }
+
+    /**
+     * Follows a path to its lowest entry
+     */
+    private static int pathMin(int path[], int i) {
+        while (path[i] < i) i = path[i];
+        return i;
+    }
+
+    /**
+     * Follows a path to its highest entry
+     */
+    private static int pathMax(int path[], int i) {
+        while (path[i] > i) i = path[i];
+        return i;
+    }
+}
@@ -0,0 +1,614 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import java.util.Arrays;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.IntNode;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Arc requiring the number of integer nodes assigned each of a set of values
+ * to lie between a lower and upper bound.  The bounds are either fixed or
+ * read from the domains of count nodes, which are in turn reduced to the
+ * number of nodes that can take each value.
+ * <p>
+ * Filtering follows the flow model described by Regin.  A feasible flow
+ * assigning each node to a value is kept between propagations, since it
+ * remains feasible when domains and bounds are restored on backtracking,
+ * and is only repaired for nodes whose values were removed.  Nodes are
+ * assigned using augmenting paths that respect the upper bounds, after
+ * which values below their lower bounds take nodes from values above
+ * theirs.  A value is then removed from a node if the edge between them
+ * does not belong to a strongly connected component of the residual graph,
+ * found using Tarjan's algorithm.
+ * <p>
+ * Values that are not constrained are represented by a single value that
+ * any number of nodes may take, so the work done depends on the number of
+ * constrained values rather than the sizes of the domains.  All state is
+ * kept in arrays indexed by node and value.
+ */
+public class IntGlobalCardinalityArc extends GenericArc implements NumArc {
+    private NumNode nodes[];
+    private IntNode counts[];
+    private int n;
+    private MutableNumber v = new MutableNumber();
+
+    // constrained values in ascending order, the index after the last
+    // standing for every other value
+    private int vals[];
+    private int k;
+    private int fixedLb[];
+    private int fixedUb[];
+
+    // bounds of each value for the current propagation
+    private int lb[];
+    private int ub[];
+
+    // flow of nodes to values with the nodes of each value in a linked list
+    private int nodeFlow[];
+    private int flowCount[];
+    private int head[];
+    private int nextNode[];
+    private int prevNode[];
+
+    // values in domain of each node and nodes with each value in domain
+    private int adjStart[];
+    private int adj[];
+    private int radjStart[];
+    private int radj[];
+    private int degree[];
+    private int occur[];
+    private int bound[];
+
+    // searches for augmenting paths
+    private int queue[];
+    private int parentNode[];
+    private int parentValue[];
+    private int mark[];
+    private int stamp;
+
+    // strongly connected components
+    private int num[];
+    private int low[];
+    private int comp[];
+    private int edge[];
+    private int stack[];
+    private int calls[];
+    private boolean onStack[];
+
+    /**
+     * Creates an arc with fixed bounds for each value
+     *
+     * @param nodes     Nodes whose values are counted
+     * @param vals      Values whose occurrences are constrained
+     * @param lb        Minimum number of nodes that take each value
+     * @param ub        Maximum number of nodes that take each value
+     */
+    public IntGlobalCardinalityArc(NumNode nodes[], Number vals[], int lb[], int ub[]) {
+        super(nodes, nodes);
+        init(nodes, vals);
+
+        sourceDependencies = new int[n];
+        for (int i=0; i<n; i++)
+            sourceDependencies[i] = DomainChangeType.DOMAIN;
+
+        fixedLb = new int[k];
+        fixedUb = new int[k];
+        for (int j=0; j<vals.length; j++) {
+            int idx = Arrays.binarySearch(this.vals, vals[j].intValue());
+            fixedLb[idx] = lb[j];
+            fixedUb[idx] = ub[j];
+        }
+    }
+
+    /**
+     * Creates an arc with the bounds of each value given by a count node
+     *
+     * @param nodes     Nodes whose values are counted
+     * @param vals      Values whose occurrences are constrained
+     * @param counts    Nodes holding the number of nodes that take each value
+     */
+    public IntGlobalCardinalityArc(NumNode nodes[], Number vals[], IntNode counts[]) {
+        super(join(nodes, counts), join(nodes, counts));
+        init(nodes, vals);
+
+        sourceDependencies = new int[n + counts.length];
+        for (int i=0; i<n; i++)
+            sourceDependencies[i] = DomainChangeType.DOMAIN;
+        for (int i=n; i<sourceDependencies.length; i++)
+            sourceDependencies[i] = DomainChangeType.RANGE;
+
+        this.counts = new IntNode[k];
+        for (int j=0; j<vals.length; j++) {
+            int idx = Arrays.binarySearch(this.vals, vals[j].intValue());
+            this.counts[idx] = counts[j];
+        }
+    }
+
+    /**
+     * Returns an array holding nodes followed by count nodes
+     */
+    private static Node[] join(NumNode nodes[], IntNode counts[]) {
+        Node all[] = new Node[nodes.length + counts.length];
+        System.arraycopy(nodes, 0, all, 0, nodes.length);
+        System.arraycopy(counts, 0, all, nodes.length, counts.length);
+        return all;
+    }
+
+    /**
+     * Sorts the values and allocates arrays
+     */
+    private void init(NumNode nodes[], Number vals[]) {
+        this.nodes = nodes;
+        this.n = nodes.length;
+        this.k = vals.length;
+        this.vals = new int[k];
+        for (int j=0; j<k; j++)
+            this.vals[j] = vals[j].intValue();
+        Arrays.sort(this.vals);
+
+        lb = new int[k + 1];
+        ub = new int[k + 1];
+        flowCount = new int[k + 1];
+        head = new int[k + 1];
+        Arrays.fill(head, -1);
+        nodeFlow = new int[n];
+        Arrays.fill(nodeFlow, -1);
+        nextNode = new int[n];
+        prevNode = new int[n];
+
+        adjStart = new int[n + 1];
+        adj = new int[16];
+        radjStart = new int[k + 2];
+        radj = new int[16];
+        degree = new int[n];
+        occur = new int[k + 1];
+        bound = new int[k + 1];
+
+        queue = new int[Math.max(n, k + 1)];
+        parentNode = new int[k + 1];
+        parentValue = new int[k + 1];
+        mark = new int[k + 1];
+
+        int count = n + k + 2;
+        num = new int[count];
+        low = new int[count];
+        comp = new int[count];
+        edge = new int[count];
+        stack = new int[count];
+        calls = new int[count];
+        onStack = new boolean[count];
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        propagate();
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        buildAdjacency();
+        readBounds();
+        repairFlow();
+        findComponents();
+        filterNodes();
+        if (counts!=null) filterCounts();
+    }
+
+    /**
+     * Records the constrained values in the domain of each node, followed by
+     * the unconstrained value if the node has any value that is not
+     * constrained, along with the nodes having each value in their domains
+     */
+    private void buildAdjacency() {
+        int total = 0;
+        for (int i=0; i<n; i++)
+            total += Math.min(nodes[i].getSize(), k + 1);
+        if (adj.length < total) {
+            adj = new int[Math.max(total, adj.length * 2)];
+            radj = new int[adj.length];
+        }
+
+        Arrays.fill(occur, 0);
+        int pos = 0;
+        for (int i=0; i<n; i++) {
+            adjStart[i] = pos;
+            NumNode node = nodes[i];
+            int size = node.getSize();
+            int found = 0;
+
+            // examine whichever of the domain or the values is smaller
+            if (size <= k) {
+                int max = node.getMax().intValue();
+                int val = node.getMin().intValue();
+                while (true) {
+                    int idx = Arrays.binarySearch(vals, val);
+                    if (idx >= 0) {
+                        adj[pos++] = idx;
+                        found++;
+                    }
+                    if (val >= max) break;
+                    v.setIntValue(val);
+                    val = node.getNextHigher(v).intValue();
+                }
+            }
+            else {
+                for (int j=0; j<k; j++) {
+                    v.setIntValue(vals[j]);
+                    if (node.isInDomain(v)) {
+                        adj[pos++] = j;
+                        found++;
+                    }
+                }
+            }
+            if (size > found) adj[pos++] = k;
+
+            degree[i] = pos - adjStart[i];
+            for (int p=adjStart[i]; p<pos; p++)
+                occur[adj[p]]++;
+        }
+        adjStart[n] = pos;
+
+        // nodes of each value
+        radjStart[0] = 0;
+        for (int j=0; j<=k; j++)
+            radjStart[j+1] = radjStart[j] + occur[j];
+        System.arraycopy(radjStart, 0, bound, 0, k + 1);
+        for (int i=0; i<n; i++)
+            for (int p=adjStart[i]; p<adjStart[i+1]; p++)
+                radj[bound[adj[p]]++] = i;
+    }
+
+    /**
+     * Reads the bounds of each value
+     */
+    private void readBounds() throws PropagationFailureException {
+        for (int j=0; j<k; j++) {
+            if (counts!=null) {
+                lb[j] = counts[j].getMin().intValue();
+                ub[j] = counts[j].getMax().intValue();
+            }
+            else {
+                lb[j] = fixedLb[j];
+                ub[j] = fixedUb[j];
+            }
+            if (lb[j] > occur[j] || lb[j] > ub[j])
+                throw new PropagationFailureException("value cannot occur the required number of times");
+        }
+        lb[k] = 0;
+        ub[k] = n;
+    }
+
+    /**
+     * Repairs the flow so that every node is assigned a value in its domain
+     * and every value is assigned a number of nodes within its bounds
+     */
+    private void repairFlow() throws PropagationFailureException {
+        // release values removed from their nodes
+        for (int i=0; i<n; i++) {
+            int val = nodeFlow[i];
+            if (val >= 0 && !inDomain(i, val)) unassign(i);
+        }
+
+        // release nodes from values above their upper bounds
+        for (int j=0; j<=k; j++)
+            while (flowCount[j] > ub[j]) unassign(head[j]);
+
+        // assign each free node to a value with spare capacity if possible,
+        // searching for an augmenting path otherwise
+        for (int i=0; i<n; i++) {
+            if (nodeFlow[i] >= 0) continue;
+            for (int p=adjStart[i]; p<adjStart[i+1]; p++) {
+                int val = adj[p];
+                if (flowCount[val] < ub[val]) {
+                    assign(i, val);
+                    break;
+                }
+            }
+            if (nodeFlow[i] < 0 && !augmentUpper(i))
+                throw new PropagationFailureException("values cannot be assigned within upper bounds");
+        }
+
+        // move nodes to values below their lower bounds
+        for (int j=0; j<k; j++) {
+            while (flowCount[j] < lb[j]) {
+                if (!augmentLower(j))
+                    throw new PropagationFailureException("values cannot be assigned within lower bounds");
+            }
+        }
+    }
+
+    /**
+     * Returns true if a value is in the domain of a node
+     */
+    private boolean inDomain(int i, int val) {
+        if (val == k) return adj[adjStart[i+1] - 1] == k;
+        v.setIntValue(vals[val]);
+        return nodes[i].isInDomain(v);
+    }
+
+    /**
+     * Assigns a node to a value
+     */
+    private void assign(int i, int val) {
+        nodeFlow[i] = val;
+        flowCount[val]++;
+        prevNode[i] = -1;
+        nextNode[i] = head[val];
+        if (head[val] >= 0) prevNode[head[val]] = i;
+        head[val] = i;
+    }
+
+    /**
+     * Removes a node from the value it is assigned
+     */
+    private void unassign(int i) {
+        int val = nodeFlow[i];
+        if (prevNode[i] >= 0) nextNode[prevNode[i]] = nextNode[i];
+        else head[val] = nextNode[i];
+        if (nextNode[i] >= 0) prevNode[nextNode[i]] = prevNode[i];
+        flowCount[val]--;
+        nodeFlow[i] = -1;
+    }
+
+    /**
+     * Assigns a free node by moving nodes along a path of values to a value
+     * below its upper bound, found with a breadth first search
+     *
+     * @return true if node was assigned
+     */
+    private boolean augmentUpper(int start) {
+        stamp++;
+        int headIdx = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        while (headIdx < tail) {
+            int i = queue[headIdx++];
+            for (int p=adjStart[i]; p<adjStart[i+1]; p++) {
+                int val = adj[p];
+                if (val == nodeFlow[i] || mark[val] == stamp) continue;
+                mark[val] = stamp;
+                parentNode[val] = i;
+
+                if (flowCount[val] < ub[val]) {
+                    // move each node on path to the value that reached it
+                    int cur = val;
+                    while (true) {
+                        int j = parentNode[cur];
+                        int old = nodeFlow[j];
+                        if (old >= 0) unassign(j);
+                        assign(j, cur);
+                        if (j == start) return true;
+                        cur = old;
+                    }
+                }
+
+                for (int j=head[val]; j>=0; j=nextNode[j])
+                    queue[tail++] = j;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a node to a value below its lower bound by moving nodes along a
+     * path of values from a value above its lower bound, found with a
+     * breadth first search
+     *
+     * @return true if a node was added to the value
+     */
+    private boolean augmentLower(int start) {
+        stamp++;
+        mark[start] = stamp;
+        int headIdx = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        while (headIdx < tail) {
+            int val = queue[headIdx++];
+            for (int p=radjStart[val]; p<radjStart[val+1]; p++) {
+                int i = radj[p];
+                int from = nodeFlow[i];
+                if (mark[from] == stamp) continue;
+                mark[from] = stamp;
+                parentNode[from] = i;
+                parentValue[from] = val;
+
+                if (flowCount[from] > lb[from]) {
+                    // move each node on path to the value it was reached from
+                    int cur = from;
+                    while (cur != start) {
+                        int j = parentNode[cur];
+                        int to = parentValue[cur];
+                        unassign(j);
+                        assign(j, to);
+                        cur = to;
+                    }
+                    return true;
+                }
+                queue[tail++] = from;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the strongly connected components of the residual graph of the
+     * flow.  It has edges from nodes to values other than the one they are
+     * assigned, from values to their assigned nodes, from values below their
+     * upper bounds to a sink and from the sink to values above their lower
+     * bounds.  An edge between a node and a value that is not assigned
+     * belongs to some feasible flow if both are in the same component.
+     */
+    private void findComponents() {
+        int count = n + k + 2;
+        for (int i=0; i<count; i++) {
+            num[i] = 0;
+            edge[i] = 0;
+        }
+
+        int counter = 0;
+        int components = 0;
+        int top = 0;
+        for (int s=0; s<n; s++) {
+            if (num[s] != 0) continue;
+
+            int callTop = 0;
+            num[s] = low[s] = ++counter;
+            stack[top++] = s;
+            onStack[s] = true;
+            calls[callTop++] = s;
+
+            while (callTop > 0) {
+                int u = calls[callTop - 1];
+                int w = nextEdge(u);
+                if (w >= 0) {
+                    if (num[w] == 0) {
+                        num[w] = low[w] = ++counter;
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        calls[callTop++] = w;
+                    }
+                    else if (onStack[w] && num[w] < low[u])
+                        low[u] = num[w];
+                }
+                else {
+                    callTop--;
+                    if (low[u] == num[u]) {
+                        int w2;
+                        do {
+                            w2 = stack[--top];
+                            onStack[w2] = false;
+                            comp[w2] = components;
+                        } while (w2 != u);
+                        components++;
+                    }
+                    if (callTop > 0) {
+                        int parent = calls[callTop - 1];
+                        if (low[u] < low[parent]) low[parent] = low[u];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the next vertex reached by an edge from a vertex of the
+     * residual graph or -1 if no edges remain
+     */
+    private int nextEdge(int u) {
+        int sink = n + k + 1;
+
+        // node to values other than its own
+        if (u < n) {
+            int end = adjStart[u+1] - adjStart[u];
+            while (edge[u] < end) {
+                int val = adj[adjStart[u] + edge[u]++];
+                if (val != nodeFlow[u]) return n + val;
+            }
+            return -1;
+        }
+
+        // sink to values above their lower bounds
+        if (u == sink) {
+            while (edge[u] <= k) {
+                int val = edge[u]++;
+                if (flowCount[val] > lb[val]) return n + val;
+            }
+            return -1;
+        }
+
+        // value to its nodes, holding the next node plus one or -1 once the
+        // nodes are visited, followed by the sink if below its upper bound
+        int val = u - n;
+        if (edge[u] == -2) return -1;
+        if (edge[u] >= 0) {
+            int i = (edge[u] == 0) ? head[val] : edge[u] - 1;
+            if (i >= 0) {
+                edge[u] = (nextNode[i] >= 0) ? nextNode[i] + 1 : -1;
+                return i;
+            }
+        }
+        edge[u] = -2;
+        return (flowCount[val] < ub[val]) ? sink : -1;
+    }
+
+    /**
+     * Removes values whose edges join vertices of different components
+     */
+    private void filterNodes() throws PropagationFailureException {
+        Arrays.fill(bound, 0);
+        for (int i=0; i<n; i++) {
+            for (int p=adjStart[i]; p<adjStart[i+1]; p++) {
+                int val = adj[p];
+                if (val != nodeFlow[i] && comp[i] != comp[n + val]) {
+                    if (val < k) {
+                        v.setIntValue(vals[val]);
+                        nodes[i].removeValue(v);
+                    }
+                    else
+                        removeUnconstrained(i);
+                    occur[val]--;
+                    degree[i]--;
+                }
+            }
+            if (degree[i] == 1) bound[nodeFlow[i]]++;
+        }
+    }
+
+    /**
+     * Removes every value that is not constrained from a node
+     */
+    private void removeUnconstrained(int i) throws PropagationFailureException {
+        NumNode node = nodes[i];
+        int max = node.getMax().intValue();
+        int val = node.getMin().intValue();
+        while (true) {
+            int next = val;
+            if (val < max) {
+                v.setIntValue(val);
+                next = node.getNextHigher(v).intValue();
+            }
+            if (Arrays.binarySearch(vals, val) < 0) {
+                v.setIntValue(val);
+                node.removeValue(v);
+            }
+            if (next == val) break;
+            val = next;
+        }
+    }
+
+    /**
+     * Reduces count nodes to the number of nodes bound to and able to take
+     * each value, also using the total number of nodes when no node can take
+     * a value that is not constrained
+     */
+    private void filterCounts() throws PropagationFailureException {
+        int sumMin = 0;
+        int sumMax = 0;
+        for (int j=0; j<k; j++) {
+            lb[j] = Math.max(lb[j], bound[j]);
+            ub[j] = Math.min(ub[j], occur[j]);
+            sumMin += lb[j];
+            sumMax += ub[j];
+        }
+
+        boolean closed = (occur[k] == 0);
+        for (int j=0; j<k; j++) {
+            int min = lb[j];
+            int max = ub[j];
+            if (closed) {
+                min = Math.max(min, n - (sumMax - ub[j]));
+                max = Math.min(max, n - (sumMin - lb[j]));
+            }
+            v.setIntValue(min);
+            counts[j].setMin(v);
+            v.setIntValue(max);
+            counts[j].setMax(v);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointLongArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Scalar product arc over integer and long nodes enforcing a relation
+ * between the sum of coeffs[i]*nodes[i] and a constant
+ */
+public class LongScalarProductArc extends ScalarProductArc {
+    private long coeffs[];
+    private long rhs;
+
+    private long minContribs[];
+    private long maxContribs[];
+    private long minSum;
+    private long maxSum;
+
+    // contributions of terms before they changed since choicepoint
+    private ChoicePointLongArray cpMins;
+    private ChoicePointLongArray cpMaxs;
+
+    /**
+     * Constructor
+     *
+     * @param nodes     Nodes of terms, each of which must be unique
+     * @param coeffs    Non-zero coefficient of each node
+     * @param relation  Relation of sum to constant (EQ, NEQ, LEQ or GEQ)
+     * @param rhs       Constant sum is related to
+     */
+    public LongScalarProductArc(NumNode nodes[], long coeffs[], int relation, long rhs) {
+        super(nodes, relation);
+        this.coeffs = coeffs;
+        this.rhs = rhs;
+        this.minContribs = new long[nodes.length];
+        this.maxContribs = new long[nodes.length];
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void updateContribution(int idx) {
+        long c = coeffs[idx];
+        long lo = nodes[idx].getMin().longValue();
+        long hi = nodes[idx].getMax().longValue();
+        long cmin = (c > 0) ? c*lo : c*hi;
+        long cmax = (c > 0) ? c*hi : c*lo;
+
+        if (cmin==minContribs[idx] && cmax==maxContribs[idx]) return;
+
+        trail(idx);
+        minSum += cmin - minContribs[idx];
+        maxSum += cmax - maxContribs[idx];
+        minContribs[idx] = cmin;
+        maxContribs[idx] = cmax;
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void createContributionArrays(ChoicePointNumArraySet cpdata) {
+        if (cpdata==null) {
+            cpMins = null;
+            cpMaxs = null;
+        }
+        else {
+            cpMins = cpdata.newLongList();
+            cpMaxs = cpdata.newLongList();
+        }
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void saveContribution(int idx) {
+        cpMins.add(minContribs[idx]);
+        cpMaxs.add(maxContribs[idx]);
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void restoreContribution(int pos, int idx) {
+        minSum += cpMins.get(pos) - minContribs[idx];
+        maxSum += cpMaxs.get(pos) - maxContribs[idx];
+        minContribs[idx] = cpMins.get(pos);
+        maxContribs[idx] = cpMaxs.get(pos);
+    }
+
+    // javadoc inherited from ScalarProductArc
+    protected void filter() throws PropagationFailureException {
+        switch(relation) {
+            case LEQ:
+                filterMax();
+                break;
+
+            case GEQ:
+                filterMin();
+                break;
+
+            case EQ:
+                // reducing either side of the sums may allow the other to be reduced
+                long prevMin, prevMax;
+                do {
+                    prevMin = minSum;
+                    prevMax = maxSum;
+                    filterMax();
+                    filterMin();
+                } while (prevMin!=minSum || prevMax!=maxSum);
+                break;
+
+            default:
+                filterNeq();
+        }
+    }
+
+    /**
+     * Reduces terms so the sum cannot exceed the constant
+     */
+    private void filterMax() throws PropagationFailureException {
+        if (minSum > rhs)
+            throw new PropagationFailureException("scalar product cannot be less than or equal to " + rhs);
+
+        // no term can exceed the amount the constant exceeds the minimum sum
+        long slack = rhs - minSum;
+        if (maxSum - minSum <= slack) return;
+
+        for (int i=0; i<nodes.length; i++) {
+            if (maxContribs[i] - minContribs[i] <= slack) continue;
+
+            long c = coeffs[i];
+            long limit = minContribs[i] + slack;
+            if (c > 0) {
+                v.setLongValue(floorDiv(limit, c));
+                nodes[i].setMax(v);
+            }
+            else {
+                v.setLongValue(ceilDiv(limit, c));
+                nodes[i].setMin(v);
+            }
+            updateContribution(i);
+        }
+    }
+
+    /**
+     * Reduces terms so the sum cannot be less than the constant
+     */
+    private void filterMin() throws PropagationFailureException {
+        if (maxSum < rhs)
+            throw new PropagationFailureException("scalar product cannot be greater than or equal to " + rhs);
+
+        // no term can fall below its maximum by more than the maximum sum exceeds the constant
+        long slack = maxSum - rhs;
+        if (maxSum - minSum <= slack) return;
+
+        for (int i=0; i<nodes.length; i++) {
+            if (maxContribs[i] - minContribs[i] <= slack) continue;
+
+            long c = coeffs[i];
+            long limit = maxContribs[i] - slack;
+            if (c > 0) {
+                v.setLongValue(ceilDiv(limit, c));
+                nodes[i].setMin(v);
+            }
+            else {
+                v.setLongValue(floorDiv(limit, c));
+                nodes[i].setMax(v);
+            }
+            updateContribution(i);
+        }
+    }
+
+    /**
+     * Removes the value of the last unbound term that would make the sum
+     * equal to the constant
+     */
+    private void filterNeq() throws PropagationFailureException {
+        if (minSum==maxSum) {
+            if (minSum==rhs)
+                throw new PropagationFailureException("scalar product cannot differ from " + rhs);
+            return;
+        }
+
+        // locate single unbound term
+        int unbound = -1;
+        for (int i=0; i<nodes.length; i++) {
+            if (minContribs[i]!=maxContribs[i]) {
+                if (unbound >= 0) return;
+                unbound = i;
+            }
+        }
+
+        long remaining = rhs - (minSum - minContribs[unbound]);
+        long c = coeffs[unbound];
+        if (remaining % c == 0) {
+            v.setLongValue(remaining / c);
+            nodes[unbound].removeValue(v);
+            updateContribution(unbound);
+        }
+    }
+
+    /**
+     * Returns the largest integer less than or equal to a / b
+     */
+    private static long floorDiv(long a, long b) {
+        long q = a / b;
+        if ((a % b != 0) && ((a < 0) != (b < 0))) q--;
+        return q;
+    }
+
+    /**
+     * Returns the smallest integer greater than or equal to a / b
+     */
+    private static long ceilDiv(long a, long b) {
+        long q = a / b;
+        if ((a % b != 0) && ((a < 0) == (b < 0))) q++;
+        return q;
+    }
+}
@@ -0,0 +1,442 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.util.Automaton;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Arc requiring the values of a sequence of integer nodes to be accepted by
+ * a deterministic finite automaton.
+ * <p>
+ * The automaton is unfolded into a layered graph as described by Pesant,
+ * with a vertex for each state in each layer and an edge from layer i to
+ * layer i+1 for each transition whose value may be taken by node i.  Only
+ * edges on a path from the initial state in the first layer to an accepting
+ * state in the last layer can be part of an accepted sequence, so the arc
+ * keeps the number of live edges entering and leaving each vertex and the
+ * number of live edges for each value of each node.  When a value is removed
+ * from a node its edges are deleted; a vertex left without edges entering or
+ * leaving it has its remaining edges deleted, and a value left without edges
+ * is removed from its node.  The work done is proportional to the edges
+ * deleted.
+ * <p>
+ * Deleted edges are recorded on the choicepoint stack and restored along
+ * with their counts when the stack is popped.
+ */
+public class RegularArc extends GenericArc implements NumArc, ReversibleArc, ChoicePointEntryListener {
+    private NumNode nodes[];
+    private int n;
+    private MutableNumber v = new MutableNumber();
+    private IdentityHashMap<Node, Integer> positions;
+
+    // automaton, with transitions indexed in order of value
+    private int stateCount;
+    private int initialState;
+    private boolean accepting[];
+    private int transCount;
+    private int transFrom[];
+    private int transTo[];
+    private int transValue[];
+    private int transValueIndex[];
+
+    // distinct values of transitions and transitions of each value, state
+    // left and state entered stored as offsets into lists of transitions
+    private int alphabet[];
+    private int valueStart[];
+    private int outStart[];
+    private int outTrans[];
+    private int inStart[];
+    private int inTrans[];
+
+    // edge i*transCount+t is transition t from layer i to layer i+1, and
+    // vertex i*stateCount+q is state q in layer i
+    private boolean live[];
+    private int inDegree[];
+    private int outDegree[];
+    private int support[];
+
+    // vertices whose edges must be deleted
+    private int dead[];
+    private int deadCount;
+
+    private boolean initialized;
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpEdges;
+
+    /**
+     * Constructor
+     *
+     * @param nodes     Nodes holding each value of the sequence
+     * @param dfa       Automaton accepting valid sequences
+     */
+    public RegularArc(NumNode nodes[], Automaton dfa) {
+        super(nodes, nodes);
+        this.nodes = nodes;
+        this.n = nodes.length;
+
+        sourceDependencies = new int[n];
+        positions = new IdentityHashMap<Node, Integer>();
+        for (int i=0; i<n; i++) {
+            sourceDependencies[i] = DomainChangeType.DOMAIN;
+            positions.put(nodes[i], new Integer(i));
+        }
+
+        stateCount = dfa.getStateCount();
+        initialState = dfa.getInitialState();
+        accepting = new boolean[stateCount];
+        for (int q=0; q<stateCount; q++)
+            accepting[q] = dfa.isAccepting(q);
+
+        // sort transitions by value
+        transCount = dfa.getTransitionCount();
+        long keys[] = new long[transCount];
+        for (int t=0; t<transCount; t++)
+            keys[t] = ((long) dfa.getTransitionValue(t) << 32) | t;
+        Arrays.sort(keys);
+        transFrom = new int[transCount];
+        transTo = new int[transCount];
+        transValue = new int[transCount];
+        for (int t=0; t<transCount; t++) {
+            int orig = (int) (keys[t] & 0xffffffffL);
+            transFrom[t] = dfa.getTransitionFrom(orig);
+            transTo[t] = dfa.getTransitionTo(orig);
+            transValue[t] = dfa.getTransitionValue(orig);
+        }
+
+        // distinct values
+        int distinct = 0;
+        for (int t=0; t<transCount; t++)
+            if (t==0 || transValue[t] != transValue[t-1]) distinct++;
+        alphabet = new int[distinct];
+        valueStart = new int[distinct + 1];
+        transValueIndex = new int[transCount];
+        distinct = 0;
+        for (int t=0; t<transCount; t++) {
+            if (t==0 || transValue[t] != transValue[t-1]) {
+                alphabet[distinct] = transValue[t];
+                valueStart[distinct++] = t;
+            }
+            transValueIndex[t] = distinct - 1;
+        }
+        valueStart[distinct] = transCount;
+
+        // transitions leaving and entering each state
+        outStart = new int[stateCount + 1];
+        inStart = new int[stateCount + 1];
+        for (int t=0; t<transCount; t++) {
+            outStart[transFrom[t] + 1]++;
+            inStart[transTo[t] + 1]++;
+        }
+        for (int q=0; q<stateCount; q++) {
+            outStart[q + 1] += outStart[q];
+            inStart[q + 1] += inStart[q];
+        }
+        outTrans = new int[transCount];
+        inTrans = new int[transCount];
+        int outPos[] = (int[]) outStart.clone();
+        int inPos[] = (int[]) inStart.clone();
+        for (int t=0; t<transCount; t++) {
+            outTrans[outPos[transFrom[t]]++] = t;
+            inTrans[inPos[transTo[t]]++] = t;
+        }
+
+        live = new boolean[n * transCount];
+        inDegree = new int[(n + 1) * stateCount];
+        outDegree = new int[(n + 1) * stateCount];
+        support = new int[n * alphabet.length];
+        // a vertex is added once when the arc is built and at most once
+        // more for each side losing its last edge
+        dead = new int[3 * (n + 1) * stateCount];
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        if (!initialized) {
+            initialize();
+            return;
+        }
+        for (int i=0; i<n; i++)
+            pruneNode(i);
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        Integer pos = (Integer) positions.get(src);
+        if (!initialized || pos==null)
+            propagate();
+        else
+            pruneNode(pos.intValue());
+    }
+
+    /**
+     * Makes every edge live, then deletes the edges of values not in the
+     * domains of the nodes along with edges on no path from the initial state
+     * to an accepting state, and restricts each node to the values of its
+     * remaining edges
+     */
+    private void initialize() throws PropagationFailureException {
+        Arrays.fill(live, true);
+        Arrays.fill(inDegree, 0);
+        Arrays.fill(outDegree, 0);
+        for (int i=0; i<n; i++) {
+            int layer = i * stateCount;
+            int next = layer + stateCount;
+            for (int t=0; t<transCount; t++) {
+                outDegree[layer + transFrom[t]]++;
+                inDegree[next + transTo[t]]++;
+            }
+            for (int k=0; k<alphabet.length; k++)
+                support[i * alphabet.length + k] = valueStart[k + 1] - valueStart[k];
+        }
+        initialized = true;
+
+        // mark where the arc was built so it is rebuilt if this is undone
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpEdges.add(-1);
+        }
+
+        // vertices that cannot start or end a path, including all but the
+        // initial state of the first layer and accepting states of the last
+        deadCount = 0;
+        for (int i=0; i<=n; i++) {
+            for (int q=0; q<stateCount; q++) {
+                int vertex = i * stateCount + q;
+                boolean entered = (i == 0) ? q == initialState : inDegree[vertex] > 0;
+                boolean left = (i == n) ? accepting[q] : outDegree[vertex] > 0;
+                if (!entered || !left)
+                    dead[deadCount++] = vertex;
+            }
+        }
+        deleteDeadEdges();
+
+        for (int i=0; i<n; i++) {
+            deleteMissingValues(i);
+            restrictNode(i);
+        }
+    }
+
+    /**
+     * Deletes the edges of values removed from a node
+     */
+    private void pruneNode(int i) throws PropagationFailureException {
+        deadCount = 0;
+        deleteMissingValues(i);
+    }
+
+    /**
+     * Deletes the edges of each value of a node that has live edges but is
+     * no longer in the domain of the node
+     */
+    private void deleteMissingValues(int i) throws PropagationFailureException {
+        int base = i * alphabet.length;
+        int layer = i * transCount;
+        for (int k=0; k<alphabet.length; k++) {
+            if (support[base + k] == 0) continue;
+            v.setIntValue(alphabet[k]);
+            if (nodes[i].isInDomain(v)) continue;
+
+            for (int t=valueStart[k]; t<valueStart[k+1]; t++) {
+                if (live[layer + t])
+                    deleteEdge(i, t, false);
+            }
+            deleteDeadEdges();
+        }
+    }
+
+    /**
+     * Removes the values of a node that have no live edges, including values
+     * that no transition reads
+     */
+    private void restrictNode(int i) throws PropagationFailureException {
+        int base = i * alphabet.length;
+        int lo = 0;
+        while (lo < alphabet.length && support[base + lo] == 0) lo++;
+        int hi = alphabet.length - 1;
+        while (hi >= lo && support[base + hi] == 0) hi--;
+        if (lo > hi)
+            throw new PropagationFailureException("no sequence accepted by automaton");
+
+        v.setIntValue(alphabet[lo]);
+        nodes[i].setMin(v);
+        v.setIntValue(alphabet[hi]);
+        nodes[i].setMax(v);
+
+        // remove values between the bounds that have no live edges
+        int val = alphabet[lo];
+        while (val < alphabet[hi]) {
+            v.setIntValue(val);
+            val = nodes[i].getNextHigher(v).intValue();
+            int k = Arrays.binarySearch(alphabet, val);
+            if (k < 0 || support[base + k] == 0) {
+                v.setIntValue(val);
+                nodes[i].removeValue(v);
+            }
+        }
+    }
+
+    /**
+     * Deletes the live edges of each dead vertex, which may leave other
+     * vertices dead or values without edges
+     */
+    private void deleteDeadEdges() throws PropagationFailureException {
+        while (deadCount > 0) {
+            int vertex = dead[--deadCount];
+            int i = vertex / stateCount;
+            int q = vertex - i * stateCount;
+
+            // edges entering from previous layer
+            if (i > 0) {
+                int layer = (i - 1) * transCount;
+                for (int k=inStart[q]; k<inStart[q+1]; k++) {
+                    int t = inTrans[k];
+                    if (live[layer + t])
+                        deleteEdge(i - 1, t, true);
+                }
+            }
+
+            // edges leaving to next layer
+            if (i < n) {
+                int layer = i * transCount;
+                for (int k=outStart[q]; k<outStart[q+1]; k++) {
+                    int t = outTrans[k];
+                    if (live[layer + t])
+                        deleteEdge(i, t, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes a live edge, marking vertices left without edges on one side as
+     * dead and removing its value from the node if it was the last edge of
+     * that value
+     *
+     * @param i             Layer the edge leaves
+     * @param t             Transition of the edge
+     * @param removeValue   True if the value should be removed from the node
+     *                      once it has no edges
+     */
+    private void deleteEdge(int i, int t, boolean removeValue) throws PropagationFailureException {
+        int edge = i * transCount + t;
+        live[edge] = false;
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpEdges.add(edge);
+        }
+
+        int from = i * stateCount + transFrom[t];
+        int to = from - transFrom[t] + stateCount + transTo[t];
+        if (--outDegree[from] == 0) dead[deadCount++] = from;
+        if (--inDegree[to] == 0) dead[deadCount++] = to;
+
+        int k = transValueIndex[t];
+        if (--support[i * alphabet.length + k] == 0 && removeValue) {
+            v.setIntValue(alphabet[k]);
+            nodes[i].removeValue(v);
+        }
+    }
+
+    /**
+     * Restores the counts of a deleted edge
+     */
+    private void restoreEdge(int edge) {
+        int i = edge / transCount;
+        int t = edge - i * transCount;
+        live[edge] = true;
+        int from = i * stateCount + transFrom[t];
+        outDegree[from]++;
+        inDegree[from - transFrom[t] + stateCount + transTo[t]]++;
+        support[i * alphabet.length + transValueIndex[t]]++;
+    }
+
+    /**
+     * Deletes an edge again without propagating the deletion
+     */
+    private void redeleteEdge(int edge) {
+        int i = edge / transCount;
+        int t = edge - i * transCount;
+        live[edge] = false;
+        int from = i * stateCount + transFrom[t];
+        outDegree[from]--;
+        inDegree[from - transFrom[t] + stateCount + transTo[t]]--;
+        support[i * alphabet.length + transValueIndex[t]]--;
+    }
+
+    // javadoc inherited from ReversibleArc
+    public void domainsRestored() {
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (this.cpdata!=null && cps!=null)
+            throw new IllegalStateException("Choice point stack already set for arc");
+
+        if (cps==null) {
+            if (cpdata!=null) {
+                cpdata.close();
+                cpdata = null;
+                cpEdges = null;
+            }
+        }
+        else {
+            cpdata = cps.newNumStackSet(this);
+            cpEdges = cpdata.newIntList();
+        }
+
+        // changes to nodes may have been missed
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public boolean choicePointStackSet() {
+        return cpdata!=null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // restore edges deleted since choicepoint was pushed, rebuilding
+        // instead if the arc was built since then
+        for (int k=cpEdges.size()-1; initialized && k>=0; k--) {
+            int edge = cpEdges.get(k);
+            if (edge < 0 || live[edge])
+                initialized = false;
+            else
+                restoreEdge(edge);
+        }
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // delete edges again when a delta is pushed back onto the stack
+        for (int k=0; initialized && k<cpEdges.size(); k++) {
+            int edge = cpEdges.get(k);
+            if (edge < 0 || !live[edge])
+                initialized = false;
+            else
+                redeleteEdge(edge);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeListener;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Base class for arcs enforcing a relation between a weighted sum of nodes
+ * and a constant, such as 3x + 2y - z <= 10.  The arc keeps the minimum and
+ * maximum contribution of each term along with their sums, and listens for
+ * range changes of its nodes so the sums are adjusted in constant time each
+ * time a bound changes instead of being recalculated over every term.
+ * <p>
+ * The previous contribution of each changed term is recorded in arrays
+ * belonging to the choicepoint stack and restored when the stack is popped.
+ * If the stack is not set, the sums are recalculated each time the arc is
+ * propagated.
+ */
+public abstract class ScalarProductArc extends GenericArc implements NumArc, ReversibleArc, NodeChangeListener, ChoicePointEntryListener {
+    protected NumNode nodes[];
+    protected int relation;
+    protected MutableNumber v = new MutableNumber();
+
+    private ChoicePointNumArraySet cpdata;
+    private boolean refresh;
+    private boolean rebuilding;
+
+    // indices of terms whose contributions changed since choicepoint and
+    // whether the sums were rebuilt since choicepoint
+    private ChoicePointIntArray cpIndices;
+    private ChoicePointIntArray cpRebuilt;
+
+    /**
+     * Constructor
+     *
+     * @param nodes     Nodes of terms, each of which must be unique
+     * @param relation  Relation of sum to constant (EQ, NEQ, LEQ or GEQ)
+     */
+    protected ScalarProductArc(NumNode nodes[], int relation) {
+        super(nodes, nodes);
+        this.nodes = nodes;
+        this.relation = relation;
+        this.refresh = true;
+
+        // sums only depend on the bounds of nodes
+        sourceDependencies = new int[nodes.length];
+        for (int i=0; i<nodes.length; i++)
+            sourceDependencies[i] = DomainChangeType.RANGE;
+    }
+
+    /**
+     * Updates the contribution of a term from the current bounds of its node
+     *
+     * @param idx   Index of term
+     */
+    protected abstract void updateContribution(int idx);
+
+    /**
+     * Creates the arrays recording previous contributions of terms
+     *
+     * @param cpdata    Set of arrays belonging to the choicepoint stack or null
+     *                  if the arrays should be released
+     */
+    protected abstract void createContributionArrays(ChoicePointNumArraySet cpdata);
+
+    /**
+     * Records the contribution of a term before it is changed
+     *
+     * @param idx   Index of term
+     */
+    protected abstract void saveContribution(int idx);
+
+    /**
+     * Restores the contribution of a term recorded since the choicepoint
+     *
+     * @param pos   Position of record since the choicepoint
+     * @param idx   Index of term
+     */
+    protected abstract void restoreContribution(int pos, int idx);
+
+    /**
+     * Reduces the bounds of the nodes based on the sums of contributions
+     *
+     * @throws PropagationFailureException  If relation cannot be satisfied
+     */
+    protected abstract void filter() throws PropagationFailureException;
+
+    /**
+     * Must be called by subclasses before changing the contribution of a term
+     * so the change can be rolled back
+     *
+     * @param idx   Index of term
+     */
+    protected final void trail(int idx) {
+        // contributions are not recorded while sums are rebuilt since
+        // the rebuild itself is rolled back
+        if (cpdata==null || rebuilding) return;
+
+        saveContribution(idx);
+        cpIndices.add(idx);
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        // sums are rebuilt when node changes were not heard
+        if (refresh || cpdata==null) {
+            // a trailing stack only shows the records of the current
+            // choicepoint once the arrays have been touched
+            if (cpdata!=null) {
+                cpdata.touch();
+                if (cpRebuilt.size()==0) cpRebuilt.add(1);
+            }
+
+            rebuilding = true;
+            for (int i=0; i<nodes.length; i++)
+                updateContribution(i);
+            rebuilding = false;
+            refresh = false;
+        }
+
+        filter();
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        propagate();
+    }
+
+    // javadoc inherited from NodeChangeListener
+    public void nodeChange(NodeChangeEvent ev) {
+        if (!refresh)
+            updateContribution(((Integer) ev.getCallbackValue()).intValue());
+    }
+
+    // javadoc inherited from ReversibleArc
+    public void domainsRestored() {
+        refresh = true;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (this.cpdata!=null && cps!=null)
+            throw new IllegalStateException("Choice point stack already set for arc");
+
+        if (cps==null) {
+            if (cpdata!=null) {
+                for (int i=0; i<nodes.length; i++)
+                    nodes[i].removeRangeChangeListener(this);
+                cpdata.close();
+                cpdata = null;
+                cpIndices = null;
+                cpRebuilt = null;
+                createContributionArrays(null);
+            }
+        }
+        else {
+            cpdata = cps.newNumStackSet(this);
+            cpIndices = cpdata.newIntList();
+            cpRebuilt = cpdata.newIntList();
+            createContributionArrays(cpdata);
+            for (int i=0; i<nodes.length; i++)
+                nodes[i].addRangeChangeListener(this, new Integer(i));
+        }
+
+        // changes to nodes may have been missed
+        refresh = true;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public boolean choicePointStackSet() {
+        return cpdata!=null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // a delta of changes was pushed back onto the stack, which restores
+        // the domains of the nodes without firing events
+        if (cpIndices.size() > 0 || cpRebuilt.size() > 0)
+            refresh = true;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // restore contributions in reverse order of changes
+        for (int i=cpIndices.size()-1; i>=0; i--)
+            restoreContribution(i, cpIndices.get(i));
+
+        // contributions prior to a rebuild may not match the restored domains
+        if (cpRebuilt.size() > 0)
+            refresh = true;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+}
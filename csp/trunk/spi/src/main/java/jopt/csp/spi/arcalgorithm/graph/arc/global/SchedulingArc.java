@@ -0,0 +1,403 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointLongArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Base class for arcs over the start times of tasks with fixed durations
+ * that share a resource.  Only the bounds of the start times are changed.
+ * <p>
+ * Subclasses implement rules that raise the earliest start times and reduce
+ * the latest completion times of tasks.  Each rule is applied once to the
+ * tasks as they are and once to the tasks mirrored in time, where earliest
+ * starts become negated latest completions, so that rules written for one
+ * direction filter both.  Rules are repeated until the bounds no longer
+ * change.
+ * <p>
+ * The orders in which the tasks are sorted for each frame of time, along
+ * with the energies and envelopes of a Theta-Lambda tree holding every task,
+ * are kept between propagations.  A propagation sorts the orders again from
+ * where they were left and updates only the parts of the tree over tasks
+ * whose bounds changed.  Each change is recorded on the choicepoint stack
+ * and undone when the stack is popped, so the orders and tree match the
+ * restored domains.
+ */
+public abstract class SchedulingArc extends GenericArc implements NumArc, ReversibleArc, ChoicePointEntryListener {
+    protected NumNode starts[];
+    protected int n;
+    protected int duration[];
+    protected long energy[];
+    protected long capacity;
+    private MutableNumber v = new MutableNumber();
+
+    // bounds of tasks and bounds found by rules, as they are and mirrored
+    private long est[];
+    private long lct[];
+    private long lower[];
+    private long upper[];
+    private long mirrorEst[];
+    private long mirrorLct[];
+    private long mirrorLower[];
+    private long mirrorUpper[];
+
+    // orders of tasks for each frame, and the energy and envelope of each
+    // vertex of a tree holding every task in Theta for each frame
+    private int orderCount;
+    private int orders[][];
+    private int leaves;
+    private long thetaE[][];
+    private long thetaEnv[][];
+    private int sorted[];
+    private int buffer[];
+
+    private boolean initialized;
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpOrderSlots;
+    private ChoicePointIntArray cpOrderTasks;
+    private ChoicePointIntArray cpTreeSlots;
+    private ChoicePointLongArray cpTreeValues;
+
+    /**
+     * Constructor
+     *
+     * @param starts        Start time of each task
+     * @param duration      Duration of each task
+     * @param energy        Energy of each task
+     * @param capacity      Capacity of resource
+     * @param orderCount    Number of orders of tasks sorted by subclass in
+     *                      each frame, the first of which is by earliest start
+     */
+    protected SchedulingArc(NumNode starts[], int duration[], long energy[], long capacity, int orderCount) {
+        super(starts, starts);
+        this.starts = starts;
+        this.n = starts.length;
+        this.duration = duration;
+        this.energy = energy;
+        this.capacity = capacity;
+
+        sourceDependencies = new int[n];
+        for (int i=0; i<n; i++)
+            sourceDependencies[i] = DomainChangeType.RANGE;
+
+        est = new long[n];
+        lct = new long[n];
+        lower = new long[n];
+        upper = new long[n];
+        mirrorEst = new long[n];
+        mirrorLct = new long[n];
+        mirrorLower = new long[n];
+        mirrorUpper = new long[n];
+
+        this.orderCount = orderCount;
+        orders = new int[2 * orderCount][n];
+        leaves = 1;
+        while (leaves < n) leaves <<= 1;
+        thetaE = new long[2][2 * leaves];
+        thetaEnv = new long[2][2 * leaves];
+        sorted = new int[n];
+        buffer = new int[n];
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        propagate();
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        if (n < 2) return;
+        if (!initialized) initialize();
+
+        boolean changed = true;
+        while (changed) {
+            for (int i=0; i<n; i++) {
+                est[i] = starts[i].getMin().longValue();
+                lct[i] = starts[i].getMax().longValue() + duration[i];
+                mirrorEst[i] = -lct[i];
+                mirrorLct[i] = -est[i];
+                lower[i] = est[i];
+                upper[i] = lct[i];
+                mirrorLower[i] = mirrorEst[i];
+                mirrorUpper[i] = mirrorLct[i];
+            }
+
+            filter(0, est, lct, lower, upper);
+            filter(1, mirrorEst, mirrorLct, mirrorLower, mirrorUpper);
+
+            changed = false;
+            for (int i=0; i<n; i++) {
+                long min = Math.max(lower[i], -mirrorUpper[i]);
+                long max = Math.min(upper[i], -mirrorLower[i]) - duration[i];
+                if (min > est[i]) {
+                    v.setIntValue((int) Math.min(min, Integer.MAX_VALUE));
+                    starts[i].setMin(v);
+                    changed = true;
+                }
+                if (max < lct[i] - duration[i]) {
+                    v.setIntValue((int) Math.max(max, Integer.MIN_VALUE));
+                    starts[i].setMax(v);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies rules to tasks in one frame of time
+     *
+     * @param frame     0 for tasks as they are, 1 for tasks mirrored in time
+     * @param est       Earliest start of each task
+     * @param lct       Latest completion of each task
+     * @param lower     Earliest start found for each task, to be raised by rules
+     * @param upper     Latest completion found for each task, to be reduced by rules
+     */
+    protected abstract void filter(int frame, long est[], long lct[], long lower[], long upper[]) throws PropagationFailureException;
+
+    /**
+     * Sorts one of the orders of tasks kept for a frame by ascending keys,
+     * starting from the order left by the last propagation
+     *
+     * @param frame     Frame of time of the order
+     * @param order     Index of the order, 0 being the order by earliest start
+     * @param keys      Key of each task
+     * @return tasks in ascending order of keys, which must not be modified
+     */
+    protected final int[] sortTasks(int frame, int order, long keys[]) {
+        int slot = frame * orderCount + order;
+        int tasks[] = orders[slot];
+        System.arraycopy(tasks, 0, sorted, 0, n);
+
+        // orders change little between propagations, so an insertion sort is
+        // tried first, giving up for a merge sort if too many tasks move
+        int moves = 0;
+        for (int i=1; i<n && moves<=4*n; i++) {
+            int task = sorted[i];
+            int j = i;
+            while (j > 0 && keys[sorted[j-1]] > keys[task]) {
+                sorted[j] = sorted[j-1];
+                j--;
+            }
+            sorted[j] = task;
+            moves += i - j;
+        }
+        if (moves > 4*n) sort(sorted, keys, buffer);
+
+        for (int i=0; i<n; i++) {
+            if (tasks[i] != sorted[i]) {
+                if (cpdata!=null) {
+                    cpdata.touch();
+                    cpOrderSlots.add(slot * n + i);
+                    cpOrderTasks.add(tasks[i]);
+                }
+                tasks[i] = sorted[i];
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Empties a tree and adds every task to Theta at the capacity of the
+     * resource, updating the tree kept for the frame for tasks whose earliest
+     * start or position changed.  The order of tasks by earliest start must
+     * have been sorted for the frame.
+     *
+     * @param tree      Tree to fill
+     * @param frame     Frame of time of tasks
+     * @param est       Earliest start of each task
+     */
+    protected final void loadTheta(ThetaLambdaTree tree, int frame, long est[]) {
+        int byEst[] = orders[frame * orderCount];
+        long e[] = thetaE[frame];
+        long env[] = thetaEnv[frame];
+
+        for (int k=0; k<n; k++) {
+            int task = byEst[k];
+            int v = leaves + k;
+            long taskEnv = capacity * est[task] + energy[task];
+            if (e[v] == energy[task] && env[v] == taskEnv) continue;
+
+            // update vertices above leaf until their values do not change
+            setTree(frame, v, energy[task], taskEnv);
+            for (v >>= 1; v > 0; v >>= 1) {
+                int l = 2 * v;
+                int r = l + 1;
+                long ev = e[l] + e[r];
+                long envv = Math.max(env[r], env[l] + e[r]);
+                if (e[v] == ev && env[v] == envv) break;
+                setTree(frame, v, ev, envv);
+            }
+        }
+
+        tree.loadTheta(byEst, est, energy, capacity, e, env);
+    }
+
+    /**
+     * Changes the energy and envelope of a vertex of the tree kept for a frame,
+     * recording the previous values
+     */
+    private void setTree(int frame, int v, long e, long env) {
+        if (cpdata!=null) {
+            cpdata.touch();
+            int slot = (frame * 2 * leaves + v) * 2;
+            cpTreeSlots.add(slot);
+            cpTreeValues.add(thetaE[frame][v]);
+            cpTreeSlots.add(slot + 1);
+            cpTreeValues.add(thetaEnv[frame][v]);
+        }
+        thetaE[frame][v] = e;
+        thetaEnv[frame][v] = env;
+    }
+
+    /**
+     * Resets orders to the tasks in index order and trees to hold no tasks
+     */
+    private void initialize() {
+        for (int i=0; i<orders.length; i++) {
+            for (int j=0; j<n; j++)
+                orders[i][j] = j;
+        }
+        for (int f=0; f<2; f++) {
+            for (int v=1; v<2*leaves; v++) {
+                thetaE[f][v] = 0;
+                thetaEnv[f][v] = ThetaLambdaTree.NONE;
+            }
+        }
+        initialized = true;
+
+        // mark where the state was reset so it is reset again if this is undone
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpOrderSlots.add(-1);
+            cpOrderTasks.add(-1);
+        }
+    }
+
+    // javadoc inherited from ReversibleArc
+    public void domainsRestored() {
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (this.cpdata!=null && cps!=null)
+            throw new IllegalStateException("Choice point stack already set for arc");
+
+        if (cps==null) {
+            if (cpdata!=null) {
+                cpdata.close();
+                cpdata = null;
+                cpOrderSlots = null;
+                cpOrderTasks = null;
+                cpTreeSlots = null;
+                cpTreeValues = null;
+            }
+        }
+        else {
+            cpdata = cps.newNumStackSet(this);
+            cpOrderSlots = cpdata.newIntList();
+            cpOrderTasks = cpdata.newIntList();
+            cpTreeSlots = cpdata.newIntList();
+            cpTreeValues = cpdata.newLongList();
+        }
+
+        // changes to nodes may have been missed
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public boolean choicePointStackSet() {
+        return cpdata!=null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // undo changes made since choicepoint was pushed in reverse order,
+        // unless the state was reset since, in which case it is reset again
+        for (int k=cpOrderSlots.size()-1; initialized && k>=0; k--) {
+            int slot = cpOrderSlots.get(k);
+            if (slot < 0) {
+                initialized = false;
+                break;
+            }
+            orders[slot / n][slot % n] = cpOrderTasks.get(k);
+        }
+
+        for (int k=cpTreeSlots.size()-1; initialized && k>=0; k--) {
+            int slot = cpTreeSlots.get(k);
+            int v = slot / 2;
+            if ((slot & 1) == 0)
+                thetaE[v / (2 * leaves)][v % (2 * leaves)] = cpTreeValues.get(k);
+            else
+                thetaEnv[v / (2 * leaves)][v % (2 * leaves)] = cpTreeValues.get(k);
+        }
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // when a delta is pushed back onto the stack the orders and tree are
+        // left as they were, since the next propagation brings any order and
+        // vertex up to date with the domains
+    }
+
+    /**
+     * Sorts tasks by ascending keys with a stable merge sort
+     *
+     * @param tasks     Tasks to sort, which are sorted in place
+     * @param keys      Key of each task
+     * @param buffer    Array at least as long as tasks used while sorting
+     */
+    protected static void sort(int tasks[], long keys[], int buffer[]) {
+        sort(tasks, tasks.length, keys, buffer);
+    }
+
+    /**
+     * Sorts the first entries of an array by ascending keys with a stable
+     * merge sort
+     *
+     * @param tasks     Tasks to sort, which are sorted in place
+     * @param len       Number of entries to sort
+     * @param keys      Key of each task
+     * @param buffer    Array at least as long as len used while sorting
+     */
+    protected static void sort(int tasks[], int len, long keys[], int buffer[]) {
+        int src[] = tasks;
+        int dst[] = buffer;
+        for (int width=1; width<len; width*=2) {
+            for (int lo=0; lo<len; lo+=2*width) {
+                int mid = Math.min(lo + width, len);
+                int hi = Math.min(lo + 2*width, len);
+                int a = lo;
+                int b = mid;
+                for (int k=lo; k<hi; k++) {
+                    if (b >= hi || (a < mid && keys[src[a]] <= keys[src[b]]))
+                        dst[k] = src[a++];
+                    else
+                        dst[k] = src[b++];
+                }
+            }
+            int swap[] = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != tasks) System.arraycopy(src, 0, tasks, 0, len);
+    }
+}
@@ -0,0 +1,314 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import java.util.Arrays;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.ReversibleArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ReversibleSparseBitSet;
+import jopt.csp.spi.util.MutableNumber;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Arc requiring the values of its nodes to match one of the rows of a table
+ * of allowed tuples.  The rows that remain valid are kept in a reversible
+ * sparse bit set, and each value of each node has a mask of the rows that
+ * support it, built once when the arc is created.  When values are removed
+ * from a node, the rows holding them are removed from the set 64 at a time,
+ * after which any value whose mask no longer intersects the set is removed
+ * from its node.
+ * <p>
+ * The last word found to support each value is remembered so that most
+ * values are confirmed by examining a single word of the set.
+ */
+public class TableArc extends GenericArc implements NumArc, ReversibleArc, ChoicePointEntryListener {
+    private NumNode nodes[];
+    private MutableNumber v = new MutableNumber();
+
+    // rows that remain valid
+    private ReversibleSparseBitSet rows;
+
+    // distinct values of each node in ascending order and rows supporting each
+    private int values[][];
+    private long supports[][][];
+    private int residues[][];
+
+    // values of each node that remain in its domain
+    private boolean live[][];
+    private int liveCount[];
+
+    // values found to be removed from each node while updating the rows
+    private int removed[];
+    private int removedCount;
+
+    private boolean initialized;
+
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpNodes;
+    private ChoicePointIntArray cpValues;
+
+    /**
+     * Constructor
+     *
+     * @param nodes     Nodes of each column of the table
+     * @param tuples    Rows of the table listing allowed values of each node
+     */
+    public TableArc(NumNode nodes[], int tuples[][]) {
+        super(nodes, nodes);
+        this.nodes = nodes;
+        this.rows = new ReversibleSparseBitSet(tuples.length);
+
+        int wordCount = rows.getWordCount();
+        values = new int[nodes.length][];
+        supports = new long[nodes.length][][];
+        residues = new int[nodes.length][];
+        live = new boolean[nodes.length][];
+        liveCount = new int[nodes.length];
+
+        int maxValues = 0;
+        for (int i=0; i<nodes.length; i++) {
+            // determine distinct values of column
+            int sorted[] = new int[tuples.length];
+            for (int j=0; j<tuples.length; j++)
+                sorted[j] = tuples[j][i];
+            Arrays.sort(sorted);
+
+            int count = 0;
+            for (int j=0; j<sorted.length; j++)
+                if (count==0 || sorted[j]!=sorted[count-1])
+                    sorted[count++] = sorted[j];
+
+            values[i] = new int[count];
+            System.arraycopy(sorted, 0, values[i], 0, count);
+            maxValues = Math.max(maxValues, count);
+
+            // build masks of rows supporting each value
+            supports[i] = new long[count][wordCount];
+            for (int j=0; j<tuples.length; j++) {
+                int valueIdx = Arrays.binarySearch(values[i], tuples[j][i]);
+                supports[i][valueIdx][j >>> 6] |= 1L << (j & 63);
+            }
+
+            residues[i] = new int[count];
+            live[i] = new boolean[count];
+        }
+
+        removed = new int[maxValues];
+    }
+
+    // javadoc inherited from Arc
+    public void propagate() throws PropagationFailureException {
+        if (!initialized) initialize();
+
+        // remove rows holding values removed from nodes
+        int changed = -1;
+        int changeCount = 0;
+        for (int i=0; i<nodes.length; i++) {
+            if (updateRows(i)) {
+                changed = i;
+                changeCount++;
+            }
+        }
+
+        // remove values no longer supported by a row, skipping a node if it
+        // is the only one whose values were removed
+        for (int i=0; i<nodes.length; i++) {
+            if (changeCount!=1 || i!=changed)
+                filterNode(i);
+        }
+    }
+
+    // javadoc inherited from Arc
+    public void propagate(Node src) throws PropagationFailureException {
+        propagate();
+    }
+
+    /**
+     * Makes every row and value available and restricts each node to the
+     * values of its column
+     */
+    private void initialize() throws PropagationFailureException {
+        if (rows.getWordCount()==0)
+            throw new PropagationFailureException("table has no rows");
+
+        rows.fill();
+        for (int i=0; i<nodes.length; i++) {
+            Arrays.fill(live[i], true);
+            liveCount[i] = values[i].length;
+
+            int vals[] = values[i];
+            v.setIntValue(vals[0]);
+            nodes[i].setMin(v);
+            v.setIntValue(vals[vals.length-1]);
+            nodes[i].setMax(v);
+
+            // remove values between the values of the column
+            for (int j=0; j<vals.length-1; j++) {
+                if (vals[j+1] - vals[j] > 1)
+                    nodes[i].removeRange(new Integer(vals[j] + 1), new Integer(vals[j+1] - 1));
+            }
+        }
+
+        initialized = true;
+    }
+
+    /**
+     * Removes rows holding values that were removed from a node since it was
+     * last examined.  Since the domain of the node never contains a value
+     * that has already been removed, the number of values to locate is known
+     * and the search stops once they are found.
+     *
+     * @param i     Index of node
+     * @return true if values were removed from node
+     */
+    private boolean updateRows(int i) throws PropagationFailureException {
+        int count = liveCount[i] - nodes[i].getSize();
+        if (count <= 0) return false;
+
+        int vals[] = values[i];
+        boolean valueLive[] = live[i];
+        removedCount = 0;
+        for (int k=0; count > 0 && k<vals.length; k++) {
+            if (valueLive[k]) {
+                v.setIntValue(vals[k]);
+                if (!nodes[i].isInDomain(v)) {
+                    removeValue(i, k);
+                    removed[removedCount++] = k;
+                    count--;
+                }
+            }
+        }
+
+        // build mask from whichever of the removed or remaining values is smaller
+        long valueSupports[][] = supports[i];
+        rows.clearMask();
+        if (removedCount < liveCount[i]) {
+            for (int j=0; j<removedCount; j++)
+                rows.addToMask(valueSupports[removed[j]]);
+            rows.reverseMask();
+        }
+        else {
+            for (int k=0; k<vals.length; k++)
+                if (valueLive[k]) rows.addToMask(valueSupports[k]);
+        }
+        rows.intersectWithMask();
+
+        if (rows.isEmpty())
+            throw new PropagationFailureException("no row of table remains valid");
+
+        return true;
+    }
+
+    /**
+     * Removes values of a node that are not supported by a remaining row
+     *
+     * @param i     Index of node
+     */
+    private void filterNode(int i) throws PropagationFailureException {
+        int vals[] = values[i];
+        boolean valueLive[] = live[i];
+        long valueSupports[][] = supports[i];
+        int valueResidues[] = residues[i];
+
+        for (int k=0; k<vals.length; k++) {
+            if (valueLive[k] && !rows.intersects(valueSupports[k], valueResidues[k])) {
+                int offset = rows.intersectIndex(valueSupports[k]);
+                if (offset >= 0)
+                    valueResidues[k] = offset;
+                else {
+                    v.setIntValue(vals[k]);
+                    nodes[i].removeValue(v);
+                    removeValue(i, k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a value of a node as removed, recording it so it can be rolled back
+     */
+    private void removeValue(int i, int k) {
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpNodes.add(i);
+            cpValues.add(k);
+        }
+        live[i][k] = false;
+        liveCount[i]--;
+    }
+
+    // javadoc inherited from ReversibleArc
+    public void domainsRestored() {
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (this.cpdata!=null && cps!=null)
+            throw new IllegalStateException("Choice point stack already set for arc");
+
+        if (cps==null) {
+            if (cpdata!=null) {
+                cpdata.close();
+                cpdata = null;
+                cpNodes = null;
+                cpValues = null;
+            }
+        }
+        else {
+            cpdata = cps.newNumStackSet(this);
+            cpNodes = cpdata.newIntList();
+            cpValues = cpdata.newIntList();
+        }
+        rows.setChoicePointStack(cps);
+
+        // changes to nodes may have been missed
+        initialized = false;
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public boolean choicePointStackSet() {
+        return cpdata!=null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // restore values removed since choicepoint was pushed, ignoring any
+        // that were restored when the arc was reinitialized
+        for (int j=cpNodes.size()-1; j>=0; j--) {
+            int i = cpNodes.get(j);
+            int k = cpValues.get(j);
+            if (!live[i][k]) {
+                live[i][k] = true;
+                liveCount[i]++;
+            }
+        }
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // remove values again when a delta is pushed back onto the stack
+        for (int j=0; j<cpNodes.size(); j++) {
+            int i = cpNodes.get(j);
+            int k = cpValues.get(j);
+            if (live[i][k]) {
+                live[i][k] = false;
+                liveCount[i]--;
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+/**
+ * Balanced binary tree over tasks sorted by earliest start time, used by the
+ * scheduling arcs to compute the energy envelope of a set of tasks in
+ * O(log n) time per change as described by Vilim.  Each task is either
+ * absent, in the set Theta or in the set Lambda of gray tasks, of which at
+ * most one may be added to Theta when computing the envelope.
+ * <p>
+ * For a resource of capacity C, the envelope of a set is the greatest value
+ * of C * est + e over subsets of the set, where est is the earliest start of
+ * the subset and e is its energy.  For a unary resource, with a capacity of
+ * one and energy equal to duration, this is the earliest completion time of
+ * the set.  A second envelope with a reduced capacity is kept for the
+ * adjustment phase of cumulative edge finding.
+ */
+public class ThetaLambdaTree {
+    static final long NONE = Long.MIN_VALUE / 4;
+
+    private int size;
+    private int leafOf[];
+    private int taskOf[];
+    private long est[];
+    private long energy[];
+    private long capacity;
+    private long reducedCapacity;
+
+    // values of each vertex of tree, leaves starting at index size
+    private long e[];
+    private long env[];
+    private long eLambda[];
+    private long envLambda[];
+    private long envReduced[];
+
+    /**
+     * Creates a tree able to hold a number of tasks
+     */
+    public ThetaLambdaTree(int tasks) {
+        size = 1;
+        while (size < tasks) size <<= 1;
+        leafOf = new int[tasks];
+        taskOf = new int[size];
+        est = new long[tasks];
+        energy = new long[tasks];
+        e = new long[2 * size];
+        env = new long[2 * size];
+        eLambda = new long[2 * size];
+        envLambda = new long[2 * size];
+        envReduced = new long[2 * size];
+    }
+
+    /**
+     * Empties the tree and assigns leaves to tasks
+     *
+     * @param order             Tasks in ascending order of earliest start
+     * @param est               Earliest start of each task
+     * @param energy            Energy of each task
+     * @param capacity          Capacity of resource
+     * @param reducedCapacity   Capacity used for the reduced envelope
+     */
+    public void reset(int order[], long est[], long energy[], long capacity, long reducedCapacity) {
+        this.capacity = capacity;
+        this.reducedCapacity = reducedCapacity;
+        for (int k=0; k<order.length; k++) {
+            int task = order[k];
+            leafOf[task] = size + k;
+            taskOf[k] = task;
+            this.est[task] = est[task];
+            this.energy[task] = energy[task];
+        }
+        for (int v=1; v<2*size; v++) {
+            e[v] = 0;
+            env[v] = NONE;
+            eLambda[v] = 0;
+            envLambda[v] = NONE;
+            envReduced[v] = NONE;
+        }
+    }
+
+    /**
+     * Fills Theta with every task from the energies and envelopes of a tree
+     * over the same number of tasks that already holds every task in Theta,
+     * leaving Lambda empty.  The reduced capacity is the capacity.
+     *
+     * @param order     Tasks in ascending order of earliest start
+     * @param est       Earliest start of each task
+     * @param energy    Energy of each task
+     * @param capacity  Capacity of resource
+     * @param thetaE    Energy of each vertex of the tree holding every task
+     * @param thetaEnv  Envelope of each vertex of the tree holding every task
+     */
+    public void loadTheta(int order[], long est[], long energy[], long capacity, long thetaE[], long thetaEnv[]) {
+        this.capacity = capacity;
+        this.reducedCapacity = capacity;
+        for (int k=0; k<order.length; k++) {
+            int task = order[k];
+            leafOf[task] = size + k;
+            taskOf[k] = task;
+            this.est[task] = est[task];
+            this.energy[task] = energy[task];
+        }
+        System.arraycopy(thetaE, 0, e, 0, 2 * size);
+        System.arraycopy(thetaE, 0, eLambda, 0, 2 * size);
+        System.arraycopy(thetaEnv, 0, env, 0, 2 * size);
+        System.arraycopy(thetaEnv, 0, envLambda, 0, 2 * size);
+        System.arraycopy(thetaEnv, 0, envReduced, 0, 2 * size);
+    }
+
+    /**
+     * Adds a task to Theta
+     */
+    public void addTheta(int task) {
+        int v = leafOf[task];
+        e[v] = energy[task];
+        env[v] = capacity * est[task] + energy[task];
+        eLambda[v] = e[v];
+        envLambda[v] = env[v];
+        envReduced[v] = reducedCapacity * est[task] + energy[task];
+        update(v);
+    }
+
+    /**
+     * Moves a task to Lambda
+     */
+    public void addLambda(int task) {
+        int v = leafOf[task];
+        e[v] = 0;
+        env[v] = NONE;
+        eLambda[v] = energy[task];
+        envLambda[v] = capacity * est[task] + energy[task];
+        envReduced[v] = NONE;
+        update(v);
+    }
+
+    /**
+     * Removes a task from the tree
+     */
+    public void remove(int task) {
+        int v = leafOf[task];
+        e[v] = 0;
+        env[v] = NONE;
+        eLambda[v] = 0;
+        envLambda[v] = NONE;
+        envReduced[v] = NONE;
+        update(v);
+    }
+
+    /**
+     * Returns true if a task is in Theta
+     */
+    public boolean inTheta(int task) {
+        return env[leafOf[task]] != NONE;
+    }
+
+    /**
+     * Recomputes the vertices above a leaf
+     */
+    private void update(int v) {
+        for (v >>= 1; v > 0; v >>= 1) {
+            int l = 2 * v;
+            int r = l + 1;
+            e[v] = e[l] + e[r];
+            env[v] = Math.max(env[r], env[l] + e[r]);
+            eLambda[v] = Math.max(eLambda[l] + e[r], e[l] + eLambda[r]);
+            envLambda[v] = Math.max(envLambda[r], Math.max(env[l] + eLambda[r], envLambda[l] + e[r]));
+            envReduced[v] = Math.max(envReduced[r], envReduced[l] + e[r]);
+        }
+    }
+
+    /**
+     * Returns the envelope of Theta or a very small value if Theta is empty
+     */
+    public long getEnvelope() {
+        return env[1];
+    }
+
+    /**
+     * Returns the greatest envelope of Theta with at most one task of Lambda
+     */
+    public long getLambdaEnvelope() {
+        return envLambda[1];
+    }
+
+    /**
+     * Returns the envelope of Theta at the reduced capacity
+     */
+    public long getReducedEnvelope() {
+        return envReduced[1];
+    }
+
+    /**
+     * Returns the task of Lambda responsible for the Lambda envelope, which
+     * must be greater than the envelope of Theta
+     */
+    public int getResponsibleLambda() {
+        int v = 1;
+        boolean envelope = true;
+        while (v < size) {
+            int l = 2 * v;
+            int r = l + 1;
+            if (envelope) {
+                if (envLambda[v] == envLambda[r])
+                    v = r;
+                else if (envLambda[v] == env[l] + eLambda[r]) {
+                    v = r;
+                    envelope = false;
+                }
+                else
+                    v = l;
+            }
+            else {
+                if (eLambda[v] == eLambda[l] + e[r])
+                    v = l;
+                else
+                    v = r;
+            }
+        }
+        return taskOf[v - size];
+    }
+
+    /**
+     * Returns the greatest value of C * est + e over the subsets of Theta
+     * made up of the tasks from some leaf onwards, considering only leaves
+     * at or before the last leaf whose reduced envelope exceeds a threshold.
+     * This is the envelope of the tasks up to that leaf plus the energy of
+     * the tasks after it.
+     *
+     * @param threshold     Value the reduced envelope must exceed
+     * @return envelope or a very small value if no leaf exceeds threshold
+     */
+    public long getEnvelopeBefore(long threshold) {
+        if (envReduced[1] <= threshold) return NONE;
+
+        // descend to last leaf whose reduced envelope of the tasks from it
+        // onwards exceeds threshold
+        int v = 1;
+        long after = 0;
+        while (v < size) {
+            int l = 2 * v;
+            int r = l + 1;
+            if (envReduced[r] + after > threshold)
+                v = r;
+            else {
+                after += e[r];
+                v = l;
+            }
+        }
+
+        // envelope of leaves up to and including v
+        long prefixEnv = env[v];
+        long prefixE = e[v];
+        for (; v > 1; v >>= 1) {
+            if ((v & 1) == 1) {
+                prefixEnv = Math.max(prefixEnv, env[v - 1] + prefixE);
+                prefixE += e[v - 1];
+            }
+        }
+        return prefixEnv + after;
+    }
+}
@@ -0,0 +1,127 @@
+package jopt.csp.spi.arcalgorithm.graph.arc.global;
+
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.util.NumberMath;
+import jopt.csp.util.DoubleUtil;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Element arc over an array of nodes enforcing result == sources[index].
+ * Positions whose nodes cannot overlap the result are removed from the index
+ * and the result is reduced to the bounds of the nodes at the remaining
+ * positions.  Once the index is bound, the result and the node at the index
+ * are reduced to each other's domains.
+ * <p>
+ * Only the remaining positions are examined, which are tracked by the base
+ * class in a set that is rolled back with the choicepoint stack.
+ */
+public class VariableElementArc extends ElementArc {
+    private NumNode sources[];
+    private boolean real;
+    private double precision;
+
+    /**
+     * Constructor
+     *
+     * @param sources   Array of nodes
+     * @param index     Node referencing a position in the array
+     * @param result    Node equal to the node at the index
+     */
+    public VariableElementArc(NumNode sources[], NumNode index, NumNode result) {
+        super(allNodes(sources, index, result), index, result, sources.length);
+        this.sources = sources;
+
+        this.real = NumberMath.isRealType(result.getNumberType());
+        this.precision = Math.max(DoubleUtil.DEFAULT_PRECISION, result.getPrecision());
+        for (int i=0; i<sources.length; i++) {
+            real |= NumberMath.isRealType(sources[i].getNumberType());
+            precision = Math.max(precision, sources[i].getPrecision());
+        }
+    }
+
+    /**
+     * Returns array of all nodes referenced by the arc
+     */
+    private static Node[] allNodes(NumNode sources[], NumNode index, NumNode result) {
+        Node nodes[] = new Node[sources.length + 2];
+        nodes[0] = index;
+        nodes[1] = result;
+        System.arraycopy(sources, 0, nodes, 2, sources.length);
+        return nodes;
+    }
+
+    // javadoc inherited from ElementArc
+    protected void resetSupports() {
+    }
+
+    // javadoc inherited from ElementArc
+    protected void pruneResult() throws PropagationFailureException {
+        // every remaining position is examined when result is updated
+    }
+
+    /**
+     * Returns true if the bounds of a node overlap the bounds of the result
+     */
+    private boolean overlapsResult(NumNode node) {
+        if (real) {
+            return DoubleUtil.compare(node.getMax().doubleValue(), result.getMin().doubleValue(), precision) >= 0 &&
+                DoubleUtil.compare(node.getMin().doubleValue(), result.getMax().doubleValue(), precision) <= 0;
+        }
+        else {
+            return node.getMax().longValue() >= result.getMin().longValue() &&
+                node.getMin().longValue() <= result.getMax().longValue();
+        }
+    }
+
+    /**
+     * Compares two bounds of nodes
+     */
+    private int compare(Number n1, Number n2) {
+        if (real)
+            return Double.compare(n1.doubleValue(), n2.doubleValue());
+        else
+            return (n1.longValue() < n2.longValue()) ? -1 : ((n1.longValue() == n2.longValue()) ? 0 : 1);
+    }
+
+    // javadoc inherited from ElementArc
+    protected void updateResult() throws PropagationFailureException {
+        // remove positions whose nodes cannot equal the result while
+        // determining bounds of remaining nodes
+        int lowest = -1;
+        int highest = -1;
+        for (int i=first; i<=last; i++) {
+            if (!live[i]) continue;
+
+            NumNode node = sources[i];
+            if (!overlapsResult(node)) {
+                removePosition(i, true);
+                continue;
+            }
+
+            if (lowest < 0 || compare(node.getMin(), sources[lowest].getMin()) < 0)
+                lowest = i;
+            if (highest < 0 || compare(node.getMax(), sources[highest].getMax()) > 0)
+                highest = i;
+        }
+
+        if (lowest < 0)
+            throw new PropagationFailureException("no element available to result");
+
+        // result cannot exceed bounds of remaining nodes
+        result.setMin(sources[lowest].getMin());
+        result.setMax(sources[highest].getMax());
+
+        // node at a bound index is equal to the result
+        if (liveCount == 1) {
+            NumNode node = sources[lowest];
+            node.setRange(result.getMin(), result.getMax());
+            result.setRange(node.getMin(), node.getMax());
+
+            if (!real && node.getNumberType()==result.getNumberType()) {
+                node.setDomain(result.getDomain());
+                result.setDomain(node.getDomain());
+            }
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package jopt.csp.spi.arcalgorithm.graph.node;
 
-import java.util.HashMap;
-import java.util.Iterator;
-
 import jopt.csp.spi.arcalgorithm.domain.DomainChangeEvent;
 import jopt.csp.spi.arcalgorithm.domain.DomainChangeListener;
 import jopt.csp.spi.util.DomainChangeType;
@@ -10,10 +7,11 @@ import jopt.csp.spi.util.DomainChangeType;
 public abstract class AbstractNode implements Node, NodeChangeSource {
     private String name;
     
-    private HashMap<NodeChangeListener, Object> domainListeners;
-    private HashMap<NodeChangeListener, Object> rangeListeners;
-    private HashMap<NodeChangeListener, Object> valueListeners;
+    private ListenerArray domainListeners;
+    private ListenerArray rangeListeners;
+    private ListenerArray valueListeners;
     private boolean inGraph;
+    private int graphIndex;
     
     protected NodeChangeEvent event;
     
@@ -25,10 +23,11 @@ public abstract class AbstractNode implements Node, NodeChangeSource {
             throw new RuntimeException("node cannot be created without a name");
         
         this.name = name;
-        this.domainListeners = new HashMap<NodeChangeListener, Object>();
-        this.rangeListeners = new HashMap<NodeChangeListener, Object>();
-        this.valueListeners = new HashMap<NodeChangeListener, Object>();
+        this.domainListeners = ListenerArray.EMPTY;
+        this.rangeListeners = ListenerArray.EMPTY;
+        this.valueListeners = ListenerArray.EMPTY;
         this.event = new NodeChangeEvent(this);
+        this.graphIndex = -1;
     }
     
     /**
@@ -36,14 +35,14 @@ public abstract class AbstractNode implements Node, NodeChangeSource {
      * events
      */
     public void addDomainChangeListener(NodeChangeListener listener, Object callbackData) {
-        if (listener!=null) domainListeners.put(listener, callbackData);
+        if (listener!=null) domainListeners = domainListeners.add(listener, callbackData);
     }
 
     /**
      * Removes a domain listener from this node
      */
     public void removeDomainChangeListener(NodeChangeListener listener) {
-        if (listener!=null) domainListeners.remove(listener);
+        if (listener!=null) domainListeners = domainListeners.remove(listener);
     }
     
     /**
@@ -51,28 +50,28 @@ public abstract class AbstractNode implements Node, NodeChangeSource {
      * events
      */
     public void addRangeChangeListener(NodeChangeListener listener, Object callbackData) {
-        if (listener!=null) rangeListeners.put(listener, callbackData);
+        if (listener!=null) rangeListeners = rangeListeners.add(listener, callbackData);
     }
 
     /**
      * Removes a range listener from this node
      */
     public void removeRangeChangeListener(NodeChangeListener listener) {
-        if (listener!=null) rangeListeners.remove(listener);
+        if (listener!=null) rangeListeners = rangeListeners.remove(listener);
     }
     
     /**
      * Adds a listener to this node only interested in value events
      */
     public void addValueChangeListener(NodeChangeListener listener, Object callbackData) {
-        if (listener!=null) valueListeners.put(listener, callbackData);
+        if (listener!=null) valueListeners = valueListeners.add(listener, callbackData);
     }
 
     /**
      * Removes a value listener from this node
      */
     public void removeValueChangeListener(NodeChangeListener listener) {
-        if (listener!=null) valueListeners.remove(listener);
+        if (listener!=null) valueListeners = valueListeners.remove(listener);
     }
     
     /**
@@ -104,32 +103,15 @@ public abstract class AbstractNode implements Node, NodeChangeSource {
      */
     protected void fireChangeEvent(int type) {
         // Notify value listeners
-        if (type == DomainChangeType.VALUE) {
-            Iterator<NodeChangeListener> iterator = valueListeners.keySet().iterator();
-            while (iterator.hasNext()) {
-                NodeChangeListener listener = (NodeChangeListener) iterator.next();
-                event.setCallbackValue(valueListeners.get(listener));
-                listener.nodeChange(event);
-            }
-        }
+        if (type == DomainChangeType.VALUE)
+            valueListeners.fire(event);
 
         // Notify range listeners
-        if (type >= DomainChangeType.RANGE) {
-            Iterator<NodeChangeListener> iterator = rangeListeners.keySet().iterator();
-            while (iterator.hasNext()) {
-                NodeChangeListener listener = (NodeChangeListener) iterator.next();
-                event.setCallbackValue(rangeListeners.get(listener));
-                listener.nodeChange(event);
-            }
-        }
+        if (type >= DomainChangeType.RANGE)
+            rangeListeners.fire(event);
         
         // Notify domain listeners
-        Iterator<NodeChangeListener> iterator = domainListeners.keySet().iterator();
-        while (iterator.hasNext()) {
-            NodeChangeListener listener = (NodeChangeListener) iterator.next();
-            event.setCallbackValue(domainListeners.get(listener));
-            listener.nodeChange(event);
-        }
+        domainListeners.fire(event);
     }
 
     /**
@@ -155,6 +137,22 @@ public abstract class AbstractNode implements Node, NodeChangeSource {
      */
     public void removedFromGraph() {
     	inGraph = false;
+    	graphIndex = -1;
+    }
+
+    /**
+     * Returns the index assigned to the node by the graph containing it
+     * or -1 if the node is not contained in a graph
+     */
+    public int getGraphIndex() {
+        return graphIndex;
+    }
+
+    /**
+     * Sets the index assigned to the node by the graph containing it
+     */
+    public void setGraphIndex(int graphIndex) {
+        this.graphIndex = graphIndex;
     }
 
     /**
@@ -228,4 +226,81 @@ public abstract class AbstractNode implements Node, NodeChangeSource {
         // javadoc is inherited
         public void choicePointPush() {}
     }
+    
+    /**
+     * Listeners of a node along with the callback data of each listener.  The
+     * arrays are never modified once created; adding or removing a listener
+     * creates a new <code>ListenerArray</code> so events can be fired without
+     * allocating an iterator.
+     */
+    private static class ListenerArray {
+        private final static ListenerArray EMPTY = new ListenerArray(new NodeChangeListener[0], new Object[0]);
+        
+        private NodeChangeListener listeners[];
+        private Object callbacks[];
+        
+        private ListenerArray(NodeChangeListener listeners[], Object callbacks[]) {
+            this.listeners = listeners;
+            this.callbacks = callbacks;
+        }
+        
+        /**
+         * Returns listeners with a listener added, or with the callback data
+         * replaced if the listener already exists
+         */
+        public ListenerArray add(NodeChangeListener listener, Object callbackData) {
+            int cnt = listeners.length;
+            for (int i=0; i<cnt; i++) {
+                if (listeners[i].equals(listener)) {
+                    Object newCallbacks[] = (Object[]) callbacks.clone();
+                    newCallbacks[i] = callbackData;
+                    return new ListenerArray(listeners, newCallbacks);
+                }
+            }
+            
+            NodeChangeListener newListeners[] = new NodeChangeListener[cnt + 1];
+            System.arraycopy(listeners, 0, newListeners, 0, cnt);
+            newListeners[cnt] = listener;
+            
+            Object newCallbacks[] = new Object[cnt + 1];
+            System.arraycopy(callbacks, 0, newCallbacks, 0, cnt);
+            newCallbacks[cnt] = callbackData;
+            
+            return new ListenerArray(newListeners, newCallbacks);
+        }
+        
+        /**
+         * Returns listeners with a listener removed
+         */
+        public ListenerArray remove(NodeChangeListener listener) {
+            int cnt = listeners.length;
+            for (int i=0; i<cnt; i++) {
+                if (listeners[i].equals(listener)) {
+                    if (cnt == 1) return EMPTY;
+                    
+                    NodeChangeListener newListeners[] = new NodeChangeListener[cnt - 1];
+                    System.arraycopy(listeners, 0, newListeners, 0, i);
+                    System.arraycopy(listeners, i+1, newListeners, i, cnt - i - 1);
+                    
+                    Object newCallbacks[] = new Object[cnt - 1];
+                    System.arraycopy(callbacks, 0, newCallbacks, 0, i);
+                    System.arraycopy(callbacks, i+1, newCallbacks, i, cnt - i - 1);
+                    
+                    return new ListenerArray(newListeners, newCallbacks);
+                }
+            }
+            
+            return this;
+        }
+        
+        /**
+         * Notifies each listener of an event along with its callback data
+         */
+        public void fire(NodeChangeEvent event) {
+            for (int i=0; i<listeners.length; i++) {
+                event.setCallbackValue(callbacks[i]);
+                listeners[i].nodeChange(event);
+            }
+        }
+    }
 }
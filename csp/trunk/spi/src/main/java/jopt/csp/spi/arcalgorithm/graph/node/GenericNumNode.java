@@ -387,6 +387,8 @@ public abstract class GenericNumNode extends AbstractNode implements NodeChangeL
      * Clears the delta set for this node's domain
      */
     public void clearDelta() {
+        if (cpdata!=null) cpdata.touch();
+        
         // clear delta for all child nodes that are not specifically in any graph
         for (int i=0; i<nodes.length; i++) {
         	Node n = nodes[i];
@@ -61,4 +61,15 @@ public interface Node extends ChoicePointDataSource, Storable {
      * Indicates to node when it is disconnected from a graph
      */
     public void removedFromGraph();
+
+    /**
+     * Returns the index assigned to the node by the graph containing it
+     * or -1 if the node is not contained in a graph
+     */
+    public int getGraphIndex();
+
+    /**
+     * Sets the index assigned to the node by the graph containing it
+     */
+    public void setGraphIndex(int graphIndex);
 }
\ No newline at end of file
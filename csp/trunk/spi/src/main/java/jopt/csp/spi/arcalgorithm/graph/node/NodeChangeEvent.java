@@ -30,6 +30,13 @@ public class NodeChangeEvent {
         return this.node;
     }
 
+    /**
+     * Sets node that generated event, allowing an event object to be reused
+     */
+    public void setNode(Node node) {
+        this.node = node;
+    }
+
     /**
      * Sets type of event that was generated
      */
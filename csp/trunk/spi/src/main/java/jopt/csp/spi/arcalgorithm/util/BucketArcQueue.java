@@ -0,0 +1,292 @@
+package jopt.csp.spi.arcalgorithm.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+
+/**
+ * Represents a queue of arcs to be propagated.  Arcs are kept in a separate
+ * first-in-first-out bucket for each complexity value so that arcs are retrieved
+ * in the same order as the {@link ArcQueue}, but without searching or shifting a
+ * sorted list.
+ * <p>
+ * Each queue is assigned a membership flag that is recorded on the arcs it
+ * contains, allowing duplicate checks to be performed without scanning the queue.
+ * Queues that may contain the same arc at the same time must be given different
+ * flags.  A queue with a flag of <code>0</code> does not check for duplicates and
+ * will append every arc that is added, unless arcs are added with
+ * {@link #addAllUnmarked(Arc[], int, int)}.
+ */
+public class BucketArcQueue {
+    private final static int INITIAL_BUCKET_SIZE = 8;
+
+    private int membershipFlag;
+    private Arc buckets[][];
+    private int heads[];
+    private int counts[];
+    private int minBucket;
+    private int size;
+    private int requiredMinComplexity;
+
+    /**
+     * Constructor
+     *
+     * @param membershipFlag    Single bit flag recorded on arcs contained in this queue,
+     *                          or 0 if duplicate arcs should not be detected
+     */
+    public BucketArcQueue(int membershipFlag) {
+        this.membershipFlag = membershipFlag;
+        this.buckets = new Arc[Arc.SCHEDULE+1][];
+        this.heads = new int[buckets.length];
+        this.counts = new int[buckets.length];
+        this.minBucket = buckets.length;
+    }
+
+    /**
+     * Removes all arcs in the queue
+     */
+    public void clear() {
+        for (int b=minBucket; b<buckets.length; b++) {
+            int cnt = counts[b];
+            if (cnt > 0) {
+                Arc bucket[] = buckets[b];
+                int mask = bucket.length - 1;
+                for (int i=0; i<cnt; i++) {
+                    int idx = (heads[b] + i) & mask;
+                    unmark(bucket[idx]);
+                    bucket[idx] = null;
+                }
+                heads[b] = 0;
+                counts[b] = 0;
+            }
+        }
+
+        size = 0;
+        minBucket = buckets.length;
+    }
+
+    /**
+     * Returns size of arc queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if queue has a next arc available
+     */
+    public boolean hasNext() {
+        return size > 0;
+    }
+
+    /**
+     * Returns next arc on queue or null if none is available
+     */
+    public Arc next() {
+        if (size == 0) return null;
+
+        // locate lowest complexity bucket containing an arc
+        while (counts[minBucket] == 0) minBucket++;
+
+        Arc bucket[] = buckets[minBucket];
+        int head = heads[minBucket];
+        Arc arc = bucket[head];
+        bucket[head] = null;
+        heads[minBucket] = (head + 1) & (bucket.length - 1);
+        counts[minBucket]--;
+        size--;
+
+        unmark(arc);
+        return arc;
+    }
+
+    /**
+     * Adds an arc to the queue
+     */
+    public void add(Arc arc) {
+        int complexity = arc.getComplexity();
+        if (complexity<requiredMinComplexity || complexity<0) return;
+
+        // check if arc is already waiting in this queue
+        if (membershipFlag != 0) {
+            int membership = arc.getQueueMembership();
+            if ((membership & membershipFlag) != 0) return;
+            arc.setQueueMembership(membership | membershipFlag);
+        }
+
+        // append arc to end of bucket for complexity
+        ensureBucketCapacity(complexity);
+        Arc bucket[] = buckets[complexity];
+        bucket[(heads[complexity] + counts[complexity]) & (bucket.length - 1)] = arc;
+        counts[complexity]++;
+        size++;
+
+        if (complexity < minBucket) minBucket = complexity;
+    }
+
+    /**
+     * Removes an arc from the queue
+     */
+    public boolean remove(Arc arc) {
+        int complexity = arc.getComplexity();
+        if (complexity<0 || complexity>=buckets.length || counts[complexity]==0) return false;
+        if (membershipFlag != 0 && (arc.getQueueMembership() & membershipFlag) == 0) return false;
+
+        // locate arc within bucket
+        Arc bucket[] = buckets[complexity];
+        int mask = bucket.length - 1;
+        int head = heads[complexity];
+        int cnt = counts[complexity];
+        for (int i=0; i<cnt; i++) {
+            if (bucket[(head + i) & mask] == arc) {
+                // shift remaining arcs forward to fill gap
+                for (int j=i+1; j<cnt; j++)
+                    bucket[(head + j - 1) & mask] = bucket[(head + j) & mask];
+                bucket[(head + cnt - 1) & mask] = null;
+                counts[complexity]--;
+                size--;
+
+                unmark(arc);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds a collection of arcs to the queue
+     */
+    public void addAll(Collection<Arc> col) {
+        Iterator<Arc> i = col.iterator();
+        while (i.hasNext())
+            add((Arc) i.next());
+    }
+
+    /**
+     * Adds the first <code>count</code> arcs of an array to the queue
+     */
+    public void addAll(Arc arcs[], int count) {
+        for (int i=0; i<count; i++)
+            add(arcs[i]);
+    }
+    
+    /**
+     * Adds the first <code>count</code> arcs of an array to the queue, skipping
+     * arcs that carry a mark and recording the mark on each arc that is added.
+     * This allows a queue without a membership flag, such as one of many queues
+     * that may contain the same arc, to detect duplicates while it is filled
+     * from several arrays.  The mark must be removed with {@link #unmarkAll(int)}
+     * once the queue is filled so it is not seen by other queues.
+     *
+     * @param mark  Single bit flag that is not the membership flag of any queue
+     */
+    public void addAllUnmarked(Arc arcs[], int count, int mark) {
+        for (int i=0; i<count; i++) {
+            Arc arc = arcs[i];
+            int membership = arc.getQueueMembership();
+            int complexity = arc.getComplexity();
+            if ((membership & mark) == 0 && complexity>=requiredMinComplexity && complexity>=0) {
+                arc.setQueueMembership(membership | mark);
+                add(arc);
+            }
+        }
+    }
+
+    /**
+     * Removes a mark recorded by {@link #addAllUnmarked(Arc[], int, int)} from
+     * every arc in the queue
+     */
+    public void unmarkAll(int mark) {
+        for (int b=minBucket; b<buckets.length; b++) {
+            Arc bucket[] = buckets[b];
+            int mask = (bucket == null) ? 0 : bucket.length - 1;
+            for (int i=0; i<counts[b]; i++) {
+                Arc arc = bucket[(heads[b] + i) & mask];
+                arc.setQueueMembership(arc.getQueueMembership() & ~mark);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest complexity value for an arc in the queue
+     */
+    public int getMinComplexity() {
+        if (size == 0) return -1;
+        while (counts[minBucket] == 0) minBucket++;
+        return minBucket;
+    }
+
+    /**
+     * Returns minimum complexity value that arc must return to be added to the queue
+     */
+    public int getRequiredMinComplexity() {
+        return requiredMinComplexity;
+    }
+
+    /**
+     * Sets the minimum complexity value that arc must return to be added to the queue
+     */
+    public void setRequiredMinComplexity(int requiredMinComplexity) {
+        this.requiredMinComplexity = requiredMinComplexity;
+    }
+
+    /**
+     * Clears membership flag of this queue on an arc leaving the queue
+     */
+    private void unmark(Arc arc) {
+        if (membershipFlag != 0)
+            arc.setQueueMembership(arc.getQueueMembership() & ~membershipFlag);
+    }
+
+    /**
+     * Ensures a bucket exists for a complexity and has room for another arc
+     */
+    private void ensureBucketCapacity(int complexity) {
+        // expand bucket arrays if complexity is beyond known values
+        if (complexity >= buckets.length) {
+            int newLength = complexity + 1;
+
+            Arc newBuckets[][] = new Arc[newLength][];
+            System.arraycopy(buckets, 0, newBuckets, 0, buckets.length);
+            int newHeads[] = new int[newLength];
+            System.arraycopy(heads, 0, newHeads, 0, heads.length);
+            int newCounts[] = new int[newLength];
+            System.arraycopy(counts, 0, newCounts, 0, counts.length);
+
+            if (minBucket == buckets.length) minBucket = newLength;
+            buckets = newBuckets;
+            heads = newHeads;
+            counts = newCounts;
+        }
+
+        Arc bucket[] = buckets[complexity];
+        if (bucket == null) {
+            buckets[complexity] = new Arc[INITIAL_BUCKET_SIZE];
+        }
+
+        // double size of bucket when full, unwrapping circular buffer
+        else if (counts[complexity] == bucket.length) {
+            Arc newBucket[] = new Arc[bucket.length * 2];
+            int head = heads[complexity];
+            System.arraycopy(bucket, head, newBucket, 0, bucket.length - head);
+            System.arraycopy(bucket, 0, newBucket, bucket.length - head, head);
+            buckets[complexity] = newBucket;
+            heads[complexity] = 0;
+        }
+    }
+
+    public String toString() {
+        StringBuffer buf = new StringBuffer("[");
+        for (int b=minBucket; b<buckets.length; b++) {
+            Arc bucket[] = buckets[b];
+            for (int i=0; i<counts[b]; i++) {
+                if (buf.length()>1) buf.append(", ");
+                buf.append(bucket[(heads[b] + i) & (bucket.length - 1)]);
+            }
+        }
+        buf.append("]");
+        return buf.toString();
+    }
+}
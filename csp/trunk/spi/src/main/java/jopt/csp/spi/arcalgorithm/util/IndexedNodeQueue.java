@@ -0,0 +1,376 @@
+package jopt.csp.spi.arcalgorithm.util;
+
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraph;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.SchedulerArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.binary.BinaryArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.generic.GenericArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.hyper.HyperArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.node.NodeArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.util.DomainChangeType;
+
+/**
+ * Queue of nodes to be propagated that stores the pending change of each node
+ * in slots indexed by the index the node is assigned in a {@link NodeArcGraph}.
+ * <p>
+ * The slots hold the change type of the node and the links of a doubly linked
+ * list that records the order nodes were added, so adding a node, merging a
+ * stronger change type into a node that is already queued and removing a node
+ * are performed without hashing, boxing or allocating list entries.  Only nodes
+ * contained in the graph can be queued.
+ * <p>
+ * The queue returns the same <code>NodeChangeEvent</code> object from each call to
+ * {@link #nextChange} and {@link #remove}, so the event must be used before the queue
+ * is called again.
+ */
+public class IndexedNodeQueue {
+    private final static int INITIAL_CAPACITY = 16;
+    private final static int NOT_QUEUED = -1;
+    private final static int NONE = -1;
+
+    private NodeArcGraph graph;
+
+    // slots indexed by graph index of node
+    private Node nodes[];
+    private int types[];
+    private int nextLinks[];
+    private int prevLinks[];
+    private BucketArcQueue nodeArcs[];
+
+    private int head;
+    private int tail;
+    private int count;
+    private int currentIndex;
+    private BucketArcQueue currentArcs;
+    private NodeChangeEvent event;
+
+    /**
+     * Constructor
+     *
+     * @param graph     Graph assigning indices to the nodes that will be queued
+     */
+    public IndexedNodeQueue(NodeArcGraph graph) {
+        this.graph = graph;
+        this.nodes = new Node[INITIAL_CAPACITY];
+        this.types = new int[INITIAL_CAPACITY];
+        this.nextLinks = new int[INITIAL_CAPACITY];
+        this.prevLinks = new int[INITIAL_CAPACITY];
+        this.nodeArcs = new BucketArcQueue[INITIAL_CAPACITY];
+        for (int i=0; i<INITIAL_CAPACITY; i++) types[i] = NOT_QUEUED;
+        this.head = NONE;
+        this.tail = NONE;
+        this.currentIndex = NONE;
+        this.event = new NodeChangeEvent(null);
+    }
+
+    /**
+     * Removes all nodes in the queue
+     */
+    public void clear() {
+        int idx = head;
+        while (idx != NONE) {
+            int next = nextLinks[idx];
+            release(idx);
+            idx = next;
+        }
+        head = NONE;
+        tail = NONE;
+        count = 0;
+        currentIndex = NONE;
+        currentArcs = null;
+    }
+
+    /**
+     * Returns true if a node is in the queue
+     */
+    public boolean contains(Node n) {
+        return findIndex(n) != NONE;
+    }
+
+    /**
+     * Returns true if the node assigned a graph index is in the queue
+     */
+    public boolean contains(int nodeIndex) {
+        return nodeIndex >= 0 && nodeIndex < types.length && types[nodeIndex] != NOT_QUEUED;
+    }
+
+    /**
+     * Returns number of nodes in queue
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns true if queue has a next node available
+     */
+    public boolean hasNext() {
+        return count > 0;
+    }
+
+    /**
+     * Returns next node on queue or null if none is available
+     */
+    public Node next() {
+        NodeChangeEvent evt = nextChange();
+        if (evt == null) return null;
+        return evt.getNode();
+    }
+
+    /**
+     * Returns next node change on queue or null if none is available
+     */
+    public NodeChangeEvent nextChange() {
+        if (count == 0) {
+            currentIndex = NONE;
+            currentArcs = null;
+            return null;
+        }
+
+        int idx = head;
+        event.setNode(nodes[idx]);
+        event.setType(types[idx]);
+        currentArcs = nodeArcs[idx];
+        currentIndex = idx;
+        unlink(idx);
+        return event;
+    }
+
+    /**
+     * Returns the graph index of the node of the last retrieved change
+     */
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * Returns the current arc list associated with the last retrieved node
+     */
+    public BucketArcQueue getCurrentArcs() {
+        return currentArcs;
+    }
+
+    /**
+     * Adds a node to the queue
+     */
+    public void add(Node node) {
+        add(node, DomainChangeType.VALUE, null);
+    }
+
+    /**
+     * Adds a node change to the queue
+     */
+    public void add(Node node, int eventType) {
+        add(node, eventType, null);
+    }
+
+    /**
+     * Adds a node change to the queue.  Nodes that are not contained
+     * in the graph have no arcs to propagate and are ignored.
+     *
+     * @see #add(int, Node, int, BucketArcQueue)
+     */
+    public void add(Node node, int eventType, BucketArcQueue arcs) {
+        int idx = graph.getNodeIndex(node);
+        if (idx >= 0) add(idx, node, eventType, arcs);
+    }
+
+    /**
+     * Adds a node change to the queue.  If the node is already in the queue
+     * and the eventType is the same or lower than the existing eventType,
+     * no change occurs.  If, however, the new eventType is higher (more
+     * specific) than the existing eventType, the eventType is upgraded
+     * and the new arc queue overwrites the existing arc queue associated
+     * with the node (even if the new arc queue is null).
+     *
+     * @param nodeIndex     Index of node returned by <code>NodeArcGraph.getNodeIndex</code>
+     */
+    public void add(int nodeIndex, Node node, int eventType, BucketArcQueue arcs) {
+        ensureCapacity(nodeIndex + 1);
+        int cur = types[nodeIndex];
+
+        // Node is not currently queued
+        if (cur == NOT_QUEUED) {
+            nodes[nodeIndex] = node;
+            types[nodeIndex] = eventType;
+            nodeArcs[nodeIndex] = arcs;
+
+            nextLinks[nodeIndex] = NONE;
+            prevLinks[nodeIndex] = tail;
+            if (tail == NONE)
+                head = nodeIndex;
+            else
+                nextLinks[tail] = nodeIndex;
+            tail = nodeIndex;
+            count++;
+        }
+
+        // Change event type if new event is higher than current
+        // i.e. range=1 replaces domain=0 and value=2 replaces range=1
+        else if (eventType > cur) {
+            types[nodeIndex] = eventType;
+            nodeArcs[nodeIndex] = arcs;
+        }
+    }
+
+    /**
+     * Adds source nodes of arc to queue
+     */
+    public void addArc(Arc arc) {
+        Node sources[] = null;
+        switch(arc.getArcType()) {
+            case Arc.NODE:
+                add(((NodeArc) arc).getTargetNode());
+                return;
+
+            case Arc.BINARY:
+                add(((BinaryArc) arc).getSourceNode());
+                return;
+
+            case Arc.HYPER:
+                sources = ((HyperArc) arc).getSourceNodes();
+                break;
+
+            case Arc.GENERIC:
+                sources = ((GenericArc) arc).getSourceNodes();
+                break;
+
+            case Arc.SCHEDULE:
+                sources = ((SchedulerArc) arc).getSourceNodes();
+                break;
+
+            default:
+                return;
+        }
+
+        for (int i=0; i<sources.length; i++)
+            add(sources[i]);
+    }
+
+    /**
+     * Removes a node change from the queue.  The node does not need to be
+     * contained in the graph any longer, in which case the queue is searched
+     * for the node.
+     *
+     * @return Event containing the removed change or null if node was not queued
+     */
+    public NodeChangeEvent remove(Node node) {
+        int idx = findIndex(node);
+        if (idx == NONE) return null;
+        return remove(idx);
+    }
+
+    /**
+     * Removes the change of the node assigned a graph index from the queue
+     *
+     * @return Event containing the removed change or null if node was not queued
+     */
+    public NodeChangeEvent remove(int nodeIndex) {
+        if (!contains(nodeIndex)) return null;
+
+        event.setNode(nodes[nodeIndex]);
+        event.setType(types[nodeIndex]);
+        unlink(nodeIndex);
+        return event;
+    }
+
+    /**
+     * Returns the type of change waiting for the node assigned a graph index
+     * or -1 if the node is not queued
+     */
+    public int getChangeType(int nodeIndex) {
+        return contains(nodeIndex) ? types[nodeIndex] : NOT_QUEUED;
+    }
+
+    /**
+     * Locates the slot holding a node
+     */
+    private int findIndex(Node node) {
+        int idx = graph.getNodeIndex(node);
+        if (idx >= 0)
+            return contains(idx) ? idx : NONE;
+
+        // node has been removed from graph, so search the queue
+        idx = head;
+        while (idx != NONE && nodes[idx] != node) idx = nextLinks[idx];
+        return idx;
+    }
+
+    /**
+     * Removes a slot from the linked list of queued nodes
+     */
+    private void unlink(int idx) {
+        int prev = prevLinks[idx];
+        int next = nextLinks[idx];
+
+        if (prev == NONE)
+            head = next;
+        else
+            nextLinks[prev] = next;
+
+        if (next == NONE)
+            tail = prev;
+        else
+            prevLinks[next] = prev;
+
+        release(idx);
+        count--;
+    }
+
+    /**
+     * Clears a slot so that it no longer refers to a node
+     */
+    private void release(int idx) {
+        nodes[idx] = null;
+        types[idx] = NOT_QUEUED;
+        nodeArcs[idx] = null;
+    }
+
+    /**
+     * Ensures slot arrays are large enough to hold a number of nodes
+     */
+    private void ensureCapacity(int capacity) {
+        int oldCapacity = types.length;
+        if (capacity <= oldCapacity) return;
+
+        int newCapacity = Math.max(capacity, oldCapacity * 2);
+
+        Node newNodes[] = new Node[newCapacity];
+        System.arraycopy(nodes, 0, newNodes, 0, oldCapacity);
+        nodes = newNodes;
+
+        int newTypes[] = new int[newCapacity];
+        System.arraycopy(types, 0, newTypes, 0, oldCapacity);
+        for (int i=oldCapacity; i<newCapacity; i++) newTypes[i] = NOT_QUEUED;
+        types = newTypes;
+
+        int newNextLinks[] = new int[newCapacity];
+        System.arraycopy(nextLinks, 0, newNextLinks, 0, oldCapacity);
+        nextLinks = newNextLinks;
+
+        int newPrevLinks[] = new int[newCapacity];
+        System.arraycopy(prevLinks, 0, newPrevLinks, 0, oldCapacity);
+        prevLinks = newPrevLinks;
+
+        BucketArcQueue newNodeArcs[] = new BucketArcQueue[newCapacity];
+        System.arraycopy(nodeArcs, 0, newNodeArcs, 0, oldCapacity);
+        nodeArcs = newNodeArcs;
+    }
+
+    public String toString() {
+        StringBuffer buf = new StringBuffer("{");
+        int idx = head;
+        while (idx != NONE) {
+            if (idx != head) buf.append(", ");
+            buf.append(nodes[idx]);
+            buf.append("=");
+            buf.append(types[idx]);
+            idx = nextLinks[idx];
+        }
+        buf.append("}");
+
+        return buf.toString();
+    }
+}
@@ -1,7 +1,6 @@
 package jopt.csp.spi.arcalgorithm.util;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 
 import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
 import jopt.csp.spi.arcalgorithm.graph.arc.SchedulerArc;
@@ -14,24 +13,32 @@ import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
 import jopt.csp.spi.util.DomainChangeType;
 
 /**
- * Represents a queue of nodes to be propagated
+ * Represents a queue of nodes to be propagated.
+ * <p>
+ * The queue returns the same <code>NodeChangeEvent</code> object from each call to
+ * {@link #nextChange} and {@link #remove}, so the event must be used before the queue
+ * is called again.
  */
 public class NodeQueue {
     // Map associating nodes with Integer event types as defined in NodeChangeEvent class
-    private HashMap<Node,Integer> nodeMap;
-    // Map associating nodes with ArcQueue objects
-    private HashMap<Node, ArcQueue> nodeArcs;
-    // List containing Node objects
-    private LinkedList<Node> list;
-    private ArcQueue currentArcs;
+    private IdentityHashMap<Node,Integer> nodeMap;
+    // Map associating nodes with BucketArcQueue objects
+    private IdentityHashMap<Node, BucketArcQueue> nodeArcs;
+    // Circular array containing Node objects in the order they were added
+    private Node list[];
+    private int head;
+    private int count;
+    private BucketArcQueue currentArcs;
+    private NodeChangeEvent event;
     
     /**
      * Constructor
      */
     public NodeQueue() {
-        this.nodeMap = new HashMap<Node,Integer>();
-        this.nodeArcs = new HashMap<Node, ArcQueue>();
-        this.list = new LinkedList<Node>();
+        this.nodeMap = new IdentityHashMap<Node,Integer>();
+        this.nodeArcs = new IdentityHashMap<Node, BucketArcQueue>();
+        this.list = new Node[16];
+        this.event = new NodeChangeEvent(null);
     }
     
     /**
@@ -40,7 +47,10 @@ public class NodeQueue {
     public void clear() {
     	nodeMap.clear();
     	nodeArcs.clear();
-    	list.clear();
+    	for (int i=0; i<count; i++)
+    	    list[(head + i) & (list.length - 1)] = null;
+    	head = 0;
+    	count = 0;
     	currentArcs = null;
     }
     
@@ -55,14 +65,14 @@ public class NodeQueue {
      * Returns size of arc queue
      */
     public int size() {
-        return list.size();
+        return count;
     }
     
     /**
      * Returns true if queue has a next arc available
      */
     public boolean hasNext() {
-        return !list.isEmpty();
+        return count > 0;
     }
     
     /**
@@ -78,21 +88,25 @@ public class NodeQueue {
      * Returns next node change on queue or null if none is available
      */
     public NodeChangeEvent nextChange() {
-        if (list.isEmpty()) return null;
+        if (count == 0) return null;
+        
+        Node node = list[head];
+        list[head] = null;
+        head = (head + 1) & (list.length - 1);
+        count--;
         
-        Node node = (Node) list.removeFirst();
         Integer type = (Integer) nodeMap.remove(node);
-        this.currentArcs = (ArcQueue) nodeArcs.remove(node);
+        this.currentArcs = (BucketArcQueue) nodeArcs.remove(node);
         
-        NodeChangeEvent ev = new NodeChangeEvent(node);
-        ev.setType(type.intValue());
-        return ev;
+        event.setNode(node);
+        event.setType(type.intValue());
+        return event;
     }
     
     /**
      * Returns the current arc list associated with the last retrieved node
      */
-    public ArcQueue getCurrentArcs() {
+    public BucketArcQueue getCurrentArcs() {
     	return currentArcs;
     }
     
@@ -112,13 +126,13 @@ public class NodeQueue {
      * and the new arc queue overwrites the existing arc queue associated
      * with the node (even if the new arc queue is null).
      */
-    public void add(Node node, int eventType, ArcQueue arcs) {
+    public void add(Node node, int eventType, BucketArcQueue arcs) {
         Integer cur = (Integer) nodeMap.get(node);
         
         // Node is not currently a member of the map
         if (cur == null) {
-            list.add(node);
-            nodeMap.put(node, new Integer(eventType));
+            append(node);
+            nodeMap.put(node, Integer.valueOf(eventType));
             if (arcs!=null) nodeArcs.put(node, arcs);
             else nodeArcs.remove(node);
         }
@@ -126,12 +140,29 @@ public class NodeQueue {
         // Change event type in HashMap if new event is higher than current
         // i.e. range=1 replaces domain=0 and value=2 replaces range=1
         else if (eventType > cur.intValue()) {
-            nodeMap.put(node, new Integer(eventType));
+            nodeMap.put(node, Integer.valueOf(eventType));
             if (arcs!=null) nodeArcs.put(node, arcs);
             else nodeArcs.remove(node);
         }
     }
 
+    /**
+     * Appends a node to the end of the circular array of nodes
+     */
+    private void append(Node node) {
+        // double size of array when full, unwrapping circular buffer
+        if (count == list.length) {
+            Node newList[] = new Node[list.length * 2];
+            System.arraycopy(list, head, newList, 0, list.length - head);
+            System.arraycopy(list, 0, newList, list.length - head, head);
+            list = newList;
+            head = 0;
+        }
+        
+        list[(head + count) & (list.length - 1)] = node;
+        count++;
+    }
+    
     /**
      * Adds an node change to the queue
      */
@@ -210,24 +241,32 @@ public class NodeQueue {
      * Removes a node change from the queue
      */
     public NodeChangeEvent remove(Node node) {
-        if (list.remove(node)) {
-            Integer type = (Integer) nodeMap.remove(node);
-        	nodeArcs.remove(node);
-            
-            NodeChangeEvent ev = new NodeChangeEvent(node);
-            ev.setType(type.intValue());
-            
-            return ev;
+        Integer type = (Integer) nodeMap.remove(node);
+        if (type == null) return null;
+        nodeArcs.remove(node);
+        
+        // locate node in list and shift remaining nodes forward to fill gap
+        int mask = list.length - 1;
+        for (int i=0; i<count; i++) {
+            if (list[(head + i) & mask] == node) {
+                for (int j=i+1; j<count; j++)
+                    list[(head + j - 1) & mask] = list[(head + j) & mask];
+                list[(head + count - 1) & mask] = null;
+                count--;
+                break;
+            }
         }
         
-        return null;
+        event.setNode(node);
+        event.setType(type.intValue());
+        return event;
     }
 
     public String toString() {
     	StringBuffer buf = new StringBuffer("{");
-    	for (int i=0; i<list.size(); i++) {
+    	for (int i=0; i<count; i++) {
     		if (i>0) buf.append(", ");
-    		Node n = (Node) list.get(i);
+    		Node n = list[(head + i) & (list.length - 1)];
     		buf.append(n);
     		buf.append("=");
     		buf.append(nodeMap.get(n));
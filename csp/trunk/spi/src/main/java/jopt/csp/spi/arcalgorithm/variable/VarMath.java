@@ -8,18 +8,28 @@ import java.util.Set;
 
 import jopt.csp.spi.arcalgorithm.constraint.num.GenericNumExpr;
 import jopt.csp.spi.arcalgorithm.constraint.num.NumExpr;
+import jopt.csp.spi.arcalgorithm.constraint.num.global.CircuitConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.global.CumulativeConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.global.ElementConstraint;
 import jopt.csp.spi.arcalgorithm.constraint.num.global.GlobalCardinalityConstraint;
 import jopt.csp.spi.arcalgorithm.constraint.num.global.GlobalCardinalityCountConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.global.IntGlobalCardinalityConstraint;
 import jopt.csp.spi.arcalgorithm.constraint.num.global.MemberOfArray;
 import jopt.csp.spi.arcalgorithm.constraint.num.global.NotMemberOfArray;
 import jopt.csp.spi.arcalgorithm.constraint.num.global.NumAllDiffConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.global.ScalarProductConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.global.RegularConstraint;
+import jopt.csp.spi.arcalgorithm.constraint.num.global.TableConstraint;
 import jopt.csp.spi.util.GenericIndex;
 import jopt.csp.spi.util.IndexIterator;
 import jopt.csp.spi.util.NameUtil;
+import jopt.csp.spi.util.NumConstants;
 import jopt.csp.spi.util.NumOperation;
+import jopt.csp.util.Automaton;
 import jopt.csp.variable.CspConstraint;
 import jopt.csp.variable.CspDoubleCast;
 import jopt.csp.variable.CspDoubleExpr;
+import jopt.csp.variable.CspDoubleVariable;
 import jopt.csp.variable.CspFloatCast;
 import jopt.csp.variable.CspFloatExpr;
 import jopt.csp.variable.CspGenericDoubleExpr;
@@ -29,8 +39,10 @@ import jopt.csp.variable.CspGenericIndexRestriction;
 import jopt.csp.variable.CspGenericIntExpr;
 import jopt.csp.variable.CspGenericLongExpr;
 import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
 import jopt.csp.variable.CspLongCast;
 import jopt.csp.variable.CspLongExpr;
+import jopt.csp.variable.CspLongVariable;
 import jopt.csp.variable.CspMath;
 import jopt.csp.variable.CspNumExpr;
 
@@ -254,7 +266,7 @@ public class VarMath implements CspMath {
       * Returns a constraint that constraints an array of variables to be different
       */
      public CspConstraint globalCardinality(CspIntExpr exprs[], Number[] vals, int[]lb, int[]ub) {
-	 return new GlobalCardinalityConstraint(toSpiExpressions(exprs),vals,lb,ub);
+	 return new IntGlobalCardinalityConstraint(toSpiExpressions(exprs),vals,lb,ub);
      }
 
      /**
@@ -268,7 +280,7 @@ public class VarMath implements CspMath {
       * Constraints all elements of a generic variable to be a different value
       */
      public CspConstraint globalCardinality(CspGenericIntExpr expr,Number[] vals, int[]lb,int[]ub) {
-	 return new GlobalCardinalityConstraint((GenericNumExpr) expr,vals,lb,ub);
+	 return new IntGlobalCardinalityConstraint((GenericNumExpr) expr,vals,lb,ub);
      }
 
      /**
@@ -282,7 +294,7 @@ public class VarMath implements CspMath {
       * Returns a constraint that constraints an array of variables to be different
       */
      public CspConstraint globalCardCount(CspIntExpr exprs[], Number[] vals, CspIntExpr[] count) {
-	 return new GlobalCardinalityCountConstraint(toSpiExpressions(exprs),vals,toSpiIntExpressions(count));
+	 return new IntGlobalCardinalityConstraint(toSpiExpressions(exprs),vals,toSpiIntExpressions(count));
      }
 
      /**
@@ -296,7 +308,7 @@ public class VarMath implements CspMath {
       * Constraints all elements of a generic variable to be a different value
       */
      public CspConstraint globalCardCount(CspGenericIntExpr expr, Number[] vals, CspIntExpr[] count) {
-	 return new GlobalCardinalityCountConstraint((GenericNumExpr) expr,vals,toSpiIntExpressions(count));
+	 return new IntGlobalCardinalityConstraint((GenericNumExpr) expr,vals,toSpiIntExpressions(count));
      }
 
      /**
@@ -326,6 +338,134 @@ public class VarMath implements CspMath {
 	 return new NotMemberOfArray(toSpiExpressions(sources), (NumExpr) expr);
      }
 
+     // javadoc inherited
+     public CspConstraint scalarProductLeq(int coeffs[], CspIntVariable vars[], int rhs) {
+	 return new ScalarProductConstraint(toLongArray(coeffs), toSpiExpressions(vars), NumConstants.LEQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductEq(int coeffs[], CspIntVariable vars[], int rhs) {
+	 return new ScalarProductConstraint(toLongArray(coeffs), toSpiExpressions(vars), NumConstants.EQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductGeq(int coeffs[], CspIntVariable vars[], int rhs) {
+	 return new ScalarProductConstraint(toLongArray(coeffs), toSpiExpressions(vars), NumConstants.GEQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductLeq(long coeffs[], CspLongVariable vars[], long rhs) {
+	 return new ScalarProductConstraint(coeffs, toSpiExpressions(vars), NumConstants.LEQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductEq(long coeffs[], CspLongVariable vars[], long rhs) {
+	 return new ScalarProductConstraint(coeffs, toSpiExpressions(vars), NumConstants.EQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductGeq(long coeffs[], CspLongVariable vars[], long rhs) {
+	 return new ScalarProductConstraint(coeffs, toSpiExpressions(vars), NumConstants.GEQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductLeq(double coeffs[], CspDoubleVariable vars[], double rhs) {
+	 return new ScalarProductConstraint(coeffs, toSpiExpressions(vars), NumConstants.LEQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductEq(double coeffs[], CspDoubleVariable vars[], double rhs) {
+	 return new ScalarProductConstraint(coeffs, toSpiExpressions(vars), NumConstants.EQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint scalarProductGeq(double coeffs[], CspDoubleVariable vars[], double rhs) {
+	 return new ScalarProductConstraint(coeffs, toSpiExpressions(vars), NumConstants.GEQ, rhs);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(int values[], CspIntExpr index, CspIntExpr result) {
+	 return new ElementConstraint(toLongArray(values), (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(long values[], CspIntExpr index, CspLongExpr result) {
+	 return new ElementConstraint(values, (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(double values[], CspIntExpr index, CspDoubleExpr result) {
+	 return new ElementConstraint(values, (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(CspIntExpr sources[], CspIntExpr index, CspIntExpr result) {
+	 return new ElementConstraint(toSpiExpressions(sources), (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(CspLongExpr sources[], CspIntExpr index, CspLongExpr result) {
+	 return new ElementConstraint(toSpiExpressions(sources), (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(CspDoubleExpr sources[], CspIntExpr index, CspDoubleExpr result) {
+	 return new ElementConstraint(toSpiExpressions(sources), (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(CspGenericIntExpr source, CspIntExpr index, CspIntExpr result) {
+	 return new ElementConstraint((GenericNumExpr) source, (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint element(CspGenericLongExpr source, CspIntExpr index, CspLongExpr result) {
+	 return new ElementConstraint((GenericNumExpr) source, (NumExpr) index, (NumExpr) result);
+     }
+
+     // javadoc inherited
+     public CspConstraint table(CspIntVariable vars[], int tuples[][]) {
+	 return new TableConstraint(toSpiExpressions(vars), tuples);
+     }
+
+     /**
+      * Returns a constraint limiting tasks to the capacity of a resource
+      */
+     public CspConstraint cumulative(CspIntVariable start[], int duration[], int demand[], int capacity) {
+	 return new CumulativeConstraint(toSpiExpressions(start), duration, demand, capacity);
+     }
+
+     /**
+      * Returns a constraint preventing tasks from running at once
+      */
+     public CspConstraint disjunctive(CspIntVariable start[], int duration[]) {
+	 return new CumulativeConstraint(toSpiExpressions(start), duration);
+     }
+
+     /**
+      * Returns a constraint requiring successors to form a single circuit
+      */
+     public CspConstraint circuit(CspIntVariable next[]) {
+	 return new CircuitConstraint(toSpiExpressions(next));
+     }
+
+     /**
+      * Returns a constraint requiring an automaton to accept a sequence
+      */
+     public CspConstraint regular(CspIntVariable seq[], Automaton dfa) {
+	 return new RegularConstraint(toSpiExpressions(seq), dfa);
+     }
+
+     /**
+      * Converts an array of integer coefficients to longs
+      */
+     private static long[] toLongArray(int vals[]) {
+	 long lvals[] = new long[vals.length];
+	 for (int i=0; i<vals.length; i++)
+	     lvals[i] = vals[i];
+	 return lvals;
+     }
+
      /**
       * Creates a variable equal to the summation of values in the generic
       * variable.  All indices in given range must exist in the variable X.
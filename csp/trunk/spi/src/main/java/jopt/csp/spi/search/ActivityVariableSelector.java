@@ -0,0 +1,79 @@
+package jopt.csp.spi.search;
+
+import jopt.csp.variable.CspIntVariable;
+
+/**
+ * Variable selector that selects the variable with the smallest ratio of its
+ * domain size to its activity first.  The activity of a variable is increased
+ * each time its domain is reduced and decays each time a variable is selected,
+ * so variables whose domains were reduced by recent decisions are selected
+ * earlier.
+ * <p>
+ * Instead of decaying the activity of every variable, the amount activity is
+ * increased by grows at each selection and all activities are scaled down
+ * when it becomes too large.
+ */
+public class ActivityVariableSelector extends DynamicVariableSelector {
+    private final static double DEFAULT_DECAY = 0.999;
+    private final static double RESCALE_LIMIT = 1e100;
+
+    private double decay;
+    private double activity[];
+    private double increment;
+
+    /**
+     * Creates a selector with the default rate of decay
+     */
+    public ActivityVariableSelector() {
+        this(DEFAULT_DECAY);
+    }
+
+    /**
+     * Creates a selector with a rate of decay
+     *
+     * @param decay     Fraction of activity kept each time a variable is selected,
+     *                  greater than 0 and at most 1
+     */
+    public ActivityVariableSelector(double decay) {
+        if (decay <= 0 || decay > 1)
+            throw new IllegalArgumentException("decay must be greater than 0 and at most 1");
+        this.decay = decay;
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    protected void variablesSet() {
+        activity = new double[vars.length];
+        increment = 1;
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    protected double score(int i) {
+        return vars[i].getSize() / (1 + activity[i]);
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    protected void variableChanged(int i) {
+        activity[i] += increment;
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    public CspIntVariable select() {
+        increment /= decay;
+        if (increment > RESCALE_LIMIT) {
+            for (int i=0; i<activity.length; i++)
+                activity[i] /= RESCALE_LIMIT;
+            increment /= RESCALE_LIMIT;
+            heap.updateAll();
+        }
+
+        return super.select();
+    }
+
+    /**
+     * Returns the activity of a variable relative to the amount activity is
+     * currently increased by when its domain is reduced
+     */
+    public double getActivity(int i) {
+        return activity[i] / increment;
+    }
+}
@@ -0,0 +1,47 @@
+package jopt.csp.spi.search;
+
+import jopt.csp.spi.arcalgorithm.ArcBasedAcAlg;
+import jopt.csp.spi.arcalgorithm.FailureWeightListener;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.solver.ChoicePointAlgorithm;
+
+/**
+ * Variable selector that selects the variable with the smallest ratio of its
+ * domain size to its weighted degree first.  The weighted degree of a variable
+ * is the number of arcs it is a source of plus the number of times propagation
+ * of an arc on the variable has failed, so variables involved in failures are
+ * selected earlier as search progresses.
+ */
+public class DomWdegVariableSelector extends DynamicVariableSelector implements FailureWeightListener {
+    private ArcBasedAcAlg alg;
+
+    // javadoc inherited from DynamicVariableSelector
+    protected void variablesSet() {
+        ChoicePointAlgorithm cpa = store.getConstraintAlg();
+        if (cpa instanceof ArcBasedAcAlg) {
+            alg = (ArcBasedAcAlg) cpa;
+            alg.addFailureWeightListener(this);
+        }
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    protected void variablesReleased() {
+        if (alg!=null) {
+            alg.removeFailureWeightListener(this);
+            alg = null;
+        }
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    protected double score(int i) {
+        Node node = getNode(i);
+        int weight = (alg==null || node==null) ? 1 : Math.max(1, alg.getWeightedDegree(node));
+        return (double) vars[i].getSize() / weight;
+    }
+
+    // javadoc inherited from FailureWeightListener
+    public void failureWeightChanged(Node node) {
+        int i = getIndex(node);
+        if (i >= 0) heap.update(i);
+    }
+}
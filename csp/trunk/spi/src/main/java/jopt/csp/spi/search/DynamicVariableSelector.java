@@ -0,0 +1,261 @@
+package jopt.csp.spi.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+
+import jopt.csp.search.VariableSelector;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeListener;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeSource;
+import jopt.csp.spi.arcalgorithm.variable.IntExpr;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariable;
+
+/**
+ * Base class for variable selectors that choose the next integer variable
+ * to instantiate at each choice point instead of fixing an order before
+ * searching.  Each variable is given a score that may depend upon what has
+ * been learned during search, and the unbound variable with the lowest score
+ * is selected next.
+ * <p>
+ * Variables are kept in a heap that is updated as the domains of variables
+ * change and that is restored when choice points are popped, so selecting a
+ * variable does not require the variables to be sorted.  When used by the
+ * generate action for integer variables, a variable is selected each time a
+ * value has been assigned or removed.  When used by other generate actions,
+ * the variables are ordered by their scores before searching.
+ */
+public abstract class DynamicVariableSelector implements VariableSelector, NodeChangeListener {
+    protected CspIntVariable vars[];
+    protected ConstraintStore store;
+    protected VariableHeap heap;
+    private Node nodes[];
+    private IdentityHashMap<Node, Integer> nodeIndices;
+    private IdentityHashMap<CspVariable, Integer> varIndices;
+    private int selected;
+    private int selectedValue;
+    private LinkedList<CspVariable> ordered;
+
+    /**
+     * Sets the integer variables to select from while searching with a
+     * constraint store.  Scores learned by the selector are kept if the
+     * variables and store have not changed since the last search.
+     *
+     * @param vars      Variables to select from
+     * @param store     Store maintaining the choice point stack of the search
+     */
+    public void setVariables(CspIntVariable vars[], ConstraintStore store) {
+        if (this.vars == vars && this.store == store) return;
+        detach();
+
+        this.vars = vars;
+        this.store = store;
+        this.selected = -1;
+        this.nodes = new Node[vars.length];
+        this.nodeIndices = new IdentityHashMap<Node, Integer>();
+        this.varIndices = new IdentityHashMap<CspVariable, Integer>();
+        for (int i=0; i<vars.length; i++) {
+            varIndices.put(vars[i], new Integer(i));
+            if (vars[i] instanceof IntExpr) {
+                nodes[i] = ((IntExpr) vars[i]).getNode();
+                nodeIndices.put(nodes[i], new Integer(i));
+            }
+        }
+        variablesSet();
+
+        heap = new VariableHeap(this, vars.length);
+        heap.setChoicePointStack(store.getChoicePointStack());
+
+        // update heap when variable domains are reduced
+        for (int i=0; i<nodes.length; i++) {
+            if (nodes[i] instanceof NodeChangeSource)
+                ((NodeChangeSource) nodes[i]).addDomainChangeListener(this, new Integer(i));
+        }
+    }
+
+    /**
+     * Releases the variables and store set in the last search
+     */
+    private void detach() {
+        if (vars==null) return;
+
+        for (int i=0; i<nodes.length; i++) {
+            if (nodes[i] instanceof NodeChangeSource)
+                ((NodeChangeSource) nodes[i]).removeDomainChangeListener(this);
+        }
+        heap.setChoicePointStack(null);
+        variablesReleased();
+
+        vars = null;
+        store = null;
+        heap = null;
+        nodes = null;
+        nodeIndices = null;
+        varIndices = null;
+    }
+
+    /**
+     * Called after variables to select from are set so that subclasses can
+     * initialize data for each variable before scores are calculated
+     */
+    protected void variablesSet() {
+    }
+
+    /**
+     * Called before variables to select from are released
+     */
+    protected void variablesReleased() {
+    }
+
+    /**
+     * Returns the score of a variable, the unbound variable with the lowest score
+     * being selected next.  Scores must not be <code>NaN</code>.
+     *
+     * @param i     Index of variable
+     */
+    protected abstract double score(int i);
+
+    /**
+     * Called when the domain of a variable is reduced before its score is updated
+     *
+     * @param i     Index of variable
+     */
+    protected void variableChanged(int i) {
+    }
+
+    /**
+     * Returns the node of a variable or null if the variable has no node
+     */
+    protected Node getNode(int i) {
+        return nodes[i];
+    }
+
+    /**
+     * Returns the index of the variable of a node or -1 if the node does not
+     * belong to a variable
+     */
+    protected int getIndex(Node node) {
+        Integer idx = nodeIndices.get(node);
+        return (idx==null) ? -1 : idx.intValue();
+    }
+
+    /**
+     * Returns the index of the variable selected last or -1 if no variable has
+     * been selected
+     */
+    protected int getSelectedIndex() {
+        return selected;
+    }
+
+    /**
+     * Returns the value selected last to assign to the selected variable
+     */
+    protected int getSelectedValue() {
+        return selectedValue;
+    }
+
+    /**
+     * Selects the unbound variable with the lowest score
+     *
+     * @return Selected variable or null if all variables are bound
+     */
+    public CspIntVariable select() {
+        int i = heap.top();
+        while (true) {
+            if (i < 0) {
+                if (!refill()) {
+                    selected = -1;
+                    return null;
+                }
+            }
+            else if (vars[i].isBound())
+                heap.remove(i);
+            else if (score(i) != heap.getScore(i))
+                heap.update(i);
+            else
+                break;
+
+            i = heap.top();
+        }
+
+        selected = i;
+        return vars[i];
+    }
+
+    /**
+     * Called when a value has been selected to assign to the selected variable
+     */
+    public void valueSelected(int val) {
+        selectedValue = val;
+    }
+
+    /**
+     * Inserts all variables into the heap if an unbound variable is not in the heap,
+     * which can happen when domains are restored without popping choice points
+     *
+     * @return True if any variable is unbound
+     */
+    private boolean refill() {
+        for (int i=0; i<vars.length; i++) {
+            if (!vars[i].isBound()) {
+                heap.fill();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the heap when the domain of a variable changes
+     */
+    public void nodeChange(NodeChangeEvent ev) {
+        int i = ((Integer) ev.getCallbackValue()).intValue();
+        variableChanged(i);
+        heap.update(i);
+    }
+
+    /**
+     * Returns the score of a variable when selecting in a fixed order
+     */
+    private double staticScore(CspVariable var) {
+        Integer idx = (varIndices==null) ? null : varIndices.get(var);
+        return (idx==null) ? var.getSize() : score(idx.intValue());
+    }
+
+    //javadoc inherited
+    public void setVariables(CspVariable[] vars) {
+        final IdentityHashMap<CspVariable, Double> scores = new IdentityHashMap<CspVariable, Double>();
+        for (int i=0; i<vars.length; i++)
+            scores.put(vars[i], new Double(staticScore(vars[i])));
+
+        CspVariable sorted[] = (CspVariable[]) vars.clone();
+        Arrays.sort(sorted, new Comparator<CspVariable>() {
+            public int compare(CspVariable a, CspVariable b) {
+                return scores.get(a).compareTo(scores.get(b));
+            }
+        });
+
+        ordered = new LinkedList<CspVariable>();
+        for (int i=0; i<sorted.length; i++)
+            ordered.add(sorted[i]);
+    }
+
+    //javadoc inherited
+    public boolean hasNext() {
+        return (ordered != null && !ordered.isEmpty());
+    }
+
+    //javadoc inherited
+    public CspVariable next() {
+        return ordered.remove();
+    }
+
+    //javadoc inherited
+    public void reset() {
+        ordered = null;
+    }
+}
@@ -0,0 +1,75 @@
+package jopt.csp.spi.search;
+
+import jopt.csp.variable.CspIntVariable;
+
+/**
+ * Variable selector that selects the variable expected to leave the smallest
+ * search space first.  The impact of assigning a value is the fraction of the
+ * search space, the product of the domain sizes of the variables, removed by
+ * propagating the assignment, or 1 if the assignment fails.  The impact of a
+ * variable is the average impact of the assignments made to it, and its score
+ * is its domain size times the fraction of the search space its assignment
+ * is expected to keep.
+ */
+public class ImpactVariableSelector extends DynamicVariableSelector {
+    private double impact[];
+    private int assignments[];
+    private int pending;
+    private int pendingValue;
+    private double spaceBefore;
+
+    // javadoc inherited from DynamicVariableSelector
+    protected void variablesSet() {
+        impact = new double[vars.length];
+        assignments = new int[vars.length];
+        pending = -1;
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    protected double score(int i) {
+        return vars[i].getSize() * (1 - impact[i]);
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    public CspIntVariable select() {
+        // measure impact of last assignment now that it has been propagated
+        if (pending >= 0) {
+            double assignmentImpact = 1;
+            CspIntVariable var = vars[pending];
+            if (var.isBound() && var.getMin() == pendingValue)
+                assignmentImpact = Math.max(0, 1 - Math.exp(searchSpace() - spaceBefore));
+
+            impact[pending] = (impact[pending] * assignments[pending] + assignmentImpact) / (assignments[pending] + 1);
+            assignments[pending]++;
+            heap.update(pending);
+            pending = -1;
+        }
+
+        return super.select();
+    }
+
+    // javadoc inherited from DynamicVariableSelector
+    public void valueSelected(int val) {
+        super.valueSelected(val);
+        pending = getSelectedIndex();
+        pendingValue = val;
+        spaceBefore = searchSpace();
+    }
+
+    /**
+     * Returns the logarithm of the size of the search space
+     */
+    private double searchSpace() {
+        double space = 0;
+        for (int i=0; i<vars.length; i++)
+            space += Math.log(vars[i].getSize());
+        return space;
+    }
+
+    /**
+     * Returns the average impact of assignments made to a variable
+     */
+    public double getImpact(int i) {
+        return impact[i];
+    }
+}
@@ -9,11 +9,16 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 
+import jopt.csp.search.CoolingSchedule;
 import jopt.csp.search.CurrentNeighbor;
 import jopt.csp.search.LocalSearch;
 import jopt.csp.search.Metaheuristic;
+import jopt.csp.search.NeighborEvaluator;
+import jopt.csp.search.NeighborReplicaModel;
 import jopt.csp.search.Neighborhood;
 import jopt.csp.search.RandomizedNeighborhood;
+import jopt.csp.search.RelaxationSelector;
+import jopt.csp.search.Search;
 import jopt.csp.search.SearchAction;
 import jopt.csp.search.SearchGoal;
 import jopt.csp.search.UnifiedNeighborhood;
@@ -22,12 +27,25 @@ import jopt.csp.solution.SolverSolution;
 import jopt.csp.spi.search.localsearch.BrowseNeighborhoodAction;
 import jopt.csp.spi.search.localsearch.BrowseNeighborsAction;
 import jopt.csp.spi.search.localsearch.FlipNeighborhood;
+import jopt.csp.spi.search.localsearch.GeometricCooling;
 import jopt.csp.spi.search.localsearch.ImproveSolutionAction;
+import jopt.csp.spi.search.localsearch.LargeNeighborhoodSearch;
+import jopt.csp.spi.search.localsearch.LateAcceptanceMetaheuristic;
+import jopt.csp.spi.search.localsearch.LinearCooling;
+import jopt.csp.spi.search.localsearch.LundyMeesCooling;
 import jopt.csp.spi.search.localsearch.NeighborMoveAction;
+import jopt.csp.spi.search.localsearch.ParallelBrowseNeighborhoodAction;
+import jopt.csp.spi.search.localsearch.ParallelNeighborEvaluator;
+import jopt.csp.spi.search.localsearch.ParallelNeighborMoveAction;
+import jopt.csp.spi.search.localsearch.PropagationGuidedRelaxation;
+import jopt.csp.spi.search.localsearch.RandomRelaxation;
+import jopt.csp.spi.search.localsearch.RelatedVariableRelaxation;
 import jopt.csp.spi.search.localsearch.SelectCurrentNeighborAction;
+import jopt.csp.spi.search.localsearch.SimulatedAnnealingMetaheuristic;
 import jopt.csp.spi.search.localsearch.SwapNeighborhood;
 import jopt.csp.spi.search.localsearch.TabuMetaheuristic;
 import jopt.csp.spi.search.localsearch.TabuMoveAction;
+import jopt.csp.spi.search.localsearch.ThresholdAcceptingMetaheuristic;
 import jopt.csp.spi.solver.ConstraintStore;
 import jopt.csp.variable.CspIntVariable;
 import jopt.csp.variable.CspVariable;
@@ -172,6 +190,24 @@ public class LocalSearchImpl implements LocalSearch {
         return new NeighborMoveAction(store, solution, hood, meta);
     }
     
+    // javadoc inherited from LocalSearch
+    public NeighborEvaluator parallelEvaluator(CspVariable vars[], NeighborReplicaModel model, int workers) {
+        return new ParallelNeighborEvaluator(vars, model, workers);
+    }
+    
+    // javadoc inherited from LocalSearch
+    public SearchAction browseNeighborhood(SolverSolution initial, Neighborhood hood, Metaheuristic meta,
+            CurrentNeighbor current, NeighborEvaluator evaluator)
+    {
+        addVarsToCs(initial.variables());
+        return new ParallelBrowseNeighborhoodAction(store, initial, hood, meta, current, evaluator);
+    }
+    
+    // javadoc inherited from LocalSearch
+    public SearchAction neighborMove(SolverSolution solution, Neighborhood hood, Metaheuristic meta, NeighborEvaluator evaluator) {
+        return new ParallelNeighborMoveAction(store, solution, hood, meta, evaluator);
+    }
+    
     // javadoc inherited from LocalSearch
     public SearchAction tabuMove(SolverSolution solution, Neighborhood hood, SearchGoal goal, int numToCheck) {
         return new TabuMoveAction(store, solution, hood, goal, numToCheck);
@@ -206,4 +242,62 @@ public class LocalSearchImpl implements LocalSearch {
     public Metaheuristic tabu(int forbiddenUndoMoves) {
         return new TabuMetaheuristic(store, forbiddenUndoMoves);
     }
+
+    // javadoc inherited from LocalSearch
+    public Metaheuristic simulatedAnnealing(CoolingSchedule schedule) {
+        return new SimulatedAnnealingMetaheuristic(store, schedule);
+    }
+
+    // javadoc inherited from LocalSearch
+    public Metaheuristic simulatedAnnealing(CoolingSchedule schedule, long seed) {
+        return new SimulatedAnnealingMetaheuristic(store, schedule, seed);
+    }
+
+    // javadoc inherited from LocalSearch
+    public Metaheuristic thresholdAccepting(CoolingSchedule schedule) {
+        return new ThresholdAcceptingMetaheuristic(store, schedule);
+    }
+
+    // javadoc inherited from LocalSearch
+    public Metaheuristic lateAcceptance(int historyLength) {
+        return new LateAcceptanceMetaheuristic(store, historyLength);
+    }
+
+    // javadoc inherited from LocalSearch
+    public CoolingSchedule geometricCooling(double initial, double alpha) {
+        return new GeometricCooling(initial, alpha);
+    }
+
+    // javadoc inherited from LocalSearch
+    public CoolingSchedule linearCooling(double initial, double decrement) {
+        return new LinearCooling(initial, decrement);
+    }
+
+    // javadoc inherited from LocalSearch
+    public CoolingSchedule lundyMeesCooling(double initial, double beta) {
+        return new LundyMeesCooling(initial, beta);
+    }
+
+    // javadoc inherited from LocalSearch
+    public Search largeNeighborhoodSearch(SolverSolution incumbent, CspIntVariable vars[],
+            SearchAction action, RelaxationSelector selector, int failLimit, int maxIterations)
+    {
+        addVarsToCs(vars);
+        return new LargeNeighborhoodSearch(store, incumbent, vars, action, selector, failLimit, maxIterations);
+    }
+
+    // javadoc inherited from LocalSearch
+    public RelaxationSelector randomRelaxation() {
+        return new RandomRelaxation();
+    }
+
+    // javadoc inherited from LocalSearch
+    public RelaxationSelector propagationGuidedRelaxation() {
+        return new PropagationGuidedRelaxation();
+    }
+
+    // javadoc inherited from LocalSearch
+    public RelaxationSelector relatedRelaxation(double relatedness[][]) {
+        return new RelatedVariableRelaxation(relatedness, 5);
+    }
 }
@@ -12,6 +12,7 @@ import jopt.csp.search.SetSelector;
 import jopt.csp.search.VariableSelector;
 import jopt.csp.solution.SolverSolution;
 import jopt.csp.spi.search.actions.AddConstraintAction;
+import jopt.csp.spi.search.actions.DynamicGenerateIntegerAction;
 import jopt.csp.spi.search.actions.GenerateDoubleAction;
 import jopt.csp.spi.search.actions.GenerateFloatAction;
 import jopt.csp.spi.search.actions.GenerateIntegerAction;
@@ -85,6 +86,8 @@ public class SearchActionsImpl implements SearchActions {
 	// javadoc inherited from SearchActions
 	public SearchAction generate(CspIntVariable vars[], IntegerSelector selector, VariableSelector varSelector) {
 		addVarsToCs(vars);
+		if (varSelector instanceof DynamicVariableSelector)
+			return new DynamicGenerateIntegerAction(vars, selector, (DynamicVariableSelector) varSelector, store);
 		return new GenerateIntegerAction(vars, selector, varSelector);
 	}
 
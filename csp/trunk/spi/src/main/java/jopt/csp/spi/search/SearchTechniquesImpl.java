@@ -10,8 +10,13 @@ import jopt.csp.search.SearchAction;
 import jopt.csp.search.SearchGoal;
 import jopt.csp.search.SearchTechnique;
 import jopt.csp.search.SearchTechniques;
+import jopt.csp.spi.arcalgorithm.ArcBasedAcAlg;
+import jopt.csp.spi.arcalgorithm.ExplanationRecorder;
 import jopt.csp.spi.search.technique.BreadthFirstSearch;
+import jopt.csp.spi.search.technique.DepthBoundedDiscrepancySearch;
 import jopt.csp.spi.search.technique.DepthFirstSearch;
+import jopt.csp.spi.search.technique.LimitedDiscrepancySearch;
+import jopt.csp.spi.search.technique.RestartSearch;
 import jopt.csp.spi.search.technique.TreeSearch;
 import jopt.csp.spi.search.technique.TreeSearchTechnique;
 import jopt.csp.spi.search.tree.SearchTechniqueChange;
@@ -39,6 +44,41 @@ public class SearchTechniquesImpl implements SearchTechniques {
         return new TreeSearch(store, action, (TreeSearchTechnique) technique);
     }
     
+    // javadoc inherited from SearchTechniques
+    public Search restartSearch(SearchAction action, int scaleFailures, double growthFactor) {
+        return new RestartSearch(store, action, scaleFailures, growthFactor, true);
+    }
+    
+    // javadoc inherited from SearchTechniques
+    public Search lubyRestartSearch(SearchAction action, int scaleFailures) {
+        return new RestartSearch(store, action, scaleFailures, 0, true);
+    }
+    
+    // javadoc inherited from SearchTechniques
+    public Search learningSearch(SearchAction action) {
+        TreeSearch search = new TreeSearch(store, action, (TreeSearchTechnique) dfs());
+        search.setExplanationRecorder(explanationRecorder());
+        return search;
+    }
+    
+    // javadoc inherited from SearchTechniques
+    public Search learningRestartSearch(SearchAction action, int scaleFailures) {
+        RestartSearch search = new RestartSearch(store, action, scaleFailures, 0, true);
+        search.setExplanationRecorder(explanationRecorder());
+        return search;
+    }
+    
+    /**
+     * Returns the recorder of explanations of the constraint algorithm,
+     * or null if the algorithm cannot record explanations
+     */
+    private ExplanationRecorder explanationRecorder() {
+        if (!(store.getConstraintAlg() instanceof ArcBasedAcAlg)) return null;
+        ArcBasedAcAlg alg = (ArcBasedAcAlg) store.getConstraintAlg();
+        alg.setRecordingExplanations(true);
+        return alg.getExplanationRecorder();
+    }
+    
     // javadoc inherited from SearchTechniques
     public SearchTechnique bfs() {
         return new BreadthFirstSearch();
@@ -49,6 +89,26 @@ public class SearchTechniquesImpl implements SearchTechniques {
         return new DepthFirstSearch();
     }
     
+    // javadoc inherited from SearchTechniques
+    public SearchTechnique lds() {
+        return new LimitedDiscrepancySearch();
+    }
+    
+    // javadoc inherited from SearchTechniques
+    public SearchTechnique lds(int maxDiscrepancies) {
+        return new LimitedDiscrepancySearch(maxDiscrepancies);
+    }
+    
+    // javadoc inherited from SearchTechniques
+    public SearchTechnique dds() {
+        return new DepthBoundedDiscrepancySearch();
+    }
+    
+    // javadoc inherited from SearchTechniques
+    public SearchTechnique dds(int maxDepth) {
+        return new DepthBoundedDiscrepancySearch(maxDepth);
+    }
+    
     // javadoc inherited from SearchTechniques
     public SearchAction changeSearch(SearchTechnique technique, SearchAction action) {
     	return new SearchTechniqueChange(technique, action);
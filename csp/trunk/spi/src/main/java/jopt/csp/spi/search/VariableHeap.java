@@ -0,0 +1,237 @@
+package jopt.csp.spi.search;
+
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointIntArray;
+import jopt.csp.spi.solver.ChoicePointNumArraySet;
+import jopt.csp.spi.solver.ChoicePointStack;
+
+/**
+ * Binary heap of variable indices ordered by the score assigned to each
+ * variable by a dynamic variable selector, lowest score first.  The position
+ * of each index in the heap is tracked so that the score of a variable can
+ * be updated in logarithmic time when its domain changes.
+ * <p>
+ * Indices removed from the heap are recorded on a choice point stack and are
+ * inserted again when the choice point they were removed after is popped.
+ * Scores are not restored, so a score may be lower than the current score of
+ * its variable after a pop until it is updated.
+ */
+public class VariableHeap implements ChoicePointEntryListener {
+    private DynamicVariableSelector selector;
+    private int heap[];
+    private int position[];
+    private double score[];
+    private int size;
+
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpRemoved;
+
+    /**
+     * Creates a heap containing every index of a selector's variables
+     *
+     * @param selector      Selector assigning scores to variables
+     * @param count         Number of variables
+     */
+    public VariableHeap(DynamicVariableSelector selector, int count) {
+        this.selector = selector;
+        this.heap = new int[count];
+        this.position = new int[count];
+        this.score = new double[count];
+        fill();
+    }
+
+    /**
+     * Inserts every index that is not in the heap and recalculates all scores
+     */
+    public void fill() {
+        size = heap.length;
+        for (int i=0; i<size; i++) {
+            heap[i] = i;
+            position[i] = i;
+            score[i] = selector.score(i);
+        }
+
+        // heapify from the last parent
+        for (int k=size/2-1; k>=0; k--)
+            siftDown(k);
+    }
+
+    /**
+     * Recalculates the scores of all indices in the heap
+     */
+    public void updateAll() {
+        for (int k=0; k<size; k++)
+            score[heap[k]] = selector.score(heap[k]);
+        for (int k=size/2-1; k>=0; k--)
+            siftDown(k);
+    }
+
+    /**
+     * Sets the choice point stack used to restore removed indices
+     */
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (cpdata!=null) {
+            cpdata.close();
+            cpdata = null;
+            cpRemoved = null;
+        }
+
+        if (cps!=null) {
+            cpdata = cps.newNumStackSet(this);
+            cpRemoved = cpdata.newIntList();
+        }
+    }
+
+    /**
+     * Returns the number of indices in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the heap contains an index
+     */
+    public boolean contains(int i) {
+        return position[i] >= 0;
+    }
+
+    /**
+     * Returns the index with the lowest score or -1 if the heap is empty
+     */
+    public int top() {
+        return (size > 0) ? heap[0] : -1;
+    }
+
+    /**
+     * Returns the score of an index when it was last updated
+     */
+    public double getScore(int i) {
+        return score[i];
+    }
+
+    /**
+     * Recalculates the score of an index and restores its position in the heap
+     */
+    public void update(int i) {
+        int k = position[i];
+        if (k < 0) return;
+
+        double prev = score[i];
+        score[i] = selector.score(i);
+        if (score[i] < prev)
+            siftUp(k);
+        else if (score[i] > prev)
+            siftDown(k);
+    }
+
+    /**
+     * Removes an index from the heap until the current choice point is popped
+     */
+    public void remove(int i) {
+        if (position[i] < 0) return;
+        delete(i);
+
+        if (cpdata!=null) {
+            cpdata.touch();
+            cpRemoved.add(i);
+        }
+    }
+
+    /**
+     * Removes an index without recording it on the choice point stack
+     */
+    private void delete(int i) {
+        int k = position[i];
+        position[i] = -1;
+        size--;
+        if (k == size) return;
+
+        // move last index into hole and restore its position
+        int last = heap[size];
+        heap[k] = last;
+        position[last] = k;
+        siftUp(k);
+        siftDown(position[last]);
+    }
+
+    /**
+     * Inserts an index into the heap with its current score
+     */
+    private void insert(int i) {
+        if (position[i] >= 0) return;
+        score[i] = selector.score(i);
+        heap[size] = i;
+        position[i] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Returns true if index a should be selected before index b
+     */
+    private boolean before(int a, int b) {
+        return score[a] < score[b] || (score[a] == score[b] && a < b);
+    }
+
+    /**
+     * Moves the index at a position up until its parent is selected before it
+     */
+    private void siftUp(int k) {
+        int i = heap[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            int p = heap[parent];
+            if (!before(i, p)) break;
+            heap[k] = p;
+            position[p] = k;
+            k = parent;
+        }
+        heap[k] = i;
+        position[i] = k;
+    }
+
+    /**
+     * Moves the index at a position down until it is selected before its children
+     */
+    private void siftDown(int k) {
+        int i = heap[k];
+        int half = size / 2;
+        while (k < half) {
+            int child = 2 * k + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && before(heap[right], c))
+                c = heap[child = right];
+            if (!before(c, i)) break;
+            heap[k] = c;
+            position[c] = k;
+            k = child;
+        }
+        heap[k] = i;
+        position[i] = k;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        // insert indices removed since choice point was pushed
+        for (int k=cpRemoved.size()-1; k>=0; k--)
+            insert(cpRemoved.get(k));
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        // remove indices again when a delta is pushed back onto the stack
+        for (int k=0; k<cpRemoved.size(); k++) {
+            int i = cpRemoved.get(k);
+            if (position[i] >= 0) delete(i);
+        }
+    }
+}
@@ -27,6 +27,20 @@ public class AssignIntegerAction implements SearchAction {
     	return null;
     }
     
+    /**
+     * Returns the variable the value is assigned to
+     */
+    public CspIntVariable getVariable() {
+        return var;
+    }
+    
+    /**
+     * Returns the value assigned to the variable
+     */
+    public int getValue() {
+        return val;
+    }
+    
     public String toString() {
     	return "assign-number(" + var + ", " + val + ")";
     }
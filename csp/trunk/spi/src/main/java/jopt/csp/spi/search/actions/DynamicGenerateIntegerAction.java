@@ -0,0 +1,72 @@
+package jopt.csp.spi.search.actions;
+
+import java.util.Arrays;
+
+import jopt.csp.search.IntegerSelector;
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.search.DynamicVariableSelector;
+import jopt.csp.spi.search.tree.AbstractSearchNodeAction;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Action that will generate values for an array of variables, selecting the
+ * next variable to instantiate each time a value has been assigned to or
+ * removed from a variable.  Unlike the generate action that orders all variables
+ * before searching, the order of variables can change as the domains of
+ * variables are reduced and as the variable selector learns which variables
+ * lead to failures.
+ */
+public class DynamicGenerateIntegerAction extends AbstractSearchNodeAction {
+	private CspIntVariable vars[];
+	private IntegerSelector selector;
+	private DynamicVariableSelector varSelector;
+	private ConstraintStore store;
+
+	/**
+	 * Creates new generation action
+	 * 
+	 * @param vars  		Variables to instantiate
+	 * @param selector  	Used to select next value to reduce domain of variable
+	 * @param varSelector	Used to select next variable to instantiate
+	 * @param store			Store maintaining the choice point stack of the search
+	 */
+	public DynamicGenerateIntegerAction(CspIntVariable vars[], IntegerSelector selector,
+			DynamicVariableSelector varSelector, ConstraintStore store)
+	{
+		this.vars = vars;
+		this.selector = selector;
+		this.varSelector = varSelector;
+		this.store = store;
+	}
+
+	/**
+	 * Called by search tree to execute this action.
+	 * 
+	 * @return Next action to execute in search
+	 */
+	public SearchAction performAction() throws PropagationFailureException {
+		varSelector.setVariables(vars, store);
+		CspIntVariable var = varSelector.select();
+
+		// no variables need to be instantiated
+		if (var==null) return null;
+
+		// retrieve value of variable to restrict domain
+		int nextVal;
+		if (selector==null)
+			nextVal = var.getMin();
+		else
+			nextVal = selector.select(var);
+		varSelector.valueSelected(nextVal);
+
+		// return choice to assign the value or remove it, selecting
+		// the next variable to instantiate after either
+		return combineActions(choice(new AssignIntegerAction(var, nextVal), new RemoveIntegerAction(var, nextVal)), this);
+	}
+
+	public String toString() {
+		return "generate(" + Arrays.asList(vars) + ")";
+	}
+}
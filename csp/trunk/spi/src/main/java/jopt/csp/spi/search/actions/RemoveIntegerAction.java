@@ -27,6 +27,20 @@ public class RemoveIntegerAction implements SearchAction {
         return null;
     }
     
+    /**
+     * Returns the variable the value is removed from
+     */
+    public CspIntVariable getVariable() {
+        return var;
+    }
+    
+    /**
+     * Returns the value removed from the variable
+     */
+    public int getValue() {
+        return val;
+    }
+    
     public String toString() {
         return "remove-number(" + var + ", " + val + ")";
     }
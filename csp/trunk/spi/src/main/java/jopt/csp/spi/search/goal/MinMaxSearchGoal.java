@@ -34,6 +34,8 @@ public abstract class MinMaxSearchGoal implements SearchGoal {
     protected double bestObjectiveVal;
     protected boolean constraintPosted = false;
     protected boolean strict = true;
+    protected SharedObjectiveBound sharedBound;
+    protected boolean postBound = true;
     
     /**
      * Initializes internal goal variables
@@ -89,6 +91,7 @@ public abstract class MinMaxSearchGoal implements SearchGoal {
             hasSolution = true;
             solutionIsOk = true;
             solutionRefs.add(treeLocationRef);
+            if (sharedBound!=null) sharedBound.offer(bestObjectiveVal, this);
         }
         
         // compare solutions to determine if node should be kept
@@ -106,6 +109,7 @@ public abstract class MinMaxSearchGoal implements SearchGoal {
                 solutionRefs.clear();
                 bestObjectiveVal = newObjVal;
                 solutionIsOk = true;
+                if (sharedBound!=null) sharedBound.offer(bestObjectiveVal, this);
 	        }
 
 	        // record solution if it is ok
@@ -134,6 +138,47 @@ public abstract class MinMaxSearchGoal implements SearchGoal {
      */
     protected abstract int compareObjectives(double bestVal, double newVal);
     
+    /**
+     * Returns true if the second objective value is better than the first
+     * 
+     * @param bestVal       Best known objective value in comparison
+     * @param newVal        New possible value in comparison
+     */
+    public boolean isImprovement(double bestVal, double newVal) {
+        return compareObjectives(bestVal, newVal) > 0;
+    }
+    
+    /**
+     * Shares the best objective value of this goal with goals searching
+     * copies of the problem on other threads.  Open nodes are bounded by
+     * the best value located by any of the goals.
+     * 
+     * @param sharedBound   Bound shared by goals, or null to stop sharing
+     */
+    public void setSharedBound(SharedObjectiveBound sharedBound) {
+        this.sharedBound = sharedBound;
+    }
+    
+    /**
+     * Returns the bound shared with other goals, or null if not shared
+     */
+    public SharedObjectiveBound getSharedBound() {
+        return sharedBound;
+    }
+    
+    /**
+     * Sets whether the bound on the objective is posted to the problem when a
+     * node is activated or only checked.  Posting the bound removes values that
+     * cannot improve the objective, which changes the choices made by actions
+     * below the node.  Searches that replay paths recorded in the tree of another
+     * problem with a different bound should only check it.
+     * 
+     * @param postBound     True to post the bound, false to only check it
+     */
+    public void setPostBound(boolean postBound) {
+        this.postBound = postBound;
+    }
+    
     // javadoc inherited from SearchGoal
     public double bestObjectiveValue() {
     	return bestObjectiveVal;
@@ -142,7 +187,7 @@ public abstract class MinMaxSearchGoal implements SearchGoal {
     // javadoc inherited from SearchGoal
     public void returnBoundToObjectiveValue(double objective) {
         try {
-            if (hasSolution)
+            if (hasSolution && postBound)
             	updateBound(objective);
         }
         catch(PropagationFailureException propx) {
@@ -167,9 +212,22 @@ public abstract class MinMaxSearchGoal implements SearchGoal {
                 constraintPosted = true;
             }
             
-            // update var's min / max value
-            if (hasSolution) {
-                updateBound(bestObjectiveVal);
+            // update var's min / max value using best of local and shared objectives
+            double bound = bestObjectiveVal;
+            boolean bounded = hasSolution;
+            if (sharedBound!=null && sharedBound.hasObjectiveValue()) {
+                double sharedVal = sharedBound.getObjectiveValue();
+                if (!bounded || isImprovement(bound, sharedVal)) {
+                    bound = sharedVal;
+                    bounded = true;
+                }
+            }
+            
+            if (bounded) {
+                if (postBound)
+                    updateBound(bound);
+                else if (!isBoundSatisfiable(bound))
+                    throw new PropagationFailureException("objective cannot improve upon bound");
             }
         }
         finally {
@@ -200,6 +258,14 @@ public abstract class MinMaxSearchGoal implements SearchGoal {
      */
     protected abstract void updateBound(double n) throws PropagationFailureException;
     
+    /**
+     * Returns true if the goal's expression can still satisfy a bound
+     * without the bound being posted to the problem
+     * 
+     * @param n     Bound for expression
+     */
+    protected abstract boolean isBoundSatisfiable(double n);
+    
     /**
      * Creates a variable if the expression this goal is based upon is not concrete
      */
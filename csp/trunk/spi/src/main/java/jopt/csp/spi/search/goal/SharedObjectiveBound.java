@@ -0,0 +1,42 @@
+package jopt.csp.spi.search.goal;
+
+/**
+ * Best objective value shared by minimize or maximize goals that are
+ * searching copies of the same problem on different threads.  Each goal
+ * offers the objective values of solutions it locates and bounds the
+ * search of open nodes by the best value offered by any goal.
+ */
+public class SharedObjectiveBound {
+    private volatile double objectiveVal;
+    private volatile boolean hasObjective;
+
+    /**
+     * Returns true if any goal has offered an objective value
+     */
+    public boolean hasObjectiveValue() {
+        return hasObjective;
+    }
+
+    /**
+     * Returns the best objective value offered by any goal
+     */
+    public double getObjectiveValue() {
+        return objectiveVal;
+    }
+
+    /**
+     * Records an objective value if it is better than the best known value
+     *
+     * @param newVal    Objective value of a solution located by goal
+     * @param goal      Goal used to compare objective values
+     * @return True if the value is the new best objective value
+     */
+    public synchronized boolean offer(double newVal, MinMaxSearchGoal goal) {
+        if (hasObjective && !goal.isImprovement(objectiveVal, newVal)) return false;
+
+        // value must be written before flag so readers never see unset value
+        objectiveVal = newVal;
+        hasObjective = true;
+        return true;
+    }
+}
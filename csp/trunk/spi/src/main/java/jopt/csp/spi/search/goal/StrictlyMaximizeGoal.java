@@ -39,6 +39,11 @@ public class StrictlyMaximizeGoal extends MinMaxSearchGoal {
         return DoubleUtil.getMin(expr);
     }
 
+    // javadoc inherited from MinMaxSearchGoal
+    protected boolean isBoundSatisfiable(double objectiveVal) {
+        return DoubleUtil.getMax(expr) >= objectiveVal+stepSize;
+    }
+
     // javadoc inherited from MinMaxSearchGoal
     protected void updateBound(double objectiveVal) throws PropagationFailureException {
         if (var instanceof CspIntVariable) {
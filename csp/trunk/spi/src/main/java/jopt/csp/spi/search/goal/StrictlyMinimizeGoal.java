@@ -43,6 +43,11 @@ public class StrictlyMinimizeGoal extends MinMaxSearchGoal {
     	return DoubleUtil.getMax(expr);
     }
 
+    // javadoc inherited from MinMaxSearchGoal
+    protected boolean isBoundSatisfiable(double objectiveVal) {
+        return DoubleUtil.getMin(expr) <= objectiveVal-stepSize;
+    }
+
     // javadoc inherited from MinMaxSearchGoal
     protected void updateBound(double objectiveVal) throws PropagationFailureException {
     	if (var instanceof CspIntVariable) {
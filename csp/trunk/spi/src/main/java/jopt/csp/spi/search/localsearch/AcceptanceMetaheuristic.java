@@ -0,0 +1,111 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.Metaheuristic;
+import jopt.csp.search.NeighborCheck;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspConstraint;
+import jopt.csp.variable.CspNumExpr;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Base class for metaheuristics that accept any neighbor whose objective is
+ * not worse than the objective of the current solution by more than an
+ * allowance computed for each move.  The allowance is posted as a constraint
+ * on the objective when the initial solution of a move is set, so neighbors
+ * outside of it fail when restored and the first remaining neighbor of the
+ * neighborhood is selected.  Neighborhoods should be randomized when the
+ * order of neighbors should not favor particular moves.
+ * <p>
+ * Objectives are compared as costs to be minimized, so the objective of a
+ * solution that is maximized is negated before being passed to subclasses.
+ *
+ * @see SimulatedAnnealingMetaheuristic
+ * @see ThresholdAcceptingMetaheuristic
+ * @see LateAcceptanceMetaheuristic
+ */
+public abstract class AcceptanceMetaheuristic implements Metaheuristic {
+    private ConstraintStore store;
+    private NeighborCheck nc;
+    private int iteration;
+
+    /**
+     * Creates a new acceptance metaheuristic
+     *
+     * @param store     Constraint store that search is being performed upon
+     */
+    protected AcceptanceMetaheuristic(ConstraintStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the amount the cost of a neighbor may exceed the cost of the
+     * current solution and still be accepted.  Called once per move.
+     *
+     * @param iteration     Number of moves attempted before this move
+     * @param cost          Cost of current solution
+     * @return Allowed increase in cost, values less than zero are treated as zero
+     */
+    protected abstract double getAllowance(int iteration, double cost);
+
+    // javadoc inherited from Metaheuristic
+    public boolean setInitialSolution(SolverSolution initial) throws PropagationFailureException {
+        if (nc != null)
+            nc.setInitialSolution(initial);
+
+        // retrieve objective information for solution
+        CspNumExpr obj = initial.getObjectiveExpression();
+        boolean minimize = initial.isMinimizeObjective();
+
+        if (obj != null && (minimize || initial.isMaximizeObjective())) {
+            double cost = minimize ? initial.getObjectiveVal() : -initial.getObjectiveVal();
+            double limit = cost + Math.max(0, getAllowance(iteration, cost));
+
+            // obj <= limit when minimizing, obj >= -limit when maximizing
+            CspConstraint constraint = null;
+            if (minimize)
+                constraint = ImproveSolutionAction.createImprovementConstraint(obj, limit, true);
+            else
+                constraint = ImproveSolutionAction.createImprovementConstraint(obj, -limit, false);
+
+            store.addConstraint(constraint, false);
+        }
+
+        iteration++;
+        return true;
+    }
+
+    // javadoc inherited from Metaheuristic
+    public boolean isAcceptableNeighbor(SolverSolution neighbor) {
+        if (nc != null)
+            return nc.isValidNeighbor(neighbor);
+
+        return true;
+    }
+
+    // javadoc inherited from Metaheuristic
+    public boolean isRestoredNeighborValid(SolverSolution neighbor) {
+        return true;
+    }
+
+    // javadoc inherited from Metaheuristic
+    public void neighborSelected(SolverSolution neighbor) {
+    }
+
+    /**
+     * Returns the number of moves that have been attempted
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    // javadoc inherited from Metaheuristic
+    public NeighborCheck getNeighborCheck() {
+        return nc;
+    }
+
+    // javadoc inherited from Metaheuristic
+    public void setNeighborCheck(NeighborCheck nc) {
+        this.nc = nc;
+    }
+}
@@ -24,6 +24,20 @@ import jopt.csp.variable.PropagationFailureException;
  * This action is not a replacement of the restore neighboring solution
  * method in the CspSolver class. It is just a convenient way of calling 
  * the restore during a search.
+ * <p>
+ * When the neighborhood is a {@link jopt.csp.search.DeltaNeighborhood} and the
+ * initial solution is consistent with the problem, neighbors that are not
+ * consistent with the problem are skipped without being restored.  The initial
+ * solution is restored and each neighbor is checked by propagating only the
+ * variables it changes and the nodes they reach, so only consistent neighbors
+ * pay the cost of restoring the entire solution.
+ * <p>
+ * Browsing is not incremental: each consistent neighbor is still restored in
+ * its entirety as a child of the search tree.  The choicepoint stack records
+ * only values removed from domains, so the nodes relaxed to evaluate a neighbor
+ * could not be restored when the search backtracks out of the child.  Browsing
+ * a neighborhood whose neighbors are mostly consistent is therefore little
+ * faster than restoring every neighbor.
  * 
  * @author Nick Coleman
  * @version $Revision: 1.13 $
@@ -39,6 +53,7 @@ public class BrowseNeighborhoodAction extends AbstractSearchNodeAction {
     private Metaheuristic meta;
     private CurrentNeighbor current;
     private int nextNeighbor;
+    private NeighborDeltaEvaluator delta;
     
     /**
      * Creates new scan neighbors action
@@ -62,19 +77,20 @@ public class BrowseNeighborhoodAction extends AbstractSearchNodeAction {
      * @param current       Updated as neighbors are restored to solver to store the currently selected neighbor
      */
     public BrowseNeighborhoodAction(ConstraintStore store, SolverSolution initial, Neighborhood hood, Metaheuristic meta, CurrentNeighbor current) {
-        this(store, initial, hood, meta, current, 0);
+        this(store, initial, hood, meta, current, 0, null);
     }
     
     /**
      * Internal constructor to save memory by reusing previous list
      */
-    private BrowseNeighborhoodAction(ConstraintStore store, SolverSolution initial, Neighborhood hood, Metaheuristic meta, CurrentNeighbor current, int nextNeighbor) {
+    private BrowseNeighborhoodAction(ConstraintStore store, SolverSolution initial, Neighborhood hood, Metaheuristic meta, CurrentNeighbor current, int nextNeighbor, NeighborDeltaEvaluator delta) {
         this.store = store;
         this.initial = initial;
         this.hood = hood;
         this.meta = meta;
         this.current = current;
         this.nextNeighbor = nextNeighbor;
+        this.delta = delta;
     }
     
     /**
@@ -90,8 +106,13 @@ public class BrowseNeighborhoodAction extends AbstractSearchNodeAction {
             if (meta!=null) {
                 meta.setInitialSolution(initial);
             }
+            
+            delta = NeighborDeltaEvaluator.create(store, initial, hood);
         }
         
+        // restore initial solution if neighbors can be checked by delta
+        boolean checkDelta = (delta!=null && delta.restoreInitial());
+        
         // search for valid neighbor
         SolverSolution neighbor = null;
         while (neighbor==null && nextNeighbor < hood.size()) {
@@ -113,9 +134,18 @@ public class BrowseNeighborhoodAction extends AbstractSearchNodeAction {
                     neighbor = null;
                     nextNeighbor++;
                 }
+                
+                // check if neighbor is consistent with problem
+                if (neighbor!=null && checkDelta && !delta.isConsistent(nextNeighbor, neighbor)) {
+                    neighbor = null;
+                    nextNeighbor++;
+                }
             }
         }
         
+        if (checkDelta)
+            delta.removeInitial();
+        
         // check if a neighboring solution was located
         if (neighbor==null)
             throw new PropagationFailureException();
@@ -125,7 +155,7 @@ public class BrowseNeighborhoodAction extends AbstractSearchNodeAction {
         
         // check if other neighbors exist in the list
         if (nextNeighbor < hood.size()-1) {
-        	SearchAction browseOthers = new BrowseNeighborhoodAction(store, initial, hood, meta, current, nextNeighbor+1);
+        	SearchAction browseOthers = new BrowseNeighborhoodAction(store, initial, hood, meta, current, nextNeighbor+1, delta);
             return choice(restore, browseOthers);
         }
         
@@ -3,9 +3,15 @@ package jopt.csp.spi.search.localsearch;
 import java.util.Arrays;
 import java.util.List;
 
+import jopt.csp.search.CompactNeighborhood;
+import jopt.csp.search.DeltaNeighborhood;
 import jopt.csp.search.Neighborhood;
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
+import jopt.csp.solution.SolutionLayout;
 import jopt.csp.solution.SolverSolution;
 import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariable;
 
 /**
  * Creates a neighbor hood that is useful for flipping 0 and 1
@@ -17,10 +23,12 @@ import jopt.csp.variable.CspIntVariable;
  * @version $Revision: 1.7 $
  * @see BrowseNeighborhoodAction
  */
-public class FlipNeighborhood implements Neighborhood {
+public class FlipNeighborhood implements DeltaNeighborhood, CompactNeighborhood {
     private SolverSolution initial;
     private List<CspIntVariable> vars;
     private int lastSelected=-1;
+    private SolutionLayout layout;
+    private int layoutIndices[];
     
     /**
      * Creates a flip neighborhood base on an array of binary variables
@@ -56,6 +64,34 @@ public class FlipNeighborhood implements Neighborhood {
         return sol;
     }
 
+    // javadoc inherited from CompactNeighborhood
+    public void getNeighbor(int i, CompactSolution initial, CompactNeighbor neighbor) {
+        // look up index of each variable once per layout
+        if (layout != initial.getLayout()) {
+            layout = initial.getLayout();
+            layoutIndices = new int[vars.size()];
+            for (int j=0; j<layoutIndices.length; j++) {
+                layoutIndices[j] = layout.indexOf(vars.get(j));
+                if (layoutIndices[j] < 0)
+                    throw new IllegalArgumentException("variable " + vars.get(j) + " is not contained in solution");
+            }
+        }
+        
+        // determine value to assign to variable
+        int index = layoutIndices[i];
+        long val = 0;
+        if (initial.getIntegralMin(index) == 0 && initial.getIntegralMax(index) == 0)
+            val = 1;
+        
+        neighbor.clear();
+        neighbor.setRange(index, val, val);
+    }
+
+    // javadoc inherited from DeltaNeighborhood
+    public CspVariable[] getChangedVariables(int i) {
+        return new CspVariable[] {vars.get(i)};
+    }
+
     // javadoc inherited from Neighborhood
     public void neighborSelected(int i) {
          this.lastSelected = i;
@@ -0,0 +1,34 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.CoolingSchedule;
+
+/**
+ * Cooling schedule that multiplies the temperature by a constant factor
+ * after each move
+ *
+ * @see SimulatedAnnealingMetaheuristic
+ * @see ThresholdAcceptingMetaheuristic
+ */
+public class GeometricCooling implements CoolingSchedule {
+    private double initial;
+    private double alpha;
+
+    /**
+     * Creates a new geometric cooling schedule
+     *
+     * @param initial   Temperature of first move
+     * @param alpha     Factor temperature is multiplied by after each move, between 0 and 1
+     */
+    public GeometricCooling(double initial, double alpha) {
+        if (alpha <= 0 || alpha > 1)
+            throw new IllegalArgumentException("cooling factor must be greater than 0 and no more than 1");
+
+        this.initial = Math.max(0, initial);
+        this.alpha = alpha;
+    }
+
+    // javadoc inherited from CoolingSchedule
+    public double getTemperature(int iteration) {
+        return initial * Math.pow(alpha, iteration);
+    }
+}
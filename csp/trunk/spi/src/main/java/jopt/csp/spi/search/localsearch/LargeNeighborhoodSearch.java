@@ -0,0 +1,276 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.RelaxationSelector;
+import jopt.csp.search.Search;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchGoal;
+import jopt.csp.solution.IntSolution;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.search.technique.FailureCountingSearch;
+import jopt.csp.spi.search.technique.TreeSearch;
+import jopt.csp.spi.search.tree.BasicSearchNode;
+import jopt.csp.spi.search.tree.CrawlingSearchTree;
+import jopt.csp.spi.search.tree.RecalculatingStateManager;
+import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.util.DoubleUtil;
+import jopt.csp.variable.CspConstraint;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongExpr;
+import jopt.csp.variable.CspNumExpr;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Large neighborhood search that repeatedly relaxes part of an incumbent
+ * solution and searches the relaxed variables for a better solution.  Each
+ * iteration fixes the variables chosen by a {@link RelaxationSelector} to
+ * their values in the incumbent, requires the objective to improve upon the
+ * incumbent, and performs a depth first search of the tree generated by an
+ * action that is stopped once a number of failures has been reached.  The
+ * first improving solution located replaces the incumbent and is returned.
+ * <p>
+ * The number of variables relaxed adapts to the problem.  When an iteration
+ * searches its entire neighborhood without locating an improving solution, the
+ * neighborhood was too small to contain one and more variables are relaxed in
+ * the next iteration.  When an iteration is stopped by the failure limit, the
+ * neighborhood was too large to search and fewer variables are relaxed.  Once
+ * every variable is relaxed and the entire tree is searched without
+ * improvement, the incumbent is optimal and the search ends.
+ * <p>
+ * Each iteration is performed within a choicepoint of the constraint store so
+ * that the problem is restored before the next iteration.  If the incumbent
+ * does not contain a value for every variable when the search starts, the
+ * tree generated by the action is searched without relaxation to locate an
+ * initial solution.  When a solution is returned it is restored to the
+ * problem until the next solution is requested.
+ */
+public class LargeNeighborhoodSearch implements Search {
+    // fraction of the relaxation size by which it grows or shrinks after an iteration
+    private final static double ADAPT_FACTOR = 0.1;
+
+    private ConstraintStore store;
+    private SolverSolution incumbent;
+    private CspIntVariable vars[];
+    private SearchAction action;
+    private RelaxationSelector selector;
+    private int failLimit;
+    private int maxIterations;
+
+    private int relaxCount;
+    private int iterationCount;
+    private int improvementCount;
+    private boolean started;
+    private boolean restored;
+    private boolean exhausted;
+
+    /**
+     * Creates a new large neighborhood search
+     *
+     * @param store         Constraint store search is performed upon
+     * @param incumbent     Solution defining the objective that is updated as
+     *                      better solutions are located
+     * @param vars          Variables that are fixed or relaxed by each iteration,
+     *                      which are added to the incumbent if not already in it
+     * @param action        Action that will generate the tree searched in each iteration
+     * @param selector      Selector used to choose the variables that are relaxed
+     * @param failLimit     Number of failures after which an iteration is stopped
+     * @param maxIterations Number of iterations after which the search ends
+     */
+    public LargeNeighborhoodSearch(ConstraintStore store, SolverSolution incumbent, CspIntVariable vars[],
+            SearchAction action, RelaxationSelector selector, int failLimit, int maxIterations)
+    {
+        if (!incumbent.isMinimizeObjective() && !incumbent.isMaximizeObjective())
+            throw new IllegalArgumentException("incumbent must define an objective to improve");
+        if (failLimit < 1)
+            throw new IllegalArgumentException("iterations must allow at least one failure");
+
+        this.store = store;
+        this.incumbent = incumbent;
+        this.vars = vars;
+        this.action = action;
+        this.selector = selector;
+        this.failLimit = failLimit;
+        this.maxIterations = maxIterations;
+        this.relaxCount = Math.max(1, vars.length / 5);
+
+        for (int i=0; i<vars.length; i++)
+            if (!incumbent.contains(vars[i])) incumbent.add(vars[i]);
+    }
+
+    // javadoc inherited from Search
+    public void setGoal(SearchGoal goal) {
+        if (goal!=null)
+            throw new UnsupportedOperationException("objective of large neighborhood search is defined by the incumbent");
+    }
+
+    // javadoc inherited from Search
+    public void setContinuallyImprove(boolean improve) {
+        if (!improve)
+            throw new UnsupportedOperationException("large neighborhood search must return solutions that improve the incumbent");
+    }
+
+    /**
+     * Returns the solution that is updated each time a better solution is located
+     */
+    public SolverSolution getIncumbent() {
+        return incumbent;
+    }
+
+    /**
+     * Returns the number of variables that the next iteration will leave relaxed
+     */
+    public int getRelaxationSize() {
+        return relaxCount;
+    }
+
+    /**
+     * Sets the number of variables that the next iteration will leave relaxed
+     */
+    public void setRelaxationSize(int relaxCount) {
+        this.relaxCount = Math.max(1, Math.min(vars.length, relaxCount));
+    }
+
+    /**
+     * Returns the number of iterations performed
+     */
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Returns the number of iterations that improved the incumbent
+     */
+    public int getImprovementCount() {
+        return improvementCount;
+    }
+
+    // javadoc inherited from Search
+    public boolean nextSolution() {
+        ChoicePointStack cps = store.getChoicePointStack();
+
+        // remove solution restored when last solution was returned
+        if (restored) {
+            cps.pop();
+            restored = false;
+        }
+
+        if (!started) {
+            started = true;
+            if (!isComplete()) {
+                if (iterate(false)) return restoreIncumbent();
+                exhausted = true;
+            }
+        }
+
+        while (!exhausted && iterationCount < maxIterations) {
+            iterationCount++;
+            if (iterate(true)) {
+                improvementCount++;
+                return restoreIncumbent();
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns true if the incumbent contains a value for every variable
+     */
+    private boolean isComplete() {
+        for (int i=0; i<vars.length; i++) {
+            IntSolution sol = incumbent.getSolution(vars[i]);
+            if (!sol.isBound()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Searches for a solution better than the incumbent and adapts the number
+     * of variables relaxed to the outcome of the search
+     *
+     * @param relax     True if variables should be relaxed from the incumbent,
+     *                  false to search for an initial solution
+     * @return True if the incumbent was replaced by a better solution
+     */
+    private boolean iterate(boolean relax) {
+        ChoicePointStack cps = store.getChoicePointStack();
+        cps.push();
+
+        FailureCountingSearch technique = new FailureCountingSearch(relax ? failLimit : Integer.MAX_VALUE);
+        SearchTree tree = null;
+        boolean improved = false;
+        try {
+            if (relax) {
+                store.addConstraint(improvementConstraint(), false);
+                selector.fix(vars, incumbent, relaxCount);
+            }
+
+            tree = new CrawlingSearchTree(new BasicSearchNode(action), new RecalculatingStateManager(store));
+            if (new TreeSearch(tree, technique).nextSolution()) {
+                store.storeSolution(incumbent);
+                improved = true;
+            }
+        }
+        catch (PropagationFailureException propx) {
+            // fixed values cannot be extended to a better solution
+        }
+
+        // return tree to root and restore problem
+        while (tree!=null && tree.getCurrentNode().getDepth() > 0)
+            tree.moveToParent();
+        cps.pop();
+
+        if (relax && !improved) {
+            int change = Math.max(1, (int) (relaxCount * ADAPT_FACTOR));
+
+            // neighborhood was too large to search within failure limit
+            if (technique.isCutoff())
+                relaxCount = Math.max(1, relaxCount - change);
+
+            // searching entire problem without improvement proves incumbent is optimal
+            else if (relaxCount >= vars.length)
+                exhausted = true;
+
+            // neighborhood was searched and contained no better solution
+            else
+                relaxCount = Math.min(vars.length, relaxCount + change);
+        }
+
+        return improved;
+    }
+
+    /**
+     * Returns a constraint requiring the objective to improve upon the incumbent
+     */
+    private CspConstraint improvementConstraint() {
+        CspNumExpr obj = incumbent.getObjectiveExpression();
+        double step = (obj instanceof CspIntExpr || obj instanceof CspLongExpr) ? 1 : DoubleUtil.DEFAULT_PRECISION;
+
+        if (incumbent.isMinimizeObjective())
+            return ImproveSolutionAction.createImprovementConstraint(obj, incumbent.getObjectiveVal() - step, true);
+        else
+            return ImproveSolutionAction.createImprovementConstraint(obj, incumbent.getObjectiveVal() + step, false);
+    }
+
+    /**
+     * Restores the incumbent to the problem within a choicepoint that is
+     * removed when the next solution is requested
+     */
+    private boolean restoreIncumbent() {
+        ChoicePointStack cps = store.getChoicePointStack();
+        cps.push();
+        try {
+            store.restoreSolution(incumbent);
+        }
+        catch (PropagationFailureException propx) {
+            cps.pop();
+            exhausted = true;
+            return false;
+        }
+
+        restored = true;
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.spi.solver.ConstraintStore;
+
+/**
+ * Late acceptance hill climbing metaheuristic of Burke and Bykov that accepts
+ * a neighbor if its objective is no worse than the objective of the current
+ * solution or the objective the current solution had a fixed number of moves
+ * earlier.  The objectives of past solutions are kept in a circular history,
+ * which needs no cooling schedule to be tuned.
+ */
+public class LateAcceptanceMetaheuristic extends AcceptanceMetaheuristic {
+    private double history[];
+    private double cost;
+
+    /**
+     * Creates a new late acceptance metaheuristic
+     *
+     * @param store         Constraint store that search is being performed upon
+     * @param historyLength Number of moves between a solution and the solution it is compared to
+     */
+    public LateAcceptanceMetaheuristic(ConstraintStore store, int historyLength) {
+        super(store);
+        if (historyLength < 1)
+            throw new IllegalArgumentException("history length must be at least 1");
+
+        this.history = new double[historyLength];
+    }
+
+    // javadoc inherited from AcceptanceMetaheuristic
+    protected double getAllowance(int iteration, double cost) {
+        this.cost = cost;
+
+        // history begins filled with cost of first solution
+        if (iteration == 0) {
+            for (int i=0; i<history.length; i++)
+                history[i] = cost;
+        }
+
+        // record cost of solution resulting from previous move
+        else {
+            history[(iteration - 1) % history.length] = cost;
+        }
+
+        return history[iteration % history.length] - cost;
+    }
+
+    /**
+     * Returns true if a later move will compare neighbors against a solution
+     * that was worse than the current solution
+     */
+    public boolean continueSearch() {
+        for (int i=0; i<history.length; i++) {
+            if (history[i] > cost)
+                return true;
+        }
+
+        return false;
+    }
+}
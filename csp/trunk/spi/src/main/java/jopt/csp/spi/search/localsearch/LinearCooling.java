@@ -0,0 +1,34 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.CoolingSchedule;
+
+/**
+ * Cooling schedule that subtracts a constant amount from the temperature
+ * after each move until it reaches zero
+ *
+ * @see SimulatedAnnealingMetaheuristic
+ * @see ThresholdAcceptingMetaheuristic
+ */
+public class LinearCooling implements CoolingSchedule {
+    private double initial;
+    private double decrement;
+
+    /**
+     * Creates a new linear cooling schedule
+     *
+     * @param initial   Temperature of first move
+     * @param decrement Amount subtracted from temperature after each move
+     */
+    public LinearCooling(double initial, double decrement) {
+        if (decrement < 0)
+            throw new IllegalArgumentException("cooling decrement cannot be negative");
+
+        this.initial = Math.max(0, initial);
+        this.decrement = decrement;
+    }
+
+    // javadoc inherited from CoolingSchedule
+    public double getTemperature(int iteration) {
+        return Math.max(0, initial - decrement * iteration);
+    }
+}
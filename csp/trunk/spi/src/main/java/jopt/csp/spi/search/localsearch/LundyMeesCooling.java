@@ -0,0 +1,36 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.CoolingSchedule;
+
+/**
+ * Cooling schedule of Lundy and Mees where each move lowers the temperature
+ * <code>t</code> to <code>t / (1 + beta * t)</code>, cooling quickly while
+ * the temperature is high and slowly as it approaches zero
+ *
+ * @see SimulatedAnnealingMetaheuristic
+ * @see ThresholdAcceptingMetaheuristic
+ */
+public class LundyMeesCooling implements CoolingSchedule {
+    private double initial;
+    private double beta;
+
+    /**
+     * Creates a new Lundy and Mees cooling schedule
+     *
+     * @param initial   Temperature of first move
+     * @param beta      Rate of cooling, greater than 0
+     */
+    public LundyMeesCooling(double initial, double beta) {
+        if (beta <= 0)
+            throw new IllegalArgumentException("cooling rate must be greater than 0");
+
+        this.initial = Math.max(0, initial);
+        this.beta = beta;
+    }
+
+    // javadoc inherited from CoolingSchedule
+    public double getTemperature(int iteration) {
+        // closed form of repeatedly applying t / (1 + beta * t)
+        return initial / (1 + iteration * beta * initial);
+    }
+}
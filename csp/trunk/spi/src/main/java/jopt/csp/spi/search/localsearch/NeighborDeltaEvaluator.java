@@ -0,0 +1,196 @@
+package jopt.csp.spi.search.localsearch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import jopt.csp.search.DeltaNeighborhood;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.arcalgorithm.ArcBasedAcAlg;
+import jopt.csp.spi.arcalgorithm.NeighborRelaxation;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Evaluates the neighbors of a {@link DeltaNeighborhood} by restoring the
+ * initial solution once and then propagating only the variables each neighbor
+ * changes and the nodes they reach.  Nodes that are not reached keep the
+ * domains propagated from the initial solution, so the work to evaluate a
+ * neighbor depends upon the size of its change rather than the size of the
+ * problem.  The initial solution and each neighbor are restored within
+ * choicepoints, so the problem is unchanged once evaluation is complete.
+ * <p>
+ * Tabu moves use the evaluation to compute the objective of every neighbor,
+ * while browsing only uses it to skip inconsistent neighbors and restores the
+ * neighbors it selects in their entirety.
+ *
+ * @see NeighborRelaxation
+ */
+class NeighborDeltaEvaluator {
+    private ConstraintStore store;
+    private SolverSolution initial;
+    private ChangedVariables changes;
+    private NeighborRelaxation relaxation;
+    private boolean consistent;
+
+    private NeighborDeltaEvaluator(ConstraintStore store, SolverSolution initial, ChangedVariables changes, NeighborRelaxation relaxation) {
+        this.store = store;
+        this.initial = initial;
+        this.changes = changes;
+        this.relaxation = relaxation;
+        this.consistent = true;
+    }
+
+    /**
+     * Creates an evaluator for the neighbors of an initial solution, recording
+     * the current state of the problem, which must be the state in which the
+     * initial solution is later restored
+     *
+     * @return Evaluator of neighbors or null if neighbors of the neighborhood
+     *          cannot be evaluated by delta
+     */
+    public static NeighborDeltaEvaluator create(ConstraintStore store, SolverSolution initial, Neighborhood hood) {
+        if (!(hood instanceof DeltaNeighborhood)) return null;
+
+        final DeltaNeighborhood deltaHood = (DeltaNeighborhood) hood;
+        return create(store, initial, new ChangedVariables() {
+            public CspVariable[] getChangedVariables(int i) {
+                return deltaHood.getChangedVariables(i);
+            }
+        });
+    }
+
+    /**
+     * Creates an evaluator for neighbors of an initial solution whose changed
+     * variables are reported by a callback, recording the current state of the
+     * problem, which must be the state in which the initial solution is later
+     * restored
+     *
+     * @param changes   Source of the variables of the problem changed by each neighbor
+     * @return Evaluator of neighbors or null if the problem cannot be evaluated by delta
+     */
+    static NeighborDeltaEvaluator create(ConstraintStore store, SolverSolution initial, ChangedVariables changes) {
+        if (!store.getAutoPropagate() || !(store.getConstraintAlg() instanceof ArcBasedAcAlg))
+            return null;
+
+        // variables of initial solution that will be restored, of which those
+        // stored with a single value will be bound when it is restored
+        List<CspVariable> vars = new ArrayList<CspVariable>();
+        List<CspVariable> scope = new ArrayList<CspVariable>();
+        Iterator<CspVariable> varIter = initial.variables().iterator();
+        while (varIter.hasNext()) {
+            CspVariable var = varIter.next();
+            if (initial.isRestorable(var)) {
+                vars.add(var);
+                if (initial.getSolution(var).isBound()) scope.add(var);
+            }
+        }
+
+        ArcBasedAcAlg alg = (ArcBasedAcAlg) store.getConstraintAlg();
+        NeighborRelaxation relaxation = alg.createNeighborRelaxation(vars, scope);
+        if (!relaxation.isSupported()) return null;
+
+        return new NeighborDeltaEvaluator(store, initial, changes, relaxation);
+    }
+
+    /**
+     * Restores the initial solution within a choicepoint so that neighbors
+     * can be evaluated.  If the initial solution is not consistent with the
+     * problem, its neighbors may still be, but they cannot be evaluated by
+     * delta and the problem is left unchanged.  The same is true when
+     * restoring the initial solution posts constraints to the graph, such as
+     * a constraint whose boolean is bound by the solution, since the arcs of
+     * those constraints are not known to the relaxation.  The result is
+     * remembered, so the initial solution is not restored again once it has
+     * failed.
+     *
+     * @return True if the initial solution was restored
+     */
+    public boolean restoreInitial() {
+        if (!consistent) return false;
+
+        ChoicePointStack cps = store.getChoicePointStack();
+        cps.push();
+        try {
+            store.restoreSolution(initial);
+            consistent = relaxation.isSupported();
+        }
+        catch (PropagationFailureException propx) {
+            consistent = false;
+        }
+
+        if (!consistent) {
+            cps.pop();
+            relaxation.restoreOutside();
+        }
+        return consistent;
+    }
+
+    /**
+     * Removes the initial solution restored by {@link #restoreInitial()}
+     */
+    public void removeInitial() {
+        store.getChoicePointStack().pop();
+        relaxation.restoreOutside();
+    }
+
+    /**
+     * Restores a neighbor within a choicepoint by relaxing the nodes its
+     * changes can reach and propagating its changed variables.  The neighbor
+     * must be removed by a call to {@link #removeNeighbor()} whether or not it
+     * was restored successfully.
+     *
+     * @param i         Index of neighbor within neighborhood
+     * @param neighbor  Neighbor at index within neighborhood
+     */
+    public void restoreNeighbor(int i, SolverSolution neighbor) throws PropagationFailureException {
+        store.getChoicePointStack().push();
+        CspVariable changed[] = changes.getChangedVariables(i);
+        relaxation.relax(changed);
+        store.restoreChangedVariables(initial, neighbor, changed);
+    }
+
+    /**
+     * Removes a neighbor restored by {@link #restoreNeighbor(int, SolverSolution)}
+     * returning the problem to the initial solution
+     */
+    public void removeNeighbor() {
+        store.getChoicePointStack().pop();
+        relaxation.restore();
+    }
+
+    /**
+     * Returns true if a neighbor is consistent with the problem.  The
+     * initial solution must have been restored.
+     *
+     * @param i         Index of neighbor within neighborhood
+     * @param neighbor  Neighbor at index within neighborhood
+     */
+    public boolean isConsistent(int i, SolverSolution neighbor) {
+        try {
+            restoreNeighbor(i, neighbor);
+            return true;
+        }
+        catch (PropagationFailureException propx) {
+            return false;
+        }
+        finally {
+            removeNeighbor();
+        }
+    }
+
+    /**
+     * Reports the variables of the problem changed by each neighbor evaluated
+     */
+    static interface ChangedVariables {
+        /**
+         * Returns the variables changed by the neighbor at an index
+         *
+         * @param i     Index of neighbor within neighborhood
+         */
+        public CspVariable[] getChangedVariables(int i);
+    }
+}
@@ -0,0 +1,134 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.CurrentNeighbor;
+import jopt.csp.search.Metaheuristic;
+import jopt.csp.search.NeighborEvaluator;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.search.SearchAction;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.search.tree.AbstractSearchNodeAction;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Browses the neighbors of a neighborhood after they have been evaluated in
+ * parallel by a {@link NeighborEvaluator}.  Only neighbors the evaluator found
+ * to be consistent with the problem are applied as alternative choices, in
+ * order from the best objective value to the worst, so the first neighbor
+ * that is acceptable to the metaheuristic is also the best acceptable
+ * neighbor.  Neighbors are checked against the metaheuristic as they are
+ * browsed, since metaheuristics are not expected to be thread safe.
+ *
+ * @see BrowseNeighborhoodAction
+ */
+public class ParallelBrowseNeighborhoodAction extends AbstractSearchNodeAction {
+    private ConstraintStore store;
+    private SolverSolution initial;
+    private Neighborhood hood;
+    private Metaheuristic meta;
+    private CurrentNeighbor current;
+    private NeighborEvaluator evaluator;
+    private int order[];
+    private int nextNeighbor;
+
+    /**
+     * Creates new parallel browse action
+     *
+     * @param store         Constraint store containing problem where solution will be restored
+     * @param initial       Initial solution related to neighbor
+     * @param hood          Neighborhood of solutions, each to be applied as an alternative choices
+     * @param meta          Metaheuristic used to filter invalid neighbors, or null if none
+     * @param current       Updated as neighbors are restored to solver to store the currently selected neighbor
+     * @param evaluator     Evaluator of neighbors
+     */
+    public ParallelBrowseNeighborhoodAction(ConstraintStore store, SolverSolution initial, Neighborhood hood,
+            Metaheuristic meta, CurrentNeighbor current, NeighborEvaluator evaluator)
+    {
+        this(store, initial, hood, meta, current, evaluator, null, 0);
+    }
+
+    /**
+     * Internal constructor to reuse order of neighbors located by evaluator
+     */
+    private ParallelBrowseNeighborhoodAction(ConstraintStore store, SolverSolution initial, Neighborhood hood,
+            Metaheuristic meta, CurrentNeighbor current, NeighborEvaluator evaluator, int order[], int nextNeighbor)
+    {
+        this.store = store;
+        this.initial = initial;
+        this.hood = hood;
+        this.meta = meta;
+        this.current = current;
+        this.evaluator = evaluator;
+        this.order = order;
+        this.nextNeighbor = nextNeighbor;
+    }
+
+    /**
+     * Called by search tree to execute this action.
+     *
+     * @return Next action to execute in search
+     */
+    public SearchAction performAction() throws PropagationFailureException {
+        // initialize neighborhood and metaheuristic and evaluate neighbors
+        if (order==null) {
+            hood.setInitialSolution(initial);
+
+            if (meta!=null) {
+                meta.setInitialSolution(initial);
+            }
+
+            order = evaluator.evaluate(initial, hood);
+        }
+
+        // search for neighbor acceptable to metaheuristic
+        SolverSolution neighbor = null;
+        while (neighbor==null && nextNeighbor < order.length) {
+            neighbor = hood.getNeighbor(order[nextNeighbor]);
+
+            if (neighbor==null || (meta!=null && !meta.isAcceptableNeighbor(neighbor))) {
+                neighbor = null;
+                nextNeighbor++;
+            }
+        }
+
+        // check if a neighboring solution was located
+        if (neighbor==null)
+            throw new PropagationFailureException();
+
+        // create action to restore next neighbor
+        SearchAction restore = new RestoreNeighbor(order[nextNeighbor], neighbor);
+
+        // check if other neighbors exist in the list
+        if (nextNeighbor < order.length-1) {
+            SearchAction browseOthers = new ParallelBrowseNeighborhoodAction(store, initial, hood, meta, current, evaluator, order, nextNeighbor+1);
+            return choice(restore, browseOthers);
+        }
+
+        return restore;
+    }
+
+    /**
+     * Action that restores a neighboring solution
+     */
+    private class RestoreNeighbor implements SearchAction {
+        private int index;
+        private SolverSolution neighbor;
+
+        protected RestoreNeighbor(int index, SolverSolution neighbor) {
+            this.index = index;
+            this.neighbor = neighbor;
+        }
+
+        public SearchAction performAction() throws PropagationFailureException {
+            store.restoreNeighboringSolution(initial, neighbor);
+
+            // update current neighbor
+            current.setNeighborhood(hood);
+            current.setMetaheuristic(meta);
+            current.setSolution(neighbor);
+            current.setIndex(index);
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package jopt.csp.spi.search.localsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jopt.csp.search.DeltaNeighborhood;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.search.NeighborEvaluator;
+import jopt.csp.search.NeighborReplica;
+import jopt.csp.search.NeighborReplicaModel;
+import jopt.csp.solution.BooleanSolution;
+import jopt.csp.solution.DoubleSolution;
+import jopt.csp.solution.FloatSolution;
+import jopt.csp.solution.IntSolution;
+import jopt.csp.solution.LongSolution;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.solution.VariableSolution;
+import jopt.csp.spi.SolverImpl;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.util.DoubleUtil;
+import jopt.csp.variable.CspBooleanVariable;
+import jopt.csp.variable.CspDoubleVariable;
+import jopt.csp.variable.CspFloatVariable;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.CspNumExpr;
+import jopt.csp.variable.CspVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Evaluates neighbors on a fixed size thread pool, with each worker restoring
+ * neighbors within its own copy of the problem.  Neighbor indices are handed
+ * out to workers in blocks as they finish their previous block, and each
+ * worker records whether the neighbors it restores are consistent and their
+ * objective values.  Once every worker is done, the consistent neighbors are
+ * ordered on the calling thread.
+ * <p>
+ * Neighbors are retrieved from the neighborhood while holding its lock, since
+ * neighborhoods are not expected to be thread safe, and their values are
+ * copied to the variables of the worker's copy of the problem.  Each worker
+ * restores the initial solution within its copy, so when the neighborhood is a
+ * {@link DeltaNeighborhood} only the variables each neighbor changes are
+ * propagated, as they are when neighbors are evaluated on a single thread.
+ */
+public class ParallelNeighborEvaluator implements NeighborEvaluator {
+    // number of neighbors a worker evaluates before retrieving more
+    private final static int BLOCK_SIZE = 32;
+
+    private CspVariable vars[];
+    private NeighborReplicaModel model;
+    private int workerCount;
+    private ExecutorService executor;
+    private Replica replicas[];
+
+    /**
+     * Creates a new evaluator
+     *
+     * @param vars      Variables of the problem in the same order as the
+     *                  variables of each copy returned by the model
+     * @param model     Model used to build a copy of the problem for each worker
+     * @param workers   Number of threads evaluating neighbors
+     */
+    public ParallelNeighborEvaluator(CspVariable vars[], NeighborReplicaModel model, int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("evaluator must have at least one worker");
+
+        this.vars = vars;
+        this.model = model;
+        this.workerCount = workers;
+        this.replicas = new Replica[workers];
+    }
+
+    // javadoc inherited from NeighborEvaluator
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    // javadoc inherited from NeighborEvaluator
+    public synchronized int[] evaluate(SolverSolution initial, Neighborhood hood) {
+        if (executor==null)
+            executor = Executors.newFixedThreadPool(workerCount, new WorkerThreadFactory());
+
+        int size = hood.size();
+        boolean consistent[] = new boolean[size];
+        double objectives[] = new double[size];
+        AtomicInteger nextBlock = new AtomicInteger();
+
+        List<Worker> workers = new ArrayList<Worker>(workerCount);
+        for (int i=0; i<workerCount; i++)
+            workers.add(new Worker(i, initial, hood, nextBlock, consistent, objectives));
+
+        try {
+            List<Future<Object>> results = executor.invokeAll(workers);
+
+            // rethrow the first error of any worker
+            for (int i=0; i<results.size(); i++) {
+                try {
+                    results.get(i).get();
+                }
+                catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw new RuntimeException("error in neighbor evaluation worker " + i, cause);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new int[0];
+        }
+
+        return order(initial, consistent, objectives);
+    }
+
+    /**
+     * Returns indices of consistent neighbors ordered from the best objective
+     * value to the worst followed by index
+     */
+    private int[] order(SolverSolution initial, boolean consistent[], final double objectives[]) {
+        int count = 0;
+        for (int i=0; i<consistent.length; i++)
+            if (consistent[i]) count++;
+
+        Integer indices[] = new Integer[count];
+        count = 0;
+        for (int i=0; i<consistent.length; i++)
+            if (consistent[i]) indices[count++] = new Integer(i);
+
+        // objective values are negated when maximizing so that lower is always better
+        if (initial.isMinimizeObjective() || initial.isMaximizeObjective()) {
+            Arrays.sort(indices, new Comparator<Integer>() {
+                public int compare(Integer i1, Integer i2) {
+                    int cmp = Double.compare(objectives[i1.intValue()], objectives[i2.intValue()]);
+                    return (cmp!=0) ? cmp : i1.compareTo(i2);
+                }
+            });
+        }
+
+        int order[] = new int[count];
+        for (int i=0; i<count; i++)
+            order[i] = indices[i].intValue();
+        return order;
+    }
+
+    // javadoc inherited from NeighborEvaluator
+    public synchronized void shutdown() {
+        if (executor!=null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        for (int i=0; i<workerCount; i++)
+            replicas[i] = null;
+    }
+
+    /**
+     * Builds the copy of the problem used by a worker
+     */
+    private Replica buildReplica(int worker) {
+        NeighborReplica replica = null;
+        try {
+            replica = model.buildReplica(worker);
+        }
+        catch (PropagationFailureException propx) {
+            // problem has no solution, so no neighbor is consistent
+            return new Replica(null, null, null);
+        }
+
+        if (!(replica.getSolver() instanceof SolverImpl))
+            throw new IllegalStateException("replica solver must be created by CspSolver");
+        CspVariable replicaVars[] = replica.getVariables();
+        if (replicaVars.length != vars.length)
+            throw new IllegalStateException("replica must contain " + vars.length + " variables");
+
+        ConstraintStore store = ((SolverImpl) replica.getSolver()).getConstraintStore();
+        Map<CspVariable, CspVariable> varMap = new HashMap<CspVariable, CspVariable>();
+        for (int i=0; i<vars.length; i++) {
+            varMap.put(vars[i], replicaVars[i]);
+            store.addVariable(replicaVars[i], true);
+        }
+
+        return new Replica(store, varMap, replica.getObjective());
+    }
+
+    /**
+     * Copy of the problem owned by a worker
+     */
+    private static class Replica {
+        private ConstraintStore store;
+        private Map<CspVariable, CspVariable> varMap;
+        private CspNumExpr objective;
+
+        public Replica(ConstraintStore store, Map<CspVariable, CspVariable> varMap, CspNumExpr objective) {
+            this.store = store;
+            this.varMap = varMap;
+            this.objective = objective;
+        }
+
+        /**
+         * Returns the variable of the copy corresponding to a variable of the problem
+         */
+        private CspVariable getVariable(CspVariable var) {
+            CspVariable replicaVar = varMap.get(var);
+            if (replicaVar==null)
+                throw new IllegalArgumentException("variable " + var + " is not replicated");
+            return replicaVar;
+        }
+
+        /**
+         * Copies the values of a solution of the problem to a solution of the copy
+         */
+        public SolverSolution copySolution(SolverSolution sol) {
+            SolverSolution copy = new SolverSolution();
+            Iterator<CspVariable> varIter = sol.variables().iterator();
+            while (varIter.hasNext()) {
+                CspVariable var = varIter.next();
+                CspVariable replicaVar = getVariable(var);
+                VariableSolution vs = sol.getSolution(var);
+
+                if (vs instanceof IntSolution) {
+                    IntSolution isol = copy.add((CspIntVariable) replicaVar);
+                    isol.setMin(((IntSolution) vs).getMin());
+                    isol.setMax(((IntSolution) vs).getMax());
+                }
+                else if (vs instanceof LongSolution) {
+                    LongSolution lsol = copy.add((CspLongVariable) replicaVar);
+                    lsol.setMin(((LongSolution) vs).getMin());
+                    lsol.setMax(((LongSolution) vs).getMax());
+                }
+                else if (vs instanceof FloatSolution) {
+                    FloatSolution fsol = copy.add((CspFloatVariable) replicaVar);
+                    fsol.setMin(((FloatSolution) vs).getMin());
+                    fsol.setMax(((FloatSolution) vs).getMax());
+                }
+                else if (vs instanceof DoubleSolution) {
+                    DoubleSolution dsol = copy.add((CspDoubleVariable) replicaVar);
+                    dsol.setMin(((DoubleSolution) vs).getMin());
+                    dsol.setMax(((DoubleSolution) vs).getMax());
+                }
+                else if (vs instanceof BooleanSolution) {
+                    BooleanSolution bsol = copy.add((CspBooleanVariable) replicaVar);
+                    if (((BooleanSolution) vs).isTrue()) bsol.setTrue();
+                    else if (((BooleanSolution) vs).isFalse()) bsol.setFalse();
+                }
+                else {
+                    throw new IllegalArgumentException("variable " + var + " cannot be copied to replica");
+                }
+
+                if (!sol.isRestorable(var))
+                    copy.setRestorable(replicaVar, false);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Evaluates blocks of neighbors within the copy of the problem of a worker
+     */
+    private class Worker implements Callable<Object> {
+        private int worker;
+        private SolverSolution initial;
+        private Neighborhood hood;
+        private AtomicInteger nextBlock;
+        private boolean consistent[];
+        private double objectives[];
+
+        public Worker(int worker, SolverSolution initial, Neighborhood hood, AtomicInteger nextBlock,
+                boolean consistent[], double objectives[])
+        {
+            this.worker = worker;
+            this.initial = initial;
+            this.hood = hood;
+            this.nextBlock = nextBlock;
+            this.consistent = consistent;
+            this.objectives = objectives;
+        }
+
+        public Object call() {
+            Replica replica = replicas[worker];
+            if (replica==null) {
+                replica = buildReplica(worker);
+                replicas[worker] = replica;
+            }
+            if (replica.store==null) return null;
+
+            ConstraintStore store = replica.store;
+            SolverSolution replicaInitial = replica.copySolution(initial);
+            boolean minimize = initial.isMinimizeObjective();
+            boolean maximize = initial.isMaximizeObjective();
+            if (minimize || maximize) {
+                if (replica.objective==null)
+                    throw new IllegalStateException("replica must define objective of initial solution");
+                if (minimize) replicaInitial.setMinimizeObjective(replica.objective);
+                else replicaInitial.setMaximizeObjective(replica.objective);
+            }
+
+            // restore initial solution once if neighbors can be evaluated by delta
+            NeighborDeltaEvaluator delta = null;
+            if (hood instanceof DeltaNeighborhood) {
+                delta = NeighborDeltaEvaluator.create(store, replicaInitial,
+                    new ReplicaChangedVariables((DeltaNeighborhood) hood, replica));
+                if (delta!=null && !delta.restoreInitial())
+                    delta = null;
+            }
+
+            int size = hood.size();
+            try {
+                int start = nextBlock.getAndIncrement() * BLOCK_SIZE;
+                while (start < size) {
+                    int end = Math.min(size, start + BLOCK_SIZE);
+                    for (int i=start; i<end; i++) {
+                        SolverSolution neighbor = null;
+                        synchronized (hood) {
+                            neighbor = hood.getNeighbor(i);
+                        }
+
+                        // check if neighbor is different than the current solution
+                        if (neighbor==null || !initial.isDifferent(neighbor))
+                            continue;
+
+                        SolverSolution replicaNeighbor = replica.copySolution(neighbor);
+                        Object state = (delta==null) ? store.getCurrentState() : null;
+                        try {
+                            if (delta!=null)
+                                delta.restoreNeighbor(i, replicaNeighbor);
+                            else
+                                store.restoreNeighboringSolution(replicaInitial, replicaNeighbor);
+
+                            if (minimize)
+                                objectives[i] = DoubleUtil.getMax(replica.objective);
+                            else if (maximize)
+                                objectives[i] = -DoubleUtil.getMin(replica.objective);
+                            consistent[i] = true;
+                        }
+                        catch (PropagationFailureException propx) {
+                            // neighbor is not consistent with problem
+                        }
+
+                        if (delta!=null)
+                            delta.removeNeighbor();
+                        else
+                            store.restoreState(state);
+                    }
+
+                    start = nextBlock.getAndIncrement() * BLOCK_SIZE;
+                }
+            }
+            finally {
+                if (delta!=null)
+                    delta.removeInitial();
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Reports the variables of a copy of the problem changed by each neighbor
+     * of a delta neighborhood
+     */
+    private static class ReplicaChangedVariables implements NeighborDeltaEvaluator.ChangedVariables {
+        private DeltaNeighborhood hood;
+        private Replica replica;
+
+        public ReplicaChangedVariables(DeltaNeighborhood hood, Replica replica) {
+            this.hood = hood;
+            this.replica = replica;
+        }
+
+        public CspVariable[] getChangedVariables(int i) {
+            CspVariable changed[] = null;
+            synchronized (hood) {
+                changed = hood.getChangedVariables(i);
+            }
+
+            CspVariable replicaChanged[] = new CspVariable[changed.length];
+            for (int j=0; j<changed.length; j++)
+                replicaChanged[j] = replica.getVariable(changed[j]);
+            return replicaChanged;
+        }
+    }
+
+    /**
+     * Creates daemon threads so that an evaluator that is never shut down does
+     * not prevent the application from exiting
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private ThreadFactory factory = Executors.defaultThreadFactory();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = factory.newThread(r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.CurrentNeighbor;
+import jopt.csp.search.Metaheuristic;
+import jopt.csp.search.NeighborEvaluator;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.search.SearchAction;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.search.goal.FirstSolutionGoal;
+import jopt.csp.spi.search.tree.AbstractSearchNodeAction;
+import jopt.csp.spi.search.tree.SearchTechniqueChange;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Action that moves to the best neighboring solution acceptable to a
+ * metaheuristic with neighbors evaluated in parallel
+ *
+ * @see NeighborMoveAction
+ * @see ParallelBrowseNeighborhoodAction
+ */
+public class ParallelNeighborMoveAction extends AbstractSearchNodeAction {
+    private ConstraintStore store;
+    private SolverSolution solution;
+    private Neighborhood hood;
+    private Metaheuristic meta;
+    private NeighborEvaluator evaluator;
+
+    /**
+     * Creates new parallel move action
+     *
+     * @param store     Constraint store to post solution changes
+     * @param solution  Solution that move is based upon and result will be stored in
+     * @param hood      Neighborhood of solutions relative to initial
+     * @param meta      Metaheuristic used to guide the search, or null if none
+     * @param evaluator Evaluator of neighbors
+     */
+    public ParallelNeighborMoveAction(ConstraintStore store, SolverSolution solution, Neighborhood hood,
+            Metaheuristic meta, NeighborEvaluator evaluator)
+    {
+        this.store = store;
+        this.solution = solution;
+        this.hood = hood;
+        this.meta = meta;
+        this.evaluator = evaluator;
+    }
+
+    // javadoc inherited from SearchAction
+    public SearchAction performAction() throws PropagationFailureException {
+        // used to hold current neighbor applied to problem while browsing
+        CurrentNeighbor current = new CurrentNeighbor();
+
+        // browse neighbors from best to worst stopping at the first
+        SearchAction browse = new ParallelBrowseNeighborhoodAction(store, solution, hood, meta, current, evaluator);
+        SearchAction findNeighbor = new SearchTechniqueChange(new FirstSolutionGoal(), browse);
+
+        // create action to select neighbor solution and update initial solution
+        SearchAction select = new SelectCurrentNeighborAction(store, solution, current);
+
+        // combine find neighbor and select it into single action
+        return combineActions(findNeighbor, select);
+    }
+}
@@ -0,0 +1,90 @@
+package jopt.csp.spi.search.localsearch;
+
+import java.util.Random;
+
+import jopt.csp.search.RelaxationSelector;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Relaxation selector that fixes variables one at a time, propagating after
+ * each, and uses the effect of propagation to choose the next variable to fix.
+ * Variables whose domains were reduced by fixing another variable are closely
+ * related to the variables already fixed, so the variable whose domain has been
+ * reduced the most is fixed next.  When no domain has been reduced, a variable
+ * is chosen at random, as is the variable fixed among those reduced equally.  Fixing stops once the number of unbound variables has
+ * dropped to the number that should be relaxed, so variables bound by
+ * propagation are never counted as relaxed.
+ *
+ * @see LargeNeighborhoodSearch
+ */
+public class PropagationGuidedRelaxation implements RelaxationSelector {
+    private Random rand;
+    private double reduction[];
+    private int sizes[];
+    private int unbound[];
+
+    /**
+     * Creates a selector using a random number generator with a fixed seed
+     * so that the same variables are relaxed each time a search is repeated
+     */
+    public PropagationGuidedRelaxation(long seed) {
+        this.rand = new Random(seed);
+    }
+
+    /**
+     * Creates a selector using a new random number generator
+     */
+    public PropagationGuidedRelaxation() {
+        this.rand = new Random();
+    }
+
+    // javadoc inherited from RelaxationSelector
+    public void fix(CspIntVariable vars[], SolverSolution incumbent, int relaxCount) throws PropagationFailureException {
+        int n = vars.length;
+        if (reduction==null || reduction.length != n) {
+            reduction = new double[n];
+            sizes = new int[n];
+            unbound = new int[n];
+        }
+
+        // record initial domain sizes
+        int unboundCount = 0;
+        for (int i=0; i<n; i++) {
+            reduction[i] = 0;
+            sizes[i] = vars[i].getSize();
+            if (sizes[i] > 1) unbound[unboundCount++] = i;
+        }
+
+        while (unboundCount > relaxCount) {
+            // fix variable reduced most by propagation, or a random variable if none were
+            // reduced, starting from a random position so that ties are broken at random
+            int start = rand.nextInt(unboundCount);
+            int next = unbound[start];
+            double most = 0;
+            for (int i=0; i<unboundCount; i++) {
+                int idx = unbound[(start + i) % unboundCount];
+                if (reduction[idx] > most) {
+                    most = reduction[idx];
+                    next = idx;
+                }
+            }
+            CspIntVariable var = vars[next];
+            var.setValue(incumbent.getValue(var));
+
+            // accumulate relative reduction of domains that remain unbound
+            int count = 0;
+            for (int i=0; i<unboundCount; i++) {
+                int idx = unbound[i];
+                int size = vars[idx].getSize();
+                if (size > 1) {
+                    reduction[idx] += 1d - (double) size / sizes[idx];
+                    sizes[idx] = size;
+                    unbound[count++] = idx;
+                }
+            }
+            unboundCount = count;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package jopt.csp.spi.search.localsearch;
+
+import java.util.Random;
+
+import jopt.csp.search.RelaxationSelector;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Relaxation selector that relaxes variables chosen uniformly at random and
+ * fixes all other variables to their values in the incumbent solution
+ *
+ * @see LargeNeighborhoodSearch
+ */
+public class RandomRelaxation implements RelaxationSelector {
+    private Random rand;
+    private int order[];
+
+    /**
+     * Creates a selector using a random number generator with a fixed seed
+     * so that the same variables are relaxed each time a search is repeated
+     */
+    public RandomRelaxation(long seed) {
+        this.rand = new Random(seed);
+    }
+
+    /**
+     * Creates a selector using a new random number generator
+     */
+    public RandomRelaxation() {
+        this.rand = new Random();
+    }
+
+    // javadoc inherited from RelaxationSelector
+    public void fix(CspIntVariable vars[], SolverSolution incumbent, int relaxCount) throws PropagationFailureException {
+        int n = vars.length;
+        if (order==null || order.length != n) {
+            order = new int[n];
+            for (int i=0; i<n; i++)
+                order[i] = i;
+        }
+
+        // shuffle variables to relax into the front of the order
+        int relaxed = Math.min(relaxCount, n);
+        for (int i=0; i<relaxed; i++) {
+            int j = i + rand.nextInt(n - i);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        for (int i=relaxed; i<n; i++) {
+            CspIntVariable var = vars[order[i]];
+            var.setValue(incumbent.getValue(var));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package jopt.csp.spi.search.localsearch;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import jopt.csp.search.RelaxationSelector;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Relaxation selector that relaxes groups of related variables.  A random
+ * variable is relaxed first.  Each further variable is chosen by picking one
+ * of the variables already relaxed and ranking the remaining variables by how
+ * related they are to it.  Relaxing related variables together gives the search
+ * room to exchange their values, which is rarely possible when the relaxed
+ * variables have nothing to do with one another.
+ * <p>
+ * The position in the ranking of the variable chosen is randomized so that
+ * the same group is not relaxed every time.  A random number <i>r</i> between
+ * 0 and 1 is raised to the power of the determinism, and the variable at that
+ * fraction of the ranking is chosen.  Higher values choose the most related
+ * variables more often.
+ *
+ * @see LargeNeighborhoodSearch
+ */
+public class RelatedVariableRelaxation implements RelaxationSelector {
+    private double relatedness[][];
+    private double determinism;
+    private Random rand;
+
+    /**
+     * Creates a new selector
+     *
+     * @param relatedness   Square matrix where the value in row i and column j
+     *                      is larger the more related variable j is to variable i
+     * @param determinism   Value of at least 1 controlling how often the most
+     *                      related variables are chosen
+     * @param seed          Seed of random number generator
+     */
+    public RelatedVariableRelaxation(double relatedness[][], double determinism, long seed) {
+        this(relatedness, determinism, new Random(seed));
+    }
+
+    /**
+     * Creates a new selector using a new random number generator
+     *
+     * @param relatedness   Square matrix where the value in row i and column j
+     *                      is larger the more related variable j is to variable i
+     * @param determinism   Value of at least 1 controlling how often the most
+     *                      related variables are chosen
+     */
+    public RelatedVariableRelaxation(double relatedness[][], double determinism) {
+        this(relatedness, determinism, new Random());
+    }
+
+    private RelatedVariableRelaxation(double relatedness[][], double determinism, Random rand) {
+        if (determinism < 1)
+            throw new IllegalArgumentException("determinism must be at least 1");
+        for (int i=0; i<relatedness.length; i++)
+            if (relatedness[i].length != relatedness.length)
+                throw new IllegalArgumentException("relatedness must be a square matrix");
+
+        this.relatedness = relatedness;
+        this.determinism = determinism;
+        this.rand = rand;
+    }
+
+    // javadoc inherited from RelaxationSelector
+    public void fix(CspIntVariable vars[], SolverSolution incumbent, int relaxCount) throws PropagationFailureException {
+        int n = vars.length;
+        if (relatedness.length != n)
+            throw new IllegalArgumentException("relatedness is not defined for " + n + " variables");
+
+        // candidates not yet relaxed followed by relaxed variables
+        Integer order[] = new Integer[n];
+        for (int i=0; i<n; i++)
+            order[i] = new Integer(i);
+
+        int candidates = n;
+        int relaxed = Math.min(relaxCount, n);
+        if (relaxed > 0) {
+            swap(order, rand.nextInt(n), --candidates);
+
+            while (n - candidates < relaxed) {
+                // rank candidates by relatedness to a variable already relaxed
+                final double row[] = relatedness[order[candidates + rand.nextInt(n - candidates)].intValue()];
+                Arrays.sort(order, 0, candidates, new Comparator<Integer>() {
+                    public int compare(Integer a, Integer b) {
+                        return Double.compare(row[b.intValue()], row[a.intValue()]);
+                    }
+                });
+
+                int pick = (int) (Math.pow(rand.nextDouble(), determinism) * candidates);
+                swap(order, pick, --candidates);
+            }
+        }
+
+        for (int i=0; i<candidates; i++) {
+            CspIntVariable var = vars[order[i].intValue()];
+            var.setValue(incumbent.getValue(var));
+        }
+    }
+
+    /**
+     * Exchanges two entries of an array
+     */
+    private static void swap(Integer order[], int i, int j) {
+        Integer tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+}
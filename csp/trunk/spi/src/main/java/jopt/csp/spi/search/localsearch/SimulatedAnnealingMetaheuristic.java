@@ -0,0 +1,80 @@
+package jopt.csp.spi.search.localsearch;
+
+import java.util.Random;
+
+import jopt.csp.search.CoolingSchedule;
+import jopt.csp.spi.solver.ConstraintStore;
+
+/**
+ * Simulated annealing metaheuristic that accepts neighbors improving the
+ * objective and accepts neighbors worsening the objective by an amount
+ * <code>d</code> with probability <code>exp(-d / t)</code> where <code>t</code>
+ * is the temperature of the search given by a cooling schedule.
+ * <p>
+ * Rather than drawing a random number for each neighbor, a single number
+ * <code>u</code> is drawn for each move and any neighbor worsening the objective
+ * by no more than <code>-t ln(u)</code> is accepted, which accepts each
+ * neighbor with the same probability.  The neighborhood should be randomized
+ * so the neighbor selected is chosen at random among those accepted.
+ *
+ * @see jopt.csp.search.LocalSearch#randomize(jopt.csp.search.Neighborhood)
+ */
+public class SimulatedAnnealingMetaheuristic extends AcceptanceMetaheuristic {
+    private CoolingSchedule schedule;
+    private Random rand;
+    private double temperature;
+
+    /**
+     * Creates a new simulated annealing metaheuristic using a random number
+     * generator with a fixed seed so that a search can be repeated
+     *
+     * @param store     Constraint store that search is being performed upon
+     * @param schedule  Schedule giving temperature of each move
+     * @param seed      Seed of random number generator
+     */
+    public SimulatedAnnealingMetaheuristic(ConstraintStore store, CoolingSchedule schedule, long seed) {
+        this(store, schedule, new Random(seed));
+    }
+
+    /**
+     * Creates a new simulated annealing metaheuristic
+     *
+     * @param store     Constraint store that search is being performed upon
+     * @param schedule  Schedule giving temperature of each move
+     */
+    public SimulatedAnnealingMetaheuristic(ConstraintStore store, CoolingSchedule schedule) {
+        this(store, schedule, new Random());
+    }
+
+    private SimulatedAnnealingMetaheuristic(ConstraintStore store, CoolingSchedule schedule, Random rand) {
+        super(store);
+        this.schedule = schedule;
+        this.rand = rand;
+        this.temperature = schedule.getTemperature(0);
+    }
+
+    // javadoc inherited from AcceptanceMetaheuristic
+    protected double getAllowance(int iteration, double cost) {
+        temperature = schedule.getTemperature(iteration);
+        if (temperature <= 0)
+            return 0;
+
+        // 1 - nextDouble() is in (0, 1] so the logarithm is finite
+        return -temperature * Math.log(1 - rand.nextDouble());
+    }
+
+    /**
+     * Returns the temperature of the last move
+     */
+    public double getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * Returns true while the search has not cooled to zero, since a new
+     * random allowance is drawn for each move
+     */
+    public boolean continueSearch() {
+        return temperature > 0;
+    }
+}
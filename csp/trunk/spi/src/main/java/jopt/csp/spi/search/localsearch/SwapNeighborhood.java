@@ -3,11 +3,16 @@ package jopt.csp.spi.search.localsearch;
 import java.util.Arrays;
 import java.util.List;
 
+import jopt.csp.search.CompactNeighborhood;
+import jopt.csp.search.DeltaNeighborhood;
 import jopt.csp.search.Neighborhood;
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
 import jopt.csp.solution.DoubleSolution;
 import jopt.csp.solution.FloatSolution;
 import jopt.csp.solution.IntSolution;
 import jopt.csp.solution.LongSolution;
+import jopt.csp.solution.SolutionLayout;
 import jopt.csp.solution.SolverSolution;
 import jopt.csp.solution.VariableSolution;
 import jopt.csp.util.DoubleUtil;
@@ -15,6 +20,7 @@ import jopt.csp.util.FloatUtil;
 import jopt.csp.util.IntegerUtil;
 import jopt.csp.util.LongUtil;
 import jopt.csp.variable.CspNumVariable;
+import jopt.csp.variable.CspVariable;
 
 /**
  * Creates a neighbor hood where each neighbor selects one
@@ -25,11 +31,13 @@ import jopt.csp.variable.CspNumVariable;
  * @version $Revision: 1.5 $
  * @see BrowseNeighborhoodAction
  */
-public class SwapNeighborhood implements Neighborhood {
+public class SwapNeighborhood implements DeltaNeighborhood, CompactNeighborhood {
     private SolverSolution initial;
     private List<CspNumVariable> vars;
     private int size;
     private int lastSelected = -1;
+    private SolutionLayout layout;
+    private int layoutIndices[];
     /**
      * Creates a swap neighborhood base on an array of binary variables
      */
@@ -56,9 +64,10 @@ public class SwapNeighborhood implements Neighborhood {
     	return size;
     }
 
-    // javadoc inherited from Neighborhood
-    public SolverSolution getNeighbor(int i) {
-        
+    /**
+     * Returns the indices of the two variables swapped by a neighbor
+     */
+    private int[] getSwapIndices(int i) {
         // determine index and offset of base variable being swapped
         int baseIdx = 0;
         int baseOffset = 0;
@@ -75,9 +84,15 @@ public class SwapNeighborhood implements Neighborhood {
         // determine index of variable to swap with base
         int swapIdx = baseIdx + i - baseOffset + 1;
         
+        return new int[] {baseIdx, swapIdx};
+    }
+
+    // javadoc inherited from Neighborhood
+    public SolverSolution getNeighbor(int i) {
         // retrieve variables to swap
-        CspNumVariable baseVar = (CspNumVariable) vars.get(baseIdx);
-        CspNumVariable swapVar = (CspNumVariable) vars.get(swapIdx);
+        int swap[] = getSwapIndices(i);
+        CspNumVariable baseVar = (CspNumVariable) vars.get(swap[0]);
+        CspNumVariable swapVar = (CspNumVariable) vars.get(swap[1]);
         
         // create neighboring solution
         SolverSolution sol = new SolverSolution();
@@ -99,6 +114,64 @@ public class SwapNeighborhood implements Neighborhood {
         return sol;
     }
     
+    // javadoc inherited from CompactNeighborhood
+    public void getNeighbor(int i, CompactSolution initial, CompactNeighbor neighbor) {
+        // look up index of each variable once per layout
+        if (layout != initial.getLayout()) {
+            layout = initial.getLayout();
+            layoutIndices = new int[vars.size()];
+            for (int j=0; j<layoutIndices.length; j++) {
+                layoutIndices[j] = layout.indexOf(vars.get(j));
+                if (layoutIndices[j] < 0)
+                    throw new IllegalArgumentException("variable " + vars.get(j) + " is not contained in solution");
+            }
+        }
+        
+        int swap[] = getSwapIndices(i);
+        int baseIdx = layoutIndices[swap[0]];
+        int swapIdx = layoutIndices[swap[1]];
+        
+        // swap values of variables
+        neighbor.clear();
+        assignRange(neighbor, baseIdx, initial, swapIdx);
+        assignRange(neighbor, swapIdx, initial, baseIdx);
+    }
+    
+    /**
+     * Utility function to set the range of a variable in a neighbor from the range of
+     * another variable in an initial solution performing type conversion as necessary
+     */
+    private void assignRange(CompactNeighbor neighbor, int target, CompactSolution initial, int source) {
+        if (!layout.isIntegral(target)) {
+            if (layout.isIntegral(source))
+                neighbor.setRange(target, (double) initial.getIntegralMin(source), (double) initial.getIntegralMax(source));
+            else
+                neighbor.setRange(target, initial.getRealMin(source), initial.getRealMax(source));
+        }
+        else if (layout.isIntegral(source)) {
+            long min = initial.getIntegralMin(source);
+            long max = initial.getIntegralMax(source);
+            if (layout.isLong(target))
+                neighbor.setRange(target, min, max);
+            else
+                neighbor.setRange(target, (long) LongUtil.intValue(min), (long) LongUtil.intValue(max));
+        }
+        else {
+            double min = initial.getRealMin(source);
+            double max = initial.getRealMax(source);
+            if (layout.isLong(target))
+                neighbor.setRange(target, DoubleUtil.longCeil(min), DoubleUtil.longFloor(max));
+            else
+                neighbor.setRange(target, (long) DoubleUtil.intCeil(min), (long) DoubleUtil.intFloor(max));
+        }
+    }
+    
+    // javadoc inherited from DeltaNeighborhood
+    public CspVariable[] getChangedVariables(int i) {
+        int swap[] = getSwapIndices(i);
+        return new CspVariable[] {vars.get(swap[0]), vars.get(swap[1])};
+    }
+    
     /**
      * Utility function set set min and max values in first solution from values in second
      * solution performing type conversion as necessary
@@ -5,16 +5,31 @@
  */
 package jopt.csp.spi.search.localsearch;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 
+import jopt.csp.solution.BooleanSolution;
+import jopt.csp.solution.DoubleSolution;
+import jopt.csp.solution.FloatSolution;
+import jopt.csp.solution.IntSolution;
+import jopt.csp.solution.LongSolution;
+import jopt.csp.solution.SetSolution;
+import jopt.csp.solution.VariableSolution;
 import jopt.csp.spi.solver.ChoicePointDataMap;
 import jopt.csp.spi.solver.ChoicePointEntryListener;
 import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.variable.CspVariable;
 
 /**
  * List that is used by the {@link TabuMetaheuristic} metaheuristic to hold moves that
  * are considered 'tabu' and will not be allowed
+ * <p>
+ * Moves are kept in order of age, but checks do not scan them.  The list counts
+ * how many of its moves change each variable and how many assign each variable
+ * solution, so checking a move takes time proportional to the number of
+ * variables the move changes regardless of the length of the list.
  * 
  * @author Nick Coleman
  * @version $Revision: 1.5 $
@@ -26,6 +41,8 @@ public class TabuList implements ChoicePointEntryListener {
     private int maxAge;
     private int agingMoves;
     private LinkedList<TabuMove> moves;
+    private Map<SolutionKey, int[]> solutionCounts;
+    private Map<CspVariable, int[]> variableCounts;
     
     /**
      * Creates a new tabu list
@@ -38,6 +55,9 @@ public class TabuList implements ChoicePointEntryListener {
         this.conflict = conflict;
         this.maxAge = maxAge;
     	this.moves = new LinkedList<TabuMove>();
+        this.solutionCounts = new HashMap<SolutionKey, int[]>();
+        if (conflict)
+            this.variableCounts = new HashMap<CspVariable, int[]>();
         this.agingMoves = 0;
     }
     
@@ -48,25 +68,23 @@ public class TabuList implements ChoicePointEntryListener {
      * @return True if any change in move is contained within this list
      */
     public boolean contains(TabuMove move) {
-        Iterator<TabuMove> moveIter = moves.iterator();
+        Iterator<VariableSolution> changeIter = move.getChanges().iterator();
 
-        // loop over moves contained in list
-    	while (moveIter.hasNext()) {
-            TabuMove previous = (TabuMove) moveIter.next();
+        // loop over changes contained in move
+        while (changeIter.hasNext()) {
+            VariableSolution sol = changeIter.next();
+            int solutionCount = count(solutionCounts, new SolutionKey(sol));
+            
+            // check if a previous move changed variable to a different value
+            if (conflict) {
+                if (count(variableCounts, sol.getVariable()) > solutionCount)
+                    return true;
+            }
             
-            // ignore null move added to age list
-            if (previous!=null) {
-                // check if move conflicts with previous move
-                if (conflict) {
-                	if (previous.conflicts(move))
-                        return true;
-                }
-                
-                // check if move is repeat of this move
-                else {
-                    if (previous.repeats(move))
-                        return true;
-                }
+            // check if a previous move made the same change
+            else {
+                if (solutionCount > 0)
+                    return true;
             }
         }
         
@@ -82,7 +100,9 @@ public class TabuList implements ChoicePointEntryListener {
     }
     
     public void reset() {
+        if (cpdata!=null) cpdata.touch();
         moves.clear();
+        clearCounts();
         agingMoves = 0;
     }
     
@@ -98,15 +118,20 @@ public class TabuList implements ChoicePointEntryListener {
      * Any move that is beyond maximum allowed age is removed.
      */
     public void add(TabuMove move) {
+        if (cpdata!=null) cpdata.touch();
         moves.addFirst(move);
         
         // increment size for a valid move
         if (move==null)
             agingMoves++;
+        else
+            updateCounts(move, 1);
         
         // check for size beyond maximum age
         if (moves.size()>maxAge) {
-            moves.removeLast();
+            TabuMove removed = moves.removeLast();
+            if (removed!=null)
+                updateCounts(removed, -1);
             
             // remove any aging moves at end of list
             while (moves.size()>0 && moves.getLast()==null) {
@@ -116,6 +141,65 @@ public class TabuList implements ChoicePointEntryListener {
         }
     }
     
+    /**
+     * Adds an amount to the counts of the variables and solutions changed by a move
+     */
+    private void updateCounts(TabuMove move, int amount) {
+        Iterator<VariableSolution> changeIter = move.getChanges().iterator();
+        while (changeIter.hasNext()) {
+            VariableSolution sol = changeIter.next();
+            increment(solutionCounts, new SolutionKey(sol), amount);
+            
+            if (variableCounts!=null)
+                increment(variableCounts, sol.getVariable(), amount);
+        }
+    }
+    
+    /**
+     * Removes all counts
+     */
+    private void clearCounts() {
+        solutionCounts.clear();
+        if (variableCounts!=null)
+            variableCounts.clear();
+    }
+    
+    /**
+     * Rebuilds counts from the moves in the list
+     */
+    private void rebuildCounts() {
+        clearCounts();
+        Iterator<TabuMove> moveIter = moves.iterator();
+        while (moveIter.hasNext()) {
+            TabuMove move = moveIter.next();
+            if (move!=null)
+                updateCounts(move, 1);
+        }
+    }
+    
+    /**
+     * Adds an amount to the count of a key, removing the key when its count reaches zero
+     */
+    private static <K> void increment(Map<K, int[]> counts, K key, int amount) {
+        int count[] = counts.get(key);
+        if (count==null) {
+            count = new int[1];
+            counts.put(key, count);
+        }
+        
+        count[0] += amount;
+        if (count[0]<=0)
+            counts.remove(key);
+    }
+    
+    /**
+     * Returns the count of a key
+     */
+    private static <K> int count(Map<K, int[]> counts, K key) {
+        int count[] = counts.get(key);
+        return (count==null) ? 0 : count[0];
+    }
+    
     /**
      * Returns current size of list
      */
@@ -127,8 +211,10 @@ public class TabuList implements ChoicePointEntryListener {
     @SuppressWarnings("unchecked")
 	public void beforeChoicePointPopEvent() {
         if (cpdata!=null) {
-            if (cpdata.containsKey("m"))
+            if (cpdata.containsKey("m")) {
             	moves = (LinkedList<TabuMove>) cpdata.get("m");
+                rebuildCounts();
+            }
             
             if (cpdata.containsKey("a"))
             	maxAge = ((Integer) cpdata.get("a")).intValue();
@@ -172,4 +258,64 @@ public class TabuList implements ChoicePointEntryListener {
     public String toString() {
         return moves.toString();
     }
+    
+    /**
+     * Key of a variable solution that includes the values of the solution in
+     * its hash code, since variable solutions hash on their variable only
+     */
+    private static class SolutionKey {
+        private VariableSolution sol;
+        private int hash;
+        
+        public SolutionKey(VariableSolution sol) {
+            this.sol = sol;
+            this.hash = sol.hashCode() * 31 + valueHash(sol);
+        }
+        
+        public int hashCode() {
+            return hash;
+        }
+        
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SolutionKey)) return false;
+            SolutionKey key = (SolutionKey) obj;
+            return key.hash == hash && key.sol.equals(sol);
+        }
+        
+        /**
+         * Returns hash code of the values of a variable solution
+         */
+        private static int valueHash(VariableSolution sol) {
+            if (sol instanceof IntSolution) {
+                IntSolution isol = (IntSolution) sol;
+                return isol.getMin() * 31 + isol.getMax();
+            }
+            else if (sol instanceof LongSolution) {
+                LongSolution lsol = (LongSolution) sol;
+                return hashLong(lsol.getMin()) * 31 + hashLong(lsol.getMax());
+            }
+            else if (sol instanceof FloatSolution) {
+                FloatSolution fsol = (FloatSolution) sol;
+                return Float.floatToIntBits(fsol.getMin()) * 31 + Float.floatToIntBits(fsol.getMax());
+            }
+            else if (sol instanceof DoubleSolution) {
+                DoubleSolution dsol = (DoubleSolution) sol;
+                return hashLong(Double.doubleToLongBits(dsol.getMin())) * 31 + hashLong(Double.doubleToLongBits(dsol.getMax()));
+            }
+            else if (sol instanceof BooleanSolution) {
+                BooleanSolution bsol = (BooleanSolution) sol;
+                return (bsol.isTrue() ? 1 : 0) + (bsol.isFalse() ? 2 : 0);
+            }
+            else if (sol instanceof SetSolution) {
+                SetSolution<?> ssol = (SetSolution<?>) sol;
+                return ssol.getPossibleSet().hashCode() * 31 + ssol.getRequiredSet().hashCode();
+            }
+            
+            return 0;
+        }
+        
+        private static int hashLong(long val) {
+            return (int) (val ^ (val >>> 32));
+        }
+    }
 }
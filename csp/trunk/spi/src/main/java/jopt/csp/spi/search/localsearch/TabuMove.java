@@ -5,6 +5,7 @@
  */
 package jopt.csp.spi.search.localsearch;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -38,6 +39,13 @@ class TabuMove {
     	changes.put(sol.getVariable(), (VariableSolution) sol.clone());
     }
     
+    /**
+     * Returns the variable solutions that are part of this move
+     */
+    Collection<VariableSolution> getChanges() {
+        return changes.values();
+    }
+    
     /**
      * Returns true if a move will alter any of the changes this
      * move made
@@ -70,6 +70,12 @@ public class TabuSearchBrowseAction extends AbstractSearchNodeAction {
         ArrayList<SolverSolution> sols = new ArrayList<SolverSolution>();
         ArrayIntList solIndices = new ArrayIntList();
         ArrayDoubleList solObjectives = new ArrayDoubleList();
+        
+        // restore initial solution once if neighbors can be evaluated by delta
+        NeighborDeltaEvaluator delta = NeighborDeltaEvaluator.create(store, initial, hood);
+        if (delta!=null && !delta.restoreInitial())
+            delta = null;
+        
         while (sols.size()<numToCheck && currentNeighbor < hood.size()) {
             // retrieve next neighbor
             SolverSolution neighbor = hood.getNeighbor(currentNeighbor);
@@ -81,9 +87,12 @@ public class TabuSearchBrowseAction extends AbstractSearchNodeAction {
             
             // Try to propagate and get an objective value out of it
             if (neighbor != null) {
-                Object state = store.getCurrentState();
+                Object state = (delta==null) ? store.getCurrentState() : null;
                 try {
-                    store.restoreNeighboringSolution(initial, neighbor);
+                    if (delta!=null)
+                        delta.restoreNeighbor(currentNeighbor, neighbor);
+                    else
+                        store.restoreNeighboringSolution(initial, neighbor);
                     
                     // Propagation worked...
                     if (firstConsistentNeighbor == null) {
@@ -124,12 +133,18 @@ public class TabuSearchBrowseAction extends AbstractSearchNodeAction {
                 } catch (PropagationFailureException e) {
                     neighbor = null;
                 }
-                store.restoreState(state);
+                if (delta!=null)
+                    delta.removeNeighbor();
+                else
+                    store.restoreState(state);
             }
 
             currentNeighbor++;
         }
         
+        if (delta!=null)
+            delta.removeInitial();
+        
         // Earlier, we flipped objective values so that we can assume minimization here
         double bestObj = Double.MAX_VALUE;
         int bestNeighborIdx = -1;
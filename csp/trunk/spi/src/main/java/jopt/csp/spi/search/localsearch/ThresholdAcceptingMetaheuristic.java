@@ -0,0 +1,38 @@
+package jopt.csp.spi.search.localsearch;
+
+import jopt.csp.search.CoolingSchedule;
+import jopt.csp.spi.solver.ConstraintStore;
+
+/**
+ * Threshold accepting metaheuristic of Dueck and Scheuer that deterministically
+ * accepts any neighbor that does not worsen the objective by more than a
+ * threshold.  The threshold of each move is the temperature of a cooling
+ * schedule.
+ */
+public class ThresholdAcceptingMetaheuristic extends AcceptanceMetaheuristic {
+    private CoolingSchedule schedule;
+
+    /**
+     * Creates a new threshold accepting metaheuristic
+     *
+     * @param store     Constraint store that search is being performed upon
+     * @param schedule  Schedule giving threshold of each move
+     */
+    public ThresholdAcceptingMetaheuristic(ConstraintStore store, CoolingSchedule schedule) {
+        super(store);
+        this.schedule = schedule;
+    }
+
+    // javadoc inherited from AcceptanceMetaheuristic
+    protected double getAllowance(int iteration, double cost) {
+        return schedule.getTemperature(iteration);
+    }
+
+    /**
+     * Returns false since the threshold of later moves is never larger
+     * than the threshold that failed to locate a neighbor
+     */
+    public boolean continueSearch() {
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package jopt.csp.spi.search.technique;
+
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.search.actions.AssignIntegerAction;
+import jopt.csp.spi.search.actions.RemoveIntegerAction;
+import jopt.csp.spi.search.tree.CombinedAction;
+import jopt.csp.variable.CspBooleanExpr;
+import jopt.csp.variable.CspConstraint;
+import jopt.csp.variable.CspIntVariable;
+
+/**
+ * Assignment or removal of a value from a variable made by the action of a
+ * search node.  Used to build nogoods from decisions that cannot all be true.
+ */
+class Decision {
+    public CspIntVariable var;
+    public int val;
+    public boolean assign;
+
+    public Decision(CspIntVariable var, int val, boolean assign) {
+        this.var = var;
+        this.val = val;
+        this.assign = assign;
+    }
+
+    /**
+     * Returns a constraint that is satisfied when the decision is false
+     */
+    public CspConstraint negation() {
+        return assign ? var.neq(val) : var.eq(val);
+    }
+
+    /**
+     * Returns the decision made by an action, or null if the action is
+     * not an integer assign or remove decision
+     */
+    public static Decision of(SearchAction action) {
+        while (action instanceof CombinedAction)
+            action = ((CombinedAction) action).getFirstAction();
+
+        if (action instanceof AssignIntegerAction) {
+            AssignIntegerAction assign = (AssignIntegerAction) action;
+            return new Decision(assign.getVariable(), assign.getValue(), true);
+        }
+
+        if (action instanceof RemoveIntegerAction) {
+            RemoveIntegerAction remove = (RemoveIntegerAction) action;
+            return new Decision(remove.getVariable(), remove.getValue(), false);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns a constraint requiring that at least one of a set of decisions
+     * is false, or null if no decisions are given or a decision is missing
+     */
+    public static CspConstraint nogood(Decision decisions[]) {
+        if (decisions.length==0) return null;
+        for (int i=0; i<decisions.length; i++)
+            if (decisions[i]==null) return null;
+        if (decisions.length==1) return decisions[0].negation();
+
+        // combine literals into a single disjunction
+        CspBooleanExpr nogood = decisions[0].negation().toBoolean();
+        for (int i=1; i<decisions.length; i++)
+            nogood = nogood.or(decisions[i].negation().toBoolean());
+        return nogood.toConstraint();
+    }
+}
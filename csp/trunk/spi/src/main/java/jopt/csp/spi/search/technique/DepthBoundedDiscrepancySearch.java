@@ -0,0 +1,34 @@
+package jopt.csp.spi.search.technique;
+
+/**
+ * Implementation of a depth-bounded discrepancy search.  The first iteration
+ * follows the first child of each node, which is the child preferred by the
+ * heuristic of the search action.  Iteration <code>i</code> searches the paths
+ * whose deepest discrepancy is a child at depth <code>i</code> below the root of
+ * the search, following the heuristic below it.  Discrepancies are therefore
+ * tried near the root of the tree first, where heuristics are least informed.
+ */
+public class DepthBoundedDiscrepancySearch extends DiscrepancySearch {
+
+    /**
+     * Creates a search with no limit on the depth of discrepancies
+     */
+    public DepthBoundedDiscrepancySearch() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a search that only allows discrepancies down to a depth in the tree
+     *
+     * @param maxDepth  Largest depth below the root of the search of a discrepancy
+     *                  child that will be searched
+     */
+    public DepthBoundedDiscrepancySearch(int maxDepth) {
+        super(maxDepth);
+    }
+
+    // javadoc inherited from DiscrepancySearch
+    protected int iterationForChild(int childDepth, int discrepancies) {
+        return childDepth;
+    }
+}
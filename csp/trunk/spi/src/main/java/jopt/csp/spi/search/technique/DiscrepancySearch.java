@@ -0,0 +1,168 @@
+package jopt.csp.spi.search.technique;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import jopt.csp.search.SearchNodeReference;
+import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.search.tree.TreeNode;
+
+/**
+ * Base class for searches that explore the tree in iterations, where each
+ * iteration allows more departures, or discrepancies, from the first child of
+ * a node, which is the child preferred by the heuristic of the search action.
+ * Any child other than the first child of a node is a discrepancy.
+ * <p>
+ * Within an iteration the tree is searched depth first.  A discrepancy child that
+ * is not allowed until a later iteration is not visited; instead a reference to it
+ * is stored with the nodes of that iteration.  Each later iteration jumps to the
+ * stored nodes in the order they were recorded and searches below them, so no node
+ * is visited twice and memory is limited to the references of nodes waiting for
+ * later iterations rather than the whole tree.
+ */
+public abstract class DiscrepancySearch implements TreeSearchTechnique {
+    private int maxIteration;
+    private int iteration;
+    private int rootDepth;
+    private int subtreeDepth;
+    private int discrepancies;
+    private boolean jumped;
+    private List<LinkedList<SearchNodeReference>> iterationNodes;
+    private Set<TreeNode> deferredNodes;
+
+    /**
+     * Creates a new search
+     *
+     * @param maxIteration  Last iteration to search, nodes that would be searched
+     *                      in later iterations are discarded
+     */
+    protected DiscrepancySearch(int maxIteration) {
+        this.maxIteration = maxIteration;
+        this.rootDepth = -1;
+        this.iterationNodes = new ArrayList<LinkedList<SearchNodeReference>>();
+        this.deferredNodes = new HashSet<TreeNode>();
+    }
+
+    /**
+     * Returns the iteration in which a discrepancy child should be searched
+     *
+     * @param childDepth        Depth of child below root of search
+     * @param discrepancies     Number of discrepancies on path from root of search
+     *                          to child, including the child
+     */
+    protected abstract int iterationForChild(int childDepth, int discrepancies);
+
+    /**
+     * Returns the current iteration of the search
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    // javadoc inherited from TreeSearchTechnique
+    public void nextMove(Move move, SearchTree tree, TreeNode currentNode, boolean isRoot) {
+        // initialize search when first called at root
+        if (rootDepth < 0) {
+            rootDepth = currentNode.getDepth();
+            subtreeDepth = rootDepth;
+            iteration = 0;
+            discrepancies = 0;
+        }
+
+        // first move after a jump is made from node stored for iteration
+        if (jumped) {
+            subtreeDepth = currentNode.getDepth();
+            discrepancies = iteration;
+            deferredNodes.clear();
+            jumped = false;
+        }
+
+        // locate next child to search in this iteration, storing any children
+        // for later iterations the first time the node is visited
+        TreeNode childNode = null;
+        for (int i=0; i<currentNode.getChildCount(); i++) {
+            TreeNode child = currentNode.getChild(i);
+            if (child.isClosed() || deferredNodes.contains(child)) continue;
+
+            if (i==0) {
+                if (childNode==null) childNode = child;
+            }
+            else {
+                int childIteration = iterationForChild(child.getDepth() - rootDepth, discrepancies + 1);
+                if (childIteration <= iteration) {
+                    if (childNode==null) childNode = child;
+                }
+                else {
+                    if (childIteration <= maxIteration)
+                        nodesForIteration(childIteration).addLast(tree.getReferenceForNode(child));
+                    deferredNodes.add(child);
+                }
+            }
+        }
+
+        if (childNode!=null) {
+            if (childNode.getChildNumberWithinParent() > 0) discrepancies++;
+            move.setMovement(CHILD);
+            move.setChildNum(childNode.getChildNumberWithinParent());
+        }
+
+        // move up in tree while within subtree being searched
+        else if (currentNode.getDepth() > subtreeDepth) {
+            if (currentNode.getChildNumberWithinParent() > 0) discrepancies--;
+            move.setMovement(PARENT);
+        }
+
+        // jump to next node stored for this or a later iteration
+        else {
+            SearchNodeReference ref = nextNode();
+            if (ref==null) {
+                // reset so technique can search another tree
+                rootDepth = -1;
+                deferredNodes.clear();
+                move.setMovement(NONE);
+            }
+            else {
+                jumped = true;
+                move.setMovement(JUMP);
+                move.setJumpRef(ref);
+            }
+        }
+    }
+
+    /**
+     * Returns list of nodes to search in an iteration
+     */
+    private LinkedList<SearchNodeReference> nodesForIteration(int iter) {
+        while (iterationNodes.size() <= iter)
+            iterationNodes.add(null);
+
+        LinkedList<SearchNodeReference> nodes = iterationNodes.get(iter);
+        if (nodes==null) {
+            nodes = new LinkedList<SearchNodeReference>();
+            iterationNodes.set(iter, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Removes and returns the next node to search, advancing to the next iteration
+     * with stored nodes when the current iteration is complete
+     */
+    private SearchNodeReference nextNode() {
+        while (iteration < iterationNodes.size()) {
+            LinkedList<SearchNodeReference> nodes = iterationNodes.get(iteration);
+            if (nodes!=null && nodes.size() > 0)
+                return nodes.removeFirst();
+
+            // release list of completed iteration
+            iterationNodes.set(iteration, null);
+            iteration++;
+        }
+
+        iterationNodes.clear();
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package jopt.csp.spi.search.technique;
+
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.search.tree.TreeNode;
+
+/**
+ * Depth first search that stops at a failed node once a number of failures
+ * has been reached.  Unlike a {@link jopt.csp.spi.search.limit.FailLimit}, the
+ * search records whether it was stopped so that callers can tell a search that
+ * was cut off from one that explored the entire tree.
+ */
+public class FailureCountingSearch extends DepthFirstSearch {
+    private int maxFailures;
+    private int failures;
+    private boolean cutoff;
+    private SearchAction childAction;
+    private TreeNode childNode;
+
+    /**
+     * Creates a new search
+     *
+     * @param maxFailures   Number of failures after which search stops
+     */
+    public FailureCountingSearch(int maxFailures) {
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Returns true if search stopped because the failure limit was reached
+     */
+    public boolean isCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Returns the number of failures encountered by the search
+     */
+    public int getFailureCount() {
+        return failures;
+    }
+
+    /**
+     * Returns the action of the failed node at which the search stopped, or
+     * null if the action is not known
+     */
+    public SearchAction getFailedAction() {
+        return childAction;
+    }
+
+    // javadoc inherited from SearchTechnique
+    public void nextMove(Move move, SearchTree tree, TreeNode currentNode, boolean isRoot) {
+        if (currentNode.isPruned() && ++failures >= maxFailures && !isRoot) {
+            cutoff = true;
+            move.setMovement(NONE);
+
+            // a node pruned by backjumping is not the child whose action was remembered
+            if (currentNode != childNode) childAction = null;
+        }
+        else {
+            super.nextMove(move, tree, currentNode, isRoot);
+
+            // remember action of child since it is discarded if the child fails
+            if (move.getMovement()==CHILD) {
+                childNode = currentNode.getChild(move.getChildNum());
+                childAction = childNode.getAction();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package jopt.csp.spi.search.technique;
+
+/**
+ * Implementation of a limited discrepancy search.  The first iteration follows
+ * the first child of each node, which is the child preferred by the heuristic of
+ * the search action.  Each following iteration searches the nodes that can be
+ * reached with one more discrepancy, so solutions are located in order of the
+ * number of times the search departs from the heuristic.  This is useful when
+ * the heuristic is good but depth first search would spend most of its time
+ * below a bad choice made near the root of the tree.
+ */
+public class LimitedDiscrepancySearch extends DiscrepancySearch {
+
+    /**
+     * Creates a search with no limit on the number of discrepancies
+     */
+    public LimitedDiscrepancySearch() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a search limited to a number of discrepancies
+     *
+     * @param maxDiscrepancies  Largest number of discrepancies on a path to a node
+     *                          that will be searched
+     */
+    public LimitedDiscrepancySearch(int maxDiscrepancies) {
+        super(maxDiscrepancies);
+    }
+
+    // javadoc inherited from DiscrepancySearch
+    protected int iterationForChild(int childDepth, int discrepancies) {
+        return discrepancies;
+    }
+}
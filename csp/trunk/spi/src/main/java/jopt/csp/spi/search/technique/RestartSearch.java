@@ -0,0 +1,294 @@
+package jopt.csp.spi.search.technique;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jopt.csp.search.Search;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchGoal;
+import jopt.csp.spi.arcalgorithm.ExplanationRecorder;
+import jopt.csp.spi.search.tree.BasicSearchNode;
+import jopt.csp.spi.search.tree.CrawlingSearchTree;
+import jopt.csp.spi.search.tree.RecalculatingStateManager;
+import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.search.tree.TreeNode;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspBooleanExpr;
+import jopt.csp.variable.CspConstraint;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Search that restarts a depth first search from the root of the tree each time
+ * a number of failures is reached in the current run.  The number of failures
+ * allowed in a run either grows geometrically or follows the Luby sequence
+ * (1, 1, 2, 1, 1, 2, 4, 1, ...) multiplied by a scale factor.  Restarting helps
+ * searches whose choices are randomized, such as with a
+ * {@link jopt.csp.spi.search.RandomVariableSelector}, from spending most of their
+ * time below a bad choice made near the root of the tree.
+ * <p>
+ * Before restarting, nogoods are recorded from the integer assign and remove
+ * decisions on the path to the node at which the run stopped.  For each node
+ * that removes a value, the subtree assigning that value has been searched, so
+ * the assign decisions above that node together with the assignment of the value
+ * are a nogood.  The node at which the run stopped has failed, so all assign
+ * decisions above it together with its own decision are a nogood.  Nogoods are
+ * posted to the constraint store as constraints requiring at least one of their
+ * decisions to be false, which prevents later runs from searching parts of the
+ * tree that were already searched, including any solutions already returned.
+ * <p>
+ * Each run is performed within a choicepoint of the constraint store so that
+ * the nogoods are added to the problem outside of the search.  Nogoods are
+ * removed when the store is reset.  Solutions are always returned as they are
+ * located, since solutions located by earlier runs cannot be returned to.
+ * <p>
+ * When an explanation recorder is set, each run backjumps over decisions that
+ * failures do not depend upon, and the nogoods learned from the explanations of
+ * failures during a run are posted along with the other nogoods before restarting.
+ */
+public class RestartSearch implements Search {
+    private ConstraintStore store;
+    private SearchAction action;
+    private int scaleFailures;
+    private double growthFactor;
+    private boolean recordNogoods;
+    private SearchGoal goal;
+    private ExplanationRecorder explanations;
+
+    private SearchTree tree;
+    private TreeSearch runSearch;
+    private FailureCountingSearch runTechnique;
+    private int runCount;
+    private int nogoodCount;
+    private boolean exhausted;
+
+    /**
+     * Creates a new restart search
+     *
+     * @param store             Constraint store search is performed upon
+     * @param action            Action that will generate the tree to be searched
+     * @param scaleFailures     Number of failures allowed in the first run
+     * @param growthFactor      Factor by which the number of failures allowed grows
+     *                          with each run, or 0 to follow the Luby sequence
+     * @param recordNogoods     True if nogoods should be posted when restarting
+     */
+    public RestartSearch(ConstraintStore store, SearchAction action, int scaleFailures, double growthFactor, boolean recordNogoods) {
+        if (scaleFailures < 1)
+            throw new IllegalArgumentException("runs must allow at least one failure");
+        if (growthFactor != 0 && growthFactor < 1)
+            throw new IllegalArgumentException("growth factor must be at least 1");
+
+        this.store = store;
+        this.action = action;
+        this.scaleFailures = scaleFailures;
+        this.growthFactor = growthFactor;
+        this.recordNogoods = recordNogoods;
+    }
+
+    // javadoc inherited from Search
+    public void setGoal(SearchGoal goal) {
+        this.goal = goal;
+    }
+
+    // javadoc inherited from Search
+    public void setContinuallyImprove(boolean improve) {
+        if (!improve)
+            throw new UnsupportedOperationException("restart search must return solutions as they are located");
+    }
+
+    /**
+     * Sets the recorder used to explain failures so that runs can backjump
+     * and learn nogoods, or null if failures should not be explained
+     */
+    public void setExplanationRecorder(ExplanationRecorder explanations) {
+        this.explanations = explanations;
+    }
+
+    /**
+     * Returns the number of runs started by the search
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Returns the number of nogoods posted to the constraint store
+     */
+    public int getNogoodCount() {
+        return nogoodCount;
+    }
+
+    // javadoc inherited from Search
+    public boolean nextSolution() {
+        while (!exhausted) {
+            if (runSearch==null) {
+                // bound objective outside of run since constraints posted
+                // within the choicepoint of a run are removed when it ends
+                try {
+                    if (goal!=null) goal.updateBoundForOpenNode();
+                }
+                catch (PropagationFailureException propx) {
+                    exhausted = true;
+                    break;
+                }
+
+                startRun();
+            }
+
+            if (runSearch.nextSolution())
+                return true;
+
+            // tree was searched without reaching limit of run
+            if (!runTechnique.isCutoff()) {
+                endRun();
+                exhausted = true;
+            }
+
+            // post nogoods learned during run and restart
+            else {
+                List<CspConstraint> nogoods = recordNogoods ?
+                    buildNogoods(tree.getCurrentNode(), runTechnique.getFailedAction()) : null;
+                if (nogoods!=null && explanations!=null)
+                    nogoods.addAll(runSearch.getLearnedNogoods());
+                endRun();
+                try {
+                    for (int i=0; nogoods!=null && i<nogoods.size(); i++) {
+                        CspConstraint nogood = nogoods.get(i);
+
+                        // an empty nogood proves the entire tree was searched
+                        if (nogood==null) throw new PropagationFailureException();
+
+                        store.addConstraint(nogood, false);
+                        nogoodCount++;
+                    }
+                }
+                catch (PropagationFailureException propx) {
+                    // nogoods prove no further solutions exist
+                    exhausted = true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Starts a new run with a limit on the number of failures
+     */
+    private void startRun() {
+        runCount++;
+        store.getChoicePointStack().push();
+
+        tree = new CrawlingSearchTree(new BasicSearchNode(action), new RecalculatingStateManager(store));
+        runTechnique = new FailureCountingSearch(failureLimit(runCount));
+        runSearch = new TreeSearch(tree, runTechnique);
+        runSearch.setGoal(goal);
+        runSearch.setExplanationRecorder(explanations);
+    }
+
+    /**
+     * Returns the tree to the root and restores the problem to the state
+     * it was in before the run started
+     */
+    private void endRun() {
+        while (tree.getCurrentNode().getDepth() > 0)
+            tree.moveToParent();
+        store.getChoicePointStack().pop();
+
+        tree = null;
+        runSearch = null;
+        runTechnique = null;
+    }
+
+    /**
+     * Returns the number of failures allowed in a run
+     *
+     * @param run   Number of run starting from 1
+     */
+    private int failureLimit(int run) {
+        double limit = (growthFactor == 0) ? luby(run) : Math.pow(growthFactor, run - 1);
+        limit *= scaleFailures;
+        return (limit >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) limit;
+    }
+
+    /**
+     * Returns the i-th term of the Luby sequence starting from 1
+     */
+    private static int luby(int i) {
+        // locate smallest k such that i <= 2^k - 1
+        int k = 1;
+        while ((1 << k) - 1 < i)
+            k++;
+
+        // term is 2^(k-1) at the end of a block, otherwise repeat earlier term
+        if (i == (1 << k) - 1)
+            return 1 << (k - 1);
+        return luby(i - (1 << (k - 1)) + 1);
+    }
+
+    /**
+     * Builds nogoods from the decisions on the path from the root of the tree
+     * to the failed node at which a run stopped.  A null nogood is returned
+     * if the decisions prove that the tree contains no more solutions.
+     *
+     * @param failed        Failed node at which run stopped
+     * @param failedAction  Action of failed node, which is discarded when a node fails
+     */
+    private List<CspConstraint> buildNogoods(TreeNode failed, SearchAction failedAction) {
+        List<CspConstraint> nogoods = new ArrayList<CspConstraint>();
+
+        // collect decisions from root to failed node
+        int depth = failed.getDepth();
+        Decision decisions[] = new Decision[depth];
+        TreeNode n = failed;
+        for (int i=depth-1; i>=0; i--) {
+            decisions[i] = Decision.of((n==failed) ? failedAction : n.getAction());
+            n = n.getParent();
+        }
+
+        for (int i=0; i<depth; i++) {
+            Decision d = decisions[i];
+
+            // nogoods cannot be formed below a decision that is not understood
+            if (d==null) return nogoods;
+
+            // subtree assigning removed value was searched below the assign decisions above it
+            if (!d.assign && i<depth-1)
+                nogoods.add(buildNogood(decisions, i, d));
+        }
+
+        // failed node is refuted by the assign decisions above it, and if the
+        // node removed a value, assigning the value was refuted as well
+        Decision last = (depth > 0) ? decisions[depth-1] : null;
+        nogoods.add(buildNogood(decisions, depth-1, (last!=null && last.assign) ? last : null));
+
+        return nogoods;
+    }
+
+    /**
+     * Builds a constraint requiring that the assign decisions above a node and
+     * the assignment of a value are not all true
+     *
+     * @param decisions     Decisions on path to failed node
+     * @param index         Index of node whose decisions above it are included
+     * @param assign        Decision whose value is assigned, or null if only the
+     *                      decisions above the node should be included
+     * @return Nogood constraint or null if the nogood has no decisions
+     */
+    private CspConstraint buildNogood(Decision decisions[], int index, Decision assign) {
+        CspConstraint literal = (assign!=null) ? assign.var.neq(assign.val) : null;
+        CspBooleanExpr nogood = null;
+
+        // combine literals into a single disjunction
+        for (int i=index-1; i>=0; i--) {
+            Decision d = decisions[i];
+            if (d.assign) {
+                if (literal!=null)
+                    nogood = (nogood==null) ? literal.toBoolean() : nogood.or(literal.toBoolean());
+                literal = d.var.neq(d.val);
+            }
+        }
+
+        if (nogood==null) return literal;
+        return nogood.or(literal.toBoolean()).toConstraint();
+    }
+}
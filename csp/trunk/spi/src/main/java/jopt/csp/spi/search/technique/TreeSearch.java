@@ -1,12 +1,16 @@
 package jopt.csp.spi.search.technique;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedList;
+import java.util.List;
 
 import jopt.csp.search.Search;
 import jopt.csp.search.SearchAction;
 import jopt.csp.search.SearchGoal;
 import jopt.csp.search.SearchLimit;
 import jopt.csp.search.SearchNodeReference;
+import jopt.csp.spi.arcalgorithm.ExplanationRecorder;
 import jopt.csp.spi.search.tree.BasicSearchNode;
 import jopt.csp.spi.search.tree.CrawlingSearchTree;
 import jopt.csp.spi.search.tree.RecalculatingStateManager;
@@ -14,11 +18,21 @@ import jopt.csp.spi.search.tree.SearchTechniqueChange;
 import jopt.csp.spi.search.tree.SearchTree;
 import jopt.csp.spi.search.tree.TreeNode;
 import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspConstraint;
 import jopt.csp.variable.PropagationFailureException;
 
 /**
  * Implements a search that iterates over a tree of search nodes based on
  * a given technique.  The default technique used is Depth First.
+ * <p>
+ * When an explanation recorder is set and the tree is searched depth first,
+ * the decisions that a failed node depends upon are determined from the
+ * explanation of the failure.  Nodes below the deepest of these decisions
+ * are pruned without searching their remaining children, and when all children
+ * of a node have failed, the node fails with the union of the decisions its
+ * children depended upon apart from their own.  The decisions of each explained
+ * failure form a nogood that is available from {@link #getLearnedNogoods} so
+ * that it can be posted to the problem outside of the search.
  */
 public class TreeSearch implements Search {
 	protected SearchTree tree;
@@ -42,6 +56,15 @@ public class TreeSearch implements Search {
      */ 
     private int currentTechniqueRootDepth;
     
+    /**
+     * Recorder used to explain failures, and for each depth on the current path the
+     * decisions that failed children of the node at that depth depended upon
+     */
+    private ExplanationRecorder explanations;
+    private List<BitSet> childConflicts;
+    private List<CspConstraint> learnedNogoods;
+    private int backjumpCount;
+    
     /**
      * Constructor for initializing search
      * 
@@ -126,6 +149,35 @@ public class TreeSearch implements Search {
         this.continuallyImprove = improve;
     }
     
+    /**
+     * Sets the recorder used to explain failures so that the search can backjump
+     * and learn nogoods, or null if failures should not be explained.  The recorder
+     * must belong to the constraint store whose choicepoint stack the tree pushes
+     * and pops as it moves.
+     */
+    public void setExplanationRecorder(ExplanationRecorder explanations) {
+        this.explanations = explanations;
+        this.childConflicts = new ArrayList<BitSet>();
+        this.learnedNogoods = new ArrayList<CspConstraint>();
+    }
+    
+    /**
+     * Returns nogoods learned from the explanations of failures.  Each nogood is a
+     * constraint requiring that at least one of the integer assign and remove
+     * decisions a failure depended upon is false.
+     */
+    public List<CspConstraint> getLearnedNogoods() {
+        if (learnedNogoods==null) return new ArrayList<CspConstraint>();
+        return learnedNogoods;
+    }
+    
+    /**
+     * Returns the number of times a failure pruned open nodes above the failed node
+     */
+    public int getBackjumpCount() {
+        return backjumpCount;
+    }
+    
     // javadoc inherited from Search
     public final boolean nextSolution() {
         boolean solutionFound = false;
@@ -183,8 +235,11 @@ public class TreeSearch implements Search {
                 
             	// determine if current node is a leaf node
                 // and an acceptable solution
-                if (currentNode.getChildCount()==0 && isSolutionAcceptableToGoal(currentNode))
-                    return true;
+                if (currentNode.getChildCount()==0) {
+                    if (isLearning()) leafReached(currentNode);
+                    if (isSolutionAcceptableToGoal(currentNode))
+                        return true;
+                }
             }
             
             // move to next node and continue search
@@ -208,6 +263,14 @@ public class TreeSearch implements Search {
      */
     private boolean activateNode(TreeNode node) {
         boolean failure = false;
+        boolean learning = isLearning();
+        SearchAction action = null;
+        if (learning) {
+            // action is discarded if the node fails
+            action = node.getAction();
+            childConflicts(node.getDepth()).clear();
+            if (node.getDepth() > 0) explanations.beginDecision(node.getDepth());
+        }
     
         // Right now this is only here as a fast-escape mechanism
         // for the FirstSolutionGoal to quickly prune the remainder
@@ -255,9 +318,113 @@ public class TreeSearch implements Search {
             }
         }
         
+        if (failure && learning && node.getDepth() > 0)
+            backjump(node, action, explanations.explainFailure());
+        
         return !failure;
     }
     
+    /**
+     * Returns true if failures are explained, which requires a depth first
+     * search that has not changed technique
+     */
+    private boolean isLearning() {
+        return explanations!=null && technique instanceof DepthFirstSearch && techniqueQueue.size()==0;
+    }
+    
+    /**
+     * Returns the decisions that failed children of the node at a depth
+     * on the current path depended upon
+     */
+    private BitSet childConflicts(int depth) {
+        while (childConflicts.size() <= depth)
+            childConflicts.add(new BitSet());
+        return childConflicts.get(depth);
+    }
+    
+    /**
+     * Marks the subtrees of all nodes above a leaf as depending upon every decision
+     * above them, since they cannot fail once a leaf has been reached
+     */
+    private void leafReached(TreeNode leaf) {
+        for (int d=leaf.getDepth()-1; d>0; d--)
+            childConflicts(d).set(1, d+1);
+    }
+    
+    /**
+     * Prunes the nodes on the current path below the deepest decision that a
+     * failure depends upon.  Decisions are identified by the depth of the node
+     * making them.
+     * 
+     * @param failed        Node that failed
+     * @param action        Action of failed node
+     * @param conflict      Decisions failure depends upon, or null if failure
+     *                      could not be explained
+     */
+    private void backjump(TreeNode failed, SearchAction action, BitSet conflict) {
+        // failure that could not be explained depends upon every decision
+        if (conflict==null) {
+            conflict = new BitSet();
+            conflict.set(1, failed.getDepth()+1);
+        }
+        else
+            learnNogood(failed, action, conflict);
+        
+        TreeNode node = failed;
+        while (true) {
+            // decisions above root of search cannot be undone
+            int depth = conflict.length() - 1;
+            if (depth <= currentTechniqueRootDepth) depth = currentTechniqueRootDepth;
+            
+            // prune nodes up to node making deepest decision, noting if open nodes are skipped
+            boolean skipped = false;
+            while (node.getDepth() > depth) {
+                node = node.getParent();
+                if (node.getNextOpenChild()!=null) skipped = true;
+                node.prune();
+            }
+            if (skipped) backjumpCount++;
+            
+            // entire tree of technique has failed
+            if (depth == currentTechniqueRootDepth) return;
+            
+            // node making deepest decision fails, and its parent
+            // fails as well if it has no other children
+            TreeNode parent = node.getParent();
+            conflict.clear(depth);
+            BitSet parentConflict = childConflicts(depth-1);
+            parentConflict.or(conflict);
+            if (parent.getNextOpenChild()!=null) return;
+            
+            conflict = (BitSet) parentConflict.clone();
+            node = parent;
+        }
+    }
+    
+    /**
+     * Records a nogood from the decisions an explained failure depends upon
+     * if all of the decisions are integer assign or remove decisions
+     */
+    private void learnNogood(TreeNode failed, SearchAction action, BitSet conflict) {
+        Decision decisions[] = new Decision[conflict.cardinality()];
+        int k = decisions.length;
+        TreeNode n = failed;
+        while (n!=null && k > 0) {
+            if (conflict.get(n.getDepth())) {
+                Decision d = Decision.of((n==failed) ? action : n.getAction());
+                if (d==null) return;
+                decisions[--k] = d;
+            }
+            n = n.getParent();
+        }
+        
+        // conflict refers to a depth that is not on the path to the failed node
+        if (k > 0) return;
+        
+        CspConstraint nogood = Decision.nogood(decisions);
+        if (nogood!=null) learnedNogoods.add(nogood);
+    }
+    
     /**
      * Locates next open node to activate
      */
@@ -0,0 +1,120 @@
+package jopt.csp.spi.search.technique;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import jopt.csp.search.SearchNodeReference;
+
+/**
+ * Open nodes of a search tree shared by the workers of a parallel search.
+ * Each worker searching with a {@link WorkStealingSearch} owns a deque of
+ * references to open nodes it has given away.  A worker that has finished
+ * its part of the tree takes the most recently added node from its own deque,
+ * or steals the oldest node from the deque of another worker, which is the
+ * node closest to the root and therefore likely to hold the most work.
+ * <p>
+ * The search is exhausted once every worker is waiting for a node and no open
+ * nodes remain.  References are produced by the tree of one worker and replayed
+ * in the tree of another, so all workers must build identical trees.
+ */
+public class WorkStealingPool {
+    private List<LinkedList<SearchNodeReference>> deques;
+    private volatile int waitingCount;
+    private boolean stopped;
+    private boolean exhausted;
+
+    /**
+     * Creates a pool for a number of workers
+     *
+     * @param workerCount   Number of workers searching the tree
+     */
+    public WorkStealingPool(int workerCount) {
+        this.deques = new ArrayList<LinkedList<SearchNodeReference>>(workerCount);
+        for (int i=0; i<workerCount; i++)
+            deques.add(new LinkedList<SearchNodeReference>());
+    }
+
+    /**
+     * Returns the number of workers searching the tree
+     */
+    public int getWorkerCount() {
+        return deques.size();
+    }
+
+    /**
+     * Returns true if a worker is waiting for an open node
+     */
+    public boolean hasWaitingWorkers() {
+        return waitingCount > 0;
+    }
+
+    /**
+     * Adds an open node given away by a worker
+     *
+     * @param worker    Index of worker giving away node
+     * @param ref       Reference to open node
+     */
+    public synchronized void push(int worker, SearchNodeReference ref) {
+        deques.get(worker).addLast(ref);
+        notifyAll();
+    }
+
+    /**
+     * Retrieves an open node for a worker to search, waiting until a node is
+     * available or the search has ended
+     *
+     * @param worker    Index of worker requesting node
+     * @return Reference to open node or null if search has ended
+     */
+    public synchronized SearchNodeReference take(int worker) {
+        waitingCount++;
+        try {
+            while (!stopped) {
+                // take newest node of own deque before stealing oldest from others
+                LinkedList<SearchNodeReference> own = deques.get(worker);
+                SearchNodeReference ref = own.isEmpty() ? null : own.removeLast();
+                for (int i=1; ref==null && i<deques.size(); i++) {
+                    LinkedList<SearchNodeReference> deque = deques.get((worker + i) % deques.size());
+                    if (!deque.isEmpty()) ref = deque.removeFirst();
+                }
+                if (ref != null) return ref;
+
+                // search is exhausted if no worker can give away more nodes
+                if (waitingCount == deques.size()) {
+                    exhausted = true;
+                    stopped = true;
+                    notifyAll();
+                    return null;
+                }
+
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    stopped = true;
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return null;
+        }
+        finally {
+            waitingCount--;
+        }
+    }
+
+    /**
+     * Ends the search, releasing any waiting workers
+     */
+    public synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    /**
+     * Returns true if the search ended because every node of the tree was searched
+     */
+    public synchronized boolean isExhausted() {
+        return exhausted;
+    }
+}
@@ -0,0 +1,124 @@
+package jopt.csp.spi.search.technique;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jopt.csp.search.SearchNodeReference;
+import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.search.tree.TreeNode;
+
+/**
+ * Depth-first search performed by one of several workers searching copies of
+ * the same tree in parallel.  Each worker searches its own problem and tree, and
+ * workers exchange references to open nodes through a shared {@link WorkStealingPool}.
+ * <p>
+ * The first worker starts searching from the root of the tree while the other
+ * workers wait for open nodes.  Whenever a worker is waiting, the searching
+ * worker gives away an open child of the node closest to the root of the part of
+ * the tree it is searching and no longer visits that child.  The waiting
+ * worker jumps to the referenced node in its own tree and searches the subtree
+ * below it depth first, returning to the pool when it is done.
+ * <p>
+ * Jumping to a node replays the path from the root, so it requires a
+ * {@link jopt.csp.spi.search.tree.CrawlingSearchTree} and actions that produce
+ * the same children each time a node is activated.
+ */
+public class WorkStealingSearch implements TreeSearchTechnique {
+    private WorkStealingPool pool;
+    private int worker;
+    private int subtreeDepth;
+    private boolean jumped;
+    private Set<TreeNode> sharedNodes;
+
+    /**
+     * Creates the technique used by a worker
+     *
+     * @param pool      Pool shared by all workers searching the tree
+     * @param worker    Index of worker within pool
+     */
+    public WorkStealingSearch(WorkStealingPool pool, int worker) {
+        this.pool = pool;
+        this.worker = worker;
+        this.subtreeDepth = (worker==0) ? 0 : -1;
+        this.sharedNodes = new HashSet<TreeNode>();
+    }
+
+    // javadoc inherited from TreeSearchTechnique
+    public void nextMove(Move move, SearchTree tree, TreeNode currentNode, boolean isRoot) {
+        // first move after a jump is made from the root of the stolen subtree
+        if (jumped) {
+            subtreeDepth = currentNode.getDepth();
+            sharedNodes.clear();
+            jumped = false;
+        }
+
+        TreeNode childNode = (subtreeDepth >= 0) ? nextOpenChild(currentNode, null) : null;
+
+        // give away open node while continuing down the tree
+        if (childNode!=null && pool.hasWaitingWorkers())
+            shareOpenNode(tree, currentNode, childNode);
+
+        if (childNode!=null) {
+            move.setMovement(CHILD);
+            move.setChildNum(childNode.getChildNumberWithinParent());
+        }
+
+        // move up in tree while within subtree being searched
+        else if (currentNode.getDepth() > subtreeDepth && subtreeDepth >= 0) {
+            move.setMovement(PARENT);
+        }
+
+        // take another subtree from pool
+        else {
+            SearchNodeReference ref = pool.take(worker);
+            if (ref==null) {
+                move.setMovement(NONE);
+            }
+            else {
+                jumped = true;
+                move.setMovement(JUMP);
+                move.setJumpRef(ref);
+            }
+        }
+    }
+
+    /**
+     * Returns the first open child of a node that has not been given away
+     *
+     * @param n         Node to search for open child
+     * @param exclude   Child to skip in addition to children given away
+     */
+    private TreeNode nextOpenChild(TreeNode n, TreeNode exclude) {
+        for (int i=0; i<n.getChildCount(); i++) {
+            TreeNode child = n.getChild(i);
+            if (!child.isClosed() && child!=exclude && !sharedNodes.contains(child))
+                return child;
+        }
+        return null;
+    }
+
+    /**
+     * Gives away an open child of the node closest to the root of the current
+     * subtree, excluding the child the search is about to move to.  The shared
+     * node is left open in this worker's tree since other workers may later give
+     * away nodes below it, which this worker reaches by replaying the path
+     * through it.
+     */
+    private void shareOpenNode(SearchTree tree, TreeNode currentNode, TreeNode nextChild) {
+        TreeNode shared = null;
+
+        // locate open node closest to root of subtree
+        TreeNode n = currentNode;
+        while (n!=null && n.getDepth() >= subtreeDepth) {
+            TreeNode child = nextOpenChild(n, nextChild);
+            if (child!=null) shared = child;
+            n = (n.getDepth() > subtreeDepth) ? n.getParent() : null;
+        }
+
+        // publish reference and skip node in this worker's tree
+        if (shared!=null) {
+            pool.push(worker, tree.getReferenceForNode(shared));
+            sharedNodes.add(shared);
+        }
+    }
+}
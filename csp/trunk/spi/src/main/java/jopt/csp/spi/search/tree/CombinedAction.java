@@ -71,6 +71,13 @@ public final class CombinedAction implements SearchAction {
         actionStack.add(cpAction);
     }
     
+    /**
+     * Returns the first action that will be performed
+     */
+    public SearchAction getFirstAction() {
+        return actionStack.getLast();
+    }
+    
     /**
      * Iteratively executed the actions stored in this <code>CombinedAction</code>.  Handles
      * choice points and search technique changes appropriately so that all actions in the
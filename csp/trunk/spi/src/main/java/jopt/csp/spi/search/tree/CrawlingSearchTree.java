@@ -117,6 +117,9 @@ public class CrawlingSearchTree extends AbstractSearchTree {
             commonParentDepth++;
         }
         
+        // common parent cannot be below the parent of the new node
+        if (commonParentDepth>nPath.size()-1) commonParentDepth = nPath.size()-1;
+        
         // move to common parent depth from common node
         while (currentNode.getDepth()>commonParentDepth) {
             moveToParent();
@@ -173,12 +176,14 @@ public class CrawlingSearchTree extends AbstractSearchTree {
             moveworkBits.or(currentPath);
             moveworkBits.xor(nPath);
             
-            // determine depth of common parent
+            // determine depth of common parent, which cannot be below the current
+            // node or the parent of the new node
+            int curDepth = currentNode.getDepth();
             int commonParentDepth = moveworkBits.nextSetBit(0);
-            if (commonParentDepth<0) commonParentDepth = currentNode.getDepth()-1;
+            if (commonParentDepth<0 || commonParentDepth>curDepth) commonParentDepth = curDepth;
+            if (commonParentDepth>ref.depth-1) commonParentDepth = ref.depth-1;
             
             // move to common parent from current node
-            int curDepth = currentNode.getDepth();
             for (int i=commonParentDepth; i<curDepth; i++)
                 moveToParent();
             
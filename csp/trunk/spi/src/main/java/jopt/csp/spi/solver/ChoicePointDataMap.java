@@ -27,12 +27,15 @@ import java.util.Stack;
  * <code>HashMap</code> is created whenever a map is pushed on the 
  * internal <code>Stack</code>.
  * <p>
+ * When the choicepoint stack records changes on a trail, the map is only
+ * pushed the first time it is accessed after the stack is pushed.
+ * <p>
  * This class is not thread safe.
  *  
  * @author Nick Coleman
  * @version %I% 
  */
-public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry {
+public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointTrailEntry {
     private ChoicePointEntryCloseListener closeListener;
     private Integer entryID;
     // Stack of currentData maps that have been pushed
@@ -40,6 +43,12 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
     // Map containing data about any number of objects
     private Map<Object, Object> currentData;
     private ChoicePointEntryListener listener;
+    private boolean pushing;
+    private boolean popping;
+    private ChoicePointStack trailStack;
+    private int trailOrder;
+    private int trailDepth;
+    private boolean closed;
     
     /**
      * Creates a new choicepoint data map
@@ -62,10 +71,48 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
         if (dataStack!=null)
         	while (dataStack.size()>0) pop();
         
+        closed = true;
+        
         // notify listener that map has closed
         closeListener.entryClosedEvent(entryID);
     }
     
+    /**
+     * Records changes to this map on the trail of a choicepoint stack
+     * instead of being pushed each time the stack is pushed
+     * 
+     * @param trailStack    Stack recording changes on its trail
+     * @param trailOrder    Order value indicating at what stage map should be popped
+     */
+    void setTrailStack(ChoicePointStack trailStack, int trailOrder) {
+        this.trailStack = trailStack;
+        this.trailOrder = trailOrder;
+        this.trailDepth = -1;
+    }
+    
+    // javadoc inherited
+    public void setTrailDepth(int trailDepth) {
+        this.trailDepth = trailDepth;
+    }
+    
+    // javadoc inherited
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Notifies the map that its data or the state recorded by its listener
+     * are about to change.  If the map is recorded on the trail of the
+     * choicepoint stack, it is pushed the first time it changes after
+     * the stack has been pushed.  Retrieving or storing data in the map
+     * calls this method automatically, but listeners must call it before
+     * changing any other state they record when the stack is pushed.
+     */
+    public void touch() {
+        if (trailStack!=null && !pushing && !popping)
+            trailDepth = trailStack.trailEntry(this, trailOrder, trailDepth);
+    }
+    
     // javadoc inherited
     public void push() {
         pushDelta(null);
@@ -77,6 +124,8 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
      */
 	@SuppressWarnings("unchecked")
 	public void pushDelta(Object data) {
+        pushing = true;
+        
         // Notify listener
         if (listener!=null)
             listener.beforeChoicePointPushEvent();
@@ -92,6 +141,8 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
         // Notify listener
         if (listener!=null)
             listener.afterChoicePointPushEvent();
+        
+        pushing = false;
     }
     
     // javadoc inherited
@@ -108,6 +159,8 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
      * @return  map of changes that was rolled back in map
      */
     public Object popDelta() {
+        popping = true;
+        
         // Notify listener
         if (listener!=null)
             listener.beforeChoicePointPopEvent();
@@ -125,6 +178,8 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
         if (listener!=null)
             listener.afterChoicePointPopEvent();
         
+        popping = false;
+        
         return changes;
     }
     
@@ -144,6 +199,7 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
     
     // Map wrapper functions
     public void clear() {
+        touch();
         currentData.clear();
     }
     
@@ -156,10 +212,12 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
     }
     
     public Set<Map.Entry<Object,Object>> entrySet() {
+        touch();
         return currentData.entrySet();
     }
     
     public Object get(Object obj) {
+        touch();
         return currentData.get(obj);
     }
     
@@ -168,18 +226,22 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
     }
     
     public Set<Object> keySet() {
+        touch();
         return currentData.keySet();
     }
     
     public Object put(Object obj, Object obj1) {
+        touch();
         return currentData.put(obj, obj1);
     }
     
     public void putAll(Map<? extends Object, ? extends Object> map) {
+        touch();
         currentData.putAll(map);
     }
     
     public Object remove(Object obj) {
+        touch();
         return currentData.remove(obj);
     }
     
@@ -188,6 +250,7 @@ public class ChoicePointDataMap implements Map<Object, Object>, ChoicePointEntry
     }
     
     public Collection<Object> values() {
+        touch();
         return currentData.values();
     }
     
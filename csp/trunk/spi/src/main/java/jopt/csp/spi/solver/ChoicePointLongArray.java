@@ -25,6 +25,7 @@ public class ChoicePointLongArray implements ChoicePointNumArraySet.StackList {
     private int size;
     private int depth;
     private int capacity;
+    private ChoicePointNumArraySet arraySet;
     
     /**
      * Creates a new <code>ChoicePointLongArray</code>
@@ -43,6 +44,16 @@ public class ChoicePointLongArray implements ChoicePointNumArraySet.StackList {
         this.depth = 0;
     }
     
+    /**
+     * Creates a new <code>ChoicePointLongArray</code> belonging to a set
+     * 
+     * @param arraySet  Set notified before the array is changed
+     */
+    ChoicePointLongArray(ChoicePointNumArraySet arraySet) {
+        this();
+        this.arraySet = arraySet;
+    }
+    
     /**
      * Performs actions necessary to push data
      */
@@ -140,6 +151,7 @@ public class ChoicePointLongArray implements ChoicePointNumArraySet.StackList {
      * @param val
      */
     public void add(long val) {
+        if (arraySet!=null) arraySet.touch();
     	set(size, val);
     }
     
@@ -150,6 +162,7 @@ public class ChoicePointLongArray implements ChoicePointNumArraySet.StackList {
      * @param val       Value to append to the list
      */
     public void set(int offset, long val) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
@@ -200,6 +213,7 @@ public class ChoicePointLongArray implements ChoicePointNumArraySet.StackList {
      * @param offset    Offset of value in list
      */
     public long remove(int offset) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
@@ -25,6 +25,7 @@ public class ChoicePointMultiFloatArray implements ChoicePointNumArraySet.StackL
     private int size;
     private int depth;
     private int capacity;
+    private ChoicePointNumArraySet arraySet;
     private int listCnt;
     
     
@@ -48,6 +49,17 @@ public class ChoicePointMultiFloatArray implements ChoicePointNumArraySet.StackL
         this.depth = 0;
     }
     
+    /**
+     * Creates a new <code>ChoicePointMultiFloatArray</code> belonging to a set
+     * 
+     * @param listCnt   Number of lists to maintain
+     * @param arraySet  Set notified before the array is changed
+     */
+    ChoicePointMultiFloatArray(int listCnt, ChoicePointNumArraySet arraySet) {
+        this(listCnt);
+        this.arraySet = arraySet;
+    }
+    
     /**
      * Performs actions necessary to push data
      */
@@ -155,6 +167,7 @@ public class ChoicePointMultiFloatArray implements ChoicePointNumArraySet.StackL
      * @return offset of new value in list
      */
     public int add(int listIdx, float val) {
+        if (arraySet!=null) arraySet.touch();
         int offset = size;
     	set(listIdx, offset, val);
         return offset;
@@ -168,6 +181,7 @@ public class ChoicePointMultiFloatArray implements ChoicePointNumArraySet.StackL
      * @param val       Value to append to the list
      */
     public void set(int listIdx, int offset, float val) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
@@ -222,6 +236,7 @@ public class ChoicePointMultiFloatArray implements ChoicePointNumArraySet.StackL
      * @param offset    Offset of value in list
      */
     public float remove(int listIdx, int offset) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
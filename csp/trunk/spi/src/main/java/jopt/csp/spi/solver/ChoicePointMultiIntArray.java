@@ -25,6 +25,7 @@ public class ChoicePointMultiIntArray implements ChoicePointNumArraySet.StackLis
     private int size;
     private int depth;
     private int capacity;
+    private ChoicePointNumArraySet arraySet;
     private int listCnt;
     
     
@@ -48,6 +49,17 @@ public class ChoicePointMultiIntArray implements ChoicePointNumArraySet.StackLis
         this.depth = 0;
     }
     
+    /**
+     * Creates a new <code>ChoicePointMultiIntArray</code> belonging to a set
+     * 
+     * @param listCnt   Number of lists to maintain
+     * @param arraySet  Set notified before the array is changed
+     */
+    ChoicePointMultiIntArray(int listCnt, ChoicePointNumArraySet arraySet) {
+        this(listCnt);
+        this.arraySet = arraySet;
+    }
+    
     /**
      * Performs actions necessary to push data
      */
@@ -155,6 +167,7 @@ public class ChoicePointMultiIntArray implements ChoicePointNumArraySet.StackLis
      * @return offset of new value in list
      */
     public int add(int listIdx, int val) {
+        if (arraySet!=null) arraySet.touch();
         int offset = size;
     	set(listIdx, size, val);
         return offset;
@@ -168,6 +181,7 @@ public class ChoicePointMultiIntArray implements ChoicePointNumArraySet.StackLis
      * @param val       Value to append to the list
      */
     public void set(int listIdx, int offset, int val) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
@@ -222,6 +236,7 @@ public class ChoicePointMultiIntArray implements ChoicePointNumArraySet.StackLis
      * @param offset    Offset of value in list
      */
     public int remove(int listIdx, int offset) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
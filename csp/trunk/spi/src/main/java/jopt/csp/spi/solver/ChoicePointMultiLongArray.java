@@ -25,6 +25,7 @@ public class ChoicePointMultiLongArray implements ChoicePointNumArraySet.StackLi
     private int size;
     private int depth;
     private int capacity;
+    private ChoicePointNumArraySet arraySet;
     private int listCnt;
     
     
@@ -48,6 +49,17 @@ public class ChoicePointMultiLongArray implements ChoicePointNumArraySet.StackLi
         this.depth = 0;
     }
     
+    /**
+     * Creates a new <code>ChoicePointMultiLongArray</code> belonging to a set
+     * 
+     * @param listCnt   Number of lists to maintain
+     * @param arraySet  Set notified before the array is changed
+     */
+    ChoicePointMultiLongArray(int listCnt, ChoicePointNumArraySet arraySet) {
+        this(listCnt);
+        this.arraySet = arraySet;
+    }
+    
     /**
      * Performs actions necessary to push data
      */
@@ -155,6 +167,7 @@ public class ChoicePointMultiLongArray implements ChoicePointNumArraySet.StackLi
      * @return offset of new value in list
      */
     public int add(int listIdx, long val) {
+        if (arraySet!=null) arraySet.touch();
         int offset = size;
     	set(listIdx, offset, val);
         return offset;
@@ -168,6 +181,7 @@ public class ChoicePointMultiLongArray implements ChoicePointNumArraySet.StackLi
      * @param val       Value to append to the list
      */
     public void set(int listIdx, int offset, long val) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
@@ -222,6 +236,7 @@ public class ChoicePointMultiLongArray implements ChoicePointNumArraySet.StackLi
      * @param offset    Offset of value in list
      */
     public long remove(int listIdx, int offset) {
+        if (arraySet!=null) arraySet.touch();
         if (offset < 0)
             throw new IndexOutOfBoundsException("invalid value offset");
         
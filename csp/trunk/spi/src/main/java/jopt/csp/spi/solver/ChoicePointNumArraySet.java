@@ -24,7 +24,7 @@ import org.apache.commons.collections.primitives.ArrayIntList;
  * @author Nick Coleman
  * @version $Revision: 1.3 $ 
  */
-public class ChoicePointNumArraySet implements ChoicePointEntry {
+public class ChoicePointNumArraySet implements ChoicePointTrailEntry {
 	private ArrayList<ChoicePointNumArraySet.StackList> stacks;
     private ChoicePointEntryCloseListener closeListener;
     private Integer entryID;
@@ -33,6 +33,10 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
     private ArrayList<Object> deltaWorkingList;
     private boolean pushing;
     private boolean popping;
+    private ChoicePointStack trailStack;
+    private int trailOrder;
+    private int trailDepth;
+    private boolean closed;
     
     /**
      * Creates a new <code>ChoicePointNumArraySet</code>
@@ -52,7 +56,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointIntList</code> associated with this set
      */
     public ChoicePointIntArray newIntList() {
-        ChoicePointIntArray list = new ChoicePointIntArray();
+        ChoicePointIntArray list = new ChoicePointIntArray(this);
         stacks.add(list);
         return list;
     }
@@ -64,7 +68,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointIntList</code> associated with this et
      */
     public ChoicePointMultiIntArray newMultiIntList(int listCnt) {
-        ChoicePointMultiIntArray list = new ChoicePointMultiIntArray(listCnt);
+        ChoicePointMultiIntArray list = new ChoicePointMultiIntArray(listCnt, this);
         stacks.add(list);
         return list;
     }
@@ -75,7 +79,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointLongArray</code> associated with this set
      */
     public ChoicePointLongArray newLongList() {
-        ChoicePointLongArray list = new ChoicePointLongArray();
+        ChoicePointLongArray list = new ChoicePointLongArray(this);
         stacks.add(list);
         return list;
     }
@@ -87,7 +91,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointMultiLongArray</code> associated with this et
      */
     public ChoicePointMultiLongArray newMultiLongList(int listCnt) {
-        ChoicePointMultiLongArray list = new ChoicePointMultiLongArray(listCnt);
+        ChoicePointMultiLongArray list = new ChoicePointMultiLongArray(listCnt, this);
         stacks.add(list);
         return list;
     }
@@ -98,7 +102,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointFloatArray</code> associated with this set
      */
     public ChoicePointFloatArray newFloatList() {
-        ChoicePointFloatArray list = new ChoicePointFloatArray();
+        ChoicePointFloatArray list = new ChoicePointFloatArray(this);
         stacks.add(list);
         return list;
     }
@@ -110,7 +114,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointMultiFloatArray</code> associated with this et
      */
     public ChoicePointMultiFloatArray newMultiFloatList(int listCnt) {
-        ChoicePointMultiFloatArray list = new ChoicePointMultiFloatArray(listCnt);
+        ChoicePointMultiFloatArray list = new ChoicePointMultiFloatArray(listCnt, this);
         stacks.add(list);
         return list;
     }
@@ -121,7 +125,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointDoubleArray</code> associated with this set
      */
     public ChoicePointDoubleArray newDoubleList() {
-        ChoicePointDoubleArray list = new ChoicePointDoubleArray();
+        ChoicePointDoubleArray list = new ChoicePointDoubleArray(this);
         stacks.add(list);
         return list;
     }
@@ -133,7 +137,7 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * @return <code>ChoicePointMultiDoubleArray</code> associated with this et
      */
     public ChoicePointMultiDoubleArray newMultiDoubleList(int listCnt) {
-        ChoicePointMultiDoubleArray list = new ChoicePointMultiDoubleArray(listCnt);
+        ChoicePointMultiDoubleArray list = new ChoicePointMultiDoubleArray(listCnt, this);
         stacks.add(list);
         return list;
     }
@@ -149,10 +153,48 @@ public class ChoicePointNumArraySet implements ChoicePointEntry {
      * Disconnects the list from the choicepoint stack
      */
     public void close() {
+        closed = true;
+        
         // notify listener that map has closed
         closeListener.entryClosedEvent(entryID);
     }
     
+    /**
+     * Records changes to this set on the trail of a choicepoint stack
+     * instead of being pushed each time the stack is pushed
+     * 
+     * @param trailStack    Stack recording changes on its trail
+     * @param trailOrder    Order value indicating at what stage set should be popped
+     */
+    void setTrailStack(ChoicePointStack trailStack, int trailOrder) {
+        this.trailStack = trailStack;
+        this.trailOrder = trailOrder;
+        this.trailDepth = -1;
+    }
+    
+    // javadoc inherited
+    public void setTrailDepth(int trailDepth) {
+        this.trailDepth = trailDepth;
+    }
+    
+    // javadoc inherited
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Notifies the set that its arrays or the state recorded by its listener
+     * are about to change.  If the set is recorded on the trail of the
+     * choicepoint stack, it is pushed the first time it changes after
+     * the stack has been pushed.  The arrays of the set call this method
+     * automatically, but listeners must call it before changing any other
+     * state they record when the stack is pushed.
+     */
+    public void touch() {
+        if (trailStack!=null && !pushing && !popping)
+            trailDepth = trailStack.trailEntry(this, trailOrder, trailDepth);
+    }
+    
     // javadoc inherited
     public void push() {
     	pushing = true;
@@ -1,11 +1,5 @@
 package jopt.csp.spi.solver;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
-
 /**
  * The <code>ChoicePointStack</code> object represents a stack that contains the state of a CSP problem 
  * at decision points of a searching algorithm.  The data contained within the constraint store 
@@ -27,6 +21,16 @@ import java.util.Map;
  * variable.  In this way, search algorithms are provided a tool that allows all valid 
  * variable / value combinations to be determined.
  * <p>
+ * By default every entry is pushed each time the stack is pushed and popped each time
+ * the stack is popped.  A stack can instead be created to record changes on a trail.
+ * Entries of a trailing stack are only pushed the first time they change after a
+ * choicepoint, at which point they are recorded on the trail.  Popping the stack only
+ * pops the entries recorded on the trail since the last push, so the cost of pushing
+ * and popping depends on the number of entries that changed rather than the total
+ * number of entries.  Objects using entries of a trailing stack must call the
+ * <code>touch</code> method of the entry before changing any state that is recorded
+ * when the entry is pushed.
+ * <p>
  * This class is not thread safe.
  * 
  * @author Nick Coleman
@@ -34,15 +38,62 @@ import java.util.Map;
  */
 public class ChoicePointStack implements ChoicePointEntryCloseListener {
     private int nextEntryID;
-    private Map<Integer, Map<Integer, ChoicePointEntry>> dataEntryOrder;
-    private int maxKey;
     private int depth;
     
+    // entries registered with the stack, indexed by order and position
+    private ChoicePointEntry orderEntries[][];
+    private int orderEntryIDs[][];
+    private int orderSizes[];
+    private int closedCount;
+    
+    // order and position of each entry, indexed by entry id
+    private int entryOrders[];
+    private int entryPositions[];
+    
+    // trail of entries that have changed since each choicepoint
+    private boolean trailing;
+    private boolean popping;
+    private ChoicePointTrailEntry trailEntries[];
+    private int trailOrders[];
+    private int trailPrevDepths[];
+    private int trailSize;
+    private int trailMarks[];
+    
     /**
      * Creates a new <code>ChoicePointStack</code> object.
      */
     public ChoicePointStack() {
-        this.dataEntryOrder = Collections.synchronizedMap(new HashMap<Integer, Map<Integer, ChoicePointEntry>>());
+        this(false);
+    }
+    
+    /**
+     * Creates a new <code>ChoicePointStack</code> object.
+     * 
+     * @param trailing  True if entries should only be pushed when they change and
+     *                  recorded on a trail, false if all entries should be pushed
+     *                  and popped with the stack
+     */
+    public ChoicePointStack(boolean trailing) {
+        this.orderEntries = new ChoicePointEntry[0][];
+        this.orderEntryIDs = new int[0][];
+        this.orderSizes = new int[0];
+        this.entryOrders = new int[64];
+        this.entryPositions = new int[64];
+        this.trailing = trailing;
+        
+        if (trailing) {
+            this.trailEntries = new ChoicePointTrailEntry[64];
+            this.trailOrders = new int[64];
+            this.trailPrevDepths = new int[64];
+            this.trailMarks = new int[16];
+        }
+    }
+    
+    /**
+     * Returns true if this stack records changes to entries on a trail
+     */
+    public boolean isTrailing() {
+        return trailing;
     }
     
 //    /**
@@ -105,21 +156,12 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
      * @return <code>ChoicePointNumArraySet</code> associated with this stack
      */
     public ChoicePointNumArraySet newNumStackSet(ChoicePointEntryListener listener, int order) {
-        this.maxKey = Math.max(maxKey, order);
-        
-        Integer entryID = new Integer(nextEntryID++);
-        ChoicePointNumArraySet set = new ChoicePointNumArraySet(this, entryID);
+        int entryID = nextEntryID++;
+        ChoicePointNumArraySet set = new ChoicePointNumArraySet(this, new Integer(entryID));
         set.setListener(listener);
+        if (trailing) set.setTrailStack(this, order);
         
-        // retrieve map to store listener
-        Integer key = new Integer(order);
-        Map<Integer, ChoicePointEntry> dataEntryHash = dataEntryOrder.get(key);
-        if (dataEntryHash==null) {
-            dataEntryHash = Collections.synchronizedMap(new HashMap<Integer, ChoicePointEntry>());
-            dataEntryOrder.put(key, dataEntryHash);
-        }
-        
-        dataEntryHash.put(entryID, set);
+        addEntry(set, entryID, order);
         return set;
     }
     
@@ -151,24 +193,109 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
      * @see ChoicePointDataMap 
      */
     public ChoicePointDataMap newDataMap(ChoicePointEntryListener listener, int order) {
-    	this.maxKey = Math.max(maxKey, order);
-    	
-    	Integer entryID = new Integer(nextEntryID++);
-    	ChoicePointDataMap map = new ChoicePointDataMap(this, entryID);
-    	
-    	// retrieve map to store listener
-    	Integer key = new Integer(order);
-    	Map<Integer, ChoicePointEntry> dataMapHash = dataEntryOrder.get(key);
-    	if (dataMapHash==null) {
-    		dataMapHash = Collections.synchronizedMap(new HashMap<Integer, ChoicePointEntry>());
-    		dataEntryOrder.put(key, dataMapHash);
-    	}
-    	
-    	dataMapHash.put(entryID, map);
+    	int entryID = nextEntryID++;
+    	ChoicePointDataMap map = new ChoicePointDataMap(this, new Integer(entryID));
         map.setListener(listener);
+        if (trailing) map.setTrailStack(this, order);
+        
+        addEntry(map, entryID, order);
         return map;
     }
     
+    /**
+     * Registers an entry with the stack so that it is pushed and popped
+     * with the other entries of the same order
+     * 
+     * @param entry     Entry to register
+     * @param entryID   Unique id of entry
+     * @param order     Order value indicating at what stage entry should be popped
+     */
+    private void addEntry(ChoicePointEntry entry, int entryID, int order) {
+        // expand arrays of entries for each order
+        if (order >= orderEntries.length) {
+            int newLength = order + 1;
+            ChoicePointEntry newEntries[][] = new ChoicePointEntry[newLength][];
+            System.arraycopy(orderEntries, 0, newEntries, 0, orderEntries.length);
+            orderEntries = newEntries;
+            
+            int newEntryIDs[][] = new int[newLength][];
+            System.arraycopy(orderEntryIDs, 0, newEntryIDs, 0, orderEntryIDs.length);
+            orderEntryIDs = newEntryIDs;
+            
+            int newSizes[] = new int[newLength];
+            System.arraycopy(orderSizes, 0, newSizes, 0, orderSizes.length);
+            orderSizes = newSizes;
+        }
+        
+        // a trailing stack does not walk its entries when pushed or popped, so
+        // reclaim positions of closed entries before expanding entries of order
+        int size = orderSizes[order];
+        if (trailing && closedCount > 0 && orderEntries[order] != null && size == orderEntries[order].length) {
+            compactEntries();
+            size = orderSizes[order];
+        }
+        
+        // expand entries of order
+        if (orderEntries[order] == null) {
+            orderEntries[order] = new ChoicePointEntry[16];
+            orderEntryIDs[order] = new int[16];
+        }
+        else if (size == orderEntries[order].length) {
+            ChoicePointEntry newEntries[] = new ChoicePointEntry[size * 2];
+            System.arraycopy(orderEntries[order], 0, newEntries, 0, size);
+            orderEntries[order] = newEntries;
+            
+            int newEntryIDs[] = new int[size * 2];
+            System.arraycopy(orderEntryIDs[order], 0, newEntryIDs, 0, size);
+            orderEntryIDs[order] = newEntryIDs;
+        }
+        
+        // expand location of entries by id
+        if (entryID >= entryOrders.length) {
+            int newLength = Math.max(entryID + 1, entryOrders.length * 2);
+            int newOrders[] = new int[newLength];
+            System.arraycopy(entryOrders, 0, newOrders, 0, entryOrders.length);
+            entryOrders = newOrders;
+            
+            int newPositions[] = new int[newLength];
+            System.arraycopy(entryPositions, 0, newPositions, 0, entryPositions.length);
+            entryPositions = newPositions;
+        }
+        
+        orderEntries[order][size] = entry;
+        orderEntryIDs[order][size] = entryID;
+        orderSizes[order] = size + 1;
+        entryOrders[entryID] = order;
+        entryPositions[entryID] = size;
+    }
+    
+    /**
+     * Removes the positions left by closed entries from the arrays of entries
+     */
+    private void compactEntries() {
+        for (int order=0; order<orderEntries.length; order++) {
+            ChoicePointEntry entries[] = orderEntries[order];
+            int entryIDs[] = orderEntryIDs[order];
+            int size = orderSizes[order];
+            
+            int newSize = 0;
+            for (int i=0; i<size; i++) {
+                if (entries[i] != null) {
+                    entries[newSize] = entries[i];
+                    entryIDs[newSize] = entryIDs[i];
+                    entryPositions[entryIDs[i]] = newSize;
+                    newSize++;
+                }
+            }
+            
+            for (int i=newSize; i<size; i++)
+                entries[i] = null;
+            orderSizes[order] = newSize;
+        }
+        
+        closedCount = 0;
+    }
+    
     /**
      * Closes a <code>ChoicePointEntry</code> associated with this stack. 
      * The map will be disconnected from the stack an no more events will be
@@ -177,14 +304,14 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
      * @param entryID   ID of the entry belonging to this stack that should be closed
      */
     public void entryClosedEvent(Integer entryID) {
-        // remove from all hashmaps
-        Iterator<Integer> keyIter = dataEntryOrder.keySet().iterator();
-        while (keyIter.hasNext()) {
-        	Map<Integer, ChoicePointEntry> dataEntryHash = dataEntryOrder.get(keyIter.next());
-            
-            // map should only be in one hash
-            if (dataEntryHash!=null && dataEntryHash.remove(entryID)!=null)
-                break;
+        int id = entryID.intValue();
+        int order = entryOrders[id];
+        int position = entryPositions[id];
+        
+        // clear position of entry, which is reclaimed before the next push or pop
+        if (orderEntries[order][position] != null) {
+            orderEntries[order][position] = null;
+            closedCount++;
         }
     }
     
@@ -195,19 +322,19 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
      * by calling the {@link #pop} method.
      */
     public void push() {
-        // remove from all hashmaps
-        Iterator<Integer> keyIter = dataEntryOrder.keySet().iterator();
-        while (keyIter.hasNext()) {
-            Object key = keyIter.next();
-            Map<Integer, ChoicePointEntry> dataEntryHash = dataEntryOrder.get(key);
-            
-            // reset data in entry after push
-            Iterator<Integer> entryIter = dataEntryHash.keySet().iterator();
-            while (entryIter.hasNext()) {
-                // restore changes to choicepoint entry
-                Integer entryID = (Integer) entryIter.next();
-                ChoicePointEntry entry = (ChoicePointEntry) dataEntryHash.get(entryID);
-                entry.push();
+        if (trailing) {
+            pushTrailMark();
+            return;
+        }
+        
+        if (closedCount > 0) compactEntries();
+        
+        // push all entries
+        for (int order=0; order<orderEntries.length; order++) {
+            int size = orderSizes[order];
+            for (int i=0; i<size; i++) {
+                ChoicePointEntry entry = orderEntries[order][i];
+                if (entry!=null) entry.push();
             }
         }
         
@@ -223,35 +350,34 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
      * @param delta Delta of changes to push back onto stack
      */
     public void pushDelta(Object delta) {
-        @SuppressWarnings("unchecked")
-		Map<Integer, Map<Integer, Object>> deltaOrder = (Map<Integer, Map<Integer, Object>>) delta;
-        
-        // remove from all hashmaps
-        Iterator<Integer> keyIter = dataEntryOrder.keySet().iterator();
-        while (keyIter.hasNext()) {
-            Object key = keyIter.next();
-            Map<Integer, ChoicePointEntry> dataEntryHash = dataEntryOrder.get(key);
-            Map<Integer, Object> deltaMap = (deltaOrder) != null ? deltaOrder.get(key) : null;
+        if (trailing) {
+            pushTrailMark();
+            if (delta!=null) ((TrailDelta) delta).push();
+            return;
+        }
+        
+        if (closedCount > 0) compactEntries();
+        
+        // delta of each entry is indexed by entry id
+        Object entryDeltas[] = (Object[]) delta;
+        
+        for (int order=0; order<orderEntries.length; order++) {
+            ChoicePointEntry entries[] = orderEntries[order];
+            int entryIDs[] = orderEntryIDs[order];
+            int size = orderSizes[order];
             
-            // push empty map of data onto map's stack
-            if (deltaMap==null) {
-                Iterator<Integer> entryIter = dataEntryHash.keySet().iterator();
-                while (entryIter.hasNext()) {
-                    Integer entryID = (Integer) entryIter.next();
-                    ChoicePointEntry entry = (ChoicePointEntry) dataEntryHash.get(entryID);
+            for (int i=0; i<size; i++) {
+                ChoicePointEntry entry = entries[i];
+                if (entry==null) continue;
+                
+                // push empty data for entries without a delta
+                int entryID = entryIDs[i];
+                if (entryDeltas==null || entryID>=entryDeltas.length)
                     entry.push();
-                }
-            }
-            
-            // restore delta of changes that was pushed onto stack
-            else {
-                Iterator<Integer> entryIter = dataEntryHash.keySet().iterator();
-                while (entryIter.hasNext()) {
-                    // restore changes to choicepoint entry
-                	Integer entryID = (Integer) entryIter.next();
-                    ChoicePointEntry entry = (ChoicePointEntry) dataEntryHash.get(entryID);
-                    entry.pushDelta(deltaMap.get(entryID));
-                }
+                
+                // restore delta of changes that was pushed onto stack
+                else
+                    entry.pushDelta(entryDeltas[entryID]);
             }
         }
         
@@ -271,22 +397,19 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
      * </p>
      */
     public void pop() {
-        // remove from all entries
-        for (int i=0; i<=maxKey; i++) {
-            Object key = new Integer(i);
-            Map<Integer, ChoicePointEntry> dataEntryHash = dataEntryOrder.get(key);
-            
-            // ensure data exists for key
-            if (dataEntryHash!=null) {
-                
-                // pop data in all entries
-                LinkedList<Integer> keys = new LinkedList<Integer>(dataEntryHash.keySet());
-                Iterator<Integer> entryIter = keys.iterator();
-                while (entryIter.hasNext()) {
-                    Integer entryID = (Integer) entryIter.next();
-                    ChoicePointEntry entry = (ChoicePointEntry) dataEntryHash.get(entryID);
-                    entry.pop();
-                }
+        if (trailing) {
+            popTrail(null);
+            return;
+        }
+        
+        if (closedCount > 0) compactEntries();
+        
+        // pop all entries, ignoring entries created or closed while popping
+        for (int order=0; order<orderEntries.length; order++) {
+            int size = orderSizes[order];
+            for (int i=0; i<size; i++) {
+                ChoicePointEntry entry = orderEntries[order][i];
+                if (entry!=null) entry.pop();
             }
         }
         
@@ -302,34 +425,131 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
      * @return Delta of changes that has occurred on stack and can be restored by calling push
      */
     public Object popDelta() {
-        Map<Integer, Object> deltaMap = Collections.synchronizedMap(new HashMap<Integer, Object>());
+        if (trailing) {
+            TrailDelta delta = new TrailDelta();
+            popTrail(delta);
+            return delta;
+        }
+        
+        if (closedCount > 0) compactEntries();
+        
+        // delta of each entry is indexed by entry id
+        Object delta[] = new Object[nextEntryID];
+        
+        // store changes of each entry in delta
+        for (int order=0; order<orderEntries.length; order++) {
+            int size = orderSizes[order];
+            for (int i=0; i<size; i++) {
+                ChoicePointEntry entry = orderEntries[order][i];
+                if (entry!=null)
+                    delta[orderEntryIDs[order][i]] = entry.popDelta();
+            }
+        }
+        
+        depth--;
+        
+        return delta;
+    }
+    
+    /**
+     * Records an entry on the trail the first time it changes after the stack has
+     * been pushed.  An entry that was already recorded at an earlier depth is pushed
+     * so its changes can be rolled back separately.
+     * 
+     * @param entry         Entry that is about to change
+     * @param order         Order value indicating at what stage entry should be popped
+     * @param trailDepth    Depth at which the entry was last recorded or -1 if it is not on the trail
+     * @return depth at which entry is now recorded on the trail
+     */
+    int trailEntry(ChoicePointTrailEntry entry, int order, int trailDepth) {
+        // changes made while popping are not recorded, and entries
+        // only need to be recorded once per choicepoint
+        if (popping || trailDepth >= depth) return trailDepth;
+        
+        if (trailDepth >= 0) entry.push();
         
-        // remove from all entries
-        for (int i=0; i<=maxKey; i++) {
-            Integer key = new Integer(i);
-            Map<Integer, ChoicePointEntry> dataEntryHash = dataEntryOrder.get(key);
+        if (trailSize == trailEntries.length) {
+            int newLength = trailSize * 2;
+            ChoicePointTrailEntry newEntries[] = new ChoicePointTrailEntry[newLength];
+            System.arraycopy(trailEntries, 0, newEntries, 0, trailSize);
+            trailEntries = newEntries;
             
-            // ensure data exists for key
-            if (dataEntryHash!=null) {
-            	Map<Integer, Object> delta = Collections.synchronizedMap(new HashMap<Integer, Object>());
-                deltaMap.put(key, delta);
+            int newOrders[] = new int[newLength];
+            System.arraycopy(trailOrders, 0, newOrders, 0, trailSize);
+            trailOrders = newOrders;
             
-                // store changes of each entry in delta
-                LinkedList<Integer> keys = new LinkedList<Integer>(dataEntryHash.keySet());
-                Iterator<Integer> entryIter = keys.iterator();
-                while (entryIter.hasNext()) {
-                    Integer entryID = (Integer) entryIter.next();
-                    ChoicePointEntry entry = (ChoicePointEntry) dataEntryHash.get(entryID);
-                    
-                    if (entry!=null)
-                    	delta.put(entryID, entry.popDelta());
-                }
+            int newPrevDepths[] = new int[newLength];
+            System.arraycopy(trailPrevDepths, 0, newPrevDepths, 0, trailSize);
+            trailPrevDepths = newPrevDepths;
+        }
+        
+        trailEntries[trailSize] = entry;
+        trailOrders[trailSize] = order;
+        trailPrevDepths[trailSize] = trailDepth;
+        trailSize++;
+        
+        return depth;
+    }
+    
+    /**
+     * Increases the depth of the stack and marks the start of the new
+     * choicepoint on the trail
+     */
+    private void pushTrailMark() {
+        depth++;
+        
+        if (depth == trailMarks.length) {
+            int newMarks[] = new int[depth * 2];
+            System.arraycopy(trailMarks, 0, newMarks, 0, depth);
+            trailMarks = newMarks;
+        }
+        trailMarks[depth] = trailSize;
+    }
+    
+    /**
+     * Pops the entries recorded on the trail since the current choicepoint in the
+     * order they were registered with the stack and decreases the depth of the stack
+     * 
+     * @param delta     Object to store changes that are rolled back or null if changes
+     *                  do not need to be recorded
+     */
+    private void popTrail(TrailDelta delta) {
+        int mark = (depth > 0) ? trailMarks[depth] : 0;
+        popping = true;
+        
+        // pop entries for each order value used by records since the choicepoint
+        int order = -1;
+        while (true) {
+            int nextOrder = Integer.MAX_VALUE;
+            for (int i=mark; i<trailSize; i++) {
+                int o = trailOrders[i];
+                if (o > order && o < nextOrder) nextOrder = o;
+            }
+            if (nextOrder == Integer.MAX_VALUE) break;
+            order = nextOrder;
+            
+            // pop entries in reverse order of changes
+            for (int i=trailSize-1; i>=mark; i--) {
+                if (trailOrders[i] != order) continue;
+                
+                ChoicePointTrailEntry entry = trailEntries[i];
+                if (entry.isClosed()) continue;
+                
+                if (delta != null)
+                    delta.add(entry, order, trailPrevDepths[i], entry.popDelta());
+                else
+                    entry.pop();
+                entry.setTrailDepth(trailPrevDepths[i]);
             }
         }
         
-        depth--;
+        // release records from trail
+        for (int i=mark; i<trailSize; i++)
+            trailEntries[i] = null;
+        trailSize = mark;
         
-        return deltaMap;
+        popping = false;
+        depth--;
     }
     
     /**
@@ -352,28 +572,86 @@ public class ChoicePointStack implements ChoicePointEntryCloseListener {
         buf.append('\n');
         
         // loop through all priority levels
-        for (int i=0; i<=maxKey; i++) {
-            Object key = new Integer(i);
-            Map<Integer, ChoicePointEntry> dataEntryHash = dataEntryOrder.get(key);
-            
-            // ensure data exists for key
-            if (dataEntryHash!=null) {
+        for (int order=0; order<orderEntries.length; order++) {
+            if (orderSizes[order] > 0) {
                 buf.append("===== Priority ");
-                buf.append(key);
+                buf.append(order);
                 buf.append(" =====");
                 buf.append('\n');
                 
                 // loop over all entries
-                Iterator<Integer> entryIter = dataEntryHash.keySet().iterator();
-                while (entryIter.hasNext()) {
-                    Integer entryID = (Integer) entryIter.next();
-                    ChoicePointEntry entry = (ChoicePointEntry) dataEntryHash.get(entryID);
-                    buf.append(entry);
-                    buf.append('\n');
+                for (int i=0; i<orderSizes[order]; i++) {
+                    ChoicePointEntry entry = orderEntries[order][i];
+                    if (entry!=null) {
+                        buf.append(entry);
+                        buf.append('\n');
+                    }
                 }
             }
         }
         
         return buf.toString();
     }
+    
+    /**
+     * Changes to trailed entries that were rolled back by <code>popDelta</code>
+     * and can be restored by <code>pushDelta</code>
+     */
+    private class TrailDelta {
+        private ChoicePointTrailEntry entries[];
+        private int orders[];
+        private int prevDepths[];
+        private Object data[];
+        private int size;
+        
+        /**
+         * Records changes rolled back for an entry
+         */
+        public void add(ChoicePointTrailEntry entry, int order, int prevDepth, Object entryData) {
+            if (entries == null) {
+                entries = new ChoicePointTrailEntry[8];
+                orders = new int[8];
+                prevDepths = new int[8];
+                data = new Object[8];
+            }
+            else if (size == entries.length) {
+                int newLength = size * 2;
+                ChoicePointTrailEntry newEntries[] = new ChoicePointTrailEntry[newLength];
+                System.arraycopy(entries, 0, newEntries, 0, size);
+                entries = newEntries;
+                int newOrders[] = new int[newLength];
+                System.arraycopy(orders, 0, newOrders, 0, size);
+                orders = newOrders;
+                int newPrevDepths[] = new int[newLength];
+                System.arraycopy(prevDepths, 0, newPrevDepths, 0, size);
+                prevDepths = newPrevDepths;
+                Object newData[] = new Object[newLength];
+                System.arraycopy(data, 0, newData, 0, size);
+                data = newData;
+            }
+            
+            entries[size] = entry;
+            orders[size] = order;
+            prevDepths[size] = prevDepth;
+            data[size] = entryData;
+            size++;
+        }
+        
+        /**
+         * Pushes the recorded changes back onto their entries at the current depth
+         * of the stack, restoring them in the reverse order they were rolled back
+         */
+        public void push() {
+            for (int i=size-1; i>=0; i--) {
+                ChoicePointTrailEntry entry = entries[i];
+                if (entry.isClosed()) continue;
+                
+                entry.pushDelta(data[i]);
+                
+                trailEntry(entry, orders[i], -1);
+                trailPrevDepths[trailSize-1] = prevDepths[i];
+                entry.setTrailDepth(depth);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package jopt.csp.spi.solver;
+
+/**
+ * Interface for choicepoint entries that can be recorded on the trail of a
+ * {@link ChoicePointStack}.  Rather than being pushed each time the stack is
+ * pushed, a trailed entry is only pushed the first time it changes after a
+ * choicepoint and is recorded on the trail so that only entries that have
+ * changed are popped when the stack is popped.
+ */
+interface ChoicePointTrailEntry extends ChoicePointEntry {
+    /**
+     * Sets the depth of the stack at which the current data of the entry was
+     * last recorded on the trail, or -1 if the entry is not on the trail
+     */
+    public void setTrailDepth(int trailDepth);
+
+    /**
+     * Returns true if the entry has been closed and should no longer
+     * be restored by the stack
+     */
+    public boolean isClosed();
+}
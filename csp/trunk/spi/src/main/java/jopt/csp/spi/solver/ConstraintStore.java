@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
 import jopt.csp.solution.SolverSolution;
 import jopt.csp.solution.VariableSolution;
 import jopt.csp.util.DoubleUtil;
@@ -378,6 +380,82 @@ public class ConstraintStore implements VariableChangeListener {
         }
     }
 
+    /**
+     * Records current state of problem in a compact solution for the
+     * variables in the layout of the solution
+     */
+    public void storeSolution(CompactSolution solution) {
+        solution.store();
+    }
+
+    /**
+     * Restores a compact solution that was previously stored
+     */
+    public void restoreSolution(CompactSolution solution) throws PropagationFailureException {
+        restoreNeighboringSolution(solution, null);
+    }
+
+    /**
+     * Restores a neighbor of a compact solution that was previously stored.
+     * Variables changed by the neighbor are restored to the values of the
+     * neighbor and all other restorable variables of the initial solution are
+     * restored to the values of the initial solution.
+     * 
+     * @param initial   Initial solution that was previously stored
+     * @param neighbor  Changes to initial solution, may be null
+     */
+    public void restoreNeighboringSolution(CompactSolution initial, CompactNeighbor neighbor) throws PropagationFailureException {
+        boolean oldAutoPropagate = this.autoPropagate;
+        this.autoPropagate = false;
+
+        try {
+            initial.restore(neighbor);
+
+            // make sure to propagate changes if store is auto updating
+            if (oldAutoPropagate)
+                propagate();
+        }
+        finally {
+            this.autoPropagate = oldAutoPropagate;
+        }
+    }
+
+    /**
+     * Restores a set of variables of a neighboring solution without restoring
+     * any other variable of the neighbor or of the initial solution.  This is
+     * used to evaluate a neighbor when the initial solution has already been
+     * restored and the nodes the changed variables affect have been relaxed.
+     * Changed variables that the neighbor does not contain are restored from
+     * the initial solution.
+     * 
+     * @param initial   Initial solution that was previously stored
+     * @param neighbor  Neighboring solution to initial solution
+     * @param changed   Variables whose values are restored
+     * @see jopt.csp.spi.arcalgorithm.NeighborRelaxation
+     */
+    public void restoreChangedVariables(SolverSolution initial, SolverSolution neighbor, CspVariable changed[]) throws PropagationFailureException {
+        boolean oldAutoPropagate = this.autoPropagate;
+        this.autoPropagate = false;
+
+        try {
+            for (int i=0; i<changed.length; i++) {
+                CspVariable var = changed[i];
+                SolverSolution source = neighbor.contains(var) ? neighbor : initial;
+                if (source.contains(var) && source.isRestorable(var)) {
+                    VariableSolution sol = source.getSolution(var);
+                    sol.restore();
+                }
+            }
+
+            // make sure to propagate changes if store is auto updating
+            if (oldAutoPropagate)
+                propagate();
+        }
+        finally {
+            this.autoPropagate = oldAutoPropagate;
+        }
+    }
+
     public String toString() {
         StringBuffer buf = new StringBuffer("<<<<<<< Constraint Store >>>>>>>\n");
 
@@ -0,0 +1,257 @@
+package jopt.csp.spi.solver;
+
+/**
+ * A set of bits stored in words of 64 bits that is reversible with the
+ * choicepoint stack.  The words that are not zero are kept at the front of an
+ * index so operations only visit words that still contain bits, and the set
+ * is reduced by intersecting it with a mask built from other bit arrays,
+ * 64 bits at a time.
+ * <p>
+ * The previous value of a word is recorded the first time it changes after
+ * each choicepoint, so rolling back the stack costs time proportional to the
+ * number of words changed rather than to the size of the set.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ReversibleSparseBitSet implements ChoicePointDataSource, ChoicePointEntryListener {
+    private long words[];
+    private int size;
+
+    // offsets of words with words that are not zero placed before limit
+    private int index[];
+    private int position[];
+    private int limit;
+
+    // working mask combined from other bit arrays
+    private long mask[];
+
+    // frame in which each word was last recorded
+    private int stamps[];
+    private int frame;
+    private int nextFrame;
+
+    private ChoicePointNumArraySet cpdata;
+    private ChoicePointIntArray cpOffsets;
+    private ChoicePointLongArray cpWords;
+
+    /**
+     * Creates a set with every bit set
+     *
+     * @param size  Number of bits in set
+     */
+    public ReversibleSparseBitSet(int size) {
+        this.size = size;
+        int wordCount = (size + 63) >>> 6;
+        this.words = new long[wordCount];
+        this.mask = new long[wordCount];
+        this.index = new int[wordCount];
+        this.position = new int[wordCount];
+        this.stamps = new int[wordCount];
+        for (int i=0; i<wordCount; i++) {
+            index[i] = i;
+            position[i] = i;
+        }
+        this.frame = 1;
+        this.nextFrame = 2;
+        fill();
+    }
+
+    /**
+     * Returns number of words used to hold bits
+     */
+    public int getWordCount() {
+        return words.length;
+    }
+
+    /**
+     * Returns true if no bits are set
+     */
+    public boolean isEmpty() {
+        return limit == 0;
+    }
+
+    /**
+     * Returns a word of bits
+     */
+    public long getWord(int offset) {
+        return words[offset];
+    }
+
+    /**
+     * Sets every bit of the set
+     */
+    public void fill() {
+        for (int i=0; i<words.length; i++) {
+            long full = -1L;
+            if (i == words.length-1 && (size & 63) != 0)
+                full = (1L << (size & 63)) - 1;
+            setWord(i, full);
+        }
+    }
+
+    /**
+     * Clears the working mask
+     */
+    public void clearMask() {
+        for (int i=0; i<limit; i++)
+            mask[index[i]] = 0;
+    }
+
+    /**
+     * Adds the bits of an array to the working mask
+     */
+    public void addToMask(long bits[]) {
+        for (int i=0; i<limit; i++) {
+            int offset = index[i];
+            mask[offset] |= bits[offset];
+        }
+    }
+
+    /**
+     * Reverses the bits of the working mask
+     */
+    public void reverseMask() {
+        for (int i=0; i<limit; i++) {
+            int offset = index[i];
+            mask[offset] = ~mask[offset];
+        }
+    }
+
+    /**
+     * Removes bits of the set that are not in the working mask
+     */
+    public void intersectWithMask() {
+        for (int i=limit-1; i>=0; i--) {
+            int offset = index[i];
+            long w = words[offset] & mask[offset];
+            if (w != words[offset]) setWord(offset, w);
+        }
+    }
+
+    /**
+     * Returns true if a word of the set shares bits with the same word of an array
+     */
+    public boolean intersects(long bits[], int offset) {
+        return (words[offset] & bits[offset]) != 0;
+    }
+
+    /**
+     * Returns offset of a word shared with an array or -1 if set does not
+     * intersect the array
+     */
+    public int intersectIndex(long bits[]) {
+        for (int i=0; i<limit; i++) {
+            int offset = index[i];
+            if ((words[offset] & bits[offset]) != 0) return offset;
+        }
+        return -1;
+    }
+
+    /**
+     * Changes a word, recording its previous value the first time it changes
+     * after a choicepoint
+     */
+    private void setWord(int offset, long w) {
+        if (cpdata!=null) {
+            cpdata.touch();
+            if (stamps[offset] != frame) {
+                stamps[offset] = frame;
+                cpOffsets.add(offset);
+                cpWords.add(words[offset]);
+            }
+        }
+        words[offset] = w;
+        updateIndex(offset);
+    }
+
+    /**
+     * Moves a word before or after the limit of the index depending on whether
+     * the word is zero
+     */
+    private void updateIndex(int offset) {
+        int pos = position[offset];
+        if (words[offset] != 0) {
+            if (pos >= limit) swap(pos, limit++);
+        }
+        else if (pos < limit) {
+            swap(pos, --limit);
+        }
+    }
+
+    /**
+     * Swaps two positions of the index
+     */
+    private void swap(int pos1, int pos2) {
+        int offset1 = index[pos1];
+        int offset2 = index[pos2];
+        index[pos1] = offset2;
+        index[pos2] = offset1;
+        position[offset2] = pos1;
+        position[offset1] = pos2;
+    }
+
+    /**
+     * Exchanges the words recorded in the current choicepoint with the values
+     * stored on the stack, which restores previous values when popping and
+     * reapplies changes when a delta is pushed back onto the stack
+     */
+    private void swapRecorded(boolean reverse) {
+        int count = cpOffsets.size();
+        for (int i=0; i<count; i++) {
+            int entry = reverse ? count - 1 - i : i;
+            int offset = cpOffsets.get(entry);
+            long w = cpWords.get(entry);
+            cpWords.set(entry, words[offset]);
+            words[offset] = w;
+            updateIndex(offset);
+        }
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public void setChoicePointStack(ChoicePointStack cps) {
+        if (this.cpdata!=null && cps!=null)
+            throw new IllegalStateException("Choice point stack already set for bit set");
+
+        if (cps==null) {
+            if (cpdata!=null) cpdata.close();
+            cpdata = null;
+            cpOffsets = null;
+            cpWords = null;
+        }
+        else {
+            cpdata = cps.newNumStackSet(this);
+            cpOffsets = cpdata.newIntList();
+            cpWords = cpdata.newLongList();
+        }
+    }
+
+    // javadoc inherited from ChoicePointDataSource
+    public boolean choicePointStackSet() {
+        return cpdata!=null;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPushEvent() {
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPushEvent() {
+        frame = nextFrame++;
+        swapRecorded(false);
+
+        // words pushed back onto the stack are already recorded
+        for (int i=0; i<cpOffsets.size(); i++)
+            stamps[cpOffsets.get(i)] = frame;
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void beforeChoicePointPopEvent() {
+        swapRecorded(true);
+    }
+
+    // javadoc inherited from ChoicePointEntryListener
+    public void afterChoicePointPopEvent() {
+        // words changed after popping are recorded again in the previous choicepoint
+        frame = nextFrame++;
+    }
+}
@@ -22,9 +22,10 @@ public class NameUtil {
     }
     
     /**
-     * Returns next name number to use when generating unique names
+     * Returns next name number to use when generating unique names.
+     * Synchronized since solvers may build problems on several threads.
      */
-    public static long nextNum() {
+    public static synchronized long nextNum() {
         long n = nextName++;
         nextName %= Long.MAX_VALUE;
         return n;
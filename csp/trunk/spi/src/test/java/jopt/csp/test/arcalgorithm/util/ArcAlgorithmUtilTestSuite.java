@@ -18,6 +18,9 @@ public class ArcAlgorithmUtilTestSuite extends TestCase {
     public static Test suite() {
         TestSuite suite = new TestSuite();
         suite.addTestSuite(ArcQueueTest.class);
+        suite.addTestSuite(BucketArcQueueTest.class);
+        suite.addTestSuite(EventDispatchAllocationTest.class);
+        suite.addTestSuite(IndexedNodeQueueTest.class);
         
         return suite;
     }
@@ -3,6 +3,7 @@ package jopt.csp.test.arcalgorithm.util;
 import java.util.ArrayList;
 import java.util.List;
 
+import jopt.csp.spi.arcalgorithm.graph.arc.AbstractArc;
 import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
 import jopt.csp.spi.arcalgorithm.graph.node.Node;
 import jopt.csp.spi.arcalgorithm.util.ArcQueue;
@@ -203,7 +204,7 @@ public class ArcQueueTest extends TestCase {
      * Trivial arc for testing the complexity-handling of the
      * arc queue.
      */
-    private class DummyArc implements Arc {
+    private class DummyArc extends AbstractArc {
         private int complexity;
         
         public DummyArc(int complexity) {
@@ -223,12 +224,6 @@ public class ArcQueueTest extends TestCase {
 
         public void propagate(Node src) throws PropagationFailureException {
         }
-
-        public void setAlgorithmStrength(int strength) {
-        }
-
-        public void setUseDomainDeltas(boolean useDeltas) {
-        }
     }
 
 }
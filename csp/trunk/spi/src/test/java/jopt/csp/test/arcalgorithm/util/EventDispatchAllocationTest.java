@@ -0,0 +1,135 @@
+package jopt.csp.test.arcalgorithm.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jopt.csp.spi.arcalgorithm.NodeQueueAcAlg;
+import jopt.csp.spi.arcalgorithm.domain.DomainChangeEvent;
+import jopt.csp.spi.arcalgorithm.domain.DomainChangeListener;
+import jopt.csp.spi.arcalgorithm.domain.IntIntervalDomain;
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraphImpl;
+import jopt.csp.spi.arcalgorithm.graph.node.IntNode;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeListener;
+import jopt.csp.spi.arcalgorithm.util.IndexedNodeQueue;
+import jopt.csp.spi.arcalgorithm.util.NodeQueue;
+import jopt.csp.spi.arcalgorithm.variable.IntVariable;
+import junit.framework.TestCase;
+
+/**
+ * Verifies that dispatching domain changes to the node queues of a
+ * {@link NodeQueueAcAlg} reuses the same event objects instead of
+ * constructing an event for every change.  The memory allocated by
+ * propagation is reported by {@link jopt.csp.test.benchmark.EventDispatchBenchmark}.
+ */
+public class EventDispatchAllocationTest extends TestCase {
+
+    public EventDispatchAllocationTest(String testName) {
+        super(testName);
+    }
+
+    public void testNodeReusesChangeEvent() throws Exception {
+        IntNode node = new IntNode("x", new IntIntervalDomain(0, 10));
+        Object callback = new Object();
+        EventRecorder recorder = new EventRecorder();
+        node.addRangeChangeListener(recorder, callback);
+
+        for (int i=1; i<=5; i++)
+            node.setMin(new Integer(i));
+
+        assertEquals("changes", 5, recorder.nodeEvents.size());
+        NodeChangeEvent first = (NodeChangeEvent) recorder.nodeEvents.get(0);
+        for (int i=0; i<recorder.nodeEvents.size(); i++)
+            assertSame("event " + i, first, recorder.nodeEvents.get(i));
+        assertSame("node", node, first.getNode());
+        assertSame("callback", callback, first.getCallbackValue());
+    }
+
+    public void testDomainReusesChangeEvent() throws Exception {
+        IntIntervalDomain domain = new IntIntervalDomain(0, 10);
+        EventRecorder recorder = new EventRecorder();
+        domain.addRangeChangeListener(recorder);
+
+        for (int i=1; i<=5; i++)
+            domain.setMin(i);
+
+        assertEquals("changes", 5, recorder.domainEvents.size());
+        DomainChangeEvent first = (DomainChangeEvent) recorder.domainEvents.get(0);
+        for (int i=0; i<recorder.domainEvents.size(); i++)
+            assertSame("event " + i, first, recorder.domainEvents.get(i));
+        assertSame("domain", domain, first.getDomain());
+    }
+
+    public void testNodeQueueReusesChangeEvent() {
+        Node nodes[] = createNodes(null);
+        NodeQueue q = new NodeQueue();
+        for (int i=0; i<nodes.length; i++)
+            q.add(nodes[i], i % 3);
+
+        NodeChangeEvent first = null;
+        for (int i=0; i<nodes.length; i++) {
+            NodeChangeEvent ev = q.nextChange();
+            if (first == null) first = ev;
+            assertSame("event " + i, first, ev);
+            assertSame("node " + i, nodes[i], ev.getNode());
+            assertEquals("type " + i, i % 3, ev.getType());
+        }
+        assertNull("empty", q.nextChange());
+    }
+
+    public void testIndexedNodeQueueReusesChangeEvent() {
+        NodeArcGraphImpl graph = new NodeArcGraphImpl();
+        Node nodes[] = createNodes(graph);
+        IndexedNodeQueue q = new IndexedNodeQueue(graph);
+        for (int i=0; i<nodes.length; i++)
+            q.add(nodes[i], i % 3);
+
+        // change types of nodes already on queue are merged
+        // without adding another change
+        for (int i=0; i<nodes.length; i++)
+            q.add(nodes[i], 0);
+        assertEquals("size", nodes.length, q.size());
+
+        NodeChangeEvent first = null;
+        int found = 0;
+        for (NodeChangeEvent ev = q.nextChange(); ev != null; ev = q.nextChange()) {
+            if (first == null) first = ev;
+            assertSame("event " + found, first, ev);
+            assertNotNull("node " + found, ev.getNode());
+            found++;
+        }
+        assertEquals("changes", nodes.length, found);
+    }
+
+    /**
+     * Returns nodes added to a graph if one is given
+     */
+    private Node[] createNodes(NodeArcGraphImpl graph) {
+        Node nodes[] = new Node[10];
+        for (int i=0; i<nodes.length; i++) {
+            nodes[i] = new IntVariable("x" + i, 0, 10).getNode();
+            if (graph != null) graph.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+
+    /**
+     * Records each event received by a listener
+     */
+    private static class EventRecorder implements NodeChangeListener, DomainChangeListener {
+        private List<NodeChangeEvent> nodeEvents = new ArrayList<NodeChangeEvent>();
+        private List<DomainChangeEvent> domainEvents = new ArrayList<DomainChangeEvent>();
+
+        public void nodeChange(NodeChangeEvent ev) {
+            nodeEvents.add(ev);
+        }
+
+        public void domainChange(DomainChangeEvent ev) {
+            domainEvents.add(ev);
+        }
+
+        public void choicePointPop() {}
+        public void choicePointPush() {}
+    }
+}
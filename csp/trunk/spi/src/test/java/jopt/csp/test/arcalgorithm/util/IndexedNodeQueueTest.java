@@ -0,0 +1,123 @@
+package jopt.csp.test.arcalgorithm.util;
+
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraphImpl;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.arcalgorithm.util.BucketArcQueue;
+import jopt.csp.spi.arcalgorithm.util.IndexedNodeQueue;
+import jopt.csp.spi.arcalgorithm.variable.IntVariable;
+import jopt.csp.spi.util.DomainChangeType;
+import junit.framework.TestCase;
+
+/**
+ * Tests the node queue storing changes in slots indexed by graph index
+ */
+public class IndexedNodeQueueTest extends TestCase {
+    private NodeArcGraphImpl graph;
+    private Node nodes[];
+    private IndexedNodeQueue q;
+
+    public IndexedNodeQueueTest(String testName) {
+        super(testName);
+    }
+
+    protected void setUp() throws Exception {
+        graph = new NodeArcGraphImpl();
+        nodes = new Node[40];
+        for (int i=0; i<nodes.length; i++) {
+            nodes[i] = new IntVariable("x" + i, 0, 10).getNode();
+            graph.addNode(nodes[i]);
+        }
+        q = new IndexedNodeQueue(graph);
+    }
+
+    protected void tearDown() throws Exception {
+        graph = null;
+        nodes = null;
+        q = null;
+    }
+
+    public void testOrdering() {
+        q.add(nodes[3], DomainChangeType.DOMAIN);
+        q.add(nodes[1], DomainChangeType.RANGE);
+        q.add(nodes[2], DomainChangeType.VALUE);
+        assertEquals("size", 3, q.size());
+
+        assertSame("first", nodes[3], q.nextChange().getNode());
+        assertEquals("first index", graph.getNodeIndex(nodes[3]), q.getCurrentIndex());
+        assertSame("second", nodes[1], q.next());
+        assertSame("third", nodes[2], q.next());
+        assertNull("empty", q.nextChange());
+        assertFalse("has next", q.hasNext());
+    }
+
+    public void testMergeChangeType() {
+        BucketArcQueue arcs = new BucketArcQueue(0);
+        q.add(nodes[0], DomainChangeType.DOMAIN);
+        q.add(nodes[1], DomainChangeType.RANGE);
+        q.add(nodes[0], DomainChangeType.RANGE, arcs);
+        q.add(nodes[0], DomainChangeType.DOMAIN);
+        assertEquals("size", 2, q.size());
+
+        // merged node keeps its position and strongest change
+        NodeChangeEvent evt = q.nextChange();
+        assertSame("node", nodes[0], evt.getNode());
+        assertEquals("type", DomainChangeType.RANGE, evt.getType());
+        assertSame("arcs", arcs, q.getCurrentArcs());
+
+        evt = q.nextChange();
+        assertSame("node", nodes[1], evt.getNode());
+        assertNull("arcs", q.getCurrentArcs());
+    }
+
+    public void testRemove() {
+        for (int i=0; i<5; i++)
+            q.add(nodes[i], DomainChangeType.VALUE);
+
+        NodeChangeEvent evt = q.remove(nodes[2]);
+        assertSame("removed", nodes[2], evt.getNode());
+        assertEquals("type", DomainChangeType.VALUE, evt.getType());
+        assertNull("not queued", q.remove(nodes[2]));
+        assertNull("never queued", q.remove(nodes[10]));
+        assertFalse("contains", q.contains(nodes[2]));
+        assertEquals("type", -1, q.getChangeType(graph.getNodeIndex(nodes[2])));
+
+        q.remove(nodes[0]);
+        q.remove(nodes[4]);
+        assertSame("first", nodes[1], q.next());
+        assertSame("second", nodes[3], q.next());
+        assertNull("empty", q.next());
+
+        // removed node can be queued again
+        q.add(nodes[2], DomainChangeType.DOMAIN);
+        assertSame("requeued", nodes[2], q.next());
+    }
+
+    public void testCapacityGrowth() {
+        Node extra[] = new Node[100];
+        for (int i=0; i<extra.length; i++) {
+            extra[i] = new IntVariable("y" + i, 0, 10).getNode();
+            graph.addNode(extra[i]);
+        }
+
+        for (int i=extra.length-1; i>=0; i--)
+            q.add(extra[i], DomainChangeType.VALUE);
+        q.add(nodes[0], DomainChangeType.VALUE);
+        assertEquals("size", extra.length + 1, q.size());
+
+        for (int i=extra.length-1; i>=0; i--)
+            assertSame("node " + i, extra[i], q.next());
+        assertSame("last", nodes[0], q.next());
+    }
+
+    public void testClear() {
+        q.add(nodes[0], DomainChangeType.VALUE);
+        q.add(nodes[1], DomainChangeType.VALUE);
+        q.clear();
+        assertEquals("size", 0, q.size());
+        assertFalse("contains", q.contains(nodes[0]));
+
+        q.add(nodes[1], DomainChangeType.RANGE);
+        assertEquals("type", DomainChangeType.RANGE, q.nextChange().getType());
+    }
+}
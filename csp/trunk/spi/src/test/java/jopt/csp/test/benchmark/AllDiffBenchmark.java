@@ -0,0 +1,228 @@
+package jopt.csp.test.benchmark;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.search.MinDomainVariableSelector;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongExpr;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares the time to locate a first solution of N-Queens and Sudoku models
+ * built from all different constraints.  Each model is solved at bounds and
+ * arc consistency using integer variables, which are propagated by the
+ * matching arc, and using long variables, which are still propagated by the
+ * original arc over boxed values.
+ * <p>
+ * Solves are stopped at a time limit and reported as timeouts.  This is not
+ * run as part of the test suite; run it from the command line with optional
+ * arguments for the number of queens, the order of the large Sudoku puzzle
+ * and the time limit in milliseconds.
+ */
+public class AllDiffBenchmark {
+    private static final String CONFIG_NAMES[] = {
+        "original arc, bounds", "matching arc, bounds", "original arc, arc consistency", "matching arc, arc consistency"
+    };
+
+    // hard puzzle with 0 for empty cells
+    private static final String SUDOKU =
+        "800000000" +
+        "003600000" +
+        "070090200" +
+        "050007000" +
+        "000045700" +
+        "000100030" +
+        "001000068" +
+        "008500010" +
+        "090000400";
+
+    private static int queens;
+    private static int order;
+    private static long timeLimit;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        queens = (args.length > 0) ? Integer.parseInt(args[0]) : 24;
+        order = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        timeLimit = (args.length > 2) ? Long.parseLong(args[2]) : 5000;
+
+        // warm up
+        for (int i=0; i<3; i++)
+            for (int config=0; config<CONFIG_NAMES.length; config++)
+                solve(0, config);
+
+        System.out.println("queens (" + queens + ")");
+        for (int config=0; config<CONFIG_NAMES.length; config++)
+            report(0, config);
+
+        System.out.println("sudoku (9x9)");
+        for (int config=0; config<CONFIG_NAMES.length; config++)
+            report(1, config);
+
+        System.out.println("sudoku (" + (order * order) + "x" + (order * order) + ")");
+        for (int config=0; config<CONFIG_NAMES.length; config++)
+            report(2, config);
+    }
+
+    /**
+     * Solves a problem with a configuration and prints the time taken
+     */
+    private static void report(int problem, int config) throws PropagationFailureException {
+        long start = System.nanoTime();
+        boolean found = solve(problem, config);
+        long time = (System.nanoTime() - start) / 1000000;
+        System.out.println("    " + CONFIG_NAMES[config] + ": " + time + " ms" + (found ? "" : ", timeout"));
+    }
+
+    /**
+     * Locates the first solution of a problem, returning false if the time
+     * limit was reached
+     */
+    private static boolean solve(int problem, int config) throws PropagationFailureException {
+        boolean matching = (config % 2 == 1);
+        int strength = (config < 2) ? CspAlgorithmStrength.BOUNDS_CONSISTENCY : CspAlgorithmStrength.ARC_CONSISTENCY;
+
+        CspSolver solver = CspSolver.createSolver(new AC5(strength));
+        SearchAction generate;
+        switch (problem) {
+            case 0:
+                generate = createQueens(solver, matching);
+                break;
+
+            case 1:
+                generate = createSudoku(solver, parsePuzzle(SUDOKU), 3, matching);
+                break;
+
+            default:
+                generate = createSudoku(solver, largePuzzle(), order, matching);
+        }
+
+        SearchAction limited = solver.getSearchLimits().limitSearch(
+            solver.getSearchLimits().timeLimit(timeLimit), generate);
+        return solver.solve(limited);
+    }
+
+    /**
+     * Creates N-Queens variables and constraints over rows and both diagonals
+     */
+    private static SearchAction createQueens(CspSolver solver, boolean matching) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspMath math = varFactory.getMath();
+
+        if (matching) {
+            CspIntVariable x[] = new CspIntVariable[queens];
+            CspIntExpr up[] = new CspIntExpr[queens];
+            CspIntExpr down[] = new CspIntExpr[queens];
+            for (int i=0; i<queens; i++) {
+                x[i] = varFactory.intVar("x" + i, 0, queens - 1);
+                up[i] = x[i].add(i);
+                down[i] = x[i].subtract(i);
+            }
+            solver.addConstraint(math.allDifferent(x));
+            solver.addConstraint(math.allDifferent(up));
+            solver.addConstraint(math.allDifferent(down));
+            return solver.getSearchActions().generate(x, null, new MinDomainVariableSelector());
+        }
+        else {
+            CspLongVariable x[] = new CspLongVariable[queens];
+            CspLongExpr up[] = new CspLongExpr[queens];
+            CspLongExpr down[] = new CspLongExpr[queens];
+            for (int i=0; i<queens; i++) {
+                x[i] = varFactory.longVar("x" + i, 0, queens - 1);
+                up[i] = x[i].add(i);
+                down[i] = x[i].subtract(i);
+            }
+            solver.addConstraint(math.allDifferent(x));
+            solver.addConstraint(math.allDifferent(up));
+            solver.addConstraint(math.allDifferent(down));
+            return solver.getSearchActions().generate(x, null, new MinDomainVariableSelector());
+        }
+    }
+
+    /**
+     * Returns the values of the cells of a puzzle written as digits
+     */
+    private static int[] parsePuzzle(String puzzle) {
+        int givens[] = new int[puzzle.length()];
+        for (int i=0; i<givens.length; i++)
+            givens[i] = puzzle.charAt(i) - '0';
+        return givens;
+    }
+
+    /**
+     * Creates a Sudoku puzzle holding the values of a solution to a pattern
+     * puzzle of the given order in half of the cells
+     */
+    private static int[] largePuzzle() {
+        int size = order * order;
+        Random random = new Random(17);
+        int givens[] = new int[size * size];
+        for (int r=0; r<size; r++) {
+            for (int c=0; c<size; c++) {
+                if (random.nextInt(2) == 0)
+                    givens[r*size + c] = (order * (r % order) + r / order + c) % size + 1;
+            }
+        }
+        return givens;
+    }
+
+    /**
+     * Creates variables and constraints for the cells of a Sudoku puzzle of
+     * the given order where each given value is the value of a cell or 0 if
+     * the cell is empty
+     */
+    private static SearchAction createSudoku(CspSolver solver, int givens[], int order, boolean matching) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspMath math = varFactory.getMath();
+        int size = order * order;
+
+        CspIntVariable intCells[] = new CspIntVariable[size * size];
+        CspLongVariable longCells[] = new CspLongVariable[size * size];
+        for (int i=0; i<size*size; i++) {
+            int given = givens[i];
+            int min = (given > 0) ? given : 1;
+            int max = (given > 0) ? given : size;
+            if (matching)
+                intCells[i] = varFactory.intVar("c" + i, min, max);
+            else
+                longCells[i] = varFactory.longVar("c" + i, min, max);
+        }
+
+        for (int i=0; i<size; i++) {
+            int row[] = new int[size];
+            int col[] = new int[size];
+            int box[] = new int[size];
+            for (int j=0; j<size; j++) {
+                row[j] = i*size + j;
+                col[j] = j*size + i;
+                box[j] = (i/order*order + j/order)*size + i%order*order + j%order;
+            }
+
+            int groups[][] = {row, col, box};
+            for (int g=0; g<groups.length; g++) {
+                if (matching) {
+                    CspIntExpr exprs[] = new CspIntExpr[size];
+                    for (int j=0; j<size; j++) exprs[j] = intCells[groups[g][j]];
+                    solver.addConstraint(math.allDifferent(exprs));
+                }
+                else {
+                    CspLongExpr exprs[] = new CspLongExpr[size];
+                    for (int j=0; j<size; j++) exprs[j] = longCells[groups[g][j]];
+                    solver.addConstraint(math.allDifferent(exprs));
+                }
+            }
+        }
+
+        if (matching)
+            return solver.getSearchActions().generate(intCells, null, new MinDomainVariableSelector());
+        else
+            return solver.getSearchActions().generate(longCells, null, new MinDomainVariableSelector());
+    }
+}
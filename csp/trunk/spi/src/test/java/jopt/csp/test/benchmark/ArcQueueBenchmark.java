@@ -0,0 +1,157 @@
+package jopt.csp.test.benchmark;
+
+import java.util.Set;
+
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraph;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.util.ArcQueue;
+import jopt.csp.spi.arcalgorithm.util.BucketArcQueue;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares the sorted list {@link ArcQueue} against the {@link BucketArcQueue}
+ * using the arcs of large N-Queens and summation models.  Each node of the model
+ * graph is treated as changed in turn, its dependent arcs are queued and the
+ * queue is drained every few nodes, mimicking the traffic seen during propagation.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of queens and the number of rows
+ * in the summation model.
+ */
+public class ArcQueueBenchmark {
+    private static final int WARMUP_ROUNDS   = 5;
+    private static final int MEASURE_ROUNDS  = 10;
+
+    public static void main(String[] args) throws Exception {
+        int queens = (args.length > 0) ? Integer.parseInt(args[0]) : 120;
+        int rows = (args.length > 1) ? Integer.parseInt(args[1]) : 400;
+
+        run("n-queens (" + queens + ")", buildNQueens(queens));
+        run("summation (" + rows + " rows)", buildSummation(rows, 40));
+    }
+
+    /**
+     * Times both queues over the node change traffic of a graph
+     */
+    private static void run(String name, NodeArcGraph graph) {
+        Set<Node> nodeSet = graph.getAllNodes();
+        Node nodes[] = (Node[]) nodeSet.toArray(new Node[nodeSet.size()]);
+
+        System.out.println(name + ": " + nodes.length + " nodes, " + graph.getAllArcs().size() + " arcs");
+
+        for (int i=0; i<WARMUP_ROUNDS; i++) {
+            runArcQueue(graph, nodes);
+            runBucketQueue(graph, nodes);
+        }
+
+        long listTime = 0;
+        long bucketTime = 0;
+        for (int i=0; i<MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            runArcQueue(graph, nodes);
+            listTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            runBucketQueue(graph, nodes);
+            bucketTime += System.nanoTime() - start;
+        }
+
+        System.out.println("    ArcQueue:       " + (listTime / MEASURE_ROUNDS / 1000000.0) + " ms");
+        System.out.println("    BucketArcQueue: " + (bucketTime / MEASURE_ROUNDS / 1000000.0) + " ms");
+    }
+
+    private static int runArcQueue(NodeArcGraph graph, Node nodes[]) {
+        ArcQueue q = new ArcQueue();
+        int processed = 0;
+        for (int i=0; i<nodes.length; i++) {
+            int idx = graph.getNodeIndex(nodes[i]);
+            for (int type=DomainChangeType.VALUE; type>=DomainChangeType.DOMAIN; type--) {
+                Arc arcs[] = graph.getSourceArcs(idx, type);
+                int cnt = graph.getSourceArcCount(idx, type);
+                for (int j=0; j<cnt; j++) q.add(arcs[j]);
+            }
+
+            if (i%4 == 3)
+                while (q.next()!=null) processed++;
+        }
+        while (q.next()!=null) processed++;
+        return processed;
+    }
+
+    private static int runBucketQueue(NodeArcGraph graph, Node nodes[]) {
+        BucketArcQueue q = new BucketArcQueue(1);
+        int processed = 0;
+        for (int i=0; i<nodes.length; i++) {
+            int idx = graph.getNodeIndex(nodes[i]);
+            for (int type=DomainChangeType.VALUE; type>=DomainChangeType.DOMAIN; type--)
+                q.addAll(graph.getSourceArcs(idx, type), graph.getSourceArcCount(idx, type));
+
+            if (i%4 == 3)
+                while (q.next()!=null) processed++;
+        }
+        while (q.next()!=null) processed++;
+        return processed;
+    }
+
+    /**
+     * Builds the graph for an N-Queens model without propagating it
+     */
+    private static NodeArcGraph buildNQueens(int n) throws PropagationFailureException {
+        GraphAccessAC5 alg = new GraphAccessAC5();
+        ConstraintStore store = new ConstraintStore(alg, false);
+        CspVariableFactory varFactory = alg.getVarFactory();
+        CspMath varMath = varFactory.getMath();
+
+        CspIntVariable x[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                store.addConstraint(x[i].neq(x[j]));
+                store.addConstraint(varMath.abs(x[j].subtract(x[i])).neq(j-i));
+            }
+        }
+
+        return alg.getGraph();
+    }
+
+    /**
+     * Builds the graph for a model with rows of chained summations without propagating it
+     */
+    private static NodeArcGraph buildSummation(int rows, int terms) throws PropagationFailureException {
+        GraphAccessAC5 alg = new GraphAccessAC5();
+        ConstraintStore store = new ConstraintStore(alg, false);
+        CspVariableFactory varFactory = alg.getVarFactory();
+
+        CspIntVariable x[] = new CspIntVariable[rows + terms];
+        for (int i=0; i<x.length; i++)
+            x[i] = varFactory.intVar("x" + i, 0, 100);
+
+        for (int r=0; r<rows; r++) {
+            CspIntExpr sum = x[r];
+            for (int t=1; t<terms; t++)
+                sum = sum.add(x[r+t]);
+            store.addConstraint(sum.leq(terms * 50));
+        }
+
+        return alg.getGraph();
+    }
+
+    /**
+     * AC5 algorithm exposing its graph
+     */
+    private static class GraphAccessAC5 extends AC5 {
+        public NodeArcGraph getGraph() {
+            return graph;
+        }
+    }
+}
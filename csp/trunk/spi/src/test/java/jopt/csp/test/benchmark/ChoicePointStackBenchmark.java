@@ -0,0 +1,123 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.search.actions.GenerateIntegerAction;
+import jopt.csp.spi.search.technique.DepthFirstSearch;
+import jopt.csp.spi.search.technique.TreeSearch;
+import jopt.csp.spi.search.tree.BasicSearchNode;
+import jopt.csp.spi.search.tree.CrawlingSearchTree;
+import jopt.csp.spi.search.tree.DeltaStateManager;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Measures the number of choicepoints per second pushed by a depth first search
+ * locating all solutions of an N-Queens problem.  The search is run with the
+ * recalculating and delta state managers, using both an eager choicepoint stack
+ * and a stack that records changes on a trail.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of queens and the number of
+ * measured rounds.
+ */
+public class ChoicePointStackBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int queens = (args.length > 0) ? Integer.parseInt(args[0]) : 9;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("n-queens (" + queens + ")");
+        run("eager, recalculating", queens, rounds, false, false);
+        run("eager, delta", queens, rounds, false, true);
+        run("trailing, recalculating", queens, rounds, true, false);
+        run("trailing, delta", queens, rounds, true, true);
+    }
+
+    /**
+     * Times a number of complete searches and reports choicepoints per second
+     */
+    private static void run(String name, int queens, int rounds, boolean trailing, boolean deltaState)
+        throws PropagationFailureException
+    {
+        for (int i=0; i<WARMUP_ROUNDS; i++)
+            search(queens, trailing, deltaState);
+
+        long choicepoints = 0;
+        long time = 0;
+        int solutions = 0;
+        for (int i=0; i<rounds; i++) {
+            long start = System.nanoTime();
+            CountingStack cps = search(queens, trailing, deltaState);
+            time += System.nanoTime() - start;
+            choicepoints += cps.pushCount;
+            solutions = cps.solutionCount;
+        }
+
+        double seconds = time / 1000000000.0;
+        System.out.println("    " + name + ": " + solutions + " solutions, " +
+            (choicepoints / rounds) + " choicepoints, " +
+            (time / rounds / 1000000.0) + " ms, " +
+            ((long) (choicepoints / seconds)) + " choicepoints/sec");
+    }
+
+    /**
+     * Locates all solutions of an N-Queens problem
+     */
+    private static CountingStack search(int n, boolean trailing, boolean deltaState) throws PropagationFailureException {
+        AC5 alg = new AC5();
+        CountingStack cps = new CountingStack(trailing);
+        ConstraintStore store = new ConstraintStore(alg, true, cps);
+        CspVariableFactory varFactory = alg.getVarFactory();
+
+        CspIntVariable x[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                store.addConstraint(x[i].neq(x[j]));
+                store.addConstraint(x[i].neq(x[j].add(j-i)));
+                store.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+
+        SearchAction genVars = new GenerateIntegerAction(x);
+        TreeSearch search = null;
+        if (deltaState)
+            search = new TreeSearch(new CrawlingSearchTree(new BasicSearchNode(genVars), new DeltaStateManager(store)), new DepthFirstSearch());
+        else
+            search = new TreeSearch(store, genVars, new DepthFirstSearch());
+
+        while (search.nextSolution())
+            cps.solutionCount++;
+
+        return cps;
+    }
+
+    /**
+     * Choicepoint stack counting the number of times it is pushed
+     */
+    private static class CountingStack extends ChoicePointStack {
+        private long pushCount;
+        private int solutionCount;
+
+        public CountingStack(boolean trailing) {
+            super(trailing);
+        }
+
+        public void push() {
+            pushCount++;
+            super.push();
+        }
+
+        public void pushDelta(Object delta) {
+            pushCount++;
+            super.pushDelta(delta);
+        }
+    }
+}
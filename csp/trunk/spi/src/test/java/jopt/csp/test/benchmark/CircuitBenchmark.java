@@ -0,0 +1,137 @@
+package jopt.csp.test.benchmark;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.search.MinDomainVariableSelector;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares the time to locate a first tour of random TSP-like instances,
+ * where points are placed at random and each point may only be followed by
+ * one of its nearest neighbors.  Tours are modelled with a successor variable
+ * for each point and either the circuit constraint or all different
+ * successors along with the position of each point in the tour, which is
+ * linked to its successor with element constraints to eliminate subtours.
+ * <p>
+ * Both models are propagated at arc consistency and searched using the
+ * generate action with the smallest domain selected first.  Solves are stopped at a time limit and reported as
+ * timeouts.  This is not run as part of the test suite; run it from the
+ * command line with optional arguments for the number of neighbors of each
+ * point and the time limit in milliseconds.
+ */
+public class CircuitBenchmark {
+    private static final int SIZES[] = {50, 100, 200};
+    private static final String CONFIG_NAMES[] = {"all different with positions", "circuit"};
+
+    private static int neighbors;
+    private static long timeLimit;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        neighbors = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        timeLimit = (args.length > 1) ? Long.parseLong(args[1]) : 10000;
+
+        // warm up
+        for (int i=0; i<3; i++)
+            for (int config=0; config<CONFIG_NAMES.length; config++)
+                solve(SIZES[0], config);
+
+        for (int s=0; s<SIZES.length; s++) {
+            System.out.println("points (" + SIZES[s] + ")");
+            for (int config=0; config<CONFIG_NAMES.length; config++)
+                report(SIZES[s], config);
+        }
+    }
+
+    /**
+     * Solves an instance with a configuration and prints the time taken
+     */
+    private static void report(int n, int config) throws PropagationFailureException {
+        long start = System.nanoTime();
+        boolean found = solve(n, config);
+        long time = (System.nanoTime() - start) / 1000000;
+        System.out.println("    " + CONFIG_NAMES[config] + ": " + time + " ms" + (found ? "" : ", timeout"));
+    }
+
+    /**
+     * Locates the first tour of an instance, returning false if the time
+     * limit was reached
+     */
+    private static boolean solve(int n, int config) throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspMath math = varFactory.getMath();
+
+        boolean allowed[][] = createInstance(n);
+        CspIntVariable next[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++) {
+            next[i] = varFactory.intVar("next" + i, 0, n - 1);
+            for (int j=0; j<n; j++)
+                if (!allowed[i][j]) next[i].removeValue(j);
+        }
+
+        if (config == 1) {
+            solver.addConstraint(math.circuit(next));
+        }
+        else {
+            // point 0 is first in the tour and also follows the last point
+            CspIntVariable pos[] = new CspIntVariable[n];
+            CspIntExpr posAfter[] = new CspIntExpr[n];
+            pos[0] = varFactory.intVar("pos0", 0, 0);
+            posAfter[0] = varFactory.intVar("end", n, n);
+            for (int i=1; i<n; i++) {
+                pos[i] = varFactory.intVar("pos" + i, 1, n - 1);
+                posAfter[i] = pos[i];
+            }
+
+            solver.addConstraint(math.allDifferent(next));
+            for (int i=0; i<n; i++)
+                solver.addConstraint(math.element(posAfter, next[i], pos[i].add(1)));
+        }
+
+        SearchAction generate = solver.getSearchActions().generate(next, null, new MinDomainVariableSelector());
+        SearchAction limited = solver.getSearchLimits().limitSearch(
+            solver.getSearchLimits().timeLimit(timeLimit), generate);
+        return solver.solve(limited);
+    }
+
+    /**
+     * Places points at random and allows each to be followed by its nearest
+     * neighbors, adding the reverse of each allowed successor so the graph
+     * is symmetric
+     */
+    private static boolean[][] createInstance(int n) {
+        Random random = new Random(n);
+        double x[] = new double[n];
+        double y[] = new double[n];
+        for (int i=0; i<n; i++) {
+            x[i] = random.nextDouble();
+            y[i] = random.nextDouble();
+        }
+
+        boolean allowed[][] = new boolean[n][n];
+        double dist[] = new double[n];
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++)
+                dist[j] = (x[i]-x[j])*(x[i]-x[j]) + (y[i]-y[j])*(y[i]-y[j]);
+
+            for (int k=0; k<neighbors && k<n-1; k++) {
+                int nearest = -1;
+                for (int j=0; j<n; j++) {
+                    if (j != i && !allowed[i][j] && (nearest < 0 || dist[j] < dist[nearest]))
+                        nearest = j;
+                }
+                allowed[i][nearest] = true;
+                allowed[nearest][i] = true;
+            }
+        }
+        return allowed;
+    }
+}
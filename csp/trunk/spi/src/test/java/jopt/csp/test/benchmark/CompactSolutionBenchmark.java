@@ -0,0 +1,157 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.CspSolver;
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
+import jopt.csp.solution.SolutionLayout;
+import jopt.csp.solution.SolutionScope;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.search.localsearch.SwapNeighborhood;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares solver solutions with compact solutions over a number of bound
+ * integer variables, measuring the number of solutions stored and restored per
+ * second, the number of swap neighbors created per second and the memory
+ * used by each solution of a large pool.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of variables, the number of
+ * solutions in the pool and the number of repetitions.
+ */
+public class CompactSolutionBenchmark {
+    private static int size;
+    private static int poolSize;
+    private static int repetitions;
+
+    private static CspSolver solver;
+    private static CspIntVariable x[];
+    private static SolutionScope scope;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        size = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        poolSize = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+        repetitions = (args.length > 2) ? Integer.parseInt(args[2]) : 20000;
+
+        solver = CspSolver.createSolver();
+        CspVariableFactory varFactory = solver.getVarFactory();
+        x = new CspIntVariable[size];
+        scope = new SolutionScope();
+        for (int i=0; i<size; i++) {
+            x[i] = varFactory.intVar("x" + i, 0, size);
+            solver.addVariable(x[i]);
+            x[i].setValue(i);
+            scope.add(x[i]);
+        }
+
+        // warm up
+        for (int i=0; i<3; i++) {
+            storeRestore(false);
+            storeRestore(true);
+            neighbors(false);
+            neighbors(true);
+        }
+
+        System.out.println("variables (" + size + ")");
+        System.out.println("    store and restore per second, solver solution: " + storeRestore(false));
+        System.out.println("    store and restore per second, compact solution: " + storeRestore(true));
+        System.out.println("    swap neighbors per second, solver solution: " + neighbors(false));
+        System.out.println("    swap neighbors per second, compact neighbor: " + neighbors(true));
+        System.out.println("pool (" + poolSize + "), bytes per solution");
+        System.out.println("    solver solution: " + pool(false));
+        System.out.println("    compact solution: " + pool(true));
+    }
+
+    /**
+     * Stores and restores a solution a number of times and returns the
+     * number of solutions stored and restored per second
+     */
+    private static long storeRestore(boolean compact) throws PropagationFailureException {
+        SolverSolution sol = new SolverSolution(scope);
+        CompactSolution compactSol = new CompactSolution(new SolutionLayout(scope));
+
+        long start = System.nanoTime();
+        for (int r=0; r<repetitions; r++) {
+            if (compact) {
+                solver.storeSolution(compactSol);
+                solver.restoreSolution(compactSol);
+            }
+            else {
+                solver.storeSolution(sol);
+                solver.restoreSolution(sol);
+            }
+        }
+
+        return rate(repetitions, start);
+    }
+
+    /**
+     * Creates every swap neighbor of a solution for a number of variables and
+     * returns the number of neighbors created per second
+     */
+    private static long neighbors(boolean compact) {
+        SolverSolution sol = new SolverSolution(scope);
+        solver.storeSolution(sol);
+        CompactSolution compactSol = new CompactSolution(new SolutionLayout(scope));
+        solver.storeSolution(compactSol);
+        CompactNeighbor neighbor = new CompactNeighbor();
+
+        SwapNeighborhood hood = new SwapNeighborhood(x);
+        hood.setInitialSolution(sol);
+        int count = Math.min(hood.size(), repetitions * 10);
+
+        long start = System.nanoTime();
+        for (int i=0; i<count; i++) {
+            if (compact)
+                hood.getNeighbor(i, compactSol, neighbor);
+            else
+                hood.getNeighbor(i);
+        }
+
+        return rate(count, start);
+    }
+
+    /**
+     * Fills a pool of solutions and returns the number of bytes of heap used
+     * by each solution
+     */
+    private static long pool(boolean compact) {
+        SolutionLayout layout = new SolutionLayout(scope);
+        Object pool[] = new Object[poolSize];
+
+        long before = usedMemory();
+        for (int s=0; s<poolSize; s++) {
+            if (compact) {
+                CompactSolution sol = new CompactSolution(layout);
+                solver.storeSolution(sol);
+                pool[s] = sol;
+            }
+            else {
+                SolverSolution sol = new SolverSolution(scope);
+                solver.storeSolution(sol);
+                pool[s] = sol;
+            }
+        }
+        long after = usedMemory();
+
+        // keep pool reachable until memory is measured
+        if (pool[poolSize - 1] == null)
+            throw new IllegalStateException();
+
+        return (after - before) / poolSize;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i=0; i<3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long rate(long count, long start) {
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        return count * 1000000000L / elapsed;
+    }
+}
@@ -0,0 +1,165 @@
+package jopt.csp.test.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.arcalgorithm.NodeQueueAcAlg;
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraphImpl;
+import jopt.csp.spi.arcalgorithm.graph.node.IntNode;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NodeChangeEvent;
+import jopt.csp.spi.arcalgorithm.util.IndexedNodeQueue;
+import jopt.csp.spi.arcalgorithm.variable.IntVariable;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Reports the memory allocated while propagating domain changes through the
+ * node and arc queues of a {@link NodeQueueAcAlg} and while cycling nodes
+ * through an {@link IndexedNodeQueue}.  Allocation is measured with the
+ * per-thread allocation counter of the JVM, so nothing is reported on JVMs
+ * that do not provide one.
+ * <p>
+ * Raising the minimum of the first node of a chain of nodes constrained to
+ * be in increasing order propagates the same change to every node of the
+ * chain.  The same changes made directly to nodes without arcs give the
+ * allocation of the domains alone for comparison.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with an optional argument for the number of measured changes.
+ */
+public class EventDispatchBenchmark {
+    private static final int WARMUP_CHANGES = 20000;
+    private static final int CHAIN_LENGTH   = 20;
+    private static final int CHANGE_VALUES  = 1000;
+
+    private static Object threadBean;
+    private static Method allocatedBytes;
+    private static Object threadID[];
+
+    public static void main(String[] args) throws Exception {
+        int changes = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+
+        try {
+            threadBean = ManagementFactory.getThreadMXBean();
+            allocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", new Class[] {long.class});
+            threadID = new Object[] {new Long(Thread.currentThread().getId())};
+            allocatedBytes();
+        }
+        catch (Exception e) {
+            System.out.println("JVM does not provide a per-thread allocation counter");
+            return;
+        }
+
+        long direct = measureChanges(false, changes);
+        long propagated = measureChanges(true, changes);
+        System.out.println("change propagated through chain of " + CHAIN_LENGTH + " nodes: " +
+            (propagated / (double) changes) + " bytes per change");
+        System.out.println("change made directly to " + CHAIN_LENGTH + " nodes: " +
+            (direct / (double) changes) + " bytes per change");
+
+        long queued = measureQueue(changes);
+        System.out.println("indexed node queue: " + (queued / (double) changes) + " bytes per change");
+    }
+
+    /**
+     * Returns bytes allocated while raising the minimum of a chain of nodes
+     * within a choicepoint and propagating the change before popping the
+     * choicepoint, which allows the values removed from domains to be
+     * recorded in storage reused by each change
+     *
+     * @param chained   True if nodes are constrained to be in increasing order
+     *                  and only the first node is changed, false if the nodes
+     *                  have no arcs and each node is changed directly
+     */
+    private static long measureChanges(boolean chained, int changes) throws Exception {
+        NodeQueueAcAlg alg = new AC5(CspAlgorithmStrength.BOUNDS_CONSISTENCY);
+        ConstraintStore store = new ConstraintStore(alg);
+        CspVariableFactory varFactory = alg.getVarFactory();
+        IntNode nodes[] = new IntNode[CHAIN_LENGTH];
+        CspIntVariable x[] = new CspIntVariable[CHAIN_LENGTH];
+        for (int i=0; i<x.length; i++) {
+            x[i] = varFactory.intVar("x" + i, 0, CHANGE_VALUES);
+            nodes[i] = (IntNode) ((IntVariable) x[i]).getNode();
+            store.addVariable(x[i], false);
+        }
+        for (int i=0; chained && i+1<x.length; i++)
+            store.addConstraint(x[i].leq(x[i+1]));
+
+        ChoicePointStack cps = store.getChoicePointStack();
+        propagateChanges(store, cps, nodes, x[CHAIN_LENGTH-1], chained, WARMUP_CHANGES);
+
+        long start = allocatedBytes();
+        propagateChanges(store, cps, nodes, x[CHAIN_LENGTH-1], chained, changes);
+        return allocatedBytes() - start;
+    }
+
+    /**
+     * Raises the minimum of nodes within a choicepoint and propagates
+     * the change before popping the choicepoint
+     *
+     * @param last  Variable of last node of chain checked after each change
+     */
+    private static void propagateChanges(ConstraintStore store, ChoicePointStack cps, IntNode nodes[], CspIntVariable last,
+        boolean chained, int changes) throws PropagationFailureException
+    {
+        for (int i=0; i<changes; i++) {
+            int min = i % CHANGE_VALUES + 1;
+            cps.push();
+            for (int j=0; j<((chained) ? 1 : nodes.length); j++)
+                nodes[j].setMin(min);
+            store.propagate();
+            if (last.getMin() != min)
+                throw new IllegalStateException("change was not propagated");
+            cps.pop();
+        }
+    }
+
+    /**
+     * Returns bytes allocated while adding nodes to a queue with merged
+     * change types and removing them again
+     */
+    private static long measureQueue(int changes) throws Exception {
+        NodeArcGraphImpl graph = new NodeArcGraphImpl();
+        Node nodes[] = new Node[50];
+        for (int i=0; i<nodes.length; i++) {
+            nodes[i] = new IntVariable("x" + i, 0, 10).getNode();
+            graph.addNode(nodes[i]);
+        }
+        IndexedNodeQueue q = new IndexedNodeQueue(graph);
+
+        cycleQueue(q, nodes, WARMUP_CHANGES);
+
+        long start = allocatedBytes();
+        cycleQueue(q, nodes, changes);
+        return allocatedBytes() - start;
+    }
+
+    /**
+     * Adds nodes to a queue with merged change types and removes them again
+     */
+    private static void cycleQueue(IndexedNodeQueue q, Node nodes[], int changes) {
+        for (int i=0; i<changes; i++) {
+            q.add(nodes[i % nodes.length], i % 3);
+            q.add(nodes[(i * 7) % nodes.length], (i + 1) % 3);
+            if (i % 4 == 3) {
+                NodeChangeEvent ev = q.nextChange();
+                while (ev != null)
+                    ev = q.nextChange();
+            }
+        }
+        while (q.nextChange() != null);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread
+     */
+    private static long allocatedBytes() throws Exception {
+        return ((Long) allocatedBytes.invoke(threadBean, threadID)).longValue();
+    }
+}
@@ -0,0 +1,150 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.VariableSelector;
+import jopt.csp.spi.search.ActivityVariableSelector;
+import jopt.csp.spi.search.DomWdegVariableSelector;
+import jopt.csp.spi.search.ImpactVariableSelector;
+import jopt.csp.spi.search.MinDomainVariableSelector;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares the time to locate a first solution of N-Queens and Sudoku
+ * problems when variables are instantiated in order, in order of domain
+ * size fixed before searching, or by the dom/wdeg, activity and impact
+ * selectors that select the next variable at each choice point.
+ * <p>
+ * Solves are stopped at a time limit and reported as timeouts.  This is not
+ * run as part of the test suite; run it from the command line with an
+ * optional argument for the time limit in milliseconds.
+ */
+public class HeuristicBenchmark {
+    private static final int QUEENS[] = {16, 24, 32};
+    private static final String SELECTOR_NAMES[] = {"in order", "min domain", "dom/wdeg", "activity", "impact"};
+
+    // hard puzzle with 0 for empty cells
+    private static final String SUDOKU =
+        "800000000" +
+        "003600000" +
+        "070090200" +
+        "050007000" +
+        "000045700" +
+        "000100030" +
+        "001000068" +
+        "008500010" +
+        "090000400";
+
+    private static long timeLimit;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        timeLimit = (args.length > 0) ? Long.parseLong(args[0]) : 10000;
+
+        // warm up
+        for (int i=0; i<3; i++)
+            for (int s=0; s<SELECTOR_NAMES.length; s++)
+                solve(0, s);
+
+        for (int q=0; q<QUEENS.length; q++) {
+            System.out.println("queens (" + QUEENS[q] + ")");
+            for (int s=0; s<SELECTOR_NAMES.length; s++)
+                report(QUEENS[q], s);
+        }
+
+        System.out.println("sudoku");
+        for (int s=0; s<SELECTOR_NAMES.length; s++)
+            report(0, s);
+    }
+
+    /**
+     * Solves a problem with a selector and prints the time taken
+     */
+    private static void report(int queens, int selector) throws PropagationFailureException {
+        long start = System.nanoTime();
+        boolean found = solve(queens, selector);
+        long time = (System.nanoTime() - start) / 1000000;
+        System.out.println("    " + SELECTOR_NAMES[selector] + ": " + time + " ms" + (found ? "" : ", timeout"));
+    }
+
+    /**
+     * Locates the first solution of N-Queens, or Sudoku if the number of queens
+     * is 0, returning false if the time limit was reached
+     */
+    private static boolean solve(int queens, int selector) throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver();
+        CspIntVariable x[] = (queens == 0) ? createSudoku(solver) : createQueens(solver, queens);
+
+        VariableSelector varSelector = null;
+        switch (selector) {
+            case 1:
+                varSelector = new MinDomainVariableSelector();
+                break;
+            case 2:
+                varSelector = new DomWdegVariableSelector();
+                break;
+            case 3:
+                varSelector = new ActivityVariableSelector();
+                break;
+            case 4:
+                varSelector = new ImpactVariableSelector();
+                break;
+        }
+
+        SearchAction generate = solver.getSearchActions().generate(x, null, varSelector);
+        SearchAction limited = solver.getSearchLimits().limitSearch(
+            solver.getSearchLimits().timeLimit(timeLimit), generate);
+        return solver.solve(limited);
+    }
+
+    /**
+     * Creates N-Queens variables and constraints
+     */
+    private static CspIntVariable[] createQueens(CspSolver solver, int queens) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspIntVariable x[] = new CspIntVariable[queens];
+        for (int i=0; i<queens; i++)
+            x[i] = varFactory.intVar("x" + i, 1, queens);
+
+        for (int i=0; i<queens; i++) {
+            for (int j=i+1; j<queens; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Creates variables and constraints for the cells of a 9x9 Sudoku puzzle
+     */
+    private static CspIntVariable[] createSudoku(CspSolver solver) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspMath math = varFactory.getMath();
+
+        CspIntVariable cells[] = new CspIntVariable[81];
+        for (int i=0; i<81; i++) {
+            int given = SUDOKU.charAt(i) - '0';
+            cells[i] = (given > 0) ? varFactory.intVar("c" + i, given, given) : varFactory.intVar("c" + i, 1, 9);
+        }
+
+        for (int i=0; i<9; i++) {
+            CspIntExpr row[] = new CspIntExpr[9];
+            CspIntExpr col[] = new CspIntExpr[9];
+            CspIntExpr box[] = new CspIntExpr[9];
+            for (int j=0; j<9; j++) {
+                row[j] = cells[i*9 + j];
+                col[j] = cells[j*9 + i];
+                box[j] = cells[(i/3*3 + j/3)*9 + i%3*3 + j%3];
+            }
+            solver.addConstraint(math.allDifferent(row));
+            solver.addConstraint(math.allDifferent(col));
+            solver.addConstraint(math.allDifferent(box));
+        }
+        return cells;
+    }
+}
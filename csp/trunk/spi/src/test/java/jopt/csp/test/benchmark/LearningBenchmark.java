@@ -0,0 +1,151 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.Search;
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.search.technique.TreeSearch;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares depth first search with searches that explain failures to backjump
+ * and learn nogoods.  The first problem places pigeons in too few holes with
+ * unrelated variables assigned between the pigeons, so depth first search
+ * repeats the same failures below every assignment of the unrelated variables
+ * while backjumping returns directly to the pigeons.  The second problem
+ * locates all solutions of N-Queens, where few decisions can be skipped, to
+ * measure the cost of recording explanations.
+ * <p>
+ * Depth first runs are stopped at a time limit and reported as timeouts.
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of holes, the number of unrelated
+ * variables, the number of queens and the time limit in milliseconds.
+ */
+public class LearningBenchmark {
+    private static final int DEPTH_FIRST = 0;
+    private static final int LEARNING = 1;
+    private static final int LEARNING_RESTART = 2;
+    private static final String STRATEGY_NAMES[] = {"depth first", "learning", "learning restart"};
+
+    private static int holes;
+    private static int unrelated;
+    private static int queens;
+    private static long timeLimit;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        holes = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        unrelated = (args.length > 1) ? Integer.parseInt(args[1]) : 6;
+        queens = (args.length > 2) ? Integer.parseInt(args[2]) : 8;
+        timeLimit = (args.length > 3) ? Long.parseLong(args[3]) : 10000;
+
+        // warm up
+        for (int i=0; i<3; i++) {
+            solve(false, LEARNING);
+            solve(true, LEARNING);
+        }
+
+        System.out.println("pigeons (" + holes + " holes, " + unrelated + " unrelated variables)");
+        for (int strategy=DEPTH_FIRST; strategy<=LEARNING_RESTART; strategy++)
+            report(false, strategy);
+
+        System.out.println("queens (" + queens + "), all solutions");
+        for (int strategy=DEPTH_FIRST; strategy<=LEARNING_RESTART; strategy++)
+            report(true, strategy);
+    }
+
+    /**
+     * Solves a problem with a strategy and prints the time taken
+     */
+    private static void report(boolean allQueens, int strategy) throws PropagationFailureException {
+        long start = System.nanoTime();
+        String result = solve(allQueens, strategy);
+        long time = (System.nanoTime() - start) / 1000000;
+        System.out.println("    " + STRATEGY_NAMES[strategy] + ": " + time + " ms, " + result);
+    }
+
+    /**
+     * Searches a problem with a strategy and returns a description of the result
+     */
+    private static String solve(boolean allQueens, int strategy) throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+        CspIntVariable x[] = allQueens ? createQueens(solver) : createPigeons(solver);
+        SearchAction generate = solver.getSearchActions().generate(x);
+
+        Search search;
+        switch (strategy) {
+            case DEPTH_FIRST:
+                SearchAction limited = solver.getSearchLimits().limitSearch(
+                    solver.getSearchLimits().timeLimit(timeLimit), generate);
+                search = solver.getSearchTechniques().search(limited);
+                break;
+
+            case LEARNING:
+                search = solver.getSearchTechniques().learningSearch(generate);
+                break;
+
+            default:
+                search = solver.getSearchTechniques().learningRestartSearch(generate, 10);
+        }
+
+        long start = System.currentTimeMillis();
+        int solutions = 0;
+        boolean found = solver.solve(search, false);
+        while (found) {
+            solutions++;
+            found = allQueens && solver.nextSolution();
+        }
+
+        String result = solutions + " solutions";
+        if (strategy == DEPTH_FIRST && System.currentTimeMillis() - start >= timeLimit)
+            result += ", timeout";
+        if (search instanceof TreeSearch && strategy != DEPTH_FIRST)
+            result += ", " + ((TreeSearch) search).getBackjumpCount() + " backjumps";
+        return result;
+    }
+
+    /**
+     * Creates variables for one more pigeon than holes with unrelated variables
+     * between the first pigeon and the others
+     */
+    private static CspIntVariable[] createPigeons(CspSolver solver) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspIntVariable pigeons[] = new CspIntVariable[holes + 1];
+        for (int i=0; i<pigeons.length; i++)
+            pigeons[i] = varFactory.intVar("p" + i, 1, holes);
+        for (int i=0; i<pigeons.length; i++)
+            for (int j=i+1; j<pigeons.length; j++)
+                solver.addConstraint(pigeons[i].neq(pigeons[j]));
+
+        CspIntVariable x[] = new CspIntVariable[pigeons.length + unrelated];
+        x[0] = pigeons[0];
+        for (int i=1; i<=unrelated; i++) {
+            x[i] = varFactory.intVar("y" + i, 0, 9);
+            solver.addConstraint(x[i].neq(x[i-1].add(10)));
+        }
+        for (int i=1; i<pigeons.length; i++)
+            x[unrelated + i] = pigeons[i];
+        return x;
+    }
+
+    /**
+     * Creates N-Queens variables and constraints
+     */
+    private static CspIntVariable[] createQueens(CspSolver solver) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspIntVariable x[] = new CspIntVariable[queens];
+        for (int i=0; i<queens; i++)
+            x[i] = varFactory.intVar("x" + i, 1, queens);
+
+        for (int i=0; i<queens; i++) {
+            for (int j=i+1; j<queens; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+        return x;
+    }
+}
@@ -0,0 +1,373 @@
+package jopt.csp.test.benchmark;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.LocalSearch;
+import jopt.csp.search.Metaheuristic;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.search.SearchAction;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.SolverImpl;
+import jopt.csp.spi.search.localsearch.TabuMetaheuristic;
+import jopt.csp.spi.solver.ChoicePointAlgorithm;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares the quality of solutions located over time by local searches guided
+ * by hill climbing, tabu search, simulated annealing, threshold accepting and
+ * late acceptance.  Each metaheuristic minimizes the conflicts of an N-Queens
+ * permutation, the conflicts of a Sudoku whose boxes are filled with
+ * permutations of their missing digits and the cost of a synthetic assignment
+ * of tasks to agents.  The best objective located is reported at fractions of
+ * the time allowed for each search.  The number of tabu checks performed per
+ * second as the tabu tenure grows is reported last.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the milliseconds allowed for each search and
+ * the number of queens.
+ */
+public class MetaheuristicBenchmark {
+    private static final String PROBLEMS[] = new String[] {"queens", "sudoku", "assignment"};
+    private static final String METHODS[] = new String[] {"hill climbing", "tabu", "annealing", "threshold", "late acceptance"};
+
+    public static void main(String[] args) throws PropagationFailureException {
+        long budget = (args.length > 0) ? Long.parseLong(args[0]) : 3000;
+        int queens = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+
+        System.out.println("best objective after 1/8, 1/4, 1/2 and all of " + budget + "ms, moves");
+        for (int p=0; p<PROBLEMS.length; p++) {
+            System.out.println(PROBLEMS[p]);
+            for (int m=0; m<METHODS.length; m++) {
+                Problem problem = createProblem(p, queens);
+                System.out.println("    " + METHODS[m] + ": " + search(problem, m, budget));
+            }
+        }
+
+        System.out.println("tabu checks per second");
+        for (int tenure=10; tenure<=10000; tenure*=10)
+            System.out.println("    tenure (" + tenure + "): " + tabuChecks(tenure));
+    }
+
+    private static Problem createProblem(int index, int queens) throws PropagationFailureException {
+        switch (index) {
+            case 0:
+                return new Queens(queens);
+            case 1:
+                return new Sudoku();
+            default:
+                return new Assignment(30, 7);
+        }
+    }
+
+    /**
+     * Performs moves guided by a metaheuristic until time runs out or no move
+     * is possible and returns the best objectives located at each checkpoint
+     */
+    private static String search(Problem problem, int method, long budget) {
+        LocalSearch local = problem.solver.getLocalSearch();
+
+        boolean tabu = false;
+        Metaheuristic meta = null;
+        switch (method) {
+            case 0:
+                meta = local.thresholdAccepting(local.linearCooling(0, 0));
+                break;
+            case 1:
+                meta = local.tabu(problem.tenure, 2 * problem.temperature);
+                tabu = true;
+                break;
+            case 2:
+                meta = local.simulatedAnnealing(local.geometricCooling(problem.temperature, problem.alpha), 17);
+                break;
+            case 3:
+                meta = local.thresholdAccepting(local.geometricCooling(problem.temperature, problem.alpha));
+                break;
+            default:
+                meta = local.lateAcceptance(problem.history);
+        }
+
+        // tabu search checks entire neighborhood, others accept first neighbor in random order
+        Neighborhood hood = tabu ? problem.hood : local.randomize(problem.hood);
+        SolverSolution solution = problem.solution;
+
+        double best = solution.getObjectiveVal();
+        double checkpoints[] = new double[4];
+        int next = 0;
+        int moves = 0;
+
+        long start = System.currentTimeMillis();
+        while (best > 0) {
+            long elapsed = System.currentTimeMillis() - start;
+            while (next < checkpoints.length && elapsed >= (budget >> (checkpoints.length - next - 1)))
+                checkpoints[next++] = best;
+            if (next == checkpoints.length)
+                break;
+
+            SearchAction move = tabu ? local.tabuMove(solution, hood, meta, hood.size()) : local.neighborMove(solution, hood, meta);
+            if (problem.solver.solve(move)) {
+                moves++;
+                best = Math.min(best, solution.getObjectiveVal());
+            }
+            else if (!meta.continueSearch()) {
+                break;
+            }
+        }
+
+        // search ended early
+        while (next < checkpoints.length)
+            checkpoints[next++] = best;
+
+        StringBuffer buf = new StringBuffer();
+        for (int i=0; i<checkpoints.length; i++)
+            buf.append((long) checkpoints[i]).append(", ");
+        buf.append(moves);
+        return buf.toString();
+    }
+
+    /**
+     * Returns the number of neighbors checked per second against tabu lists
+     * holding a number of moves
+     */
+    private static long tabuChecks(int tenure) throws PropagationFailureException {
+        ChoicePointAlgorithm alg = SolverImpl.createDefaultAlgorithm();
+        ConstraintStore store = new ConstraintStore(alg);
+        CspVariableFactory varFactory = alg.getVarFactory();
+
+        CspIntVariable x[] = new CspIntVariable[tenure];
+        SolverSolution initial = new SolverSolution();
+        for (int i=0; i<tenure; i++) {
+            x[i] = varFactory.intVar("x" + i, 0, 9);
+            store.addVariable(x[i], true);
+            initial.setValue(x[i], 0);
+        }
+
+        // fill undo and alter lists with a move changing each variable
+        TabuMetaheuristic tabu = new TabuMetaheuristic(store, tenure, tenure);
+        tabu.setInitialSolution(initial);
+        for (int i=0; i<tenure; i++)
+            tabu.neighborSelected(neighbor(x[i], 1));
+
+        // neighbors that are not tabu are checked against every list
+        SolverSolution neighbors[] = new SolverSolution[1000];
+        Random rand = new Random(3);
+        for (int i=0; i<neighbors.length; i++)
+            neighbors[i] = neighbor(varFactory.intVar("y" + i, 0, 9), rand.nextInt(10));
+
+        int checks = 0;
+        long start = System.nanoTime();
+        long time = 0;
+        while (time < 1000000000L) {
+            for (int i=0; i<neighbors.length; i++)
+                tabu.isAcceptableNeighbor(neighbors[i]);
+            checks += neighbors.length;
+            time = System.nanoTime() - start;
+        }
+
+        return (long) (checks * 1000000000d / time);
+    }
+
+    private static SolverSolution neighbor(CspIntVariable var, int val) {
+        SolverSolution neighbor = new SolverSolution();
+        neighbor.setValue(var, val);
+        return neighbor;
+    }
+
+    /**
+     * Problem minimizing an objective with an initial solution, the neighborhood
+     * searched and parameters of each metaheuristic scaled to the objective
+     */
+    private static abstract class Problem {
+        protected CspSolver solver;
+        protected CspVariableFactory varFactory;
+        protected SolverSolution solution;
+        protected Neighborhood hood;
+        protected int tenure;
+        protected int history;
+        protected double temperature;
+        protected double alpha;
+
+        public Problem() {
+            solver = CspSolver.createSolver();
+            varFactory = solver.getVarFactory();
+            solution = new SolverSolution();
+        }
+
+        /**
+         * Returns a variable equal to a sum of booleans counting conflicts
+         */
+        protected CspIntVariable objective(CspIntExpr conflicts, int max) throws PropagationFailureException {
+            CspIntVariable objective = varFactory.intVar("conflicts", 0, max);
+            solver.addConstraint(objective.eq(conflicts));
+            return objective;
+        }
+    }
+
+    /**
+     * N-Queens permutation minimizing the number of queens sharing a diagonal
+     */
+    private static class Queens extends Problem {
+        public Queens(int n) throws PropagationFailureException {
+            CspIntVariable x[] = new CspIntVariable[n];
+            for (int i=0; i<n; i++) {
+                x[i] = varFactory.intVar("x" + i, 0, n - 1);
+                solution.setValue(x[i], i);
+            }
+
+            CspIntExpr conflicts = null;
+            for (int i=0; i<n; i++) {
+                for (int j=i+1; j<n; j++) {
+                    CspIntExpr pair = x[i].eq(x[j].add(j - i)).toBoolean();
+                    pair = pair.add(x[i].eq(x[j].subtract(j - i)).toBoolean());
+                    conflicts = (conflicts == null) ? pair : conflicts.add(pair);
+                }
+            }
+
+            // every pair of queens starts on the same diagonal
+            solution.setMinimizeObjective(objective(conflicts, n * (n - 1)));
+            solution.setObjectiveVal(n * (n - 1) / 2);
+
+            hood = solver.getLocalSearch().swapNeighborhood(x);
+            tenure = n / 4;
+            history = n;
+            temperature = 2;
+            alpha = 0.995;
+        }
+    }
+
+    /**
+     * Sudoku with each box filled with a permutation of its missing digits
+     * minimizing the number of pairs of equal digits in rows and columns
+     */
+    private static class Sudoku extends Problem {
+        private static final String PUZZLE[] = new String[] {
+            "53..7....",
+            "6..195...",
+            ".98....6.",
+            "8...6...3",
+            "4..8.3..1",
+            "7...2...6",
+            ".6....28.",
+            "...419..5",
+            "....8..79"
+        };
+
+        public Sudoku() throws PropagationFailureException {
+            int values[][] = new int[9][9];
+            boolean given[][] = new boolean[9][9];
+            CspIntVariable cells[][] = new CspIntVariable[9][9];
+            Neighborhood boxes[] = new Neighborhood[9];
+
+            for (int b=0; b<9; b++) {
+                int row = (b / 3) * 3;
+                int col = (b % 3) * 3;
+
+                // determine digits missing from box
+                boolean used[] = new boolean[10];
+                for (int r=row; r<row+3; r++) {
+                    for (int c=col; c<col+3; c++) {
+                        char ch = PUZZLE[r].charAt(c);
+                        if (ch != '.') {
+                            values[r][c] = ch - '0';
+                            given[r][c] = true;
+                            used[values[r][c]] = true;
+                        }
+                    }
+                }
+
+                // fill empty cells with missing digits in order
+                int free = 0;
+                int digit = 1;
+                CspIntVariable boxCells[] = new CspIntVariable[9];
+                for (int r=row; r<row+3; r++) {
+                    for (int c=col; c<col+3; c++) {
+                        if (given[r][c]) {
+                            cells[r][c] = varFactory.intVar("c" + r + c, values[r][c], values[r][c]);
+                        }
+                        else {
+                            while (used[digit]) digit++;
+                            values[r][c] = digit++;
+                            cells[r][c] = varFactory.intVar("c" + r + c, 1, 9);
+                            solution.setValue(cells[r][c], values[r][c]);
+                            boxCells[free++] = cells[r][c];
+                        }
+                    }
+                }
+
+                CspIntVariable swapCells[] = new CspIntVariable[free];
+                System.arraycopy(boxCells, 0, swapCells, 0, free);
+                boxes[b] = solver.getLocalSearch().swapNeighborhood(swapCells);
+            }
+
+            // count pairs of equal digits in each row and column
+            CspIntExpr conflicts = null;
+            int initial = 0;
+            for (int i=0; i<9; i++) {
+                for (int j=0; j<9; j++) {
+                    for (int k=j+1; k<9; k++) {
+                        if (!given[i][j] || !given[i][k]) {
+                            CspIntExpr pair = cells[i][j].eq(cells[i][k]).toBoolean();
+                            conflicts = (conflicts == null) ? pair : conflicts.add(pair);
+                            if (values[i][j] == values[i][k]) initial++;
+                        }
+                        if (!given[j][i] || !given[k][i]) {
+                            CspIntExpr pair = cells[j][i].eq(cells[k][i]).toBoolean();
+                            conflicts = conflicts.add(pair);
+                            if (values[j][i] == values[k][i]) initial++;
+                        }
+                    }
+                }
+            }
+
+            solution.setMinimizeObjective(objective(conflicts, 2 * 9 * 36));
+            solution.setObjectiveVal(initial);
+
+            hood = solver.getLocalSearch().unifiedNeighborhood(boxes);
+            tenure = 10;
+            history = 50;
+            temperature = 2;
+            alpha = 0.995;
+        }
+    }
+
+    /**
+     * Assignment of tasks to agents minimizing the sum of random costs
+     */
+    private static class Assignment extends Problem {
+        public Assignment(int n, long seed) throws PropagationFailureException {
+            CspMath math = varFactory.getMath();
+            Random rand = new Random(seed);
+
+            CspIntVariable x[] = new CspIntVariable[n];
+            CspIntExpr total = null;
+            int initial = 0;
+            for (int i=0; i<n; i++) {
+                int costs[] = new int[n];
+                for (int j=0; j<n; j++)
+                    costs[j] = rand.nextInt(100) + 1;
+
+                x[i] = varFactory.intVar("x" + i, 0, n - 1);
+                solution.setValue(x[i], i);
+                initial += costs[i];
+
+                CspIntVariable cost = varFactory.intVar("cost" + i, 1, 100);
+                solver.addConstraint(math.element(costs, x[i], cost));
+                total = (total == null) ? cost : total.add(cost);
+            }
+
+            solution.setMinimizeObjective(total);
+            solution.setObjectiveVal(initial);
+
+            hood = solver.getLocalSearch().swapNeighborhood(x);
+            tenure = n / 3;
+            history = 2 * n;
+            temperature = 20;
+            alpha = 0.995;
+        }
+    }
+}
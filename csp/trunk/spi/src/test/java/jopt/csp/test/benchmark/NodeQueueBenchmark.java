@@ -0,0 +1,158 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraphImpl;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.util.IndexedNodeQueue;
+import jopt.csp.spi.arcalgorithm.util.NodeQueue;
+import jopt.csp.spi.arcalgorithm.variable.IntVariable;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Measures propagation of the AC5 algorithm on a model in which a change
+ * to one variable reduces the domains of a large number of other variables,
+ * and compares the hashed node queue with the queue storing changes in slots
+ * indexed by the graph index of the node.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of variables affected by each
+ * change and the number of measured rounds.
+ */
+public class NodeQueueBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int CHANGES = 200;
+
+    public static void main(String[] args) throws Exception {
+        int fanout = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("fan-out (" + fanout + ")");
+        runPropagation(fanout, rounds);
+        runQueues(fanout, rounds);
+    }
+
+    /**
+     * Times propagation of bound changes on two variables that every
+     * other variable is bounded by
+     */
+    private static void runPropagation(int fanout, int rounds) throws PropagationFailureException {
+        AC5 alg = new AC5();
+        ChoicePointStack cps = new ChoicePointStack();
+        ConstraintStore store = new ConstraintStore(alg, true, cps);
+        CspVariableFactory varFactory = alg.getVarFactory();
+
+        CspIntVariable low = varFactory.intVar("low", 0, CHANGES);
+        CspIntVariable high = varFactory.intVar("high", CHANGES, 2 * CHANGES);
+        for (int i=0; i<fanout; i++) {
+            CspIntVariable x = varFactory.intVar("x" + i, 0, 2 * CHANGES);
+            store.addConstraint(x.geq(low));
+            store.addConstraint(x.leq(high));
+        }
+
+        for (int i=0; i<WARMUP_ROUNDS; i++)
+            changeBounds(cps, low, high);
+
+        long start = System.nanoTime();
+        for (int i=0; i<rounds; i++)
+            changeBounds(cps, low, high);
+        long time = System.nanoTime() - start;
+
+        long changes = (long) rounds * CHANGES;
+        System.out.println("    AC5 propagation: " + (time / changes / 1000.0) + " us/change, " +
+            ((long) (changes / (time / 1000000000.0))) + " changes/sec");
+    }
+
+    /**
+     * Raises the lower bound and lowers the upper bound of the bounding
+     * variables, rolling back each change
+     */
+    private static void changeBounds(ChoicePointStack cps, CspIntVariable low, CspIntVariable high)
+        throws PropagationFailureException
+    {
+        for (int i=1; i<=CHANGES; i++) {
+            cps.push();
+            low.setMin(i);
+            high.setMax(2 * CHANGES - i);
+            cps.pop();
+        }
+    }
+
+    /**
+     * Times the queue operations performed by AC5 when each of a large
+     * number of nodes is changed more than once before it is propagated
+     */
+    private static void runQueues(int fanout, int rounds) {
+        NodeArcGraphImpl graph = new NodeArcGraphImpl();
+        Node nodes[] = new Node[fanout];
+        for (int i=0; i<fanout; i++) {
+            nodes[i] = new IntVariable("x" + i, 0, 10).getNode();
+            graph.addNode(nodes[i]);
+        }
+
+        NodeQueue hashed = new NodeQueue();
+        NodeQueue hashedComplex = new NodeQueue();
+        IndexedNodeQueue indexed = new IndexedNodeQueue(graph);
+        IndexedNodeQueue indexedComplex = new IndexedNodeQueue(graph);
+
+        for (int i=0; i<WARMUP_ROUNDS; i++) {
+            cycleHashed(hashed, hashedComplex, nodes);
+            cycleIndexed(graph, indexed, indexedComplex, nodes);
+        }
+
+        long start = System.nanoTime();
+        for (int i=0; i<rounds * CHANGES; i++)
+            cycleHashed(hashed, hashedComplex, nodes);
+        long hashedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i=0; i<rounds * CHANGES; i++)
+            cycleIndexed(graph, indexed, indexedComplex, nodes);
+        long indexedTime = System.nanoTime() - start;
+
+        long changes = (long) rounds * CHANGES * fanout * 2;
+        System.out.println("    hashed queue: " + ((long) (changes / (hashedTime / 1000000000.0))) + " node changes/sec");
+        System.out.println("    indexed queue: " + ((long) (changes / (indexedTime / 1000000000.0))) + " node changes/sec");
+    }
+
+    /**
+     * Queues a domain change and then a range change for every node, merging
+     * any change waiting in the complex queue, and drains the queue
+     */
+    private static void cycleHashed(NodeQueue q, NodeQueue complex, Node nodes[]) {
+        for (int type=DomainChangeType.DOMAIN; type<=DomainChangeType.RANGE; type++) {
+            for (int i=0; i<nodes.length; i++) {
+                complex.remove(nodes[i]);
+                q.add(nodes[i], type);
+            }
+        }
+        for (int i=0; i<nodes.length; i+=2)
+            complex.add(q.nextChange().getNode(), DomainChangeType.RANGE);
+        while (q.nextChange() != null);
+        while (complex.nextChange() != null);
+    }
+
+    /**
+     * Performs the same operations as {@link #cycleHashed} using queues
+     * indexed by graph index
+     */
+    private static void cycleIndexed(NodeArcGraphImpl graph, IndexedNodeQueue q, IndexedNodeQueue complex, Node nodes[]) {
+        for (int type=DomainChangeType.DOMAIN; type<=DomainChangeType.RANGE; type++) {
+            for (int i=0; i<nodes.length; i++) {
+                int idx = graph.getNodeIndex(nodes[i]);
+                complex.remove(idx);
+                q.add(idx, nodes[i], type, null);
+            }
+        }
+        for (int i=0; i<nodes.length; i+=2) {
+            Node n = q.nextChange().getNode();
+            complex.add(q.getCurrentIndex(), n, DomainChangeType.RANGE, null);
+        }
+        while (q.nextChange() != null);
+        while (complex.nextChange() != null);
+    }
+}
@@ -0,0 +1,114 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.LocalSearch;
+import jopt.csp.search.NeighborEvaluator;
+import jopt.csp.search.NeighborReplica;
+import jopt.csp.search.NeighborReplicaModel;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.AC5;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Measures the number of neighbors evaluated per second when the swaps of an
+ * N-Queens solution are evaluated by an increasing number of workers, each
+ * within its own copy of the problem.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of queens, which must not leave a
+ * remainder of 2 or 3 when divided by 6, the number of repetitions and the
+ * largest number of workers, which should not exceed the number of available
+ * processors.
+ */
+public class ParallelNeighborhoodBenchmark {
+
+    public static void main(String[] args) throws PropagationFailureException {
+        int queens = (args.length > 0) ? Integer.parseInt(args[0]) : 40;
+        int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int maxWorkers = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("queens (" + queens + "), neighbors per second");
+
+        // warm up with a single worker
+        evaluate(queens, repetitions, 1);
+
+        long baseRate = 0;
+        for (int workers=1; workers<=maxWorkers; workers*=2) {
+            long rate = evaluate(queens, repetitions, workers);
+            if (workers==1) baseRate = rate;
+
+            System.out.println("    workers (" + workers + "): " + rate + ", speedup " + ((double) rate / baseRate));
+        }
+    }
+
+    /**
+     * Evaluates all swaps of a solution a number of times and returns the
+     * number of neighbors evaluated per second
+     */
+    private static long evaluate(int queens, int repetitions, int workers) throws PropagationFailureException {
+        final int n = queens;
+        Queens problem = new Queens(n);
+        LocalSearch local = problem.solver.getLocalSearch();
+        NeighborEvaluator evaluator = local.parallelEvaluator(problem.x, new NeighborReplicaModel() {
+            public NeighborReplica buildReplica(int worker) throws PropagationFailureException {
+                Queens replica = new Queens(n);
+                return new NeighborReplica(replica.solver, replica.x, replica.cost);
+            }
+        }, workers);
+
+        SolverSolution initial = new SolverSolution();
+        for (int i=0; i<queens; i++) {
+            initial.add(problem.x[i]);
+            initial.setValue(problem.x[i], (i < queens / 2) ? 2 * i + 1 : 2 * (i - queens / 2));
+        }
+        initial.setMinimizeObjective(problem.cost);
+
+        Neighborhood hood = local.swapNeighborhood(problem.x);
+        hood.setInitialSolution(initial);
+
+        // first evaluation builds copies of the problem
+        evaluator.evaluate(initial, hood);
+
+        long start = System.nanoTime();
+        for (int r=0; r<repetitions; r++)
+            evaluator.evaluate(initial, hood);
+        long time = Math.max(1, System.nanoTime() - start);
+
+        evaluator.shutdown();
+        return (long) (repetitions * (double) hood.size() * 1000000000d / time);
+    }
+
+    /**
+     * N-Queens problem minimizing a weighted sum of queen positions
+     */
+    private static class Queens {
+        private CspSolver solver;
+        private CspIntVariable x[];
+        private CspIntExpr cost;
+
+        public Queens(int n) throws PropagationFailureException {
+            solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+            CspVariableFactory varFactory = solver.getVarFactory();
+            x = new CspIntVariable[n];
+            for (int i=0; i<n; i++)
+                x[i] = varFactory.intVar("x" + i, 0, n - 1);
+
+            for (int i=0; i<n; i++) {
+                for (int j=i+1; j<n; j++) {
+                    solver.addConstraint(x[i].neq(x[j]));
+                    solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                    solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+                }
+            }
+
+            cost = x[0];
+            for (int i=1; i<n; i++)
+                cost = cost.add(x[i].multiply(i + 1));
+        }
+    }
+}
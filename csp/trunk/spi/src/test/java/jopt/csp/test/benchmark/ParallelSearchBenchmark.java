@@ -0,0 +1,88 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.CspPortfolioModel;
+import jopt.csp.CspPortfolioSearch;
+import jopt.csp.CspPortfolioSolver;
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Measures the time to prove an optimal N-Queens solution when a single
+ * search tree is searched by an increasing number of workers exchanging
+ * open nodes.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of queens and the largest number
+ * of workers, which should not exceed the number of available processors.
+ */
+public class ParallelSearchBenchmark {
+
+    public static void main(String[] args) {
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        int maxWorkers = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("queens (" + n + ")");
+
+        // warm up with a single worker
+        solve(n, 1);
+
+        long baseTime = 0;
+        for (int workers=1; workers<=maxWorkers; workers*=2) {
+            long start = System.nanoTime();
+            double objective = solve(n, workers);
+            long time = System.nanoTime() - start;
+            if (workers==1) baseTime = time;
+
+            System.out.println("    workers (" + workers + "): " + (time / 1000000) + " ms, objective " +
+                objective + ", speedup " + ((double) baseTime / time));
+        }
+    }
+
+    /**
+     * Proves the optimal solution with a number of workers and returns its objective
+     */
+    private static double solve(int n, int workers) {
+        CspPortfolioSolver portfolio = CspPortfolioSolver.createPortfolioSolver(workers);
+        portfolio.solveParallel(new QueensModel(n));
+        if (!portfolio.isSearchComplete())
+            throw new IllegalStateException("search did not complete");
+        return portfolio.getBestObjective();
+    }
+
+    /**
+     * N-Queens problem minimizing a weighted sum of queen positions
+     */
+    private static class QueensModel implements CspPortfolioModel {
+        private int n;
+
+        public QueensModel(int n) {
+            this.n = n;
+        }
+
+        public CspPortfolioSearch buildModel(CspSolver solver, int worker) throws PropagationFailureException {
+            CspVariableFactory varFactory = solver.getVarFactory();
+            CspIntVariable x[] = new CspIntVariable[n];
+            for (int i=0; i<n; i++)
+                x[i] = varFactory.intVar("x" + i, 1, n);
+
+            for (int i=0; i<n; i++) {
+                for (int j=i+1; j<n; j++) {
+                    solver.addConstraint(x[i].neq(x[j]));
+                    solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                    solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+                }
+            }
+
+            // weight later queens more so that many solutions improve the objective
+            CspIntExpr objective = x[0];
+            for (int i=1; i<n; i++)
+                objective = objective.add(x[i].multiply(i+1));
+
+            return new CspPortfolioSearch(solver.getSearchActions().generate(x),
+                solver.getSearchGoals().minimize(objective), null, null);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package jopt.csp.test.benchmark;
+
+import java.util.Arrays;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.Search;
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.search.RandomVariableSelector;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares the distribution of times to locate a first solution when variables
+ * are selected randomly and the tree is searched depth first or with restarts.
+ * Each strategy solves every problem many times and reports the median, 90th
+ * percentile and longest time, since restarts are meant to shorten the long
+ * runs caused by bad choices near the root rather than the typical run.
+ * <p>
+ * Depth first runs are stopped at a time limit and reported as timeouts.
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of trials, the number of queens
+ * and the time limit in milliseconds.
+ */
+public class RestartBenchmark {
+    private static final int DEPTH_FIRST = 0;
+    private static final int LUBY = 1;
+    private static final int GEOMETRIC = 2;
+    private static final String STRATEGY_NAMES[] = {"depth first", "luby", "geometric"};
+
+    // hard puzzle with 0 for empty cells
+    private static final String SUDOKU =
+        "800000000" +
+        "003600000" +
+        "070090200" +
+        "050007000" +
+        "000045700" +
+        "000100030" +
+        "001000068" +
+        "008500010" +
+        "090000400";
+
+    private static int trials;
+    private static int queens;
+    private static long timeLimit;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        trials = (args.length > 0) ? Integer.parseInt(args[0]) : 25;
+        queens = (args.length > 1) ? Integer.parseInt(args[1]) : 24;
+        timeLimit = (args.length > 2) ? Long.parseLong(args[2]) : 5000;
+
+        // warm up
+        for (int i=0; i<3; i++) {
+            solve(false, DEPTH_FIRST);
+            solve(true, LUBY);
+        }
+
+        System.out.println("queens (" + queens + ")");
+        for (int strategy=DEPTH_FIRST; strategy<=GEOMETRIC; strategy++)
+            report(false, strategy);
+
+        System.out.println("sudoku");
+        for (int strategy=DEPTH_FIRST; strategy<=GEOMETRIC; strategy++)
+            report(true, strategy);
+    }
+
+    /**
+     * Solves a problem repeatedly with a strategy and prints the distribution of times
+     */
+    private static void report(boolean sudoku, int strategy) throws PropagationFailureException {
+        long times[] = new long[trials];
+        int timeouts = 0;
+        for (int i=0; i<trials; i++) {
+            long start = System.nanoTime();
+            if (!solve(sudoku, strategy)) timeouts++;
+            times[i] = (System.nanoTime() - start) / 1000000;
+        }
+
+        Arrays.sort(times);
+        System.out.println("    " + STRATEGY_NAMES[strategy] + ": median " + times[trials / 2] +
+            " ms, p90 " + times[(int) (0.9 * (trials - 1))] + " ms, max " + times[trials - 1] +
+            " ms, timeouts " + timeouts);
+    }
+
+    /**
+     * Locates the first solution of a problem, returning false if depth first
+     * search reached the time limit
+     */
+    private static boolean solve(boolean sudoku, int strategy) throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver();
+        CspIntVariable x[] = sudoku ? createSudoku(solver) : createQueens(solver);
+        SearchAction generate = solver.getSearchActions().generate(x, null, new RandomVariableSelector());
+
+        switch (strategy) {
+            case DEPTH_FIRST:
+                SearchAction limited = solver.getSearchLimits().limitSearch(
+                    solver.getSearchLimits().timeLimit(timeLimit), generate);
+                return solver.solve(limited);
+
+            case LUBY:
+                Search luby = solver.getSearchTechniques().lubyRestartSearch(generate, 10);
+                return solver.solve(luby);
+
+            default:
+                Search geometric = solver.getSearchTechniques().restartSearch(generate, 10, 1.5);
+                return solver.solve(geometric);
+        }
+    }
+
+    /**
+     * Creates N-Queens variables and constraints
+     */
+    private static CspIntVariable[] createQueens(CspSolver solver) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspIntVariable x[] = new CspIntVariable[queens];
+        for (int i=0; i<queens; i++)
+            x[i] = varFactory.intVar("x" + i, 1, queens);
+
+        for (int i=0; i<queens; i++) {
+            for (int j=i+1; j<queens; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Creates variables and constraints for the cells of a 9x9 Sudoku puzzle
+     */
+    private static CspIntVariable[] createSudoku(CspSolver solver) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspMath math = varFactory.getMath();
+
+        CspIntVariable cells[] = new CspIntVariable[81];
+        for (int i=0; i<81; i++) {
+            int given = SUDOKU.charAt(i) - '0';
+            cells[i] = (given > 0) ? varFactory.intVar("c" + i, given, given) : varFactory.intVar("c" + i, 1, 9);
+        }
+
+        for (int i=0; i<9; i++) {
+            CspIntExpr row[] = new CspIntExpr[9];
+            CspIntExpr col[] = new CspIntExpr[9];
+            CspIntExpr box[] = new CspIntExpr[9];
+            for (int j=0; j<9; j++) {
+                row[j] = cells[i*9 + j];
+                col[j] = cells[j*9 + i];
+                box[j] = cells[(i/3*3 + j/3)*9 + i%3*3 + j%3];
+            }
+            solver.addConstraint(math.allDifferent(row));
+            solver.addConstraint(math.allDifferent(col));
+            solver.addConstraint(math.allDifferent(box));
+        }
+        return cells;
+    }
+}
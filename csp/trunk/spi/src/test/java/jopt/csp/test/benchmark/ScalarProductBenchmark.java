@@ -0,0 +1,106 @@
+package jopt.csp.test.benchmark;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares a multi-dimensional capacity model built from chained
+ * <code>multiply</code> and <code>add</code> expressions against the same model
+ * built from scalar product constraints.  Each row limits the weighted use of
+ * every variable to a capacity and a final row requires a minimum total value,
+ * which makes the search revisit the bounds of long sums many times.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of variables, the number of rows
+ * and the time limit in milliseconds.
+ */
+public class ScalarProductBenchmark {
+    private static int vars;
+    private static int rows;
+    private static long timeLimit;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        vars = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+        rows = (args.length > 1) ? Integer.parseInt(args[1]) : 8;
+        timeLimit = (args.length > 2) ? Long.parseLong(args[2]) : 10000;
+
+        // warm up
+        for (int i=0; i<3; i++) {
+            solve(false);
+            solve(true);
+        }
+
+        System.out.println("capacity model (" + vars + " variables, " + rows + " rows)");
+        report(false);
+        report(true);
+    }
+
+    /**
+     * Builds and solves the model, printing the time taken by each step
+     */
+    private static void report(boolean scalarProduct) throws PropagationFailureException {
+        long times[] = solve(scalarProduct);
+        System.out.println("    " + (scalarProduct ? "scalar product" : "expressions") +
+            ": build " + times[0] + " ms, solve " + times[1] + " ms" + (times[2]==0 ? ", timeout" : ""));
+    }
+
+    /**
+     * Builds and solves the model returning the build time, the solve time and
+     * 1 if a solution was found within the time limit
+     */
+    private static long[] solve(boolean scalarProduct) throws PropagationFailureException {
+        Random random = new Random(17);
+        long start = System.nanoTime();
+
+        CspSolver solver = CspSolver.createSolver();
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspMath math = varFactory.getMath();
+
+        CspIntVariable x[] = new CspIntVariable[vars];
+        for (int i=0; i<vars; i++)
+            x[i] = varFactory.intVar("x" + i, 0, 4);
+
+        // capacity rows use roughly a third of the largest possible weight
+        for (int r=0; r<=rows; r++) {
+            int coeffs[] = new int[vars];
+            int total = 0;
+            for (int i=0; i<vars; i++) {
+                coeffs[i] = 1 + random.nextInt(9);
+                total += 4 * coeffs[i];
+            }
+
+            // final row is the minimum value that must be reached
+            boolean value = (r == rows);
+            int rhs = value ? total * 2 / 5 : total / 3;
+
+            if (scalarProduct) {
+                if (value)
+                    solver.addConstraint(math.scalarProductGeq(coeffs, x, rhs));
+                else
+                    solver.addConstraint(math.scalarProductLeq(coeffs, x, rhs));
+            }
+            else {
+                CspIntExpr sum = x[0].multiply(coeffs[0]);
+                for (int i=1; i<vars; i++)
+                    sum = sum.add(x[i].multiply(coeffs[i]));
+                solver.addConstraint(value ? sum.geq(rhs) : sum.leq(rhs));
+            }
+        }
+        long built = System.nanoTime();
+
+        SearchAction generate = solver.getSearchActions().generate(x);
+        SearchAction limited = solver.getSearchLimits().limitSearch(
+            solver.getSearchLimits().timeLimit(timeLimit), generate);
+        boolean found = solver.solve(limited);
+        long solved = System.nanoTime();
+
+        return new long[] {(built - start) / 1000000, (solved - built) / 1000000, found ? 1 : 0};
+    }
+}
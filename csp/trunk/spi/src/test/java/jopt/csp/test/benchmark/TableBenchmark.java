@@ -0,0 +1,141 @@
+package jopt.csp.test.benchmark;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspBooleanExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares a model of overlapping tables of allowed tuples built from boolean
+ * expressions, with a conjunction of equalities for each row and a
+ * disjunction over the rows, against the same model built from table
+ * constraints.  Each trial builds the model and then removes random values
+ * from the variables, propagating after each removal, until a variable
+ * cannot be reduced further or propagation fails.
+ * <p>
+ * Propagation is measured instead of a complete search since the boolean
+ * encoding does not enforce every row during search once a disjunction has
+ * more than two rows.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of rows of each table, the number
+ * of tables and the number of trials.
+ */
+public class TableBenchmark {
+    private static final int VARS = 8;
+    private static final int COLUMNS = 4;
+    private static final int VALUES = 16;
+
+    private static int rows;
+    private static int tables;
+    private static int trials;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        rows = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        tables = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        trials = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+
+        // warm up
+        for (int i=0; i<3; i++) {
+            run(false);
+            run(true);
+        }
+
+        System.out.println("table model (" + tables + " tables, " + rows + " rows, " + trials + " trials)");
+        report(false);
+        report(true);
+    }
+
+    /**
+     * Runs the trials, printing the time taken by each step
+     */
+    private static void report(boolean table) throws PropagationFailureException {
+        long times[] = run(table);
+        System.out.println("    " + (table ? "table" : "boolean expressions") +
+            ": build " + times[0] + " ms, propagate " + times[1] + " ms, " + times[2] + " removals");
+    }
+
+    /**
+     * Runs the trials returning the total build time, the total propagation
+     * time and the number of removals propagated
+     */
+    private static long[] run(boolean table) throws PropagationFailureException {
+        Random random = new Random(17);
+        long buildTime = 0;
+        long propagateTime = 0;
+        long removals = 0;
+
+        for (int n=0; n<trials; n++) {
+            long start = System.nanoTime();
+
+            CspSolver solver = CspSolver.createSolver();
+            CspVariableFactory varFactory = solver.getVarFactory();
+            CspMath math = varFactory.getMath();
+
+            CspIntVariable x[] = new CspIntVariable[VARS];
+            for (int i=0; i<VARS; i++)
+                x[i] = varFactory.intVar("x" + i, 0, VALUES - 1);
+
+            // each table covers consecutive variables, wrapping around the array
+            for (int t=0; t<tables; t++) {
+                CspIntVariable vars[] = new CspIntVariable[COLUMNS];
+                for (int i=0; i<COLUMNS; i++)
+                    vars[i] = x[(t * 2 + i) % VARS];
+
+                int tuples[][] = new int[rows][COLUMNS];
+                for (int r=0; r<rows; r++)
+                    for (int i=0; i<COLUMNS; i++)
+                        tuples[r][i] = random.nextInt(VALUES);
+
+                if (table)
+                    solver.addConstraint(math.table(vars, tuples));
+                else {
+                    // conjunction of equalities for each row
+                    CspBooleanExpr matches[] = new CspBooleanExpr[rows];
+                    for (int r=0; r<rows; r++) {
+                        CspBooleanExpr row = vars[0].eq(tuples[r][0]).toBoolean();
+                        for (int i=1; i<COLUMNS; i++)
+                            row = row.and(vars[i].eq(tuples[r][i]));
+                        matches[r] = row;
+                    }
+                    solver.addConstraint(any(matches, 0, rows).toConstraint());
+                }
+            }
+            long built = System.nanoTime();
+            buildTime += built - start;
+
+            // remove values chosen from the same sequence for both models
+            Random removal = new Random(n);
+            try {
+                while (true) {
+                    CspIntVariable var = x[removal.nextInt(VARS)];
+                    int val = removal.nextInt(VALUES);
+                    if (var.isBound()) break;
+                    if (var.isInDomain(val)) {
+                        var.removeValue(val);
+                        removals++;
+                        if (!solver.propagate()) break;
+                    }
+                }
+            }
+            catch (PropagationFailureException failed) {}
+            propagateTime += System.nanoTime() - built;
+        }
+
+        return new long[] {buildTime / 1000000, propagateTime / 1000000, removals};
+    }
+
+    /**
+     * Returns a disjunction of a range of expressions, built as a balanced tree
+     * since long chains of boolean expressions are very slow to post
+     */
+    private static CspBooleanExpr any(CspBooleanExpr exprs[], int start, int end) {
+        if (end - start == 1) return exprs[start];
+        int mid = (start + end) / 2;
+        return any(exprs, start, mid).or(any(exprs, mid, end));
+    }
+}
@@ -0,0 +1,89 @@
+package jopt.csp.test.benchmark;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Compares the time taken by the default depth first search of a solver
+ * created with an eager choicepoint stack against a solver whose stack records
+ * changes on a trail.  The search locates all solutions of an N-Queens problem
+ * that is added to the solver along with a number of idle variables, each
+ * constrained to another idle variable, which are never changed by the search
+ * but must still be pushed by an eager stack at every choicepoint.
+ * <p>
+ * This is not run as part of the test suite; run it from the command line
+ * with optional arguments for the number of queens, the number of idle
+ * variables and the number of measured rounds.
+ */
+public class TrailingSolverBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws PropagationFailureException {
+        int queens = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+        int idle = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+        int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+
+        for (int i=0; i<WARMUP_ROUNDS; i++) {
+            search(queens, idle, false);
+            search(queens, idle, true);
+        }
+
+        System.out.println("n-queens (" + queens + ") with " + idle + " idle variables");
+        report("eager", queens, idle, rounds, false);
+        report("trailing", queens, idle, rounds, true);
+    }
+
+    /**
+     * Times a number of complete searches and reports the average time
+     */
+    private static void report(String name, int queens, int idle, int rounds, boolean trailing)
+        throws PropagationFailureException
+    {
+        long time = 0;
+        int solutions = 0;
+        for (int i=0; i<rounds; i++) {
+            long start = System.nanoTime();
+            solutions = search(queens, idle, trailing);
+            time += System.nanoTime() - start;
+        }
+
+        System.out.println("    " + name + ": " + solutions + " solutions, " +
+            (time / rounds / 1000000.0) + " ms");
+    }
+
+    /**
+     * Builds the problem and counts all of its solutions
+     */
+    private static int search(int n, int idle, boolean trailing) throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver(null, null, trailing);
+        CspVariableFactory varFactory = solver.getVarFactory();
+
+        CspIntVariable x[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+
+        for (int i=0; i+1<idle; i+=2) {
+            CspIntVariable a = varFactory.intVar("a" + i, 0, 100);
+            CspIntVariable b = varFactory.intVar("b" + i, 0, 100);
+            solver.addConstraint(a.leq(b));
+        }
+
+        int solutions = 0;
+        boolean found = solver.solve(x);
+        while (found) {
+            solutions++;
+            found = solver.nextSolution();
+        }
+        return solutions;
+    }
+}
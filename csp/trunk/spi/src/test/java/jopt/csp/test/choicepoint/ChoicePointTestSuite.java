@@ -16,6 +16,7 @@ public class ChoicePointTestSuite extends TestCase {
         // jopt.csp.test.constraint
         suite.addTestSuite(ChoicePointPushMapTest.class);
         suite.addTestSuite(ChoicePointWithConstraintsTest.class);
+        suite.addTestSuite(ChoicePointTrailTest.class);
         
         return suite;
     }
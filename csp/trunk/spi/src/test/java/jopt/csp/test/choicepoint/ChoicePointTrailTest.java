@@ -0,0 +1,221 @@
+package jopt.csp.test.choicepoint;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.arcalgorithm.domain.IntIntervalDomain;
+import jopt.csp.spi.arcalgorithm.domain.IntSparseDomain;
+import jopt.csp.spi.search.actions.GenerateIntegerAction;
+import jopt.csp.spi.search.technique.DepthFirstSearch;
+import jopt.csp.spi.search.technique.TreeSearch;
+import jopt.csp.spi.search.tree.BasicSearchNode;
+import jopt.csp.spi.search.tree.CrawlingSearchTree;
+import jopt.csp.spi.search.tree.DeltaStateManager;
+import jopt.csp.spi.solver.ChoicePointDataMap;
+import jopt.csp.spi.solver.ChoicePointEntryListener;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests a choicepoint stack that records changed entries on a trail
+ */
+public class ChoicePointTrailTest extends TestCase {
+
+    public ChoicePointTrailTest(String testName) {
+        super(testName);
+    }
+
+    public void testPushPop() throws PropagationFailureException {
+        IntSparseDomain sparse = new IntSparseDomain(1, 10);
+        IntIntervalDomain interval = new IntIntervalDomain(1, 10);
+        ChoicePointStack cps = new ChoicePointStack(true);
+        sparse.setChoicePointStack(cps);
+        interval.setChoicePointStack(cps);
+        assertTrue("trailing", cps.isTrailing());
+
+        cps.push();
+        sparse.removeRange(1, 4);
+        interval.setMax(8);
+
+        cps.push();
+        sparse.removeValue(7);
+        interval.setMin(3);
+
+        cps.push();
+        interval.setMax(5);
+        assertEquals("sparse size", 5, sparse.getSize());
+        assertEquals("interval size", 3, interval.getSize());
+
+        cps.pop();
+        assertEquals("sparse size", 5, sparse.getSize());
+        assertEquals("interval min", 3, interval.getMin());
+        assertEquals("interval max", 8, interval.getMax());
+
+        cps.pop();
+        assertEquals("sparse min", 5, sparse.getMin());
+        assertEquals("sparse size", 6, sparse.getSize());
+        assertEquals("interval min", 1, interval.getMin());
+        assertEquals("interval max", 8, interval.getMax());
+
+        cps.pop();
+        assertEquals("sparse size", 10, sparse.getSize());
+        assertEquals("interval size", 10, interval.getSize());
+    }
+
+    public void testPopDeltaPushDelta() throws PropagationFailureException {
+        IntSparseDomain isd = new IntSparseDomain(1, 10);
+        ChoicePointStack cps = new ChoicePointStack(true);
+        isd.setChoicePointStack(cps);
+        isd.removeRange(1, 4);
+
+        cps.push();
+        isd.removeRange(5, 7);
+        Object delta = cps.popDelta();
+        assertEquals("domain min", 5, isd.getMin());
+        assertEquals("domain nums", 6, isd.getSize());
+
+        cps.pushDelta(delta);
+        assertEquals("domain min", 8, isd.getMin());
+        assertEquals("domain nums", 3, isd.getSize());
+
+        cps.pop();
+        assertEquals("domain min", 5, isd.getMin());
+        assertEquals("domain nums", 6, isd.getSize());
+    }
+
+    public void testUnchangedEntriesNotPushed() {
+        ChoicePointStack cps = new ChoicePointStack(true);
+        CountingListener changedListener = new CountingListener();
+        CountingListener unchangedListener = new CountingListener();
+        ChoicePointDataMap changed = cps.newDataMap(changedListener);
+        cps.newDataMap(unchangedListener);
+
+        changed.put("v", new Integer(0));
+        for (int i=1; i<=5; i++) {
+            cps.push();
+            changed.put("v", new Integer(i));
+            changed.put("w", new Integer(i));
+        }
+        assertEquals("changed pushes", 5, changedListener.pushCount);
+        assertEquals("unchanged pushes", 0, unchangedListener.pushCount);
+
+        cps.push();
+        cps.pop();
+        assertEquals("changed pushes", 5, changedListener.pushCount);
+        assertEquals("changed pops", 0, changedListener.popCount);
+
+        for (int i=4; i>=0; i--) {
+            cps.pop();
+            assertEquals("value", new Integer(i), changed.get("v"));
+        }
+        assertEquals("changed pops", 5, changedListener.popCount);
+        assertEquals("unchanged pops", 0, unchangedListener.popCount);
+    }
+
+    public void testSearchMatchesEagerStack() throws PropagationFailureException {
+        assertEquals("eager solutions", 40, countQueensSolutions(7, new ChoicePointStack(), false));
+        assertEquals("trailing solutions", 40, countQueensSolutions(7, new ChoicePointStack(true), false));
+        assertEquals("trailing delta solutions", 40, countQueensSolutions(7, new ChoicePointStack(true), true));
+    }
+
+    public void testTrailingSolver() throws PropagationFailureException {
+        CspSolver eager = CspSolver.createSolver();
+        CspSolver trailing = CspSolver.createSolver(null, null, true);
+        assertFalse("eager", eager.isTrailing());
+        assertTrue("trailing", trailing.isTrailing());
+
+        assertEquals("eager solutions", 40, countQueensSolutions(7, eager));
+        assertEquals("trailing solutions", 40, countQueensSolutions(7, trailing));
+    }
+
+    /**
+     * Counts the solutions of an N-Queens problem located by a solver
+     */
+    private int countQueensSolutions(int n, CspSolver solver) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+
+        CspIntVariable x[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+
+        int cnt = 0;
+        boolean found = solver.solve(x);
+        while (found) {
+            for (int i=0; i<n; i++)
+                assertTrue("x" + i + " bound", x[i].isBound());
+            cnt++;
+            found = solver.nextSolution();
+        }
+        return cnt;
+    }
+
+    /**
+     * Counts the solutions of an N-Queens problem using a choicepoint stack
+     */
+    private int countQueensSolutions(int n, ChoicePointStack cps, boolean deltaState) throws PropagationFailureException {
+        AC5 alg = new AC5();
+        ConstraintStore store = new ConstraintStore(alg, true, cps);
+        CspVariableFactory varFactory = alg.getVarFactory();
+
+        CspIntVariable x[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                store.addConstraint(x[i].neq(x[j]));
+                store.addConstraint(x[i].neq(x[j].add(j-i)));
+                store.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+
+        SearchAction genVars = new GenerateIntegerAction(x);
+        TreeSearch search = null;
+        if (deltaState)
+            search = new TreeSearch(new CrawlingSearchTree(new BasicSearchNode(genVars), new DeltaStateManager(store)), new DepthFirstSearch());
+        else
+            search = new TreeSearch(store, genVars, new DepthFirstSearch());
+
+        int cnt = 0;
+        while (search.nextSolution()) {
+            for (int i=0; i<n; i++)
+                assertTrue("x" + i + " bound", x[i].isBound());
+            cnt++;
+        }
+        return cnt;
+    }
+
+    /**
+     * Counts push and pop events of a data map
+     */
+    private static class CountingListener implements ChoicePointEntryListener {
+        private int pushCount;
+        private int popCount;
+
+        public void beforeChoicePointPopEvent() {
+            popCount++;
+        }
+
+        public void afterChoicePointPopEvent() {
+        }
+
+        public void beforeChoicePointPushEvent() {
+            pushCount++;
+        }
+
+        public void afterChoicePointPushEvent() {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package jopt.csp.test.constraint.global;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Tests circuit constraints over successor variables
+ */
+public class CircuitConstraintTest extends GlobalConstraintTestCase {
+
+    public void testSuccessorsRestrictedToOtherPositions() throws PropagationFailureException {
+        CspIntVariable next[] = intVars("next", 4, -5, 9);
+        solver.addConstraint(math.circuit(next));
+
+        for (int i=0; i<next.length; i++) {
+            assertEquals("next" + i + " min", (i == 0) ? 1 : 0, next[i].getMin());
+            assertEquals("next" + i + " max", (i == 3) ? 2 : 3, next[i].getMax());
+            assertFalse("next" + i + " has itself", next[i].isInDomain(i));
+        }
+    }
+
+    public void testClosingSubtourRemoved() throws PropagationFailureException {
+        CspIntVariable next[] = intVars("next", 5, -5, 10);
+        solver.addConstraint(math.circuit(next));
+
+        next[0].setValue(1);
+        assertTrue(solver.propagate());
+        assertFalse("next1 closes subtour", next[1].isInDomain(0));
+
+        next[3].setValue(4);
+        assertTrue(solver.propagate());
+        assertFalse("next4 closes subtour", next[4].isInDomain(3));
+
+        // joining the two paths leaves position 2 to close the circuit
+        next[1].setValue(3);
+        assertTrue(solver.propagate());
+        assertFalse("next4 closes subtour", next[4].isInDomain(0));
+        assertTrue("next4 bound", next[4].isBound());
+        assertEquals("next4", 2, next[4].getMin());
+        assertTrue("next2 bound", next[2].isBound());
+        assertEquals("next2", 0, next[2].getMin());
+    }
+
+    public void testSubtourFails() throws PropagationFailureException {
+        CspIntVariable next[] = intVars("next", 4, -5, 9);
+        solver.addConstraint(math.circuit(next));
+
+        next[0].setValue(1);
+        assertTrue(solver.propagate());
+        try {
+            next[1].setValue(0);
+            assertFalse(solver.propagate());
+        }
+        catch(PropagationFailureException expected) {}
+    }
+
+    public void testSolutionCount() throws PropagationFailureException {
+        // a complete graph of n positions has (n-1)! circuits
+        CspIntVariable next[] = intVars("next", 6, -5, 11);
+        solver.addConstraint(math.circuit(next));
+
+        int count = 0;
+        boolean found = solver.solve(next);
+        while (found) {
+            count++;
+            found = solver.nextSolution();
+        }
+        assertEquals(120, count);
+    }
+
+    public void testSolutionCountMatchesEnumeration() throws PropagationFailureException {
+        Random rand = new Random(17);
+        for (int trial=0; trial<50; trial++) {
+            solver = CspSolver.createSolver();
+            varFactory = solver.getVarFactory();
+            math = varFactory.getMath();
+
+            int n = 6;
+            boolean arcs[][] = new boolean[n][n];
+            CspIntVariable next[] = intVars("next", n, -5, n + 5);
+            for (int i=0; i<n; i++) {
+                for (int j=0; j<n; j++) {
+                    arcs[i][j] = (i != j && rand.nextInt(3) > 0);
+                    if (!arcs[i][j] && i != j) next[i].removeValue(j);
+                }
+            }
+
+            int expected = circuits(arcs, new int[n], new boolean[n], 0, 1);
+            int count = 0;
+            try {
+                solver.addConstraint(math.circuit(next));
+                boolean found = solver.solve(next);
+                while (found) {
+                    count++;
+                    found = solver.nextSolution();
+                }
+            }
+            catch(PropagationFailureException pfe) {
+                assertEquals("trial " + trial + " failed with a circuit", 0, expected);
+            }
+            assertEquals("trial " + trial, expected, count);
+        }
+    }
+
+    /**
+     * Counts the circuits starting at position 0 that use the allowed arcs,
+     * extending a path of the given length ending at a position
+     */
+    private int circuits(boolean arcs[][], int path[], boolean used[], int last, int length) {
+        used[last] = true;
+        int count = 0;
+        if (length == path.length) {
+            if (arcs[last][0]) count++;
+        }
+        else {
+            for (int j=0; j<path.length; j++) {
+                if (!used[j] && arcs[last][j])
+                    count += circuits(arcs, path, used, j, length + 1);
+            }
+        }
+        used[last] = false;
+        return count;
+    }
+}
@@ -0,0 +1,203 @@
+package jopt.csp.test.constraint.global;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Tests cumulative and disjunctive resource constraints
+ */
+public class CumulativeConstraintTest extends GlobalConstraintTestCase {
+
+    public void testDisjunctiveEdgeFinding() throws PropagationFailureException {
+        // tasks 0 and 1 fill [0, 4) leaving task 2 to run after both
+        CspIntVariable s[] = intVars("s", new int[]{0, 0, 0}, new int[]{2, 2, 8});
+        solver.addConstraint(math.disjunctive(s, new int[]{2, 2, 2}));
+
+        assertEquals("s2 min", 4, s[2].getMin());
+        assertEquals("s0 min", 0, s[0].getMin());
+        assertEquals("s1 max", 2, s[1].getMax());
+    }
+
+    public void testDisjunctiveDetectablePrecedence() throws PropagationFailureException {
+        // task 0 must start before task 1 can end, so task 1 follows it
+        CspIntVariable s[] = intVars("s", new int[]{0, 1}, new int[]{1, 10});
+        solver.addConstraint(math.disjunctive(s, new int[]{3, 2}));
+
+        assertEquals("s1 min", 3, s[1].getMin());
+        assertEquals("s0 max", 1, s[0].getMax());
+    }
+
+    public void testDisjunctiveNotLast() throws PropagationFailureException {
+        // the other tasks cannot both complete before task 0 must start, so it
+        // must end by the latest start of one of them
+        CspIntVariable s[] = intVars("s", new int[]{0, 1, 1}, new int[]{4, 4, 4});
+        solver.addConstraint(math.disjunctive(s, new int[]{2, 2, 2}));
+
+        assertTrue("s0 max", s[0].getMax() <= 2);
+    }
+
+    public void testDisjunctiveOverloadFails() {
+        CspIntVariable s[] = intVars("s", new int[]{0, 0, 0}, new int[]{3, 3, 3});
+        try {
+            solver.addConstraint(math.disjunctive(s, new int[]{2, 2, 2}));
+            fail("six units of work cannot fit before time five");
+        }
+        catch(PropagationFailureException expected) {}
+    }
+
+    public void testCumulativeTimeTable() throws PropagationFailureException {
+        // task 0 must run over [2, 4) using the whole capacity
+        CspIntVariable s[] = intVars("s", new int[]{1, 1}, new int[]{2, 10});
+        solver.addConstraint(math.cumulative(s, new int[]{3, 2}, new int[]{2, 1}, 2));
+
+        assertEquals("s1 min", 4, s[1].getMin());
+    }
+
+    public void testCumulativeEdgeFinding() throws PropagationFailureException {
+        // tasks 0 and 1 use all of [0, 4) at a capacity of two, so task 2
+        // cannot start before the energy left over allows
+        CspIntVariable s[] = intVars("s", new int[]{0, 0, 0}, new int[]{0, 0, 10});
+        solver.addConstraint(math.cumulative(s, new int[]{4, 4, 2}, new int[]{1, 1, 1}, 2));
+        assertEquals("s2 min", 4, s[2].getMin());
+
+        // no compulsory parts exist here, so only edge finding sees that task
+        // 2 must follow the others
+        solver = CspSolver.createSolver();
+        varFactory = solver.getVarFactory();
+        math = varFactory.getMath();
+        s = intVars("s", new int[]{0, 0, 0}, new int[]{2, 2, 10});
+        solver.addConstraint(math.cumulative(s, new int[]{2, 2, 1}, new int[]{2, 2, 1}, 2));
+        assertEquals("s2 min", 4, s[2].getMin());
+    }
+
+    public void testCumulativeOverloadFails() {
+        CspIntVariable s[] = intVars("s", new int[]{0, 0, 0}, new int[]{2, 2, 2});
+        try {
+            solver.addConstraint(math.cumulative(s, new int[]{3, 3, 3}, new int[]{1, 1, 1}, 2));
+            fail("eighteen units of energy cannot fit in ten");
+        }
+        catch(PropagationFailureException expected) {}
+    }
+
+    public void testDemandAboveCapacityFails() {
+        CspIntVariable s[] = intVars("s", new int[]{0, 0}, new int[]{5, 5});
+        try {
+            solver.addConstraint(math.cumulative(s, new int[]{1, 1}, new int[]{1, 3}, 2));
+            fail("task needs more than the capacity");
+        }
+        catch(PropagationFailureException expected) {}
+    }
+
+    public void testSolutionCount() throws PropagationFailureException {
+        // three tasks of length two in [0, 6) on a unary resource can only be
+        // placed back to back in any order
+        CspIntVariable s[] = intVars("s", new int[]{0, 0, 0}, new int[]{4, 4, 4});
+        solver.addConstraint(math.disjunctive(s, new int[]{2, 2, 2}));
+
+        int count = 0;
+        boolean found = solver.solve(s);
+        while (found) {
+            count++;
+            found = solver.nextSolution();
+        }
+        assertEquals(6, count);
+    }
+
+    public void testFilteringKeepsAllSolutions() throws PropagationFailureException {
+        checkFilteringKeepsAllSolutions(false);
+    }
+
+    public void testFilteringKeepsAllSolutionsOnTrail() throws PropagationFailureException {
+        checkFilteringKeepsAllSolutions(true);
+    }
+
+    /**
+     * Compares filtering and solutions of random problems with those found
+     * by enumerating start times, with a solver whose choicepoint stack
+     * records changes as deltas or on a trail
+     */
+    private void checkFilteringKeepsAllSolutions(boolean trailing) throws PropagationFailureException {
+        Random rand = new Random(16);
+        for (int trial=0; trial<200; trial++) {
+            solver = CspSolver.createSolver(null, null, trailing);
+            varFactory = solver.getVarFactory();
+            math = varFactory.getMath();
+
+            int n = 4;
+            int capacity = 1 + rand.nextInt(3);
+            int min[] = new int[n];
+            int max[] = new int[n];
+            int duration[] = new int[n];
+            int demand[] = new int[n];
+            for (int i=0; i<n; i++) {
+                min[i] = rand.nextInt(4);
+                max[i] = min[i] + rand.nextInt(4);
+                duration[i] = 1 + rand.nextInt(3);
+                demand[i] = 1 + rand.nextInt(capacity);
+            }
+            CspIntVariable s[] = intVars("s", min, max);
+
+            boolean consistent = true;
+            try {
+                solver.addConstraint(math.cumulative(s, duration, demand, capacity));
+            }
+            catch(PropagationFailureException pfe) {
+                consistent = false;
+            }
+
+            // every start time used by a solution must remain and the
+            // constraint must only fail when there is no solution
+            int starts[] = new int[n];
+            boolean supported[][] = new boolean[n][8];
+            int expected = solutions(min, max, duration, demand, capacity, starts, 0, supported);
+            if (!consistent) {
+                assertEquals("trial " + trial + " failed with a solution", 0, expected);
+                continue;
+            }
+            for (int i=0; i<n; i++) {
+                for (int t=min[i]; t<=max[i]; t++) {
+                    if (supported[i][t])
+                        assertTrue("trial " + trial + " s" + i + " removed " + t, s[i].isInDomain(t));
+                }
+            }
+
+            int count = 0;
+            boolean found = solver.solve(s);
+            while (found) {
+                count++;
+                found = solver.nextSolution();
+            }
+            assertEquals("trial " + trial + " solutions", expected, count);
+        }
+    }
+
+    /**
+     * Counts the assignments of start times within the capacity, marking
+     * the start times of each task that are part of one
+     */
+    private int solutions(int min[], int max[], int duration[], int demand[], int capacity,
+            int starts[], int task, boolean supported[][])
+    {
+        if (task == starts.length) {
+            for (int t=0; t<16; t++) {
+                int used = 0;
+                for (int i=0; i<starts.length; i++)
+                    if (starts[i] <= t && t < starts[i] + duration[i]) used += demand[i];
+                if (used > capacity) return 0;
+            }
+            for (int i=0; i<starts.length; i++)
+                supported[i][starts[i]] = true;
+            return 1;
+        }
+
+        int count = 0;
+        for (int t=min[task]; t<=max[task]; t++) {
+            starts[task] = t;
+            count += solutions(min, max, duration, demand, capacity, starts, task + 1, supported);
+        }
+        return count;
+    }
+}
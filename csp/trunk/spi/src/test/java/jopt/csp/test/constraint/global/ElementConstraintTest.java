@@ -0,0 +1,203 @@
+package jopt.csp.test.constraint.global;
+
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspDoubleVariable;
+import jopt.csp.variable.CspGenericIndex;
+import jopt.csp.variable.CspGenericIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Tests element constraints
+ */
+public class ElementConstraintTest extends GlobalConstraintTestCase {
+
+    public void testResultReducedToValues() throws PropagationFailureException {
+        CspIntVariable idx = varFactory.intVar("idx", -5, 10);
+        CspIntVariable z = varFactory.intVar("z", 0, 20);
+        solver.addConstraint(math.element(new int[]{5, 3, 8, 3, 9}, idx, z));
+
+        assertEquals("idx min", 0, idx.getMin());
+        assertEquals("idx max", 4, idx.getMax());
+        assertEquals("z min", 3, z.getMin());
+        assertEquals("z max", 9, z.getMax());
+        assertEquals("z size", 4, z.getSize());
+        assertFalse("4 removed", z.isInDomain(4));
+    }
+
+    public void testResultChangesReduceIndex() throws PropagationFailureException {
+        CspIntVariable idx = varFactory.intVar("idx", 0, 4);
+        CspIntVariable z = varFactory.intVar("z", 0, 20);
+        solver.addConstraint(math.element(new int[]{5, 3, 8, 3, 9}, idx, z));
+
+        z.removeValue(3);
+        assertTrue(solver.propagate());
+        assertFalse("1 removed", idx.isInDomain(1));
+        assertFalse("3 removed", idx.isInDomain(3));
+        assertEquals("idx size", 3, idx.getSize());
+
+        z.setMax(8);
+        assertTrue(solver.propagate());
+        assertEquals("idx max", 2, idx.getMax());
+    }
+
+    public void testIndexChangesReduceResult() throws PropagationFailureException {
+        CspIntVariable idx = varFactory.intVar("idx", 0, 4);
+        CspIntVariable z = varFactory.intVar("z", 0, 20);
+        solver.addConstraint(math.element(new int[]{5, 3, 8, 3, 9}, idx, z));
+
+        // 3 is still supported by position 3
+        idx.removeValue(1);
+        assertTrue(solver.propagate());
+        assertTrue("3 supported", z.isInDomain(3));
+
+        idx.removeValue(3);
+        assertTrue(solver.propagate());
+        assertFalse("3 removed", z.isInDomain(3));
+        assertEquals("z min", 5, z.getMin());
+
+        idx.setValue(2);
+        assertTrue(solver.propagate());
+        assertTrue("z bound", z.isBound());
+        assertEquals("z", 8, z.getMin());
+    }
+
+    public void testNoElementMatches() {
+        CspIntVariable idx = varFactory.intVar("idx", 0, 4);
+        CspIntVariable z = varFactory.intVar("z", 10, 20);
+        try {
+            solver.addConstraint(math.element(new int[]{5, 3, 8, 3, 9}, idx, z));
+            fail("constraint should not be satisfiable");
+        }
+        catch (PropagationFailureException expected) {}
+    }
+
+    public void testSearchRestoresSupports() throws PropagationFailureException {
+        int values[] = new int[]{2, 7, 4, 9, 4, 1, 7};
+        CspIntVariable idx = varFactory.intVar("idx", 0, values.length - 1);
+        CspIntVariable y = varFactory.intVar("y", 0, 5);
+        CspIntVariable z = varFactory.intVar("z", 0, 20);
+        solver.addConstraint(math.element(values, idx, z));
+        solver.addConstraint(z.add(y).leq(9));
+
+        // count solutions directly
+        int expected = 0;
+        for (int i=0; i<values.length; i++)
+            for (int j=0; j<=5; j++)
+                if (values[i] + j <= 9) expected++;
+
+        int count = 0;
+        boolean found = solver.solve(new CspIntVariable[]{y, idx});
+        while (found) {
+            assertTrue("z bound", z.isBound());
+            assertEquals("z", values[idx.getMin()], z.getMin());
+            count++;
+            found = solver.nextSolution();
+        }
+        assertEquals("solutions", expected, count);
+    }
+
+    public void testFirstPropagationUndoneByPop() throws PropagationFailureException {
+        AC5 alg = new AC5();
+        ConstraintStore store = new ConstraintStore(alg, false);
+        ChoicePointStack cps = store.getChoicePointStack();
+        CspVariableFactory factory = alg.getVarFactory();
+        CspIntVariable idx = factory.intVar("idx", -5, 10);
+        CspIntVariable z = factory.intVar("z", 0, 20);
+        store.addConstraint(factory.getMath().element(new int[]{5, 3, 8, 3, 9}, idx, z));
+
+        // first propagation of arc is undone along with the choicepoint
+        cps.push();
+        store.propagate();
+        assertFalse("4 removed", z.isInDomain(4));
+        cps.pop();
+        assertTrue("4 restored", z.isInDomain(4));
+        assertEquals("idx min restored", -5, idx.getMin());
+
+        z.setMax(19);
+        store.propagate();
+        assertEquals("idx min", 0, idx.getMin());
+        assertEquals("idx max", 4, idx.getMax());
+        assertEquals("z min", 3, z.getMin());
+        assertEquals("z max", 9, z.getMax());
+        assertFalse("4 removed", z.isInDomain(4));
+        assertFalse("6 removed", z.isInDomain(6));
+        assertFalse("7 removed", z.isInDomain(7));
+    }
+
+    public void testLongValues() throws PropagationFailureException {
+        CspIntVariable idx = varFactory.intVar("idx", 0, 2);
+        CspLongVariable z = varFactory.longVar("z", 0, 100000000000L);
+        solver.addConstraint(math.element(new long[]{30000000000L, 10000000000L, 20000000000L}, idx, z));
+
+        assertEquals("z min", 10000000000L, z.getMin());
+        assertEquals("z max", 30000000000L, z.getMax());
+
+        z.setMin(15000000000L);
+        assertTrue(solver.propagate());
+        assertFalse("1 removed", idx.isInDomain(1));
+    }
+
+    public void testDoubleValues() throws PropagationFailureException {
+        CspIntVariable idx = varFactory.intVar("idx", 0, 2);
+        CspDoubleVariable z = varFactory.doubleVar("z", 0, 10);
+        solver.addConstraint(math.element(new double[]{1.5, 2.5, 0.5}, idx, z));
+
+        assertEquals("z min", 0.5, z.getMin(), 0.0001);
+        assertEquals("z max", 2.5, z.getMax(), 0.0001);
+
+        z.setMax(2);
+        assertTrue(solver.propagate());
+        assertEquals("idx size", 2, idx.getSize());
+        assertFalse("1 removed", idx.isInDomain(1));
+        assertEquals("z max", 1.5, z.getMax(), 0.0001);
+    }
+
+    public void testVariableArray() throws PropagationFailureException {
+        CspIntVariable x[] = new CspIntVariable[] {
+            varFactory.intVar("x0", 0, 3),
+            varFactory.intVar("x1", 5, 8),
+            varFactory.intVar("x2", 10, 12)
+        };
+        CspIntVariable idx = varFactory.intVar("idx", 0, 2);
+        CspIntVariable z = varFactory.intVar("z", 0, 20);
+        solver.addConstraint(math.element(x, idx, z));
+
+        assertEquals("z min", 0, z.getMin());
+        assertEquals("z max", 12, z.getMax());
+
+        z.setRange(6, 7);
+        assertTrue(solver.propagate());
+        assertTrue("idx bound", idx.isBound());
+        assertEquals("idx", 1, idx.getMin());
+        assertEquals("x1 min", 6, x[1].getMin());
+        assertEquals("x1 max", 7, x[1].getMax());
+
+        x[1].setValue(7);
+        assertTrue(solver.propagate());
+        assertTrue("z bound", z.isBound());
+        assertEquals("z", 7, z.getMin());
+    }
+
+    public void testGenericArray() throws PropagationFailureException {
+        CspGenericIndex i = varFactory.genericIndex("i", 3);
+        CspIntVariable x[] = new CspIntVariable[] {
+            varFactory.intVar("x0", 0, 3),
+            varFactory.intVar("x1", 5, 8),
+            varFactory.intVar("x2", 10, 12)
+        };
+        CspGenericIntExpr gx = varFactory.genericInt("gx", i, x);
+        CspIntVariable idx = varFactory.intVar("idx", 0, 5);
+        CspIntVariable z = varFactory.intVar("z", 4, 9);
+        solver.addConstraint(math.element(gx, idx, z));
+
+        assertTrue("idx bound", idx.isBound());
+        assertEquals("idx", 1, idx.getMin());
+        assertEquals("z min", 5, z.getMin());
+        assertEquals("z max", 8, z.getMax());
+    }
+}
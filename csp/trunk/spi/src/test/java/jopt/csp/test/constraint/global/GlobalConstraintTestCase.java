@@ -0,0 +1,49 @@
+package jopt.csp.test.constraint.global;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import junit.framework.TestCase;
+
+/**
+ * Base class for tests of global constraints posted through the math of a
+ * new solver created for each test
+ */
+public abstract class GlobalConstraintTestCase extends TestCase {
+    protected CspSolver solver;
+    protected CspVariableFactory varFactory;
+    protected CspMath math;
+
+    public void setUp() {
+        solver = CspSolver.createSolver();
+        varFactory = solver.getVarFactory();
+        math = varFactory.getMath();
+    }
+
+    public void tearDown() {
+        solver = null;
+        varFactory = null;
+        math = null;
+    }
+
+    /**
+     * Creates named variables ranging from min to max
+     */
+    protected CspIntVariable[] intVars(String name, int count, int min, int max) {
+        CspIntVariable x[] = new CspIntVariable[count];
+        for (int i=0; i<count; i++)
+            x[i] = varFactory.intVar(name + i, min, max);
+        return x;
+    }
+
+    /**
+     * Creates named variables with the given bounds
+     */
+    protected CspIntVariable[] intVars(String name, int min[], int max[]) {
+        CspIntVariable x[] = new CspIntVariable[min.length];
+        for (int i=0; i<min.length; i++)
+            x[i] = varFactory.intVar(name + i, min[i], max[i]);
+        return x;
+    }
+}
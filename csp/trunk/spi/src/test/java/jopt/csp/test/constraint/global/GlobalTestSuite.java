@@ -27,6 +27,13 @@ public class GlobalTestSuite extends TestCase {
         suite.addTestSuite(GlobalCardinalityConstraintTest.class);
         suite.addTestSuite(NumAllDifferentConstraintTest.class);
         suite.addTestSuite(GlobalCardinalityCountConstraintTest.class);
+        suite.addTestSuite(ScalarProductConstraintTest.class);
+        suite.addTestSuite(ElementConstraintTest.class);
+        suite.addTestSuite(TableConstraintTest.class);
+        suite.addTestSuite(IntGlobalCardinalityConstraintTest.class);
+        suite.addTestSuite(CumulativeConstraintTest.class);
+        suite.addTestSuite(CircuitConstraintTest.class);
+        suite.addTestSuite(RegularConstraintTest.class);
         
         return suite;
     }
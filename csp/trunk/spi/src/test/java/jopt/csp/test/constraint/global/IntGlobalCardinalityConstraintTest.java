@@ -0,0 +1,182 @@
+package jopt.csp.test.constraint.global;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Tests global cardinality constraints over integer variables
+ */
+public class IntGlobalCardinalityConstraintTest extends GlobalConstraintTestCase {
+
+    /**
+     * Returns the values as numbers
+     */
+    private static Number[] numbers(int vals[]) {
+        Number nums[] = new Number[vals.length];
+        for (int i=0; i<vals.length; i++)
+            nums[i] = new Integer(vals[i]);
+        return nums;
+    }
+
+    public void testUpperBoundsRemoveSaturatedValues() throws PropagationFailureException {
+        CspIntVariable x[] = intVars("x", 4, 1, 3);
+        x[0].setMax(2);
+        x[1].setMax(2);
+        x[2].setMax(2);
+        solver.addConstraint(math.globalCardinality(x, numbers(new int[]{1, 2, 3}), new int[]{0, 0, 0}, new int[]{1, 2, 4}));
+
+        assertTrue("x3 bound", x[3].isBound());
+        assertEquals("x3 value", 3, x[3].getMin());
+    }
+
+    public void testLowerBoundsForceValues() throws PropagationFailureException {
+        CspIntVariable x[] = intVars("x", 4, 1, 3);
+        x[0].setMax(2);
+        solver.addConstraint(math.globalCardinality(x, numbers(new int[]{1, 2, 3}), new int[]{0, 0, 3}, new int[]{4, 4, 4}));
+
+        for (int i=1; i<4; i++)
+            assertEquals("x" + i, 3, x[i].getMin());
+        assertEquals("x0 min", 1, x[0].getMin());
+        assertEquals("x0 max", 2, x[0].getMax());
+    }
+
+    public void testLowerBoundsExceedingVariablesFail() {
+        CspIntVariable x[] = intVars("x", 3, 1, 2);
+        try {
+            solver.addConstraint(math.globalCardinality(x, numbers(new int[]{1, 2}), new int[]{2, 2}, new int[]{3, 3}));
+            fail("three variables cannot take four values");
+        }
+        catch(PropagationFailureException expected) {}
+    }
+
+    public void testUnlistedValuesAreUnconstrained() throws PropagationFailureException {
+        CspIntVariable x[] = intVars("x", 3, 0, 5);
+        solver.addConstraint(math.globalCardinality(x, numbers(new int[]{1, 4}), new int[]{0, 0}, new int[]{0, 3}));
+
+        for (int i=0; i<x.length; i++) {
+            assertFalse("x" + i + " has 1", x[i].isInDomain(1));
+            assertEquals("x" + i + " size", 5, x[i].getSize());
+        }
+
+        // remaining variables must leave the unlisted values once the
+        // last variable is needed for a lower bound
+        CspIntVariable y[] = intVars("y", 3, 0, 5);
+        y[0].setValue(2);
+        y[1].setValue(3);
+        solver.addConstraint(math.globalCardinality(y, numbers(new int[]{4}), new int[]{1}, new int[]{3}));
+        assertTrue("y2 bound", y[2].isBound());
+        assertEquals("y2 value", 4, y[2].getMin());
+    }
+
+    public void testCountsLimitedByTotal() throws PropagationFailureException {
+        CspIntVariable x[] = intVars("x", 6, 0, 5);
+        int mins[] = {2, 0, 2, 0, 0, 0};
+        int maxs[] = {6, 2, 5, 3, 2, 3};
+        CspIntVariable count[] = new CspIntVariable[6];
+        for (int i=0; i<count.length; i++)
+            count[i] = varFactory.intVar("count" + i, mins[i], maxs[i]);
+        solver.addConstraint(math.globalCardCount(x, numbers(new int[]{0, 1, 2, 3, 4, 5}), count));
+
+        // only two variables remain once the minimum counts are met
+        for (int i=0; i<count.length; i++)
+            assertEquals("count" + i, count[i].getMin() + 2, count[i].getMax());
+
+        x[0].setValue(3);
+        x[1].setValue(3);
+        assertTrue(solver.propagate());
+        assertEquals("count3 min", 2, count[3].getMin());
+        for (int i=2; i<x.length; i++)
+            assertFalse("x" + i + " has 3", x[i].isInDomain(3));
+    }
+
+    public void testSolutionCount() throws PropagationFailureException {
+        // six variables taking each of three values exactly twice
+        CspIntVariable x[] = intVars("x", 6, 1, 3);
+        solver.addConstraint(math.globalCardinality(x, numbers(new int[]{1, 2, 3}), new int[]{2, 2, 2}, new int[]{2, 2, 2}));
+
+        int count = 0;
+        boolean found = solver.solve(x);
+        while (found) {
+            count++;
+            found = solver.nextSolution();
+        }
+        assertEquals(90, count);
+    }
+
+    public void testDomainConsistencyMatchesSupports() throws PropagationFailureException {
+        Random rand = new Random(9);
+        for (int trial=0; trial<100; trial++) {
+            solver = CspSolver.createSolver();
+            varFactory = solver.getVarFactory();
+            math = varFactory.getMath();
+
+            int n = 5;
+            int values = 5;
+            boolean domains[][] = new boolean[n][values];
+            CspIntVariable x[] = intVars("x", n, 0, values - 1);
+            for (int i=0; i<n; i++) {
+                int kept = rand.nextInt(values);
+                for (int val=0; val<values; val++) {
+                    domains[i][val] = (val == kept || rand.nextInt(2) == 0);
+                    if (!domains[i][val]) x[i].removeValue(val);
+                }
+            }
+
+            // constrain the first values only
+            int constrained = 3;
+            int vals[] = new int[constrained];
+            int lb[] = new int[constrained];
+            int ub[] = new int[constrained];
+            for (int j=0; j<constrained; j++) {
+                vals[j] = j;
+                lb[j] = rand.nextInt(3);
+                ub[j] = lb[j] + rand.nextInt(2);
+            }
+
+            boolean consistent = true;
+            try {
+                solver.addConstraint(math.globalCardinality(x, numbers(vals), lb, ub));
+            }
+            catch(PropagationFailureException pfe) {
+                consistent = false;
+            }
+
+            // every remaining value must be part of a solution and every removed
+            // value must not
+            boolean anySupported = false;
+            for (int i=0; i<n; i++) {
+                for (int val=0; val<values; val++) {
+                    if (!domains[i][val]) continue;
+                    boolean supported = hasSupport(domains, lb, ub, i, val, 0, new int[values]);
+                    anySupported |= supported;
+                    if (consistent)
+                        assertEquals("trial " + trial + " x" + i + " value " + val, supported, x[i].isInDomain(val));
+                }
+            }
+            if (!consistent) assertFalse("trial " + trial + " failed with a solution", anySupported);
+        }
+    }
+
+    /**
+     * Returns true if variable i can take a value in an assignment meeting
+     * the bounds of the constrained values
+     */
+    private boolean hasSupport(boolean domains[][], int lb[], int ub[], int i, int val, int var, int counts[]) {
+        if (var == domains.length) {
+            for (int j=0; j<lb.length; j++)
+                if (counts[j] < lb[j] || counts[j] > ub[j]) return false;
+            return true;
+        }
+        for (int other=0; other<counts.length; other++) {
+            if (!domains[var][other] || (var == i && other != val)) continue;
+            counts[other]++;
+            boolean found = hasSupport(domains, lb, ub, i, val, var + 1, counts);
+            counts[other]--;
+            if (found) return true;
+        }
+        return false;
+    }
+}
@@ -1,13 +1,20 @@
 package jopt.csp.test.constraint.global;
 
+import java.util.Random;
+
 import jopt.csp.CspSolver;
+import jopt.csp.spi.AC5;
 import jopt.csp.spi.arcalgorithm.constraint.num.global.NumAllDiffConstraint;
 import jopt.csp.spi.arcalgorithm.domain.IntSparseDomain;
 import jopt.csp.spi.arcalgorithm.graph.arc.global.GenericNumAllDiffArc;
 import jopt.csp.spi.arcalgorithm.graph.node.IntNode;
 import jopt.csp.spi.arcalgorithm.variable.IntVariable;
 import jopt.csp.util.IntSparseSet;
+import jopt.csp.variable.CspAlgorithmStrength;
 import jopt.csp.variable.CspConstraint;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
 import jopt.csp.variable.CspVariableFactory;
 import jopt.csp.variable.PropagationFailureException;
 import junit.framework.TestCase;
@@ -199,5 +206,125 @@ public class NumAllDifferentConstraintTest extends TestCase {
 		}
 	}
 
+	public void testBoundsHallInterval() {
+	    try {
+	        CspConstraint constraint = new NumAllDiffConstraint(new IntVariable[]{a1, a2, a3});
+	        solver.addConstraint(constraint);
+	        a1.setRange(1, 2);
+	        a2.setRange(1, 2);
+	        a3.setRange(1, 4);
+	        assertTrue(solver.propagate());
+	        assertEquals(3, a3.getMin());
+	        assertEquals(4, a3.getMax());
+	    }
+	    catch(PropagationFailureException pfe) {
+	        fail();
+	    }
+	}
+
+	public void testPigeonholeFailsAtArcConsistency() {
+	    solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+	    IntVariable x[] = new IntVariable[4];
+	    for (int i=0; i<x.length; i++)
+	        x[i] = new IntVariable("x" + i, 0, 2);
+	    try {
+	        solver.addConstraint(new NumAllDiffConstraint(x));
+	        fail("four nodes cannot take three values");
+	    }
+	    catch(PropagationFailureException expected) {}
+	}
+
+	public void testArcConsistencyMatchesSupports() throws PropagationFailureException {
+	    Random rand = new Random(5);
+	    for (int trial=0; trial<50; trial++) {
+	        solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+	        int domains[][] = new int[5][];
+	        IntVariable x[] = new IntVariable[domains.length];
+	        for (int i=0; i<x.length; i++) {
+	            IntSparseSet set = new IntSparseSet();
+	            for (int val=0; val<7; val++)
+	                if (rand.nextInt(3) == 0) set.add(val);
+	            set.add(rand.nextInt(7));
+	            domains[i] = new int[set.size()];
+	            int k = 0;
+	            for (int val=0; val<7; val++)
+	                if (set.contains(val)) domains[i][k++] = val;
+	            x[i] = new IntVariable("x" + i, set);
+	        }
 
+	        boolean consistent = true;
+	        try {
+	            solver.addConstraint(new NumAllDiffConstraint(x));
+	        }
+	        catch(PropagationFailureException pfe) {
+	            consistent = false;
+	        }
+
+	        // every remaining value must be part of an assignment of different values
+	        // and every removed value must not
+	        boolean anySupported = false;
+	        for (int i=0; i<x.length; i++) {
+	            for (int k=0; k<domains[i].length; k++) {
+	                int val = domains[i][k];
+	                boolean supported = hasSupport(domains, i, val, 0, new boolean[7]);
+	                anySupported |= supported;
+	                if (consistent)
+	                    assertEquals("trial " + trial + " x" + i + " value " + val, supported, x[i].isInDomain(val));
+	            }
+	        }
+	        if (!consistent) assertFalse("trial " + trial + " failed with a solution", anySupported);
+	    }
+	}
+
+	/**
+	 * Returns true if node i can take a value while every node takes a different value
+	 */
+	private boolean hasSupport(int domains[][], int i, int val, int node, boolean used[]) {
+	    if (node == domains.length) return true;
+	    if (node == i) {
+	        if (used[val]) return false;
+	        used[val] = true;
+	        boolean found = hasSupport(domains, i, val, node + 1, used);
+	        used[val] = false;
+	        return found;
+	    }
+	    for (int k=0; k<domains[node].length; k++) {
+	        int other = domains[node][k];
+	        if (!used[other] && (other != val || node > i)) {
+	            used[other] = true;
+	            boolean found = hasSupport(domains, i, val, node + 1, used);
+	            used[other] = false;
+	            if (found) return true;
+	        }
+	    }
+	    return false;
+	}
+
+	public void testQueenSolutionsAtEachStrength() throws PropagationFailureException {
+	    int strengths[] = {CspAlgorithmStrength.BOUNDS_CONSISTENCY, CspAlgorithmStrength.ARC_CONSISTENCY};
+	    for (int s=0; s<strengths.length; s++) {
+	        solver = CspSolver.createSolver(new AC5(strengths[s]));
+	        CspVariableFactory factory = solver.getVarFactory();
+	        CspIntVariable q[] = new CspIntVariable[8];
+	        CspIntExpr up[] = new CspIntExpr[8];
+	        CspIntExpr down[] = new CspIntExpr[8];
+	        for (int i=0; i<q.length; i++) {
+	            q[i] = factory.intVar("q" + i, 0, 7);
+	            up[i] = q[i].add(i);
+	            down[i] = q[i].subtract(i);
+	        }
+	        CspMath math = factory.getMath();
+	        solver.addConstraint(math.allDifferent(q));
+	        solver.addConstraint(math.allDifferent(up));
+	        solver.addConstraint(math.allDifferent(down));
+
+	        int count = 0;
+	        boolean found = solver.solve(q);
+	        while (found) {
+	            count++;
+	            found = solver.nextSolution();
+	        }
+	        assertEquals("solutions at strength " + strengths[s], 92, count);
+	    }
+	}
 }
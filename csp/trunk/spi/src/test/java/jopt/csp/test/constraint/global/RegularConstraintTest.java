@@ -0,0 +1,166 @@
+package jopt.csp.test.constraint.global;
+
+import java.util.Random;
+
+import jopt.csp.CspSolver;
+import jopt.csp.util.Automaton;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Tests regular constraints over sequences of integer variables
+ */
+public class RegularConstraintTest extends GlobalConstraintTestCase {
+
+    /**
+     * Returns an automaton over 0 for a day off and 1 for a night shift
+     * allowing at most a number of consecutive night shifts
+     */
+    private static Automaton maxNights(int nights) {
+        Automaton dfa = new Automaton(nights + 1, 0);
+        for (int q=0; q<=nights; q++) {
+            dfa.addTransition(q, 0, 0);
+            if (q < nights) dfa.addTransition(q, 1, q + 1);
+            dfa.setAccepting(q);
+        }
+        return dfa;
+    }
+
+    public void testAutomaton() {
+        Automaton dfa = maxNights(2);
+        assertTrue(dfa.accepts(new int[]{1, 1, 0, 1, 1}));
+        assertFalse(dfa.accepts(new int[]{0, 1, 1, 1}));
+        assertFalse("value without transition", dfa.accepts(new int[]{2}));
+        assertEquals(2, dfa.getNextState(1, 1));
+        assertEquals(-1, dfa.getNextState(2, 1));
+
+        dfa.addTransition(0, 0, 0);
+        try {
+            dfa.addTransition(0, 0, 1);
+            fail("automaton must be deterministic");
+        }
+        catch(IllegalArgumentException expected) {}
+    }
+
+    public void testConsecutiveValuesLimited() throws PropagationFailureException {
+        CspIntVariable x[] = intVars("x", 6, 0, 1);
+        solver.addConstraint(math.regular(x, maxNights(2)));
+
+        x[1].setValue(1);
+        x[2].setValue(1);
+        assertTrue(solver.propagate());
+        assertEquals("x3", 0, x[3].getMax());
+        assertEquals("x0", 0, x[0].getMax());
+        assertEquals("x4", 1, x[4].getMax());
+    }
+
+    public void testUnreadValuesRemoved() throws PropagationFailureException {
+        CspIntVariable x[] = intVars("x", 3, -3, 3);
+        solver.addConstraint(math.regular(x, maxNights(1)));
+
+        for (int i=0; i<x.length; i++) {
+            assertEquals("x" + i + " min", 0, x[i].getMin());
+            assertEquals("x" + i + " max", 1, x[i].getMax());
+        }
+    }
+
+    public void testNoAcceptedSequenceFails() throws PropagationFailureException {
+        // sequence must end in a day off after a night shift
+        Automaton dfa = new Automaton(3, 0);
+        dfa.addTransition(0, 0, 0);
+        dfa.addTransition(0, 1, 1);
+        dfa.addTransition(1, 0, 2);
+        dfa.addTransition(2, 0, 2);
+        dfa.setAccepting(2);
+
+        CspIntVariable x[] = intVars("x", 4, 0, 1);
+        solver.addConstraint(math.regular(x, dfa));
+        assertEquals("x3", 0, x[3].getMax());
+
+        try {
+            x[3].setValue(1);
+            assertFalse(solver.propagate());
+        }
+        catch(PropagationFailureException expected) {}
+    }
+
+    public void testDomainConsistencyMatchesSupports() throws PropagationFailureException {
+        Random rand = new Random(18);
+        for (int trial=0; trial<100; trial++) {
+            solver = CspSolver.createSolver();
+            varFactory = solver.getVarFactory();
+            math = varFactory.getMath();
+
+            int states = 4;
+            int values = 3;
+            Automaton dfa = new Automaton(states, 0);
+            for (int q=0; q<states; q++) {
+                for (int val=0; val<values; val++)
+                    if (rand.nextInt(3) > 0) dfa.addTransition(q, val, rand.nextInt(states));
+                if (rand.nextInt(2) == 0) dfa.setAccepting(q);
+            }
+
+            int n = 5;
+            boolean domains[][] = new boolean[n][values];
+            CspIntVariable x[] = intVars("x", n, 0, values - 1);
+            for (int i=0; i<n; i++) {
+                int kept = rand.nextInt(values);
+                for (int val=0; val<values; val++) {
+                    domains[i][val] = (val == kept || rand.nextInt(4) > 0);
+                    if (!domains[i][val]) x[i].removeValue(val);
+                }
+            }
+
+            boolean consistent = true;
+            try {
+                solver.addConstraint(math.regular(x, dfa));
+            }
+            catch(PropagationFailureException pfe) {
+                consistent = false;
+            }
+
+            // every remaining value must be part of an accepted sequence and
+            // every removed value must not
+            boolean supported[][] = new boolean[n][values];
+            int expected = sequences(dfa, domains, new int[n], 0, supported);
+            if (!consistent) {
+                assertEquals("trial " + trial + " failed with a solution", 0, expected);
+                continue;
+            }
+            for (int i=0; i<n; i++) {
+                for (int val=0; val<values; val++)
+                    assertEquals("trial " + trial + " x" + i + " value " + val, supported[i][val], x[i].isInDomain(val));
+            }
+
+            // search must find each accepted sequence after backtracking
+            int count = 0;
+            boolean found = solver.solve(x);
+            while (found) {
+                count++;
+                found = solver.nextSolution();
+            }
+            assertEquals("trial " + trial + " solutions", expected, count);
+        }
+    }
+
+    /**
+     * Counts the sequences of values in the domains accepted by an automaton,
+     * marking the values that are part of one
+     */
+    private int sequences(Automaton dfa, boolean domains[][], int seq[], int i, boolean supported[][]) {
+        if (i == seq.length) {
+            if (!dfa.accepts(seq)) return 0;
+            for (int j=0; j<seq.length; j++)
+                supported[j][seq[j]] = true;
+            return 1;
+        }
+
+        int count = 0;
+        for (int val=0; val<domains[i].length; val++) {
+            if (!domains[i][val]) continue;
+            seq[i] = val;
+            count += sequences(dfa, domains, seq, i + 1, supported);
+        }
+        return count;
+    }
+}
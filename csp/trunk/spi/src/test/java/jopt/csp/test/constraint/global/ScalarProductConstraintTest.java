@@ -0,0 +1,211 @@
+package jopt.csp.test.constraint.global;
+
+import jopt.csp.CspSolver;
+import jopt.csp.variable.CspBooleanVariable;
+import jopt.csp.variable.CspConstraint;
+import jopt.csp.variable.CspDoubleVariable;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Tests scalar product constraints
+ */
+public class ScalarProductConstraintTest extends GlobalConstraintTestCase {
+
+    public void testLeqReducesMaximums() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 0, 10);
+        CspIntVariable z = varFactory.intVar("z", 0, 10);
+        solver.addConstraint(math.scalarProductLeq(new int[]{2, 3, 1}, new CspIntVariable[]{x, y, z}, 6));
+
+        assertEquals("x max", 3, x.getMax());
+        assertEquals("y max", 2, y.getMax());
+        assertEquals("z max", 6, z.getMax());
+
+        // raising the minimum of one term reduces the others
+        x.setMin(2);
+        assertTrue(solver.propagate());
+        assertEquals("y max", 0, y.getMax());
+        assertEquals("z max", 2, z.getMax());
+    }
+
+    public void testGeqWithNegativeCoefficient() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 0, 10);
+        solver.addConstraint(math.scalarProductGeq(new int[]{1, -2}, new CspIntVariable[]{x, y}, 4));
+
+        assertEquals("x min", 4, x.getMin());
+        assertEquals("y max", 3, y.getMax());
+
+        x.setMax(7);
+        assertTrue(solver.propagate());
+        assertEquals("y max", 1, y.getMax());
+    }
+
+    public void testEqBindsVariables() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 9);
+        CspIntVariable y = varFactory.intVar("y", 0, 9);
+        CspIntVariable z = varFactory.intVar("z", 0, 9);
+        solver.addConstraint(math.scalarProductEq(new int[]{1, 1, 1}, new CspIntVariable[]{x, y, z}, 25));
+
+        assertEquals("x min", 7, x.getMin());
+        z.setValue(9);
+        x.setValue(7);
+        assertTrue(solver.propagate());
+        assertTrue("y bound", y.isBound());
+        assertEquals("y", 9, y.getMin());
+    }
+
+    public void testUnsatisfiable() {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 0, 10);
+        try {
+            solver.addConstraint(math.scalarProductLeq(new int[]{1, 1}, new CspIntVariable[]{x, y}, -1));
+            fail("constraint should not be satisfiable");
+        }
+        catch (PropagationFailureException expected) {}
+    }
+
+    public void testRepeatedVariableCombinesCoefficients() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 0, 5);
+        solver.addConstraint(math.scalarProductEq(new int[]{1, 1, -1}, new CspIntVariable[]{x, x, y}, 0));
+
+        assertEquals("x max", 2, x.getMax());
+        assertEquals("y max", 4, y.getMax());
+    }
+
+    public void testSearchMatchesDecomposition() throws PropagationFailureException {
+        int coeffs[] = new int[]{3, -2, 5, 1, -4};
+        int expected = countSolutions(coeffs, false);
+        assertTrue("solutions exist", expected > 0);
+
+        setUp();
+        assertEquals("solutions", expected, countSolutions(coeffs, true));
+    }
+
+    public void testTrailingSearchMatchesDecomposition() throws PropagationFailureException {
+        int coeffs[] = new int[]{3, -2, 5, 1, -4};
+        int expected = countSolutions(coeffs, false);
+
+        useTrailingSolver();
+        assertEquals("solutions", expected, countSolutions(coeffs, true));
+    }
+
+    public void testTrailingDoubleSumRestoredOnPop() throws PropagationFailureException {
+        useTrailingSolver();
+        CspDoubleVariable x = varFactory.doubleVar("x", 0, 10);
+        CspDoubleVariable y = varFactory.doubleVar("y", 0, 10);
+        CspIntVariable z = varFactory.intVar("z", 0, 4);
+        solver.addConstraint(math.scalarProductLeq(new double[]{1, 1}, new CspDoubleVariable[]{x, y}, 12));
+        solver.addConstraint(x.eq(z.multiply(2)));
+
+        // each value of z reduces y before the change is rolled back
+        int count = 0;
+        boolean found = solver.solve(new CspIntVariable[]{z});
+        while (found) {
+            assertEquals("y max", Math.min(10, 12 - 2*z.getMin()), y.getMax(), 0.0001);
+            count++;
+            found = solver.nextSolution();
+        }
+        assertEquals("solutions", 5, count);
+    }
+
+    public void testLongVariables() throws PropagationFailureException {
+        CspLongVariable x = varFactory.longVar("x", 0, 10000000000L);
+        CspLongVariable y = varFactory.longVar("y", 0, 10000000000L);
+        solver.addConstraint(math.scalarProductLeq(new long[]{2, 5}, new CspLongVariable[]{x, y}, 10000000000L));
+
+        assertEquals("x max", 5000000000L, x.getMax());
+        assertEquals("y max", 2000000000L, y.getMax());
+    }
+
+    public void testDoubleVariables() throws PropagationFailureException {
+        CspDoubleVariable x = varFactory.doubleVar("x", 0, 10);
+        CspDoubleVariable y = varFactory.doubleVar("y", 0, 10);
+        solver.addConstraint(math.scalarProductEq(new double[]{0.5, 2}, new CspDoubleVariable[]{x, y}, 3));
+
+        assertEquals("y max", 1.5, y.getMax(), 0.0001);
+        y.setMax(1);
+        assertTrue(solver.propagate());
+        assertEquals("x min", 2, x.getMin(), 0.0001);
+    }
+
+    public void testSumRestoredOnPop() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 0, 10);
+        CspIntVariable z = varFactory.intVar("z", 0, 10);
+        CspConstraint constraint = math.scalarProductLeq(new int[]{1, 1, 1}, new CspIntVariable[]{x, y, z}, 12);
+        solver.addConstraint(constraint);
+
+        // solve repeatedly so the sums are changed and rolled back many times
+        assertTrue(solver.solve(new CspIntVariable[]{x, y, z}));
+        int count = 1;
+        while (solver.nextSolution()) {
+            assertTrue("sum", x.getMin() + y.getMin() + z.getMin() <= 12);
+            count++;
+        }
+
+        // number of non-negative solutions of x+y+z <= 12 with each at most 10
+        assertEquals("solutions", 443, count);
+    }
+
+    public void testOppositeThroughBoolean() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 5);
+        CspIntVariable y = varFactory.intVar("y", 0, 5);
+        CspConstraint leq = math.scalarProductLeq(new int[]{1, 1}, new CspIntVariable[]{x, y}, 3);
+        CspBooleanVariable b = varFactory.booleanVar("b", leq);
+        solver.addVariable(b);
+
+        // x + y >= 4 is enforced when constraint is false
+        b.setFalse();
+        x.setMax(1);
+        assertTrue(solver.propagate());
+        assertEquals("y min", 3, y.getMin());
+    }
+
+    /**
+     * Replaces the solver with one whose choicepoint stack records changes on a trail
+     */
+    private void useTrailingSolver() {
+        solver = CspSolver.createSolver(null, null, true);
+        varFactory = solver.getVarFactory();
+        math = varFactory.getMath();
+    }
+
+    /**
+     * Counts solutions of a linear equation over five variables using either a
+     * scalar product constraint or a sum built from expressions
+     */
+    private int countSolutions(int coeffs[], boolean scalarProduct) throws PropagationFailureException {
+        CspIntVariable x[] = new CspIntVariable[coeffs.length];
+        for (int i=0; i<x.length; i++)
+            x[i] = varFactory.intVar("x" + i, -3, 4);
+
+        if (scalarProduct) {
+            solver.addConstraint(math.scalarProductEq(coeffs, x, 2));
+        }
+        else {
+            CspIntExpr sum = x[0].multiply(coeffs[0]);
+            for (int i=1; i<x.length; i++)
+                sum = sum.add(x[i].multiply(coeffs[i]));
+            solver.addConstraint(sum.eq(2));
+        }
+
+        int count = 0;
+        boolean found = solver.solve(x);
+        while (found) {
+            int sum = 0;
+            for (int i=0; i<x.length; i++) {
+                assertTrue("bound", x[i].isBound());
+                sum += coeffs[i] * x[i].getMin();
+            }
+            assertEquals("sum", 2, sum);
+            count++;
+            found = solver.nextSolution();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,115 @@
+package jopt.csp.test.constraint.global;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.PropagationFailureException;
+
+/**
+ * Tests table constraints
+ */
+public class TableConstraintTest extends GlobalConstraintTestCase {
+
+    public void testDomainsReducedToColumns() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 0, 10);
+        int tuples[][] = new int[][] {{1, 2}, {1, 5}, {4, 2}, {7, 9}};
+        solver.addConstraint(math.table(new CspIntVariable[]{x, y}, tuples));
+
+        assertEquals("x min", 1, x.getMin());
+        assertEquals("x max", 7, x.getMax());
+        assertEquals("x size", 3, x.getSize());
+        assertEquals("y min", 2, y.getMin());
+        assertEquals("y max", 9, y.getMax());
+        assertEquals("y size", 3, y.getSize());
+    }
+
+    public void testUnsupportedValuesRemoved() throws PropagationFailureException {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 0, 10);
+        CspIntVariable z = varFactory.intVar("z", 0, 10);
+        int tuples[][] = new int[][] {{1, 2, 3}, {1, 5, 6}, {4, 2, 6}, {7, 9, 3}};
+        solver.addConstraint(math.table(new CspIntVariable[]{x, y, z}, tuples));
+
+        // only rows {1, 5, 6} and {4, 2, 6} remain
+        z.removeValue(3);
+        assertTrue(solver.propagate());
+        assertFalse("x 7 removed", x.isInDomain(7));
+        assertFalse("y 9 removed", y.isInDomain(9));
+        assertEquals("x size", 2, x.getSize());
+
+        x.setValue(4);
+        assertTrue(solver.propagate());
+        assertTrue("y bound", y.isBound());
+        assertEquals("y", 2, y.getMin());
+        assertTrue("z bound", z.isBound());
+        assertEquals("z", 6, z.getMin());
+    }
+
+    public void testNoRowMatches() {
+        CspIntVariable x = varFactory.intVar("x", 0, 10);
+        CspIntVariable y = varFactory.intVar("y", 3, 4);
+        int tuples[][] = new int[][] {{1, 2}, {1, 5}, {4, 2}};
+        try {
+            solver.addConstraint(math.table(new CspIntVariable[]{x, y}, tuples));
+            fail("constraint should not be satisfiable");
+        }
+        catch (PropagationFailureException expected) {}
+    }
+
+    public void testRowsSpanningWords() throws PropagationFailureException {
+        // 300 rows of {i, i % 7}, so x determines y and y supports rows in every word
+        CspIntVariable x = varFactory.intVar("x", 0, 299);
+        CspIntVariable y = varFactory.intVar("y", 0, 6);
+        int tuples[][] = new int[300][];
+        for (int i=0; i<tuples.length; i++)
+            tuples[i] = new int[]{i, i % 7};
+        solver.addConstraint(math.table(new CspIntVariable[]{x, y}, tuples));
+
+        x.setRange(100, 110);
+        assertTrue(solver.propagate());
+        assertEquals("y size", 7, y.getSize());
+
+        x.setRange(100, 104);
+        assertTrue(solver.propagate());
+        assertEquals("y min", 2, y.getMin());
+        assertEquals("y max", 6, y.getMax());
+
+        y.setValue(3);
+        assertTrue(solver.propagate());
+        assertTrue("x bound", x.isBound());
+        assertEquals("x", 101, x.getMin());
+    }
+
+    public void testSearchMatchesRows() throws PropagationFailureException {
+        Random rand = new Random(17);
+        int tuples[][] = new int[200][];
+        Set<String> rows = new HashSet<String>();
+        for (int i=0; i<tuples.length; i++) {
+            tuples[i] = new int[]{rand.nextInt(6), rand.nextInt(6), rand.nextInt(6)};
+            if (tuples[i][0] + tuples[i][1] <= 7)
+                rows.add(tuples[i][0] + "," + tuples[i][1] + "," + tuples[i][2]);
+        }
+
+        CspIntVariable x[] = new CspIntVariable[] {
+            varFactory.intVar("x0", 0, 5),
+            varFactory.intVar("x1", 0, 5),
+            varFactory.intVar("x2", 0, 5)
+        };
+        solver.addConstraint(math.table(x, tuples));
+        solver.addConstraint(x[0].add(x[1]).leq(7));
+
+        // every distinct row satisfying the sum must be found exactly once
+        Set<String> found = new HashSet<String>();
+        boolean solved = solver.solve(x);
+        while (solved) {
+            String row = x[0].getMin() + "," + x[1].getMin() + "," + x[2].getMin();
+            assertTrue("row " + row + " allowed", rows.contains(row));
+            assertTrue("row " + row + " found once", found.add(row));
+            solved = solver.nextSolution();
+        }
+        assertEquals("solutions", rows.size(), found.size());
+    }
+}
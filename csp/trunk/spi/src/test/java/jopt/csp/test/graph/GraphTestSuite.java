@@ -23,6 +23,7 @@ public class GraphTestSuite extends TestCase {
         suite.addTestSuite(GenericSumSeperateIdxTest.class);
         suite.addTestSuite(GenericSumSharedIdxTest.class);
         suite.addTestSuite(GenericSumSourceControlTest.class);
+        suite.addTestSuite(NodeArcGraphImplTest.class);
         suite.addTestSuite(TernaryNumSumArcTest.class);
         return suite;
     }
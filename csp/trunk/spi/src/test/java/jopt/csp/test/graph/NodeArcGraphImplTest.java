@@ -0,0 +1,136 @@
+package jopt.csp.test.graph;
+
+import jopt.csp.spi.arcalgorithm.graph.NodeArcGraphImpl;
+import jopt.csp.spi.arcalgorithm.graph.arc.Arc;
+import jopt.csp.spi.arcalgorithm.graph.arc.NumArc;
+import jopt.csp.spi.arcalgorithm.graph.arc.hyper.TernaryNumSumArc;
+import jopt.csp.spi.arcalgorithm.graph.node.Node;
+import jopt.csp.spi.arcalgorithm.graph.node.NumNode;
+import jopt.csp.spi.arcalgorithm.variable.IntVariable;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.util.DomainChangeType;
+import jopt.csp.spi.util.NumberMath;
+import junit.framework.TestCase;
+
+/**
+ * Tests the indexed node-arc connections of the graph and
+ * rolling them back with the choicepoint stack
+ */
+public class NodeArcGraphImplTest extends TestCase {
+    private NumNode xnode;
+    private NumNode ynode;
+    private NumNode znode;
+    private NumNode wnode;
+    private NodeArcGraphImpl graph;
+    private ChoicePointStack cps;
+
+    public NodeArcGraphImplTest(java.lang.String testName) {
+        super(testName);
+    }
+
+    protected void setUp() throws Exception {
+        xnode = (NumNode) new IntVariable("x", 0, 100).getNode();
+        ynode = (NumNode) new IntVariable("y", 0, 100).getNode();
+        znode = (NumNode) new IntVariable("z", 0, 100).getNode();
+        wnode = (NumNode) new IntVariable("w", 0, 100).getNode();
+        cps = new ChoicePointStack();
+        graph = new NodeArcGraphImpl();
+        graph.setChoicePointStack(cps);
+    }
+
+    protected void tearDown() throws Exception {
+        xnode = null;
+        ynode = null;
+        znode = null;
+        wnode = null;
+        graph = null;
+        cps = null;
+    }
+
+    public void testNodeIndices() {
+        Arc arc = new TernaryNumSumArc(xnode, ynode, znode, NumberMath.INTEGER, NumArc.EQ);
+        graph.addArc(arc);
+
+        assertEquals("x index", 0, graph.getNodeIndex(xnode));
+        assertEquals("y index", 1, graph.getNodeIndex(ynode));
+        assertEquals("z index", 2, graph.getNodeIndex(znode));
+        assertEquals("w index", -1, graph.getNodeIndex(wnode));
+        assertEquals("x graph index", 0, xnode.getGraphIndex());
+
+        assertEquals("x arcs", 1, countSourceArcs(xnode, arc));
+        assertEquals("y arcs", 1, countSourceArcs(ynode, arc));
+        assertEquals("z arcs", 0, countSourceArcs(znode, arc));
+    }
+
+    public void testRepeatedSourceNode() {
+        Arc arc = new TernaryNumSumArc(xnode, xnode, znode, NumberMath.INTEGER, NumArc.EQ);
+        graph.addArc(arc);
+
+        assertEquals("x arcs", 1, countSourceArcs(xnode, arc));
+        assertEquals("node count", 2, graph.getAllNodes().size());
+    }
+
+    public void testPushPop() {
+        Arc arc1 = new TernaryNumSumArc(xnode, ynode, znode, NumberMath.INTEGER, NumArc.EQ);
+        graph.addArc(arc1);
+
+        cps.push();
+        Arc arc2 = new TernaryNumSumArc(xnode, wnode, znode, NumberMath.INTEGER, NumArc.EQ);
+        graph.addArc(arc2);
+
+        assertEquals("w index", 3, graph.getNodeIndex(wnode));
+        assertEquals("x arc1", 1, countSourceArcs(xnode, arc1));
+        assertEquals("x arc2", 1, countSourceArcs(xnode, arc2));
+        assertEquals("w arc2", 1, countSourceArcs(wnode, arc2));
+        assertEquals("arc count", 2, graph.getAllArcs().size());
+
+        cps.pop();
+        assertFalse("w contained", graph.containsNode(wnode));
+        assertFalse("w in graph", wnode.inGraph());
+        assertEquals("w index", -1, graph.getNodeIndex(wnode));
+        assertEquals("x arc1", 1, countSourceArcs(xnode, arc1));
+        assertEquals("x arc2", 0, countSourceArcs(xnode, arc2));
+        assertEquals("arc count", 1, graph.getAllArcs().size());
+
+        // released index is reused
+        graph.addNode(wnode);
+        assertEquals("w index", 3, graph.getNodeIndex(wnode));
+    }
+
+    public void testPopDeltaPushDelta() {
+        Arc arc1 = new TernaryNumSumArc(xnode, ynode, znode, NumberMath.INTEGER, NumArc.EQ);
+        graph.addArc(arc1);
+
+        cps.push();
+        Arc arc2 = new TernaryNumSumArc(xnode, wnode, znode, NumberMath.INTEGER, NumArc.EQ);
+        graph.addArc(arc2);
+
+        Object delta = cps.popDelta();
+        assertFalse("w contained", graph.containsNode(wnode));
+        assertEquals("x arc2", 0, countSourceArcs(xnode, arc2));
+
+        cps.pushDelta(delta);
+        assertTrue("w contained", graph.containsNode(wnode));
+        assertEquals("x arc2", 1, countSourceArcs(xnode, arc2));
+        assertEquals("w arc2", 1, countSourceArcs(wnode, arc2));
+
+        cps.pop();
+        assertFalse("w contained", graph.containsNode(wnode));
+        assertEquals("x arc1", 1, countSourceArcs(xnode, arc1));
+        assertEquals("x arc2", 0, countSourceArcs(xnode, arc2));
+    }
+
+    /**
+     * Counts the number of times an arc appears in the source arcs of a node
+     */
+    private int countSourceArcs(Node node, Arc arc) {
+        int idx = graph.getNodeIndex(node);
+        int cnt = 0;
+        for (int type=DomainChangeType.DOMAIN; type<=DomainChangeType.VALUE; type++) {
+            Arc arcs[] = graph.getSourceArcs(idx, type);
+            for (int i=0; i<graph.getSourceArcCount(idx, type); i++)
+                if (arcs[i] == arc) cnt++;
+        }
+        return cnt;
+    }
+}
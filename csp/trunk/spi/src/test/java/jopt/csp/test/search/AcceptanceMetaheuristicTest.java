@@ -0,0 +1,254 @@
+package jopt.csp.test.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.CoolingSchedule;
+import jopt.csp.search.LocalSearch;
+import jopt.csp.search.Metaheuristic;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.SolverImpl;
+import jopt.csp.spi.search.localsearch.GeometricCooling;
+import jopt.csp.spi.search.localsearch.LateAcceptanceMetaheuristic;
+import jopt.csp.spi.search.localsearch.LinearCooling;
+import jopt.csp.spi.search.localsearch.LundyMeesCooling;
+import jopt.csp.spi.search.localsearch.SimulatedAnnealingMetaheuristic;
+import jopt.csp.spi.search.localsearch.ThresholdAcceptingMetaheuristic;
+import jopt.csp.spi.solver.ChoicePointAlgorithm;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests the simulated annealing, threshold accepting and late acceptance
+ * metaheuristics and their cooling schedules
+ */
+public class AcceptanceMetaheuristicTest extends TestCase {
+    private ConstraintStore store;
+    private CspVariableFactory varFactory;
+    private int objectives;
+
+    public void setUp() {
+        ChoicePointAlgorithm alg = SolverImpl.createDefaultAlgorithm();
+        store = new ConstraintStore(alg);
+        varFactory = alg.getVarFactory();
+        objectives = 0;
+    }
+
+    public void tearDown() {
+        store = null;
+        varFactory = null;
+    }
+
+    /**
+     * Sets an initial solution with an objective value on a metaheuristic and
+     * returns the bound the metaheuristic places on the objective of neighbors
+     */
+    private int limit(Metaheuristic meta, int objectiveVal, boolean minimize) throws PropagationFailureException {
+        // new objective variable for each move so constraints do not accumulate
+        CspIntVariable obj = varFactory.intVar("obj" + objectives++, 0, 100);
+        store.addVariable(obj, true);
+
+        SolverSolution initial = new SolverSolution();
+        if (minimize)
+            initial.setMinimizeObjective(obj);
+        else
+            initial.setMaximizeObjective(obj);
+        initial.setObjectiveVal(objectiveVal);
+
+        assertTrue(meta.setInitialSolution(initial));
+        return minimize ? obj.getMax() : obj.getMin();
+    }
+
+    public void testCoolingSchedules() {
+        CoolingSchedule geometric = new GeometricCooling(8, 0.5);
+        assertEquals(8d, geometric.getTemperature(0), 1e-9);
+        assertEquals(2d, geometric.getTemperature(2), 1e-9);
+
+        CoolingSchedule linear = new LinearCooling(8, 3);
+        assertEquals(8d, linear.getTemperature(0), 1e-9);
+        assertEquals(2d, linear.getTemperature(2), 1e-9);
+        assertEquals(0d, linear.getTemperature(3), 1e-9);
+
+        // each move lowers t to t / (1 + beta * t)
+        CoolingSchedule lundyMees = new LundyMeesCooling(8, 0.25);
+        double t = 8;
+        for (int i=0; i<5; i++) {
+            assertEquals(t, lundyMees.getTemperature(i), 1e-9);
+            t = t / (1 + 0.25 * t);
+        }
+
+        try {
+            new GeometricCooling(8, 1.5);
+            fail("cooling factor greater than 1 accepted");
+        }
+        catch (IllegalArgumentException iae) {
+        }
+    }
+
+    public void testThresholdAcceptingMinimize() throws PropagationFailureException {
+        Metaheuristic meta = new ThresholdAcceptingMetaheuristic(store, new LinearCooling(3, 1));
+        assertEquals(13, limit(meta, 10, true));
+        assertEquals(12, limit(meta, 10, true));
+        assertEquals(9, limit(meta, 8, true));
+        assertEquals(8, limit(meta, 8, true));
+        assertEquals(8, limit(meta, 8, true));
+        assertFalse(meta.continueSearch());
+    }
+
+    public void testThresholdAcceptingMaximize() throws PropagationFailureException {
+        Metaheuristic meta = new ThresholdAcceptingMetaheuristic(store, new GeometricCooling(4, 0.5));
+        assertEquals(6, limit(meta, 10, false));
+        assertEquals(8, limit(meta, 10, false));
+        assertEquals(9, limit(meta, 10, false));
+
+        // threshold of 0.5 cannot lower an integer objective
+        assertEquals(10, limit(meta, 10, false));
+    }
+
+    public void testLateAcceptanceHistory() throws PropagationFailureException {
+        Metaheuristic meta = new LateAcceptanceMetaheuristic(store, 2);
+
+        // history begins filled with first objective
+        assertEquals(10, limit(meta, 10, true));
+
+        // worse solution is compared to history of 10 but may not get worse
+        assertEquals(12, limit(meta, 12, true));
+
+        // compared to 12 of two moves earlier
+        assertEquals(12, limit(meta, 8, true));
+        assertTrue(meta.continueSearch());
+
+        // compared to 8 of two moves earlier, 12 has left history
+        assertEquals(9, limit(meta, 9, true));
+        assertFalse(meta.continueSearch());
+    }
+
+    public void testLateAcceptanceMaximize() throws PropagationFailureException {
+        Metaheuristic meta = new LateAcceptanceMetaheuristic(store, 3);
+        assertEquals(10, limit(meta, 10, false));
+        assertEquals(10, limit(meta, 15, false));
+        assertEquals(10, limit(meta, 12, false));
+
+        // 15 of three moves earlier is better than current solution
+        assertEquals(14, limit(meta, 14, false));
+        assertEquals(12, limit(meta, 16, false));
+    }
+
+    public void testAnnealingAcceptanceProbability() throws PropagationFailureException {
+        // constant temperature of 5 accepts a worsening of 5 with probability exp(-1)
+        Metaheuristic meta = new SimulatedAnnealingMetaheuristic(store, new GeometricCooling(5, 1), 1234);
+        int accepted = 0;
+        int moves = 2000;
+        for (int i=0; i<moves; i++) {
+            if (limit(meta, 50, true) >= 55)
+                accepted++;
+        }
+
+        assertEquals(Math.exp(-1), (double) accepted / moves, 0.04);
+        assertTrue(meta.continueSearch());
+    }
+
+    public void testFrozenAnnealingAcceptsNoWorsening() throws PropagationFailureException {
+        SimulatedAnnealingMetaheuristic meta = new SimulatedAnnealingMetaheuristic(store, new LinearCooling(2, 1), 99);
+        limit(meta, 50, true);
+        limit(meta, 50, true);
+        for (int i=0; i<20; i++)
+            assertEquals(50, limit(meta, 50, true));
+
+        assertEquals(0d, meta.getTemperature(), 0);
+        assertFalse(meta.continueSearch());
+    }
+
+    /**
+     * Creates binary variables limited by a weight and returns the objectives
+     * selected by moves of a local search maximizing their cost
+     */
+    private List<Integer> search(int n, int moves, int type) throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver();
+        CspVariableFactory varFactory = solver.getVarFactory();
+        LocalSearch local = solver.getLocalSearch();
+
+        CspIntVariable x[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("b" + i, 0, 1);
+
+        CspIntExpr weight = x[0];
+        CspIntExpr cost = x[0].multiply(2);
+        for (int i=1; i<n; i++) {
+            weight = weight.add(x[i].multiply(i % 3 + 1));
+            cost = cost.add(x[i].multiply(i + 2));
+        }
+        solver.addConstraint(weight.leq(n));
+
+        SolverSolution solution = new SolverSolution();
+        for (int i=0; i<n; i++)
+            solution.setValue(x[i], 0);
+        solution.setMaximizeObjective(cost);
+
+        Metaheuristic meta = null;
+        switch (type) {
+            case 0:
+                meta = local.simulatedAnnealing(local.geometricCooling(6, 0.9), 42);
+                break;
+            case 1:
+                meta = local.thresholdAccepting(local.linearCooling(0, 0));
+                break;
+            default:
+                meta = local.lateAcceptance(3);
+        }
+
+        Neighborhood hood = local.flipNeighborhood(x);
+        List<Integer> objectives = new ArrayList<Integer>();
+        while (objectives.size() < moves && solver.solve(local.neighborMove(solution, hood, meta)))
+            objectives.add(new Integer(solution.getIntObjectiveVal()));
+
+        return objectives;
+    }
+
+    public void testSeededAnnealingIsRepeatable() throws PropagationFailureException {
+        List<Integer> first = search(10, 15, 0);
+        List<Integer> second = search(10, 15, 0);
+        assertEquals(first, second);
+        assertTrue(first.size() > 1);
+
+        // annealing at high temperature accepts worse solutions
+        boolean worsened = false;
+        for (int i=1; i<first.size(); i++)
+            worsened |= (first.get(i).intValue() < first.get(i-1).intValue());
+        assertTrue(worsened);
+    }
+
+    public void testZeroThresholdNeverWorsens() throws PropagationFailureException {
+        List<Integer> objectives = search(10, 15, 1);
+        assertTrue(objectives.size() > 0);
+
+        int previous = 0;
+        for (int i=0; i<objectives.size(); i++) {
+            int objective = objectives.get(i).intValue();
+            assertTrue(objective >= previous);
+            previous = objective;
+        }
+    }
+
+    public void testLateAcceptanceSearch() throws PropagationFailureException {
+        List<Integer> objectives = search(10, 15, 2);
+        assertTrue(objectives.size() > 0);
+
+        // each solution is no worse than the current solution or the solution 3 moves earlier
+        List<Integer> all = new ArrayList<Integer>();
+        all.add(new Integer(0));
+        all.addAll(objectives);
+        for (int i=1; i<all.size(); i++) {
+            int objective = all.get(i).intValue();
+            int earlier = all.get(Math.max(0, i-4)).intValue();
+            int current = all.get(i-1).intValue();
+            assertTrue(objective >= Math.min(current, earlier));
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package jopt.csp.test.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.CurrentNeighbor;
+import jopt.csp.search.DeltaNeighborhood;
+import jopt.csp.search.LocalSearch;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.search.SearchAction;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.SolverImpl;
+import jopt.csp.spi.search.localsearch.BrowseNeighborhoodAction;
+import jopt.csp.spi.search.localsearch.SwapNeighborhood;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests that neighbors of delta neighborhoods evaluated by propagating only
+ * the variables they change produce the same results as neighbors restored
+ * in their entirety
+ */
+public class DeltaNeighborhoodTest extends TestCase {
+    private CspSolver solver;
+    private CspVariableFactory varFactory;
+    private LocalSearch local;
+    private CspIntVariable x[];
+    private CspIntExpr cost;
+
+    public void setUp() {
+        solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+        varFactory = solver.getVarFactory();
+        local = solver.getLocalSearch();
+    }
+
+    public void tearDown() {
+        solver = null;
+        varFactory = null;
+        local = null;
+        x = null;
+        cost = null;
+    }
+
+    /**
+     * Neighborhood that hides whether a neighborhood is a delta neighborhood so
+     * that its neighbors are restored in their entirety
+     */
+    private static class FullNeighborhood implements Neighborhood {
+        private Neighborhood hood;
+
+        public FullNeighborhood(Neighborhood hood) {
+            this.hood = hood;
+        }
+
+        public void setInitialSolution(SolverSolution initial) {
+            hood.setInitialSolution(initial);
+        }
+
+        public int size() {
+            return hood.size();
+        }
+
+        public SolverSolution getNeighbor(int i) {
+            return hood.getNeighbor(i);
+        }
+
+        public void neighborSelected(int i) {
+            hood.neighborSelected(i);
+        }
+
+        public Neighborhood getSelectedNeighborhood() {
+            return hood.getSelectedNeighborhood();
+        }
+
+        public int getSelectedNeighborhoodOffset() {
+            return hood.getSelectedNeighborhoodOffset();
+        }
+    }
+
+    /**
+     * Creates queens that take different values with a weighted cost
+     */
+    private void createQueens(int n) throws PropagationFailureException {
+        CspMath math = varFactory.getMath();
+        x = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 0, n - 1);
+        for (int i=0; i<n; i++)
+            for (int j=i+1; j<n; j++)
+                solver.addConstraint(math.abs(x[i].subtract(x[j])).neq(j - i));
+        solver.addConstraint(math.allDifferent(x));
+
+        cost = x[0];
+        for (int i=1; i<n; i++)
+            cost = cost.add(x[i].multiply(i + 1));
+    }
+
+    /**
+     * Creates binary variables limited by a weight with a cost
+     */
+    private void createKnapsack(int n) throws PropagationFailureException {
+        x = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("b" + i, 0, 1);
+
+        CspIntExpr weight = x[0];
+        cost = x[0].multiply(2);
+        for (int i=1; i<n; i++) {
+            weight = weight.add(x[i].multiply(i % 3 + 1));
+            cost = cost.add(x[i].multiply(i + 2));
+        }
+        solver.addConstraint(weight.leq(n));
+    }
+
+    /**
+     * Returns a solution containing each variable with a value
+     */
+    private SolverSolution createInitial(int values[]) {
+        SolverSolution initial = new SolverSolution();
+        for (int i=0; i<x.length; i++) {
+            initial.add(x[i]);
+            initial.setValue(x[i], values[i]);
+        }
+        return initial;
+    }
+
+    /**
+     * Browses the neighbors of an initial solution returning a description of
+     * each neighbor restored
+     */
+    private List<String> browse(SolverSolution initial, Neighborhood hood) {
+        return browse(local.browseNeighborhood(initial, hood, new CurrentNeighbor()));
+    }
+
+    /**
+     * Returns a description of each neighbor restored by a browse action
+     */
+    private List<String> browse(SearchAction browse) {
+        List<String> neighbors = new ArrayList<String>();
+        boolean found = solver.solve(browse);
+        while (found) {
+            StringBuffer buf = new StringBuffer();
+            for (int i=0; i<x.length; i++) {
+                assertTrue(x[i].isBound());
+                buf.append(x[i].getMin()).append(',');
+            }
+            buf.append(cost.getMin()).append("..").append(cost.getMax());
+            neighbors.add(buf.toString());
+            found = solver.nextSolution();
+        }
+        return neighbors;
+    }
+
+    public void testSwapBrowseMatchesFullRestore() throws PropagationFailureException {
+        int queens[] = new int[] {1, 3, 5, 7, 2, 0, 6, 4};
+        createQueens(8);
+        Neighborhood hood = local.swapNeighborhood(x);
+        assertTrue(hood instanceof DeltaNeighborhood);
+
+        List<String> delta = browse(createInitial(queens), hood);
+        List<String> full = browse(createInitial(queens), new FullNeighborhood(hood));
+        assertEquals(full, delta);
+        assertTrue(full.size() > 0);
+        assertTrue(full.size() < hood.size());
+    }
+
+    public void testFlipBrowseMatchesFullRestore() throws PropagationFailureException {
+        createKnapsack(8);
+        int bits[] = new int[] {1, 0, 1, 0, 0, 1, 0, 0};
+        Neighborhood hood = local.flipNeighborhood(x);
+        assertTrue(hood instanceof DeltaNeighborhood);
+
+        List<String> delta = browse(createInitial(bits), hood);
+        List<String> full = browse(createInitial(bits), new FullNeighborhood(hood));
+        assertEquals(full, delta);
+        assertTrue(full.size() > 0);
+        assertTrue(full.size() < hood.size());
+    }
+
+    public void testInconsistentInitialMatchesFullRestore() throws PropagationFailureException {
+        // queens on a diagonal are not a solution but many of their neighbors may be
+        createQueens(6);
+        int diagonal[] = new int[] {0, 1, 2, 3, 4, 5};
+        Neighborhood hood = local.swapNeighborhood(x);
+
+        List<String> delta = browse(createInitial(diagonal), hood);
+        List<String> full = browse(createInitial(diagonal), new FullNeighborhood(hood));
+        assertEquals(full, delta);
+    }
+
+    public void testReifiedConstraintMatchesFullRestore() throws PropagationFailureException {
+        // initial solution binds boolean of constraint posting its opposite to graph
+        createKnapsack(4);
+        CspIntExpr isDiff = x[0].neq(x[1]).toBoolean();
+        solver.addConstraint(x[2].add(isDiff).leq(1));
+        int bits[] = new int[] {1, 1, 1, 0};
+        Neighborhood hood = local.flipNeighborhood(x);
+
+        List<String> delta = browse(createInitial(bits), hood);
+        List<String> full = browse(createInitial(bits), new FullNeighborhood(hood));
+        assertEquals(full, delta);
+        assertTrue(full.size() > 0);
+    }
+
+    public void testUnconstrainedSwapMatchesFullRestore() throws PropagationFailureException {
+        // variables that are neither constrained nor added to the store have
+        // no nodes in the graph and changes to them are not recorded by the
+        // choicepoint stack, so each browse is performed by a new solver
+        List<List<String>> results = new ArrayList<List<String>>();
+        for (int mode=0; mode<2; mode++) {
+            setUp();
+            x = new CspIntVariable[] {varFactory.intVar("u0", 0, 5), varFactory.intVar("u1", 0, 5)};
+            cost = x[0];
+            ConstraintStore store = ((SolverImpl) solver).getConstraintStore();
+            Neighborhood hood = new SwapNeighborhood(x);
+            if (mode==1) hood = new FullNeighborhood(hood);
+            results.add(browse(new BrowseNeighborhoodAction(store, createInitial(new int[] {4, 1}), hood, new CurrentNeighbor())));
+        }
+
+        assertEquals(results.get(1), results.get(0));
+        assertEquals(1, results.get(0).size());
+    }
+
+    public void testRangeOfSolutionMatchesFullRestore() throws PropagationFailureException {
+        // w is restored to a range and must be relaxed when y0 changes
+        // for the swap to be consistent
+        CspIntVariable w = varFactory.intVar("w", 0, 20);
+        CspIntVariable y[] = new CspIntVariable[] {varFactory.intVar("y0", 0, 5), varFactory.intVar("y1", 0, 5)};
+        solver.addConstraint(w.gt(y[0]));
+        solver.addConstraint(w.add(y[1]).leq(8));
+        x = y;
+        Neighborhood hood = local.swapNeighborhood(x);
+
+        List<List<String>> results = new ArrayList<List<String>>();
+        for (int mode=0; mode<2; mode++) {
+            SolverSolution initial = createInitial(new int[] {4, 1});
+            initial.add(w);
+            initial.setMin(w, 0);
+            initial.setMax(w, 10);
+
+            List<String> domains = new ArrayList<String>();
+            boolean found = solver.solve(local.browseNeighborhood(initial, (mode==0) ? hood : new FullNeighborhood(hood), new CurrentNeighbor()));
+            while (found) {
+                domains.add(w.getMin() + ".." + w.getMax());
+                found = solver.nextSolution();
+            }
+            results.add(domains);
+        }
+
+        assertEquals(results.get(1), results.get(0));
+        assertEquals(1, results.get(0).size());
+        assertEquals("2..4", results.get(0).get(0));
+    }
+
+    public void testProblemUnchangedAfterBrowse() throws PropagationFailureException {
+        int queens[] = new int[] {1, 3, 5, 7, 2, 0, 6, 4};
+        createQueens(8);
+        browse(createInitial(queens), local.swapNeighborhood(x));
+        solver.reset();
+
+        for (int i=0; i<x.length; i++) {
+            assertEquals(0, x[i].getMin());
+            assertEquals(7, x[i].getMax());
+        }
+    }
+
+    public void testTabuMovesMatchFullRestore() throws PropagationFailureException {
+        List<List<Integer>> moves = new ArrayList<List<Integer>>();
+        for (int mode=0; mode<2; mode++) {
+            setUp();
+            createKnapsack(10);
+            SolverSolution solution = createInitial(new int[10]);
+            solution.setMaximizeObjective(cost);
+
+            Neighborhood hood = local.flipNeighborhood(x);
+            if (mode==1) hood = new FullNeighborhood(hood);
+
+            // record objective of solution selected by each move until no move is possible
+            List<Integer> objectives = new ArrayList<Integer>();
+            while (objectives.size() < 10 && solver.solve(local.tabuMove(solution, hood, local.tabu(2), hood.size())))
+                objectives.add(new Integer(solution.getIntObjectiveVal()));
+            moves.add(objectives);
+        }
+
+        assertEquals(moves.get(1), moves.get(0));
+        assertTrue(moves.get(0).size() > 1);
+    }
+}
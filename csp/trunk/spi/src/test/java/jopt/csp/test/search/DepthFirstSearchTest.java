@@ -1,6 +1,7 @@
 package jopt.csp.test.search;
 
 import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchNodeReference;
 import jopt.csp.spi.SolverImpl;
 import jopt.csp.spi.search.actions.GenerateIntegerAction;
 import jopt.csp.spi.search.technique.DepthFirstSearch;
@@ -11,6 +12,7 @@ import jopt.csp.spi.search.tree.DeltaStateManager;
 import jopt.csp.spi.search.tree.JumpingSearchTree;
 import jopt.csp.spi.search.tree.ProblemStateManager;
 import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.search.tree.TreeNode;
 import jopt.csp.spi.solver.ConstraintStore;
 import jopt.csp.variable.CspIntVariable;
 import jopt.csp.variable.CspVariableFactory;
@@ -146,6 +148,36 @@ public class DepthFirstSearchTest extends TestCase {
         doTestSearch(search);
     }
     
+    public void testCrawlToAncestorAndDescendant() throws PropagationFailureException {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        SearchTree tree = new CrawlingSearchTree(new BasicSearchNode(genVars), new DeltaStateManager(store));
+
+        // activate nodes along right, left and right moves from root
+        tree.getCurrentNode().activate(null);
+        TreeNode ancestor = tree.moveToChild(1);
+        ancestor.activate(null);
+        tree.moveToChild(0).activate(null);
+        TreeNode descendant = tree.moveToChild(1);
+        descendant.activate(null);
+        int xval = x.getMin();
+        int ymin = y.getMin();
+        int ymax = y.getMax();
+
+        SearchNodeReference ancestorRef = tree.getReferenceForNode(ancestor);
+        SearchNodeReference descendantRef = tree.getReferenceForNode(descendant);
+
+        tree.returnToReference(ancestorRef);
+        assertEquals("ancestor depth", 1, tree.getDepth());
+        assertEquals("ancestor node", ancestor, tree.getCurrentNode());
+
+        tree.returnToReference(descendantRef);
+        assertEquals("descendant depth", 3, tree.getDepth());
+        assertEquals("descendant node", descendant, tree.getCurrentNode());
+        assertEquals("x", xval, x.getMin());
+        assertEquals("y min", ymin, y.getMin());
+        assertEquals("y max", ymax, y.getMax());
+    }
+    
     public void testJumpingTree() {
         SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
         SearchTree tree = new JumpingSearchTree(new BasicSearchNode(genVars), new ProblemStateManager(store));
@@ -0,0 +1,182 @@
+package jopt.csp.test.search;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchTechnique;
+import jopt.csp.spi.SolverImpl;
+import jopt.csp.spi.search.actions.GenerateIntegerAction;
+import jopt.csp.spi.search.technique.DepthBoundedDiscrepancySearch;
+import jopt.csp.spi.search.technique.LimitedDiscrepancySearch;
+import jopt.csp.spi.search.technique.TreeSearch;
+import jopt.csp.spi.search.technique.TreeSearchTechnique;
+import jopt.csp.spi.search.tree.BasicSearchNode;
+import jopt.csp.spi.search.tree.CrawlingSearchTree;
+import jopt.csp.spi.search.tree.DeltaStateManager;
+import jopt.csp.spi.search.tree.JumpingSearchTree;
+import jopt.csp.spi.search.tree.ProblemStateManager;
+import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests limited discrepancy and depth-bounded discrepancy searches.  Variables
+ * are assigned their smallest value first, so the number of discrepancies on
+ * the path to a solution is the sum of the values of the variables.
+ */
+public class DiscrepancySearchTest extends TestCase {
+    private ConstraintStore store;
+    private CspIntVariable x;
+    private CspIntVariable y;
+    private CspIntVariable z;
+
+    public DiscrepancySearchTest(String testName) {
+        super(testName);
+    }
+
+    public void testLdsRecalculatingTree() {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        doTestLds(new TreeSearch(store, genVars, new LimitedDiscrepancySearch()), 27);
+    }
+
+    public void testLdsProblemStateTree() {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        SearchTree tree = new CrawlingSearchTree(new BasicSearchNode(genVars), new ProblemStateManager(store));
+        doTestLds(new TreeSearch(tree, new LimitedDiscrepancySearch()), 27);
+    }
+
+    public void testLdsDeltaStateTree() {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        SearchTree tree = new CrawlingSearchTree(new BasicSearchNode(genVars), new DeltaStateManager(store));
+        doTestLds(new TreeSearch(tree, new LimitedDiscrepancySearch()), 27);
+    }
+
+    public void testLdsJumpingTree() {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        SearchTree tree = new JumpingSearchTree(new BasicSearchNode(genVars), new ProblemStateManager(store));
+        doTestLds(new TreeSearch(tree, new LimitedDiscrepancySearch()), 27);
+    }
+
+    public void testLdsMaxDiscrepancies() {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        doTestLds(new TreeSearch(store, genVars, new LimitedDiscrepancySearch(1)), 4);
+    }
+
+    public void testDds() {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        TreeSearch search = new TreeSearch(store, genVars, new DepthBoundedDiscrepancySearch());
+
+        // heuristic path is followed first, followed by discrepancy at top of tree
+        assertTrue("first solution", search.nextSolution());
+        assertValues(0, 0, 0);
+        assertTrue("second solution", search.nextSolution());
+        assertValues(1, 0, 0);
+
+        Set<String> solutions = new HashSet<String>();
+        solutions.add("0,0,0");
+        solutions.add("1,0,0");
+        while (search.nextSolution())
+            assertTrue("duplicate solution", solutions.add(x.getMin() + "," + y.getMin() + "," + z.getMin()));
+        assertEquals("solutions", 27, solutions.size());
+    }
+
+    public void testDdsMaxDepth() {
+        SearchAction genVars = new GenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        TreeSearch search = new TreeSearch(store, genVars, new DepthBoundedDiscrepancySearch(1));
+
+        // only the first variable may differ from the heuristic
+        int count = 0;
+        while (search.nextSolution()) {
+            assertEquals("y", 0, y.getMin());
+            assertEquals("z", 0, z.getMin());
+            count++;
+        }
+        assertEquals("solutions", 2, count);
+    }
+
+    public void testQueensSolutionsSearchedOnce() throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver();
+        assertEquals("lds", 92, countQueens(solver, solver.getSearchTechniques().lds()));
+
+        solver = CspSolver.createSolver();
+        assertEquals("dds", 92, countQueens(solver, solver.getSearchTechniques().dds()));
+    }
+
+    /**
+     * Verifies solutions are located in order of discrepancies without duplicates
+     */
+    private void doTestLds(TreeSearch search, int expectedCount) {
+        Set<String> solutions = new HashSet<String>();
+        int lastDiscrepancies = 0;
+        while (search.nextSolution()) {
+            assertTrue("x bound", x.isBound());
+            assertTrue("y bound", y.isBound());
+            assertTrue("z bound", z.isBound());
+
+            int discrepancies = x.getMin() + y.getMin() + z.getMin();
+            assertTrue("discrepancies decreased", discrepancies >= lastDiscrepancies);
+            assertTrue("duplicate solution", solutions.add(x.getMin() + "," + y.getMin() + "," + z.getMin()));
+            lastDiscrepancies = discrepancies;
+        }
+        assertEquals("solutions", expectedCount, solutions.size());
+    }
+
+    private void assertValues(int xval, int yval, int zval) {
+        assertEquals("x", xval, x.getMin());
+        assertEquals("y", yval, y.getMin());
+        assertEquals("z", zval, z.getMin());
+    }
+
+    /**
+     * Counts solutions of the 8-queens problem
+     */
+    private int countQueens(CspSolver solver, SearchTechnique technique) throws PropagationFailureException {
+        assertTrue("tree technique", technique instanceof TreeSearchTechnique);
+
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspIntVariable q[] = new CspIntVariable[8];
+        for (int i=0; i<q.length; i++)
+            q[i] = varFactory.intVar("q" + i, 1, q.length);
+
+        for (int i=0; i<q.length; i++) {
+            for (int j=i+1; j<q.length; j++) {
+                solver.addConstraint(q[i].neq(q[j]));
+                solver.addConstraint(q[i].neq(q[j].add(j-i)));
+                solver.addConstraint(q[i].neq(q[j].subtract(j-i)));
+            }
+        }
+
+        int count = 0;
+        boolean found = solver.solve(solver.getSearchActions().generate(q), null, technique, false, false);
+        while (found) {
+            count++;
+            found = solver.nextSolution();
+        }
+        return count;
+    }
+
+    public void setUp() {
+        store = new ConstraintStore(SolverImpl.createDefaultAlgorithm());
+        CspVariableFactory varFactory = store.getConstraintAlg().getVarFactory();
+        x = varFactory.intVar("x", 0, 2);
+        y = varFactory.intVar("y", 0, 2);
+        z = varFactory.intVar("z", 0, 2);
+
+        // variables are not used by constraints, so store must be told to track their state
+        store.addVariable(x, false);
+        store.addVariable(y, false);
+        store.addVariable(z, false);
+    }
+
+    public void tearDown() {
+        store = null;
+        x = null;
+        y = null;
+        z = null;
+    }
+}
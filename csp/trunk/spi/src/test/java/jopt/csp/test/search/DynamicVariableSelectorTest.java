@@ -0,0 +1,176 @@
+package jopt.csp.test.search;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchActions;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.arcalgorithm.variable.IntExpr;
+import jopt.csp.spi.search.ActivityVariableSelector;
+import jopt.csp.spi.search.DomWdegVariableSelector;
+import jopt.csp.spi.search.DynamicVariableSelector;
+import jopt.csp.spi.search.ImpactVariableSelector;
+import jopt.csp.spi.search.actions.DynamicGenerateIntegerAction;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests variable selectors that select the next variable to instantiate at
+ * each choice point
+ */
+public class DynamicVariableSelectorTest extends TestCase {
+    private AC5 alg;
+    private CspSolver solver;
+    private CspVariableFactory varFactory;
+    private CspMath math;
+    private SearchActions actions;
+
+    public void setUp() {
+        alg = new AC5(CspAlgorithmStrength.ARC_CONSISTENCY);
+        solver = CspSolver.createSolver(alg);
+        varFactory = solver.getVarFactory();
+        math = varFactory.getMath();
+        actions = solver.getSearchActions();
+    }
+
+    public void tearDown() {
+        alg = null;
+        solver = null;
+        varFactory = null;
+        math = null;
+        actions = null;
+    }
+
+    /**
+     * Returns the selectors being tested
+     */
+    private static DynamicVariableSelector[] selectors() {
+        return new DynamicVariableSelector[] {
+            new DomWdegVariableSelector(),
+            new ActivityVariableSelector(),
+            new ImpactVariableSelector()
+        };
+    }
+
+    /**
+     * Creates variables for the row of the queen in each column of a board
+     */
+    private CspIntVariable[] queens(int n) throws PropagationFailureException {
+        CspIntVariable x[] = new CspIntVariable[n];
+        CspIntExpr up[] = new CspIntExpr[n];
+        CspIntExpr down[] = new CspIntExpr[n];
+        for (int i=0; i<n; i++) {
+            x[i] = varFactory.intVar("x" + i, 0, n - 1);
+            up[i] = x[i].add(i);
+            down[i] = x[i].subtract(i);
+        }
+        solver.addConstraint(math.allDifferent(x));
+        solver.addConstraint(math.allDifferent(up));
+        solver.addConstraint(math.allDifferent(down));
+        return x;
+    }
+
+    /**
+     * Counts the solutions located by a search action
+     */
+    private int countSolutions(SearchAction action) {
+        int count = 0;
+        boolean found = solver.solve(action);
+        while (found) {
+            count++;
+            found = solver.nextSolution();
+        }
+        return count;
+    }
+
+    public void testGenerateUsesDynamicSelection() throws PropagationFailureException {
+        CspIntVariable x[] = queens(4);
+        SearchAction action = actions.generate(x, null, new DomWdegVariableSelector());
+        assertTrue(action instanceof DynamicGenerateIntegerAction);
+    }
+
+    public void testAllSolutionsLocated() throws PropagationFailureException {
+        DynamicVariableSelector selectors[] = selectors();
+        for (int s=0; s<selectors.length; s++) {
+            setUp();
+            CspIntVariable x[] = queens(8);
+            SearchAction action = actions.generate(x, null, selectors[s]);
+            assertEquals(selectors[s].getClass().getName(), 92, countSolutions(action));
+
+            // learned scores are kept when searching again
+            solver.reset();
+            assertEquals(selectors[s].getClass().getName(), 92, countSolutions(action));
+        }
+    }
+
+    public void testSolutionsSatisfyConstraints() throws PropagationFailureException {
+        DynamicVariableSelector selectors[] = selectors();
+        for (int s=0; s<selectors.length; s++) {
+            setUp();
+            CspIntVariable x[] = queens(20);
+            assertTrue(solver.solve(actions.generate(x, null, selectors[s])));
+            for (int i=0; i<x.length; i++) {
+                assertTrue(x[i].isBound());
+                for (int j=i+1; j<x.length; j++) {
+                    assertTrue(x[i].getMin() != x[j].getMin());
+                    assertTrue(Math.abs(x[i].getMin() - x[j].getMin()) != j - i);
+                }
+            }
+        }
+    }
+
+    public void testSmallestDomainFirstBeforeLearning() throws PropagationFailureException {
+        DynamicVariableSelector selectors[] = selectors();
+        for (int s=0; s<selectors.length; s++) {
+            setUp();
+            CspIntVariable x = varFactory.intVar("x", 1, 10);
+            CspIntVariable y = varFactory.intVar("y", 1, 3);
+            CspIntVariable z = varFactory.intVar("z", 1, 6);
+            solver.addConstraint(x.neq(y));
+            solver.addConstraint(x.neq(z));
+            solver.addConstraint(y.neq(z));
+
+            assertTrue(solver.solve(actions.generate(new CspIntVariable[]{x, y, z}, null, selectors[s])));
+            assertEquals(selectors[s].getClass().getName(), 3, x.getMin());
+            assertEquals(selectors[s].getClass().getName(), 1, y.getMin());
+            assertEquals(selectors[s].getClass().getName(), 2, z.getMin());
+        }
+    }
+
+    public void testFailuresWeighted() throws PropagationFailureException {
+        CspIntVariable x[] = queens(10);
+        assertEquals(0, alg.getFailureWeight(((IntExpr) x[0]).getNode()));
+
+        countSolutions(actions.generate(x, null, new DomWdegVariableSelector()));
+        int weight = 0;
+        for (int i=0; i<x.length; i++)
+            weight += alg.getFailureWeight(((IntExpr) x[i]).getNode());
+        assertTrue(weight > 0);
+
+        // weight of a node is its degree until propagation fails
+        CspIntVariable y = varFactory.intVar("y", 0, 5);
+        CspIntVariable z = varFactory.intVar("z", 0, 5);
+        solver.addConstraint(y.neq(z));
+        assertEquals(0, alg.getFailureWeight(((IntExpr) y).getNode()));
+        assertTrue(alg.getWeightedDegree(((IntExpr) y).getNode()) > 0);
+    }
+
+    public void testFixedOrderForOtherGenerateActions() throws PropagationFailureException {
+        CspLongVariable x = varFactory.longVar("x", 1, 10);
+        CspLongVariable y = varFactory.longVar("y", 1, 3);
+        CspLongVariable z = varFactory.longVar("z", 1, 6);
+        solver.addConstraint(x.neq(y));
+        solver.addConstraint(x.neq(z));
+        solver.addConstraint(y.neq(z));
+
+        assertTrue(solver.solve(actions.generate(new CspLongVariable[]{x, y, z}, null, new DomWdegVariableSelector())));
+        assertEquals(3, x.getMin());
+        assertEquals(1, y.getMin());
+        assertEquals(2, z.getMin());
+    }
+}
@@ -0,0 +1,202 @@
+package jopt.csp.test.search;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.LocalSearch;
+import jopt.csp.search.RelaxationSelector;
+import jopt.csp.search.Search;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.search.localsearch.LargeNeighborhoodSearch;
+import jopt.csp.spi.search.localsearch.PropagationGuidedRelaxation;
+import jopt.csp.spi.search.localsearch.RandomRelaxation;
+import jopt.csp.spi.search.localsearch.RelatedVariableRelaxation;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests large neighborhood search and the selectors of variables it relaxes
+ */
+public class LargeNeighborhoodSearchTest extends TestCase {
+    private CspSolver solver;
+    private CspVariableFactory varFactory;
+    private LocalSearch local;
+    private CspIntVariable x[];
+    private CspIntExpr cost;
+
+    public void setUp() {
+        solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+        varFactory = solver.getVarFactory();
+        local = solver.getLocalSearch();
+    }
+
+    public void tearDown() {
+        solver = null;
+        varFactory = null;
+        local = null;
+        x = null;
+        cost = null;
+    }
+
+    /**
+     * Creates variables taking different values with a cost weighting each
+     * variable by its position, which is least when values decrease
+     */
+    private void createProblem(int n) throws PropagationFailureException {
+        x = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 0, n - 1);
+        solver.addConstraint(varFactory.getMath().allDifferent(x));
+
+        cost = x[0];
+        for (int i=1; i<n; i++)
+            cost = cost.add(x[i].multiply(i + 1));
+    }
+
+    /**
+     * Returns least cost of problem with n variables
+     */
+    private static int optimalCost(int n) {
+        int total = 0;
+        for (int i=0; i<n; i++)
+            total += (i + 1) * (n - 1 - i);
+        return total;
+    }
+
+    /**
+     * Runs a search to completion, verifying each solution improves upon the
+     * last, and returns the cost of the final solution
+     */
+    private int searchToEnd(Search search, SolverSolution incumbent) {
+        int last = Integer.MAX_VALUE;
+        boolean found = solver.solve(search, false);
+        while (found) {
+            for (int i=0; i<x.length; i++) {
+                assertTrue(x[i].isBound());
+                for (int j=i+1; j<x.length; j++)
+                    assertTrue(x[i].getMin() != x[j].getMin());
+            }
+            assertTrue(cost.getMin() < last);
+            assertEquals(cost.getMin(), incumbent.getIntObjectiveVal());
+            last = cost.getMin();
+            found = solver.nextSolution();
+        }
+        return last;
+    }
+
+    public void testSelectorsReachOptimum() throws PropagationFailureException {
+        int n = 8;
+        double relatedness[][] = new double[n][n];
+        for (int i=0; i<n; i++)
+            for (int j=0; j<n; j++)
+                relatedness[i][j] = 1d / (1 + Math.abs(i - j));
+
+        RelaxationSelector selectors[] = new RelaxationSelector[] {
+            new RandomRelaxation(1),
+            new PropagationGuidedRelaxation(1),
+            new RelatedVariableRelaxation(relatedness, 5, 1)
+        };
+
+        for (int s=0; s<selectors.length; s++) {
+            setUp();
+            createProblem(n);
+            SolverSolution incumbent = new SolverSolution();
+            incumbent.setMinimizeObjective(cost);
+
+            LargeNeighborhoodSearch search = (LargeNeighborhoodSearch) local.largeNeighborhoodSearch(
+                incumbent, x, solver.getSearchActions().generate(x), selectors[s], 50, 300);
+            String name = selectors[s].getClass().getName();
+            assertEquals(name, optimalCost(n), searchToEnd(search, incumbent));
+            assertTrue(name, search.getImprovementCount() > 0);
+        }
+    }
+
+    public void testOptimumProved() throws PropagationFailureException {
+        createProblem(5);
+        SolverSolution incumbent = new SolverSolution();
+        incumbent.setMinimizeObjective(cost);
+
+        LargeNeighborhoodSearch search = (LargeNeighborhoodSearch) local.largeNeighborhoodSearch(
+            incumbent, x, solver.getSearchActions().generate(x), local.randomRelaxation(), 1000, 1000);
+        assertEquals(optimalCost(5), searchToEnd(search, incumbent));
+
+        // search ends once a search relaxing all variables locates no better solution
+        assertTrue(search.getIterationCount() < 1000);
+        assertEquals(5, search.getRelaxationSize());
+    }
+
+    public void testStartsFromIncumbent() throws PropagationFailureException {
+        createProblem(6);
+        assertTrue(solver.solve(solver.getSearchActions().generate(x)));
+        SolverSolution incumbent = new SolverSolution();
+        incumbent.setMinimizeObjective(cost);
+        for (int i=0; i<x.length; i++)
+            incumbent.add(x[i]);
+        solver.storeSolution(incumbent);
+        int initial = incumbent.getIntObjectiveVal();
+
+        solver.reset();
+        Search search = local.largeNeighborhoodSearch(
+            incumbent, x, solver.getSearchActions().generate(x), local.randomRelaxation(), 20, 1000);
+        assertTrue(solver.solve(search, false));
+        assertTrue(cost.getMin() < initial);
+    }
+
+    public void testIterationLimit() throws PropagationFailureException {
+        createProblem(10);
+        SolverSolution incumbent = new SolverSolution();
+        incumbent.setMaximizeObjective(cost);
+
+        LargeNeighborhoodSearch search = (LargeNeighborhoodSearch) local.largeNeighborhoodSearch(
+            incumbent, x, solver.getSearchActions().generate(x), local.propagationGuidedRelaxation(), 5, 20);
+        boolean found = solver.solve(search, false);
+        int last = Integer.MIN_VALUE;
+        while (found) {
+            assertTrue(cost.getMin() > last);
+            last = cost.getMin();
+            found = solver.nextSolution();
+        }
+        assertEquals(20, search.getIterationCount());
+        assertTrue(last > 0);
+    }
+
+    public void testSelectorsLeaveVariablesRelaxed() throws PropagationFailureException {
+        AC5 alg = new AC5(CspAlgorithmStrength.ARC_CONSISTENCY);
+        ConstraintStore store = new ConstraintStore(alg);
+        CspVariableFactory varFactory = alg.getVarFactory();
+        CspIntVariable vars[] = new CspIntVariable[10];
+        SolverSolution incumbent = new SolverSolution();
+        for (int i=0; i<vars.length; i++) {
+            vars[i] = varFactory.intVar("v" + i, 0, 19);
+            store.addVariable(vars[i], true);
+            incumbent.add(vars[i]);
+            incumbent.setValue(vars[i], 2 * i);
+        }
+        for (int i=1; i<vars.length; i++)
+            store.addConstraint(vars[i-1].lt(vars[i]));
+
+        RelaxationSelector selectors[] = new RelaxationSelector[] {
+            new RandomRelaxation(3),
+            new PropagationGuidedRelaxation(3),
+            new RelatedVariableRelaxation(new double[10][10], 2, 3)
+        };
+
+        ChoicePointStack cps = store.getChoicePointStack();
+        for (int s=0; s<selectors.length; s++) {
+            cps.push();
+            selectors[s].fix(vars, incumbent, 4);
+            int unbound = 0;
+            for (int i=0; i<vars.length; i++) {
+                if (!vars[i].isBound()) unbound++;
+                else assertEquals(2 * i, vars[i].getMin());
+            }
+            assertEquals(4, unbound);
+            cps.pop();
+        }
+    }
+}
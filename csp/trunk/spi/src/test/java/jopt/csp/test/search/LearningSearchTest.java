@@ -0,0 +1,242 @@
+package jopt.csp.test.search;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.Search;
+import jopt.csp.search.SearchGoal;
+import jopt.csp.spi.AC5;
+import jopt.csp.spi.arcalgorithm.ExplanationRecorder;
+import jopt.csp.spi.search.technique.RestartSearch;
+import jopt.csp.spi.search.technique.TreeSearch;
+import jopt.csp.spi.solver.ChoicePointStack;
+import jopt.csp.spi.solver.ConstraintStore;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests searches that explain failures to backjump and learn nogoods
+ */
+public class LearningSearchTest extends TestCase {
+    private AC5 alg;
+    private CspSolver solver;
+    private CspVariableFactory varFactory;
+    private CspIntVariable x[];
+
+    public void setUp() {
+        alg = new AC5(CspAlgorithmStrength.ARC_CONSISTENCY);
+        solver = CspSolver.createSolver(alg);
+        varFactory = solver.getVarFactory();
+    }
+
+    public void tearDown() {
+        alg = null;
+        solver = null;
+        varFactory = null;
+        x = null;
+    }
+
+    public void testExplanationOfFailure() throws PropagationFailureException {
+        checkExplanationOfFailure(new ChoicePointStack());
+    }
+
+    public void testTrailingExplanationOfFailure() throws PropagationFailureException {
+        checkExplanationOfFailure(new ChoicePointStack(true));
+    }
+
+    public void testTrailingSearchesLocateAllSolutions() throws PropagationFailureException {
+        useTrailingSolver();
+        createQueens(8);
+        Search search = solver.getSearchTechniques().learningSearch(solver.getSearchActions().generate(x));
+        assertEquals(92, countSolutions(search));
+
+        useTrailingSolver();
+        createQueens(8);
+        search = solver.getSearchTechniques().learningRestartSearch(solver.getSearchActions().generate(x), 2);
+        assertEquals(92, countSolutions(search));
+        assertTrue(((RestartSearch) search).getNogoodCount() > 0);
+    }
+
+    /**
+     * Explains failures of decisions made on a choicepoint stack
+     */
+    private void checkExplanationOfFailure(ChoicePointStack cps) throws PropagationFailureException {
+        AC5 alg = new AC5(CspAlgorithmStrength.ARC_CONSISTENCY);
+        ConstraintStore store = new ConstraintStore(alg, true, cps);
+        CspVariableFactory varFactory = alg.getVarFactory();
+        CspIntVariable p = varFactory.intVar("p", 0, 2);
+        CspIntVariable q = varFactory.intVar("q", 0, 2);
+        CspIntVariable r = varFactory.intVar("r", 0, 2);
+        CspIntVariable a = varFactory.intVar("a", 0, 2);
+        CspIntVariable d = varFactory.intVar("d", 0, 10);
+        store.addConstraint(p.neq(q));
+        store.addConstraint(q.neq(r));
+        store.addConstraint(p.neq(r));
+        store.addConstraint(a.leq(p));
+        store.addConstraint(a.leq(q));
+        store.addConstraint(a.leq(r));
+        store.addConstraint(d.neq(5));
+
+        alg.setRecordingExplanations(true);
+        ExplanationRecorder explanations = alg.getExplanationRecorder();
+
+        cps.push();
+        explanations.beginDecision(1);
+        a.setMin(1);
+
+        cps.push();
+        explanations.beginDecision(2);
+        d.setMax(3);
+
+        // q and r are both assigned 2, failing the constraint between them
+        cps.push();
+        explanations.beginDecision(3);
+        try {
+            p.setValue(1);
+            fail("no holes remain for q and r");
+        }
+        catch (PropagationFailureException expected) {}
+
+        // failure does not depend on decision made upon d
+        BitSet conflict = explanations.explainFailure();
+        assertNotNull(conflict);
+        assertTrue(conflict.get(1));
+        assertFalse(conflict.get(2));
+        assertTrue(conflict.get(3));
+
+        // decisions popped from stack are no longer recorded
+        cps.pop();
+        cps.pop();
+        explanations.beginDecision(2);
+        try {
+            p.setValue(1);
+            fail("no holes remain for q and r");
+        }
+        catch (PropagationFailureException expected) {}
+        conflict = explanations.explainFailure();
+        assertTrue(conflict.get(1));
+        assertTrue(conflict.get(2));
+        assertFalse(conflict.get(3));
+    }
+
+    public void testBackjumpOverIrrelevantDecisions() throws PropagationFailureException {
+        // pigeons in holes with irrelevant variables assigned between them
+        CspIntVariable pigeons[] = new CspIntVariable[4];
+        for (int i=0; i<pigeons.length; i++)
+            pigeons[i] = varFactory.intVar("p" + i, 0, 2);
+        for (int i=0; i<pigeons.length; i++)
+            for (int j=i+1; j<pigeons.length; j++)
+                solver.addConstraint(pigeons[i].neq(pigeons[j]));
+
+        x = new CspIntVariable[pigeons.length + 8];
+        x[0] = pigeons[0];
+        for (int i=1; i<=8; i++) {
+            x[i] = varFactory.intVar("y" + i, 0, 9);
+            solver.addConstraint(x[i].neq(-1));
+        }
+        for (int i=1; i<pigeons.length; i++)
+            x[8 + i] = pigeons[i];
+
+        Search search = solver.getSearchTechniques().learningSearch(solver.getSearchActions().generate(x));
+        assertFalse(solver.solve(search, false));
+        assertTrue(((TreeSearch) search).getBackjumpCount() > 0);
+        assertTrue(((TreeSearch) search).getLearnedNogoods().size() > 0);
+    }
+
+    public void testAllSolutionsLocated() throws PropagationFailureException {
+        createQueens(8);
+        Search search = solver.getSearchTechniques().learningSearch(solver.getSearchActions().generate(x));
+        assertEquals(92, countSolutions(search));
+
+        setUp();
+        createQueens(3);
+        search = solver.getSearchTechniques().learningSearch(solver.getSearchActions().generate(x));
+        assertEquals(0, countSolutions(search));
+    }
+
+    public void testRestartsPostLearnedNogoods() throws PropagationFailureException {
+        createQueens(8);
+        Search search = solver.getSearchTechniques().learningRestartSearch(solver.getSearchActions().generate(x), 2);
+        assertEquals(92, countSolutions(search));
+
+        RestartSearch restart = (RestartSearch) search;
+        assertTrue(restart.getRunCount() > 1);
+        assertTrue(restart.getNogoodCount() > 0);
+    }
+
+    public void testMinimizeMatchesDepthFirst() throws PropagationFailureException {
+        createQueens(8);
+        SearchGoal goal = solver.getSearchGoals().minimize(x[0].add(x[7].multiply(2)));
+        boolean found = solver.solve(solver.getSearchActions().generate(x), goal, null, true, false);
+        int best = Integer.MAX_VALUE;
+        while (found) {
+            best = x[0].getMin() + 2 * x[7].getMin();
+            found = solver.nextSolution();
+        }
+
+        setUp();
+        createQueens(8);
+        goal = solver.getSearchGoals().strictlyMinimize(x[0].add(x[7].multiply(2)), 1);
+        Search search = solver.getSearchTechniques().learningSearch(solver.getSearchActions().generate(x));
+        search.setGoal(goal);
+
+        int learnedBest = Integer.MAX_VALUE;
+        found = solver.solve(search, false);
+        while (found) {
+            int objective = x[0].getMin() + 2 * x[7].getMin();
+            assertTrue(objective < learnedBest);
+            learnedBest = objective;
+            found = solver.nextSolution();
+        }
+        assertEquals(best, learnedBest);
+    }
+
+    /**
+     * Replaces the solver with one whose choicepoint stack records changes on a trail
+     */
+    private void useTrailingSolver() {
+        alg = new AC5(CspAlgorithmStrength.ARC_CONSISTENCY);
+        solver = CspSolver.createSolver(alg, null, true);
+        varFactory = solver.getVarFactory();
+    }
+
+    /**
+     * Counts solutions located by a search, verifying each is a new solution
+     */
+    private int countSolutions(Search search) {
+        Set<String> solutions = new HashSet<String>();
+        boolean found = solver.solve(search, false);
+        while (found) {
+            StringBuffer buf = new StringBuffer();
+            for (int i=0; i<x.length; i++) {
+                assertTrue(x[i].isBound());
+                buf.append(x[i].getMin()).append(',');
+            }
+            assertTrue("duplicate solution " + buf, solutions.add(buf.toString()));
+            found = solver.nextSolution();
+        }
+        return solutions.size();
+    }
+
+    /**
+     * Creates an N-Queens problem
+     */
+    private void createQueens(int n) throws PropagationFailureException {
+        x = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package jopt.csp.test.search;
 
 import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchNodeReference;
 import jopt.csp.spi.SolverImpl;
 import jopt.csp.spi.search.actions.NonBinaryGenerateIntegerAction;
 import jopt.csp.spi.search.technique.DepthFirstSearch;
@@ -11,6 +12,7 @@ import jopt.csp.spi.search.tree.DeltaStateManager;
 import jopt.csp.spi.search.tree.JumpingSearchTree;
 import jopt.csp.spi.search.tree.ProblemStateManager;
 import jopt.csp.spi.search.tree.SearchTree;
+import jopt.csp.spi.search.tree.TreeNode;
 import jopt.csp.spi.solver.ConstraintStore;
 import jopt.csp.variable.CspIntVariable;
 import jopt.csp.variable.CspVariableFactory;
@@ -137,6 +139,33 @@ public class NonBinaryDepthFirstSearchTest extends TestCase {
         doTestSearch(search);
     }
     
+    public void testCrawlToAncestorAndDescendant() throws PropagationFailureException {
+        SearchAction genVars = new NonBinaryGenerateIntegerAction(new CspIntVariable[]{x, y, z});
+        SearchTree tree = new CrawlingSearchTree(new BasicSearchNode(genVars), new DeltaStateManager(store));
+
+        // activate nodes assigning x to 2 and then y to 1
+        tree.getCurrentNode().activate(null);
+        TreeNode ancestor = tree.moveToChild(2);
+        ancestor.activate(null);
+        TreeNode descendant = tree.moveToChild(1);
+        descendant.activate(null);
+
+        SearchNodeReference ancestorRef = tree.getReferenceForNode(ancestor);
+        SearchNodeReference descendantRef = tree.getReferenceForNode(descendant);
+
+        tree.returnToReference(ancestorRef);
+        assertEquals("ancestor depth", 1, tree.getDepth());
+        assertEquals("ancestor node", ancestor, tree.getCurrentNode());
+        assertEquals("x", 2, x.getMin());
+        assertEquals("y max", 1, y.getMax());
+
+        tree.returnToReference(descendantRef);
+        assertEquals("descendant depth", 2, tree.getDepth());
+        assertEquals("descendant node", descendant, tree.getCurrentNode());
+        assertEquals("y", 1, y.getMin());
+        assertEquals("z", 3, z.getMin());
+    }
+    
     public void testJumpingTree() {
         SearchAction genVars = new NonBinaryGenerateIntegerAction(new CspIntVariable[]{x, y, z});
         SearchTree tree = new JumpingSearchTree(new BasicSearchNode(genVars), new ProblemStateManager(store));
@@ -0,0 +1,227 @@
+package jopt.csp.test.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.CurrentNeighbor;
+import jopt.csp.search.LocalSearch;
+import jopt.csp.search.Metaheuristic;
+import jopt.csp.search.NeighborEvaluator;
+import jopt.csp.search.NeighborReplica;
+import jopt.csp.search.NeighborReplicaModel;
+import jopt.csp.search.Neighborhood;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.AC5;
+import jopt.csp.variable.CspAlgorithmStrength;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspMath;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests evaluation of neighbors in parallel within copies of a problem
+ */
+public class ParallelNeighborhoodTest extends TestCase {
+    private CspSolver solver;
+    private LocalSearch local;
+    private Problem problem;
+    private NeighborEvaluator evaluator;
+
+    public void tearDown() {
+        if (evaluator!=null) evaluator.shutdown();
+        solver = null;
+        local = null;
+        problem = null;
+        evaluator = null;
+    }
+
+    /**
+     * Variables and objective of a copy of the problem
+     */
+    private static class Problem {
+        private CspSolver solver;
+        private CspIntVariable x[];
+        private CspIntExpr cost;
+    }
+
+    /**
+     * Creates queens that take different values with a weighted cost,
+     * or binary variables limited by a weight with a cost
+     */
+    private static Problem createProblem(boolean queens, int n) throws PropagationFailureException {
+        Problem problem = new Problem();
+        problem.solver = CspSolver.createSolver(new AC5(CspAlgorithmStrength.ARC_CONSISTENCY));
+        CspVariableFactory varFactory = problem.solver.getVarFactory();
+        CspMath math = varFactory.getMath();
+
+        problem.x = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            problem.x[i] = varFactory.intVar("x" + i, 0, queens ? n - 1 : 1);
+
+        if (queens) {
+            for (int i=0; i<n; i++)
+                for (int j=i+1; j<n; j++)
+                    problem.solver.addConstraint(math.abs(problem.x[i].subtract(problem.x[j])).neq(j - i));
+            problem.solver.addConstraint(math.allDifferent(problem.x));
+
+            problem.cost = problem.x[0];
+            for (int i=1; i<n; i++)
+                problem.cost = problem.cost.add(problem.x[i].multiply(i + 1));
+        }
+        else {
+            CspIntExpr weight = problem.x[0];
+            problem.cost = problem.x[0].multiply(2);
+            for (int i=1; i<n; i++) {
+                weight = weight.add(problem.x[i].multiply(i % 3 + 1));
+                problem.cost = problem.cost.add(problem.x[i].multiply(i + 2));
+            }
+            problem.solver.addConstraint(weight.leq(n));
+        }
+        return problem;
+    }
+
+    /**
+     * Creates the problem and an evaluator whose workers build copies of it
+     */
+    private void createEvaluator(final boolean queens, final int n, int workers) throws PropagationFailureException {
+        problem = createProblem(queens, n);
+        solver = problem.solver;
+        local = solver.getLocalSearch();
+        evaluator = local.parallelEvaluator(problem.x, new NeighborReplicaModel() {
+            public NeighborReplica buildReplica(int worker) throws PropagationFailureException {
+                Problem replica = createProblem(queens, n);
+                return new NeighborReplica(replica.solver, replica.x, replica.cost);
+            }
+        }, workers);
+    }
+
+    /**
+     * Returns a solution containing each variable with a value
+     */
+    private SolverSolution createInitial(int values[]) {
+        SolverSolution initial = new SolverSolution();
+        for (int i=0; i<problem.x.length; i++) {
+            initial.add(problem.x[i]);
+            initial.setValue(problem.x[i], values[i]);
+        }
+        return initial;
+    }
+
+    /**
+     * Returns the objective of each neighbor restored by browsing a
+     * neighborhood on a single thread indexed by neighbor
+     */
+    private int[] browseObjectives(SolverSolution initial, Neighborhood hood) {
+        int objectives[] = new int[hood.size()];
+        for (int i=0; i<objectives.length; i++)
+            objectives[i] = -1;
+
+        CurrentNeighbor current = new CurrentNeighbor();
+        boolean found = solver.solve(local.browseNeighborhood(initial, hood, current));
+        while (found) {
+            objectives[current.getIndex()] = problem.cost.getMin();
+            found = solver.nextSolution();
+        }
+        return objectives;
+    }
+
+    public void testEvaluateMatchesSequentialBrowse() throws PropagationFailureException {
+        createEvaluator(true, 8, 3);
+        SolverSolution initial = createInitial(new int[] {1, 3, 5, 7, 2, 0, 6, 4});
+        initial.setMinimizeObjective(problem.cost);
+        Neighborhood hood = local.swapNeighborhood(problem.x);
+        int objectives[] = browseObjectives(initial, hood);
+
+        hood.setInitialSolution(initial);
+        int order[] = evaluator.evaluate(initial, hood);
+
+        // every consistent neighbor is located, ordered by objective and then index
+        int count = 0;
+        for (int i=0; i<objectives.length; i++)
+            if (objectives[i] >= 0) count++;
+        assertEquals(count, order.length);
+        assertTrue(order.length > 0);
+        for (int i=0; i<order.length; i++) {
+            assertTrue(objectives[order[i]] >= 0);
+            if (i > 0) {
+                int prev = objectives[order[i-1]];
+                assertTrue(prev < objectives[order[i]] || (prev == objectives[order[i]] && order[i-1] < order[i]));
+            }
+        }
+    }
+
+    public void testOrderIndependentOfWorkerCount() throws PropagationFailureException {
+        int bits[] = new int[] {1, 0, 1, 0, 0, 1, 0, 0, 1, 0};
+        List<int[]> orders = new ArrayList<int[]>();
+        for (int workers=1; workers<=4; workers+=3) {
+            createEvaluator(false, 10, workers);
+            SolverSolution initial = createInitial(bits);
+            initial.setMaximizeObjective(problem.cost);
+            Neighborhood hood = local.flipNeighborhood(problem.x);
+            hood.setInitialSolution(initial);
+            orders.add(evaluator.evaluate(initial, hood));
+            tearDown();
+        }
+
+        int first[] = orders.get(0);
+        int second[] = orders.get(1);
+        assertEquals(first.length, second.length);
+        for (int i=0; i<first.length; i++)
+            assertEquals(first[i], second[i]);
+    }
+
+    public void testNoObjectiveKeepsNeighborhoodOrder() throws PropagationFailureException {
+        createEvaluator(true, 6, 2);
+        SolverSolution initial = createInitial(new int[] {1, 3, 5, 0, 2, 4});
+        Neighborhood hood = local.swapNeighborhood(problem.x);
+        hood.setInitialSolution(initial);
+
+        int order[] = evaluator.evaluate(initial, hood);
+        assertTrue(order.length > 0);
+        for (int i=1; i<order.length; i++)
+            assertTrue(order[i-1] < order[i]);
+    }
+
+    public void testMoveSelectsBestNeighbor() throws PropagationFailureException {
+        createEvaluator(false, 10, 2);
+        SolverSolution solution = createInitial(new int[10]);
+        solution.setMaximizeObjective(problem.cost);
+        Neighborhood hood = local.flipNeighborhood(problem.x);
+
+        // each move without a metaheuristic takes the neighbor with the greatest cost
+        for (int m=0; m<3; m++) {
+            int objectives[] = browseObjectives(solution, hood);
+            int best = -1;
+            for (int i=0; i<objectives.length; i++)
+                best = Math.max(best, objectives[i]);
+
+            assertTrue(solver.solve(local.neighborMove(solution, hood, null, evaluator)));
+            assertEquals(best, solution.getIntObjectiveVal());
+        }
+    }
+
+    public void testTabuMovesIndependentOfWorkerCount() throws PropagationFailureException {
+        List<List<Integer>> moves = new ArrayList<List<Integer>>();
+        for (int workers=1; workers<=3; workers+=2) {
+            createEvaluator(true, 8, workers);
+            SolverSolution solution = createInitial(new int[] {1, 3, 5, 7, 2, 0, 6, 4});
+            solution.setMinimizeObjective(problem.cost);
+            Neighborhood hood = local.swapNeighborhood(problem.x);
+
+            Metaheuristic tabu = local.tabu(2);
+
+            // record objective of solution selected by each move until no move is possible
+            List<Integer> objectives = new ArrayList<Integer>();
+            while (objectives.size() < 6 && solver.solve(local.neighborMove(solution, hood, tabu, evaluator)))
+                objectives.add(new Integer(solution.getIntObjectiveVal()));
+            moves.add(objectives);
+            tearDown();
+        }
+
+        assertEquals(moves.get(0), moves.get(1));
+        assertTrue(moves.get(0).size() > 0);
+    }
+}
@@ -0,0 +1,77 @@
+package jopt.csp.test.search;
+
+import jopt.csp.CspSolver;
+import jopt.csp.spi.search.technique.WorkStealingPool;
+import jopt.csp.spi.search.technique.WorkStealingSearch;
+import jopt.csp.variable.CspIntVariable;
+import junit.framework.TestCase;
+
+/**
+ * Tests searching a single N-Queens search tree with several workers
+ * exchanging open nodes
+ */
+public class ParallelTreeSearchTest extends TestCase {
+
+    public ParallelTreeSearchTest(String testName) {
+        super(testName);
+    }
+
+    public void testAllSolutionsSearchedOnce() throws Exception {
+        assertEquals("8 queens", 92, countSolutions(8, 4));
+        assertEquals("9 queens", 352, countSolutions(9, 3));
+    }
+
+    public void testPoolExhaustedWhenAllWorkersWait() {
+        WorkStealingPool pool = new WorkStealingPool(1);
+        assertNull("no nodes", pool.take(0));
+        assertTrue("exhausted", pool.isExhausted());
+
+        pool = new WorkStealingPool(2);
+        pool.stop();
+        assertNull("stopped", pool.take(0));
+        assertFalse("not exhausted", pool.isExhausted());
+    }
+
+    /**
+     * Counts solutions located by workers sharing a single tree, each
+     * worker counting solutions in its own thread
+     */
+    private int countSolutions(final int n, int workers) throws Exception {
+        final WorkStealingPool pool = new WorkStealingPool(workers);
+        final int counts[] = new int[workers];
+        final Exception errors[] = new Exception[workers];
+
+        Thread threads[] = new Thread[workers];
+        for (int w=0; w<workers; w++) {
+            final int worker = w;
+            threads[w] = new Thread() {
+                public void run() {
+                    try {
+                        CspSolver solver = CspSolver.createSolver();
+                        CspIntVariable x[] = PortfolioSolverTest.createQueens(solver, n);
+                        WorkStealingSearch technique = new WorkStealingSearch(pool, worker);
+                        boolean found = solver.solve(solver.getSearchActions().generate(x), null, technique, false, false);
+                        while (found) {
+                            counts[worker]++;
+                            found = solver.nextSolution();
+                        }
+                    }
+                    catch (Exception e) {
+                        errors[worker] = e;
+                        pool.stop();
+                    }
+                }
+            };
+            threads[w].start();
+        }
+
+        int total = 0;
+        for (int w=0; w<workers; w++) {
+            threads[w].join();
+            if (errors[w]!=null) throw errors[w];
+            total += counts[w];
+        }
+        assertTrue("exhausted", pool.isExhausted());
+        return total;
+    }
+}
@@ -0,0 +1,249 @@
+package jopt.csp.test.search;
+
+import jopt.csp.CspPortfolioModel;
+import jopt.csp.CspPortfolioSearch;
+import jopt.csp.CspPortfolioSolver;
+import jopt.csp.CspSolver;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchActions;
+import jopt.csp.search.SearchGoal;
+import jopt.csp.search.SearchLimit;
+import jopt.csp.solution.SolutionScope;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.search.MinDomainVariableSelector;
+import jopt.csp.variable.CspIntExpr;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests solving N-Queens problems with a portfolio of workers
+ * using different search strategies
+ */
+public class PortfolioSolverTest extends TestCase {
+
+    public PortfolioSolverTest(String testName) {
+        super(testName);
+    }
+
+    public void testMinimizeMatchesSingleSolver() throws PropagationFailureException {
+        int best = minimizeWithSingleSolver(8);
+
+        for (int mode=0; mode<2; mode++) {
+            QueensModel model = new QueensModel(8, true, mode==1);
+            CspPortfolioSolver portfolio = CspPortfolioSolver.createPortfolioSolver(3);
+            assertTrue("solution found", solve(portfolio, model, null));
+            assertTrue("search complete", portfolio.isSearchComplete());
+            assertEquals("objective", best, (int) portfolio.getBestObjective());
+
+            // solution is stored for variables of worker locating it
+            int worker = portfolio.getBestWorker();
+            CspIntVariable x[] = model.vars[worker];
+            SolverSolution solution = portfolio.getBestSolution();
+            assertEquals("solution objective", best, solution.getValue(x[0]) + solution.getValue(x[x.length-1]));
+        }
+    }
+
+    public void testFirstSolution() {
+        for (int mode=0; mode<2; mode++) {
+            QueensModel model = new QueensModel(12, false, mode==1);
+            CspPortfolioSolver portfolio = CspPortfolioSolver.createPortfolioSolver(3);
+            assertTrue("solution found", solve(portfolio, model, null));
+            assertFalse("search complete", portfolio.isSearchComplete());
+            assertTrue("objective", Double.isNaN(portfolio.getBestObjective()));
+
+            CspIntVariable x[] = model.vars[portfolio.getBestWorker()];
+            SolverSolution solution = portfolio.getBestSolution();
+            for (int i=0; i<x.length; i++) {
+                for (int j=i+1; j<x.length; j++) {
+                    int xi = solution.getValue(x[i]);
+                    int xj = solution.getValue(x[j]);
+                    assertTrue("queens " + i + " and " + j, xi != xj && Math.abs(xi - xj) != j - i);
+                }
+            }
+        }
+    }
+
+    public void testNoSolution() {
+        for (int mode=0; mode<2; mode++) {
+            CspPortfolioSolver portfolio = CspPortfolioSolver.createPortfolioSolver(2);
+            assertFalse("solution found", solve(portfolio, new QueensModel(3, true, mode==1), null));
+            assertTrue("search complete", portfolio.isSearchComplete());
+            assertEquals("best worker", -1, portfolio.getBestWorker());
+            assertNull("solution", portfolio.getBestSolution());
+        }
+    }
+
+    public void testSearchLimit() {
+        for (int mode=0; mode<2; mode++) {
+            CspPortfolioSolver portfolio = CspPortfolioSolver.createPortfolioSolver(2);
+            CspSolver limitSolver = CspSolver.createSolver();
+            solve(portfolio, new QueensModel(30, true, mode==1), limitSolver.getSearchLimits().choiceLimit(5));
+            assertFalse("search complete", portfolio.isSearchComplete());
+            assertNotNull("worker solver", portfolio.getSolver(0));
+            assertNotNull("worker solver", portfolio.getSolver(1));
+        }
+    }
+
+    public void testWorkerStoppedBeforeSearchDoesNotCompleteSearch() {
+        final QueensModel queens = new QueensModel(8, false, false);
+        final CspPortfolioSolver portfolio = CspPortfolioSolver.createPortfolioSolver(2);
+
+        // second worker finishes building its problem after first worker
+        // has located a solution and stopped the portfolio
+        CspPortfolioModel model = new CspPortfolioModel() {
+            public CspPortfolioSearch buildModel(CspSolver solver, int worker) throws PropagationFailureException {
+                CspPortfolioSearch search = queens.buildModel(solver, worker);
+                for (int i=0; worker==1 && i<1000 && portfolio.getBestWorker()<0; i++) {
+                    try {
+                        Thread.sleep(10);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return search;
+            }
+        };
+
+        assertTrue("solution found", portfolio.solve(model));
+        assertEquals("best worker", 0, portfolio.getBestWorker());
+        assertFalse("search complete", portfolio.isSearchComplete());
+    }
+
+    public void testWorkerErrorStopsParallelSearch() throws InterruptedException {
+        final QueensModel queens = new QueensModel(8, true, true);
+        final CspPortfolioSolver portfolio = CspPortfolioSolver.createPortfolioSolver(2);
+
+        // second worker fails before taking part in the search, leaving
+        // first worker to wait for open nodes when it is done
+        final CspPortfolioModel model = new CspPortfolioModel() {
+            public CspPortfolioSearch buildModel(CspSolver solver, int worker) throws PropagationFailureException {
+                CspPortfolioSearch search = queens.buildModel(solver, worker);
+                if (worker==0) return search;
+
+                SearchAction action = new SearchAction() {
+                    public SearchAction performAction() {
+                        throw new IllegalStateException("worker failed");
+                    }
+                };
+                return new CspPortfolioSearch(action, search.getGoal(), null, search.getScope());
+            }
+        };
+
+        final RuntimeException errors[] = new RuntimeException[1];
+        Thread solveThread = new Thread() {
+            public void run() {
+                try {
+                    portfolio.solveParallel(model);
+                }
+                catch (RuntimeException e) {
+                    errors[0] = e;
+                }
+            }
+        };
+        solveThread.setDaemon(true);
+        solveThread.start();
+        solveThread.join(30000);
+
+        assertFalse("portfolio stopped", solveThread.isAlive());
+        assertNotNull("error reported", errors[0]);
+        assertEquals("error", "worker failed", errors[0].getMessage());
+        assertFalse("search complete", portfolio.isSearchComplete());
+    }
+
+    /**
+     * Solves a model with each worker searching its own tree, or with all
+     * workers searching a single tree if the model is built for it
+     */
+    private boolean solve(CspPortfolioSolver portfolio, QueensModel model, SearchLimit limit) {
+        if (model.parallel)
+            return portfolio.solveParallel(model, limit);
+        return portfolio.solve(model, limit);
+    }
+
+    /**
+     * Minimizes the sum of the first and last queen with a single solver
+     */
+    private int minimizeWithSingleSolver(int n) throws PropagationFailureException {
+        CspSolver solver = CspSolver.createSolver();
+        CspIntVariable x[] = createQueens(solver, n);
+        SearchGoal goal = solver.getSearchGoals().minimize(x[0].add(x[n-1]));
+
+        int best = Integer.MAX_VALUE;
+        boolean found = solver.solve(solver.getSearchActions().generate(x), goal, null, true, false);
+        while (found) {
+            best = Math.min(best, x[0].getMin() + x[n-1].getMin());
+            found = solver.nextSolution();
+        }
+        return best;
+    }
+
+    /**
+     * Creates queens variables and constraints within a solver
+     */
+    static CspIntVariable[] createQueens(CspSolver solver, int n) throws PropagationFailureException {
+        CspVariableFactory varFactory = solver.getVarFactory();
+        CspIntVariable x[] = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Builds an N-Queens problem, searching with a different variable
+     * order for each worker unless all workers search a single tree
+     */
+    private static class QueensModel implements CspPortfolioModel {
+        private int n;
+        private boolean minimize;
+        private boolean parallel;
+        private CspIntVariable vars[][];
+
+        public QueensModel(int n, boolean minimize, boolean parallel) {
+            this.n = n;
+            this.minimize = minimize;
+            this.parallel = parallel;
+            this.vars = new CspIntVariable[4][];
+        }
+
+        public CspPortfolioSearch buildModel(CspSolver solver, int worker) throws PropagationFailureException {
+            CspIntVariable x[] = createQueens(solver, n);
+            vars[worker] = x;
+
+            SearchActions actions = solver.getSearchActions();
+            SearchAction action = null;
+            switch (parallel ? 0 : worker) {
+                case 0:
+                    action = actions.generate(x);
+                    break;
+                case 1:
+                    action = actions.generate(x, null, new MinDomainVariableSelector());
+                    break;
+                default:
+                    action = actions.splitGenerate(x);
+            }
+
+            SolutionScope scope = new SolutionScope();
+            for (int i=0; i<n; i++)
+                scope.add(x[i]);
+
+            SearchGoal goal = null;
+            if (minimize) {
+                CspIntExpr objective = x[0].add(x[n-1]);
+                goal = solver.getSearchGoals().minimize(objective);
+            }
+
+            return new CspPortfolioSearch(action, goal, null, scope);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package jopt.csp.test.search;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.Search;
+import jopt.csp.search.SearchAction;
+import jopt.csp.search.SearchGoal;
+import jopt.csp.spi.search.RandomVariableSelector;
+import jopt.csp.spi.search.technique.RestartSearch;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests restarting searches on N-Queens problems
+ */
+public class RestartSearchTest extends TestCase {
+    private CspSolver solver;
+    private CspIntVariable x[];
+
+    public RestartSearchTest(String testName) {
+        super(testName);
+    }
+
+    public void testLubyFindsEachSolutionOnce() throws PropagationFailureException {
+        createQueens(8);
+        Search search = solver.getSearchTechniques().lubyRestartSearch(solver.getSearchActions().generate(x), 2);
+        assertEquals("solutions", 92, countSolutions(search));
+
+        RestartSearch restart = (RestartSearch) search;
+        assertTrue("restarted", restart.getRunCount() > 1);
+        assertTrue("nogoods", restart.getNogoodCount() > 0);
+    }
+
+    public void testGeometricFindsEachSolutionOnce() throws PropagationFailureException {
+        createQueens(8);
+        Search search = solver.getSearchTechniques().restartSearch(solver.getSearchActions().generate(x), 1, 1.5);
+        assertEquals("solutions", 92, countSolutions(search));
+        assertTrue("restarted", ((RestartSearch) search).getRunCount() > 1);
+    }
+
+    public void testRandomVariableOrder() throws PropagationFailureException {
+        createQueens(8);
+        SearchAction action = solver.getSearchActions().generate(x, null, new RandomVariableSelector());
+        Search search = solver.getSearchTechniques().lubyRestartSearch(action, 2);
+        assertEquals("solutions", 92, countSolutions(search));
+    }
+
+    public void testNoSolution() throws PropagationFailureException {
+        createQueens(3);
+        Search search = solver.getSearchTechniques().lubyRestartSearch(solver.getSearchActions().generate(x), 1);
+        assertFalse("solution found", solver.solve(search, false));
+    }
+
+    public void testMinimizeMatchesDepthFirst() throws PropagationFailureException {
+        createQueens(8);
+        SearchGoal goal = solver.getSearchGoals().minimize(x[0].add(x[7].multiply(2)));
+        boolean found = solver.solve(solver.getSearchActions().generate(x), goal, null, true, false);
+        int best = Integer.MAX_VALUE;
+        while (found) {
+            best = x[0].getMin() + 2 * x[7].getMin();
+            found = solver.nextSolution();
+        }
+
+        createQueens(8);
+        goal = solver.getSearchGoals().strictlyMinimize(x[0].add(x[7].multiply(2)), 1);
+        Search search = solver.getSearchTechniques().lubyRestartSearch(solver.getSearchActions().generate(x), 1);
+        search.setGoal(goal);
+
+        int restartBest = Integer.MAX_VALUE;
+        found = solver.solve(search, false);
+        while (found) {
+            int objective = x[0].getMin() + 2 * x[7].getMin();
+            assertTrue("improving", objective < restartBest);
+            restartBest = objective;
+            found = solver.nextSolution();
+        }
+        assertEquals("best", best, restartBest);
+    }
+
+    public void testAllSolutionsNotSupported() throws PropagationFailureException {
+        createQueens(4);
+        Search search = solver.getSearchTechniques().lubyRestartSearch(solver.getSearchActions().generate(x), 1);
+        try {
+            search.setContinuallyImprove(false);
+            fail("collecting all solutions should not be supported");
+        }
+        catch (UnsupportedOperationException expected) {}
+    }
+
+    /**
+     * Counts solutions located by a search, verifying each is a new solution
+     */
+    private int countSolutions(Search search) {
+        Set<String> solutions = new HashSet<String>();
+        boolean found = solver.solve(search, false);
+        while (found) {
+            StringBuffer buf = new StringBuffer();
+            for (int i=0; i<x.length; i++) {
+                assertTrue("bound", x[i].isBound());
+                buf.append(x[i].getMin()).append(',');
+            }
+            assertTrue("duplicate solution " + buf, solutions.add(buf.toString()));
+            found = solver.nextSolution();
+        }
+        return solutions.size();
+    }
+
+    /**
+     * Creates a new solver containing an N-Queens problem
+     */
+    private void createQueens(int n) throws PropagationFailureException {
+        solver = CspSolver.createSolver();
+        CspVariableFactory varFactory = solver.getVarFactory();
+        x = new CspIntVariable[n];
+        for (int i=0; i<n; i++)
+            x[i] = varFactory.intVar("x" + i, 1, n);
+
+        for (int i=0; i<n; i++) {
+            for (int j=i+1; j<n; j++) {
+                solver.addConstraint(x[i].neq(x[j]));
+                solver.addConstraint(x[i].neq(x[j].add(j-i)));
+                solver.addConstraint(x[i].neq(x[j].subtract(j-i)));
+            }
+        }
+    }
+}
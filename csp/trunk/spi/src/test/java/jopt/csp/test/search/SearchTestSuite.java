@@ -13,13 +13,23 @@ public class SearchTestSuite extends TestCase {
     public static Test suite() {
         TestSuite suite = new TestSuite();
         
+        suite.addTestSuite(AcceptanceMetaheuristicTest.class);
         suite.addTestSuite(BreadthFirstSearchTest.class);
+        suite.addTestSuite(DeltaNeighborhoodTest.class);
         suite.addTestSuite(DepthFirstSearchTest.class);
+        suite.addTestSuite(DiscrepancySearchTest.class);
+        suite.addTestSuite(DynamicVariableSelectorTest.class);
+        suite.addTestSuite(LargeNeighborhoodSearchTest.class);
+        suite.addTestSuite(LearningSearchTest.class);
         suite.addTestSuite(LocalSearchTest.class);
         suite.addTestSuite(LookAheadSearchActionTest.class);
         suite.addTestSuite(MetaheuristicTest.class);
         suite.addTestSuite(NonBinaryBreadthFirstSearchTest.class);
         suite.addTestSuite(NonBinaryDepthFirstSearchTest.class);
+        suite.addTestSuite(ParallelNeighborhoodTest.class);
+        suite.addTestSuite(ParallelTreeSearchTest.class);
+        suite.addTestSuite(PortfolioSolverTest.class);
+        suite.addTestSuite(RestartSearchTest.class);
         suite.addTestSuite(SearchGoalTest.class);
         suite.addTestSuite(SearchRealTest.class);
         suite.addTestSuite(SetSearchTest.class);
@@ -0,0 +1,369 @@
+package jopt.csp.test.solution;
+
+import jopt.csp.CspSolver;
+import jopt.csp.search.CompactNeighborhood;
+import jopt.csp.solution.CompactNeighbor;
+import jopt.csp.solution.CompactSolution;
+import jopt.csp.solution.SolutionLayout;
+import jopt.csp.solution.SolutionScope;
+import jopt.csp.solution.SolverSolution;
+import jopt.csp.spi.search.localsearch.FlipNeighborhood;
+import jopt.csp.spi.search.localsearch.SwapNeighborhood;
+import jopt.csp.util.DoubleUtil;
+import jopt.csp.variable.CspBooleanVariable;
+import jopt.csp.variable.CspDoubleVariable;
+import jopt.csp.variable.CspFloatVariable;
+import jopt.csp.variable.CspIntVariable;
+import jopt.csp.variable.CspLongVariable;
+import jopt.csp.variable.CspNumVariable;
+import jopt.csp.variable.CspVariableFactory;
+import jopt.csp.variable.PropagationFailureException;
+import junit.framework.TestCase;
+
+/**
+ * Tests storing and restoring compact solutions and their neighbors
+ */
+public class CompactSolutionTest extends TestCase {
+    private CspSolver solver;
+    private CspVariableFactory varFactory;
+    private CspIntVariable x;
+    private CspIntVariable y;
+    private CspBooleanVariable b;
+    private CspLongVariable l;
+    private CspFloatVariable f;
+    private CspDoubleVariable d;
+
+    public void setUp() {
+        solver = CspSolver.createSolver();
+        varFactory = solver.getVarFactory();
+        x = varFactory.intVar("x", 0, 10);
+        y = varFactory.intVar("y", 0, 10);
+        b = varFactory.booleanVar("b");
+        l = varFactory.longVar("l", 0, 100000000000L);
+        f = varFactory.floatVar("f", 0, 10);
+        d = varFactory.doubleVar("d", 0, 10);
+        solver.addVariable(x);
+        solver.addVariable(y);
+        solver.addVariable(b);
+        solver.addVariable(l);
+        solver.addVariable(f);
+        solver.addVariable(d);
+    }
+
+    public void tearDown() {
+        solver = null;
+        varFactory = null;
+        x = null;
+        y = null;
+        b = null;
+        l = null;
+        f = null;
+        d = null;
+    }
+
+    private SolutionLayout createLayout() {
+        SolutionScope scope = new SolutionScope();
+        scope.add(d);
+        scope.add(l);
+        scope.add(b);
+        scope.add(f);
+        scope.add(x);
+        scope.add(y);
+        return new SolutionLayout(scope);
+    }
+
+    /**
+     * Verifies variables are indexed in order of type
+     */
+    public void testLayout() {
+        SolutionLayout layout = createLayout();
+        assertEquals(6, layout.size());
+        assertTrue(layout.indexOf(x) < 2);
+        assertTrue(layout.indexOf(y) < 2);
+        assertEquals(2, layout.indexOf(b));
+        assertEquals(3, layout.indexOf(l));
+        assertEquals(4, layout.indexOf(f));
+        assertEquals(5, layout.indexOf(d));
+        assertTrue(layout.isBoolean(2));
+        assertTrue(layout.isLong(3));
+        assertTrue(layout.isIntegral(3));
+        assertFalse(layout.isIntegral(4));
+        assertEquals(-1, layout.indexOf(varFactory.intVar("z", 0, 1)));
+    }
+
+    /**
+     * Verifies set variables cannot be held in a compact solution
+     */
+    public void testSetVariableRejected() {
+        SolutionScope scope = new SolutionScope();
+        scope.add(varFactory.intSetVar("s", 0, 5));
+        try {
+            new SolutionLayout(scope);
+            fail("set variable should not be accepted");
+        }
+        catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Stores values of every type of variable and restores them after a reset
+     */
+    public void testStoreRestore() throws PropagationFailureException {
+        CompactSolution sol = new CompactSolution(createLayout());
+
+        x.setValue(3);
+        y.setMin(2);
+        y.setMax(7);
+        b.setTrue();
+        l.setValue(50000000000L);
+        f.setMin(1.5f);
+        f.setMax(2.5f);
+        d.setValue(4.25);
+        solver.storeSolution(sol);
+
+        assertEquals(3, sol.getValue(x));
+        assertEquals(2, sol.getMin(y));
+        assertEquals(7, sol.getMax(y));
+
+        solver.reset();
+        assertFalse(x.isBound());
+        assertFalse(b.isTrue());
+
+        solver.restoreSolution(sol);
+        assertEquals(3, x.getMin());
+        assertEquals(3, x.getMax());
+        assertEquals(2, y.getMin());
+        assertEquals(7, y.getMax());
+        assertTrue(b.isTrue());
+        assertEquals(50000000000L, l.getMin());
+        assertEquals(50000000000L, l.getMax());
+        assertEquals(1.5f, f.getMin(), 0);
+        assertEquals(2.5f, f.getMax(), 0);
+        assertEquals(4.25, d.getMin(), 0);
+        assertEquals(4.25, d.getMax(), 0);
+    }
+
+    /**
+     * Verifies variables that are not restorable are left unchanged
+     */
+    public void testNonRestorable() throws PropagationFailureException {
+        SolutionLayout layout = createLayout();
+        CompactSolution sol = new CompactSolution(layout);
+
+        x.setValue(3);
+        y.setValue(4);
+        solver.storeSolution(sol);
+        sol.setRestorable(layout.indexOf(y), false);
+        assertFalse(sol.isRestorable(layout.indexOf(y)));
+
+        solver.reset();
+        solver.restoreSolution(sol);
+        assertTrue(x.isBound());
+        assertFalse(y.isBound());
+    }
+
+    /**
+     * Verifies a neighbor restores its changes and the base solution
+     * restores all other variables
+     */
+    public void testRestoreNeighbor() throws PropagationFailureException {
+        SolutionLayout layout = createLayout();
+        CompactSolution sol = new CompactSolution(layout);
+
+        x.setValue(3);
+        y.setValue(4);
+        b.setFalse();
+        d.setValue(1);
+        solver.storeSolution(sol);
+
+        CompactNeighbor neighbor = new CompactNeighbor(1);
+        neighbor.setRange(layout.indexOf(d), 6.0, 6.0);
+        neighbor.setRange(layout.indexOf(b), 1L, 1L);
+        neighbor.setRange(layout.indexOf(x), 8L, 8L);
+        assertEquals(3, neighbor.size());
+
+        // changes are kept in order of index
+        assertEquals(layout.indexOf(x), neighbor.getIndex(0));
+        assertEquals(layout.indexOf(b), neighbor.getIndex(1));
+        assertEquals(layout.indexOf(d), neighbor.getIndex(2));
+        assertTrue(neighbor.contains(layout.indexOf(b)));
+        assertFalse(neighbor.contains(layout.indexOf(y)));
+
+        solver.reset();
+        solver.restoreNeighboringSolution(sol, neighbor);
+        assertEquals(8, x.getMin());
+        assertEquals(4, y.getMin());
+        assertTrue(b.isTrue());
+        assertEquals(6, d.getMin(), 0);
+
+        // base solution is unchanged by neighbor
+        solver.reset();
+        solver.restoreSolution(sol);
+        assertEquals(3, x.getMin());
+        assertTrue(b.isFalse());
+        assertEquals(1, d.getMin(), 0);
+    }
+
+    /**
+     * Verifies a compact solution converts to and from a solver solution
+     */
+    public void testSolverSolutionConversion() throws PropagationFailureException {
+        SolutionScope scope = new SolutionScope();
+        scope.add(x);
+        scope.add(b);
+        scope.add(l);
+        scope.add(d);
+        scope.setMinimizeObjective(x);
+
+        x.setValue(5);
+        b.setTrue();
+        l.setValue(12);
+        d.setValue(2.5);
+        SolverSolution solverSol = solver.storeSolution(scope);
+        solverSol.setRestorable(l, false);
+
+        SolutionLayout layout = new SolutionLayout(scope);
+        CompactSolution sol = new CompactSolution(layout);
+        sol.copy(solverSol);
+        assertEquals(5, sol.getValue(x));
+        assertEquals(1, sol.getIntegralMin(layout.indexOf(b)));
+        assertEquals(12, sol.getIntegralMax(layout.indexOf(l)));
+        assertEquals(2.5, sol.getRealMin(layout.indexOf(d)), 0);
+        assertFalse(sol.isRestorable(layout.indexOf(l)));
+        assertEquals(5, sol.getObjectiveVal(), 0);
+
+        SolverSolution copy = sol.toSolverSolution();
+        assertFalse(copy.isDifferent(solverSol));
+        assertFalse(solverSol.isDifferent(copy));
+        assertFalse(copy.isRestorable(l));
+        assertTrue(copy.isMinimizeObjective());
+        assertEquals(5, copy.getObjectiveVal(), 0);
+    }
+
+    /**
+     * Verifies the objective value is recorded when a solution is stored
+     */
+    public void testObjective() throws PropagationFailureException {
+        SolutionScope scope = new SolutionScope();
+        scope.add(x);
+        scope.setMaximizeObjective(y);
+
+        y.setMin(6);
+        CompactSolution sol = new CompactSolution(new SolutionLayout(scope));
+        solver.storeSolution(sol);
+        assertEquals(6, sol.getObjectiveVal(), 0);
+
+        CompactSolution copy = new CompactSolution(sol);
+        assertEquals(6, copy.getObjectiveVal(), 0);
+        assertFalse(copy.isDifferent(sol));
+    }
+
+    /**
+     * Verifies compact flip neighbors restore the same values as the neighbors
+     * of the flip neighborhood
+     */
+    public void testFlipNeighbors() throws PropagationFailureException {
+        CspIntVariable vars[] = new CspIntVariable[4];
+        for (int i=0; i<vars.length; i++)
+            vars[i] = varFactory.intVar("v" + i, 0, 1);
+        for (int i=0; i<vars.length; i++)
+            solver.addVariable(vars[i]);
+
+        SolutionScope scope = new SolutionScope();
+        scope.add(vars);
+        vars[0].setValue(1);
+        vars[2].setValue(0);
+        SolverSolution initial = solver.storeSolution(scope);
+        CompactSolution compact = new CompactSolution(new SolutionLayout(scope));
+        solver.storeSolution(compact);
+
+        FlipNeighborhood hood = new FlipNeighborhood(vars);
+        hood.setInitialSolution(initial);
+        assertNeighborsMatch(hood, initial, compact, vars);
+    }
+
+    /**
+     * Verifies compact swap neighbors restore the same values as the neighbors
+     * of the swap neighborhood, including swaps between types
+     */
+    public void testSwapNeighbors() throws PropagationFailureException {
+        CspNumVariable vars[] = new CspNumVariable[] {x, y, l, d};
+
+        SolutionScope scope = new SolutionScope();
+        scope.add(vars);
+        x.setValue(1);
+        y.setMin(3);
+        y.setMax(5);
+        l.setValue(7);
+        d.setMin(2.5);
+        d.setMax(8.5);
+        SolverSolution initial = solver.storeSolution(scope);
+        CompactSolution compact = new CompactSolution(new SolutionLayout(scope));
+        solver.storeSolution(compact);
+
+        SwapNeighborhood hood = new SwapNeighborhood(vars);
+        hood.setInitialSolution(initial);
+        assertNeighborsMatch(hood, initial, compact, vars);
+    }
+
+    private void assertNeighborsMatch(CompactNeighborhood hood, SolverSolution initial, CompactSolution compact, CspNumVariable vars[]) throws PropagationFailureException {
+        CompactNeighbor neighbor = new CompactNeighbor();
+        for (int i=0; i<hood.size(); i++) {
+            hood.getNeighbor(i, compact, neighbor);
+            assertNeighborMatches(i, hood.getNeighbor(i), initial, compact, neighbor, vars);
+        }
+    }
+
+    /**
+     * Restores a neighbor both as a solver solution and as a compact neighbor
+     * and compares the resulting domains
+     */
+    private void assertNeighborMatches(int i, SolverSolution expected, SolverSolution initial, CompactSolution compact, CompactNeighbor neighbor, CspNumVariable vars[]) throws PropagationFailureException {
+        double min[] = new double[vars.length];
+        double max[] = new double[vars.length];
+
+        solver.reset();
+        solver.restoreNeighboringSolution(initial, expected);
+        for (int j=0; j<vars.length; j++) {
+            min[j] = DoubleUtil.getMin(vars[j]);
+            max[j] = DoubleUtil.getMax(vars[j]);
+        }
+
+        solver.reset();
+        solver.restoreNeighboringSolution(compact, neighbor);
+        for (int j=0; j<vars.length; j++) {
+            assertEquals("neighbor " + i + " min of " + vars[j], min[j], DoubleUtil.getMin(vars[j]), 0);
+            assertEquals("neighbor " + i + " max of " + vars[j], max[j], DoubleUtil.getMax(vars[j]), 0);
+        }
+    }
+
+    /**
+     * Stores a large pool of solutions and verifies each can be restored
+     */
+    public void testSolutionPool() throws PropagationFailureException {
+        CspIntVariable vars[] = new CspIntVariable[20];
+        for (int i=0; i<vars.length; i++)
+            vars[i] = varFactory.intVar("v" + i, 0, 10000);
+        for (int i=0; i<vars.length; i++)
+            solver.addVariable(vars[i]);
+
+        SolutionScope scope = new SolutionScope();
+        scope.add(vars);
+        SolutionLayout layout = new SolutionLayout(scope);
+
+        CompactSolution pool[] = new CompactSolution[10000];
+        for (int s=0; s<pool.length; s++) {
+            pool[s] = new CompactSolution(layout);
+            solver.reset();
+            for (int i=0; i<vars.length; i++)
+                vars[i].setValue((s + i) % 10001);
+            solver.storeSolution(pool[s]);
+        }
+
+        for (int s=0; s<pool.length; s+=997) {
+            solver.reset();
+            solver.restoreSolution(pool[s]);
+            for (int i=0; i<vars.length; i++)
+                assertEquals((s + i) % 10001, vars[i].getMin());
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class SolutionTestSuite extends TestCase {
     public static Test suite() {
         TestSuite suite = new TestSuite();
         
+        suite.addTestSuite(CompactSolutionTest.class);
         suite.addTestSuite(SavedSolutionRestoreTest.class);
         
         return suite;
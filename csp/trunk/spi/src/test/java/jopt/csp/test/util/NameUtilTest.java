@@ -0,0 +1,44 @@
+package jopt.csp.test.util;
+
+import java.util.Arrays;
+
+import jopt.csp.spi.util.NameUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests generating unique names from several threads
+ */
+public class NameUtilTest extends TestCase {
+    private static final int THREADS = 4;
+    private static final int NAMES   = 1000000;
+
+    public NameUtilTest(String testName) {
+        super(testName);
+    }
+
+    public void testNumbersUniqueAcrossThreads() throws InterruptedException {
+        final long nums[][] = new long[THREADS][NAMES];
+
+        Thread threads[] = new Thread[THREADS];
+        for (int t=0; t<THREADS; t++) {
+            final long threadNums[] = nums[t];
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i=0; i<NAMES; i++)
+                        threadNums[i] = NameUtil.nextNum();
+                }
+            };
+        }
+        for (int t=0; t<THREADS; t++)
+            threads[t].start();
+        for (int t=0; t<THREADS; t++)
+            threads[t].join();
+
+        long all[] = new long[THREADS * NAMES];
+        for (int t=0; t<THREADS; t++)
+            System.arraycopy(nums[t], 0, all, t * NAMES, NAMES);
+        Arrays.sort(all);
+        for (int i=1; i<all.length; i++)
+            assertTrue("duplicate number " + all[i], all[i-1] != all[i]);
+    }
+}
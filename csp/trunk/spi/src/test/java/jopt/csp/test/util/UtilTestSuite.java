@@ -19,6 +19,7 @@ public class UtilTestSuite extends TestCase {
         suite.addTestSuite(IndexIteratorTest.class);
         suite.addTestSuite(IntIntervalSetTest.class);
         suite.addTestSuite(IntMapTest.class);
+        suite.addTestSuite(NameUtilTest.class);
         suite.addTestSuite(LongIntervalSetTest.class);
         suite.addTestSuite(NumberMathTest.class);
         suite.addTestSuite(NumUtilsTest.class);